@@ -0,0 +1,11 @@
+package com.hokori.web.Enum;
+
+/**
+ * Priority class of a Gemini request when the rate governor has to queue it.
+ * Lower ordinal is served first.
+ */
+public enum AIRequestPriority {
+    INTERACTIVE,    // User is waiting on the screen (conversation turns, conversation evaluation)
+    STANDARD,       // Regular learner features (sentence analysis, examples)
+    BACKGROUND      // Moderation and other work nobody is actively waiting for
+}
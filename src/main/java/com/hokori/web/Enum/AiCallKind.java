@@ -0,0 +1,32 @@
+package com.hokori.web.Enum;
+
+/**
+ * Type of AI backend call; used for LocalAiProvider profiles (ai.provider.local.<propertyName>.*)
+ * and as the recording folder of AiRecordReplayStore
+ */
+public enum AiCallKind {
+    LLM("llm", "Gemini"),
+    TRANSLATION("translation", "Translation"),
+    SENTIMENT("sentiment", "Sentiment Analysis"),
+    SPEECH_TO_TEXT("speech-to-text", "Speech-to-Text"),
+    TEXT_TO_SPEECH("text-to-speech", "Text-to-Speech");
+
+    private final String propertyName;
+    private final String serviceName;
+
+    AiCallKind(String propertyName, String serviceName) {
+        this.propertyName = propertyName;
+        this.serviceName = serviceName;
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    /**
+     * Service name used in AIServiceException
+     */
+    public String getServiceName() {
+        return serviceName;
+    }
+}
@@ -0,0 +1,12 @@
+package com.hokori.web.Enum;
+
+/**
+ * Where AI calls (Gemini, Translation, Natural Language, Speech-to-Text, Text-to-Speech) are served from.
+ * Set with ai.provider.mode; see AiProviderConfig.
+ */
+public enum AiProviderMode {
+    GOOGLE,     // Google Cloud APIs (production)
+    LOCAL,      // LocalAiProvider: deterministic fake answers with configurable latency / error rate, no network
+    RECORD,     // Google Cloud APIs, every successful answer is also written to ai.provider.record-dir
+    REPLAY      // Answers recorded by RECORD, read back from ai.provider.record-dir; unrecorded calls fail
+}
@@ -0,0 +1,9 @@
+package com.hokori.web.Enum;
+
+/**
+ * Phạm vi của 1 MinHash signature (CourseDuplicateDetectionService)
+ */
+public enum ContentSignatureScope {
+    COURSE,   // Toàn bộ text của khóa học: tiêu đề, mô tả và mọi lesson
+    LESSON    // Text của 1 lesson
+}
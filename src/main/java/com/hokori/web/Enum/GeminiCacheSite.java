@@ -0,0 +1,37 @@
+package com.hokori.web.Enum;
+
+import java.time.Duration;
+
+/**
+ * Call sites whose Gemini responses can be shared across users.
+ * Default TTL can be overridden with gemini.cache.ttl-hours.&lt;name in lower-kebab-case&gt;.
+ */
+public enum GeminiCacheSite {
+    LEARNING_MATERIALS(Duration.ofDays(7), true),      // Vocabulary/grammar/tips per (level, scenario)
+    STARTING_SUGGESTIONS(Duration.ofDays(7), true),    // Gợi ý câu mở đầu hội thoại
+    SCENARIO_MAPPING(Duration.ofDays(30), false),      // Free-text scenario -> scenario key
+    EXAMPLE_SENTENCES(Duration.ofDays(1), true),       // Câu ví dụ theo (level, topic ngẫu nhiên); refresh daily
+    SENTENCE_ANALYSIS(Duration.ofDays(30), true),      // Vocabulary/grammar/breakdown/related of one sentence
+    SENTENCE_TRANSLATION(Duration.ofDays(30), true);   // VI -> JA sentence translation
+
+    private final Duration defaultTtl;
+    // Response must contain parseable JSON to be cached (malformed output is not kept for the whole TTL)
+    private final boolean jsonResponse;
+
+    GeminiCacheSite(Duration defaultTtl, boolean jsonResponse) {
+        this.defaultTtl = defaultTtl;
+        this.jsonResponse = jsonResponse;
+    }
+
+    public Duration getDefaultTtl() {
+        return defaultTtl;
+    }
+
+    public boolean isJsonResponse() {
+        return jsonResponse;
+    }
+
+    public String propertyName() {
+        return name().toLowerCase().replace('_', '-');
+    }
+}
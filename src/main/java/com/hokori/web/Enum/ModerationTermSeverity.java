@@ -0,0 +1,9 @@
+package com.hokori.web.Enum;
+
+/**
+ * Mức độ của 1 từ trong danh sách lọc nội dung (ContentPreScreenService)
+ */
+public enum ModerationTermSeverity {
+    BLOCK,    // Chắc chắn vi phạm: chặn ngay (comment bị từ chối, khóa học bị cảnh báo an toàn)
+    REVIEW    // Có thể vi phạm tùy ngữ cảnh: vẫn đăng nhưng đánh dấu cho moderator xem
+}
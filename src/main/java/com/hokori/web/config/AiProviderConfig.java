@@ -0,0 +1,136 @@
+package com.hokori.web.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.language.v1.LanguageServiceClient;
+import com.google.cloud.speech.v1.SpeechClient;
+import com.google.cloud.texttospeech.v1.TextToSpeechClient;
+import com.google.cloud.translate.Translate;
+import com.hokori.web.Enum.AiCallKind;
+import com.hokori.web.Enum.AiProviderMode;
+import com.hokori.web.service.provider.AiRecordReplayStore;
+import com.hokori.web.service.provider.GoogleAiProviders;
+import com.hokori.web.service.provider.LlmProvider;
+import com.hokori.web.service.provider.LocalAiProvider;
+import com.hokori.web.service.provider.SentimentProvider;
+import com.hokori.web.service.provider.SpeechToTextProvider;
+import com.hokori.web.service.provider.TextToSpeechProvider;
+import com.hokori.web.service.provider.TranslationProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Chọn backend cho các AI provider theo ai.provider.mode (xem AiProviderMode).
+ * Bean trả về null khi backend không dùng được (Google client chưa cấu hình), giống GoogleCloudConfig;
+ * service kiểm tra null như trước đây với client.
+ *
+ * LLM: ở GOOGLE / RECORD, GeminiService tự gọi Gemini qua HTTP (và tự ghi câu trả lời khi RECORD),
+ * nên LlmProvider chỉ có ở LOCAL / REPLAY.
+ */
+@Configuration
+public class AiProviderConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiProviderConfig.class);
+
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+
+    @Value("${ai.provider.mode:GOOGLE}")
+    private AiProviderMode mode;
+
+    private LocalAiProvider localAiProvider;
+
+    public AiProviderConfig(ObjectMapper objectMapper, Environment environment) {
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+    }
+
+    @Bean
+    public LlmProvider llmProvider(AiRecordReplayStore recordReplayStore) {
+        LlmProvider provider = switch (mode) {
+            case GOOGLE, RECORD -> null;
+            case LOCAL -> localAiProvider();
+            case REPLAY -> (operation, requestJson, onText) -> recordReplayStore
+                    .replayAsync(AiCallKind.LLM, String.class, operation, requestJson)
+                    .thenApply(text -> {
+                        if (onText != null && text != null) {
+                            onText.accept(text);
+                        }
+                        return text;
+                    });
+        };
+        logger.info("AI provider mode: {}", mode);
+        return provider;
+    }
+
+    @Bean
+    public TranslationProvider translationProvider(ObjectProvider<Translate> translateClient,
+                                                   AiRecordReplayStore recordReplayStore) {
+        Translate client = translateClient.getIfAvailable();
+        JavaType resultType = objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, TranslationProvider.TranslationResult.class);
+        return select(client != null ? GoogleAiProviders.translation(client) : null,
+                google -> (texts, sourceLanguage, targetLanguage) -> recordReplayStore.call(AiCallKind.TRANSLATION,
+                        resultType, () -> google.translate(texts, sourceLanguage, targetLanguage),
+                        String.join("\u0000", texts), sourceLanguage, targetLanguage));
+    }
+
+    @Bean
+    public SentimentProvider sentimentProvider(ObjectProvider<LanguageServiceClient> languageServiceClient,
+                                               AiRecordReplayStore recordReplayStore) {
+        LanguageServiceClient client = languageServiceClient.getIfAvailable();
+        return select(client != null ? GoogleAiProviders.sentiment(client) : null,
+                google -> text -> recordReplayStore.call(AiCallKind.SENTIMENT,
+                        SentimentProvider.SentimentResult.class, () -> google.analyzeSentiment(text), text));
+    }
+
+    @Bean
+    public SpeechToTextProvider speechToTextProvider(ObjectProvider<SpeechClient> speechClient,
+                                                     AiRecordReplayStore recordReplayStore) {
+        SpeechClient client = speechClient.getIfAvailable();
+        return select(client != null ? GoogleAiProviders.speechToText(client) : null,
+                google -> (audio, config) -> recordReplayStore.call(AiCallKind.SPEECH_TO_TEXT,
+                        SpeechToTextProvider.Transcript.class, () -> google.recognize(audio, config),
+                        audio, config.toByteArray()));
+    }
+
+    @Bean
+    public TextToSpeechProvider textToSpeechProvider(ObjectProvider<TextToSpeechClient> textToSpeechClient,
+                                                     AiRecordReplayStore recordReplayStore) {
+        TextToSpeechClient client = textToSpeechClient.getIfAvailable();
+        return select(client != null ? GoogleAiProviders.textToSpeech(client) : null,
+                google -> (text, languageCode, voiceName, speakingRate) -> recordReplayStore.call(
+                        AiCallKind.TEXT_TO_SPEECH, byte[].class,
+                        () -> google.synthesizeMp3(text, languageCode, voiceName, speakingRate),
+                        text, languageCode, voiceName, speakingRate));
+    }
+
+    /**
+     * @param google   provider Google (null nếu client chưa cấu hình)
+     * @param recorded bọc 1 provider bằng AiRecordReplayStore; ở REPLAY nhận null vì không bao giờ gọi tới Google
+     */
+    @SuppressWarnings("unchecked")
+    private <P> P select(P google, UnaryOperator<P> recorded) {
+        return switch (mode) {
+            case GOOGLE -> google;
+            case LOCAL -> (P) localAiProvider();
+            case RECORD -> google != null ? recorded.apply(google) : null;
+            case REPLAY -> recorded.apply(null);
+        };
+    }
+
+    private synchronized LocalAiProvider localAiProvider() {
+        if (localAiProvider == null) {
+            localAiProvider = new LocalAiProvider(objectMapper, environment);
+        }
+        return localAiProvider;
+    }
+}
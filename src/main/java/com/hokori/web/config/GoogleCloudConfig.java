@@ -10,6 +10,7 @@ import com.google.cloud.speech.v1.SpeechSettings;
 import com.google.cloud.texttospeech.v1.TextToSpeechClient;
 import com.google.cloud.texttospeech.v1.TextToSpeechSettings;
 import com.google.api.gax.core.FixedCredentialsProvider;
+import com.hokori.web.Enum.AiProviderMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,12 +18,15 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.http.HttpClient;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 
 /**
  * Configuration for Google Cloud AI services
@@ -39,9 +43,19 @@ public class GoogleCloudConfig {
     @Value("${google.cloud.enabled:false}")
     private boolean googleCloudEnabled;
     
+    // LOCAL / REPLAY serve AI calls without Google, so the clients (and credentials) are not needed
+    @Value("${ai.provider.mode:GOOGLE}")
+    private AiProviderMode providerMode;
+    
     @Value("${google.cloud.credentials.path:classpath:google-cloud-service-account.json}")
     private String credentialsPath;
     
+    @Value("${gemini.http.connect-timeout-ms:5000}")
+    private long geminiConnectTimeoutMs;
+    
+    @Value("${gemini.http.request-timeout-ms:60000}")
+    private long geminiRequestTimeoutMs;
+    
     // Environment variables for Railway (alternative to JSON file)
     @Value("${google.cloud.private-key:}")
     private String privateKey;
@@ -151,12 +165,18 @@ public class GoogleCloudConfig {
         );
     }
     
+    private boolean googleClientsNeeded() {
+        return googleCloudEnabled
+            && providerMode != AiProviderMode.LOCAL
+            && providerMode != AiProviderMode.REPLAY;
+    }
+    
     /**
      * Bean for Cloud Translation API
      */
     @Bean
     public Translate translateClient() {
-        if (!googleCloudEnabled) {
+        if (!googleClientsNeeded()) {
             return null;
         }
         try {
@@ -179,7 +199,7 @@ public class GoogleCloudConfig {
      */
     @Bean
     public LanguageServiceClient languageServiceClient() {
-        if (!googleCloudEnabled) {
+        if (!googleClientsNeeded()) {
             return null;
         }
         try {
@@ -204,7 +224,7 @@ public class GoogleCloudConfig {
      */
     @Bean
     public SpeechClient speechClient() {
-        if (!googleCloudEnabled) {
+        if (!googleClientsNeeded()) {
             return null;
         }
         try {
@@ -226,7 +246,7 @@ public class GoogleCloudConfig {
      */
     @Bean
     public TextToSpeechClient textToSpeechClient() {
-        if (!googleCloudEnabled) {
+        if (!googleClientsNeeded()) {
             return null;
         }
         try {
@@ -244,11 +264,25 @@ public class GoogleCloudConfig {
     }
 
     /**
-     * RestTemplate bean for HTTP calls (used for Gemini API)
+     * Shared HTTP client for Gemini API calls.
+     * The JDK client keeps a connection pool and supports non-blocking sendAsync.
+     */
+    @Bean
+    public HttpClient geminiHttpClient() {
+        return HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(geminiConnectTimeoutMs))
+            .build();
+    }
+
+    /**
+     * RestTemplate bean for generic HTTP calls, backed by the pooled client with timeouts
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(HttpClient geminiHttpClient) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(geminiHttpClient);
+        factory.setReadTimeout(Duration.ofMillis(geminiRequestTimeoutMs));
+        return new RestTemplate(factory);
     }
 }
 
@@ -0,0 +1,11 @@
+package com.hokori.web.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Bật @Scheduled cho các background job (vd: JlptSessionSweeperService)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig { }
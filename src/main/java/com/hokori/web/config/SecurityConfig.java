@@ -58,6 +58,7 @@ public class SecurityConfig {
                 .requestMatchers("/api-docs/**").permitAll()
                 .requestMatchers("/health").permitAll()
                 .requestMatchers("/files/**").permitAll() // Public file serving endpoint
+                .requestMatchers(HttpMethod.GET, "/tts-audio/**").permitAll() // Audio TTS đã lưu (content-addressed)
 
                 // 👇 Public marketplace courses (chỉ GET)
                 .requestMatchers(HttpMethod.GET,
@@ -14,9 +14,11 @@ import com.hokori.web.dto.ConversationRespondRequest;
 import com.hokori.web.dto.ConversationEndRequest;
 import com.hokori.web.service.AIService;
 import com.hokori.web.service.SpeakingPracticeService;
+import com.hokori.web.service.SpeechStreamingService;
 import com.hokori.web.service.KaiwaSentenceService;
 import com.hokori.web.service.SentenceAnalysisService;
 import com.hokori.web.service.AIPackageService;
+import com.hokori.web.service.AIQuotaLedgerService;
 import com.hokori.web.service.CurrentUserService;
 import com.hokori.web.service.ConversationPracticeService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -28,11 +30,23 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/ai")
@@ -41,6 +55,9 @@ import java.util.Map;
 public class AIController {
 
     private static final Logger logger = LoggerFactory.getLogger(AIController.class);
+    
+    /** Speech-to-text uploads (multipart / binary body): Google synchronous recognition inline content limit */
+    private static final long MAX_SPEECH_UPLOAD_BYTES = 10L * 1024 * 1024;
 
     @Autowired
     private AIService aiService;
@@ -66,6 +83,15 @@ public class AIController {
     @Autowired(required = false)
     private ConversationPracticeService conversationPracticeService;
 
+    @Autowired(required = false)
+    private SpeechStreamingService speechStreamingService;
+
+    @Value("${conversation.stream.timeout-ms:150000}")
+    private long conversationStreamTimeoutMs;
+
+    @Value("${ai.speech-to-text.streaming.timeout-ms:330000}")
+    private long speechStreamTimeoutMs;
+
     @PostMapping("/translate")
     @Operation(
         summary = "Translate text",
@@ -328,10 +354,144 @@ public class AIController {
         }
     }
 
+    @PostMapping(value = "/speech-to-text/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(
+        summary = "Speech to text (multipart upload)",
+        description = "Same as /speech-to-text but the recording is sent as an 'audio' file part instead of base64 JSON " +
+                "(~33% smaller). Duration is read from the WAV/WebM/Ogg/FLAC header; WAV PCM is downmixed, downsampled " +
+                "and trimmed of leading/trailing silence before recognition. Max 10 MB / 60 seconds of speech."
+    )
+    public ResponseEntity<ApiResponse<Map<String, Object>>> speechToTextUpload(
+            @RequestPart("audio") MultipartFile audio,
+            @RequestParam(value = "language", required = false) String language,
+            @RequestParam(value = "audioFormat", required = false) String audioFormat) {
+        logger.info("Speech-to-text upload: language={}, audioFormat={}, size={}", 
+            language, audioFormat, audio.getSize());
+        
+        if (audio.isEmpty()) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Audio file is required"));
+        }
+        if (audio.getSize() > MAX_SPEECH_UPLOAD_BYTES) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(ApiResponse.error("Audio file is too large. Maximum allowed size is 10 MB"));
+        }
+        try {
+            return transcribeUpload(audio.getBytes(), language, audioFormat != null ? audioFormat : audioFormatOf(audio));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Could not read uploaded audio: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping(value = "/speech-to-text/upload", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "audio/*"})
+    @Operation(
+        summary = "Speech to text (raw binary body)",
+        description = "Request body is the recording itself (Content-Type: audio/webm, audio/wav, ... or " +
+                "application/octet-stream). The body is read straight from the request stream and rejected once it " +
+                "passes 10 MB. Same preprocessing as the multipart variant."
+    )
+    public ResponseEntity<ApiResponse<Map<String, Object>>> speechToTextBinary(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            @RequestParam(value = "language", required = false) String language,
+            @RequestParam(value = "audioFormat", required = false) String audioFormat) {
+        byte[] audio;
+        try {
+            audio = body.readNBytes((int) MAX_SPEECH_UPLOAD_BYTES + 1);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Could not read uploaded audio: " + e.getMessage()));
+        }
+        logger.info("Speech-to-text binary upload: language={}, contentType={}, size={}", language, contentType, audio.length);
+        
+        if (audio.length == 0) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Audio data is required"));
+        }
+        if (audio.length > MAX_SPEECH_UPLOAD_BYTES) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(ApiResponse.error("Audio file is too large. Maximum allowed size is 10 MB"));
+        }
+        return transcribeUpload(audio, language, audioFormat != null ? audioFormat : audioFormatOfContentType(contentType));
+    }
+    
+    @PostMapping(value = "/speech-to-text/stream",
+            consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "audio/*"},
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Speech to text for long recordings (streaming)",
+        description = "For recordings over 60 seconds (speaking exercises, end-of-conversation monologues), up to the " +
+                "Google streaming limit of about 5 minutes. The request body is the recording itself (WebM/Ogg Opus, WAV, " +
+                "FLAC); it is forwarded to streaming recognition in 16 KB chunks while it uploads, never buffered whole. " +
+                "Server-Sent Events: 'interim' ({transcript, interim, stability}), 'final' (each finished segment: " +
+                "{index, transcript, confidence, endSeconds, fullTranscript}), 'done' (same fields as /speech-to-text " +
+                "plus segments and durationSeconds) or 'error' ({message, code})."
+    )
+    public SseEmitter speechToTextStream(
+            InputStream body,
+            @RequestParam(value = "language", required = false) String language,
+            @RequestParam(value = "audioFormat", required = false) String audioFormat,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType) {
+        logger.info("Streaming speech-to-text request: language={}, contentType={}", language, contentType);
+        
+        // Recognition may finish shortly after the upload ends: leave room past the service's own timeout
+        SseEmitter emitter = new SseEmitter(speechStreamTimeoutMs + 30_000);
+        if (speechStreamingService == null) {
+            return sendErrorAndComplete(emitter, "Streaming speech-to-text is not available", "SERVICE_DISABLED");
+        }
+        
+        CompletableFuture<Map<String, Object>> transcription = speechStreamingService.streamSpeechToText(
+            body, language, audioFormat != null ? audioFormat : audioFormatOfContentType(contentType),
+            (name, data) -> {
+                try {
+                    emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+                } catch (IOException e) {
+                    // Client disconnected: failing here cancels the recognition stream
+                    throw new UncheckedIOException(e);
+                }
+            });
+        
+        emitter.onTimeout(() -> transcription.cancel(true));
+        emitter.onError(error -> transcription.cancel(true));
+        
+        transcription.whenComplete((result, ex) -> {
+            if (ex == null) {
+                try {
+                    emitter.send(SseEmitter.event().name("done").data(result, MediaType.APPLICATION_JSON));
+                    emitter.complete();
+                } catch (IOException e) {
+                    emitter.completeWithError(e);
+                }
+                return;
+            }
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof java.util.concurrent.CancellationException || cause instanceof UncheckedIOException) {
+                logger.debug("Streaming speech-to-text aborted: {}", cause.getMessage());
+                emitter.complete();
+                return;
+            }
+            logger.error("Streaming speech-to-text failed", cause);
+            String code = cause instanceof com.hokori.web.exception.AIServiceException aiError
+                ? aiError.getErrorCode() : "AI_SERVICE_ERROR";
+            sendErrorAndComplete(emitter, "Speech transcription failed: " + cause.getMessage(), code);
+        });
+        return emitter;
+    }
+    
+    private ResponseEntity<ApiResponse<Map<String, Object>>> transcribeUpload(byte[] audio, String language, String audioFormat) {
+        try {
+            Map<String, Object> transcriptionResult = aiService.speechToText(audio, language, audioFormat);
+            logger.debug("Speech-to-text successful: transcript={}, confidence={}", 
+                transcriptionResult.get("transcript"), transcriptionResult.get("confidence"));
+            return ResponseEntity.ok(ApiResponse.success("Speech transcribed successfully", transcriptionResult));
+        } catch (Exception e) {
+            logger.error("Speech transcription failed", e);
+            return ResponseEntity.ok(ApiResponse.error("Speech transcription failed: " + e.getMessage()));
+        }
+    }
+
     @PostMapping("/text-to-speech")
     @Operation(
         summary = "Text to speech",
-        description = "Convert text to speech using Google Cloud Text-to-Speech API",
+        description = "Convert text to speech using Google Cloud Text-to-Speech API. " +
+                "Audio is cached by (text, voice, speed) and returned as audioUrl; set includeAudioData=true to also get base64 audioData",
         requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
             description = "Text and voice settings for speech synthesis",
             required = true,
@@ -361,7 +521,8 @@ public class AIController {
                                 "  \"success\": true,\n" +
                                 "  \"message\": \"Text converted to speech successfully\",\n" +
                                 "  \"data\": {\n" +
-                                "    \"audioData\": \"UklGRiQAAABXQVZFZm10IBAAAAABAAEAQB8AAEAfAAABAAgAZGF0YQAAAAA=\",\n" +
+                                "    \"audioUrl\": \"https://cdn.example.com/tts/3f/3f9a...c2.mp3\",\n" +
+                                "    \"cached\": true,\n" +
                                 "    \"audioFormat\": \"mp3\",\n" +
                                 "    \"audioSize\": 12345\n" +
                                 "  }\n" +
@@ -389,7 +550,8 @@ public class AIController {
             Map<String, Object> speechResult = aiService.textToSpeech(
                 request.getText(), 
                 request.getVoice(), 
-                request.getSpeed()
+                request.getSpeed(),
+                Boolean.TRUE.equals(request.getIncludeAudioData())
             );
             logger.debug("Text-to-speech successful: audioSize={}", speechResult.get("audioSize"));
             return ResponseEntity.ok(ApiResponse.success("Text converted to speech successfully", speechResult));
@@ -618,6 +780,96 @@ public class AIController {
         return ResponseEntity.ok(ApiResponse.success("Default settings for Vietnamese users", defaults));
     }
 
+    @PostMapping(value = "/kaiwa-practice/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(
+        summary = "Kaiwa drill (batch)",
+        description = "Score a whole pronunciation drill in one request. " +
+                "Send the recordings as repeated 'audio' file parts and the sentences as repeated 'targetTexts' " +
+                "parts in the same order (max ai.kaiwa.drill.max-recordings, default 20). " +
+                "Speech recognition runs concurrently; every sentence is scored like /kaiwa-practice and the " +
+                "response aggregates average scores, weakest sentences and most-missed words. " +
+                "Quota: 1 request per recording, reserved up front; recordings that fail are refunded."
+    )
+    public ResponseEntity<ApiResponse<Map<String, Object>>> practiceKaiwaDrill(
+            @RequestPart("audio") List<MultipartFile> audioFiles,
+            @RequestParam("targetTexts") List<String> targetTexts,
+            @RequestParam(value = "level", required = false) String level,
+            @RequestParam(value = "language", required = false) String language,
+            @RequestParam(value = "audioFormat", required = false) String audioFormat) {
+        logger.info("Kaiwa drill request: recordings={}, targetTexts={}, level={}",
+            audioFiles.size(), targetTexts.size(), level);
+        
+        if (audioFiles.size() != targetTexts.size()) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(
+                String.format("Number of recordings (%d) must match number of target texts (%d)",
+                    audioFiles.size(), targetTexts.size())));
+        }
+        if (speakingPracticeService == null) {
+            return ResponseEntity.ok(ApiResponse.error("Speaking practice service is not available"));
+        }
+        
+        List<SpeakingPracticeService.DrillRecording> recordings = new java.util.ArrayList<>(audioFiles.size());
+        try {
+            for (int i = 0; i < audioFiles.size(); i++) {
+                MultipartFile file = audioFiles.get(i);
+                recordings.add(new SpeakingPracticeService.DrillRecording(targetTexts.get(i), file.getBytes(),
+                    audioFormat != null ? audioFormat : audioFormatOf(file)));
+            }
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Could not read uploaded audio: " + e.getMessage()));
+        }
+        
+        AIQuotaLedgerService.Reservation reservation = null;
+        try {
+            // Reserve 1 KAIWA request per recording (atomic); failed recordings are refunded below
+            if (currentUserService != null && aiPackageService != null) {
+                Long userId = currentUserService.getUserIdOrThrow();
+                try {
+                    reservation = aiPackageService.reserveAIService(userId, com.hokori.web.Enum.AIServiceType.KAIWA,
+                        recordings.size());
+                } catch (org.springframework.web.server.ResponseStatusException e) {
+                    return ResponseEntity.status(e.getStatusCode())
+                            .body(ApiResponse.error(e.getReason()));
+                }
+            }
+            
+            Map<String, Object> report = speakingPracticeService.practiceKaiwaDrill(recordings, language, level);
+            
+            int failed = ((Number) report.get("failedSentences")).intValue();
+            if (reservation != null && failed > 0) {
+                aiPackageService.refundAIService(reservation.portion(failed));
+            }
+            return ResponseEntity.ok(ApiResponse.success("Kaiwa drill completed", report));
+        } catch (Exception e) {
+            logger.error("Kaiwa drill failed", e);
+            if (reservation != null) {
+                aiPackageService.refundAIService(reservation);
+            }
+            return ResponseEntity.ok(ApiResponse.error("Kaiwa drill failed: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Audio format from the uploaded file name / content type (null = detect from magic bytes)
+     */
+    private static String audioFormatOf(MultipartFile file) {
+        String name = file.getOriginalFilename();
+        if (name != null && name.lastIndexOf('.') >= 0) {
+            return name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+        }
+        return audioFormatOfContentType(file.getContentType());
+    }
+    
+    /**
+     * "audio/webm;codecs=opus" -> "webm", "audio/x-wav" -> "wav" (null = detect from magic bytes)
+     */
+    private static String audioFormatOfContentType(String contentType) {
+        if (contentType != null && contentType.startsWith("audio/")) {
+            return contentType.substring("audio/".length()).replace("x-", "").split(";")[0].trim();
+        }
+        return null;
+    }
+
     @PostMapping("/sentence-analysis")
     @Operation(
         summary = "Analyze Japanese sentence", 
@@ -713,35 +965,37 @@ public class AIController {
             )
         }
     )
-    public ResponseEntity<ApiResponse<SentenceAnalysisResponse>> analyzeSentence(
+    public CompletableFuture<ResponseEntity<ApiResponse<SentenceAnalysisResponse>>> analyzeSentence(
             @Valid @RequestBody SentenceAnalysisRequest request) {
         logger.info("Sentence analysis request: sentenceLength={}, level={}",
             request.getSentence() != null ? request.getSentence().length() : 0,
             request.getLevel());
 
-        try {
-            if (!request.isValidLevel()) {
-                return ResponseEntity.ok(ApiResponse.error("Invalid JLPT level. Valid levels: N5, N4, N3, N2, N1"));
-            }
+        if (!request.isValidLevel()) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.ok(ApiResponse.error("Invalid JLPT level. Valid levels: N5, N4, N3, N2, N1")));
+        }
 
-            if (sentenceAnalysisService == null) {
-                return ResponseEntity.ok(ApiResponse.error("Sentence analysis service is not available"));
-            }
+        if (sentenceAnalysisService == null) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.ok(ApiResponse.error("Sentence analysis service is not available")));
+        }
 
-            SentenceAnalysisResponse analysisResult = sentenceAnalysisService.analyzeSentence(
+        // Servlet thread is released while Gemini analyzes; response is written when the future completes
+        return sentenceAnalysisService.analyzeSentence(
                 request.getSentence(),
-                request.getLevel()
-            );
-
-            logger.debug("Sentence analysis successful: vocabularyCount={}, grammarCount={}",
-                analysisResult.getVocabulary() != null ? analysisResult.getVocabulary().size() : 0,
-                analysisResult.getGrammar() != null ? analysisResult.getGrammar().size() : 0);
-
-            return ResponseEntity.ok(ApiResponse.success("Sentence analysis completed", analysisResult));
-        } catch (Exception e) {
-            logger.error("Sentence analysis failed", e);
-            return ResponseEntity.ok(ApiResponse.error("Sentence analysis failed: " + e.getMessage()));
-        }
+                request.getLevel())
+            .thenApply(analysisResult -> {
+                logger.debug("Sentence analysis successful: vocabularyCount={}, grammarCount={}",
+                    analysisResult.getVocabulary() != null ? analysisResult.getVocabulary().size() : 0,
+                    analysisResult.getGrammar() != null ? analysisResult.getGrammar().size() : 0);
+                return ResponseEntity.ok(ApiResponse.success("Sentence analysis completed", analysisResult));
+            })
+            .exceptionally(ex -> {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                logger.error("Sentence analysis failed", cause);
+                return ResponseEntity.ok(ApiResponse.error("Sentence analysis failed: " + cause.getMessage()));
+            });
     }
 
     @GetMapping("/sentence-examples/{level}")
@@ -749,32 +1003,35 @@ public class AIController {
         summary = "Get example sentences for sentence analysis practice",
         description = "Get list of example Japanese sentences suitable for vocabulary and grammar analysis (NOT conversation practice). These sentences are designed for learning vocabulary and grammar patterns, not for speaking practice."
     )
-    public ResponseEntity<ApiResponse<Map<String, Object>>> getSentenceExamples(
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Object>>>> getSentenceExamples(
             @PathVariable String level) {
         logger.info("Getting sentence examples for level: {}", level);
         
         if (sentenceAnalysisService == null) {
-            return ResponseEntity.ok(ApiResponse.error("Sentence analysis service is not available"));
+            return CompletableFuture.completedFuture(
+                ResponseEntity.ok(ApiResponse.error("Sentence analysis service is not available")));
         }
         
-        try {
-            // Validate level
-            if (!isValidLevel(level)) {
-                return ResponseEntity.ok(ApiResponse.error("Invalid JLPT level. Valid levels: N5, N4, N3, N2, N1"));
-            }
-
-            List<Map<String, Object>> sentences = sentenceAnalysisService.getExampleSentences(level);
-            
-            Map<String, Object> result = new java.util.HashMap<>();
-            result.put("level", level.toUpperCase());
-            result.put("sentences", sentences);
-            result.put("count", sentences.size());
-            
-            return ResponseEntity.ok(ApiResponse.success("Example sentences for sentence analysis - " + level, result));
-        } catch (Exception e) {
-            logger.error("Failed to get sentence examples", e);
-            return ResponseEntity.ok(ApiResponse.error("Failed to get sentence examples: " + e.getMessage()));
+        // Validate level
+        if (!isValidLevel(level)) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.ok(ApiResponse.error("Invalid JLPT level. Valid levels: N5, N4, N3, N2, N1")));
         }
+
+        return sentenceAnalysisService.getExampleSentences(level)
+            .thenApply(sentences -> {
+                Map<String, Object> result = new java.util.HashMap<>();
+                result.put("level", level.toUpperCase());
+                result.put("sentences", sentences);
+                result.put("count", sentences.size());
+                
+                return ResponseEntity.ok(ApiResponse.success("Example sentences for sentence analysis - " + level, result));
+            })
+            .exceptionally(ex -> {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                logger.error("Failed to get sentence examples", cause);
+                return ResponseEntity.ok(ApiResponse.error("Failed to get sentence examples: " + cause.getMessage()));
+            });
     }
     
     @GetMapping("/sentence-examples/{level}/random")
@@ -782,31 +1039,33 @@ public class AIController {
         summary = "Get random example sentence for sentence analysis practice",
         description = "Get a random example Japanese sentence suitable for vocabulary and grammar analysis (NOT conversation practice)"
     )
-    public ResponseEntity<ApiResponse<Map<String, Object>>> getRandomSentenceExample(
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Object>>>> getRandomSentenceExample(
             @PathVariable String level) {
         logger.info("Getting random sentence example for level: {}", level);
         
         if (sentenceAnalysisService == null) {
-            return ResponseEntity.ok(ApiResponse.error("Sentence analysis service is not available"));
+            return CompletableFuture.completedFuture(
+                ResponseEntity.ok(ApiResponse.error("Sentence analysis service is not available")));
         }
         
-        try {
-            // Validate level
-            if (!isValidLevel(level)) {
-                return ResponseEntity.ok(ApiResponse.error("Invalid JLPT level. Valid levels: N5, N4, N3, N2, N1"));
-            }
-
-            Map<String, Object> sentence = sentenceAnalysisService.getRandomExampleSentence(level);
-            
-            if (sentence == null) {
-                return ResponseEntity.ok(ApiResponse.error("No example sentences available for level " + level));
-            }
-            
-            return ResponseEntity.ok(ApiResponse.success("Random sentence example for " + level, sentence));
-        } catch (Exception e) {
-            logger.error("Failed to get random sentence example", e);
-            return ResponseEntity.ok(ApiResponse.error("Failed to get random sentence example: " + e.getMessage()));
+        // Validate level
+        if (!isValidLevel(level)) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.ok(ApiResponse.error("Invalid JLPT level. Valid levels: N5, N4, N3, N2, N1")));
         }
+
+        return sentenceAnalysisService.getRandomExampleSentence(level)
+            .thenApply(sentence -> {
+                if (sentence == null) {
+                    return ResponseEntity.ok(ApiResponse.<Map<String, Object>>error("No example sentences available for level " + level));
+                }
+                return ResponseEntity.ok(ApiResponse.success("Random sentence example for " + level, sentence));
+            })
+            .exceptionally(ex -> {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                logger.error("Failed to get random sentence example", cause);
+                return ResponseEntity.ok(ApiResponse.error("Failed to get random sentence example: " + cause.getMessage()));
+            });
     }
 
     /**
@@ -872,67 +1131,62 @@ public class AIController {
             )
         }
     )
-    public ResponseEntity<ApiResponse<Map<String, Object>>> startConversation(
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Object>>>> startConversation(
             @Valid @RequestBody ConversationStartRequest request) {
         logger.info("Conversation start request: level={}, scenario={}", request.getLevel(), request.getScenario());
         
+        if (!request.isValidLevel()) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.ok(ApiResponse.error("Invalid JLPT level. Valid levels: N5, N4, N3, N2, N1")));
+        }
+        
+        if (conversationPracticeService == null) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.ok(ApiResponse.error("Conversation practice service is not available")));
+        }
+        
+        // Reserve quota up front (atomic); refunded below if the conversation cannot be started
+        AIQuotaLedgerService.Reservation reservation = null;
         try {
-            // Check quota
             if (currentUserService != null && aiPackageService != null) {
                 Long userId = currentUserService.getUserIdOrThrow();
-                try {
-                    if (!aiPackageService.canUseAIService(userId, com.hokori.web.Enum.AIServiceType.CONVERSATION)) {
-                        // Get quota info to provide better error message
-                        var quotaResponse = aiPackageService.getMyQuota(userId);
-                        String errorMessage = "You have used all available AI requests. ";
-                        if (quotaResponse.getRemainingRequests() != null && quotaResponse.getRemainingRequests() == 0) {
-                            errorMessage += String.format("Used %d/%d requests. ", 
-                                quotaResponse.getUsedRequests(), quotaResponse.getTotalRequests());
-                        }
-                        errorMessage += "Please purchase an AI package to continue using this feature.";
-                        return ResponseEntity.status(org.springframework.http.HttpStatus.FORBIDDEN)
-                                .body(ApiResponse.error(errorMessage));
-                    }
-                } catch (org.springframework.web.server.ResponseStatusException e) {
-                    // Re-throw with better message
-                    return ResponseEntity.status(e.getStatusCode())
-                            .body(ApiResponse.error(e.getReason()));
-                }
-            }
-            
-            if (!request.isValidLevel()) {
-                return ResponseEntity.ok(ApiResponse.error("Invalid JLPT level. Valid levels: N5, N4, N3, N2, N1"));
-            }
-            
-            if (conversationPracticeService == null) {
-                return ResponseEntity.ok(ApiResponse.error("Conversation practice service is not available"));
-            }
-            
-            Map<String, Object> result = conversationPracticeService.startConversation(
-                request.getLevel(),
-                request.getScenario()
-            );
-            
-            // Deduct quota
-            if (currentUserService != null && aiPackageService != null) {
-                Long userId = currentUserService.getUserIdOrThrow();
-                aiPackageService.useAIService(userId, com.hokori.web.Enum.AIServiceType.CONVERSATION, 1);
+                reservation = aiPackageService.reserveAIService(userId, com.hokori.web.Enum.AIServiceType.CONVERSATION, 1);
             }
-            
-            logger.debug("Conversation started successfully: conversationId={}", result.get("conversationId"));
-            return ResponseEntity.ok(ApiResponse.success("Conversation started", result));
+        } catch (org.springframework.web.server.ResponseStatusException e) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.status(e.getStatusCode()).body(ApiResponse.error(e.getReason())));
         } catch (Exception e) {
             logger.error("Conversation start failed", e);
-            return ResponseEntity.ok(ApiResponse.error("Conversation start failed: " + e.getMessage()));
+            return CompletableFuture.completedFuture(
+                ResponseEntity.ok(ApiResponse.error("Conversation start failed: " + e.getMessage())));
         }
+        AIQuotaLedgerService.Reservation reserved = reservation;
+        
+        // Servlet thread is released while Gemini generates; response is written when the future completes
+        return conversationPracticeService.startConversation(
+                request.getLevel(),
+                request.getScenario())
+            .thenApply(result -> {
+                logger.debug("Conversation started successfully: conversationId={}", result.get("conversationId"));
+                return ResponseEntity.ok(ApiResponse.success("Conversation started", result));
+            })
+            .exceptionally(ex -> {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                logger.error("Conversation start failed", cause);
+                if (reserved != null) {
+                    aiPackageService.refundAIService(reserved);
+                }
+                return ResponseEntity.ok(ApiResponse.error("Conversation start failed: " + cause.getMessage()));
+            });
     }
 
     @PostMapping("/conversation/respond")
     @Operation(
         summary = "Respond to conversation",
-        description = "Respond to AI's question and get next question. FE maintains conversation history.",
+        description = "Respond to AI's question and get next question. The server keeps the conversation history " +
+            "(conversationHistory is optional; when sent it is only used to restore an expired session).",
         requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
-            description = "Conversation ID, history, and user audio",
+            description = "Conversation ID and user audio (history optional)",
             required = true,
             content = @Content(
                 mediaType = "application/json",
@@ -940,50 +1194,151 @@ public class AIController {
             )
         )
     )
-    public ResponseEntity<ApiResponse<Map<String, Object>>> respondToConversation(
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Object>>>> respondToConversation(
             @Valid @RequestBody ConversationRespondRequest request) {
         logger.info("Conversation respond request: conversationId={}, historySize={}", 
             request.getConversationId(), 
             request.getConversationHistory() != null ? request.getConversationHistory().size() : 0);
         
-        try {
-            if (!request.isValidAudioFormat()) {
-                return ResponseEntity.ok(ApiResponse.error("Invalid audio format. Valid formats: wav, mp3, flac, ogg, webm"));
-            }
-            
-            // Validate audio data is not empty
-            if (!request.isValidAudioData()) {
-                return ResponseEntity.ok(ApiResponse.error(
-                    "Audio data is empty or too short. Please record your response before submitting. " +
-                    "Make sure you have spoken something and the recording is complete."
-                ));
-            }
-            
-            if (conversationPracticeService == null) {
-                return ResponseEntity.ok(ApiResponse.error("Conversation practice service is not available"));
-            }
-            
-            String level = (request.getLevel() != null && !request.getLevel().isEmpty()) 
-                ? request.getLevel() : "N5";
-            String scenario = (request.getScenario() != null && !request.getScenario().isEmpty()) 
-                ? request.getScenario() : "greeting";
-            
-            Map<String, Object> result = conversationPracticeService.respondToConversation(
+        if (!request.isValidAudioFormat()) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.ok(ApiResponse.error("Invalid audio format. Valid formats: wav, mp3, flac, ogg, webm")));
+        }
+        
+        // Validate audio data is not empty
+        if (!request.isValidAudioData()) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(ApiResponse.error(
+                "Audio data is empty or too short. Please record your response before submitting. " +
+                "Make sure you have spoken something and the recording is complete."
+            )));
+        }
+        
+        if (conversationPracticeService == null) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.ok(ApiResponse.error("Conversation practice service is not available")));
+        }
+        
+        // Missing level/scenario: the service falls back to the server-side session (default N5 / greeting)
+        String level = request.getLevel();
+        String scenario = request.getScenario();
+        
+        // Servlet thread is released during speech-to-text and Gemini; response is written when the future completes
+        return conversationPracticeService.respondToConversation(
                 request.getConversationId(),
                 request.getConversationHistory(),
                 request.getAudioData(),
                 request.getAudioFormat(),
                 request.getLanguage(),
                 level,
-                scenario
-            );
-            
-            logger.debug("Conversation response processed: turnNumber={}", result.get("turnNumber"));
-            return ResponseEntity.ok(ApiResponse.success("Conversation response processed", result));
-        } catch (Exception e) {
-            logger.error("Conversation respond failed", e);
-            return ResponseEntity.ok(ApiResponse.error("Conversation respond failed: " + e.getMessage()));
+                scenario)
+            .thenApply(result -> {
+                logger.debug("Conversation response processed: turnNumber={}", result.get("turnNumber"));
+                return ResponseEntity.ok(ApiResponse.success("Conversation response processed", result));
+            })
+            .exceptionally(ex -> {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                logger.error("Conversation respond failed", cause);
+                return ResponseEntity.ok(ApiResponse.error("Conversation respond failed: " + cause.getMessage()));
+            });
+    }
+
+    @PostMapping(value = "/conversation/respond/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Respond to conversation (streaming)",
+        description = "Same request as /conversation/respond, answered as Server-Sent Events: " +
+                "'transcript' (user transcript), 'token' (AI reply text deltas), " +
+                "'sentence' (each complete sentence with audioUrl, in order, while the reply is still generating), " +
+                "'done' (full result, same fields as /conversation/respond with audioSegments instead of audioUrl) " +
+                "or 'error' ({message, code}).",
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Conversation ID and user audio (history optional)",
+            required = true,
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ConversationRespondRequest.class)
+            )
+        )
+    )
+    public SseEmitter streamConversationResponse(@Valid @RequestBody ConversationRespondRequest request) {
+        logger.info("Conversation stream request: conversationId={}, historySize={}",
+            request.getConversationId(),
+            request.getConversationHistory() != null ? request.getConversationHistory().size() : 0);
+
+        SseEmitter emitter = new SseEmitter(conversationStreamTimeoutMs);
+        if (!request.isValidAudioFormat()) {
+            return sendErrorAndComplete(emitter, "Invalid audio format. Valid formats: wav, mp3, flac, ogg, webm", "INVALID_INPUT");
+        }
+        if (!request.isValidAudioData()) {
+            return sendErrorAndComplete(emitter,
+                "Audio data is empty or too short. Please record your response before submitting. " +
+                "Make sure you have spoken something and the recording is complete.", "EMPTY_AUDIO");
+        }
+        if (conversationPracticeService == null) {
+            return sendErrorAndComplete(emitter, "Conversation practice service is not available", "SERVICE_DISABLED");
         }
+
+        // Missing level/scenario: the service falls back to the server-side session (default N5 / greeting)
+        String level = request.getLevel();
+        String scenario = request.getScenario();
+
+        CompletableFuture<Map<String, Object>> turn = conversationPracticeService.streamConversationTurn(
+            request.getConversationId(),
+            request.getConversationHistory(),
+            request.getAudioData(),
+            request.getAudioFormat(),
+            request.getLanguage(),
+            level,
+            scenario,
+            (name, data) -> {
+                try {
+                    emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+                } catch (IOException e) {
+                    // Client disconnected: failing here cancels the Gemini stream
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+        // Client gone or emitter timed out: stop generating
+        emitter.onTimeout(() -> turn.cancel(true));
+        emitter.onError(error -> turn.cancel(true));
+
+        turn.whenComplete((result, ex) -> {
+            if (ex == null) {
+                try {
+                    emitter.send(SseEmitter.event().name("done").data(result, MediaType.APPLICATION_JSON));
+                    emitter.complete();
+                } catch (IOException e) {
+                    emitter.completeWithError(e);
+                }
+                logger.debug("Conversation stream finished: turnNumber={}", result.get("turnNumber"));
+                return;
+            }
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof java.util.concurrent.CancellationException || cause instanceof UncheckedIOException
+                    || cause.getCause() instanceof UncheckedIOException) {
+                logger.debug("Conversation stream aborted: {}", cause.getMessage());
+                emitter.complete();
+                return;
+            }
+            logger.error("Conversation stream failed", cause);
+            String code = cause instanceof com.hokori.web.exception.AIServiceException aiError
+                ? aiError.getErrorCode() : "AI_SERVICE_ERROR";
+            sendErrorAndComplete(emitter, "Conversation respond failed: " + cause.getMessage(), code);
+        });
+        return emitter;
+    }
+
+    private SseEmitter sendErrorAndComplete(SseEmitter emitter, String message, String code) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("message", message);
+        error.put("code", code);
+        try {
+            emitter.send(SseEmitter.event().name("error").data(error, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
     }
 
     @PostMapping("/conversation/end")
@@ -999,34 +1354,35 @@ public class AIController {
             )
         )
     )
-    public ResponseEntity<ApiResponse<Map<String, Object>>> endConversation(
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Object>>>> endConversation(
             @Valid @RequestBody ConversationEndRequest request) {
         logger.info("Conversation end request: conversationId={}, historySize={}", 
             request.getConversationId(),
             request.getConversationHistory() != null ? request.getConversationHistory().size() : 0);
         
-        try {
-            if (conversationPracticeService == null) {
-                return ResponseEntity.ok(ApiResponse.error("Conversation practice service is not available"));
-            }
-            
-            String level = (request.getLevel() != null && !request.getLevel().isEmpty()) 
-                ? request.getLevel() : "N5";
-            String scenario = (request.getScenario() != null && !request.getScenario().isEmpty()) 
-                ? request.getScenario() : "greeting";
-            
-            Map<String, Object> result = conversationPracticeService.endConversation(
+        if (conversationPracticeService == null) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.ok(ApiResponse.error("Conversation practice service is not available")));
+        }
+        
+        // Missing level/scenario: the service falls back to the server-side session (default N5 / greeting)
+        String level = request.getLevel();
+        String scenario = request.getScenario();
+        
+        // Servlet thread is released while Gemini evaluates; response is written when the future completes
+        return conversationPracticeService.endConversation(
                 request.getConversationId(),
                 request.getConversationHistory(),
                 level,
-                scenario
-            );
-            
-            logger.debug("Conversation ended successfully: conversationId={}", request.getConversationId());
-            return ResponseEntity.ok(ApiResponse.success("Conversation ended", result));
-        } catch (Exception e) {
-            logger.error("Conversation end failed", e);
-            return ResponseEntity.ok(ApiResponse.error("Conversation end failed: " + e.getMessage()));
-        }
+                scenario)
+            .thenApply(result -> {
+                logger.debug("Conversation ended successfully: conversationId={}", request.getConversationId());
+                return ResponseEntity.ok(ApiResponse.success("Conversation ended", result));
+            })
+            .exceptionally(ex -> {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                logger.error("Conversation end failed", cause);
+                return ResponseEntity.ok(ApiResponse.error("Conversation end failed: " + cause.getMessage()));
+            });
     }
 }
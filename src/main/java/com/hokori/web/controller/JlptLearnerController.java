@@ -190,6 +190,23 @@ public class JlptLearnerController {
         return jlptTestService.getGrammarVocabQuestions(testId, userId);
     }
 
+    // Learner xem bảng xếp hạng của 1 test
+    @Operation(
+            summary = "Bảng xếp hạng JLPT Test",
+            description = """
+                    Top-N user theo điểm cao nhất của mỗi user (đồng điểm cùng hạng),
+                    kèm hạng và percentile của user hiện tại (null nếu chưa nộp bài lần nào).
+                    limit mặc định 10, tối đa 100.
+                    """
+    )
+    @GetMapping("/tests/{testId}/leaderboard")
+    @PreAuthorize("hasRole('LEARNER')")
+    public JlptLeaderboardResponse getLeaderboard(@PathVariable Long testId,
+                                                  @RequestParam(defaultValue = "10") int limit) {
+        Long userId = currentUserService.getUserIdOrThrow();
+        return jlptTestService.getLeaderboard(testId, userId, limit);
+    }
+
     @Operation(
             summary = "Lấy số người đang làm JLPT Test theo thời gian thực (dùng cho polling)",
             description = "FE có thể gọi mỗi 3s để cập nhật số người đang làm bài"
@@ -8,6 +8,8 @@ import com.hokori.web.entity.User;
 import com.hokori.web.repository.JlptEventRepository;
 import com.hokori.web.repository.JlptTestRepository;
 import com.hokori.web.service.CurrentUserService;
+import com.hokori.web.service.JlptItemAnalysisService;
+import com.hokori.web.service.JlptTestImportService;
 import com.hokori.web.service.JlptTestService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -35,6 +37,8 @@ import java.util.List;
 public class JlptTestController {
 
     private final JlptTestService jlptTestService;
+    private final JlptItemAnalysisService itemAnalysisService;
+    private final JlptTestImportService importService;
     private final JlptEventRepository eventRepo;
     private final JlptTestRepository testRepo;
     private final CurrentUserService currentUserService;
@@ -180,6 +184,38 @@ public class JlptTestController {
         return question;
     }
 
+    // ===== Moderator/Teacher: import hàng loạt câu hỏi + options từ file =====
+
+    @PostMapping(value = "/tests/{testId}/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAnyRole('MODERATOR', 'TEACHER')")
+    @Operation(
+            summary = "Moderator/Teacher import câu hỏi + options cho test từ file JSON/CSV",
+            description = """
+                    Thay cho việc gọi createQuestion/createOption từng câu:
+                    - JSON: {"questions": [{"questionType", "content", "explanation", "orderIndex",
+                      "audioPath", "imagePath", "imageAltText", "options": [{"content", "correct", "orderIndex", "imagePath"}]}]}
+                    - CSV: header + mỗi dòng 1 option, các dòng cùng question_no là 1 câu hỏi
+                      (question_no, question_type, content, explanation, order_index, audio_path, image_path,
+                      image_alt_text, option_content, option_correct, option_order_index, option_image_path, option_image_alt_text)
+                    - audioPath/imagePath phải upload trước qua /tests/{testId}/files
+                    - Có bất kỳ lỗi nào → không import gì cả, trả về 400 kèm danh sách lỗi
+                    - Đủ 4 kỹ năng sau khi import → test tự động được publish
+                    """
+    )
+    @ApiResponse(
+            responseCode = "201",
+            description = "Import thành công",
+            content = @Content(schema = @Schema(implementation = JlptTestImportResponse.class))
+    )
+    @ResponseStatus(org.springframework.http.HttpStatus.CREATED)
+    public JlptTestImportResponse importQuestions(
+            @PathVariable Long testId,
+            @RequestParam("file") MultipartFile file
+    ) {
+        currentUserService.getCurrentUserOrThrow();
+        return importService.importQuestions(testId, file);
+    }
+
     // ===== Moderator/Teacher: thêm option cho 1 câu hỏi =====
 
     @PostMapping("/questions/{questionId}/options")
@@ -278,6 +314,34 @@ public class JlptTestController {
         return jlptTestService.getResultForUser(testId, userId);
     }
 
+    // ===== Moderator/Teacher/Admin: item analysis của 1 test =====
+
+    @GetMapping("/tests/{testId}/item-analysis")
+    @PreAuthorize("hasAnyRole('ADMIN','MODERATOR','TEACHER')")
+    @Operation(
+            summary = "Thống kê chất lượng câu hỏi (item analysis) của 1 test",
+            description = """
+                    Tính từ thống kê tích luỹ sau mỗi lần learner nộp bài:
+                    - difficulty: tỉ lệ làm đúng (p-value)
+                    - discrimination: hệ số point-biserial giữa đúng/sai và tổng điểm
+                    - options: số lần mỗi đáp án được chọn
+                    - flags: TOO_EASY, TOO_HARD, LOW_DISCRIMINATION, NEGATIVE_DISCRIMINATION, INSUFFICIENT_DATA
+                    """
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "OK",
+            content = @Content(schema = @Schema(implementation = JlptItemAnalysisResponse.class))
+    )
+    public JlptItemAnalysisResponse getItemAnalysis(
+            @PathVariable Long testId
+    ) {
+        if (!testRepo.existsById(testId)) {
+            throw new EntityNotFoundException("Test not found");
+        }
+        return itemAnalysisService.getItemAnalysis(testId);
+    }
+
     // ===== Moderator/Teacher/Admin: cập nhật 1 test =====
 
     @PutMapping("/tests/{testId}")
@@ -4,10 +4,12 @@ import com.hokori.web.dto.ApiResponse;
 import com.hokori.web.dto.course.CourseRes;
 import com.hokori.web.dto.course.CourseRejectionRequest;
 import com.hokori.web.dto.moderator.CourseAICheckResponse;
+import com.hokori.web.dto.moderator.DuplicateMatchRes;
 import com.hokori.web.service.CourseService;
 import com.hokori.web.service.CourseModerationAIService;
 import com.hokori.web.service.CurrentUserService;
 import com.hokori.web.service.CourseCommentService;
+import com.hokori.web.service.CourseDuplicateDetectionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
@@ -44,6 +46,7 @@ public class ModeratorCourseController {
     private final CurrentUserService currentUserService;
     private final com.hokori.web.service.CourseFlagService courseFlagService;
     private final CourseCommentService commentService;
+    private final CourseDuplicateDetectionService duplicateDetectionService;
 
     private Long currentModeratorId() {
         return currentUserService.getCurrentUserId();
@@ -230,6 +233,25 @@ public class ModeratorCourseController {
         return ResponseEntity.ok(ApiResponse.success("AI check completed", result));
     }
 
+    @Operation(
+            summary = "Khóa học / lesson có thể bị trùng lặp",
+            description = "So nội dung khóa học (toàn khóa và từng lesson) với các khóa học khác bằng MinHash/LSH. " +
+                    "Trả về các cặp có độ tương đồng ước lượng từ ngưỡng cấu hình trở lên, cao nhất trước. " +
+                    "Signature được tính khi teacher gửi duyệt / gửi cập nhật."
+    )
+    @ApiResponses({
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "OK"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Forbidden - Not MODERATOR"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Course not found")
+    })
+    @GetMapping("/{id}/duplicates")
+    public ResponseEntity<ApiResponse<List<DuplicateMatchRes>>> listDuplicates(
+            @Parameter(name = "id", in = ParameterIn.PATH, required = true, description = "Course ID", example = "1")
+            @PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.success("OK", duplicateDetectionService.findDuplicates(id)));
+    }
+
     @Operation(
             summary = "Danh sách courses bị flag",
             description = "Lấy danh sách courses bị flag, sắp xếp theo số lượng flag (cao đến thấp). Chỉ hiển thị courses có status PUBLISHED hoặc FLAGGED."
@@ -291,6 +313,17 @@ public class ModeratorCourseController {
         return ResponseEntity.ok(ApiResponse.success("Comment đã được ẩn", null));
     }
     
+    @Operation(
+            summary = "Comment bị bộ lọc từ ngữ đánh dấu",
+            description = "Các comment đang hiển thị có chứa từ mức REVIEW trong danh sách lọc, kèm các từ đã khớp. Dùng API ẩn comment nếu vi phạm."
+    )
+    @GetMapping("/{courseId}/comments/flagged")
+    public ResponseEntity<ApiResponse<List<com.hokori.web.dto.comment.FlaggedCommentRes>>> listFlaggedComments(
+            @Parameter(name = "courseId", in = ParameterIn.PATH, required = true, description = "Course ID", example = "1")
+            @PathVariable Long courseId) {
+        return ResponseEntity.ok(ApiResponse.success("OK", commentService.listFlaggedCommentsAsModerator(courseId)));
+    }
+
     @Operation(
             summary = "Hiện lại một comment đã bị ẩn",
             description = "Moderator khôi phục (restore/enable) một comment đã bị ẩn. Comment sẽ hiển thị lại cho learners. Dùng khi moderator ẩn nhầm hoặc sau khi review lại."
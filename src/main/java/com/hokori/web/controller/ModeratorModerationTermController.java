@@ -0,0 +1,64 @@
+package com.hokori.web.controller;
+
+import com.hokori.web.dto.ApiResponse;
+import com.hokori.web.dto.moderator.ModerationTermReq;
+import com.hokori.web.dto.moderator.ModerationTermRes;
+import com.hokori.web.service.ContentPreScreenService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Danh sách từ cho bộ lọc nội dung cục bộ (comment, nội dung khóa học) chạy trước AI kiểm duyệt
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(value = "/api/moderator/moderation-terms", produces = MediaType.APPLICATION_JSON_VALUE)
+@Validated
+@PreAuthorize("hasRole('MODERATOR')")
+@Tag(name = "Moderator - Moderation Terms", description = "Quản lý danh sách từ cấm / từ cần xem lại")
+@SecurityRequirement(name = "Bearer Authentication")
+public class ModeratorModerationTermController {
+
+    private final ContentPreScreenService preScreenService;
+
+    @Operation(summary = "Danh sách từ đang lọc")
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<ModerationTermRes>>> list() {
+        List<ModerationTermRes> terms = preScreenService.listTerms().stream().map(ModerationTermRes::from).toList();
+        return ResponseEntity.ok(ApiResponse.success("OK", terms));
+    }
+
+    @Operation(
+            summary = "Thêm từ",
+            description = "BLOCK: comment chứa từ bị từ chối, khóa học bị cảnh báo an toàn. " +
+                    "REVIEW: comment vẫn đăng nhưng được đánh dấu cho moderator. " +
+                    "So khớp không phân biệt hoa/thường, full-width/half-width, katakana/hiragana; có phân biệt dấu tiếng Việt."
+    )
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<ModerationTermRes>> add(@Valid @RequestBody ModerationTermReq req) {
+        ModerationTermRes term = ModerationTermRes.from(
+                preScreenService.addTerm(req.getTerm(), req.getLanguage(), req.getSeverity()));
+        return ResponseEntity.ok(ApiResponse.success("Term added", term));
+    }
+
+    @Operation(summary = "Xoá từ")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> delete(
+            @Parameter(name = "id", in = ParameterIn.PATH, required = true, description = "Term ID", example = "1")
+            @PathVariable Long id) {
+        preScreenService.deleteTerm(id);
+        return ResponseEntity.ok(ApiResponse.success("Term removed", null));
+    }
+}
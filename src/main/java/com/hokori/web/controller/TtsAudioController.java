@@ -0,0 +1,46 @@
+package com.hokori.web.controller;
+
+import com.hokori.web.service.TtsAudioStoreService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serve audio TTS đã lưu trên disk local (ai.text-to-speech.store.backend=local).
+ * Endpoint: GET /tts-audio/{hash}.mp3
+ *
+ * File content-addressed nên không bao giờ đổi: cho browser/CDN cache vĩnh viễn.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/tts-audio")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class TtsAudioController {
+
+    private final TtsAudioStoreService ttsAudioStore;
+
+    @GetMapping("/{hash}.{format}")
+    public ResponseEntity<Resource> serveAudio(@PathVariable String hash, @PathVariable String format) {
+        Path file = ttsAudioStore.resolveLocalFile(hash, format);
+        if (file == null) {
+            log.debug("TTS audio not found: {}.{}", hash, format);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Audio not found");
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TtsAudioStoreService.contentType(format)))
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .eTag(hash)
+                .body(new FileSystemResource(file));
+    }
+}
@@ -2,14 +2,13 @@ package com.hokori.web.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 
 import java.util.List;
 import java.util.Map;
 
 /**
  * Request DTO for ending a conversation practice session
- * FE sends final conversation history for AI evaluation
+ * History for AI evaluation comes from the server-side session (or from FE if sent)
  */
 @Schema(description = "Request for ending a conversation practice session")
 public class ConversationEndRequest {
@@ -20,11 +19,9 @@ public class ConversationEndRequest {
             required = true)
     private String conversationId; // Temporary ID
     
-    @NotNull(message = "Conversation history is required")
-    @Schema(description = "Final complete conversation history", 
-            example = "[{\"role\":\"ai\",\"text\":\"こんにちは\",\"textVi\":\"Xin chào\"},{\"role\":\"user\",\"text\":\"こんにちは\",\"textVi\":\"Xin chào\"},...]", 
-            required = true)
-    private List<Map<String, String>> conversationHistory; // Final history
+    @Schema(description = "Optional. Final conversation history; defaults to the history kept by the server", 
+            example = "[{\"role\":\"ai\",\"text\":\"こんにちは\",\"textVi\":\"Xin chào\"},{\"role\":\"user\",\"text\":\"こんにちは\",\"textVi\":\"Xin chào\"},...]")
+    private List<Map<String, String>> conversationHistory; // Optional, server keeps the session
     
     @Schema(description = "JLPT level", 
             example = "N5", 
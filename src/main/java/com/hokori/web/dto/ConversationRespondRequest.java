@@ -2,7 +2,6 @@ package com.hokori.web.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
 import java.util.Base64;
@@ -11,7 +10,7 @@ import java.util.Map;
 
 /**
  * Request DTO for responding in a conversation practice session
- * FE maintains conversation history and sends it with each request
+ * Server keeps the conversation history per conversationId; FE only sends the new user turn
  */
 @Schema(description = "Request for responding in a conversation practice session")
 public class ConversationRespondRequest {
@@ -22,11 +21,10 @@ public class ConversationRespondRequest {
             required = true)
     private String conversationId; // Temporary ID, not stored in DB
     
-    @NotNull(message = "Conversation history is required")
-    @Schema(description = "Full conversation history maintained by FE", 
-            example = "[{\"role\":\"ai\",\"text\":\"こんにちは\",\"textVi\":\"Xin chào\"},{\"role\":\"user\",\"text\":\"こんにちは\",\"textVi\":\"Xin chào\"}]", 
-            required = true)
-    private List<Map<String, String>> conversationHistory; // Full history from FE
+    @Schema(description = "Optional. Full conversation history, only used to restore the server-side session " +
+            "when it has expired (older clients still send it on every turn)", 
+            example = "[{\"role\":\"ai\",\"text\":\"こんにちは\",\"textVi\":\"Xin chào\"},{\"role\":\"user\",\"text\":\"こんにちは\",\"textVi\":\"Xin chào\"}]")
+    private List<Map<String, String>> conversationHistory; // Optional, server keeps the session
     
     @NotBlank(message = "Audio data is required")
     @Size(max = 1400000, message = "Audio data must not exceed 1.3MB base64 (supports up to 60 seconds of audio)") // ~1.3MB base64 ≈ 1MB decoded (supports up to 60 seconds)
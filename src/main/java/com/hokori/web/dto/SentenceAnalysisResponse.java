@@ -38,6 +38,10 @@ public class SentenceAnalysisResponse {
             example = "[\"私は英語を勉強しています。\", \"彼は日本語を勉強しています。\"]")
     private List<String> relatedSentences; // Related example sentences
 
+    @Schema(description = "Words of the sentence with hiragana reading (furigana) and part of speech, from local morphological analysis",
+            example = "[{\"surface\": \"私\", \"reading\": \"わたし\", \"baseForm\": \"私\", \"partOfSpeech\": \"名詞\"}]")
+    private List<TokenInfo> tokens; // Word segmentation + furigana
+
     public SentenceAnalysisResponse() {}
 
     public SentenceAnalysisResponse(String sentence, String level) {
@@ -117,6 +121,14 @@ public class SentenceAnalysisResponse {
         this.vietnameseTranslation = vietnameseTranslation;
     }
 
+    public List<TokenInfo> getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(List<TokenInfo> tokens) {
+        this.tokens = tokens;
+    }
+
     /**
      * Nested class for sentence breakdown
      */
@@ -180,5 +192,67 @@ public class SentenceAnalysisResponse {
             this.explanationVi = explanationVi;
         }
     }
-}
 
+    /**
+     * Nested class for one word of the sentence (furigana)
+     */
+    @Schema(description = "One word of the sentence with its reading")
+    public static class TokenInfo {
+        @Schema(description = "Word as written", example = "勉強")
+        private String surface;
+
+        @Schema(description = "Reading in hiragana", example = "べんきょう")
+        private String reading;
+
+        @Schema(description = "Dictionary form", example = "勉強")
+        private String baseForm;
+
+        @Schema(description = "Part of speech (IPADIC)", example = "名詞")
+        private String partOfSpeech;
+
+        @Schema(description = "Whether the word contains kanji (show furigana)", example = "true")
+        private Boolean hasKanji;
+
+        public TokenInfo() {}
+
+        public String getSurface() {
+            return surface;
+        }
+
+        public void setSurface(String surface) {
+            this.surface = surface;
+        }
+
+        public String getReading() {
+            return reading;
+        }
+
+        public void setReading(String reading) {
+            this.reading = reading;
+        }
+
+        public String getBaseForm() {
+            return baseForm;
+        }
+
+        public void setBaseForm(String baseForm) {
+            this.baseForm = baseForm;
+        }
+
+        public String getPartOfSpeech() {
+            return partOfSpeech;
+        }
+
+        public void setPartOfSpeech(String partOfSpeech) {
+            this.partOfSpeech = partOfSpeech;
+        }
+
+        public Boolean getHasKanji() {
+            return hasKanji;
+        }
+
+        public void setHasKanji(Boolean hasKanji) {
+            this.hasKanji = hasKanji;
+        }
+    }
+}
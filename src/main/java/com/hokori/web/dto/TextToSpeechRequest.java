@@ -32,6 +32,11 @@ public class TextToSpeechRequest {
             defaultValue = "mp3")
     private String audioFormat; // Optional, default to "mp3"
     
+    @Schema(description = "Also return audio inline as base64 (audioData). By default only audioUrl is returned",
+            example = "false",
+            defaultValue = "false")
+    private Boolean includeAudioData; // Optional, default to false
+    
     // Constructors
     public TextToSpeechRequest() {}
     
@@ -75,6 +80,14 @@ public class TextToSpeechRequest {
         this.audioFormat = audioFormat;
     }
     
+    public Boolean getIncludeAudioData() {
+        return includeAudioData;
+    }
+    
+    public void setIncludeAudioData(Boolean includeAudioData) {
+        this.includeAudioData = includeAudioData;
+    }
+    
     // Validation methods
     public boolean isValidSpeed() {
         return speed == null || 
@@ -97,6 +110,7 @@ public class TextToSpeechRequest {
                 ", voice='" + voice + '\'' +
                 ", speed='" + speed + '\'' +
                 ", audioFormat='" + audioFormat + '\'' +
+                ", includeAudioData=" + includeAudioData +
                 '}';
     }
 }
@@ -0,0 +1,11 @@
+package com.hokori.web.dto.comment;
+
+import java.util.List;
+
+/**
+ * Comment bị bộ lọc từ ngữ đánh dấu, kèm các từ đã khớp
+ */
+public record FlaggedCommentRes(
+        CourseCommentDto comment,
+        List<String> flaggedTerms
+) {}
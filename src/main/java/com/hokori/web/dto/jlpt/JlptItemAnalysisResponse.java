@@ -0,0 +1,47 @@
+package com.hokori.web.dto.jlpt;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Item analysis của 1 JLPT Test: độ khó, độ phân hoá và phân bố đáp án của từng câu hỏi.
+ */
+@Value
+@Builder
+public class JlptItemAnalysisResponse {
+
+    Long testId;
+    List<QuestionStats> questions;
+
+    @Value
+    @Builder
+    public static class QuestionStats {
+        Long questionId;
+        String questionType;
+        Integer orderIndex;
+        String content;
+
+        long attemptCount;     // Số attempt đã chấm có câu này
+        long answeredCount;    // Số attempt có chọn đáp án
+        long correctCount;
+        Double difficulty;     // p-value = correctCount / attemptCount (null nếu chưa có attempt)
+        Double discrimination; // Point-biserial giữa đúng/sai câu này và tổng điểm (null nếu chưa đủ dữ liệu)
+
+        // TOO_EASY / TOO_HARD / LOW_DISCRIMINATION / NEGATIVE_DISCRIMINATION / INSUFFICIENT_DATA
+        List<String> flags;
+        List<OptionStats> options;
+    }
+
+    @Value
+    @Builder
+    public static class OptionStats {
+        Long optionId;
+        String content;
+        Integer orderIndex;
+        boolean correct;
+        long selectedCount;
+        Double selectedRatio;  // selectedCount / attemptCount
+    }
+}
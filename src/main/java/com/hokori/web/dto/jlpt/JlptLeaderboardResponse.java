@@ -0,0 +1,32 @@
+package com.hokori.web.dto.jlpt;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Bảng xếp hạng của 1 JLPT Test (tính theo điểm cao nhất của mỗi user).
+ */
+@Value
+@Builder
+public class JlptLeaderboardResponse {
+
+    Long testId;
+    int totalRanked;           // Số user đã có ít nhất 1 attempt
+    List<Entry> entries;       // Top-N, sắp xếp theo điểm giảm dần
+
+    // Vị trí của user hiện tại (null nếu chưa làm bài)
+    Integer myRank;
+    Double myBestScore;
+    Double myPercentile;
+
+    @Value
+    @Builder
+    public static class Entry {
+        int rank;
+        Long userId;
+        String displayName;
+        double score;
+    }
+}
@@ -0,0 +1,21 @@
+package com.hokori.web.dto.jlpt;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Kết quả import hàng loạt câu hỏi + options cho 1 JLPT Test.
+ */
+@Value
+@Builder
+public class JlptTestImportResponse {
+
+    Long testId;
+    int importedQuestions;
+    int importedOptions;
+    long totalQuestions;                 // Tổng số câu của test sau khi import
+    Map<String, Long> questionsByType;   // LISTENING / READING / GRAMMAR / VOCAB → số câu
+    boolean published;                   // Test đã đủ 4 kỹ năng → tự động publish
+}
@@ -23,6 +23,11 @@ public class JlptTestResultResponse {
     Long attemptId;        // ID của attempt (null nếu chưa nộp bài)
     Instant startedAt;     // Thời gian bắt đầu làm bài (null nếu chưa nộp bài)
     Instant submittedAt;    // Thời gian nộp bài (null nếu chưa nộp bài)
+
+    // Xếp hạng theo điểm cao nhất của user (chỉ có khi đã submit bài)
+    Integer rank;          // 1 = cao nhất, user đồng điểm cùng hạng
+    Integer totalRanked;   // Tổng số user đã làm test
+    Double percentile;     // Percentile rank (0-100)
     
     // ==== Điểm từng phần ====
     SectionScore grammarVocab;  // Grammar + Vocab (gộp chung)
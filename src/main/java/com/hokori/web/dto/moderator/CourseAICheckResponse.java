@@ -33,6 +33,12 @@ public class CourseAICheckResponse {
     private List<String> recommendations;
     private List<String> warnings;
     
+    /**
+     * Số phần (thông tin khóa học, từng chapter) được gửi AI kiểm tra lại / dùng lại kết quả đã lưu
+     */
+    private Integer partsChecked;
+    private Integer partsReused;
+    
     @Data
     @Builder
     @NoArgsConstructor
@@ -50,6 +56,11 @@ public class CourseAICheckResponse {
         
         private Boolean hasIssues;
         private String summary;
+        
+        /**
+         * Từ trong danh sách lọc tìm thấy trong nội dung, dạng "từ (vị trí)"
+         */
+        private List<String> flaggedTerms;
     }
     
     @Data
@@ -0,0 +1,20 @@
+package com.hokori.web.dto.moderator;
+
+import com.hokori.web.Enum.ContentSignatureScope;
+
+/**
+ * 1 cặp nội dung gần trùng giữa khóa học đang duyệt và 1 khóa học khác.
+ * scope = COURSE: so toàn bộ khóa học (lessonId null); LESSON: so từng lesson.
+ * similarity: độ tương đồng Jaccard ước lượng từ MinHash (0..1)
+ */
+public record DuplicateMatchRes(
+        ContentSignatureScope scope,
+        Long lessonId,
+        String lessonTitle,
+        Long matchedCourseId,
+        String matchedCourseTitle,
+        Long matchedLessonId,
+        String matchedLessonTitle,
+        double similarity
+) {
+}
@@ -0,0 +1,24 @@
+package com.hokori.web.dto.moderator;
+
+import com.hokori.web.Enum.ModerationTermSeverity;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ModerationTermReq {
+    @NotBlank(message = "Term is required")
+    @Size(max = 100)
+    private String term;
+
+    @NotBlank(message = "Language is required")
+    @Pattern(regexp = "ja|vi|en", message = "Language must be ja, vi or en")
+    private String language;
+
+    @NotNull(message = "Severity is required")
+    private ModerationTermSeverity severity; // BLOCK: chặn ngay, REVIEW: đánh dấu cho moderator
+}
@@ -0,0 +1,19 @@
+package com.hokori.web.dto.moderator;
+
+import com.hokori.web.Enum.ModerationTermSeverity;
+import com.hokori.web.entity.ModerationTerm;
+
+import java.time.Instant;
+
+public record ModerationTermRes(
+        Long id,
+        String term,
+        String language,
+        ModerationTermSeverity severity,
+        Instant createdAt
+) {
+    public static ModerationTermRes from(ModerationTerm term) {
+        return new ModerationTermRes(term.getId(), term.getTerm(), term.getLanguage(), term.getSeverity(),
+                term.getCreatedAt());
+    }
+}
@@ -0,0 +1,45 @@
+package com.hokori.web.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Tầng persistent của cache response Gemini (content-addressed).
+ * cache_key = SHA-256(model + generation config + prompt đã chuẩn hoá).
+ *
+ * Ghi bằng native upsert (AIResponseCacheRepository.upsert), entity chỉ dùng để đọc.
+ */
+@Entity
+@Table(
+        name = "ai_response_cache",
+        indexes = @Index(name = "idx_ai_response_cache_expires_at", columnList = "expires_at")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AIResponseCache {
+
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    // GeminiCacheSite, để thống kê/xoá theo call site
+    @Column(name = "site", nullable = false, length = 50)
+    private String site;
+
+    @Column(name = "model", nullable = false, length = 100)
+    private String model;
+
+    @Column(name = "response_text", nullable = false, columnDefinition = "TEXT")
+    private String responseText;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
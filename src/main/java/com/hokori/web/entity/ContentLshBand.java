@@ -0,0 +1,31 @@
+package com.hokori.web.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * 1 band key LSH của ContentSignature; các signature cùng band_key là ứng viên gần trùng.
+ * course_id lặp lại để loại chính khóa học đang kiểm tra ngay trong câu truy vấn.
+ */
+@Entity
+@Table(name = "content_lsh_band")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContentLshBand {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "signature_id", nullable = false)
+    private Long signatureId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "band_key", nullable = false)
+    private Long bandKey;
+}
@@ -0,0 +1,46 @@
+package com.hokori.web.entity;
+
+import com.hokori.web.Enum.ContentSignatureScope;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * MinHash signature của 1 khóa học hoặc 1 lesson (CourseDuplicateDetectionService).
+ * Tính lại mỗi lần khóa học được gửi duyệt; band key LSH nằm ở ContentLshBand.
+ */
+@Entity
+@Table(name = "content_signature")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContentSignature {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    // null khi scope = COURSE
+    @Column(name = "lesson_id")
+    private Long lessonId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope", nullable = false, length = 10)
+    private ContentSignatureScope scope;
+
+    @Column(name = "shingle_count", nullable = false)
+    private Integer shingleCount;
+
+    // MinHash.NUM_HASHES số int32 big-endian (MinHash.toBytes)
+    @Column(name = "signature", nullable = false, columnDefinition = "BYTEA")
+    private byte[] signature;
+
+    @Column(name = "computed_at", nullable = false)
+    private Instant computedAt;
+}
@@ -0,0 +1,40 @@
+package com.hokori.web.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Tài liệu học (scenarioDescription, vocabularyPreview, grammarPoints, tips) đã sinh sẵn
+ * cho 1 cặp (level, scenario key) của luyện hội thoại.
+ * material_key = level + ":" + scenario.
+ *
+ * Ghi bằng native upsert (ConversationLearningMaterialRepository.upsert), entity chỉ dùng để đọc.
+ */
+@Entity
+@Table(name = "conversation_learning_material")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationLearningMaterial {
+
+    @Id
+    @Column(name = "material_key", length = 64)
+    private String materialKey;
+
+    @Column(name = "level", nullable = false, length = 5)
+    private String level;
+
+    @Column(name = "scenario", nullable = false, length = 50)
+    private String scenario;
+
+    // JSON object: scenarioDescription, vocabularyPreview[], grammarPoints[], tips[]
+    @Column(name = "materials_json", nullable = false, columnDefinition = "TEXT")
+    private String materialsJson;
+
+    @Column(name = "generated_at", nullable = false)
+    private Instant generatedAt;
+}
@@ -55,5 +55,9 @@ public class CourseComment extends BaseEntity {
     @Column(name = "is_edited", nullable = false)
     private boolean edited = false;
 
+    // Từ trong danh sách lọc (mức REVIEW) xuất hiện trong nội dung, null nếu sạch; moderator xem lại
+    @Column(name = "flagged_terms", length = 500)
+    private String flaggedTerms;
+
     // deletedFlag, createdAt, updatedAt kế thừa từ BaseEntity
 }
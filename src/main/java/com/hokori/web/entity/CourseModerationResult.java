@@ -0,0 +1,51 @@
+package com.hokori.web.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Kết quả kiểm duyệt AI đã lưu cho 1 phần của khoá học (CourseModerationAIService).
+ * scope_key: "header" (tiêu đề/mô tả khoá học), "chapter:{id}", hoặc "course" (các check trên toàn khoá).
+ * Dùng lại khi content_hash và model_version còn khớp.
+ *
+ * Ghi bằng native upsert (CourseModerationResultRepository.upsert), entity chỉ dùng để đọc.
+ */
+@Entity
+@Table(
+        name = "course_moderation_result",
+        uniqueConstraints = @UniqueConstraint(name = "uk_course_moderation_result_scope",
+                columnNames = {"course_id", "scope_key"})
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CourseModerationResult {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "scope_key", nullable = false, length = 50)
+    private String scopeKey;
+
+    // SHA-256 của text đã chuẩn hoá của scope
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    // Phiên bản prompt kiểm duyệt + model Gemini; đổi thì toàn bộ kết quả cũ bị bỏ qua
+    @Column(name = "model_version", nullable = false, length = 100)
+    private String modelVersion;
+
+    @Column(name = "result_json", nullable = false, columnDefinition = "TEXT")
+    private String resultJson;
+
+    @Column(name = "checked_at", nullable = false)
+    private Instant checkedAt;
+}
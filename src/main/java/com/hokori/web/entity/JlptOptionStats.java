@@ -0,0 +1,36 @@
+package com.hokori.web.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Số lần mỗi JLPT Option được chọn (phân bố đáp án), cập nhật mỗi lần chấm 1 attempt.
+ * Ghi bằng native upsert (JlptItemAnalysisService), entity chỉ dùng để đọc.
+ */
+@Entity
+@Table(
+        name = "jlpt_option_stats",
+        indexes = @Index(name = "idx_jlpt_option_stats_question", columnList = "question_id")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JlptOptionStats {
+
+    @Id
+    @Column(name = "option_id")
+    private Long optionId;
+
+    @Column(name = "question_id", nullable = false)
+    private Long questionId;
+
+    @Column(name = "selected_count", nullable = false)
+    private Long selectedCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,57 @@
+package com.hokori.web.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Thống kê tích luỹ (streaming) cho 1 JLPT Question, cập nhật mỗi lần chấm 1 attempt.
+ * Chỉ lưu các tổng để tính được độ khó (p-value) và độ phân hoá (point-biserial)
+ * mà không cần quét lại jlpt_test_attempt_answers.
+ *
+ * Ghi bằng native upsert (JlptItemAnalysisService), entity chỉ dùng để đọc.
+ */
+@Entity
+@Table(
+        name = "jlpt_question_stats",
+        indexes = @Index(name = "idx_jlpt_question_stats_test", columnList = "test_id")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JlptQuestionStats {
+
+    @Id
+    @Column(name = "question_id")
+    private Long questionId;
+
+    @Column(name = "test_id", nullable = false)
+    private Long testId;
+
+    // Số attempt có câu hỏi này (kể cả bỏ trống)
+    @Column(name = "attempt_count", nullable = false)
+    private Long attemptCount;
+
+    // Số attempt có chọn đáp án
+    @Column(name = "answered_count", nullable = false)
+    private Long answeredCount;
+
+    @Column(name = "correct_count", nullable = false)
+    private Long correctCount;
+
+    // Σ tổng điểm attempt, Σ bình phương tổng điểm, Σ tổng điểm của attempt làm đúng câu này
+    @Column(name = "sum_score", nullable = false)
+    private Double sumScore;
+
+    @Column(name = "sum_score_sq", nullable = false)
+    private Double sumScoreSq;
+
+    @Column(name = "sum_correct_score", nullable = false)
+    private Double sumCorrectScore;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -7,7 +7,11 @@ import lombok.Setter;
 import java.time.Instant;
 
 @Entity
-@Table(name = "jlpt_user_test_session", uniqueConstraints = @UniqueConstraint(name = "uk_session_test_user", columnNames = {"test_id", "user_id"}))
+@Table(
+        name = "jlpt_user_test_session",
+        uniqueConstraints = @UniqueConstraint(name = "uk_session_test_user", columnNames = {"test_id", "user_id"}),
+        indexes = @Index(name = "idx_jlpt_session_expires_at", columnList = "expires_at")
+)
 @Getter
 @Setter
 public class JlptUserTestSession extends BaseEntity {
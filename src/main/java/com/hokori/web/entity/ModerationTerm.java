@@ -0,0 +1,33 @@
+package com.hokori.web.entity;
+
+import com.hokori.web.Enum.ModerationTermSeverity;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Từ/cụm từ trong danh sách lọc nội dung do moderator quản lý.
+ * normalizedTerm: dạng đã chuẩn hoá (NFKC, chữ thường, thống nhất vị trí dấu thanh tiếng Việt, katakana -> hiragana)
+ * dùng để dựng automaton Aho–Corasick; term giữ nguyên dạng moderator nhập để hiển thị.
+ */
+@Entity
+@Table(name = "moderation_term",
+        uniqueConstraints = @UniqueConstraint(name = "uk_moderation_term_normalized", columnNames = "normalized_term"))
+@Getter
+@Setter
+public class ModerationTerm extends BaseEntity {
+
+    @Column(name = "term", nullable = false, length = 100)
+    private String term;
+
+    @Column(name = "normalized_term", nullable = false, length = 100)
+    private String normalizedTerm;
+
+    // ja, vi, en
+    @Column(name = "language", nullable = false, length = 10)
+    private String language;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "severity", nullable = false, length = 20)
+    private ModerationTermSeverity severity;
+}
@@ -0,0 +1,54 @@
+package com.hokori.web.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Translation memory: bản dịch đã có của 1 đoạn text theo cặp ngôn ngữ.
+ * Key = (source_hash, source_lang, target_lang); source_hash = SHA-256 của text đã chuẩn hoá.
+ * source_lang = "auto" khi request không chỉ định ngôn ngữ nguồn.
+ *
+ * Ghi bằng native upsert (TranslationMemoryRepository.upsert).
+ */
+@Entity
+@Table(
+        name = "translation_memory",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_translation_memory_key",
+                columnNames = {"source_hash", "source_lang", "target_lang"}
+        )
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TranslationMemory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "source_hash", nullable = false, length = 64)
+    private String sourceHash;
+
+    @Column(name = "source_lang", nullable = false, length = 10)
+    private String sourceLang;
+
+    @Column(name = "target_lang", nullable = false, length = 10)
+    private String targetLang;
+
+    @Column(name = "source_text", nullable = false, columnDefinition = "TEXT")
+    private String sourceText;
+
+    @Column(name = "translated_text", nullable = false, columnDefinition = "TEXT")
+    private String translatedText;
+
+    @Column(name = "detected_source_lang", length = 10)
+    private String detectedSourceLang;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,55 @@
+package com.hokori.web.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Metadata của 1 file audio TTS đã tổng hợp (content-addressed).
+ * content_hash = SHA-256(text đã chuẩn hoá + voice + speaking rate + định dạng).
+ *
+ * File nằm trên R2 hoặc disk local (storage_backend), ghi bằng native insert
+ * (TtsAudioRepository.insertIfAbsent), entity chỉ dùng để đọc.
+ */
+@Entity
+@Table(name = "tts_audio")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TtsAudio {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "text", nullable = false, columnDefinition = "TEXT")
+    private String text;
+
+    @Column(name = "voice", nullable = false, length = 50)
+    private String voice;
+
+    @Column(name = "speaking_rate", nullable = false)
+    private Double speakingRate;
+
+    @Column(name = "audio_format", nullable = false, length = 10)
+    private String audioFormat;
+
+    // "r2" hoặc "local"
+    @Column(name = "storage_backend", nullable = false, length = 10)
+    private String storageBackend;
+
+    @Column(name = "storage_path", nullable = false, length = 255)
+    private String storagePath;
+
+    @Column(name = "audio_url", nullable = false, length = 500)
+    private String audioUrl;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
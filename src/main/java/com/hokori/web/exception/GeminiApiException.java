@@ -0,0 +1,41 @@
+package com.hokori.web.exception;
+
+import java.time.Duration;
+
+/**
+ * Exception for failed Gemini API calls.
+ * Carries the HTTP status (0 when the request never got a response) and the
+ * retry hint returned by the API, so callers can decide whether to back off.
+ */
+public class GeminiApiException extends RuntimeException {
+
+    private final int statusCode;
+    private final Duration retryAfter;
+
+    public GeminiApiException(String message, int statusCode, Duration retryAfter) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public GeminiApiException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = 0;
+        this.retryAfter = null;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Delay suggested by the API (Retry-After header or RetryInfo detail), or null if none was given
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public boolean isRateLimited() {
+        return statusCode == 429;
+    }
+}
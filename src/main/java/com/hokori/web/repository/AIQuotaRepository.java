@@ -2,10 +2,13 @@ package com.hokori.web.repository;
 
 import com.hokori.web.entity.AIQuota;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,5 +31,85 @@ public interface AIQuotaRepository extends JpaRepository<AIQuota, Long> {
     }
     
     boolean existsByUser_Id(Long userId);
-}
 
+    /**
+     * Giữ chỗ (trừ) cost request trong 1 câu UPDATE có điều kiện: chỉ trừ khi còn đủ
+     * (remaining_requests >= cost) hoặc quota không giới hạn, nên các request đồng thời không thể tiêu quá.
+     * Free tier (freeTier = true) đã quá hạn reset (last_reset_at < resetBefore) được reset về
+     * freeTierLimit ngay trong cùng câu lệnh rồi mới trừ.
+     *
+     * @return số dòng cập nhật: 1 = đã trừ, 0 = không đủ quota hoặc chưa có dòng quota
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE ai_quotas SET
+            total_requests = CASE
+                WHEN :freeTier AND (last_reset_at IS NULL OR last_reset_at < :resetBefore) THEN :freeTierLimit
+                ELSE total_requests END,
+            used_requests = CASE
+                WHEN :freeTier AND (last_reset_at IS NULL OR last_reset_at < :resetBefore) THEN :cost
+                ELSE COALESCE(used_requests, 0) + :cost END,
+            remaining_requests = CASE
+                WHEN :freeTier AND (last_reset_at IS NULL OR last_reset_at < :resetBefore) THEN :freeTierLimit - :cost
+                WHEN total_requests IS NULL OR remaining_requests IS NULL THEN remaining_requests
+                ELSE remaining_requests - :cost END,
+            last_reset_at = CASE
+                WHEN :freeTier AND (last_reset_at IS NULL OR last_reset_at < :resetBefore) THEN :now
+                ELSE last_reset_at END,
+            updated_at = :now
+        WHERE id = (SELECT MIN(q.id) FROM ai_quotas q WHERE q.user_id = :userId)
+          AND ((:freeTier AND (last_reset_at IS NULL OR last_reset_at < :resetBefore) AND :cost <= :freeTierLimit)
+               OR total_requests IS NULL
+               OR remaining_requests IS NULL
+               OR remaining_requests >= :cost)
+        """, nativeQuery = true)
+    int reserveRequests(
+            @Param("userId") Long userId,
+            @Param("cost") int cost,
+            @Param("freeTier") boolean freeTier,
+            @Param("freeTierLimit") int freeTierLimit,
+            @Param("resetBefore") Instant resetBefore,
+            @Param("now") Instant now
+    );
+
+    /**
+     * Hoàn lại cost request đã giữ chỗ (lượt gọi AI lỗi). Bỏ qua nếu quota đã được reset/cấp lại
+     * sau thời điểm giữ chỗ (last_reset_at > reservedAt), tránh cộng vào kỳ quota mới.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE ai_quotas SET
+            used_requests = GREATEST(COALESCE(used_requests, 0) - :cost, 0),
+            remaining_requests = CASE
+                WHEN total_requests IS NULL OR remaining_requests IS NULL THEN remaining_requests
+                ELSE LEAST(remaining_requests + :cost, total_requests) END,
+            updated_at = :now
+        WHERE id = (SELECT MIN(q.id) FROM ai_quotas q WHERE q.user_id = :userId)
+          AND (last_reset_at IS NULL OR last_reset_at <= :reservedAt)
+        """, nativeQuery = true)
+    int refundRequests(
+            @Param("userId") Long userId,
+            @Param("cost") int cost,
+            @Param("reservedAt") Instant reservedAt,
+            @Param("now") Instant now
+    );
+
+    /**
+     * Tạo dòng quota đầu tiên cho user; không làm gì nếu request khác đã tạo trước
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO ai_quotas (user_id, total_requests, used_requests, remaining_requests, last_reset_at,
+                               created_at, updated_at, deleted_flag)
+        VALUES (:userId, :totalRequests, 0, :totalRequests, :now, :now, :now, false)
+        ON CONFLICT (user_id) DO NOTHING
+        """, nativeQuery = true)
+    int insertIfAbsent(
+            @Param("userId") Long userId,
+            @Param("totalRequests") int totalRequests,
+            @Param("now") Instant now
+    );
+}
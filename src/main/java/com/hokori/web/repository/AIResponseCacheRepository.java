@@ -0,0 +1,44 @@
+package com.hokori.web.repository;
+
+import com.hokori.web.entity.AIResponseCache;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface AIResponseCacheRepository extends JpaRepository<AIResponseCache, String> {
+
+    Optional<AIResponseCache> findByCacheKeyAndExpiresAtAfter(String cacheKey, Instant now);
+
+    /**
+     * Upsert 1 response; nhiều instance cùng ghi 1 key thì bản sau thắng
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO ai_response_cache (cache_key, site, model, response_text, created_at, expires_at)
+        VALUES (:cacheKey, :site, :model, :responseText, :createdAt, :expiresAt)
+        ON CONFLICT (cache_key)
+        DO UPDATE SET
+            response_text = EXCLUDED.response_text,
+            created_at = EXCLUDED.created_at,
+            expires_at = EXCLUDED.expires_at
+        """, nativeQuery = true)
+    void upsert(
+            @Param("cacheKey") String cacheKey,
+            @Param("site") String site,
+            @Param("model") String model,
+            @Param("responseText") String responseText,
+            @Param("createdAt") Instant createdAt,
+            @Param("expiresAt") Instant expiresAt
+    );
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AIResponseCache c WHERE c.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
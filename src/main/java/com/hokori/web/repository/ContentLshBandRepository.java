@@ -0,0 +1,18 @@
+package com.hokori.web.repository;
+
+import com.hokori.web.entity.ContentLshBand;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ContentLshBandRepository extends JpaRepository<ContentLshBand, Long> {
+
+    /**
+     * Signature của khóa học khác có chung ít nhất 1 band key (tra index band_key, không quét toàn bảng)
+     */
+    @Query("SELECT DISTINCT b.signatureId FROM ContentLshBand b WHERE b.bandKey IN :bandKeys AND b.courseId <> :courseId")
+    List<Long> findCandidateSignatureIds(@Param("bandKeys") Collection<Long> bandKeys, @Param("courseId") Long courseId);
+}
@@ -0,0 +1,24 @@
+package com.hokori.web.repository;
+
+import com.hokori.web.entity.ContentSignature;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ContentSignatureRepository extends JpaRepository<ContentSignature, Long> {
+
+    List<ContentSignature> findByCourseId(Long courseId);
+
+    List<ContentSignature> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Xoá signature cũ của khóa học trước khi tính lại (band bị xoá theo ON DELETE CASCADE)
+     */
+    @Modifying
+    @Query("DELETE FROM ContentSignature s WHERE s.courseId = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+}
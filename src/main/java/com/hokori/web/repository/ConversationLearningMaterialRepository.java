@@ -0,0 +1,34 @@
+package com.hokori.web.repository;
+
+import com.hokori.web.entity.ConversationLearningMaterial;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface ConversationLearningMaterialRepository extends JpaRepository<ConversationLearningMaterial, String> {
+
+    /**
+     * Ghi bản mới nhất cho (level, scenario); bản refresh ghi đè bản cũ
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO conversation_learning_material (material_key, level, scenario, materials_json, generated_at)
+        VALUES (:materialKey, :level, :scenario, :materialsJson, :generatedAt)
+        ON CONFLICT (material_key)
+        DO UPDATE SET
+            materials_json = EXCLUDED.materials_json,
+            generated_at = EXCLUDED.generated_at
+        """, nativeQuery = true)
+    void upsert(
+            @Param("materialKey") String materialKey,
+            @Param("level") String level,
+            @Param("scenario") String scenario,
+            @Param("materialsJson") String materialsJson,
+            @Param("generatedAt") Instant generatedAt
+    );
+}
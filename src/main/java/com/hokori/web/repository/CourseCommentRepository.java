@@ -5,6 +5,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CourseCommentRepository extends JpaRepository<CourseComment, Long> {
@@ -25,4 +26,7 @@ public interface CourseCommentRepository extends JpaRepository<CourseComment, Lo
     Optional<CourseComment> findByIdAndCourse_Id(Long id, Long courseId);
 
     long countByCourse_IdAndDeletedFlagFalse(Long courseId);
+
+    // Comment đang hiển thị nhưng bị bộ lọc từ ngữ đánh dấu (ContentPreScreenService)
+    List<CourseComment> findByCourse_IdAndFlaggedTermsIsNotNullAndDeletedFlagFalseOrderByCreatedAtDesc(Long courseId);
 }
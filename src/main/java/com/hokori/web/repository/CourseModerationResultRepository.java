@@ -0,0 +1,53 @@
+package com.hokori.web.repository;
+
+import com.hokori.web.entity.CourseModerationResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Ghi dùng REQUIRES_NEW: CourseModerationAIService.checkCourseContent chạy trong transaction read-only
+ */
+public interface CourseModerationResultRepository extends JpaRepository<CourseModerationResult, Long> {
+
+    List<CourseModerationResult> findByCourseId(Long courseId);
+
+    /**
+     * Upsert kết quả của 1 scope; lần kiểm tra sau ghi đè lần trước
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = """
+        INSERT INTO course_moderation_result (course_id, scope_key, content_hash, model_version, result_json, checked_at)
+        VALUES (:courseId, :scopeKey, :contentHash, :modelVersion, :resultJson, :checkedAt)
+        ON CONFLICT (course_id, scope_key)
+        DO UPDATE SET
+            content_hash = EXCLUDED.content_hash,
+            model_version = EXCLUDED.model_version,
+            result_json = EXCLUDED.result_json,
+            checked_at = EXCLUDED.checked_at
+        """, nativeQuery = true)
+    void upsert(
+            @Param("courseId") Long courseId,
+            @Param("scopeKey") String scopeKey,
+            @Param("contentHash") String contentHash,
+            @Param("modelVersion") String modelVersion,
+            @Param("resultJson") String resultJson,
+            @Param("checkedAt") Instant checkedAt
+    );
+
+    /**
+     * Xoá kết quả của các chương đã bị xoá khỏi khoá học
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("DELETE FROM CourseModerationResult r WHERE r.courseId = :courseId AND r.scopeKey NOT IN :scopeKeys")
+    int deleteStale(@Param("courseId") Long courseId, @Param("scopeKeys") Collection<String> scopeKeys);
+}
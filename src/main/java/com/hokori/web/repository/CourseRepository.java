@@ -3,14 +3,17 @@ package com.hokori.web.repository;
 import com.hokori.web.Enum.CourseStatus;
 import com.hokori.web.Enum.JLPTLevel;
 import com.hokori.web.entity.Course;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.Modifying;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +27,25 @@ public interface CourseRepository extends JpaRepository<Course, Long>, JpaSpecif
     // ⚠️ KHÔNG dùng @EntityGraph ở đây để tránh multiple bag fetch
     Optional<Course> findByIdAndDeletedFlagFalse(Long id);
 
+    // Khoá dòng course tới hết transaction: 2 lần lập chỉ mục trùng lặp cùng khóa học không xen kẽ xoá / ghi signature
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Course c where c.id = :id and c.deletedFlag = false")
+    Optional<Course> findByIdForUpdate(@Param("id") Long id);
+
+    // Khóa học chưa có signature trùng lặp (gửi duyệt trước khi có tính năng), id tăng dần sau afterId - cho job backfill
+    @Query("""
+       select c.id
+       from Course c
+       where c.deletedFlag = false
+         and c.status in :statuses
+         and c.id > :afterId
+         and not exists (select 1 from ContentSignature s where s.courseId = c.id)
+       order by c.id
+    """)
+    List<Long> findIdsWithoutContentSignature(@Param("statuses") Collection<CourseStatus> statuses,
+                                              @Param("afterId") Long afterId,
+                                              Pageable pageable);
+
     // (không bắt buộc cho service hiện tại, nhưng giữ cũng không sao)
     Page<Course> findAllByDeletedFlagFalse(Pageable pageable);
 
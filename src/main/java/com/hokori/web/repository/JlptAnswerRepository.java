@@ -14,6 +14,15 @@ public interface JlptAnswerRepository extends JpaRepository<JlptAnswer, Long> {
     Long countByUser_IdAndTest_IdAndIsCorrectTrue(Long userId, Long testId);
 
     void deleteByUser_IdAndTest_Id(Long userId, Long testId);
+
+    long countByUser_IdAndTest_Id(Long userId, Long testId);
+
+    /**
+     * Xoá answers tạm bằng 1 câu DELETE (không load entity như deleteByUser_IdAndTest_Id)
+     */
+    @Modifying
+    @Query("DELETE FROM JlptAnswer a WHERE a.user.id = :userId AND a.test.id = :testId")
+    int bulkDeleteByUserAndTest(@Param("userId") Long userId, @Param("testId") Long testId);
     
     // Get all answers for a user and test
     List<JlptAnswer> findByUser_IdAndTest_Id(Long userId, Long testId);
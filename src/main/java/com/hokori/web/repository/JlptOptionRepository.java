@@ -7,4 +7,7 @@ import java.util.List;
 
 public interface JlptOptionRepository extends JpaRepository<JlptOption, Long> {
     List<JlptOption> findByQuestion_IdOrderByOrderIndexAsc(Long questionId);
+
+    // Tất cả options của 1 test (1 query thay vì N query theo từng câu hỏi)
+    List<JlptOption> findByQuestion_Test_IdOrderByOrderIndexAsc(Long testId);
 }
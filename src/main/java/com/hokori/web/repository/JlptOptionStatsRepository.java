@@ -0,0 +1,12 @@
+package com.hokori.web.repository;
+
+import com.hokori.web.entity.JlptOptionStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface JlptOptionStatsRepository extends JpaRepository<JlptOptionStats, Long> {
+
+    List<JlptOptionStats> findByQuestionIdIn(Collection<Long> questionIds);
+}
@@ -3,6 +3,8 @@ package com.hokori.web.repository;
 import com.hokori.web.Enum.JlptQuestionType;
 import com.hokori.web.entity.JlptQuestion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -27,4 +29,13 @@ public interface JlptQuestionRepository extends JpaRepository<JlptQuestion, Long
     
     // Count questions by multiple types (for Grammar+Vocab)
     Long countByTest_IdAndQuestionTypeInAndDeletedFlagFalse(Long testId, java.util.List<JlptQuestionType> types);
+
+    // Số câu hỏi theo từng type trong 1 query (Object[]: [0]=JlptQuestionType, [1]=count(Long))
+    @Query("SELECT q.questionType, COUNT(q) FROM JlptQuestion q " +
+           "WHERE q.test.id = :testId AND q.deletedFlag = false GROUP BY q.questionType")
+    List<Object[]> countByQuestionTypeForTest(@Param("testId") Long testId);
+
+    @Query("SELECT COALESCE(MAX(q.orderIndex), 0) FROM JlptQuestion q " +
+           "WHERE q.test.id = :testId AND q.deletedFlag = false")
+    Integer findMaxOrderIndex(@Param("testId") Long testId);
 }
@@ -0,0 +1,11 @@
+package com.hokori.web.repository;
+
+import com.hokori.web.entity.JlptQuestionStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface JlptQuestionStatsRepository extends JpaRepository<JlptQuestionStats, Long> {
+
+    List<JlptQuestionStats> findByTestId(Long testId);
+}
@@ -2,6 +2,8 @@ package com.hokori.web.repository;
 
 import com.hokori.web.entity.JlptTestAttempt;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -15,5 +17,17 @@ public interface JlptTestAttemptRepository extends JpaRepository<JlptTestAttempt
     
     // Đếm số lần user đã làm test này
     Long countByUser_IdAndTest_Id(Long userId, Long testId);
-}
 
+    // Điểm cao nhất của từng user cho 1 test (dùng để build leaderboard in-memory)
+    // Mỗi user lấy 1 attempt: điểm cao nhất, đồng điểm thì attempt nộp sớm nhất (= lúc đạt điểm đó,
+    // giống thời điểm board ghi nhận khi cập nhật trực tiếp)
+    // Object[]: [0]=userId(Long), [1]=displayName(String), [2]=bestScore(Double), [3]=bestSubmittedAt(Instant)
+    @Query("SELECT a.user.id, a.user.displayName, a.score, a.submittedAt " +
+           "FROM JlptTestAttempt a WHERE a.test.id = :testId " +
+           "AND NOT EXISTS (SELECT b.id FROM JlptTestAttempt b " +
+           "                WHERE b.test.id = :testId AND b.user.id = a.user.id " +
+           "                AND (b.score > a.score " +
+           "                     OR (b.score = a.score AND (b.submittedAt < a.submittedAt " +
+           "                         OR (b.submittedAt = a.submittedAt AND b.id < a.id)))))")
+    List<Object[]> findBestScoresByTest(@Param("testId") Long testId);
+}
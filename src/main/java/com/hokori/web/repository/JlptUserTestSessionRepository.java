@@ -1,12 +1,14 @@
 package com.hokori.web.repository;
 
 import com.hokori.web.entity.JlptUserTestSession;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface JlptUserTestSessionRepository
@@ -16,6 +18,14 @@ public interface JlptUserTestSessionRepository
 
     long countByTest_IdAndExpiresAtAfter(Long testId, Instant now);
 
+    /**
+     * Lấy 1 chunk session đã hết hạn (range scan trên idx_jlpt_session_expires_at)
+     */
+    @Query("SELECT s.id FROM JlptUserTestSession s WHERE s.expiresAt < :cutoff ORDER BY s.expiresAt ASC")
+    List<Long> findExpiredSessionIds(@Param("cutoff") Instant cutoff, Pageable pageable);
+
+    long countByExpiresAtBefore(Instant cutoff);
+
     /**
      * Upsert session: Insert if not exists, update if exists
      * Uses PostgreSQL ON CONFLICT to handle race conditions atomically
@@ -38,4 +48,21 @@ public interface JlptUserTestSessionRepository
             @Param("expiresAt") Instant expiresAt,
             @Param("now") Instant now
     );
+
+    /**
+     * Ghi nhận user đã từng start test (jlpt_test_participant).
+     * Session bị xoá khi nộp bài / bị sweeper dọn, nên không dùng "chưa có session" để đếm participant.
+     * @return 1 nếu đây là lần đầu user start test này, 0 nếu đã có từ trước
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO jlpt_test_participant (test_id, user_id, first_started_at)
+        VALUES (:testId, :userId, :now)
+        ON CONFLICT (test_id, user_id) DO NOTHING
+        """, nativeQuery = true)
+    int registerParticipant(
+            @Param("testId") Long testId,
+            @Param("userId") Long userId,
+            @Param("now") Instant now
+    );
 }
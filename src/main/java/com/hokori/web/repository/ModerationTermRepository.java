@@ -0,0 +1,15 @@
+package com.hokori.web.repository;
+
+import com.hokori.web.entity.ModerationTerm;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ModerationTermRepository extends JpaRepository<ModerationTerm, Long> {
+
+    List<ModerationTerm> findByDeletedFlagFalseOrderByTermAsc();
+
+    // Gồm cả từ đã xoá mềm: thêm lại thì khôi phục thay vì vi phạm unique
+    Optional<ModerationTerm> findByNormalizedTerm(String normalizedTerm);
+}
@@ -0,0 +1,43 @@
+package com.hokori.web.repository;
+
+import com.hokori.web.entity.TranslationMemory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface TranslationMemoryRepository extends JpaRepository<TranslationMemory, Long> {
+
+    Optional<TranslationMemory> findBySourceHashAndSourceLangAndTargetLang(
+            String sourceHash, String sourceLang, String targetLang);
+
+    // Batch lookup: 1 query cho nhiều đoạn text cùng cặp ngôn ngữ
+    List<TranslationMemory> findBySourceLangAndTargetLangAndSourceHashIn(
+            String sourceLang, String targetLang, Collection<String> sourceHashes);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO translation_memory (source_hash, source_lang, target_lang, source_text, translated_text, detected_source_lang, created_at)
+        VALUES (:sourceHash, :sourceLang, :targetLang, :sourceText, :translatedText, :detectedSourceLang, :createdAt)
+        ON CONFLICT (source_hash, source_lang, target_lang)
+        DO UPDATE SET
+            translated_text = EXCLUDED.translated_text,
+            detected_source_lang = EXCLUDED.detected_source_lang
+        """, nativeQuery = true)
+    void upsert(
+            @Param("sourceHash") String sourceHash,
+            @Param("sourceLang") String sourceLang,
+            @Param("targetLang") String targetLang,
+            @Param("sourceText") String sourceText,
+            @Param("translatedText") String translatedText,
+            @Param("detectedSourceLang") String detectedSourceLang,
+            @Param("createdAt") Instant createdAt
+    );
+}
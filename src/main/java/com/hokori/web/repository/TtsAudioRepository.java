@@ -0,0 +1,38 @@
+package com.hokori.web.repository;
+
+import com.hokori.web.entity.TtsAudio;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface TtsAudioRepository extends JpaRepository<TtsAudio, String> {
+
+    /**
+     * Ghi metadata nếu chưa có; cùng hash thì cùng nội dung nên bản đầu tiên thắng
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO tts_audio (content_hash, text, voice, speaking_rate, audio_format,
+                               storage_backend, storage_path, audio_url, size_bytes, created_at)
+        VALUES (:contentHash, :text, :voice, :speakingRate, :audioFormat,
+                :storageBackend, :storagePath, :audioUrl, :sizeBytes, :createdAt)
+        ON CONFLICT (content_hash) DO NOTHING
+        """, nativeQuery = true)
+    void insertIfAbsent(
+            @Param("contentHash") String contentHash,
+            @Param("text") String text,
+            @Param("voice") String voice,
+            @Param("speakingRate") double speakingRate,
+            @Param("audioFormat") String audioFormat,
+            @Param("storageBackend") String storageBackend,
+            @Param("storagePath") String storagePath,
+            @Param("audioUrl") String audioUrl,
+            @Param("sizeBytes") long sizeBytes,
+            @Param("createdAt") Instant createdAt
+    );
+}
@@ -30,6 +30,7 @@ public class AIPackageService {
     private final AIPackagePurchaseRepository purchaseRepo;
     private final AIQuotaRepository quotaRepo;
     private final UserRepository userRepo;
+    private final AIQuotaLedgerService quotaLedger;
 
     // =========================
     // 1. List AI Packages
@@ -192,78 +193,9 @@ public class AIPackageService {
     
     @Transactional(readOnly = true)
     public boolean canUseAIService(Long userId, AIServiceType serviceType) {
-        // Check if user is MODERATOR (MODERATOR has unlimited access)
-        User user = userRepo.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-        
-        if (user.getRole() != null && "MODERATOR".equalsIgnoreCase(user.getRole().getRoleName())) {
-            return true; // MODERATOR has unlimited access
-        }
-        
-        // Check if user has active package purchase
-        Optional<AIPackagePurchase> purchaseOpt = purchaseRepo.findFirstByUser_IdAndIsActiveTrue(userId);
-        
-        if (purchaseOpt.isPresent()) {
-            // User has active package - check unified quota
-            AIPackagePurchase purchase = purchaseOpt.get();
-            Instant now = Instant.now();
-            
-            // Check if purchase is expired
-            if (purchase.getExpiresAt() != null && purchase.getExpiresAt().isBefore(now)) {
-                // Package expired - fall back to free tier
-                return checkFreeTierQuota(userId);
-            }
-            
-            // Check if payment is successful
-            if (purchase.getPaymentStatus() != PaymentStatus.PAID) {
-                // Payment not completed - fall back to free tier
-                return checkFreeTierQuota(userId);
-            }
-            
-            // Check unified quota
-            Optional<AIQuota> quotaOpt = quotaRepo.findByUser_Id(userId);
-            if (quotaOpt.isEmpty()) {
-                // No quota record means unlimited (if package allows)
-                AIPackage aiPackage = purchase.getAiPackage();
-                return aiPackage.getTotalRequests() == null; // null = unlimited
-            }
-            
-            AIQuota quota = quotaOpt.get();
-            return quota.hasQuota(); // Check if remaining requests > 0
-        } else {
-            // No active package - check free tier quota
-            return checkFreeTierQuota(userId);
-        }
-    }
-    
-    /**
-     * Check free tier quota for user
-     * Free tier: 50 unified requests per month
-     */
-    private boolean checkFreeTierQuota(Long userId) {
-        int freeTierLimit = 50; // Unified requests per month
-        
-        Optional<AIQuota> quotaOpt = quotaRepo.findByUser_Id(userId);
-        
-        if (quotaOpt.isEmpty()) {
-            // No quota record - allow first use, quota will be created when used
-            return true;
-        }
-        
-        AIQuota quota = quotaOpt.get();
-        
-        // Check if quota needs monthly reset (free tier resets monthly)
-        Instant now = Instant.now();
-        if (quota.getLastResetAt() == null || 
-            quota.getLastResetAt().isBefore(now.minusSeconds(30L * 24 * 60 * 60))) { // 30 days ago
-            // Reset free tier quota monthly
-            quota.initializeQuota(freeTierLimit);
-            quotaRepo.save(quota);
-            return true;
-        }
-        
-        // Check if user has free tier quota remaining
-        return quota.hasQuota();
+        // Entitlement (MODERATOR / paid package) is cached by the ledger; only the quota row is read here.
+        // Free tier monthly reset happens lazily when requests are reserved.
+        return quotaLedger.canUse(userId, serviceType);
     }
     
     /**
@@ -297,95 +229,28 @@ public class AIPackageService {
     // =========================
     
     /**
-     * Get cost (in requests) for a service type
-     * Conversation costs more because it uses multiple API calls
+     * Deduct requests for a finished AI call (atomic, cannot overspend)
      */
-    private int getServiceCost(AIServiceType serviceType) {
-        return switch (serviceType) {
-            case GRAMMAR -> 1;      // 1 request
-            case KAIWA -> 1;        // 1 request
-            case PRONUN -> 1;       // 1 request
-            case CONVERSATION -> 3; // 3 requests (more complex, uses multiple APIs)
-        };
+    public void useAIService(Long userId, AIServiceType serviceType, int amount) {
+        quotaLedger.reserve(userId, serviceType, amount);
     }
     
-    public void useAIService(Long userId, AIServiceType serviceType, int amount) {
-        // Calculate actual cost based on service type
-        int serviceCost = getServiceCost(serviceType);
-        int totalCost = serviceCost * amount; // Multiply by amount if needed
-        User user = userRepo.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-        
-        Optional<AIQuota> quotaOpt = quotaRepo.findByUser_Id(userId);
-        AIQuota quota;
-        
-        if (quotaOpt.isEmpty()) {
-            // No quota record - check if user has active package or use free tier
-            Optional<AIPackagePurchase> purchaseOpt = purchaseRepo.findFirstByUser_IdAndIsActiveTrue(userId);
-            
-            if (purchaseOpt.isPresent() && purchaseOpt.get().getPaymentStatus() == PaymentStatus.PAID) {
-                // User has paid package - allocate quota from package
-                AIPackagePurchase purchase = purchaseOpt.get();
-                AIPackage aiPackage = purchase.getAiPackage();
-                Integer packageRequests = aiPackage.getTotalRequests();
-                
-                if (packageRequests == null) {
-                    // Unlimited quota - no need to track
-                    log.info("Used AI service (unlimited): userId={}, serviceType={}, amount={}", 
-                            userId, serviceType, amount);
-                    return;
-                }
-                
-                // Create unified quota from package
-                quota = new AIQuota();
-                quota.setUser(user);
-                quota.initializeQuota(packageRequests);
-                quota.setDeletedFlag(false);
-            } else {
-                // Use free tier - initialize with 50 unified requests per month
-                int freeTierLimit = 50;
-                quota = new AIQuota();
-                quota.setUser(user);
-                quota.initializeQuota(freeTierLimit);
-                quota.setDeletedFlag(false);
-            }
-        } else {
-            quota = quotaOpt.get();
-            
-            // Check if free tier quota needs monthly reset
-            Instant now = Instant.now();
-            int freeTierLimit = 50;
-            if (quota.getTotalRequests() != null && quota.getTotalRequests() == freeTierLimit && 
-                quota.getLastResetAt() != null &&
-                quota.getLastResetAt().isBefore(now.minusSeconds(30L * 24 * 60 * 60))) {
-                // Reset free tier quota monthly
-                quota.initializeQuota(freeTierLimit);
-            }
-        }
-        
-        if (!quota.hasQuota()) {
-            // Check if user has active package
-            Optional<AIPackagePurchase> purchaseOpt = purchaseRepo.findFirstByUser_IdAndIsActiveTrue(userId);
-            if (purchaseOpt.isEmpty() || purchaseOpt.get().getPaymentStatus() != PaymentStatus.PAID) {
-                throw new ResponseStatusException(HttpStatus.FORBIDDEN, 
-                        "Free tier quota exhausted. Please purchase an AI package to continue using this feature.");
-            } else {
-                // User has active package but quota exhausted
-                AIPackagePurchase purchase = purchaseOpt.get();
-                String packageName = purchase.getAiPackage().getName();
-                throw new ResponseStatusException(HttpStatus.FORBIDDEN, 
-                        String.format("You have used all requests from your %s package (%d/%d requests used). " +
-                                "Please wait for the package to expire or purchase a new package to continue using AI features.",
-                                packageName, quota.getUsedRequests(), quota.getTotalRequests()));
-            }
-        }
-        
-        // Deduct requests (use calculated cost)
-        quota.useRequests(totalCost);
-        quotaRepo.save(quota);
-        
-        log.info("Used AI service requests: userId={}, serviceType={}, serviceCost={}, amount={}, totalCost={}, remaining={}, total={}", 
-                userId, serviceType, serviceCost, amount, totalCost, quota.getRemainingRequests(), quota.getTotalRequests());
+    /**
+     * Reserve requests before calling AI; pass the reservation to {@link #refundAIService} if the call fails
+     */
+    public AIQuotaLedgerService.Reservation reserveAIService(Long userId, AIServiceType serviceType, int amount) {
+        return quotaLedger.reserve(userId, serviceType, amount);
+    }
+    
+    public void refundAIService(AIQuotaLedgerService.Reservation reservation) {
+        quotaLedger.refund(reservation);
+    }
+    
+    /**
+     * Drop the cached entitlement after a package is activated or replaced
+     */
+    public void invalidateEntitlement(Long userId) {
+        quotaLedger.invalidate(userId);
     }
 
     // =========================
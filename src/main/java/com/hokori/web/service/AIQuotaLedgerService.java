@@ -0,0 +1,286 @@
+package com.hokori.web.service;
+
+import com.hokori.web.Enum.AIServiceType;
+import com.hokori.web.Enum.PaymentStatus;
+import com.hokori.web.entity.AIPackagePurchase;
+import com.hokori.web.entity.AIQuota;
+import com.hokori.web.entity.User;
+import com.hokori.web.repository.AIPackagePurchaseRepository;
+import com.hokori.web.repository.AIQuotaRepository;
+import com.hokori.web.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sổ quota AI (unified request pool) cho các endpoint AI.
+ *
+ * - Quyền dùng (MODERATOR, gói đã thanh toán còn hạn) được cache theo user trong memory
+ *   (ai.quota.entitlement-ttl-seconds, không quá hạn gói); bị xoá khi kích hoạt gói mới
+ * - Trừ quota = 1 câu UPDATE có điều kiện (remaining_requests >= cost) nên các request đồng thời
+ *   không thể tiêu quá; free tier quá 30 ngày được reset ngay trong câu lệnh đó, không cần job quét
+ * - reserve() trước khi gọi AI, refund() nếu lượt gọi lỗi
+ *
+ * Metrics: ai.quota.reservations{result=reserved|unmetered|rejected|refunded},
+ * ai.quota.entitlements{result=hit|miss}
+ */
+@Slf4j
+@Service
+public class AIQuotaLedgerService {
+
+    public static final int FREE_TIER_LIMIT = 50; // Unified requests per month
+    private static final Duration FREE_TIER_RESET_PERIOD = Duration.ofDays(30);
+
+    /**
+     * Quyền dùng AI của user tại thời điểm nạp
+     *
+     * @param packageRequests số request của gói đang dùng (null = không giới hạn)
+     * @param validUntil      hết hạn cache (không quá ngày hết hạn gói)
+     */
+    record Entitlement(boolean moderator, boolean paidPackage, Integer packageRequests,
+                       String packageName, Instant validUntil) {
+    }
+
+    /**
+     * Phần quota đã giữ chỗ cho 1 lượt gọi AI
+     *
+     * @param cost       số request đã trừ; 0 = không tính quota (MODERATOR, gói không giới hạn)
+     * @param reservedAt thời điểm trừ, dùng để không hoàn vào kỳ quota mới
+     */
+    public record Reservation(Long userId, AIServiceType serviceType, int cost, Instant reservedAt) {
+
+        public boolean isMetered() {
+            return cost > 0;
+        }
+
+        /**
+         * Phần của reservation ứng với {@code amount} lượt (vd. các câu lỗi trong 1 bài drill), để hoàn riêng
+         */
+        public Reservation portion(int amount) {
+            return new Reservation(userId, serviceType, Math.min(cost, getServiceCost(serviceType) * amount), reservedAt);
+        }
+    }
+
+    private final AIQuotaRepository quotaRepo;
+    private final AIPackagePurchaseRepository purchaseRepo;
+    private final UserRepository userRepo;
+    private final Duration entitlementTtl;
+
+    private final ConcurrentHashMap<Long, Entitlement> entitlements = new ConcurrentHashMap<>();
+
+    private final Counter reserved;
+    private final Counter unmetered;
+    private final Counter rejected;
+    private final Counter refunded;
+    private final Counter entitlementHits;
+    private final Counter entitlementMisses;
+
+    public AIQuotaLedgerService(AIQuotaRepository quotaRepo,
+                                AIPackagePurchaseRepository purchaseRepo,
+                                UserRepository userRepo,
+                                MeterRegistry meterRegistry,
+                                @Value("${ai.quota.entitlement-ttl-seconds:60}") long entitlementTtlSeconds) {
+        this.quotaRepo = quotaRepo;
+        this.purchaseRepo = purchaseRepo;
+        this.userRepo = userRepo;
+        this.entitlementTtl = Duration.ofSeconds(entitlementTtlSeconds);
+        this.reserved = meterRegistry.counter("ai.quota.reservations", "result", "reserved");
+        this.unmetered = meterRegistry.counter("ai.quota.reservations", "result", "unmetered");
+        this.rejected = meterRegistry.counter("ai.quota.reservations", "result", "rejected");
+        this.refunded = meterRegistry.counter("ai.quota.reservations", "result", "refunded");
+        this.entitlementHits = meterRegistry.counter("ai.quota.entitlements", "result", "hit");
+        this.entitlementMisses = meterRegistry.counter("ai.quota.entitlements", "result", "miss");
+    }
+
+    /**
+     * Cost (in requests) for a service type
+     * Conversation costs more because it uses multiple API calls
+     */
+    public static int getServiceCost(AIServiceType serviceType) {
+        return switch (serviceType) {
+            case GRAMMAR -> 1;      // 1 request
+            case KAIWA -> 1;        // 1 request
+            case PRONUN -> 1;       // 1 request
+            case CONVERSATION -> 3; // 3 requests (more complex, uses multiple APIs)
+        };
+    }
+
+    /**
+     * Kiểm tra còn quota hay không (không trừ): cache quyền dùng + tối đa 1 lần đọc ai_quotas
+     */
+    public boolean canUse(Long userId, AIServiceType serviceType) {
+        Entitlement entitlement = entitlement(userId);
+        if (entitlement.moderator()) {
+            return true; // MODERATOR has unlimited access
+        }
+        Optional<AIQuota> quotaOpt = quotaRepo.findByUser_Id(userId);
+        if (quotaOpt.isEmpty()) {
+            // Chưa có dòng quota: reserve() sẽ tạo từ gói hoặc free tier
+            return !entitlement.paidPackage() || entitlement.packageRequests() == null
+                    || entitlement.packageRequests() > 0;
+        }
+        AIQuota quota = quotaOpt.get();
+        if (!entitlement.paidPackage() && isFreeTierResetDue(quota.getLastResetAt(), Instant.now())) {
+            return true; // reset lazily khi trừ
+        }
+        return quota.hasQuota();
+    }
+
+    /**
+     * Giữ chỗ quota cho 1 lượt gọi AI. Gọi refund() nếu lượt gọi lỗi.
+     *
+     * @throws ResponseStatusException FORBIDDEN nếu hết quota, NOT_FOUND nếu không có user
+     */
+    public Reservation reserve(Long userId, AIServiceType serviceType, int amount) {
+        int cost = getServiceCost(serviceType) * amount;
+        Entitlement entitlement = entitlement(userId);
+        if (entitlement.moderator() || cost <= 0) {
+            unmetered.increment();
+            return new Reservation(userId, serviceType, 0, Instant.now());
+        }
+
+        boolean freeTier = !entitlement.paidPackage();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS); // khớp độ chính xác TIMESTAMP của PostgreSQL
+        if (tryReserve(userId, cost, freeTier, now)) {
+            return reserved(userId, serviceType, cost, now);
+        }
+
+        if (!quotaRepo.existsByUser_Id(userId)) {
+            Integer initialRequests = freeTier ? Integer.valueOf(FREE_TIER_LIMIT) : entitlement.packageRequests();
+            if (initialRequests == null) {
+                // Unlimited package without quota record - no need to track
+                unmetered.increment();
+                return new Reservation(userId, serviceType, 0, now);
+            }
+            quotaRepo.insertIfAbsent(userId, initialRequests, now);
+            if (tryReserve(userId, cost, freeTier, now)) {
+                return reserved(userId, serviceType, cost, now);
+            }
+        }
+
+        rejected.increment();
+        throw quotaExhausted(userId, entitlement);
+    }
+
+    /**
+     * Hoàn lại quota đã giữ chỗ; không ném exception (chỉ log) để không che lỗi gốc của lượt gọi AI
+     */
+    public void refund(Reservation reservation) {
+        if (reservation == null || !reservation.isMetered()) {
+            return;
+        }
+        try {
+            int updated = quotaRepo.refundRequests(reservation.userId(), reservation.cost(),
+                    reservation.reservedAt(), Instant.now());
+            if (updated > 0) {
+                refunded.increment();
+                log.info("Refunded AI service requests: userId={}, serviceType={}, cost={}",
+                        reservation.userId(), reservation.serviceType(), reservation.cost());
+            } else {
+                log.debug("Skipped refund for user {}: quota was reset after the reservation", reservation.userId());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to refund {} AI requests for user {}: {}",
+                    reservation.cost(), reservation.userId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Xoá quyền dùng đã cache (kích hoạt/huỷ gói). Trong transaction thì xoá thêm 1 lần sau commit,
+     * tránh request khác nạp lại bản cũ trước khi commit.
+     */
+    public void invalidate(Long userId) {
+        entitlements.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entitlements.remove(userId);
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ai.quota.entitlement-sweep-interval-ms:300000}")
+    public void evictExpired() {
+        Instant now = Instant.now();
+        entitlements.values().removeIf(entitlement -> !entitlement.validUntil().isAfter(now));
+    }
+
+    Entitlement entitlement(Long userId) {
+        Instant now = Instant.now();
+        Entitlement cached = entitlements.get(userId);
+        if (cached != null && cached.validUntil().isAfter(now)) {
+            entitlementHits.increment();
+            return cached;
+        }
+        entitlementMisses.increment();
+        Entitlement loaded = loadEntitlement(userId, now);
+        entitlements.put(userId, loaded);
+        return loaded;
+    }
+
+    private Entitlement loadEntitlement(Long userId, Instant now) {
+        User user = userRepo.findByIdWithRole(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        boolean moderator = user.getRole() != null && "MODERATOR".equalsIgnoreCase(user.getRole().getRoleName());
+        Instant validUntil = now.plus(entitlementTtl);
+
+        // Gói hết hạn hoặc chưa thanh toán -> free tier
+        AIPackagePurchase purchase = purchaseRepo.findFirstByUser_IdAndIsActiveTrue(userId).orElse(null);
+        boolean paid = purchase != null
+                && purchase.getPaymentStatus() == PaymentStatus.PAID
+                && (purchase.getExpiresAt() == null || purchase.getExpiresAt().isAfter(now));
+        if (!paid) {
+            return new Entitlement(moderator, false, null, null, validUntil);
+        }
+        if (purchase.getExpiresAt() != null && purchase.getExpiresAt().isBefore(validUntil)) {
+            validUntil = purchase.getExpiresAt();
+        }
+        return new Entitlement(moderator, true, purchase.getAiPackage().getTotalRequests(),
+                purchase.getAiPackage().getName(), validUntil);
+    }
+
+    private boolean tryReserve(Long userId, int cost, boolean freeTier, Instant now) {
+        return quotaRepo.reserveRequests(userId, cost, freeTier, FREE_TIER_LIMIT,
+                now.minus(FREE_TIER_RESET_PERIOD), now) > 0;
+    }
+
+    private Reservation reserved(Long userId, AIServiceType serviceType, int cost, Instant now) {
+        reserved.increment();
+        log.info("Reserved AI service requests: userId={}, serviceType={}, cost={}", userId, serviceType, cost);
+        return new Reservation(userId, serviceType, cost, now);
+    }
+
+    private ResponseStatusException quotaExhausted(Long userId, Entitlement entitlement) {
+        if (!entitlement.paidPackage()) {
+            return new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "Free tier quota exhausted. Please purchase an AI package to continue using this feature.");
+        }
+        // Chỉ đọc lại quota ở nhánh lỗi, để báo số request đã dùng
+        AIQuota quota = quotaRepo.findByUser_Id(userId).orElse(null);
+        return new ResponseStatusException(HttpStatus.FORBIDDEN,
+                String.format("You have used all requests from your %s package (%d/%d requests used). " +
+                                "Please wait for the package to expire or purchase a new package to continue using AI features.",
+                        entitlement.packageName(),
+                        quota != null && quota.getUsedRequests() != null ? quota.getUsedRequests() : 0,
+                        quota != null && quota.getTotalRequests() != null ? quota.getTotalRequests() : 0));
+    }
+
+    private static boolean isFreeTierResetDue(Instant lastResetAt, Instant now) {
+        return lastResetAt == null || lastResetAt.isBefore(now.minus(FREE_TIER_RESET_PERIOD));
+    }
+}
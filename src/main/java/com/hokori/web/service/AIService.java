@@ -1,12 +1,13 @@
 package com.hokori.web.service;
 
-import com.google.cloud.language.v1.*;
-import com.google.cloud.speech.v1.*;
-import com.google.cloud.texttospeech.v1.*;
-import com.google.cloud.translate.Translate;
-import com.google.cloud.translate.Translation;
-import com.google.protobuf.ByteString;
+import com.google.cloud.speech.v1.RecognitionConfig;
+import com.hokori.web.Enum.AiProviderMode;
 import com.hokori.web.exception.AIServiceException;
+import com.hokori.web.service.provider.SentimentProvider;
+import com.hokori.web.service.provider.SpeechToTextProvider;
+import com.hokori.web.service.provider.TextToSpeechProvider;
+import com.hokori.web.service.provider.TranslationProvider;
+import com.hokori.web.util.AudioPreprocessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +17,7 @@ import org.springframework.util.StringUtils;
 
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -32,6 +34,9 @@ public class AIService {
     @Value("${google.cloud.enabled:false}")
     private boolean googleCloudEnabled;
     
+    @Value("${ai.provider.mode:GOOGLE}")
+    private AiProviderMode providerMode;
+    
     // AI Service Limits
     @Value("${ai.translation.max-length:5000}")
     private int translationMaxLength;
@@ -45,6 +50,10 @@ public class AIService {
     @Value("${ai.speech-to-text.sample-rate:16000}")
     private int speechToTextSampleRate;
     
+    // WAV PCM: downmix to mono, downsample to sample-rate, trim leading/trailing silence before recognition
+    @Value("${ai.speech-to-text.preprocess.enabled:true}")
+    private boolean speechToTextPreprocess;
+    
     // Text-to-Speech Speed Configuration
     @Value("${ai.text-to-speech.speed.slow:0.75}")
     private double textToSpeechSpeedSlow;
@@ -62,26 +71,33 @@ public class AIService {
     @Value("${ai.feedback.threshold.sentiment.negative:-0.25}")
     private float sentimentThresholdNegative;
     
+    // Google Cloud, LocalAiProvider or recorded answers depending on ai.provider.mode (AiProviderConfig)
     @Autowired(required = false)
-    private Translate translateClient;
+    private TranslationProvider translationProvider;
     
     @Autowired(required = false)
-    private LanguageServiceClient languageServiceClient;
+    private SentimentProvider sentimentProvider;
     
     @Autowired(required = false)
-    private SpeechClient speechClient;
+    private SpeechToTextProvider speechToTextProvider;
     
     @Autowired(required = false)
-    private TextToSpeechClient textToSpeechClient;
+    private TextToSpeechProvider textToSpeechProvider;
     
     @Autowired(required = false)
     private AIResponseFormatter responseFormatter;
     
+    @Autowired(required = false)
+    private TranslationMemoryService translationMemory;
+    
+    @Autowired(required = false)
+    private TtsAudioStoreService ttsAudioStore;
+    
     /**
      * Translate text using Google Cloud Translation API
      */
     public Map<String, Object> translateText(String text, String sourceLanguage, String targetLanguage) {
-        if (!googleCloudEnabled || translateClient == null) {
+        if (!googleCloudEnabled || translationProvider == null) {
             throw new AIServiceException("Translation", 
                 "Google Cloud Translation API is not enabled or not configured. Please enable it in application properties.",
                 "TRANSLATION_SERVICE_DISABLED");
@@ -101,33 +117,25 @@ public class AIService {
             // Default to Vietnamese for Vietnamese users learning Japanese
             String targetLang = targetLanguage != null && !targetLanguage.isEmpty() ? targetLanguage : "vi";
             
-            // Auto-detect source language if not specified
-            Translation translation;
-            if (sourceLanguage != null && !sourceLanguage.isEmpty()) {
-                translation = translateClient.translate(
-                    text,
-                    Translate.TranslateOption.sourceLanguage(sourceLanguage),
-                    Translate.TranslateOption.targetLanguage(targetLang)
-                );
-            } else {
-                translation = translateClient.translate(
-                    text,
-                    Translate.TranslateOption.targetLanguage(targetLang)
-                );
+            // Translation memory: repeated strings are served without calling the Translation API
+            TranslationMemoryService.Hit cached = translationMemory != null
+                ? translationMemory.lookup(text, sourceLanguage, targetLang) : null;
+            if (cached != null) {
+                logger.debug("Translation served from translation memory: target={}", targetLang);
+                return buildTranslationResult(text, cached.translatedText(), cached.detectedSourceLanguage(), targetLang);
             }
             
-            Map<String, Object> result = new HashMap<>();
-            result.put("originalText", text);
-            result.put("translatedText", translation.getTranslatedText());
-            result.put("detectedSourceLanguage", translation.getSourceLanguage());
-            result.put("targetLanguage", targetLang);
-            result.put("confidence", translation.getTranslatedText().length() > 0 ? 1.0 : 0.0);
+            // Auto-detect source language if not specified
+            TranslationProvider.TranslationResult translation =
+                translationProvider.translate(List.of(text), sourceLanguage, targetLang).get(0);
             
-            // Format response for Vietnamese users
-            if (responseFormatter != null) {
-                result = responseFormatter.formatTranslationResponse(result);
+            if (translationMemory != null) {
+                translationMemory.store(text, sourceLanguage, targetLang,
+                    translation.translatedText(), translation.detectedSourceLanguage());
             }
             
+            Map<String, Object> result = buildTranslationResult(
+                text, translation.translatedText(), translation.detectedSourceLanguage(), targetLang);
             logger.debug("Translation successful: detectedLanguage={}", result.get("detectedSourceLanguage"));
             return result;
         } catch (AIServiceException e) {
@@ -138,11 +146,76 @@ public class AIService {
         }
     }
     
+    /**
+     * Translate many texts with the same language pair.
+     * Texts already in translation memory are looked up in one batch; the rest go to the
+     * Translation API in a single call. Returns translations in input order ("" if a text is blank).
+     */
+    public List<String> translateTexts(List<String> texts, String sourceLanguage, String targetLanguage) {
+        if (!googleCloudEnabled || translationProvider == null) {
+            throw new AIServiceException("Translation", 
+                "Google Cloud Translation API is not enabled or not configured. Please enable it in application properties.",
+                "TRANSLATION_SERVICE_DISABLED");
+        }
+        
+        String targetLang = targetLanguage != null && !targetLanguage.isEmpty() ? targetLanguage : "vi";
+        List<String> nonBlank = texts.stream().filter(StringUtils::hasText).distinct().toList();
+        Map<String, String> translated = new HashMap<>();
+        
+        if (translationMemory != null) {
+            translationMemory.lookupAll(nonBlank, sourceLanguage, targetLang)
+                .forEach((text, hit) -> translated.put(text, hit.translatedText()));
+        }
+        
+        List<String> missing = nonBlank.stream().filter(t -> !translated.containsKey(t)).toList();
+        if (!missing.isEmpty()) {
+            for (String text : missing) {
+                if (text.length() > translationMaxLength) {
+                    throw new AIServiceException("Translation", "Text exceeds maximum length of " + translationMaxLength + " characters", "INVALID_INPUT");
+                }
+            }
+            try {
+                List<TranslationProvider.TranslationResult> translations =
+                    translationProvider.translate(missing, sourceLanguage, targetLang);
+                for (int i = 0; i < missing.size(); i++) {
+                    TranslationProvider.TranslationResult translation = translations.get(i);
+                    translated.put(missing.get(i), translation.translatedText());
+                    if (translationMemory != null) {
+                        translationMemory.store(missing.get(i), sourceLanguage, targetLang,
+                            translation.translatedText(), translation.detectedSourceLanguage());
+                    }
+                }
+            } catch (Exception e) {
+                logger.error("Batch translation API error", e);
+                throw new AIServiceException("Translation", "Translation failed: " + e.getMessage(), e);
+            }
+        }
+        
+        logger.debug("Batch translation: total={}, fromMemory={}", nonBlank.size(), nonBlank.size() - missing.size());
+        return texts.stream().map(t -> translated.getOrDefault(t, "")).toList();
+    }
+    
+    private Map<String, Object> buildTranslationResult(String text, String translatedText,
+                                                       String detectedSourceLanguage, String targetLang) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("originalText", text);
+        result.put("translatedText", translatedText);
+        result.put("detectedSourceLanguage", detectedSourceLanguage);
+        result.put("targetLanguage", targetLang);
+        result.put("confidence", translatedText.length() > 0 ? 1.0 : 0.0);
+        
+        // Format response for Vietnamese users
+        if (responseFormatter != null) {
+            result = responseFormatter.formatTranslationResponse(result);
+        }
+        return result;
+    }
+    
     /**
      * Analyze text sentiment using Google Cloud Natural Language API
      */
     public Map<String, Object> analyzeSentiment(String text) {
-        if (!googleCloudEnabled || languageServiceClient == null) {
+        if (!googleCloudEnabled || sentimentProvider == null) {
             throw new AIServiceException("Sentiment Analysis", 
                 "Google Cloud Natural Language API is not enabled or not configured. Please enable it in application properties.",
                 "SENTIMENT_SERVICE_DISABLED");
@@ -159,34 +232,23 @@ public class AIService {
         
         try {
             logger.debug("Analyzing sentiment: textLength={}", text.length());
-            Document doc = Document.newBuilder()
-                .setContent(text)
-                .setType(Document.Type.PLAIN_TEXT)
-                .build();
-            
-            AnalyzeSentimentResponse response = languageServiceClient.analyzeSentiment(
-                AnalyzeSentimentRequest.newBuilder()
-                    .setDocument(doc)
-                    .build()
-            );
-            
-            Sentiment sentiment = response.getDocumentSentiment();
+            SentimentProvider.SentimentResult sentiment = sentimentProvider.analyzeSentiment(text);
             
             Map<String, Object> result = new HashMap<>();
             result.put("text", text);
-            result.put("score", sentiment.getScore());
-            result.put("magnitude", sentiment.getMagnitude());
-            result.put("sentiment", getSentimentLabel(sentiment.getScore()));
+            result.put("score", sentiment.score());
+            result.put("magnitude", sentiment.magnitude());
+            result.put("sentiment", getSentimentLabel(sentiment.score()));
             
             // Sentence-level sentiment
             @SuppressWarnings("unchecked")
-            Map<String, Object>[] sentences = new Map[response.getSentencesCount()];
-            for (int i = 0; i < response.getSentencesCount(); i++) {
+            Map<String, Object>[] sentences = new Map[sentiment.sentences().size()];
+            for (int i = 0; i < sentences.length; i++) {
                 Map<String, Object> sentenceSentiment = new HashMap<>();
-                Sentiment sentenceSent = response.getSentences(i).getSentiment();
-                sentenceSentiment.put("text", response.getSentences(i).getText().getContent());
-                sentenceSentiment.put("score", sentenceSent.getScore());
-                sentenceSentiment.put("magnitude", sentenceSent.getMagnitude());
+                SentimentProvider.SentenceSentiment sentenceSent = sentiment.sentences().get(i);
+                sentenceSentiment.put("text", sentenceSent.text());
+                sentenceSentiment.put("score", sentenceSent.score());
+                sentenceSentiment.put("magnitude", sentenceSent.magnitude());
                 sentences[i] = sentenceSentiment;
             }
             result.put("sentences", sentences);
@@ -261,7 +323,7 @@ public class AIService {
      * @param audioFormat Audio format (e.g., "wav", "mp3", "ogg", "webm"). If null or empty, defaults to LINEAR16.
      */
     public Map<String, Object> speechToText(String audioData, String language, String audioFormat) {
-        if (!googleCloudEnabled || speechClient == null) {
+        if (!googleCloudEnabled || speechToTextProvider == null) {
             throw new AIServiceException("Speech-to-Text", 
                 "Google Cloud Speech-to-Text API is not enabled or not configured. Please enable it in application properties.",
                 "SPEECH_TO_TEXT_SERVICE_DISABLED");
@@ -272,29 +334,60 @@ public class AIService {
             throw new AIServiceException("Speech-to-Text", "Audio data cannot be empty", "INVALID_INPUT");
         }
         
+        logger.debug("Converting speech to text: language={}, audioFormat={}, audioDataLength={}", 
+            language, audioFormat, audioData.length());
+        
+        // Decode base64 audio data
+        byte[] audioBytes;
         try {
-            logger.debug("Converting speech to text: language={}, audioFormat={}, audioDataLength={}", 
-                language, audioFormat, audioData.length());
-            
-            // Decode base64 audio data
-            byte[] audioBytes;
-            try {
-                audioBytes = Base64.getDecoder().decode(audioData);
-            } catch (IllegalArgumentException e) {
-                throw new AIServiceException("Speech-to-Text", "Invalid base64 audio data", "INVALID_INPUT");
+            audioBytes = Base64.getDecoder().decode(audioData);
+        } catch (IllegalArgumentException e) {
+            throw new AIServiceException("Speech-to-Text", "Invalid base64 audio data", "INVALID_INPUT");
+        }
+        return speechToText(audioBytes, language, audioFormat);
+    }
+    
+    /**
+     * Convert raw audio bytes (multipart upload) to text; same rules as the base64 variant
+     * @param audioBytes Audio file content
+     * @param language Language code (e.g., "ja-JP")
+     * @param audioFormat Audio format (e.g., "wav", "mp3", "ogg", "webm"). If null or empty, detected from magic bytes.
+     */
+    public Map<String, Object> speechToText(byte[] audioBytes, String language, String audioFormat) {
+        if (!googleCloudEnabled || speechToTextProvider == null) {
+            throw new AIServiceException("Speech-to-Text", 
+                "Google Cloud Speech-to-Text API is not enabled or not configured. Please enable it in application properties.",
+                "SPEECH_TO_TEXT_SERVICE_DISABLED");
+        }
+        
+        if (audioBytes == null || audioBytes.length == 0) {
+            throw new AIServiceException("Speech-to-Text", "Audio data cannot be empty", "INVALID_INPUT");
+        }
+        
+        try {
+            // Exact duration from container headers (WAV/WebM/Ogg Opus/FLAC); size-based estimate otherwise
+            AudioPreprocessor.Prepared prepared = speechToTextPreprocess
+                ? AudioPreprocessor.prepare(audioBytes, speechToTextSampleRate)
+                : new AudioPreprocessor.Prepared(audioBytes, AudioPreprocessor.probe(audioBytes), 0);
+            if (prepared.audio() != audioBytes) {
+                logger.info("Audio preprocessed: {} -> {} bytes, trimmed {}s of silence, sampleRate={}", 
+                    audioBytes.length, prepared.audio().length, String.format("%.2f", prepared.trimmedSeconds()),
+                    prepared.probe().sampleRate());
             }
+            audioBytes = prepared.audio();
+            boolean measured = prepared.probe().hasDuration();
+            double durationSeconds = measured ? prepared.probe().durationSeconds() : estimateAudioDuration(audioBytes);
             
-            // Estimate duration - synchronous API supports max 60 seconds
-            double estimatedDurationSeconds = estimateAudioDuration(audioBytes);
-            
-            if (estimatedDurationSeconds > 60.0) {
+            // Synchronous API supports max 60 seconds (after silence trimming)
+            if (durationSeconds > 60.0) {
                 throw new AIServiceException("Speech-to-Text",
-                    String.format("Audio is too long (estimated %.1f seconds). Maximum allowed duration is 60 seconds. Please record a shorter audio.", 
-                        estimatedDurationSeconds),
+                    String.format("Audio is too long (%s %.1f seconds). Maximum allowed duration is 60 seconds. Please record a shorter audio.", 
+                        measured ? "measured" : "estimated", durationSeconds),
                     "AUDIO_TOO_LONG");
             }
             
-            logger.info("Audio duration estimated: {} seconds, using synchronous recognition", estimatedDurationSeconds);
+            logger.info("Audio duration {}: {} seconds, using synchronous recognition", 
+                measured ? "measured" : "estimated", durationSeconds);
             
             // Default to Japanese for Vietnamese users learning Japanese
             String langCode = language != null && !language.isEmpty() ? language : "ja-JP";
@@ -323,7 +416,8 @@ public class AIService {
             }
             
             // Build recognition config
-            RecognitionConfig config = buildRecognitionConfig(langCode, detectedFormat);
+            int headerSampleRate = "wav".equals(prepared.probe().format()) ? prepared.probe().sampleRate() : 0;
+            RecognitionConfig config = buildRecognitionConfig(langCode, detectedFormat, headerSampleRate);
             
             // Use synchronous recognition (supports up to 60 seconds)
             return speechToTextSynchronous(audioBytes, config);
@@ -340,28 +434,15 @@ public class AIService {
      */
     private Map<String, Object> speechToTextSynchronous(byte[] audioBytes, RecognitionConfig config) {
         try {
-            ByteString audioBytesString = ByteString.copyFrom(audioBytes);
-            
-            RecognitionAudio audio = RecognitionAudio.newBuilder()
-                .setContent(audioBytesString)
-                .build();
-            
-            RecognizeRequest request = RecognizeRequest.newBuilder()
-                .setConfig(config)
-                .setAudio(audio)
-                .build();
-            
-            RecognizeResponse response = speechClient.recognize(request);
+            SpeechToTextProvider.Transcript transcript = speechToTextProvider.recognize(audioBytes, config);
             
             Map<String, Object> result = new HashMap<>();
             result.put("language", config.getLanguageCode());
             
-            if (response.getResultsCount() > 0) {
-                SpeechRecognitionResult firstResult = response.getResults(0);
-                if (firstResult.getAlternativesCount() > 0) {
-                    SpeechRecognitionAlternative alternative = firstResult.getAlternatives(0);
-                    result.put("transcript", alternative.getTranscript());
-                    result.put("confidence", alternative.getConfidence());
+            if (transcript.speechDetected()) {
+                if (transcript.transcript() != null) {
+                    result.put("transcript", transcript.transcript());
+                    result.put("confidence", transcript.confidence());
                 }
             } else {
                 result.put("transcript", "");
@@ -386,8 +467,9 @@ public class AIService {
     
     /**
      * Build recognition config based on audio format
+     * @param headerSampleRate sample rate read from the WAV header (0 = unknown, use configured sample rate)
      */
-    private RecognitionConfig buildRecognitionConfig(String langCode, String detectedFormat) {
+    private RecognitionConfig buildRecognitionConfig(String langCode, String detectedFormat, int headerSampleRate) {
         RecognitionConfig.Builder configBuilder = RecognitionConfig.newBuilder()
             .setLanguageCode(langCode)
             .setEnableAutomaticPunctuation(true);
@@ -406,17 +488,18 @@ public class AIService {
             configBuilder.setEncoding(RecognitionConfig.AudioEncoding.FLAC);
             logger.info("Using FLAC encoding with auto-detected sample rate");
         } else {
-            // Default: LINEAR16 (WAV) with configured sample rate
-            logger.info("Using LINEAR16 encoding with sample rate {}", speechToTextSampleRate);
+            // Default: LINEAR16 (WAV) with the header's sample rate (configured sample rate if unknown)
+            int sampleRate = headerSampleRate > 0 ? headerSampleRate : speechToTextSampleRate;
+            logger.info("Using LINEAR16 encoding with sample rate {}", sampleRate);
             configBuilder.setEncoding(RecognitionConfig.AudioEncoding.LINEAR16)
-                .setSampleRateHertz(speechToTextSampleRate);
+                .setSampleRateHertz(sampleRate);
         }
         
         return configBuilder.build();
     }
     
     /**
-     * Estimate audio duration from file size
+     * Estimate audio duration from file size (MP3 / unreadable headers only)
      * Uses conservative estimate: 20KB per second average
      */
     private double estimateAudioDuration(byte[] audioBytes) {
@@ -487,10 +570,21 @@ public class AIService {
     }
     
     /**
-     * Convert text to speech using Google Cloud Text-to-Speech API
+     * Convert text to speech using Google Cloud Text-to-Speech API.
+     * Audio is stored content-addressed and returned as audioUrl; audioData (base64)
+     * is only included when the audio store is disabled or fails.
      */
     public Map<String, Object> textToSpeech(String text, String voice, String speed) {
-        if (!googleCloudEnabled || textToSpeechClient == null) {
+        return textToSpeech(text, voice, speed, false);
+    }
+    
+    /**
+     * Convert text to speech using Google Cloud Text-to-Speech API
+     *
+     * @param includeAudioData also return the audio inline as base64 (legacy clients)
+     */
+    public Map<String, Object> textToSpeech(String text, String voice, String speed, boolean includeAudioData) {
+        if (!googleCloudEnabled || textToSpeechProvider == null) {
             throw new AIServiceException("Text-to-Speech", 
                 "Google Cloud Text-to-Speech API is not enabled or not configured. Please enable it in application properties.",
                 "TEXT_TO_SPEECH_SERVICE_DISABLED");
@@ -518,41 +612,43 @@ public class AIService {
                 speakingRate = textToSpeechSpeedFast;
             }
             
-            // Build the voice request
-            SynthesisInput input = SynthesisInput.newBuilder()
-                .setText(text)
-                .build();
-            
-            VoiceSelectionParams voiceParams = VoiceSelectionParams.newBuilder()
-                .setLanguageCode("ja-JP")
-                .setName(voiceName)
-                .setSsmlGender(SsmlVoiceGender.NEUTRAL)
-                .build();
-            
-            AudioConfig audioConfig = AudioConfig.newBuilder()
-                .setAudioEncoding(AudioEncoding.MP3)
-                .setSpeakingRate(speakingRate)
-                .build();
-            
-            SynthesizeSpeechRequest request = SynthesizeSpeechRequest.newBuilder()
-                .setInput(input)
-                .setVoice(voiceParams)
-                .setAudioConfig(audioConfig)
-                .build();
-            
-            SynthesizeSpeechResponse response = textToSpeechClient.synthesizeSpeech(request);
-            
-            // Encode audio to base64
-            byte[] audioBytes = response.getAudioContent().toByteArray();
-            String audioBase64 = Base64.getEncoder().encodeToString(audioBytes);
-            
             Map<String, Object> result = new HashMap<>();
             result.put("text", text);
             result.put("voice", voiceName);
             result.put("speed", speed != null ? speed : "normal");
             result.put("audioFormat", "mp3");
-            result.put("audioData", audioBase64);
-            result.put("audioSize", audioBytes.length);
+            
+            final double rate = speakingRate;
+            byte[] audioBytes = null;
+            if (ttsAudioStore != null && ttsAudioStore.isEnabled()) {
+                // Same text + voice + rate is synthesized once, then served from R2/disk
+                TtsAudioStoreService.StoredAudio stored = ttsAudioStore.getOrSynthesize(
+                    text, voiceName, rate, "mp3", () -> synthesizeMp3(text, voiceName, rate));
+                audioBytes = stored.audio();
+                if (stored.url() != null) {
+                    result.put("audioUrl", stored.url());
+                    result.put("cached", stored.cached());
+                }
+                if (stored.sizeBytes() >= 0) {
+                    result.put("audioSize", stored.sizeBytes());
+                }
+                if (stored.url() != null && !includeAudioData) {
+                    audioBytes = null;
+                } else if (audioBytes == null) {
+                    // Cached, but the caller wants the bytes inline: read them back from the store
+                    audioBytes = ttsAudioStore.readStored(text, voiceName, rate, "mp3");
+                    if (audioBytes == null) {
+                        audioBytes = synthesizeMp3(text, voiceName, rate);
+                    }
+                }
+            } else {
+                audioBytes = synthesizeMp3(text, voiceName, rate);
+            }
+            
+            if (audioBytes != null) {
+                result.put("audioData", Base64.getEncoder().encodeToString(audioBytes));
+                result.put("audioSize", audioBytes.length);
+            }
             
             // Format response for Vietnamese users
             if (responseFormatter != null) {
@@ -569,28 +665,43 @@ public class AIService {
         }
     }
     
+    /**
+     * Synthesize MP3 audio (no caching)
+     */
+    private byte[] synthesizeMp3(String text, String voiceName, double speakingRate) {
+        return textToSpeechProvider.synthesizeMp3(text, "ja-JP", voiceName, speakingRate);
+    }
+    
+    /**
+     * Whether Text-to-Speech is configured (used by background jobs to skip work)
+     */
+    public boolean isTextToSpeechAvailable() {
+        return googleCloudEnabled && textToSpeechProvider != null;
+    }
+    
     /**
      * Check if Google Cloud AI services are available
      */
     public Map<String, Object> getHealthStatus() {
         Map<String, Object> healthStatus = new HashMap<>();
         healthStatus.put("googleCloudEnabled", googleCloudEnabled);
+        healthStatus.put("providerMode", providerMode);
         healthStatus.put("projectId", projectId);
         
         Map<String, String> services = new HashMap<>();
-        services.put("translation", translateClient != null ? "enabled" : "disabled");
-        services.put("sentiment", languageServiceClient != null ? "enabled" : "disabled");
+        services.put("translation", translationProvider != null ? "enabled" : "disabled");
+        services.put("sentiment", sentimentProvider != null ? "enabled" : "disabled");
         services.put("contentGeneration", "partial (using sentiment analysis)");
-        services.put("speechToText", speechClient != null ? "enabled" : "disabled");
-        services.put("textToSpeech", textToSpeechClient != null ? "enabled" : "disabled");
+        services.put("speechToText", speechToTextProvider != null ? "enabled" : "disabled");
+        services.put("textToSpeech", textToSpeechProvider != null ? "enabled" : "disabled");
         
         healthStatus.put("services", services);
         
         if (googleCloudEnabled && 
-            translateClient != null && 
-            languageServiceClient != null && 
-            speechClient != null && 
-            textToSpeechClient != null) {
+            translationProvider != null && 
+            sentimentProvider != null && 
+            speechToTextProvider != null && 
+            textToSpeechProvider != null) {
             healthStatus.put("status", "READY");
             healthStatus.put("message", "All Google Cloud AI services are ready");
         } else if (googleCloudEnabled) {
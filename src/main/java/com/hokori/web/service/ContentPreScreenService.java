@@ -0,0 +1,250 @@
+package com.hokori.web.service;
+
+import com.hokori.web.Enum.ModerationTermSeverity;
+import com.hokori.web.entity.ModerationTerm;
+import com.hokori.web.repository.ModerationTermRepository;
+import com.hokori.web.util.AhoCorasick;
+import com.hokori.web.util.TextSimilarity;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Lọc nội dung cục bộ trước khi gọi AI kiểm duyệt: mọi từ trong danh sách moderation_term được tìm
+ * trong 1 lượt duyệt text bằng automaton Aho–Corasick (thời gian tuyến tính theo độ dài text).
+ *
+ * - BLOCK: chắc chắn vi phạm, xử lý ngay không cần AI (comment bị từ chối, khóa học bị cảnh báo an toàn)
+ * - REVIEW: có thể vi phạm tùy ngữ cảnh (comment vẫn đăng nhưng được đánh dấu cho moderator)
+ * - Text sạch và ngắn: bỏ qua lượt gọi AI
+ *
+ * Text và từ được chuẩn hoá giống nhau: NFKC (chữ full-width/half-width), chữ thường, thống nhất vị trí
+ * dấu thanh tiếng Việt ("hòa"/"hoà"), katakana -> hiragana. Không bỏ dấu tiếng Việt vì sẽ trùng từ thường
+ * ("lớn"/"lồn", "các"/"cặc"); cách viết không dấu được thêm thành từ riêng nếu cần.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ContentPreScreenService {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // Dấu huyền, sắc, ngã, hỏi, nặng dạng combining (sau NFD)
+    private static final Set<Character> VIETNAMESE_TONE_MARKS = Set.of('\u0300', '\u0301', '\u0303', '\u0309', '\u0323');
+
+    private final ModerationTermRepository termRepo;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${moderation.prescreen.enabled:true}")
+    private boolean enabled;
+
+    // Text sạch không dài hơn mức này thì không cần gửi AI
+    @Value("${moderation.prescreen.short-text-chars:280}")
+    private int shortTextChars;
+
+    /** Automaton hiện tại; thay nguyên khối khi danh sách từ đổi, null khi chưa nạp */
+    private volatile TermIndex termIndex;
+
+    public enum Verdict {
+        CLEAN, REVIEW, BLOCK
+    }
+
+    /**
+     * 1 từ trong danh sách xuất hiện trong text
+     */
+    public record Hit(String term, String language, ModerationTermSeverity severity) {
+    }
+
+    public record ScreenResult(Verdict verdict, List<Hit> hits) {
+
+        static final ScreenResult CLEAN = new ScreenResult(Verdict.CLEAN, List.of());
+
+        public boolean isBlocked() {
+            return verdict == Verdict.BLOCK;
+        }
+
+        public List<String> terms() {
+            return hits.stream().map(Hit::term).toList();
+        }
+    }
+
+    private record IndexedTerm(ModerationTerm term, boolean latinStart, boolean latinEnd) {
+    }
+
+    private record TermIndex(AhoCorasick automaton, List<IndexedTerm> terms) {
+    }
+
+    /**
+     * Tìm các từ trong danh sách xuất hiện trong text; mỗi từ báo 1 lần, verdict là mức nặng nhất
+     */
+    public ScreenResult screen(String text) {
+        if (!enabled || !StringUtils.hasText(text)) {
+            return ScreenResult.CLEAN;
+        }
+        TermIndex index = currentIndex();
+        String normalized = normalizeForMatching(text);
+
+        Map<String, Hit> hits = new LinkedHashMap<>();
+        for (AhoCorasick.Match match : index.automaton().findAll(normalized)) {
+            IndexedTerm indexed = index.terms().get(match.patternIndex());
+            // Từ viết bằng chữ Latin (tiếng Việt, tiếng Anh) phải đứng riêng, không khớp giữa 1 từ khác
+            if ((indexed.latinStart() && isLetterOrDigitAt(normalized, match.start() - 1))
+                    || (indexed.latinEnd() && isLetterOrDigitAt(normalized, match.end()))) {
+                continue;
+            }
+            ModerationTerm term = indexed.term();
+            hits.putIfAbsent(term.getNormalizedTerm(), new Hit(term.getTerm(), term.getLanguage(), term.getSeverity()));
+        }
+
+        Verdict verdict = hits.isEmpty() ? Verdict.CLEAN
+                : hits.values().stream().anyMatch(hit -> hit.severity() == ModerationTermSeverity.BLOCK)
+                ? Verdict.BLOCK : Verdict.REVIEW;
+        meterRegistry.counter("moderation.prescreen", "result", verdict.name().toLowerCase(Locale.ROOT)).increment();
+        return new ScreenResult(verdict, List.copyOf(hits.values()));
+    }
+
+    /**
+     * Text đã lọc sạch (screen trả CLEAN) và đủ ngắn thì không cần gửi AI kiểm tra thêm
+     */
+    public boolean canSkipAI(String cleanText) {
+        return enabled && cleanText != null && cleanText.length() <= shortTextChars;
+    }
+
+    // ========= Quản lý danh sách từ =========
+
+    @Transactional(readOnly = true)
+    public List<ModerationTerm> listTerms() {
+        return termRepo.findByDeletedFlagFalseOrderByTermAsc();
+    }
+
+    @Transactional
+    public ModerationTerm addTerm(String term, String language, ModerationTermSeverity severity) {
+        String normalized = StringUtils.hasText(term) ? normalizeForMatching(term) : "";
+        if (normalized.isEmpty() || normalized.length() > 100) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Từ cần lọc phải có từ 1 đến 100 ký tự");
+        }
+        ModerationTerm entity = termRepo.findByNormalizedTerm(normalized).orElseGet(ModerationTerm::new);
+        if (entity.getId() != null && !entity.isDeletedFlag()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Từ này đã có trong danh sách");
+        }
+        entity.setTerm(term.strip());
+        entity.setNormalizedTerm(normalized);
+        entity.setLanguage(language);
+        entity.setSeverity(severity);
+        entity.setDeletedFlag(false);
+        ModerationTerm saved = termRepo.save(entity);
+        reload();
+        log.info("Moderation term added: '{}' ({}, {})", saved.getTerm(), language, severity);
+        return saved;
+    }
+
+    @Transactional
+    public void deleteTerm(Long id) {
+        ModerationTerm term = termRepo.findById(id)
+                .filter(existing -> !existing.isDeletedFlag())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Term not found"));
+        term.setDeletedFlag(true);
+        termRepo.save(term);
+        reload();
+        log.info("Moderation term removed: '{}'", term.getTerm());
+    }
+
+    /**
+     * Nạp lại định kỳ để nhận thay đổi từ instance khác
+     */
+    @Scheduled(fixedDelayString = "${moderation.prescreen.refresh-interval-ms:300000}",
+            initialDelayString = "${moderation.prescreen.refresh-interval-ms:300000}")
+    public void reload() {
+        try {
+            termIndex = buildIndex(termRepo.findByDeletedFlagFalseOrderByTermAsc());
+        } catch (Exception e) {
+            // Giữ automaton cũ; lần nạp sau thử lại
+            log.warn("Could not reload moderation terms: {}", e.getMessage());
+        }
+    }
+
+    private TermIndex currentIndex() {
+        TermIndex index = termIndex;
+        if (index == null) {
+            synchronized (this) {
+                if (termIndex == null) {
+                    reload();
+                    if (termIndex == null) {
+                        return buildIndex(List.of());
+                    }
+                }
+                index = termIndex;
+            }
+        }
+        return index;
+    }
+
+    private static TermIndex buildIndex(List<ModerationTerm> terms) {
+        List<String> patterns = new ArrayList<>(terms.size());
+        List<IndexedTerm> indexed = new ArrayList<>(terms.size());
+        for (ModerationTerm term : terms) {
+            // Chuẩn hoá lại từ term gốc: đổi quy tắc chuẩn hoá không cần migrate dữ liệu
+            String pattern = normalizeForMatching(term.getTerm());
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            patterns.add(pattern);
+            indexed.add(new IndexedTerm(term, isLatinLetter(pattern.charAt(0)),
+                    isLatinLetter(pattern.charAt(pattern.length() - 1))));
+        }
+        log.debug("Moderation pre-screen automaton built from {} terms", patterns.size());
+        return new TermIndex(AhoCorasick.build(patterns), indexed);
+    }
+
+    /**
+     * Chuẩn hoá dùng chung cho text và từ trong danh sách
+     */
+    static String normalizeForMatching(String text) {
+        String nfkc = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        String folded = TextSimilarity.foldKana(unifyVietnameseToneMarks(nfkc));
+        return WHITESPACE.matcher(folded.strip()).replaceAll(" ");
+    }
+
+    /**
+     * "hòa"/"hoà", "thủy"/"thuỷ": đặt dấu thanh của oa, oe, uy lên nguyên âm thứ 2 (kiểu mới)
+     */
+    private static String unifyVietnameseToneMarks(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (i + 2 < decomposed.length() && VIETNAMESE_TONE_MARKS.contains(decomposed.charAt(i + 1))) {
+                char next = decomposed.charAt(i + 2);
+                if ((c == 'o' && (next == 'a' || next == 'e')) || (c == 'u' && next == 'y')) {
+                    out.append(c).append(next).append(decomposed.charAt(i + 1));
+                    i += 2;
+                    continue;
+                }
+            }
+            out.append(c);
+        }
+        return Normalizer.normalize(out, Normalizer.Form.NFC);
+    }
+
+    private static boolean isLatinLetter(char c) {
+        return Character.isLetterOrDigit(c) && c < 0x3000;
+    }
+
+    private static boolean isLetterOrDigitAt(String text, int index) {
+        return index >= 0 && index < text.length() && Character.isLetterOrDigit(text.charAt(index));
+    }
+}
@@ -2,148 +2,557 @@ package com.hokori.web.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hokori.web.Enum.AIRequestPriority;
+import com.hokori.web.Enum.GeminiCacheSite;
 import com.hokori.web.exception.AIServiceException;
+import com.hokori.web.util.BoundedExecutor;
+import com.hokori.web.util.SentenceChunker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Service for AI-powered conversation practice
  * Supports multi-turn conversations (6-7 turns) with context awareness
+ *
+ * Turn pipeline: independent remote calls (translation, TTS, turn feedback, learning materials)
+ * run concurrently, each with its own timeout and a fallback value, so turn latency is roughly
+ * STT + Gemini + max(translation, TTS) instead of the sum of every call. Blocking Google clients
+ * (speech, translation, TTS) run on a private pool; Gemini calls are non-blocking and hold no thread,
+ * and the public entry points return futures so the request thread is released too.
+ *
+ * History lives server-side in {@link ConversationSessionStore}: FE only sends the new user turn, and
+ * Gemini sees a rolling summary of older turns plus the most recent ones, so the prompt stays bounded.
  */
 @Service
 public class ConversationPracticeService {
 
     private static final Logger logger = LoggerFactory.getLogger(ConversationPracticeService.class);
 
+    // (level, scenario) pairs precomputed in the learning material library
+    private static final List<String> LEVELS = List.of("N5", "N4", "N3", "N2", "N1");
+    private static final List<String> SCENARIO_KEYS =
+            List.of("restaurant", "shopping", "greeting", "directions", "hotel", "airport", "custom");
+
     @Autowired(required = false)
     private GeminiService geminiService;
 
     @Autowired(required = false)
     private AIService aiService;
 
+    @Autowired(required = false)
+    private ConversationSessionStore sessionStore;
+
+    @Autowired(required = false)
+    private LearningMaterialLibraryService materialLibrary;
+
     @Value("${google.cloud.enabled:false}")
     private boolean googleCloudEnabled;
 
+    @Value("${conversation.pipeline.threads:16}")
+    private int pipelineThreads;
+
+    @Value("${conversation.pipeline.timeout.generation-ms:90000}")
+    private long generationTimeoutMs;
+
+    @Value("${conversation.pipeline.timeout.translation-ms:5000}")
+    private long translationTimeoutMs;
+
+    @Value("${conversation.pipeline.timeout.tts-ms:10000}")
+    private long ttsTimeoutMs;
+
+    @Value("${conversation.pipeline.timeout.feedback-ms:20000}")
+    private long feedbackTimeoutMs;
+
+    @Value("${conversation.pipeline.timeout.learning-materials-ms:20000}")
+    private long learningMaterialsTimeoutMs;
+
+    // Off: history is passed through as the client sent it (no extra Translate call per turn)
+    @Value("${conversation.pipeline.backfill-history-translations:false}")
+    private boolean backfillHistoryTranslations;
+
+    // Streaming: shorter sentences are merged with the next one before TTS
+    @Value("${conversation.stream.sentence-min-chars:6}")
+    private int sentenceMinChars;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private BoundedExecutor pipelineExecutor;
+
+    @PostConstruct
+    void initPipelineExecutor() {
+        // Full pool rejects: optional stages go straight to their fallback instead of running on the request thread.
+        // Stages call Gemini, whose rate governor queues fairly per user: keep the caller's identity
+        pipelineExecutor = BoundedExecutor.create("conversation-pipeline", pipelineThreads, pipelineThreads * 8,
+                runnable -> DelegatingSecurityContextRunnable.create(runnable, null));
+    }
+
+    @PreDestroy
+    void shutdownPipelineExecutor() {
+        pipelineExecutor.shutdownNow();
+    }
+
     /**
      * Start a new conversation practice session
      * Detects if user should speak first based on scenario
+     * Non-blocking: Gemini calls (scenario mapping, first question, suggestions) don't hold the request thread
      */
-    public Map<String, Object> startConversation(String level, String scenario) {
+    public CompletableFuture<Map<String, Object>> startConversation(String level, String scenario) {
         if (!googleCloudEnabled || geminiService == null) {
-            throw new AIServiceException("Conversation Practice",
+            return CompletableFuture.failedFuture(new AIServiceException("Conversation Practice",
                     "Conversation practice service is not available",
-                    "SERVICE_DISABLED");
+                    "SERVICE_DISABLED"));
         }
 
         String normalizedLevel = normalizeLevel(level);
-        String normalizedScenario = normalizeScenario(scenario);
         String originalScenario = scenario; // Keep original for display
+        String ownerKey = currentOwnerKey();
+
+        return normalizeScenario(scenario).thenComposeAsync(normalizedScenario -> {
+            logger.info("Starting conversation practice: level={}, originalScenario={}, normalizedScenario={}",
+                    normalizedLevel, originalScenario, normalizedScenario);
+
+            // Detect if user should speak first based on scenario
+            boolean userSpeaksFirst = shouldUserSpeakFirst(originalScenario, normalizedScenario);
+
+            // Learning materials run in parallel with the first question / starting suggestions
+            CompletableFuture<Map<String, Object>> learningMaterialsFuture =
+                    learningMaterials(normalizedLevel, normalizedScenario, originalScenario);
+
+            // Build base response
+            String conversationId = generateConversationId();
+            ConversationSessionStore.ConversationSession session = sessionStore != null
+                    ? sessionStore.create(conversationId, ownerKey, normalizedLevel, normalizedScenario, originalScenario)
+                    : null;
+            Map<String, Object> result = new HashMap<>();
+            result.put("conversationId", conversationId);
+            result.put("level", normalizedLevel);
+            result.put("scenario", normalizedScenario);
+            result.put("originalScenario", originalScenario);
+            result.put("turnNumber", 1);
+            result.put("maxTurns", 7);
+            result.put("userSpeaksFirst", userSpeaksFirst);
+
+            CompletableFuture<Map<String, Object>> opening;
+            if (userSpeaksFirst) {
+                // User speaks first - generate starting suggestions
+                opening = generateStartingSuggestions(normalizedLevel, normalizedScenario, originalScenario)
+                        .thenApply(suggestions -> {
+                            result.put("conversationHistory", new ArrayList<>());
+                            result.put("startingSuggestions", suggestions);
+                            result.put("aiQuestion", null);
+                            result.put("aiQuestionVi", null);
+                            result.put("audioUrl", null);
+                            result.put("audioFormat", null);
+
+                            logger.debug("Conversation started (user speaks first): conversationId={}", conversationId);
+                            return result;
+                        });
+            } else {
+                // AI speaks first - generate first question
+                String systemPrompt = buildSystemPrompt(normalizedLevel, normalizedScenario, originalScenario);
+                opening = generation(geminiService.generateConversationResponseAsync(systemPrompt, new ArrayList<>()),
+                        "Failed to generate conversation question")
+                        .thenCompose(aiQuestion -> {
+                            // Translation and TTS of the question are independent
+                            CompletableFuture<String> aiQuestionViFuture = stage("translate-ai",
+                                    () -> translateToVietnamese(aiQuestion), translationTimeoutMs, () -> "");
+                            CompletableFuture<Map<String, Object>> audioFuture = stage("tts",
+                                    () -> generateAudio(aiQuestion), ttsTimeoutMs, HashMap::new);
+                            return aiQuestionViFuture.thenCombine(audioFuture, (aiQuestionVi, audioResult) -> {
+                                List<Map<String, String>> conversationHistory = new ArrayList<>();
+                                Map<String, String> aiMessage = new HashMap<>();
+                                aiMessage.put("role", "ai");
+                                aiMessage.put("text", aiQuestion);
+                                aiMessage.put("textVi", aiQuestionVi);
+                                conversationHistory.add(aiMessage);
+                                if (session != null) {
+                                    session.append(aiMessage);
+                                }
 
-        logger.info("Starting conversation practice: level={}, originalScenario={}, normalizedScenario={}",
-                normalizedLevel, originalScenario, normalizedScenario);
+                                result.put("conversationHistory", conversationHistory);
+                                result.put("startingSuggestions", null);
+                                result.put("aiQuestion", aiQuestion);
+                                result.put("aiQuestionVi", aiQuestionVi);
+                                result.put("audioUrl", audioUrl(audioResult));
+                                result.put("audioFormat", audioResult.get("audioFormat"));
 
-        // Detect if user should speak first based on scenario
-        boolean userSpeaksFirst = shouldUserSpeakFirst(originalScenario, normalizedScenario);
+                                logger.debug("Conversation started (AI speaks first): conversationId={}", conversationId);
+                                return result;
+                            });
+                        });
+            }
 
-        // Generate learning materials for this scenario
-        Map<String, Object> learningMaterials = generateLearningMaterials(normalizedLevel, normalizedScenario, originalScenario);
+            // Add learning fields
+            return opening.thenCombine(learningMaterialsFuture, (response, learningMaterials) -> {
+                response.put("scenarioDescription", learningMaterials.get("scenarioDescription"));
+                response.put("vocabularyPreview", learningMaterials.get("vocabularyPreview"));
+                response.put("grammarPoints", learningMaterials.get("grammarPoints"));
+                response.put("tips", learningMaterials.get("tips"));
+                return response;
+            });
+        }, GeminiService.callerContext());
+    }
 
-        // Build base response
-        Map<String, Object> result = new HashMap<>();
-        result.put("conversationId", generateConversationId());
-        result.put("level", normalizedLevel);
-        result.put("scenario", normalizedScenario);
-        result.put("originalScenario", originalScenario);
-        result.put("turnNumber", 1);
-        result.put("maxTurns", 7);
-        result.put("userSpeaksFirst", userSpeaksFirst);
-        
-        // Add learning fields
-        result.put("scenarioDescription", learningMaterials.get("scenarioDescription"));
-        result.put("vocabularyPreview", learningMaterials.get("vocabularyPreview"));
-        result.put("grammarPoints", learningMaterials.get("grammarPoints"));
-        result.put("tips", learningMaterials.get("tips"));
-
-        if (userSpeaksFirst) {
-            // User speaks first - generate starting suggestions
-            List<String> suggestions = generateStartingSuggestions(normalizedLevel, normalizedScenario, originalScenario);
-            
-            result.put("conversationHistory", new ArrayList<>());
-            result.put("startingSuggestions", suggestions);
-            result.put("aiQuestion", null);
-            result.put("aiQuestionVi", null);
-            result.put("audioUrl", null);
-            result.put("audioFormat", null);
-            
-            logger.debug("Conversation started (user speaks first): conversationId={}", result.get("conversationId"));
-        } else {
-            // AI speaks first - generate first question
-            String systemPrompt = buildSystemPrompt(normalizedLevel, normalizedScenario, originalScenario);
-            String aiQuestion = geminiService.generateConversationResponse(systemPrompt, new ArrayList<>());
-
-            if (aiQuestion == null || aiQuestion.trim().isEmpty()) {
-                throw new AIServiceException("Conversation Practice",
-                        "Failed to generate conversation question",
-                        "GENERATION_FAILED");
-            }
+    /**
+     * Respond to conversation and get next AI question
+     * History comes from the server-side session; conversationHistory (optional, older clients) is only
+     * used to restore a session that has expired. Null level/scenario fall back to the session's.
+     * Non-blocking: speech-to-text runs on the pipeline pool, Gemini calls don't hold any thread.
+     */
+    public CompletableFuture<Map<String, Object>> respondToConversation(
+            String conversationId,
+            List<Map<String, String>> conversationHistory,
+            String audioData,
+            String audioFormat,
+            String language,
+            String level,
+            String scenario) {
 
-            String aiQuestionVi = translateToVietnamese(aiQuestion);
-            Map<String, Object> audioResult = generateAudio(aiQuestion);
-
-            List<Map<String, String>> conversationHistory = new ArrayList<>();
-            Map<String, String> aiMessage = new HashMap<>();
-            aiMessage.put("role", "ai");
-            aiMessage.put("text", aiQuestion);
-            aiMessage.put("textVi", aiQuestionVi);
-            conversationHistory.add(aiMessage);
-
-            result.put("conversationHistory", conversationHistory);
-            result.put("startingSuggestions", null);
-            result.put("aiQuestion", aiQuestion);
-            result.put("aiQuestionVi", aiQuestionVi);
-            result.put("audioUrl", audioResult.get("audioData"));
-            result.put("audioFormat", audioResult.get("audioFormat"));
-            
-            logger.debug("Conversation started (AI speaks first): conversationId={}", result.get("conversationId"));
+        if (!googleCloudEnabled || geminiService == null || aiService == null) {
+            return CompletableFuture.failedFuture(new AIServiceException("Conversation Practice",
+                    "Conversation practice service is not available",
+                    "SERVICE_DISABLED"));
         }
 
-        return result;
+        String normalizedLanguage = (language != null && !language.isEmpty()) ? language : "ja-JP";
+        String normalizedAudioFormat = (audioFormat != null && !audioFormat.isEmpty()) ? audioFormat : "wav";
+
+        return openTurn(conversationId, conversationHistory, level, scenario).thenComposeAsync(context -> {
+            String normalizedLevel = context.level();
+            String normalizedScenario = context.scenario();
+
+            logger.info("Processing conversation response: conversationId={}, historySize={}, level={}, scenario={}",
+                    conversationId, context.history().size(), normalizedLevel, normalizedScenario);
+
+            // Step 1: Convert user audio to text
+            return transcribeAsync(audioData, normalizedLanguage, normalizedAudioFormat).thenCompose(transcript -> {
+                String userTranscript = transcript.text();
+                Double confidence = transcript.confidence();
+
+                // Step 2 (parallel): translate user transcript, backfill history translations (if enabled)
+                CompletableFuture<String> userTranscriptViFuture = stage("translate-user",
+                        () -> translateToVietnamese(userTranscript), translationTimeoutMs, () -> "");
+                CompletableFuture<List<Map<String, String>>> historyFuture = historyWithTranslations(context.history());
+
+                List<Map<String, String>> historyWithUser = historyWithUserTurn(context.history(), userTranscript);
+
+                // Step 3: Check if conversation should end (max turns reached)
+                int currentTurn = historyWithUser.size() / 2; // Each turn = AI question + user response
+                if (currentTurn >= 7) {
+                    // End conversation
+                    return userTranscriptViFuture.thenCombine(historyFuture, (userTranscriptVi, history) -> {
+                        List<Map<String, String>> finalHistory = withUserMessage(history, userTranscript, userTranscriptVi);
+                        recordTurn(context, finalHistory.subList(finalHistory.size() - 1, finalHistory.size()));
+                        return buildEndConversationResponse(conversationId, finalHistory,
+                                normalizedLevel, normalizedScenario);
+                    });
+                }
+
+                // Step 4 (parallel): generate next AI question + feedback on the answer to the previous question
+                // Gemini sees the rolling summary + recent turns (only role + text, translations not needed)
+                String systemPrompt = buildSystemPrompt(normalizedLevel, normalizedScenario, context.originalScenario(),
+                        context.summary());
+                CompletableFuture<String> nextQuestionFuture = generation(geminiService.generateConversationResponseAsync(
+                        systemPrompt, convertToGeminiHistory(historyWithUserTurn(context.promptHistory(), userTranscript))),
+                        "Failed to generate next conversation question");
+                CompletableFuture<Map<String, Object>> turnFeedbackFuture =
+                        generateTurnFeedback(userTranscript, normalizedLevel, historyWithUser);
+
+                return nextQuestionFuture.thenCompose(aiNextQuestion -> {
+                    // Step 5 (parallel): translate AI question + generate its audio
+                    CompletableFuture<String> aiNextQuestionViFuture = stage("translate-ai",
+                            () -> translateToVietnamese(aiNextQuestion), translationTimeoutMs, () -> "");
+                    CompletableFuture<Map<String, Object>> audioFuture = stage("tts",
+                            () -> generateAudio(aiNextQuestion), ttsTimeoutMs, HashMap::new);
+
+                    return CompletableFuture.allOf(userTranscriptViFuture, historyFuture, turnFeedbackFuture,
+                                    aiNextQuestionViFuture, audioFuture)
+                            .thenApply(ignored -> {
+                                String userTranscriptVi = userTranscriptViFuture.join();
+                                String aiNextQuestionVi = aiNextQuestionViFuture.join();
+                                Map<String, Object> audioResult = audioFuture.join();
+
+                                // Step 6: Add user + AI messages to history
+                                List<Map<String, String>> updatedHistory =
+                                        withUserMessage(historyFuture.join(), userTranscript, userTranscriptVi);
+                                Map<String, String> aiMessage = new HashMap<>();
+                                aiMessage.put("role", "ai");
+                                aiMessage.put("text", aiNextQuestion);
+                                aiMessage.put("textVi", aiNextQuestionVi);
+                                updatedHistory.add(aiMessage);
+                                recordTurn(context, updatedHistory.subList(updatedHistory.size() - 2, updatedHistory.size()));
+
+                                // Build response
+                                Map<String, Object> result = buildTurnResult(conversationId, userTranscript,
+                                        userTranscriptVi, confidence, aiNextQuestion, aiNextQuestionVi, updatedHistory,
+                                        currentTurn, turnFeedbackFuture.join());
+                                result.put("audioUrl", audioUrl(audioResult));
+                                result.put("audioFormat", audioResult.get("audioFormat"));
+
+                                logger.debug("Conversation response processed: turnNumber={}", result.get("turnNumber"));
+                                return result;
+                            });
+                });
+            });
+        }, GeminiService.callerContext());
     }
 
     /**
-     * Respond to conversation and get next AI question
-     * FE sends full conversation history, BE processes user audio and generates next question
+     * Listener for streamed turn events (see {@link #streamConversationTurn})
      */
-    public Map<String, Object> respondToConversation(
+    @FunctionalInterface
+    public interface TurnEventListener {
+        void onEvent(String name, Object data);
+    }
+
+    /**
+     * Streaming variant of {@link #respondToConversation}: same inputs and same final result,
+     * but progress is pushed to the listener while the turn is being produced:
+     * <ul>
+     *   <li>transcript - user transcript + confidence, right after speech-to-text</li>
+     *   <li>token - each text delta of the AI reply as Gemini streams it</li>
+     *   <li>sentence - each complete sentence of the reply with its TTS audio, in order,
+     *       synthesized while the rest of the reply is still generating</li>
+     *   <li>done - the full turn result (audioSegments instead of a single audioUrl)</li>
+     * </ul>
+     * Translation and turn feedback are part of "done". Nothing blocks the calling thread.
+     */
+    public CompletableFuture<Map<String, Object>> streamConversationTurn(
             String conversationId,
             List<Map<String, String>> conversationHistory,
             String audioData,
             String audioFormat,
             String language,
             String level,
-            String scenario) {
+            String scenario,
+            TurnEventListener listener) {
 
         if (!googleCloudEnabled || geminiService == null || aiService == null) {
-            throw new AIServiceException("Conversation Practice",
+            return CompletableFuture.failedFuture(new AIServiceException("Conversation Practice",
                     "Conversation practice service is not available",
-                    "SERVICE_DISABLED");
+                    "SERVICE_DISABLED"));
         }
 
-        String normalizedLevel = normalizeLevel(level);
-        String normalizedScenario = normalizeScenario(scenario);
         String normalizedLanguage = (language != null && !language.isEmpty()) ? language : "ja-JP";
         String normalizedAudioFormat = (audioFormat != null && !audioFormat.isEmpty()) ? audioFormat : "wav";
 
-        logger.info("Processing conversation response: conversationId={}, historySize={}, level={}, scenario={}",
-                conversationId, conversationHistory.size(), normalizedLevel, normalizedScenario);
+        // Caller cancels (SSE timeout / client gone): cancel the Gemini reply stream in flight
+        CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<String>> replyInFlight = new AtomicReference<>();
+        result.whenComplete((value, error) -> {
+            CompletableFuture<String> reply = replyInFlight.get();
+            if (error != null && reply != null) {
+                reply.cancel(true);
+            }
+        });
+
+        openTurn(conversationId, conversationHistory, level, scenario).thenComposeAsync(context -> {
+            String normalizedLevel = context.level();
+            String normalizedScenario = context.scenario();
+
+            logger.info("Processing streamed conversation response: conversationId={}, historySize={}, level={}, scenario={}",
+                    conversationId, context.history().size(), normalizedLevel, normalizedScenario);
+
+            return transcribeAsync(audioData, normalizedLanguage, normalizedAudioFormat).thenCompose(transcript -> {
+                String userTranscript = transcript.text();
+                Map<String, Object> transcriptEvent = new HashMap<>();
+                transcriptEvent.put("userTranscript", userTranscript);
+                transcriptEvent.put("confidence", transcript.confidence());
+                listener.onEvent("transcript", transcriptEvent);
+
+                CompletableFuture<String> userTranscriptViFuture = stage("translate-user",
+                        () -> translateToVietnamese(userTranscript), translationTimeoutMs, () -> "");
+                CompletableFuture<List<Map<String, String>>> historyFuture = historyWithTranslations(context.history());
+                List<Map<String, String>> historyWithUser = historyWithUserTurn(context.history(), userTranscript);
+
+                int currentTurn = historyWithUser.size() / 2;
+                if (currentTurn >= 7) {
+                    return userTranscriptViFuture.thenCombine(historyFuture, (userVi, history) -> {
+                        List<Map<String, String>> finalHistory = withUserMessage(history, userTranscript, userVi);
+                        recordTurn(context, finalHistory.subList(finalHistory.size() - 1, finalHistory.size()));
+                        return buildEndConversationResponse(conversationId, finalHistory,
+                                normalizedLevel, normalizedScenario);
+                    });
+                }
+
+                String systemPrompt = buildSystemPrompt(normalizedLevel, normalizedScenario,
+                        context.originalScenario(), context.summary());
+                CompletableFuture<Map<String, Object>> turnFeedbackFuture =
+                        generateTurnFeedback(userTranscript, normalizedLevel, historyWithUser);
+
+                SentenceAudioPipeline audio = new SentenceAudioPipeline(listener);
+                CompletableFuture<String> reply = geminiService.streamConversationResponse(systemPrompt,
+                        convertToGeminiHistory(historyWithUserTurn(context.promptHistory(), userTranscript)), delta -> {
+                            listener.onEvent("token", Map.of("text", delta));
+                            audio.append(delta);
+                        });
+                replyInFlight.set(reply);
+                if (result.isDone()) {
+                    reply.cancel(true);
+                }
+                return generation(reply, "Failed to generate next conversation question")
+                        .thenApply(String::trim)
+                        .thenCompose(aiNextQuestion -> {
+                            audio.finish();
+                            CompletableFuture<String> aiNextQuestionViFuture = stage("translate-ai",
+                                    () -> translateToVietnamese(aiNextQuestion), translationTimeoutMs, () -> "");
+                            return CompletableFuture.allOf(userTranscriptViFuture, historyFuture,
+                                            turnFeedbackFuture, aiNextQuestionViFuture, audio.completion())
+                                    .thenApply(ignored -> {
+                                        String userTranscriptVi = userTranscriptViFuture.join();
+                                        String aiNextQuestionVi = aiNextQuestionViFuture.join();
+                                        List<Map<String, String>> updatedHistory =
+                                                withUserMessage(historyFuture.join(), userTranscript, userTranscriptVi);
+                                        Map<String, String> aiMessage = new HashMap<>();
+                                        aiMessage.put("role", "ai");
+                                        aiMessage.put("text", aiNextQuestion);
+                                        aiMessage.put("textVi", aiNextQuestionVi);
+                                        updatedHistory.add(aiMessage);
+                                        recordTurn(context, updatedHistory.subList(
+                                                updatedHistory.size() - 2, updatedHistory.size()));
+
+                                        Map<String, Object> turnResult = buildTurnResult(conversationId, userTranscript,
+                                                userTranscriptVi, transcript.confidence(), aiNextQuestion,
+                                                aiNextQuestionVi, updatedHistory, currentTurn, turnFeedbackFuture.join());
+                                        turnResult.put("audioSegments", audio.segments());
+                                        turnResult.put("audioFormat", "mp3");
+                                        return turnResult;
+                                    });
+                        });
+            });
+        }, GeminiService.callerContext()).whenComplete((turn, error) -> {
+            if (error == null) {
+                result.complete(turn);
+            } else {
+                result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Cuts the streamed reply into sentences and synthesizes each one on the pipeline pool as soon as
+     * it is complete. "sentence" events are emitted strictly in order even if a later sentence's TTS
+     * finishes first. Callbacks come from the Gemini stream thread one at a time.
+     */
+    private final class SentenceAudioPipeline {
+
+        private final TurnEventListener listener;
+        private final SentenceChunker chunker = new SentenceChunker(sentenceMinChars);
+        private final List<Map<String, Object>> segments = Collections.synchronizedList(new ArrayList<>());
+        private CompletableFuture<Void> emitted = CompletableFuture.completedFuture(null);
+        private int nextIndex;
+
+        SentenceAudioPipeline(TurnEventListener listener) {
+            this.listener = listener;
+        }
+
+        void append(String delta) {
+            for (String sentence : chunker.append(delta)) {
+                submit(sentence);
+            }
+        }
+
+        void finish() {
+            String rest = chunker.flush();
+            if (rest != null) {
+                submit(rest);
+            }
+        }
+
+        CompletableFuture<Void> completion() {
+            return emitted;
+        }
+
+        List<Map<String, Object>> segments() {
+            return new ArrayList<>(segments);
+        }
+
+        private void submit(String sentence) {
+            int index = nextIndex++;
+            CompletableFuture<Map<String, Object>> tts = stage("tts-sentence",
+                    () -> generateAudio(sentence), ttsTimeoutMs, HashMap::new);
+            emitted = emitted.thenCombine(tts, (ignored, audioResult) -> {
+                Map<String, Object> segment = new HashMap<>();
+                segment.put("index", index);
+                segment.put("text", sentence);
+                segment.put("audioUrl", audioUrl(audioResult));
+                segment.put("audioFormat", audioResult.get("audioFormat"));
+                segments.add(segment);
+                listener.onEvent("sentence", segment);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Copy of the history plus the new user turn (role + text), as sent to Gemini
+     */
+    private static List<Map<String, String>> historyWithUserTurn(List<Map<String, String>> conversationHistory,
+                                                                 String userTranscript) {
+        List<Map<String, String>> historyWithUser = new ArrayList<>(conversationHistory);
+        Map<String, String> userTurn = new HashMap<>();
+        userTurn.put("role", "user");
+        userTurn.put("text", userTranscript);
+        historyWithUser.add(userTurn);
+        return historyWithUser;
+    }
+
+    /**
+     * Response of a non-final turn (audio fields are added by the caller)
+     */
+    private static Map<String, Object> buildTurnResult(String conversationId, String userTranscript,
+                                                       String userTranscriptVi, Double confidence,
+                                                       String aiNextQuestion, String aiNextQuestionVi,
+                                                       List<Map<String, String>> updatedHistory, int currentTurn,
+                                                       Map<String, Object> turnFeedback) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("conversationId", conversationId);
+        result.put("userTranscript", userTranscript);
+        result.put("userTranscriptVi", userTranscriptVi);
+        result.put("confidence", confidence);
+        result.put("aiNextQuestion", aiNextQuestion);
+        result.put("aiNextQuestionVi", aiNextQuestionVi);
+        result.put("conversationHistory", updatedHistory);
+        result.put("turnNumber", currentTurn + 1);
+        result.put("maxTurns", 7);
+        result.put("isEnding", false);
+
+        // Add turn-by-turn feedback
+        result.put("turnFeedback", turnFeedback);
+        return result;
+    }
 
+    /**
+     * Validated speech-to-text result of the learner's answer
+     */
+    private record Transcript(String text, Double confidence) {
+    }
+
+    /**
+     * Validate the recorded answer and convert it to text (throws AIServiceException with a user-facing message)
+     */
+    private Transcript transcribe(String audioData, String normalizedLanguage, String normalizedAudioFormat) {
         // Validate audio data before processing
         if (audioData == null || audioData.trim().isEmpty()) {
             throw new AIServiceException("Conversation Practice",
@@ -159,7 +568,7 @@ public class ConversationPracticeService {
                     "AUDIO_TOO_SHORT");
         }
 
-        // Step 1: Convert user audio to text
+        // Convert user audio to text
         Map<String, Object> speechToTextResult = aiService.speechToText(audioData, normalizedLanguage, normalizedAudioFormat);
         String userTranscript = (String) speechToTextResult.get("transcript");
         Double confidence = null;
@@ -182,119 +591,80 @@ public class ConversationPracticeService {
         }
 
         logger.debug("User transcript: {}, confidence: {}", userTranscript, confidence);
-
-        // Step 2: Translate user transcript to Vietnamese for display
-        String userTranscriptVi = translateToVietnamese(userTranscript);
-
-        // Step 3: Add user message to history
-        List<Map<String, String>> updatedHistory = new ArrayList<>(conversationHistory);
-        Map<String, String> userMessage = new HashMap<>();
-        userMessage.put("role", "user");
-        userMessage.put("text", userTranscript);
-        userMessage.put("textVi", userTranscriptVi);
-        updatedHistory.add(userMessage);
-
-        // Step 4: Check if conversation should end (max turns reached)
-        int currentTurn = updatedHistory.size() / 2; // Each turn = AI question + user response
-        if (currentTurn >= 7) {
-            // End conversation
-            return buildEndConversationResponse(conversationId, updatedHistory, normalizedLevel, normalizedScenario);
-        }
-
-        // Step 5: Generate next AI question based on conversation history
-        // Use original scenario if available in history metadata, otherwise use normalized
-        String originalScenario = scenario; // Could be extracted from history if stored
-        String systemPrompt = buildSystemPrompt(normalizedLevel, normalizedScenario, originalScenario);
-
-        // Convert conversation history to format expected by Gemini
-        List<Map<String, String>> geminiHistory = convertToGeminiHistory(updatedHistory);
-        String aiNextQuestion = geminiService.generateConversationResponse(systemPrompt, geminiHistory);
-
-        if (aiNextQuestion == null || aiNextQuestion.trim().isEmpty()) {
-            throw new AIServiceException("Conversation Practice",
-                    "Failed to generate next conversation question",
-                    "GENERATION_FAILED");
-        }
-
-        // Step 6: Translate AI question to Vietnamese
-        String aiNextQuestionVi = translateToVietnamese(aiNextQuestion);
-
-        // Step 7: Generate audio for AI question
-        Map<String, Object> audioResult = generateAudio(aiNextQuestion);
-
-        // Step 8: Add AI message to history
-        Map<String, String> aiMessage = new HashMap<>();
-        aiMessage.put("role", "ai");
-        aiMessage.put("text", aiNextQuestion);
-        aiMessage.put("textVi", aiNextQuestionVi);
-        updatedHistory.add(aiMessage);
-
-        // Generate turn-by-turn feedback for user's response
-        Map<String, Object> turnFeedback = generateTurnFeedback(userTranscript, normalizedLevel, updatedHistory);
-
-        // Build response
-        Map<String, Object> result = new HashMap<>();
-        result.put("conversationId", conversationId);
-        result.put("userTranscript", userTranscript);
-        result.put("userTranscriptVi", userTranscriptVi);
-        result.put("confidence", confidence);
-        result.put("aiNextQuestion", aiNextQuestion);
-        result.put("aiNextQuestionVi", aiNextQuestionVi);
-        result.put("audioUrl", audioResult.get("audioData"));
-        result.put("audioFormat", audioResult.get("audioFormat"));
-        result.put("conversationHistory", updatedHistory);
-        result.put("turnNumber", currentTurn + 1);
-        result.put("maxTurns", 7);
-        result.put("isEnding", false);
-
-        // Add turn-by-turn feedback
-        result.put("turnFeedback", turnFeedback);
-
-        logger.debug("Conversation response processed: turnNumber={}", result.get("turnNumber"));
-        return result;
+        return new Transcript(userTranscript, confidence);
     }
 
     /**
      * End conversation and get AI evaluation/feedback
+     * Non-blocking: the evaluation call to Gemini does not hold the request thread
+     * Evaluates the server-side session history unless FE sends its own; the session is closed afterwards.
      */
-    public Map<String, Object> endConversation(
+    public CompletableFuture<Map<String, Object>> endConversation(
             String conversationId,
             List<Map<String, String>> conversationHistory,
             String level,
             String scenario) {
 
         if (!googleCloudEnabled || geminiService == null) {
-            throw new AIServiceException("Conversation Practice",
+            return CompletableFuture.failedFuture(new AIServiceException("Conversation Practice",
                     "Conversation practice service is not available",
-                    "SERVICE_DISABLED");
-        }
-
-        String normalizedLevel = normalizeLevel(level);
-        String normalizedScenario = normalizeScenario(scenario);
-
-        logger.info("Ending conversation: conversationId={}, historySize={}, level={}, scenario={}",
-                conversationId, conversationHistory.size(), normalizedLevel, normalizedScenario);
-
-        // Build evaluation prompt
-        String evaluationPrompt = buildEvaluationPrompt(normalizedLevel, normalizedScenario, conversationHistory);
-
-        // Generate evaluation
-        String evaluationJson = geminiService.generateContent(evaluationPrompt);
-
-        // Parse evaluation (simplified - in production, use proper JSON parsing)
-        Map<String, Object> evaluation = parseEvaluation(evaluationJson);
-
-        // Build response
-        Map<String, Object> result = new HashMap<>();
-        result.put("conversationId", conversationId);
-        result.put("level", normalizedLevel);
-        result.put("scenario", normalizedScenario);
-        result.put("fullConversation", conversationHistory);
-        result.put("evaluation", evaluation);
-        result.put("turnNumber", conversationHistory.size() / 2);
+                    "SERVICE_DISABLED"));
+        }
+
+        ConversationSessionStore.ConversationSession session = sessionStore != null
+                ? sessionStore.find(conversationId, currentOwnerKey()).orElse(null)
+                : null;
+        if ((conversationHistory == null || conversationHistory.isEmpty()) && session != null) {
+            conversationHistory = session.history();
+        }
+        if (conversationHistory == null) {
+            return CompletableFuture.failedFuture(sessionExpired());
+        }
+        String normalizedLevel = session != null && !hasText(level) ? session.getLevel() : normalizeLevel(level);
+        CompletableFuture<String> scenarioFuture = session != null && !hasText(scenario)
+                ? CompletableFuture.completedFuture(session.getScenario())
+                : normalizeScenario(scenario);
+        List<Map<String, String>> finalHistory = conversationHistory;
+
+        return scenarioFuture.thenComposeAsync(normalizedScenario -> {
+            logger.info("Ending conversation: conversationId={}, historySize={}, level={}, scenario={}",
+                    conversationId, finalHistory.size(), normalizedLevel, normalizedScenario);
+
+            // Build evaluation prompt
+            String evaluationPrompt = buildEvaluationPrompt(normalizedLevel, normalizedScenario, finalHistory);
+
+            // Generate evaluation
+            return geminiService.generateContentAsync(evaluationPrompt, AIRequestPriority.INTERACTIVE).thenApply(evaluationJson -> {
+                // Parse evaluation (simplified - in production, use proper JSON parsing)
+                Map<String, Object> evaluation = parseEvaluation(evaluationJson);
+
+                // Build response
+                Map<String, Object> result = new HashMap<>();
+                result.put("conversationId", conversationId);
+                result.put("level", normalizedLevel);
+                result.put("scenario", normalizedScenario);
+                result.put("fullConversation", finalHistory);
+                result.put("evaluation", evaluation);
+                result.put("turnNumber", finalHistory.size() / 2);
+
+                if (session != null) {
+                    sessionStore.remove(conversationId);
+                }
+                logger.debug("Conversation ended: conversationId={}", conversationId);
+                return result;
+            });
+        }, GeminiService.callerContext());
+    }
 
-        logger.debug("Conversation ended: conversationId={}", conversationId);
-        return result;
+    /**
+     * System prompt for a turn, with the rolling summary of older turns appended (if any)
+     */
+    private String buildSystemPrompt(String level, String scenario, String originalScenario, String historySummary) {
+        String prompt = buildSystemPrompt(level, scenario, originalScenario);
+        if (historySummary == null || historySummary.isBlank()) {
+            return prompt;
+        }
+        return prompt + "\n\n**Tóm tắt các lượt trước (các lượt gần nhất được gửi kèm nguyên văn):**\n" + historySummary;
     }
 
     /**
@@ -843,6 +1213,51 @@ public class ConversationPracticeService {
         return evaluation;
     }
 
+    /**
+     * Copy of the history, with missing "textVi" backfilled when enabled
+     */
+    private CompletableFuture<List<Map<String, String>>> historyWithTranslations(List<Map<String, String>> conversationHistory) {
+        if (!backfillHistoryTranslations) {
+            return CompletableFuture.completedFuture(new ArrayList<>(conversationHistory));
+        }
+        return stage("translate-history", () -> withVietnameseTranslations(conversationHistory),
+                translationTimeoutMs, () -> new ArrayList<>(conversationHistory));
+    }
+
+    /**
+     * Copy history and fill missing "textVi" with one batch translation.
+     * Earlier turns were translated by this service, so these are normally translation-memory hits.
+     */
+    private List<Map<String, String>> withVietnameseTranslations(List<Map<String, String>> conversationHistory) {
+        List<Map<String, String>> history = new ArrayList<>(conversationHistory.size() + 2);
+        List<Integer> missingIdx = new ArrayList<>();
+        List<String> missingTexts = new ArrayList<>();
+        for (Map<String, String> message : conversationHistory) {
+            String text = message.get("text");
+            String textVi = message.get("textVi");
+            if (text != null && !text.isBlank() && (textVi == null || textVi.isBlank())) {
+                missingIdx.add(history.size());
+                missingTexts.add(text);
+            }
+            history.add(message);
+        }
+        if (missingTexts.isEmpty() || aiService == null) {
+            return history;
+        }
+
+        try {
+            List<String> translations = aiService.translateTexts(missingTexts, "ja", "vi");
+            for (int i = 0; i < missingIdx.size(); i++) {
+                Map<String, String> filled = new HashMap<>(history.get(missingIdx.get(i)));
+                filled.put("textVi", translations.get(i));
+                history.set(missingIdx.get(i), filled);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to backfill Vietnamese translations for history: {}", e.getMessage());
+        }
+        return history;
+    }
+
     /**
      * Convert conversation history to Gemini format
      */
@@ -877,6 +1292,228 @@ public class ConversationPracticeService {
         return result;
     }
 
+    /**
+     * State of one turn: the server-side session (null when the store is not available), the full history
+     * before the user's new turn, and what Gemini gets in the prompt.
+     *
+     * @param promptHistory recent turns sent verbatim (the rest is in summary)
+     */
+    private record TurnContext(ConversationSessionStore.ConversationSession session,
+                               List<Map<String, String>> history,
+                               List<Map<String, String>> promptHistory,
+                               String summary,
+                               String level,
+                               String scenario,
+                               String originalScenario) {
+    }
+
+    /**
+     * Resolve the session for a turn. Request level/scenario win; when omitted the session's are used.
+     * Must be called on the request thread (owner = current user); completes once a free-text scenario
+     * has been mapped (Gemini, cached), fails with SESSION_EXPIRED if the session can't be restored.
+     */
+    private CompletableFuture<TurnContext> openTurn(String conversationId, List<Map<String, String>> clientHistory,
+                                                    String level, String scenario) {
+        if (sessionStore == null) {
+            List<Map<String, String>> history = clientHistory != null ? clientHistory : new ArrayList<>();
+            return normalizeScenario(scenario).thenApply(normalizedScenario -> new TurnContext(null, history, history,
+                    null, normalizeLevel(level), normalizedScenario, scenario));
+        }
+
+        String ownerKey = currentOwnerKey();
+        ConversationSessionStore.ConversationSession existing = sessionStore.find(conversationId, ownerKey).orElse(null);
+        String normalizedLevel = existing != null && !hasText(level) ? existing.getLevel() : normalizeLevel(level);
+        String originalScenario = existing != null && !hasText(scenario) ? existing.getOriginalScenario() : scenario;
+        CompletableFuture<String> scenarioFuture = existing != null && !hasText(scenario)
+                ? CompletableFuture.completedFuture(existing.getScenario())
+                : normalizeScenario(scenario);
+
+        return scenarioFuture.thenApply(normalizedScenario -> {
+            ConversationSessionStore.ConversationSession session = existing != null ? existing
+                    : sessionStore.findOrRestore(conversationId, ownerKey, normalizedLevel, normalizedScenario,
+                            originalScenario, clientHistory).orElseThrow(this::sessionExpired);
+
+            ConversationSessionStore.PromptContext prompt = session.promptContext();
+            return new TurnContext(session, session.history(), prompt.recentMessages(), prompt.summary(),
+                    normalizedLevel, normalizedScenario, originalScenario);
+        });
+    }
+
+    /**
+     * Append the finished turn's messages to the session and fold old turns into the summary if needed
+     */
+    private void recordTurn(TurnContext context, List<Map<String, String>> newMessages) {
+        ConversationSessionStore.ConversationSession session = context.session();
+        if (session == null) {
+            return;
+        }
+        newMessages.forEach(session::append);
+        session.beginSummary().ifPresent(request ->
+                geminiService.generateContentAsync(buildSummaryPrompt(request), AIRequestPriority.BACKGROUND)
+                        .whenComplete((summary, error) -> {
+                            if (error != null) {
+                                logger.warn("Failed to summarize conversation {}: {}",
+                                        session.getConversationId(), error.getMessage());
+                            }
+                            session.completeSummary(request, error == null ? summary : null);
+                        }));
+    }
+
+    private String buildSummaryPrompt(ConversationSessionStore.SummaryRequest request) {
+        StringBuilder transcript = new StringBuilder();
+        for (Map<String, String> message : request.messages()) {
+            transcript.append("user".equals(message.get("role")) ? "Học viên: " : "AI: ")
+                    .append(message.get("text")).append('\n');
+        }
+        return "Tóm tắt ngắn gọn cuộc luyện hội thoại tiếng Nhật dưới đây để AI có thể tiếp tục trò chuyện " +
+                "mà không cần đọc lại toàn bộ.\n\n" +
+                "Yêu cầu:\n" +
+                "- Tối đa 5 câu, viết bằng tiếng Nhật đơn giản\n" +
+                "- Giữ lại thông tin học viên đã chia sẻ (tên, sở thích, kế hoạch...) và các chủ đề đã hỏi\n" +
+                "- Chỉ trả về đoạn tóm tắt, không giải thích thêm\n\n" +
+                (request.previousSummary() != null
+                        ? "**Tóm tắt trước đó:**\n" + request.previousSummary() + "\n\n" : "") +
+                "**Các lượt cần gộp vào tóm tắt:**\n" + transcript;
+    }
+
+    private AIServiceException sessionExpired() {
+        return new AIServiceException("Conversation Practice",
+                "Conversation session has expired. Please start a new conversation.",
+                "SESSION_EXPIRED");
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    private static String currentOwnerKey() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication.getName() == null) {
+            return "anonymous";
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * Append the user's message (with translation) to a copy-safe history list
+     */
+    private static List<Map<String, String>> withUserMessage(List<Map<String, String>> history,
+                                                            String userTranscript, String userTranscriptVi) {
+        Map<String, String> userMessage = new HashMap<>();
+        userMessage.put("role", "user");
+        userMessage.put("text", userTranscript);
+        userMessage.put("textVi", userTranscriptVi);
+        history.add(userMessage);
+        return history;
+    }
+
+    /**
+     * Run an optional pipeline stage on the pipeline pool.
+     * Timeout, failure or a full pool yields the fallback, so one slow service only degrades its own field;
+     * a stage that times out is interrupted rather than left running.
+     */
+    private <T> CompletableFuture<T> stage(String name, Supplier<T> work, long timeoutMs, Supplier<T> fallback) {
+        long startNanos = System.nanoTime();
+        return pipelineExecutor.supplyAsync(work, timeoutMs)
+                .handle((value, error) -> {
+                    if (error == null) {
+                        logger.debug("Conversation stage {} finished in {} ms", name,
+                                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                        return value;
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        logger.warn("Conversation stage {} timed out after {} ms, using fallback", name, timeoutMs);
+                    } else if (cause instanceof RejectedExecutionException) {
+                        logger.warn("Conversation stage {} rejected (pipeline pool full), using fallback", name);
+                    } else {
+                        logger.warn("Conversation stage {} failed, using fallback: {}", name, cause.getMessage());
+                    }
+                    return fallback.get();
+                });
+    }
+
+    /**
+     * Optional Gemini stage: same contract as {@link #stage} (timeout, failure or a null answer yields the
+     * fallback), but the call is already non-blocking so no pool thread waits on it.
+     * Giving up cancels the call, which aborts its HTTP exchange and leaves the governor queue.
+     */
+    private <R, T> CompletableFuture<T> geminiStage(String name, CompletableFuture<R> call, Function<R, T> parse,
+                                                    long timeoutMs, Supplier<T> fallback) {
+        long startNanos = System.nanoTime();
+        return call.thenApply(Function.identity())
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .thenApply(value -> value != null ? parse.apply(value) : null)
+                .handle((value, error) -> {
+                    if (error == null && value != null) {
+                        logger.debug("Conversation stage {} finished in {} ms", name,
+                                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                        return value;
+                    }
+                    call.cancel(true);
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (cause == null) {
+                        logger.warn("Conversation stage {} returned no usable answer, using fallback", name);
+                    } else if (cause instanceof TimeoutException) {
+                        logger.warn("Conversation stage {} timed out after {} ms, using fallback", name, timeoutMs);
+                    } else {
+                        logger.warn("Conversation stage {} failed, using fallback: {}", name, cause.getMessage());
+                    }
+                    return fallback.get();
+                });
+    }
+
+    /**
+     * The (required) Gemini reply; unlike other stages there is no fallback.
+     * Timeout cancels the Gemini call (aborts its HTTP exchange and leaves the governor queue).
+     */
+    private CompletableFuture<String> generation(CompletableFuture<String> generation, String emptyMessage) {
+        return generation.thenApply(Function.identity())
+                .orTimeout(generationTimeoutMs, TimeUnit.MILLISECONDS)
+                .handle((text, error) -> {
+                    if (error != null) {
+                        generation.cancel(true);
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        if (cause instanceof TimeoutException) {
+                            throw new AIServiceException("Conversation Practice",
+                                    "AI took too long to respond. Please try again.",
+                                    "GENERATION_TIMEOUT");
+                        }
+                        if (cause instanceof RuntimeException runtimeException) {
+                            throw runtimeException;
+                        }
+                        throw new AIServiceException("Conversation Practice", "Failed to generate conversation response", cause);
+                    }
+                    if (text == null || text.trim().isEmpty()) {
+                        throw new AIServiceException("Conversation Practice", emptyMessage, "GENERATION_FAILED");
+                    }
+                    return text;
+                });
+    }
+
+    /**
+     * Speech-to-text of the user's turn on the pipeline pool (the request thread is not held).
+     * A full pool fails the turn with PIPELINE_BUSY: without a transcript there is nothing to answer.
+     */
+    private CompletableFuture<Transcript> transcribeAsync(String audioData, String normalizedLanguage,
+                                                         String normalizedAudioFormat) {
+        return pipelineExecutor
+                .supplyAsync(() -> transcribe(audioData, normalizedLanguage, normalizedAudioFormat), 0)
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (cause instanceof RejectedExecutionException) {
+                        throw new AIServiceException("Conversation Practice",
+                                "Too many conversations are being processed right now. Please try again in a moment.",
+                                "PIPELINE_BUSY");
+                    }
+                    throw cause instanceof RuntimeException re ? re : new CompletionException(cause);
+                });
+    }
+
     /**
      * Translate Japanese text to Vietnamese
      */
@@ -911,6 +1548,14 @@ public class ConversationPracticeService {
         }
     }
 
+    /**
+     * URL audio từ kết quả TTS; fallback base64 khi kho audio không lưu được
+     */
+    private static Object audioUrl(Map<String, Object> audioResult) {
+        Object url = audioResult.get("audioUrl");
+        return url != null ? url : audioResult.get("audioData");
+    }
+
     /**
      * Generate temporary conversation ID
      */
@@ -936,10 +1581,11 @@ public class ConversationPracticeService {
     /**
      * Normalize scenario - detect language and map to scenario key
      * Supports Vietnamese and Japanese input, including detailed descriptions
+     * Completes immediately unless a short free-text scenario has to be classified by Gemini
      */
-    private String normalizeScenario(String scenario) {
+    private CompletableFuture<String> normalizeScenario(String scenario) {
         if (scenario == null || scenario.isEmpty()) {
-            return "greeting";
+            return CompletableFuture.completedFuture("greeting");
         }
 
         String normalized = scenario.trim();
@@ -948,13 +1594,13 @@ public class ConversationPracticeService {
         // If so, keep it as-is and use a generic key, the detailed description will be used in system prompt
         if (isDetailedScenarioDescription(normalized)) {
             // Return a generic key, but the original will be preserved and used in system prompt
-            return "custom"; // Generic key for custom scenarios
+            return CompletableFuture.completedFuture("custom"); // Generic key for custom scenarios
         }
 
         // First, try to match against known scenario keys (English)
         String lowerScenario = normalized.toLowerCase();
         if (isKnownScenarioKey(lowerScenario)) {
-            return lowerScenario;
+            return CompletableFuture.completedFuture(lowerScenario);
         }
 
         // Detect language
@@ -964,32 +1610,32 @@ public class ConversationPracticeService {
         if ("vi".equals(detectedLanguage)) {
             String mappedKey = mapVietnameseToScenarioKey(normalized);
             if (mappedKey != null) {
-                return mappedKey;
+                return CompletableFuture.completedFuture(mappedKey);
             }
             // If not mapped and not a detailed description, use Gemini to understand
             if (normalized.length() <= 50) { // Short enough to try mapping
                 return understandScenarioFromVietnamese(normalized);
             }
             // Long description, use generic key
-            return "custom";
+            return CompletableFuture.completedFuture("custom");
         }
 
         // Map Japanese scenarios to keys
         if ("ja".equals(detectedLanguage)) {
             String mappedKey = mapJapaneseToScenarioKey(normalized);
             if (mappedKey != null) {
-                return mappedKey;
+                return CompletableFuture.completedFuture(mappedKey);
             }
             // If not mapped and not a detailed description, use Gemini to understand
             if (normalized.length() <= 50) { // Short enough to try mapping
                 return understandScenarioFromJapanese(normalized);
             }
             // Long description, use generic key
-            return "custom";
+            return CompletableFuture.completedFuture("custom");
         }
 
         // Default fallback
-        return "greeting";
+        return CompletableFuture.completedFuture("greeting");
     }
 
     /**
@@ -1163,61 +1809,59 @@ public class ConversationPracticeService {
     /**
      * Use Gemini to understand scenario from Vietnamese input
      */
-    private String understandScenarioFromVietnamese(String vietnameseText) {
+    private CompletableFuture<String> understandScenarioFromVietnamese(String vietnameseText) {
         if (geminiService == null) {
-            return "greeting"; // Fallback
+            return CompletableFuture.completedFuture("greeting"); // Fallback
         }
 
-        try {
-            String prompt = String.format(
-                    "Phân loại tình huống trò chuyện sau đây vào một trong các loại: restaurant, shopping, greeting, directions, hotel, airport. " +
-                            "Chỉ trả về một từ khóa duy nhất (restaurant, shopping, greeting, directions, hotel, hoặc airport). " +
-                            "Tình huống: %s",
-                    vietnameseText
-            );
-
-            String response = geminiService.generateContent(prompt);
-            if (response != null) {
-                String normalized = response.trim().toLowerCase();
-                if (isKnownScenarioKey(normalized)) {
-                    return normalized;
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Failed to understand scenario from Vietnamese: {}", e.getMessage());
-        }
+        String prompt = String.format(
+                "Phân loại tình huống trò chuyện sau đây vào một trong các loại: restaurant, shopping, greeting, directions, hotel, airport. " +
+                        "Chỉ trả về một từ khóa duy nhất (restaurant, shopping, greeting, directions, hotel, hoặc airport). " +
+                        "Tình huống: %s",
+                vietnameseText
+        );
 
-        return "greeting"; // Fallback
+        return geminiService.generateContentAsync(prompt, AIRequestPriority.INTERACTIVE, GeminiCacheSite.SCENARIO_MAPPING)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        logger.warn("Failed to understand scenario from Vietnamese: {}", error.getMessage());
+                    } else if (response != null) {
+                        String normalized = response.trim().toLowerCase();
+                        if (isKnownScenarioKey(normalized)) {
+                            return normalized;
+                        }
+                    }
+                    return "greeting"; // Fallback
+                });
     }
 
     /**
      * Use Gemini to understand scenario from Japanese input
      */
-    private String understandScenarioFromJapanese(String japaneseText) {
+    private CompletableFuture<String> understandScenarioFromJapanese(String japaneseText) {
         if (geminiService == null) {
-            return "greeting"; // Fallback
+            return CompletableFuture.completedFuture("greeting"); // Fallback
         }
 
-        try {
-            String prompt = String.format(
-                    "以下の会話シナリオを分類してください: restaurant, shopping, greeting, directions, hotel, airport. " +
-                            "1つのキーワードのみを返してください (restaurant, shopping, greeting, directions, hotel, または airport). " +
-                            "シナリオ: %s",
-                    japaneseText
-            );
-
-            String response = geminiService.generateContent(prompt);
-            if (response != null) {
-                String normalized = response.trim().toLowerCase();
-                if (isKnownScenarioKey(normalized)) {
-                    return normalized;
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Failed to understand scenario from Japanese: {}", e.getMessage());
-        }
+        String prompt = String.format(
+                "以下の会話シナリオを分類してください: restaurant, shopping, greeting, directions, hotel, airport. " +
+                        "1つのキーワードのみを返してください (restaurant, shopping, greeting, directions, hotel, または airport). " +
+                        "シナリオ: %s",
+                japaneseText
+        );
 
-        return "greeting"; // Fallback
+        return geminiService.generateContentAsync(prompt, AIRequestPriority.INTERACTIVE, GeminiCacheSite.SCENARIO_MAPPING)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        logger.warn("Failed to understand scenario from Japanese: {}", error.getMessage());
+                    } else if (response != null) {
+                        String normalized = response.trim().toLowerCase();
+                        if (isKnownScenarioKey(normalized)) {
+                            return normalized;
+                        }
+                    }
+                    return "greeting"; // Fallback
+                });
     }
 
     /**
@@ -1279,64 +1923,53 @@ public class ConversationPracticeService {
     
     /**
      * Generate starting suggestions for user to initiate conversation
-     * Returns 3 example sentences user can say to start the conversation
+     * Returns 3 example sentences user can say to start the conversation (static ones if Gemini fails or is too slow)
      */
-    private List<String> generateStartingSuggestions(String level, String scenario, String originalScenario) {
-        List<String> suggestions = new ArrayList<>();
-        
-        try {
-            if (geminiService != null && googleCloudEnabled) {
-                String prompt = String.format(
-                    "Bạn là giáo viên tiếng Nhật. Tạo 3 câu mẫu để học viên có thể bắt đầu cuộc trò chuyện.\n\n" +
-                    "**Thông tin:**\n" +
-                    "- Trình độ: %s\n" +
-                    "- Tình huống: %s\n" +
-                    "- Mô tả chi tiết: %s\n\n" +
-                    "Hãy trả về JSON:\n" +
-                    "{\n" +
-                    "  \"suggestions\": [\n" +
-                    "    {\"japanese\": \"câu tiếng Nhật\", \"vietnamese\": \"nghĩa tiếng Việt\", \"difficulty\": \"easy|medium|hard\"},\n" +
-                    "    ...\n" +
-                    "  ]\n" +
-                    "}\n\n" +
-                    "Yêu cầu:\n" +
-                    "- 3 câu phù hợp với trình độ %s\n" +
-                    "- Câu ngắn, thực tế, dễ nói\n" +
-                    "- Từ dễ đến khó: suggestion 1 (easy), 2 (medium), 3 (hard)\n" +
-                    "- Phù hợp với tình huống cụ thể",
-                    level, scenario, originalScenario, level
-                );
-                
-                String response = geminiService.generateContent(prompt);
-                if (response != null) {
-                    try {
-                        com.fasterxml.jackson.databind.JsonNode jsonNode = geminiService.generateContentAsJson(
-                            "Parse this JSON: " + response
-                        );
-                        if (jsonNode != null && jsonNode.has("suggestions")) {
-                            jsonNode.get("suggestions").forEach(node -> {
-                                if (node.has("japanese") && node.has("vietnamese")) {
-                                    String suggestion = node.get("japanese").asText() + " (" + 
-                                                      node.get("vietnamese").asText() + ")";
-                                    suggestions.add(suggestion);
-                                }
-                            });
-                            
-                            if (suggestions.size() >= 3) {
-                                return suggestions.subList(0, 3);
-                            }
-                        }
-                    } catch (Exception e) {
-                        logger.warn("Failed to parse starting suggestions JSON", e);
+    private CompletableFuture<List<String>> generateStartingSuggestions(String level, String scenario, String originalScenario) {
+        if (geminiService == null || !googleCloudEnabled) {
+            return CompletableFuture.completedFuture(getDefaultStartingSuggestions(scenario, level));
+        }
+
+        String prompt = String.format(
+            "Bạn là giáo viên tiếng Nhật. Tạo 3 câu mẫu để học viên có thể bắt đầu cuộc trò chuyện.\n\n" +
+            "**Thông tin:**\n" +
+            "- Trình độ: %s\n" +
+            "- Tình huống: %s\n" +
+            "- Mô tả chi tiết: %s\n\n" +
+            "Hãy trả về JSON:\n" +
+            "{\n" +
+            "  \"suggestions\": [\n" +
+            "    {\"japanese\": \"câu tiếng Nhật\", \"vietnamese\": \"nghĩa tiếng Việt\", \"difficulty\": \"easy|medium|hard\"},\n" +
+            "    ...\n" +
+            "  ]\n" +
+            "}\n\n" +
+            "Yêu cầu:\n" +
+            "- 3 câu phù hợp với trình độ %s\n" +
+            "- Câu ngắn, thực tế, dễ nói\n" +
+            "- Từ dễ đến khó: suggestion 1 (easy), 2 (medium), 3 (hard)\n" +
+            "- Phù hợp với tình huống cụ thể",
+            level, scenario, originalScenario, level
+        );
+
+        return geminiStage("starting-suggestions",
+                geminiService.generateContentAsJsonAsync(prompt, AIRequestPriority.INTERACTIVE, GeminiCacheSite.STARTING_SUGGESTIONS),
+                jsonNode -> {
+                    if (!jsonNode.has("suggestions")) {
+                        return null;
                     }
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Failed to generate starting suggestions with Gemini", e);
-        }
-        
-        // Fallback: static suggestions based on scenario and level
-        return getDefaultStartingSuggestions(scenario, level);
+                    List<String> suggestions = new ArrayList<>();
+                    jsonNode.get("suggestions").forEach(node -> {
+                        if (node.has("japanese") && node.has("vietnamese")) {
+                            String suggestion = node.get("japanese").asText() + " (" +
+                                              node.get("vietnamese").asText() + ")";
+                            suggestions.add(suggestion);
+                        }
+                    });
+                    return suggestions.size() >= 3 ? suggestions.subList(0, 3) : null;
+                },
+                learningMaterialsTimeoutMs,
+                // Fallback: static suggestions based on scenario and level
+                () -> getDefaultStartingSuggestions(scenario, level));
     }
     
     /**
@@ -1368,165 +2001,187 @@ public class ConversationPracticeService {
     }
 
     /**
-     * Generate learning materials (vocabulary, grammar, tips) for the scenario
+     * Learning materials (vocabulary, grammar, tips) for the scenario, static ones if Gemini fails or is too slow.
+     * Standard scenarios come from the precomputed library (a miss loads from DB / generates once, on the
+     * pipeline pool); free-text (detailed) scenarios call Gemini directly without holding a thread,
+     * concurrent identical requests share one upstream call through the Gemini response cache.
      */
-    private Map<String, Object> generateLearningMaterials(String level, String scenario, String originalScenario) {
-        Map<String, Object> materials = new HashMap<>();
-
-        // Get scenario description
-        String scenarioDesc = getScenarioDescription(scenario);
+    private CompletableFuture<Map<String, Object>> learningMaterials(String level, String scenario, String originalScenario) {
+        Supplier<Map<String, Object>> fallback = () -> defaultLearningMaterials(level, scenario, originalScenario);
         if (isDetailedScenarioDescription(originalScenario)) {
-            scenarioDesc = originalScenario; // Use original if it's a detailed description
+            if (geminiService == null || !googleCloudEnabled) {
+                return CompletableFuture.completedFuture(fallback.get());
+            }
+            return geminiStage("learning-materials",
+                    geminiService.generateContentAsJsonAsync(buildLearningMaterialsPrompt(level, scenario, originalScenario),
+                            AIRequestPriority.INTERACTIVE, GeminiCacheSite.LEARNING_MATERIALS),
+                    jsonNode -> parseLearningMaterials(jsonNode, level, scenario, originalScenario),
+                    learningMaterialsTimeoutMs, fallback);
+        }
+        return stage("learning-materials", () -> {
+            Map<String, Object> materials = materialLibrary != null
+                    ? materialLibrary.get(level, scenario, this::generateLibraryMaterials)
+                    : generateLibraryMaterials(level, scenario, AIRequestPriority.INTERACTIVE);
+            return materials != null ? materials : fallback.get();
+        }, learningMaterialsTimeoutMs, fallback);
+    }
+
+    /**
+     * Refresh the learning material library in the background (missing or stale entries only)
+     */
+    @Scheduled(initialDelayString = "${conversation.learning-materials.refresh.initial-delay-ms:120000}",
+               fixedDelayString = "${conversation.learning-materials.refresh.interval-ms:21600000}")
+    public void refreshLearningMaterialLibrary() {
+        if (materialLibrary == null || !googleCloudEnabled || geminiService == null) {
+            return;
         }
-        materials.put("scenarioDescription", scenarioDesc);
+        materialLibrary.refreshInBackground(LEVELS, SCENARIO_KEYS, this::generateLibraryMaterials);
+    }
 
-        // Try to generate with Gemini, fallback to static data
+    /**
+     * Library generator: materials depend only on (level, scenario key). Not routed through the Gemini
+     * response cache, the library is the cache (and a refresh must produce a fresh answer).
+     * Synchronous by design: the library calls it on its refresh thread, or on a pipeline thread on a miss.
+     */
+    private Map<String, Object> generateLibraryMaterials(String level, String scenario, AIRequestPriority priority) {
+        if (geminiService == null || !googleCloudEnabled) {
+            return null;
+        }
         try {
-            if (geminiService != null && googleCloudEnabled) {
-                String prompt = String.format(
-                        "Bạn là giáo viên tiếng Nhật chuyên nghiệp. " +
-                                "Hãy tạo tài liệu học tập cho tình huống trò chuyện tiếng Nhật.\n\n" +
-                                "**Thông tin:**\n" +
-                                "- Trình độ: %s\n" +
-                                "- Tình huống: %s\n" +
-                                "- Mô tả chi tiết: %s\n\n" +
-                                "Hãy trả về JSON với format:\n" +
-                                "{\n" +
-                                "  \"vocabularyPreview\": [\"từ vựng 1\", \"từ vựng 2\", ...],\n" +
-                                "  \"grammarPoints\": [\"điểm ngữ pháp 1\", \"điểm ngữ pháp 2\", ...],\n" +
-                                "  \"tips\": [\"mẹo 1\", \"mẹo 2\", ...]\n" +
-                                "}\n\n" +
-                                "Yêu cầu:\n" +
-                                "- vocabularyPreview: 5-8 từ vựng quan trọng sẽ dùng trong tình huống này (tiếng Nhật)\n" +
-                                "- grammarPoints: 3-5 điểm ngữ pháp sẽ luyện tập (mô tả bằng tiếng Việt)\n" +
-                                "- tips: 3-5 mẹo hữu ích để thành công trong tình huống này (tiếng Việt)\n" +
-                                "- Tất cả phải phù hợp với trình độ %s",
-                        level, scenario, scenarioDesc, level
-                );
-
-                String response = geminiService.generateContent(prompt);
-                if (response != null) {
-                    // Try to parse JSON
-                    try {
-                        com.fasterxml.jackson.databind.JsonNode jsonNode = geminiService.generateContentAsJson(
-                                "Parse this JSON: " + response
-                        );
-                        if (jsonNode != null) {
-                            if (jsonNode.has("vocabularyPreview")) {
-                                List<String> vocab = new ArrayList<>();
-                                jsonNode.get("vocabularyPreview").forEach(node -> vocab.add(node.asText()));
-                                materials.put("vocabularyPreview", vocab);
-                            }
-                            if (jsonNode.has("grammarPoints")) {
-                                List<String> grammar = new ArrayList<>();
-                                jsonNode.get("grammarPoints").forEach(node -> grammar.add(node.asText()));
-                                materials.put("grammarPoints", grammar);
-                            }
-                            if (jsonNode.has("tips")) {
-                                List<String> tips = new ArrayList<>();
-                                jsonNode.get("tips").forEach(node -> tips.add(node.asText()));
-                                materials.put("tips", tips);
-                            }
-
-                            // If all fields are present, return
-                            if (materials.containsKey("vocabularyPreview") &&
-                                    materials.containsKey("grammarPoints") &&
-                                    materials.containsKey("tips")) {
-                                return materials;
-                            }
-                        }
-                    } catch (Exception e) {
-                        logger.warn("Failed to parse learning materials JSON, using fallback", e);
-                    }
-                }
-            }
+            return parseLearningMaterials(GeminiService.await(geminiService.generateContentAsJsonAsync(
+                    buildLearningMaterialsPrompt(level, scenario, scenario), priority)), level, scenario, scenario);
         } catch (Exception e) {
-            logger.warn("Failed to generate learning materials with Gemini, using fallback", e);
+            logger.warn("Failed to generate learning materials with Gemini: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private String buildLearningMaterialsPrompt(String level, String scenario, String originalScenario) {
+        // Get scenario description
+        String scenarioDesc = scenarioDescription(scenario, originalScenario);
+        return String.format(
+                "Bạn là giáo viên tiếng Nhật chuyên nghiệp. " +
+                        "Hãy tạo tài liệu học tập cho tình huống trò chuyện tiếng Nhật.\n\n" +
+                        "**Thông tin:**\n" +
+                        "- Trình độ: %s\n" +
+                        "- Tình huống: %s\n" +
+                        "- Mô tả chi tiết: %s\n\n" +
+                        "Hãy trả về JSON với format:\n" +
+                        "{\n" +
+                        "  \"vocabularyPreview\": [\"từ vựng 1\", \"từ vựng 2\", ...],\n" +
+                        "  \"grammarPoints\": [\"điểm ngữ pháp 1\", \"điểm ngữ pháp 2\", ...],\n" +
+                        "  \"tips\": [\"mẹo 1\", \"mẹo 2\", ...]\n" +
+                        "}\n\n" +
+                        "Yêu cầu:\n" +
+                        "- vocabularyPreview: 5-8 từ vựng quan trọng sẽ dùng trong tình huống này (tiếng Nhật)\n" +
+                        "- grammarPoints: 3-5 điểm ngữ pháp sẽ luyện tập (mô tả bằng tiếng Việt)\n" +
+                        "- tips: 3-5 mẹo hữu ích để thành công trong tình huống này (tiếng Việt)\n" +
+                        "- Tất cả phải phù hợp với trình độ %s",
+                level, scenario, scenarioDesc, level
+        );
+    }
+
+    /**
+     * @return materials, or null if the answer is incomplete
+     */
+    private Map<String, Object> parseLearningMaterials(com.fasterxml.jackson.databind.JsonNode jsonNode,
+                                                       String level, String scenario, String originalScenario) {
+        if (jsonNode == null || !jsonNode.has("vocabularyPreview")
+                || !jsonNode.has("grammarPoints") || !jsonNode.has("tips")) {
+            logger.warn("Incomplete learning materials from Gemini for {}/{}", level, scenario);
+            return null;
+        }
+
+        Map<String, Object> materials = new HashMap<>();
+        materials.put("scenarioDescription", scenarioDescription(scenario, originalScenario));
+        for (String field : List.of("vocabularyPreview", "grammarPoints", "tips")) {
+            List<String> values = new ArrayList<>();
+            jsonNode.get(field).forEach(node -> values.add(node.asText()));
+            materials.put(field, values);
         }
+        return materials;
+    }
 
-        // Fallback to static data based on scenario
+    /**
+     * Static learning materials (fallback when Gemini fails or is too slow)
+     */
+    private Map<String, Object> defaultLearningMaterials(String level, String scenario, String originalScenario) {
+        Map<String, Object> materials = new HashMap<>();
+        materials.put("scenarioDescription", scenarioDescription(scenario, originalScenario));
         materials.put("vocabularyPreview", getDefaultVocabulary(scenario, level));
         materials.put("grammarPoints", getDefaultGrammarPoints(scenario, level));
         materials.put("tips", getDefaultTips(scenario, level));
-
         return materials;
     }
 
+    private String scenarioDescription(String scenario, String originalScenario) {
+        if (isDetailedScenarioDescription(originalScenario)) {
+            return originalScenario; // Use original if it's a detailed description
+        }
+        return getScenarioDescription(scenario);
+    }
+
     /**
-     * Generate turn-by-turn feedback for user's response
+     * Generate turn-by-turn feedback for user's response (basic positive feedback if Gemini fails or is too slow)
      */
-    private Map<String, Object> generateTurnFeedback(String userTranscript, String level, List<Map<String, String>> conversationHistory) {
-        Map<String, Object> feedback = new HashMap<>();
-
-        try {
-            if (geminiService != null && googleCloudEnabled && userTranscript != null && !userTranscript.trim().isEmpty()) {
-                // Get last AI question for context
-                String lastAIQuestion = "";
-                if (!conversationHistory.isEmpty()) {
-                    for (int i = conversationHistory.size() - 1; i >= 0; i--) {
-                        Map<String, String> msg = conversationHistory.get(i);
-                        if ("ai".equals(msg.get("role"))) {
-                            lastAIQuestion = msg.get("text");
-                            break;
-                        }
-                    }
-                }
+    private CompletableFuture<Map<String, Object>> generateTurnFeedback(String userTranscript, String level,
+                                                                        List<Map<String, String>> conversationHistory) {
+        if (geminiService == null || !googleCloudEnabled || userTranscript == null || userTranscript.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(defaultTurnFeedback());
+        }
+
+        // Get last AI question for context
+        String lastAIQuestion = "";
+        for (int i = conversationHistory.size() - 1; i >= 0; i--) {
+            Map<String, String> msg = conversationHistory.get(i);
+            if ("ai".equals(msg.get("role"))) {
+                lastAIQuestion = msg.get("text");
+                break;
+            }
+        }
 
-                String prompt = String.format(
-                        "Đánh giá nhanh câu trả lời của học viên trong cuộc trò chuyện tiếng Nhật.\n\n" +
-                                "**Thông tin:**\n" +
-                                "- Trình độ: %s\n" +
-                                "- Câu hỏi AI: %s\n" +
-                                "- Câu trả lời học viên: %s\n\n" +
-                                "Hãy trả về JSON với format:\n" +
-                                "{\n" +
-                                "  \"isCorrect\": true/false,\n" +
-                                "  \"feedbackVi\": \"nhận xét ngắn gọn\",\n" +
-                                "  \"suggestionVi\": \"gợi ý cải thiện\"\n" +
-                                "}\n\n" +
-                                "Yêu cầu:\n" +
-                                "- Đánh giá xem câu trả lời có phù hợp với câu hỏi không\n" +
-                                "- Nhận xét ngắn gọn, khuyến khích (1-2 câu)\n" +
-                                "- Gợi ý cách cải thiện nếu có lỗi nhỏ\n" +
-                                "- Tất cả bằng tiếng Việt",
-                        level, lastAIQuestion, userTranscript
-                );
-
-                String response = geminiService.generateContent(prompt);
-                if (response != null) {
-                    try {
-                        com.fasterxml.jackson.databind.JsonNode jsonNode = geminiService.generateContentAsJson(
-                                "Parse this JSON: " + response
-                        );
-                        if (jsonNode != null) {
-                            if (jsonNode.has("isCorrect")) {
-                                feedback.put("isCorrect", jsonNode.get("isCorrect").asBoolean());
-                            }
-                            if (jsonNode.has("feedbackVi")) {
-                                feedback.put("feedbackVi", jsonNode.get("feedbackVi").asText());
-                            }
-                            if (jsonNode.has("suggestionVi")) {
-                                feedback.put("suggestionVi", jsonNode.get("suggestionVi").asText());
-                            }
+        String prompt = String.format(
+                "Đánh giá nhanh câu trả lời của học viên trong cuộc trò chuyện tiếng Nhật.\n\n" +
+                        "**Thông tin:**\n" +
+                        "- Trình độ: %s\n" +
+                        "- Câu hỏi AI: %s\n" +
+                        "- Câu trả lời học viên: %s\n\n" +
+                        "Hãy trả về JSON với format:\n" +
+                        "{\n" +
+                        "  \"isCorrect\": true/false,\n" +
+                        "  \"feedbackVi\": \"nhận xét ngắn gọn\",\n" +
+                        "  \"suggestionVi\": \"gợi ý cải thiện\"\n" +
+                        "}\n\n" +
+                        "Yêu cầu:\n" +
+                        "- Đánh giá xem câu trả lời có phù hợp với câu hỏi không\n" +
+                        "- Nhận xét ngắn gọn, khuyến khích (1-2 câu)\n" +
+                        "- Gợi ý cách cải thiện nếu có lỗi nhỏ\n" +
+                        "- Tất cả bằng tiếng Việt",
+                level, lastAIQuestion, userTranscript
+        );
 
-                            if (!feedback.isEmpty()) {
-                                return feedback;
-                            }
-                        }
-                    } catch (Exception e) {
-                        logger.warn("Failed to parse turn feedback JSON", e);
+        return geminiStage("turn-feedback", geminiService.generateContentAsJsonAsync(prompt, AIRequestPriority.INTERACTIVE),
+                jsonNode -> {
+                    Map<String, Object> feedback = new HashMap<>();
+                    if (jsonNode.has("isCorrect")) {
+                        feedback.put("isCorrect", jsonNode.get("isCorrect").asBoolean());
                     }
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Failed to generate turn feedback with Gemini", e);
-        }
+                    if (jsonNode.has("feedbackVi")) {
+                        feedback.put("feedbackVi", jsonNode.get("feedbackVi").asText());
+                    }
+                    if (jsonNode.has("suggestionVi")) {
+                        feedback.put("suggestionVi", jsonNode.get("suggestionVi").asText());
+                    }
+                    return feedback.isEmpty() ? null : feedback;
+                },
+                feedbackTimeoutMs, this::defaultTurnFeedback);
+    }
 
-        // Fallback: basic positive feedback
+    private Map<String, Object> defaultTurnFeedback() {
+        Map<String, Object> feedback = new HashMap<>();
         feedback.put("isCorrect", true);
         feedback.put("feedbackVi", "Tốt lắm! Hãy tiếp tục.");
         feedback.put("suggestionVi", "");
-
         return feedback;
     }
 
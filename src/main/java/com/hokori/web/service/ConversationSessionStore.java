@@ -0,0 +1,313 @@
+package com.hokori.web.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lưu phiên luyện hội thoại phía server, key theo conversationId.
+ *
+ * - FE chỉ gửi lượt nói mới (audio), server tự giữ lịch sử
+ * - Phiên hết hạn sau conversation.session.ttl-minutes không hoạt động (sweep định kỳ)
+ * - Prompt gửi Gemini = tóm tắt cuốn chiếu của các lượt cũ + các lượt gần nhất nằm trong
+ *   ngân sách token, nên kích thước prompt không tăng theo độ dài hội thoại
+ * - Phiên chỉ nằm trong memory của instance tạo ra nó; nếu mất (restart, instance khác) thì
+ *   dựng lại từ conversationHistory FE gửi kèm (tương thích client cũ)
+ *
+ * Metrics: conversation.sessions.active (gauge), conversation.sessions{event=created|restored|expired}
+ */
+@Slf4j
+@Service
+public class ConversationSessionStore {
+
+    private final ConcurrentHashMap<String, ConversationSession> sessions = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final int maxSessions;
+    private final int historyTokenBudget;
+    private final int minRecentMessages;
+
+    private final Counter createdCounter;
+    private final Counter restoredCounter;
+    private final Counter expiredCounter;
+
+    public ConversationSessionStore(@Value("${conversation.session.ttl-minutes:60}") long ttlMinutes,
+                                    @Value("${conversation.session.max-sessions:10000}") int maxSessions,
+                                    @Value("${conversation.session.history-token-budget:1200}") int historyTokenBudget,
+                                    @Value("${conversation.session.min-recent-messages:4}") int minRecentMessages,
+                                    MeterRegistry meterRegistry) {
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.maxSessions = maxSessions;
+        this.historyTokenBudget = historyTokenBudget;
+        this.minRecentMessages = minRecentMessages;
+        Gauge.builder("conversation.sessions.active", sessions, Map::size).register(meterRegistry);
+        this.createdCounter = meterRegistry.counter("conversation.sessions", "event", "created");
+        this.restoredCounter = meterRegistry.counter("conversation.sessions", "event", "restored");
+        this.expiredCounter = meterRegistry.counter("conversation.sessions", "event", "expired");
+    }
+
+    /**
+     * Tạo phiên mới (startConversation)
+     */
+    public ConversationSession create(String conversationId, String ownerKey, String level,
+                                      String scenario, String originalScenario) {
+        ensureCapacity();
+        ConversationSession session = new ConversationSession(conversationId, ownerKey, level, scenario, originalScenario);
+        sessions.put(conversationId, session);
+        createdCounter.increment();
+        return session;
+    }
+
+    /**
+     * Lấy phiên của đúng user; phiên của user khác coi như không tồn tại
+     */
+    public Optional<ConversationSession> find(String conversationId, String ownerKey) {
+        if (conversationId == null) {
+            return Optional.empty();
+        }
+        ConversationSession session = sessions.get(conversationId);
+        if (session == null || !session.ownerKey.equals(ownerKey)) {
+            return Optional.empty();
+        }
+        if (session.isExpired(Instant.now(), ttl)) {
+            sessions.remove(conversationId, session);
+            expiredCounter.increment();
+            return Optional.empty();
+        }
+        session.touch();
+        return Optional.of(session);
+    }
+
+    /**
+     * Lấy phiên, hoặc dựng lại từ lịch sử FE gửi (client cũ, hoặc phiên đã hết hạn/ở instance khác)
+     *
+     * @param clientHistory lịch sử FE gửi kèm; null = FE chỉ gửi lượt mới (không dựng lại được)
+     * @return empty nếu không có phiên và FE cũng không gửi lịch sử
+     */
+    public Optional<ConversationSession> findOrRestore(String conversationId, String ownerKey, String level,
+                                                      String scenario, String originalScenario,
+                                                      List<Map<String, String>> clientHistory) {
+        Optional<ConversationSession> existing = find(conversationId, ownerKey);
+        if (existing.isPresent() || clientHistory == null || conversationId == null) {
+            return existing;
+        }
+        ensureCapacity();
+        ConversationSession restored = new ConversationSession(conversationId, ownerKey, level, scenario, originalScenario);
+        clientHistory.forEach(restored::append);
+        // Không ghi đè phiên của user khác trùng id
+        ConversationSession raced = sessions.compute(conversationId, (id, current) ->
+                current == null || current.isExpired(Instant.now(), ttl) ? restored : current);
+        if (raced != restored) {
+            return raced.ownerKey.equals(ownerKey) ? Optional.of(raced) : Optional.empty();
+        }
+        restoredCounter.increment();
+        log.debug("Restored conversation session {} from client history ({} messages)", conversationId, clientHistory.size());
+        return Optional.of(restored);
+    }
+
+    public void remove(String conversationId) {
+        if (conversationId != null) {
+            sessions.remove(conversationId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${conversation.session.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        Instant now = Instant.now();
+        int before = sessions.size();
+        sessions.values().removeIf(session -> session.isExpired(now, ttl));
+        int evicted = before - sessions.size();
+        if (evicted > 0) {
+            expiredCounter.increment(evicted);
+            log.debug("Evicted {} idle conversation sessions", evicted);
+        }
+    }
+
+    /**
+     * Ước lượng số token: chữ CJK ~1 token/ký tự, chữ Latin ~4 ký tự/token
+     */
+    static int estimateTokens(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x3000) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    private void ensureCapacity() {
+        if (sessions.size() < maxSessions) {
+            return;
+        }
+        evictExpired();
+        if (sessions.size() >= maxSessions) {
+            // Bỏ phiên lâu không dùng nhất; FE vẫn có thể dựng lại từ lịch sử
+            sessions.values().stream()
+                    .min((a, b) -> a.lastAccess.compareTo(b.lastAccess))
+                    .ifPresent(oldest -> sessions.remove(oldest.conversationId, oldest));
+        }
+    }
+
+    /**
+     * Phần lịch sử đưa vào prompt
+     *
+     * @param summary        tóm tắt các lượt cũ (null nếu chưa có)
+     * @param recentMessages các lượt gần nhất, nguyên văn
+     */
+    public record PromptContext(String summary, List<Map<String, String>> recentMessages) {
+    }
+
+    /**
+     * Các lượt cũ cần gộp vào tóm tắt
+     *
+     * @param previousSummary tóm tắt hiện tại (gộp tiếp vào)
+     * @param messages        các lượt sẽ được gộp
+     * @param foldUpTo        vị trí (exclusive) trong lịch sử sau khi gộp
+     */
+    public record SummaryRequest(String previousSummary, List<Map<String, String>> messages, int foldUpTo) {
+    }
+
+    /**
+     * 1 phiên hội thoại. Mọi truy cập qua các method synchronized.
+     */
+    public final class ConversationSession {
+
+        private final String conversationId;
+        private final String ownerKey;
+        private final String level;
+        private final String scenario;
+        private final String originalScenario;
+        private final List<Map<String, String>> messages = new ArrayList<>();
+        private volatile Instant lastAccess = Instant.now();
+
+        // Guarded by this
+        private String summary;
+        private int summarizedCount; // số message đầu lịch sử đã nằm trong summary
+        private boolean summarizing;
+
+        private ConversationSession(String conversationId, String ownerKey, String level,
+                                    String scenario, String originalScenario) {
+            this.conversationId = conversationId;
+            this.ownerKey = ownerKey;
+            this.level = level;
+            this.scenario = scenario;
+            this.originalScenario = originalScenario;
+        }
+
+        public String getConversationId() {
+            return conversationId;
+        }
+
+        public String getLevel() {
+            return level;
+        }
+
+        public String getScenario() {
+            return scenario;
+        }
+
+        public String getOriginalScenario() {
+            return originalScenario;
+        }
+
+        public synchronized void append(Map<String, String> message) {
+            messages.add(new HashMap<>(message));
+            touch();
+        }
+
+        /**
+         * Bản sao toàn bộ lịch sử (cho response, đánh giá cuối buổi)
+         */
+        public synchronized List<Map<String, String>> history() {
+            List<Map<String, String>> copy = new ArrayList<>(messages.size());
+            messages.forEach(message -> copy.add(new HashMap<>(message)));
+            return copy;
+        }
+
+        public synchronized int size() {
+            return messages.size();
+        }
+
+        /**
+         * Tóm tắt + các lượt chưa nằm trong tóm tắt. Khi lịch sử vượt ngân sách token, phần dư
+         * vẫn được gửi nguyên văn cho tới khi {@link #beginSummary()} gộp xong (không mất ngữ cảnh).
+         */
+        public synchronized PromptContext promptContext() {
+            return new PromptContext(summary, new ArrayList<>(messages.subList(summarizedCount, messages.size())));
+        }
+
+        /**
+         * Nếu các lượt chưa tóm tắt vượt ngân sách token thì trả về phần cần gộp vào tóm tắt
+         * (mỗi lúc chỉ 1 lần tóm tắt chạy); empty nếu chưa cần
+         */
+        public synchronized Optional<SummaryRequest> beginSummary() {
+            if (summarizing) {
+                return Optional.empty();
+            }
+            int from = recentStart();
+            if (from <= summarizedCount) {
+                return Optional.empty();
+            }
+            summarizing = true;
+            return Optional.of(new SummaryRequest(summary,
+                    new ArrayList<>(messages.subList(summarizedCount, from)), from));
+        }
+
+        /**
+         * Ghi tóm tắt mới; newSummary null = tóm tắt lỗi, lần sau thử lại
+         */
+        public synchronized void completeSummary(SummaryRequest request, String newSummary) {
+            summarizing = false;
+            if (newSummary != null && !newSummary.isBlank() && request.foldUpTo() > summarizedCount) {
+                summary = newSummary.trim();
+                summarizedCount = request.foldUpTo();
+            }
+        }
+
+        /**
+         * Vị trí lượt cũ nhất vẫn gửi nguyên văn: đi ngược từ cuối tới khi hết ngân sách
+         */
+        private int recentStart() {
+            int keepAtLeast = Math.max(0, messages.size() - minRecentMessages);
+            int tokens = 0;
+            int from = messages.size();
+            while (from > summarizedCount) {
+                int next = estimateTokens(messages.get(from - 1).get("text"));
+                if (from <= keepAtLeast && tokens + next > historyTokenBudget) {
+                    break;
+                }
+                tokens += next;
+                from--;
+            }
+            return from;
+        }
+
+        private void touch() {
+            lastAccess = Instant.now();
+        }
+
+        private boolean isExpired(Instant now, Duration ttl) {
+            return lastAccess.plus(ttl).isBefore(now);
+        }
+    }
+}
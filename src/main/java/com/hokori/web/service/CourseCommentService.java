@@ -4,6 +4,7 @@ import com.hokori.web.Enum.CourseStatus;
 import com.hokori.web.dto.comment.CommentCreateReq;
 import com.hokori.web.dto.comment.CommentUpdateReq;
 import com.hokori.web.dto.comment.CourseCommentDto;
+import com.hokori.web.dto.comment.FlaggedCommentRes;
 import com.hokori.web.entity.Course;
 import com.hokori.web.entity.CourseComment;
 import com.hokori.web.entity.Enrollment;
@@ -20,6 +21,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Arrays;
 import java.util.List;
 
 @Service
@@ -33,6 +35,7 @@ public class CourseCommentService {
     private final EnrollmentRepository enrollmentRepo;
     private final UserRepository userRepo;
     private final CurrentUserService currentUser;
+    private final ContentPreScreenService preScreenService;
 
     // ========= Helper =========
 
@@ -77,6 +80,25 @@ public class CourseCommentService {
         return currentUser.isAdmin() || currentUser.hasRole("MODERATOR");
     }
 
+    /**
+     * Lọc nhanh nội dung bằng danh sách từ cấm trước khi lưu:
+     * BLOCK -> từ chối ngay, REVIEW -> vẫn đăng nhưng ghi lại các từ đã khớp cho moderator
+     */
+    private void applyContent(CourseComment comment, String content) {
+        String trimmed = content.trim();
+        ContentPreScreenService.ScreenResult result = preScreenService.screen(trimmed);
+        if (result.isBlocked()) {
+            log.info("Comment rejected by pre-screen on course {}: {}",
+                    comment.getCourse() != null ? comment.getCourse().getId() : null, result.terms());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Bình luận chứa từ ngữ không phù hợp: " + String.join(", ", result.terms()));
+        }
+        comment.setContent(trimmed);
+        String flaggedTerms = result.hits().isEmpty() ? null : String.join(",", result.terms());
+        comment.setFlaggedTerms(flaggedTerms != null && flaggedTerms.length() > 500
+                ? flaggedTerms.substring(0, 500) : flaggedTerms);
+    }
+
     private CourseCommentDto toDtoWithReplies(CourseComment comment) {
         User u = comment.getUser();
         String authorName = (u.getDisplayName() != null && !u.getDisplayName().isBlank())
@@ -149,7 +171,7 @@ public class CourseCommentService {
         CourseComment c = new CourseComment();
         c.setCourse(course);
         c.setUser(user);
-        c.setContent(req.content().trim());
+        applyContent(c, req.content());
 
         CourseComment saved = commentRepo.save(c);
         return toDtoWithReplies(saved);
@@ -169,7 +191,7 @@ public class CourseCommentService {
         reply.setCourse(course);
         reply.setUser(user);
         reply.setParent(parent);
-        reply.setContent(req.content().trim());
+        applyContent(reply, req.content());
 
         CourseComment saved = commentRepo.save(reply);
         // Có thể trả về parent với list replies, hoặc chỉ reply
@@ -192,7 +214,7 @@ public class CourseCommentService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "No permission to edit this comment");
         }
 
-        c.setContent(req.content().trim());
+        applyContent(c, req.content());
         c.setEdited(true);
 
         CourseComment saved = commentRepo.save(c);
@@ -235,7 +257,7 @@ public class CourseCommentService {
         CourseComment c = new CourseComment();
         c.setCourse(course);
         c.setUser(user);
-        c.setContent(req.content().trim());
+        applyContent(c, req.content());
 
         CourseComment saved = commentRepo.save(c);
         return toDtoWithReplies(saved);
@@ -260,7 +282,7 @@ public class CourseCommentService {
         reply.setCourse(course);
         reply.setUser(user);
         reply.setParent(parent);
-        reply.setContent(req.content().trim());
+        applyContent(reply, req.content());
 
         CourseComment saved = commentRepo.save(reply);
         return toDtoWithoutReplies(saved);
@@ -295,6 +317,20 @@ public class CourseCommentService {
         log.info("Comment {} disabled by moderator for course {}", commentId, courseId);
     }
     
+    /**
+     * Moderator xem các comment đang hiển thị nhưng bị bộ lọc từ ngữ đánh dấu (mức REVIEW) của 1 course
+     */
+    @Transactional(readOnly = true)
+    public List<FlaggedCommentRes> listFlaggedCommentsAsModerator(Long courseId) {
+        if (!canModerateComment()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Chỉ moderator mới có quyền xem comment bị đánh dấu");
+        }
+        return commentRepo.findByCourse_IdAndFlaggedTermsIsNotNullAndDeletedFlagFalseOrderByCreatedAtDesc(courseId)
+                .stream()
+                .map(c -> new FlaggedCommentRes(toDtoWithoutReplies(c), Arrays.asList(c.getFlaggedTerms().split(","))))
+                .toList();
+    }
+
     /**
      * Moderator hiện lại (restore/enable) một comment đã bị ẩn
      * Dùng khi moderator muốn khôi phục comment đã disable nhầm hoặc sau khi review lại
@@ -0,0 +1,393 @@
+package com.hokori.web.service;
+
+import com.hokori.web.Enum.ContentSignatureScope;
+import com.hokori.web.Enum.CourseStatus;
+import com.hokori.web.dto.moderator.DuplicateMatchRes;
+import com.hokori.web.entity.Chapter;
+import com.hokori.web.entity.ContentLshBand;
+import com.hokori.web.entity.ContentSignature;
+import com.hokori.web.entity.Course;
+import com.hokori.web.entity.Lesson;
+import com.hokori.web.repository.ChapterRepository;
+import com.hokori.web.repository.ContentLshBandRepository;
+import com.hokori.web.repository.ContentSignatureRepository;
+import com.hokori.web.repository.CourseRepository;
+import com.hokori.web.repository.LessonRepository;
+import com.hokori.web.util.BoundedExecutor;
+import com.hokori.web.util.MinHash;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Phát hiện khóa học / lesson gần trùng (đăng lại, sao chép) bằng MinHash + LSH.
+ *
+ * - Khi teacher gửi duyệt (submitForApproval) hoặc gửi bản cập nhật (submitUpdate): sau khi transaction commit,
+ *   tính signature cho toàn khóa học và cho từng lesson, ghi vào content_signature + content_lsh_band (chạy nền)
+ * - Job backfill lập chỉ mục theo lô các khóa học đã gửi duyệt / publish trước khi có tính năng này
+ * - Moderator xem trùng lặp: tra index band_key lấy ứng viên (chỉ các signature cùng bucket), rồi ước lượng
+ *   độ tương đồng từ signature. Không so với mọi khóa học khác nên chi phí không tăng theo số khóa học
+ *
+ * Text lấy giống hệt CourseModerationAIService (extractLessonText) để 2 bên thấy cùng nội dung.
+ */
+@Slf4j
+@Service
+public class CourseDuplicateDetectionService {
+
+    // Trạng thái có nội dung cần so trùng (đã gửi duyệt hoặc đã publish)
+    private static final Set<CourseStatus> BACKFILL_STATUSES = EnumSet.of(CourseStatus.PENDING_APPROVAL,
+            CourseStatus.PUBLISHED, CourseStatus.PENDING_UPDATE, CourseStatus.FLAGGED);
+
+    private final CourseRepository courseRepo;
+    private final ChapterRepository chapterRepo;
+    private final LessonRepository lessonRepo;
+    private final ContentSignatureRepository signatureRepo;
+    private final ContentLshBandRepository bandRepo;
+    private final CourseModerationAIService moderationAIService;
+    private final MeterRegistry meterRegistry;
+
+    // Self-injection để @Transactional của indexCourse hoạt động khi gọi từ thread nền
+    private final CourseDuplicateDetectionService self;
+
+    @Value("${moderation.duplicate.threads:2}")
+    private int indexThreads;
+
+    // Dưới ngưỡng này không báo là trùng
+    @Value("${moderation.duplicate.similarity-threshold:0.7}")
+    private double similarityThreshold;
+
+    // Lesson quá ngắn (vd. chỉ có tiêu đề "Bài 1") giống nhau giữa mọi khóa học nên không lập chỉ mục
+    @Value("${moderation.duplicate.min-shingles:50}")
+    private int minShingles;
+
+    @Value("${moderation.duplicate.max-results:50}")
+    private int maxResults;
+
+    @Value("${moderation.duplicate.backfill.enabled:true}")
+    private boolean backfillEnabled;
+
+    // Số khóa học lập chỉ mục mỗi lượt backfill
+    @Value("${moderation.duplicate.backfill.batch-size:50}")
+    private int backfillBatchSize;
+
+    private BoundedExecutor indexExecutor;
+
+    // Khóa học gửi duyệt lúc pool đầy: lượt backfill kế tiếp lập chỉ mục
+    private final Set<Long> deferredCourseIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+    // Id khóa học cuối cùng backfill đã quét; quét hết 1 lần mỗi lần khởi động
+    private volatile long backfillCursor;
+    private volatile boolean backfillFinished;
+
+    @Autowired
+    public CourseDuplicateDetectionService(
+            CourseRepository courseRepo,
+            ChapterRepository chapterRepo,
+            LessonRepository lessonRepo,
+            ContentSignatureRepository signatureRepo,
+            ContentLshBandRepository bandRepo,
+            CourseModerationAIService moderationAIService,
+            MeterRegistry meterRegistry,
+            @Lazy CourseDuplicateDetectionService self) {
+        this.courseRepo = courseRepo;
+        this.chapterRepo = chapterRepo;
+        this.lessonRepo = lessonRepo;
+        this.signatureRepo = signatureRepo;
+        this.bandRepo = bandRepo;
+        this.moderationAIService = moderationAIService;
+        this.meterRegistry = meterRegistry;
+        this.self = self;
+    }
+
+    @PostConstruct
+    void initIndexExecutor() {
+        indexExecutor = BoundedExecutor.create("duplicate-index", indexThreads, indexThreads * 16);
+    }
+
+    @PreDestroy
+    void shutdownIndexExecutor() {
+        indexExecutor.shutdownNow();
+    }
+
+    /**
+     * Lập chỉ mục lại khóa học sau khi transaction hiện tại commit (nội dung đã gửi duyệt mới đọc được),
+     * không làm chậm request gửi duyệt; lỗi chỉ ghi log.
+     * Pool đầy thì không chạy trên thread của request mà để lượt backfill kế tiếp lập chỉ mục
+     */
+    public void indexCourseAfterCommit(Long courseId) {
+        Runnable submit = () -> indexExecutor.supplyAsync(() -> {
+            self.indexCourse(courseId);
+            return null;
+        }, 0).whenComplete((ignored, error) -> {
+            if (error == null) {
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException) {
+                deferredCourseIds.add(courseId);
+                meterRegistry.counter("moderation.duplicate.index", "result", "deferred").increment();
+                log.info("Duplicate index pool full, course {} deferred to the backfill job", courseId);
+            } else {
+                meterRegistry.counter("moderation.duplicate.index", "result", "error").increment();
+                log.warn("Could not index course {} for duplicate detection: {}", courseId, cause.getMessage());
+            }
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    /**
+     * Backfill theo lô trên pool lập chỉ mục (không chặn các @Scheduled khác):
+     * khóa học bị hoãn vì pool đầy, rồi khóa học đã gửi duyệt / publish mà chưa có signature
+     */
+    @Scheduled(initialDelayString = "${moderation.duplicate.backfill.initial-delay-ms:60000}",
+               fixedDelayString = "${moderation.duplicate.backfill.interval-ms:60000}")
+    public void scheduleBackfill() {
+        if (!backfillEnabled || (backfillFinished && deferredCourseIds.isEmpty())) {
+            return;
+        }
+        if (!backfillRunning.compareAndSet(false, true)) {
+            return;
+        }
+        indexExecutor.supplyAsync(() -> {
+            backfillBatch();
+            return null;
+        }, 0).whenComplete((ignored, error) -> {
+            backfillRunning.set(false);
+            if (error != null) {
+                log.warn("Duplicate index backfill round failed: {}", error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 1 lô backfill, chạy tuần tự; trả số khóa học đã lập chỉ mục
+     */
+    int backfillBatch() {
+        List<Long> batch = new ArrayList<>(backfillBatchSize);
+        Iterator<Long> deferred = deferredCourseIds.iterator();
+        while (deferred.hasNext() && batch.size() < backfillBatchSize) {
+            batch.add(deferred.next());
+            deferred.remove();
+        }
+        if (!backfillFinished && batch.size() < backfillBatchSize) {
+            List<Long> unindexed = courseRepo.findIdsWithoutContentSignature(BACKFILL_STATUSES, backfillCursor,
+                    PageRequest.of(0, backfillBatchSize - batch.size()));
+            if (unindexed.isEmpty()) {
+                backfillFinished = true;
+                log.info("Duplicate index backfill finished");
+            } else {
+                backfillCursor = unindexed.get(unindexed.size() - 1);
+                batch.addAll(unindexed);
+            }
+        }
+
+        int indexed = 0;
+        for (Long courseId : batch) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            try {
+                self.indexCourse(courseId);
+                indexed++;
+            } catch (Exception e) {
+                meterRegistry.counter("moderation.duplicate.index", "result", "error").increment();
+                log.warn("Backfill could not index course {} for duplicate detection: {}", courseId, e.getMessage());
+            }
+        }
+        if (!batch.isEmpty()) {
+            log.info("Duplicate index backfill: indexed {}/{} courses (cursor at course {})",
+                    indexed, batch.size(), backfillCursor);
+        }
+        return indexed;
+    }
+
+    /**
+     * Tính lại signature của khóa học (toàn khóa + từng lesson) và thay toàn bộ signature cũ
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void indexCourse(Long courseId) {
+        // Khoá dòng course: lần lập chỉ mục song song (gửi duyệt 2 lần liên tiếp, backfill) chờ lần này commit
+        Course course = courseRepo.findByIdForUpdate(courseId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
+
+        StringBuilder courseText = new StringBuilder();
+        for (String part : new String[]{course.getTitle(), course.getSubtitle(), course.getDescription()}) {
+            if (part != null) {
+                courseText.append(part).append(' ');
+            }
+        }
+        Map<Long, String> lessonTexts = new LinkedHashMap<>();
+        for (Chapter chapter : chapterRepo.findByCourse_IdOrderByOrderIndexAsc(courseId)) {
+            for (Lesson lesson : lessonRepo.findByChapter_IdOrderByOrderIndexAsc(chapter.getId())) {
+                String text = moderationAIService.extractLessonText(lesson);
+                lessonTexts.put(lesson.getId(), text);
+                courseText.append(text).append(' ');
+            }
+        }
+
+        signatureRepo.deleteByCourseId(courseId);
+        Instant now = Instant.now();
+        int indexed = saveSignature(courseId, null, ContentSignatureScope.COURSE, courseText.toString(), now) ? 1 : 0;
+        for (Map.Entry<Long, String> lesson : lessonTexts.entrySet()) {
+            if (saveSignature(courseId, lesson.getKey(), ContentSignatureScope.LESSON, lesson.getValue(), now)) {
+                indexed++;
+            }
+        }
+        meterRegistry.counter("moderation.duplicate.index", "result", "ok").increment();
+        log.debug("Indexed {} signatures of course {} for duplicate detection", indexed, courseId);
+    }
+
+    private boolean saveSignature(Long courseId, Long lessonId, ContentSignatureScope scope, String text, Instant now) {
+        String normalized = MinHash.normalize(text);
+        int shingles = MinHash.shingleCount(normalized);
+        if (shingles < minShingles) {
+            return false;
+        }
+        int[] signature = MinHash.signature(normalized);
+        ContentSignature saved = signatureRepo.save(ContentSignature.builder()
+                .courseId(courseId)
+                .lessonId(lessonId)
+                .scope(scope)
+                .shingleCount(shingles)
+                .signature(MinHash.toBytes(signature))
+                .computedAt(now)
+                .build());
+        List<ContentLshBand> bands = new ArrayList<>(MinHash.BANDS);
+        for (long bandKey : MinHash.bandKeys(signature)) {
+            bands.add(ContentLshBand.builder()
+                    .signatureId(saved.getId())
+                    .courseId(courseId)
+                    .bandKey(bandKey)
+                    .build());
+        }
+        bandRepo.saveAll(bands);
+        return true;
+    }
+
+    /**
+     * Khóa học / lesson của khóa học khác gần trùng với khóa học này, tương đồng cao nhất trước.
+     * Khóa học chưa được lập chỉ mục (gửi duyệt trước khi có tính năng này) thì lập chỉ mục ngay.
+     */
+    public List<DuplicateMatchRes> findDuplicates(Long courseId) {
+        courseRepo.findByIdAndDeletedFlagFalse(courseId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
+        List<ContentSignature> own = signatureRepo.findByCourseId(courseId);
+        if (own.isEmpty()) {
+            self.indexCourse(courseId);
+            own = signatureRepo.findByCourseId(courseId);
+        }
+        if (own.isEmpty()) {
+            return List.of();
+        }
+
+        // band key -> signature của khóa học này có band đó
+        Map<Long, List<ContentSignature>> ownByBandKey = new HashMap<>();
+        Map<Long, int[]> decoded = new HashMap<>();
+        for (ContentSignature signature : own) {
+            int[] values = MinHash.fromBytes(signature.getSignature());
+            decoded.put(signature.getId(), values);
+            for (long bandKey : MinHash.bandKeys(values)) {
+                ownByBandKey.computeIfAbsent(bandKey, key -> new ArrayList<>()).add(signature);
+            }
+        }
+        List<Long> candidateIds = bandRepo.findCandidateSignatureIds(ownByBandKey.keySet(), courseId);
+        if (candidateIds.isEmpty()) {
+            return List.of();
+        }
+
+        record Pair(ContentSignature own, ContentSignature other, double similarity) {}
+        List<Pair> pairs = new ArrayList<>();
+        for (ContentSignature candidate : signatureRepo.findByIdIn(candidateIds)) {
+            int[] values = MinHash.fromBytes(candidate.getSignature());
+            // Chỉ so các signature cùng bucket và cùng phạm vi (khóa học với khóa học, lesson với lesson)
+            Set<ContentSignature> sameBucket = new LinkedHashSet<>();
+            for (long bandKey : MinHash.bandKeys(values)) {
+                sameBucket.addAll(ownByBandKey.getOrDefault(bandKey, List.of()));
+            }
+            for (ContentSignature ownSignature : sameBucket) {
+                if (ownSignature.getScope() != candidate.getScope()) {
+                    continue;
+                }
+                double similarity = MinHash.similarity(decoded.get(ownSignature.getId()), values);
+                if (similarity >= similarityThreshold) {
+                    pairs.add(new Pair(ownSignature, candidate, similarity));
+                }
+            }
+        }
+        meterRegistry.counter("moderation.duplicate.lookup", "result", pairs.isEmpty() ? "none" : "found").increment();
+        if (pairs.isEmpty()) {
+            return List.of();
+        }
+        pairs.sort(Comparator.comparingDouble(Pair::similarity).reversed());
+
+        Set<Long> courseIds = pairs.stream().map(pair -> pair.other().getCourseId()).collect(Collectors.toSet());
+        Map<Long, Course> courses = courseRepo.findAllById(courseIds).stream()
+                .filter(course -> !course.isDeletedFlag())
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
+        Set<Long> lessonIds = new HashSet<>();
+        for (Pair pair : pairs) {
+            lessonIds.add(pair.own().getLessonId());
+            lessonIds.add(pair.other().getLessonId());
+        }
+        lessonIds.remove(null);
+        Map<Long, String> lessonTitles = lessonRepo.findAllById(lessonIds).stream()
+                .collect(Collectors.toMap(Lesson::getId, lesson -> Objects.toString(lesson.getTitle(), "")));
+
+        return pairs.stream()
+                .filter(pair -> courses.containsKey(pair.other().getCourseId()))
+                .limit(maxResults)
+                .map(pair -> new DuplicateMatchRes(
+                        pair.own().getScope(),
+                        pair.own().getLessonId(),
+                        lessonTitles.get(pair.own().getLessonId()),
+                        pair.other().getCourseId(),
+                        courses.get(pair.other().getCourseId()).getTitle(),
+                        pair.other().getLessonId(),
+                        lessonTitles.get(pair.other().getLessonId()),
+                        pair.similarity()))
+                .toList();
+    }
+}
@@ -1,12 +1,20 @@
 package com.hokori.web.service;
 
-import com.google.cloud.language.v1.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hokori.web.Enum.AIRequestPriority;
 import com.hokori.web.Enum.ContentFormat;
 import com.hokori.web.Enum.CourseStatus;
+import com.hokori.web.Enum.ModerationTermSeverity;
 import com.hokori.web.dto.moderator.CourseAICheckResponse;
 import com.hokori.web.entity.*;
 import com.hokori.web.exception.AIServiceException;
 import com.hokori.web.repository.*;
+import com.hokori.web.service.provider.SentimentProvider;
+import com.hokori.web.util.BoundedExecutor;
+import com.hokori.web.util.ContentHash;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,7 +27,20 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -41,9 +62,46 @@ public class CourseModerationAIService {
     private final OptionRepository optionRepo;
     private final FlashcardSetRepository flashcardSetRepo;
     private final FlashcardRepository flashcardRepo;
+    private final CourseModerationResultRepository moderationResultRepo;
+    private final MeterRegistry meterRegistry;
+    private final ContentPreScreenService preScreenService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /** Bump when prompts or scoring change so stored verdicts are not reused */
+    private static final String MODERATION_VERSION = "v3";
+    private static final String SCOPE_HEADER = "header";
+    private static final String SCOPE_COURSE = "course";
+    /** Safety score when the pre-screen finds a BLOCK term (UNSAFE) */
+    private static final double PRESCREEN_BLOCK_SAFETY_SCORE = 0.3;
+    private static final int COURSE_OVERVIEW_MAX_CHARS = 8000;
+
+    /** Labelled piece of a part: the chapter intro or one lesson */
+    record TextSegment(String label, String text) {}
+
+    /** One independently cached part of a course: the header or a chapter */
+    record ModerationUnit(String scopeKey, String label, List<TextSegment> segments, String text, String contentHash) {}
+
+    /** Token-bounded slice of a part checked in one request; location names the lessons it covers */
+    record ModerationChunk(String location, String text) {}
+
+    /** Verdict of one chunk; aiSkipped when the pre-screen found it clean and short */
+    record ChunkVerdict(String location, int textLength, double sentimentScore, double sentimentMagnitude,
+                        double safetyScore, CourseAICheckResponse.LanguageAccuracy languageAccuracy,
+                        boolean aiSkipped) {}
+
+    /** Term list hit found by the local pre-screen */
+    record PreScreenFinding(String scopeKey, String location, ContentPreScreenService.Hit hit) {}
+
+    /** Stored verdict of one part */
+    record UnitVerdict(String label, List<ChunkVerdict> chunks) {}
+
+    /** Stored verdict of the checks that need the whole course */
+    record CourseVerdict(CourseAICheckResponse.LevelMatch levelMatch,
+                         CourseAICheckResponse.PedagogicalQuality pedagogicalQuality,
+                         CourseAICheckResponse.GrammarProgression grammarProgression) {}
 
     @Autowired(required = false)
-    private LanguageServiceClient languageServiceClient;
+    private SentimentProvider sentimentProvider;
 
     @Autowired(required = false)
     private GeminiService geminiService;
@@ -57,12 +115,44 @@ public class CourseModerationAIService {
     @Value("${ai.moderation.enable-gemini:true}")
     private boolean enableGemini;
 
+    // Budget of one chunk (lessons packed together) sent to Natural Language / Gemini
+    @Value("${ai.moderation.chunk-max-tokens:2000}")
+    private int chunkMaxTokens;
+
+    // Concurrent Natural Language / course-wide Gemini calls; chunk Gemini calls queue on GeminiRateGovernor
+    @Value("${ai.moderation.threads:4}")
+    private int moderationThreads;
+
+    // A check waits this long for a free slot when other checks fill the pool (then fails with MODERATION_BUSY)
+    @Value("${ai.moderation.submit-wait-ms:30000}")
+    private long submitWaitMs;
+
+    // Upper bound of one Natural Language / course-wide call; the call is interrupted after that
+    @Value("${ai.moderation.call-timeout-ms:120000}")
+    private long callTimeoutMs;
+
+    private BoundedExecutor moderationExecutor;
+
+    @PostConstruct
+    void initModerationExecutor() {
+        // At most moderationThreads calls run at once and moderationThreads * 16 wait; a check submitting more
+        // waits for a slot instead of running the call itself on the request thread
+        moderationExecutor = BoundedExecutor.create("course-moderation", moderationThreads, moderationThreads * 16);
+    }
+
+    @PreDestroy
+    void shutdownModerationExecutor() {
+        moderationExecutor.shutdownNow();
+    }
+
     /**
      * Check course content with AI
      * Only checks courses with PENDING_APPROVAL status
      * 
-     * Caching: Checks course.updatedAt - if course hasn't changed, returns cached result
-     * (Simple caching: in production, consider using Redis or database cache)
+     * Caching: verdicts are stored per course part (header, each chapter, course-wide checks) in
+     * course_moderation_result, keyed by content hash + moderation model version. Re-checking an edited
+     * course only calls the AI APIs for the chapters whose text changed; course-wide checks (level match,
+     * pedagogical quality, grammar progression) are re-run when any part changed.
      */
     @Transactional(readOnly = true)
     public CourseAICheckResponse checkCourseContent(Long courseId) {
@@ -123,107 +213,74 @@ public class CourseModerationAIService {
         String courseTitle = actualMetadata[1] != null ? actualMetadata[1].toString() : "Untitled Course";
 
         // Check if Google Cloud AI is enabled
-        if (!googleCloudEnabled || languageServiceClient == null) {
-            log.warn("Google Cloud AI is not enabled or LanguageServiceClient is not available");
+        if (!googleCloudEnabled || sentimentProvider == null) {
+            log.warn("Google Cloud AI is not enabled or sentiment provider is not available");
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "AI moderation service is not available. Please check Google Cloud configuration.");
         }
 
         try {
-            // Extract all text content from course
-            String allText = extractAllCourseText(courseId);
+            String declaredLevel = extractDeclaredLevel(actualMetadata);
+            List<ModerationUnit> units = extractModerationUnits(courseId, actualMetadata);
             
-            if (!StringUtils.hasText(allText)) {
+            if (units.isEmpty()) {
                 log.warn("No text content found in course ID: {}", courseId);
                 return createEmptyResponse(courseId, courseTitle, "No text content found in course");
             }
 
-            // Check text length
-            if (allText.length() > maxTextLength) {
-                log.warn("Course text exceeds max length ({}), truncating to {}", allText.length(), maxTextLength);
-                allText = allText.substring(0, maxTextLength);
+            // Local term-list pre-screen of every lesson; cheap, so it always runs and is never stored
+            List<PreScreenFinding> findings = preScreen(units);
+            Set<String> flaggedScopes = findings.stream().map(PreScreenFinding::scopeKey).collect(Collectors.toSet());
+
+            String modelVersion = moderationModelVersion();
+            Map<String, CourseModerationResult> stored = loadStoredVerdicts(courseId);
+
+            // Header + each chapter: only parts whose text changed are sent to the AI APIs again.
+            // All chunks of all changed parts and the course-wide checks run concurrently.
+            Map<String, CompletableFuture<UnitVerdict>> pendingUnits = new LinkedHashMap<>();
+            Set<String> checkedScopes = new HashSet<>();
+            for (ModerationUnit unit : units) {
+                UnitVerdict verdict = readStored(stored, unit.scopeKey(), unit.contentHash(), modelVersion, UnitVerdict.class);
+                if (verdict != null) {
+                    pendingUnits.put(unit.scopeKey(), CompletableFuture.completedFuture(verdict));
+                } else {
+                    pendingUnits.put(unit.scopeKey(), checkUnitAsync(courseId, unit, declaredLevel,
+                            !flaggedScopes.contains(unit.scopeKey())));
+                    checkedScopes.add(unit.scopeKey());
+                }
             }
 
-            log.debug("Extracted text length: {} characters", allText.length());
-
-            // Call Natural Language API for safety check
-            AnalyzeSentimentResponse response = languageServiceClient.analyzeSentiment(
-                    AnalyzeSentimentRequest.newBuilder()
-                            .setDocument(Document.newBuilder()
-                                    .setContent(allText)
-                                    .setType(Document.Type.PLAIN_TEXT)
-                                    .build())
-                            .build()
-            );
-
-            Sentiment sentiment = response.getDocumentSentiment();
-            double safetyScore = calculateSafetyScore(sentiment);
-
-            // Build response
-            CourseAICheckResponse result = CourseAICheckResponse.createDefault(courseId, courseTitle);
-            
-            // Safety check
-            CourseAICheckResponse.SafetyCheck safetyCheck = CourseAICheckResponse.SafetyCheck.builder()
-                    .status(determineSafetyStatus(safetyScore))
-                    .score(safetyScore)
-                    .hasIssues(safetyScore < 0.7)
-                    .summary(generateSafetySummary(safetyScore))
-                    .build();
-            result.setSafetyCheck(safetyCheck);
-
-            // Level match with Gemini
-            CourseAICheckResponse.LevelMatch levelMatch = checkLevelMatch(courseId, actualMetadata, allText);
-            result.setLevelMatch(levelMatch);
-
-            // New AI checks with Gemini (if enabled)
-            if (enableGemini && geminiService != null) {
-                try {
-                    // Pedagogical Quality Assessment
-                    CourseAICheckResponse.PedagogicalQuality pedagogicalQuality = 
-                            checkPedagogicalQuality(courseId, courseTitle, allText, extractDeclaredLevel(actualMetadata));
-                    result.setPedagogicalQuality(pedagogicalQuality);
-
-                    // Language Accuracy Check
-                    CourseAICheckResponse.LanguageAccuracy languageAccuracy = 
-                            checkLanguageAccuracy(courseId, allText, extractDeclaredLevel(actualMetadata));
-                    result.setLanguageAccuracy(languageAccuracy);
-
-                    // Grammar Progression Validation
-                    CourseAICheckResponse.GrammarProgression grammarProgression = 
-                            checkGrammarProgression(courseId, allText, extractDeclaredLevel(actualMetadata));
-                    result.setGrammarProgression(grammarProgression);
-
-                    // Add recommendations and warnings from Gemini checks
-                    if (pedagogicalQuality != null && pedagogicalQuality.getRecommendations() != null) {
-                        result.getRecommendations().addAll(pedagogicalQuality.getRecommendations());
-                    }
-                    if (grammarProgression != null && grammarProgression.getRecommendations() != null) {
-                        result.getRecommendations().addAll(grammarProgression.getRecommendations());
-                    }
-                    if (languageAccuracy != null && languageAccuracy.getScore() != null && languageAccuracy.getScore() < 0.7) {
-                        result.getWarnings().add("Phát hiện một số lỗi về độ chính xác ngôn ngữ. Vui lòng xem xét kỹ.");
-                    }
-                    if (grammarProgression != null && Boolean.FALSE.equals(grammarProgression.getIsLogical())) {
-                        result.getWarnings().add("Tiến trình ngữ pháp có thể gây hiểu nhầm. Vui lòng xem xét lại thứ tự dạy ngữ pháp.");
-                    }
-                } catch (Exception e) {
-                    log.warn("Gemini checks failed, continuing with basic checks: {}", e.getMessage());
-                    // Continue without Gemini checks if they fail
+            // Course-wide checks need the whole course: reused only when no part changed
+            String courseHash = ContentHash.sha256Hex(courseTitle, declaredLevel, units.stream()
+                    .map(unit -> unit.scopeKey() + "=" + unit.contentHash())
+                    .collect(Collectors.joining(",")));
+            CourseVerdict storedCourseVerdict = readStored(stored, SCOPE_COURSE, courseHash, modelVersion, CourseVerdict.class);
+            boolean courseVerdictReused = storedCourseVerdict != null;
+            CompletableFuture<CourseVerdict> pendingCourse = courseVerdictReused
+                    ? CompletableFuture.completedFuture(storedCourseVerdict)
+                    : checkCourseWideAsync(courseId, courseTitle, actualMetadata, buildCourseOverview(units));
+
+            List<UnitVerdict> unitVerdicts = new ArrayList<>();
+            for (ModerationUnit unit : units) {
+                UnitVerdict verdict = join(pendingUnits.get(unit.scopeKey()));
+                if (checkedScopes.contains(unit.scopeKey()) && isComplete(verdict)) {
+                    storeVerdict(courseId, unit.scopeKey(), unit.contentHash(), modelVersion, verdict);
                 }
-            } else {
-                log.debug("Gemini checks disabled or service not available");
+                unitVerdicts.add(verdict);
             }
-
-            // Generate recommendations
-            List<String> recommendations = generateRecommendations(safetyScore, sentiment);
-            result.getRecommendations().addAll(recommendations);
-
-            // Generate warnings if needed
-            if (safetyScore < 0.7) {
-                result.getWarnings().add("Nội dung có thể chứa từ ngữ không phù hợp. Vui lòng xem xét kỹ.");
+            CourseVerdict courseVerdict = join(pendingCourse);
+            if (!courseVerdictReused && isComplete(courseVerdict)) {
+                storeVerdict(courseId, SCOPE_COURSE, courseHash, modelVersion, courseVerdict);
             }
+            deleteRemovedScopes(courseId, units, stored);
+            int reused = units.size() - checkedScopes.size();
 
-            log.info("AI check completed for course ID: {}, safety score: {}", courseId, safetyScore);
+            CourseAICheckResponse result = buildResponse(courseId, courseTitle, unitVerdicts, courseVerdict, findings);
+            result.setPartsChecked(checkedScopes.size());
+            result.setPartsReused(reused);
+
+            log.info("AI check completed for course ID: {}, safety score: {}, parts reused: {}/{}, course-wide reused: {}",
+                    courseId, result.getSafetyCheck().getScore(), reused, units.size(), courseVerdictReused);
             return result;
 
         } catch (AIServiceException e) {
@@ -238,198 +295,647 @@ public class CourseModerationAIService {
     }
 
     /**
-     * Extract all text content from course
+     * Safety (Natural Language sentiment) + language accuracy (Gemini) of one course part, chunk by chunk
      */
-    private String extractAllCourseText(Long courseId) {
-        StringBuilder textBuilder = new StringBuilder();
+    private CompletableFuture<UnitVerdict> checkUnitAsync(Long courseId, ModerationUnit unit, String declaredLevel,
+                                                          boolean preScreenClean) {
+        List<ModerationChunk> chunks = splitIntoChunks(unit.segments(), chunkMaxTokens);
+        log.debug("Checking {} of course {}: {} characters in {} chunks",
+                unit.scopeKey(), courseId, unit.text().length(), chunks.size());
+
+        List<CompletableFuture<ChunkVerdict>> pending = chunks.stream()
+                .map(chunk -> preScreenClean && preScreenService.canSkipAI(chunk.text())
+                        ? CompletableFuture.completedFuture(new ChunkVerdict(
+                                chunk.location(), chunk.text().length(), 0, 0, 1.0, null, true))
+                        : checkChunkAsync(courseId, unit, chunk, declaredLevel))
+                .toList();
+        return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                .thenApply(done -> new UnitVerdict(unit.label(), pending.stream().map(CompletableFuture::join).toList()));
+    }
 
-        // Course metadata
-        Object[] metadata = courseRepo.findCourseMetadataById(courseId).orElse(null);
-        if (metadata != null && metadata.length > 0) {
-            Object[] actualMetadata = metadata;
-            if (metadata.length == 1 && metadata[0] instanceof Object[]) {
-                actualMetadata = (Object[]) metadata[0];
-                // Validate nested array
-                if (actualMetadata == null || actualMetadata.length == 0) {
-                    log.warn("Nested metadata is empty when extracting course text for course ID: {}", courseId);
-                } else {
-                    if (actualMetadata.length > 1 && actualMetadata[1] != null) {
-                        textBuilder.append(actualMetadata[1].toString()).append(" "); // title
-                    }
-                    if (actualMetadata.length > 2 && actualMetadata[2] != null) {
-                        textBuilder.append(actualMetadata[2].toString()).append(" "); // subtitle
-                    }
-                    if (actualMetadata.length > 3 && actualMetadata[3] != null) {
-                        textBuilder.append(actualMetadata[3].toString()).append(" "); // description
-                    }
+    private CompletableFuture<ChunkVerdict> checkChunkAsync(Long courseId, ModerationUnit unit, ModerationChunk chunk,
+                                                            String declaredLevel) {
+        CompletableFuture<SentimentProvider.SentimentResult> sentiment = submit(
+                () -> sentimentProvider.analyzeSentiment(chunk.text()));
+
+        CompletableFuture<CourseAICheckResponse.LanguageAccuracy> languageAccuracy = isGeminiActive()
+                ? checkLanguageAccuracyAsync(courseId, unit.label(), chunk.text(), declaredLevel)
+                : CompletableFuture.completedFuture(null);
+        return sentiment.thenCombine(languageAccuracy, (documentSentiment, accuracy) -> new ChunkVerdict(
+                chunk.location(), chunk.text().length(), documentSentiment.score(), documentSentiment.magnitude(),
+                calculateSafetyScore(documentSentiment.score(), documentSentiment.magnitude()), accuracy, false));
+    }
+
+    private List<PreScreenFinding> preScreen(List<ModerationUnit> units) {
+        List<PreScreenFinding> findings = new ArrayList<>();
+        for (ModerationUnit unit : units) {
+            for (TextSegment segment : unit.segments()) {
+                for (ContentPreScreenService.Hit hit : preScreenService.screen(segment.text()).hits()) {
+                    findings.add(new PreScreenFinding(unit.scopeKey(),
+                            locationIn(unit.label(), segment.label()), hit));
                 }
-            } else {
-                // Not nested, use directly
-                if (actualMetadata.length > 1 && actualMetadata[1] != null) {
-                    textBuilder.append(actualMetadata[1].toString()).append(" "); // title
+            }
+        }
+        return findings;
+    }
+
+    /**
+     * Course-wide prompts only take COURSE_OVERVIEW_MAX_CHARS; give every part an even share of it
+     * instead of sending the beginning of the course
+     */
+    private String buildCourseOverview(List<ModerationUnit> units) {
+        List<ModerationUnit> shortestFirst = units.stream()
+                .sorted(Comparator.comparingInt(unit -> unit.text().length()))
+                .toList();
+        Map<String, String> excerpts = new HashMap<>();
+        int remaining = Math.min(maxTextLength, COURSE_OVERVIEW_MAX_CHARS)
+                - units.stream().mapToInt(unit -> unit.label().length() + 4).sum();
+        for (int i = 0; i < shortestFirst.size(); i++) {
+            ModerationUnit unit = shortestFirst.get(i);
+            int share = Math.max(0, remaining) / (shortestFirst.size() - i);
+            String excerpt = unit.text().length() > share ? unit.text().substring(0, share) : unit.text();
+            excerpts.put(unit.scopeKey(), excerpt);
+            remaining -= excerpt.length();
+        }
+        return units.stream()
+                .map(unit -> "[" + unit.label() + "]\n" + excerpts.get(unit.scopeKey()))
+                .collect(Collectors.joining("\n\n"));
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        return moderationExecutor.supplyAsync(work, submitWaitMs, callTimeoutMs);
+    }
+
+    /**
+     * Gemini calls don't hold a moderation thread (they wait on the rate governor), but get the same
+     * callTimeoutMs bound as pool work; on timeout the call itself is cancelled
+     */
+    private <T> CompletableFuture<T> bounded(CompletableFuture<T> call) {
+        CompletableFuture<T> result = call.copy();
+        if (callTimeoutMs > 0) {
+            result.orTimeout(callTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                call.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                throw new AIServiceException("Course Moderation",
+                        "Too many courses are being checked right now. Please try again in a moment.",
+                        "MODERATION_BUSY");
+            }
+            if (e.getCause() instanceof TimeoutException) {
+                throw new AIServiceException("Course Moderation",
+                        "An AI moderation call took too long. Please try again.", "MODERATION_TIMEOUT");
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Checks that need the whole course (order of chapters, overall level and quality), run side by side
+     */
+    private CompletableFuture<CourseVerdict> checkCourseWideAsync(Long courseId, String courseTitle, Object[] metadata,
+                                                                  String overview) {
+        CompletableFuture<CourseAICheckResponse.LevelMatch> levelMatch = checkLevelMatchAsync(courseId, metadata, overview);
+        if (!isGeminiActive()) {
+            return levelMatch.thenApply(match -> new CourseVerdict(match, null, null));
+        }
+        String declaredLevel = extractDeclaredLevel(metadata);
+        CompletableFuture<CourseAICheckResponse.PedagogicalQuality> pedagogicalQuality =
+                checkPedagogicalQualityAsync(courseId, courseTitle, overview, declaredLevel);
+        CompletableFuture<CourseAICheckResponse.GrammarProgression> grammarProgression =
+                checkGrammarProgressionAsync(courseId, overview, declaredLevel);
+        return CompletableFuture.allOf(levelMatch, pedagogicalQuality, grammarProgression)
+                .thenApply(done -> new CourseVerdict(levelMatch.join(), pedagogicalQuality.join(), grammarProgression.join()));
+    }
+
+    /**
+     * Merge per-chunk and course-wide verdicts: safety is the least safe chunk, language accuracy
+     * concatenates every chunk's findings (location prefixed with the part) with a length-weighted score
+     */
+    private CourseAICheckResponse buildResponse(Long courseId, String courseTitle, List<UnitVerdict> unitVerdicts,
+                                                CourseVerdict courseVerdict, List<PreScreenFinding> findings) {
+        CourseAICheckResponse result = CourseAICheckResponse.createDefault(courseId, courseTitle);
+
+        UnitVerdict leastSafeUnit = null;
+        ChunkVerdict leastSafe = null;
+        for (UnitVerdict unit : unitVerdicts) {
+            for (ChunkVerdict chunk : unit.chunks()) {
+                if (leastSafe == null || chunk.safetyScore() < leastSafe.safetyScore()) {
+                    leastSafeUnit = unit;
+                    leastSafe = chunk;
                 }
-                if (actualMetadata.length > 2 && actualMetadata[2] != null) {
-                    textBuilder.append(actualMetadata[2].toString()).append(" "); // subtitle
+            }
+        }
+        double safetyScore = leastSafe.safetyScore();
+        String safetySummary = generateSafetySummary(safetyScore);
+        if (safetyScore < 0.8) {
+            safetySummary += " (" + locationIn(leastSafeUnit.label(), leastSafe.location()) + ")";
+        }
+        // A banned term is a definite violation whatever the sentiment says
+        List<PreScreenFinding> blocked = findings.stream()
+                .filter(finding -> finding.hit().severity() == ModerationTermSeverity.BLOCK)
+                .toList();
+        if (!blocked.isEmpty() && safetyScore > PRESCREEN_BLOCK_SAFETY_SCORE) {
+            safetyScore = PRESCREEN_BLOCK_SAFETY_SCORE;
+            safetySummary = generateSafetySummary(safetyScore) + " (" + blocked.get(0).location() + ")";
+        }
+        result.setSafetyCheck(CourseAICheckResponse.SafetyCheck.builder()
+                .status(determineSafetyStatus(safetyScore))
+                .score(safetyScore)
+                .hasIssues(safetyScore < 0.7 || !findings.isEmpty())
+                .summary(safetySummary)
+                .flaggedTerms(findings.stream()
+                        .map(finding -> finding.hit().term() + " (" + finding.location() + ")")
+                        .toList())
+                .build());
+        if (!blocked.isEmpty()) {
+            result.getWarnings().add("Nội dung chứa từ ngữ bị cấm: " + blocked.stream()
+                    .map(finding -> finding.hit().term() + " (" + finding.location() + ")")
+                    .collect(Collectors.joining(", ")));
+        } else if (!findings.isEmpty()) {
+            result.getWarnings().add("Nội dung chứa từ ngữ cần xem lại theo ngữ cảnh. Vui lòng xem mục flaggedTerms.");
+        }
+
+        result.setLevelMatch(courseVerdict.levelMatch());
+
+        if (isGeminiActive()) {
+            CourseAICheckResponse.PedagogicalQuality pedagogicalQuality = courseVerdict.pedagogicalQuality();
+            CourseAICheckResponse.LanguageAccuracy languageAccuracy = mergeLanguageAccuracy(unitVerdicts);
+            CourseAICheckResponse.GrammarProgression grammarProgression = courseVerdict.grammarProgression();
+            result.setPedagogicalQuality(pedagogicalQuality);
+            result.setLanguageAccuracy(languageAccuracy);
+            result.setGrammarProgression(grammarProgression);
+
+            // Add recommendations and warnings from Gemini checks
+            if (pedagogicalQuality != null && pedagogicalQuality.getRecommendations() != null) {
+                result.getRecommendations().addAll(pedagogicalQuality.getRecommendations());
+            }
+            if (grammarProgression != null && grammarProgression.getRecommendations() != null) {
+                result.getRecommendations().addAll(grammarProgression.getRecommendations());
+            }
+            if (languageAccuracy != null && languageAccuracy.getScore() != null && languageAccuracy.getScore() < 0.7) {
+                result.getWarnings().add("Phát hiện một số lỗi về độ chính xác ngôn ngữ. Vui lòng xem xét kỹ.");
+            }
+            if (grammarProgression != null && Boolean.FALSE.equals(grammarProgression.getIsLogical())) {
+                result.getWarnings().add("Tiến trình ngữ pháp có thể gây hiểu nhầm. Vui lòng xem xét lại thứ tự dạy ngữ pháp.");
+            }
+        } else {
+            log.debug("Gemini checks disabled or service not available");
+        }
+
+        // Generate recommendations
+        result.getRecommendations().addAll(generateRecommendations(safetyScore));
+
+        // Generate warnings if needed
+        if (safetyScore < 0.7) {
+            result.getWarnings().add("Nội dung có thể chứa từ ngữ không phù hợp. Vui lòng xem xét kỹ.");
+        }
+        return result;
+    }
+
+    private CourseAICheckResponse.LanguageAccuracy mergeLanguageAccuracy(List<UnitVerdict> unitVerdicts) {
+        List<CourseAICheckResponse.LanguageError> japaneseErrors = new ArrayList<>();
+        List<CourseAICheckResponse.LanguageError> vietnameseErrors = new ArrayList<>();
+        List<CourseAICheckResponse.LevelMismatch> levelMismatches = new ArrayList<>();
+        List<String> summaries = new ArrayList<>();
+        double weightedScore = 0;
+        long weight = 0;
+        boolean any = false;
+
+        for (UnitVerdict unit : unitVerdicts) {
+            for (ChunkVerdict verdict : unit.chunks()) {
+                CourseAICheckResponse.LanguageAccuracy accuracy = verdict.languageAccuracy();
+                if (accuracy == null) {
+                    continue;
                 }
-                if (actualMetadata.length > 3 && actualMetadata[3] != null) {
-                    textBuilder.append(actualMetadata[3].toString()).append(" "); // description
+                any = true;
+                // Gemini names the [lesson] marker; fall back to the lessons the chunk covers
+                String chunkLocation = locationIn(unit.label(), verdict.location());
+                if (accuracy.getScore() != null) {
+                    weightedScore += accuracy.getScore() * verdict.textLength();
+                    weight += verdict.textLength();
                 }
+                if (accuracy.getJapaneseErrors() != null) {
+                    accuracy.getJapaneseErrors().forEach(error -> {
+                        error.setLocation(findingLocation(unit.label(), chunkLocation, error.getLocation()));
+                        japaneseErrors.add(error);
+                    });
+                }
+                if (accuracy.getVietnameseErrors() != null) {
+                    accuracy.getVietnameseErrors().forEach(error -> {
+                        error.setLocation(findingLocation(unit.label(), chunkLocation, error.getLocation()));
+                        vietnameseErrors.add(error);
+                    });
+                }
+                if (accuracy.getLevelMismatches() != null) {
+                    accuracy.getLevelMismatches().forEach(mismatch -> {
+                        mismatch.setLocation(findingLocation(unit.label(), chunkLocation, mismatch.getLocation()));
+                        levelMismatches.add(mismatch);
+                    });
+                }
+                if (StringUtils.hasText(accuracy.getSummary())) {
+                    summaries.add(chunkLocation + ": " + accuracy.getSummary());
+                }
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        return CourseAICheckResponse.LanguageAccuracy.builder()
+                .score(weight > 0 ? weightedScore / weight : null)
+                .japaneseErrors(japaneseErrors)
+                .vietnameseErrors(vietnameseErrors)
+                .levelMismatches(levelMismatches)
+                .summary(String.join("\n", summaries))
+                .build();
+    }
+
+    private static String locationIn(String partLabel, String location) {
+        return StringUtils.hasText(location) ? partLabel + " - " + location : partLabel;
+    }
+
+    private static String findingLocation(String partLabel, String chunkLocation, String reportedLocation) {
+        return StringUtils.hasText(reportedLocation) ? locationIn(partLabel, reportedLocation) : chunkLocation;
+    }
+
+    private boolean isGeminiActive() {
+        return enableGemini && geminiService != null;
+    }
+
+    /**
+     * Stored verdicts are only valid for the same prompts and model
+     */
+    private String moderationModelVersion() {
+        return MODERATION_VERSION + ":" + (isGeminiActive() ? geminiService.getModelName() : "nl-only");
+    }
+
+    /**
+     * A verdict with a failed Gemini call is shown once but not stored, so the next run retries it
+     */
+    private boolean isComplete(UnitVerdict verdict) {
+        return !isGeminiActive() || verdict.chunks().stream()
+                .allMatch(chunk -> chunk.aiSkipped() || chunk.languageAccuracy() != null);
+    }
+
+    private boolean isComplete(CourseVerdict verdict) {
+        return !isGeminiActive() || (verdict.levelMatch() != null && verdict.levelMatch().getDetectedLevel() != null
+                && verdict.pedagogicalQuality() != null && verdict.grammarProgression() != null);
+    }
+
+    private Map<String, CourseModerationResult> loadStoredVerdicts(Long courseId) {
+        try {
+            return moderationResultRepo.findByCourseId(courseId).stream()
+                    .collect(Collectors.toMap(CourseModerationResult::getScopeKey, Function.identity(), (a, b) -> a));
+        } catch (Exception e) {
+            // Cache unavailable: check everything as before
+            log.warn("Could not load stored moderation verdicts for course {}: {}", courseId, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private <T> T readStored(Map<String, CourseModerationResult> stored, String scopeKey, String contentHash,
+                             String modelVersion, Class<T> type) {
+        CourseModerationResult row = stored.get(scopeKey);
+        if (row == null || !contentHash.equals(row.getContentHash()) || !modelVersion.equals(row.getModelVersion())) {
+            meterRegistry.counter("ai.moderation.verdicts", "result", "miss").increment();
+            return null;
+        }
+        try {
+            T verdict = objectMapper.readValue(row.getResultJson(), type);
+            meterRegistry.counter("ai.moderation.verdicts", "result", "hit").increment();
+            return verdict;
+        } catch (Exception e) {
+            log.warn("Stored moderation verdict {} of course {} is unreadable: {}", scopeKey, row.getCourseId(), e.getMessage());
+            meterRegistry.counter("ai.moderation.verdicts", "result", "miss").increment();
+            return null;
+        }
+    }
+
+    private void storeVerdict(Long courseId, String scopeKey, String contentHash, String modelVersion, Object verdict) {
+        try {
+            moderationResultRepo.upsert(courseId, scopeKey, contentHash, modelVersion,
+                    objectMapper.writeValueAsString(verdict), Instant.now());
+        } catch (Exception e) {
+            // The check itself succeeded; only the reuse next time is lost
+            log.warn("Could not store moderation verdict {} of course {}: {}", scopeKey, courseId, e.getMessage());
+        }
+    }
+
+    private void deleteRemovedScopes(Long courseId, List<ModerationUnit> units, Map<String, CourseModerationResult> stored) {
+        Set<String> current = units.stream().map(ModerationUnit::scopeKey).collect(Collectors.toCollection(HashSet::new));
+        current.add(SCOPE_COURSE);
+        if (current.containsAll(stored.keySet())) {
+            return;
+        }
+        try {
+            moderationResultRepo.deleteStale(courseId, current);
+        } catch (Exception e) {
+            log.warn("Could not delete stale moderation verdicts of course {}: {}", courseId, e.getMessage());
+        }
+    }
+
+    /**
+     * Course header (title, subtitle, description) and one part per chapter; parts without text are skipped
+     */
+    private List<ModerationUnit> extractModerationUnits(Long courseId, Object[] metadata) {
+        List<ModerationUnit> units = new ArrayList<>();
+
+        StringBuilder header = new StringBuilder();
+        for (int i = 1; i <= 3 && i < metadata.length; i++) { // title, subtitle, description
+            if (metadata[i] != null) {
+                header.append(metadata[i].toString()).append(" ");
             }
         }
+        List<TextSegment> headerSegments = new ArrayList<>();
+        addSegment(headerSegments, "Tiêu đề & mô tả", header.toString());
+        addUnit(units, SCOPE_HEADER, "Thông tin khóa học", headerSegments);
 
-        // Chapters
         List<Chapter> chapters = chapterRepo.findByCourse_IdOrderByOrderIndexAsc(courseId);
-        for (Chapter chapter : chapters) {
-            if (chapter.getTitle() != null) {
-                textBuilder.append(chapter.getTitle()).append(" ");
+        for (int i = 0; i < chapters.size(); i++) {
+            Chapter chapter = chapters.get(i);
+            String label = "Chapter " + (i + 1) + (chapter.getTitle() != null ? ": " + chapter.getTitle() : "");
+            addUnit(units, "chapter:" + chapter.getId(), label, extractChapterSegments(chapter));
+        }
+        return units;
+    }
+
+    private static void addUnit(List<ModerationUnit> units, String scopeKey, String label, List<TextSegment> segments) {
+        if (segments.isEmpty()) {
+            return;
+        }
+        String text = segments.stream().map(TextSegment::text).collect(Collectors.joining(" "));
+        units.add(new ModerationUnit(scopeKey, label, segments, text, ContentHash.sha256Hex(ContentHash.normalize(text))));
+    }
+
+    private static void addSegment(List<TextSegment> segments, String label, String text) {
+        String trimmed = text.trim();
+        if (StringUtils.hasText(trimmed)) {
+            segments.add(new TextSegment(label, trimmed));
+        }
+    }
+
+    /**
+     * Pack a part's segments into chunks of at most maxTokens (estimated like
+     * ConversationSessionStore.estimateTokens: CJK ~1 token/char, Latin ~4 chars/token).
+     * Lessons are never split unless a single lesson exceeds the budget; each segment keeps a
+     * [label] marker so Gemini can report which lesson a finding is in.
+     */
+    static List<ModerationChunk> splitIntoChunks(List<TextSegment> segments, int maxTokens) {
+        List<TextSegment> pieces = new ArrayList<>();
+        for (TextSegment segment : segments) {
+            List<String> parts = splitText(segment.text(), maxTokens);
+            for (int i = 0; i < parts.size(); i++) {
+                String label = parts.size() == 1 ? segment.label()
+                        : segment.label() + " (" + (i + 1) + "/" + parts.size() + ")";
+                pieces.add(new TextSegment(label, parts.get(i)));
             }
-            if (chapter.getSummary() != null) {
-                textBuilder.append(chapter.getSummary()).append(" ");
+        }
+
+        List<ModerationChunk> chunks = new ArrayList<>();
+        List<TextSegment> current = new ArrayList<>();
+        int currentTokens = 0;
+        for (TextSegment piece : pieces) {
+            int tokens = ConversationSessionStore.estimateTokens(piece.text());
+            if (!current.isEmpty() && currentTokens + tokens > maxTokens) {
+                chunks.add(toChunk(current));
+                current = new ArrayList<>();
+                currentTokens = 0;
             }
+            current.add(piece);
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(toChunk(current));
+        }
+        return chunks;
+    }
 
-            // Lessons
-            List<Lesson> lessons = lessonRepo.findByChapter_IdOrderByOrderIndexAsc(chapter.getId());
-            for (Lesson lesson : lessons) {
-                if (lesson.getTitle() != null) {
-                    textBuilder.append(lesson.getTitle()).append(" ");
+    private static ModerationChunk toChunk(List<TextSegment> segments) {
+        String first = segments.get(0).label();
+        String last = segments.get(segments.size() - 1).label();
+        String text = segments.stream()
+                .map(segment -> "[" + segment.label() + "]\n" + segment.text())
+                .collect(Collectors.joining("\n\n"));
+        return new ModerationChunk(first.equals(last) ? first : first + " → " + last, text);
+    }
+
+    /**
+     * Cut an oversized text at sentence ends (falling back to a hard cut) so every piece fits maxTokens
+     */
+    private static List<String> splitText(String text, int maxTokens) {
+        if (ConversationSessionStore.estimateTokens(text) <= maxTokens) {
+            return List.of(text);
+        }
+        List<String> parts = new ArrayList<>();
+        int maxQuarterTokens = maxTokens * 4;
+        int start = 0;
+        while (start < text.length()) {
+            int quarterTokens = 0;
+            int end = start;
+            int lastSentenceEnd = -1;
+            while (end < text.length()) {
+                char c = text.charAt(end);
+                int cost = c >= 0x3000 ? 4 : 1;
+                if (quarterTokens + cost > maxQuarterTokens) {
+                    break;
+                }
+                quarterTokens += cost;
+                end++;
+                if (c == '。' || c == '！' || c == '？' || c == '.' || c == '!' || c == '?' || c == '\n') {
+                    lastSentenceEnd = end;
                 }
+            }
+            if (end < text.length() && lastSentenceEnd > start + (end - start) / 2) {
+                end = lastSentenceEnd;
+            }
+            String part = text.substring(start, end).trim();
+            if (!part.isEmpty()) {
+                parts.add(part);
+            }
+            start = end;
+        }
+        return parts;
+    }
 
-                // Sections
-                List<Section> sections = sectionRepo.findByLesson_IdOrderByOrderIndexAsc(lesson.getId());
-                for (Section section : sections) {
-                    if (section.getTitle() != null) {
-                        textBuilder.append(section.getTitle()).append(" ");
-                    }
+    /**
+     * Text of one chapter, one segment for the chapter intro (title, summary) and one per lesson
+     * (sections, rich text, flashcards, quizzes), so chunks and findings can point at a lesson
+     */
+    private List<TextSegment> extractChapterSegments(Chapter chapter) {
+        List<TextSegment> segments = new ArrayList<>();
+        StringBuilder intro = new StringBuilder();
+        if (chapter.getTitle() != null) {
+            intro.append(chapter.getTitle()).append(" ");
+        }
+        if (chapter.getSummary() != null) {
+            intro.append(chapter.getSummary()).append(" ");
+        }
+        addSegment(segments, "Giới thiệu chapter", intro.toString());
+
+        // Lessons
+        List<Lesson> lessons = lessonRepo.findByChapter_IdOrderByOrderIndexAsc(chapter.getId());
+        for (int lessonIndex = 0; lessonIndex < lessons.size(); lessonIndex++) {
+            Lesson lesson = lessons.get(lessonIndex);
+            addSegment(segments, "Lesson " + (lessonIndex + 1)
+                    + (lesson.getTitle() != null ? ": " + lesson.getTitle() : ""), extractLessonText(lesson));
+        }
 
-                    // SectionsContent
-                    List<SectionsContent> contents = contentRepo.findBySection_IdOrderByOrderIndexAsc(section.getId());
-                    for (SectionsContent content : contents) {
-                        if (content.getContentFormat() == ContentFormat.RICH_TEXT && content.getRichText() != null) {
-                            // Extract text from HTML (simple approach)
-                            String richText = content.getRichText();
-                            // Remove HTML tags (simple regex)
-                            String plainText = richText.replaceAll("<[^>]+>", " ");
-                            textBuilder.append(plainText).append(" ");
-                        }
-                        // Note: ASSET files (videos, PDFs) are skipped as per requirement
-                        
-                        // Flashcards (from COURSE_VOCAB sets)
-                        flashcardSetRepo.findBySectionContent_IdAndDeletedFlagFalse(content.getId())
-                                .ifPresent(set -> {
-                                    List<Flashcard> flashcards = flashcardRepo.findBySetAndDeletedFlagFalseOrderByOrderIndexAsc(set);
-                                    for (Flashcard card : flashcards) {
-                                        if (card.getFrontText() != null) {
-                                            textBuilder.append(card.getFrontText()).append(" ");
-                                        }
-                                        if (card.getBackText() != null) {
-                                            textBuilder.append(card.getBackText()).append(" ");
-                                        }
-                                        if (card.getExampleSentence() != null) {
-                                            textBuilder.append(card.getExampleSentence()).append(" ");
-                                        }
-                                    }
-                                });
-                    }
+        return segments;
+    }
 
-                    // Quiz (now belongs to section, not lesson)
-                    quizRepo.findQuizMetadataBySectionId(section.getId()).ifPresent(quizMetadata -> {
-                        // Validate quizMetadata array
-                        if (quizMetadata == null || quizMetadata.length == 0) {
-                            log.warn("Quiz metadata is null or empty for section ID: {}", section.getId());
-                            return;
-                        }
+    /**
+     * Plain text of one lesson: title, section titles, rich text, flashcards and quizzes.
+     * Also used by CourseDuplicateDetectionService so both see the same text.
+     */
+    public String extractLessonText(Lesson lesson) {
+        StringBuilder textBuilder = new StringBuilder();
+        if (lesson.getTitle() != null) {
+            textBuilder.append(lesson.getTitle()).append(" ");
+        }
 
-                        // Handle nested array case (PostgreSQL)
-                        Object[] actualQuizMetadata = quizMetadata;
-                        if (quizMetadata.length == 1 && quizMetadata[0] instanceof Object[]) {
-                            actualQuizMetadata = (Object[]) quizMetadata[0];
-                        }
+        // Sections
+        List<Section> sections = sectionRepo.findByLesson_IdOrderByOrderIndexAsc(lesson.getId());
+        for (Section section : sections) {
+            if (section.getTitle() != null) {
+                textBuilder.append(section.getTitle()).append(" ");
+            }
 
-                        if (actualQuizMetadata.length > 2 && actualQuizMetadata[2] != null) {
-                            textBuilder.append(actualQuizMetadata[2].toString()).append(" "); // title
-                        }
-                        if (actualQuizMetadata.length > 3 && actualQuizMetadata[3] != null) {
-                            textBuilder.append(actualQuizMetadata[3].toString()).append(" "); // description
-                        }
+            // SectionsContent
+            List<SectionsContent> contents = contentRepo.findBySection_IdOrderByOrderIndexAsc(section.getId());
+            for (SectionsContent content : contents) {
+                if (content.getContentFormat() == ContentFormat.RICH_TEXT && content.getRichText() != null) {
+                    // Extract text from HTML (simple approach)
+                    String richText = content.getRichText();
+                    // Remove HTML tags (simple regex)
+                    String plainText = richText.replaceAll("<[^>]+>", " ");
+                    textBuilder.append(plainText).append(" ");
+                }
+                // Note: ASSET files (videos, PDFs) are skipped as per requirement
+                
+                // Flashcards (from COURSE_VOCAB sets)
+                flashcardSetRepo.findBySectionContent_IdAndDeletedFlagFalse(content.getId())
+                        .ifPresent(set -> {
+                            List<Flashcard> flashcards = flashcardRepo.findBySetAndDeletedFlagFalseOrderByOrderIndexAsc(set);
+                            for (Flashcard card : flashcards) {
+                                if (card.getFrontText() != null) {
+                                    textBuilder.append(card.getFrontText()).append(" ");
+                                }
+                                if (card.getBackText() != null) {
+                                    textBuilder.append(card.getBackText()).append(" ");
+                                }
+                                if (card.getExampleSentence() != null) {
+                                    textBuilder.append(card.getExampleSentence()).append(" ");
+                                }
+                            }
+                        });
+            }
 
-                        // Validate quizId exists
-                        if (actualQuizMetadata.length > 0 && actualQuizMetadata[0] != null) {
-                            try {
-                                Long quizId = ((Number) actualQuizMetadata[0]).longValue();
-                                
-                                // Questions
-                                List<Object[]> questions = questionRepo.findQuestionMetadataByQuizId(quizId);
-                                for (Object[] questionMeta : questions) {
-                                    // Validate questionMeta array
-                                    if (questionMeta == null || questionMeta.length == 0) {
-                                        log.warn("Question metadata is null or empty for quiz ID: {}", quizId);
-                                        continue;
-                                    }
+            // Quiz (now belongs to section, not lesson)
+            quizRepo.findQuizMetadataBySectionId(section.getId()).ifPresent(quizMetadata -> {
+                // Validate quizMetadata array
+                if (quizMetadata == null || quizMetadata.length == 0) {
+                    log.warn("Quiz metadata is null or empty for section ID: {}", section.getId());
+                    return;
+                }
 
-                                    // Handle nested array case (PostgreSQL)
-                                    Object[] actualQuestionMeta = questionMeta;
-                                    if (questionMeta.length == 1 && questionMeta[0] instanceof Object[]) {
-                                        actualQuestionMeta = (Object[]) questionMeta[0];
-                                    }
+                // Handle nested array case (PostgreSQL)
+                Object[] actualQuizMetadata = quizMetadata;
+                if (quizMetadata.length == 1 && quizMetadata[0] instanceof Object[]) {
+                    actualQuizMetadata = (Object[]) quizMetadata[0];
+                }
 
-                                    if (actualQuestionMeta.length > 2 && actualQuestionMeta[2] != null) {
-                                        textBuilder.append(actualQuestionMeta[2].toString()).append(" "); // content
-                                    }
-                                    if (actualQuestionMeta.length > 4 && actualQuestionMeta[4] != null) {
-                                        textBuilder.append(actualQuestionMeta[4].toString()).append(" "); // explanation
-                                    }
+                if (actualQuizMetadata.length > 2 && actualQuizMetadata[2] != null) {
+                    textBuilder.append(actualQuizMetadata[2].toString()).append(" "); // title
+                }
+                if (actualQuizMetadata.length > 3 && actualQuizMetadata[3] != null) {
+                    textBuilder.append(actualQuizMetadata[3].toString()).append(" "); // description
+                }
+
+                // Validate quizId exists
+                if (actualQuizMetadata.length > 0 && actualQuizMetadata[0] != null) {
+                    try {
+                        Long quizId = ((Number) actualQuizMetadata[0]).longValue();
+                        
+                        // Questions
+                        List<Object[]> questions = questionRepo.findQuestionMetadataByQuizId(quizId);
+                        for (Object[] questionMeta : questions) {
+                            // Validate questionMeta array
+                            if (questionMeta == null || questionMeta.length == 0) {
+                                log.warn("Question metadata is null or empty for quiz ID: {}", quizId);
+                                continue;
+                            }
+
+                            // Handle nested array case (PostgreSQL)
+                            Object[] actualQuestionMeta = questionMeta;
+                            if (questionMeta.length == 1 && questionMeta[0] instanceof Object[]) {
+                                actualQuestionMeta = (Object[]) questionMeta[0];
+                            }
 
-                                    // Validate questionId exists
-                                    if (actualQuestionMeta.length > 0 && actualQuestionMeta[0] != null) {
-                                        try {
-                                            Long questionId = ((Number) actualQuestionMeta[0]).longValue();
-                                            
-                                            // Options
-                                            List<Object[]> options = optionRepo.findOptionMetadataByQuestionId(questionId);
-                                            for (Object[] optionMeta : options) {
-                                                // Validate optionMeta array
-                                                if (optionMeta == null || optionMeta.length == 0) {
-                                                    continue;
-                                                }
-
-                                                // Handle nested array case (PostgreSQL)
-                                                Object[] actualOptionMeta = optionMeta;
-                                                if (optionMeta.length == 1 && optionMeta[0] instanceof Object[]) {
-                                                    actualOptionMeta = (Object[]) optionMeta[0];
-                                                }
-
-                                                if (actualOptionMeta.length > 2 && actualOptionMeta[2] != null) {
-                                                    textBuilder.append(actualOptionMeta[2].toString()).append(" "); // content
-                                                }
-                                            }
-                                        } catch (Exception e) {
-                                            log.warn("Error extracting question ID from metadata: {}", e.getMessage());
+                            if (actualQuestionMeta.length > 2 && actualQuestionMeta[2] != null) {
+                                textBuilder.append(actualQuestionMeta[2].toString()).append(" "); // content
+                            }
+                            if (actualQuestionMeta.length > 4 && actualQuestionMeta[4] != null) {
+                                textBuilder.append(actualQuestionMeta[4].toString()).append(" "); // explanation
+                            }
+
+                            // Validate questionId exists
+                            if (actualQuestionMeta.length > 0 && actualQuestionMeta[0] != null) {
+                                try {
+                                    Long questionId = ((Number) actualQuestionMeta[0]).longValue();
+                                    
+                                    // Options
+                                    List<Object[]> options = optionRepo.findOptionMetadataByQuestionId(questionId);
+                                    for (Object[] optionMeta : options) {
+                                        // Validate optionMeta array
+                                        if (optionMeta == null || optionMeta.length == 0) {
+                                            continue;
+                                        }
+
+                                        // Handle nested array case (PostgreSQL)
+                                        Object[] actualOptionMeta = optionMeta;
+                                        if (optionMeta.length == 1 && optionMeta[0] instanceof Object[]) {
+                                            actualOptionMeta = (Object[]) optionMeta[0];
+                                        }
+
+                                        if (actualOptionMeta.length > 2 && actualOptionMeta[2] != null) {
+                                            textBuilder.append(actualOptionMeta[2].toString()).append(" "); // content
                                         }
                                     }
+                                } catch (Exception e) {
+                                    log.warn("Error extracting question ID from metadata: {}", e.getMessage());
                                 }
-                            } catch (Exception e) {
-                                log.warn("Error extracting quiz ID from metadata: {}", e.getMessage());
                             }
                         }
-                    });
+                    } catch (Exception e) {
+                        log.warn("Error extracting quiz ID from metadata: {}", e.getMessage());
+                    }
                 }
-            }
+            });
         }
-
-        return textBuilder.toString().trim();
+        return textBuilder.toString();
     }
 
     /**
      * Calculate safety score from sentiment
      * Higher score = safer content
      */
-    private double calculateSafetyScore(Sentiment sentiment) {
+    private double calculateSafetyScore(double score, double magnitude) {
         // Use magnitude as indicator of emotional content
         // Higher magnitude = more emotional = potentially less safe
         // Score ranges from 0.0 to 1.0
-        double magnitude = sentiment.getMagnitude();
-        double score = sentiment.getScore();
-        
         // Base score: 0.5 + (sentiment score normalized to 0-0.5)
         // Higher sentiment = more positive = safer
         double baseScore = 0.5 + (score + 1.0) * 0.25; // Map [-1, 1] to [0.5, 1.0]
@@ -486,7 +992,7 @@ public class CourseModerationAIService {
     /**
      * Generate recommendations based on safety check
      */
-    private List<String> generateRecommendations(double safetyScore, Sentiment sentiment) {
+    private List<String> generateRecommendations(double safetyScore) {
         List<String> recommendations = new ArrayList<>();
         
         if (safetyScore >= 0.8) {
@@ -528,17 +1034,18 @@ public class CourseModerationAIService {
     /**
      * Check level match with Gemini
      */
-    private CourseAICheckResponse.LevelMatch checkLevelMatch(Long courseId, Object[] metadata, String allText) {
+    private CompletableFuture<CourseAICheckResponse.LevelMatch> checkLevelMatchAsync(
+            Long courseId, Object[] metadata, String allText) {
         String declaredLevel = extractDeclaredLevel(metadata);
         
         if (!enableGemini || geminiService == null) {
-            return CourseAICheckResponse.LevelMatch.builder()
+            return CompletableFuture.completedFuture(CourseAICheckResponse.LevelMatch.builder()
                     .declaredLevel(declaredLevel)
                     .detectedLevel(null)
                     .match(null)
                     .confidence(null)
                     .summary("Level matching requires Gemini (not enabled)")
-                    .build();
+                    .build());
         }
 
         try {
@@ -556,26 +1063,29 @@ public class CourseModerationAIService {
                 "}\n\n" +
                 "Chỉ trả về JSON, không có text khác.",
                 declaredLevel,
-                allText.length() > 5000 ? allText.substring(0, 5000) + "..." : allText
+                allText.length() > COURSE_OVERVIEW_MAX_CHARS ? allText.substring(0, COURSE_OVERVIEW_MAX_CHARS) + "..." : allText
             );
 
             // Call Gemini and parse JSON response
-            com.fasterxml.jackson.databind.JsonNode json = geminiService.generateContentAsJson(prompt);
-            if (json != null) {
-                return CourseAICheckResponse.LevelMatch.builder()
-                        .declaredLevel(declaredLevel)
-                        .detectedLevel(json.has("detectedLevel") ? json.get("detectedLevel").asText() : null)
-                        .match(json.has("match") ? json.get("match").asBoolean() : null)
-                        .confidence(json.has("confidence") ? json.get("confidence").asDouble() : null)
-                        .summary(json.has("summary") ? json.get("summary").asText() : "Đã phân tích level")
-                        .build();
-            }
-
-            return createDefaultLevelMatch(declaredLevel, "Không thể parse phản hồi từ AI");
+            return bounded(geminiService.generateContentAsJsonAsync(prompt, AIRequestPriority.BACKGROUND))
+                    .thenApply(json -> json != null
+                            ? CourseAICheckResponse.LevelMatch.builder()
+                                    .declaredLevel(declaredLevel)
+                                    .detectedLevel(json.has("detectedLevel") ? json.get("detectedLevel").asText() : null)
+                                    .match(json.has("match") ? json.get("match").asBoolean() : null)
+                                    .confidence(json.has("confidence") ? json.get("confidence").asDouble() : null)
+                                    .summary(json.has("summary") ? json.get("summary").asText() : "Đã phân tích level")
+                                    .build()
+                            : createDefaultLevelMatch(declaredLevel, "Không thể parse phản hồi từ AI"))
+                    .exceptionally(e -> {
+                        log.warn("Level match check failed for course {}: {}", courseId, e.getMessage());
+                        return createDefaultLevelMatch(declaredLevel, "Lỗi khi kiểm tra level: " + e.getMessage());
+                    });
 
         } catch (Exception e) {
             log.warn("Level match check failed: {}", e.getMessage());
-            return createDefaultLevelMatch(declaredLevel, "Lỗi khi kiểm tra level: " + e.getMessage());
+            return CompletableFuture.completedFuture(
+                    createDefaultLevelMatch(declaredLevel, "Lỗi khi kiểm tra level: " + e.getMessage()));
         }
     }
 
@@ -592,11 +1102,11 @@ public class CourseModerationAIService {
     /**
      * Check pedagogical quality with Gemini
      */
-    private CourseAICheckResponse.PedagogicalQuality checkPedagogicalQuality(
+    private CompletableFuture<CourseAICheckResponse.PedagogicalQuality> checkPedagogicalQualityAsync(
             Long courseId, String courseTitle, String allText, String level) {
         
         if (!enableGemini || geminiService == null) {
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
 
         try {
@@ -625,58 +1135,66 @@ public class CourseModerationAIService {
                 allText.length() > 8000 ? allText.substring(0, 8000) + "..." : allText
             );
 
-            com.fasterxml.jackson.databind.JsonNode json = geminiService.generateContentAsJson(prompt);
-            if (json != null) {
-                CourseAICheckResponse.PedagogicalQuality.PedagogicalQualityBuilder builder = 
-                        CourseAICheckResponse.PedagogicalQuality.builder();
+            return bounded(geminiService.generateContentAsJsonAsync(prompt, AIRequestPriority.BACKGROUND))
+                    .thenApply(this::parsePedagogicalQuality)
+                    .exceptionally(e -> {
+                        log.warn("Pedagogical quality check failed for course {}: {}", courseId, e.getMessage());
+                        return null;
+                    });
+        } catch (Exception e) {
+            log.warn("Pedagogical quality check failed: {}", e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
 
-                if (json.has("score")) {
-                    builder.score(json.get("score").asDouble());
-                }
-                if (json.has("strengths")) {
-                    List<String> strengths = new ArrayList<>();
-                    json.get("strengths").forEach(node -> strengths.add(node.asText()));
-                    builder.strengths(strengths);
-                }
-                if (json.has("weaknesses")) {
-                    List<String> weaknesses = new ArrayList<>();
-                    json.get("weaknesses").forEach(node -> weaknesses.add(node.asText()));
-                    builder.weaknesses(weaknesses);
-                }
-                if (json.has("summary")) {
-                    builder.summary(json.get("summary").asText());
-                }
-                if (json.has("recommendations")) {
-                    List<String> recommendations = new ArrayList<>();
-                    json.get("recommendations").forEach(node -> recommendations.add(node.asText()));
-                    builder.recommendations(recommendations);
-                }
+    private CourseAICheckResponse.PedagogicalQuality parsePedagogicalQuality(com.fasterxml.jackson.databind.JsonNode json) {
+        if (json != null) {
+            CourseAICheckResponse.PedagogicalQuality.PedagogicalQualityBuilder builder = 
+                    CourseAICheckResponse.PedagogicalQuality.builder();
 
-                return builder.build();
+            if (json.has("score")) {
+                builder.score(json.get("score").asDouble());
+            }
+            if (json.has("strengths")) {
+                List<String> strengths = new ArrayList<>();
+                json.get("strengths").forEach(node -> strengths.add(node.asText()));
+                builder.strengths(strengths);
+            }
+            if (json.has("weaknesses")) {
+                List<String> weaknesses = new ArrayList<>();
+                json.get("weaknesses").forEach(node -> weaknesses.add(node.asText()));
+                builder.weaknesses(weaknesses);
+            }
+            if (json.has("summary")) {
+                builder.summary(json.get("summary").asText());
+            }
+            if (json.has("recommendations")) {
+                List<String> recommendations = new ArrayList<>();
+                json.get("recommendations").forEach(node -> recommendations.add(node.asText()));
+                builder.recommendations(recommendations);
             }
 
-            return null;
-        } catch (Exception e) {
-            log.warn("Pedagogical quality check failed: {}", e.getMessage());
-            return null;
+            return builder.build();
         }
+
+        return null;
     }
 
     /**
-     * Check language accuracy with Gemini
+     * Check language accuracy of one chunk with Gemini (queued on the rate governor, never blocks a thread)
      */
-    private CourseAICheckResponse.LanguageAccuracy checkLanguageAccuracy(
-            Long courseId, String allText, String level) {
+    private CompletableFuture<CourseAICheckResponse.LanguageAccuracy> checkLanguageAccuracyAsync(
+            Long courseId, String partLabel, String chunkText, String level) {
         
         if (!enableGemini || geminiService == null) {
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
 
         try {
             String prompt = String.format(
                 "Bạn là chuyên gia kiểm tra độ chính xác ngôn ngữ tiếng Nhật và tiếng Việt.\n\n" +
-                "Kiểm tra khóa học tiếng Nhật level %s:\n\n" +
-                "Nội dung:\n%s\n\n" +
+                "Kiểm tra phần \"%s\" của khóa học tiếng Nhật level %s:\n\n" +
+                "Nội dung (mỗi mục bắt đầu bằng [tên mục]):\n%s\n\n" +
                 "Kiểm tra:\n" +
                 "1. Chính tả tiếng Nhật có đúng không?\n" +
                 "2. Ngữ pháp tiếng Nhật có đúng không?\n" +
@@ -695,88 +1213,97 @@ public class CourseModerationAIService {
                 "    {\"word\": \"từ vựng\", \"declaredLevel\": \"N5\", \"actualLevel\": \"N3\", \"location\": \"Lesson 5\", \"severity\": \"HIGH|MEDIUM|LOW\"}\n" +
                 "  ],\n" +
                 "  \"summary\": \"Tóm tắt\"\n" +
-                "}\n\n" +
+                "}\n" +
+                "\"location\" là tên mục (trong [ ]) chứa lỗi.\n\n" +
                 "Chỉ trả về JSON, không có text khác.",
+                partLabel,
                 level,
-                allText.length() > 8000 ? allText.substring(0, 8000) + "..." : allText
+                chunkText.length() > 8000 ? chunkText.substring(0, 8000) + "..." : chunkText
             );
 
-            com.fasterxml.jackson.databind.JsonNode json = geminiService.generateContentAsJson(prompt);
-            if (json != null) {
-                CourseAICheckResponse.LanguageAccuracy.LanguageAccuracyBuilder builder = 
-                        CourseAICheckResponse.LanguageAccuracy.builder();
-
-                if (json.has("score")) {
-                    builder.score(json.get("score").asDouble());
-                }
-                if (json.has("summary")) {
-                    builder.summary(json.get("summary").asText());
-                }
-
-                // Parse Japanese errors
-                if (json.has("japaneseErrors")) {
-                    List<CourseAICheckResponse.LanguageError> errors = new ArrayList<>();
-                    json.get("japaneseErrors").forEach(node -> {
-                        CourseAICheckResponse.LanguageError error = CourseAICheckResponse.LanguageError.builder()
-                                .text(node.has("text") ? node.get("text").asText() : null)
-                                .error(node.has("error") ? node.get("error").asText() : null)
-                                .suggestion(node.has("suggestion") ? node.get("suggestion").asText() : null)
-                                .location(node.has("location") ? node.get("location").asText() : null)
-                                .build();
-                        errors.add(error);
+            return bounded(geminiService.generateContentAsJsonAsync(prompt, AIRequestPriority.BACKGROUND))
+                    .thenApply(this::parseLanguageAccuracy)
+                    .exceptionally(e -> {
+                        log.warn("Language accuracy check failed for {} of course {}: {}", partLabel, courseId, e.getMessage());
+                        return null;
                     });
-                    builder.japaneseErrors(errors);
-                }
+        } catch (Exception e) {
+            log.warn("Language accuracy check failed: {}", e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
 
-                // Parse Vietnamese errors
-                if (json.has("vietnameseErrors")) {
-                    List<CourseAICheckResponse.LanguageError> errors = new ArrayList<>();
-                    json.get("vietnameseErrors").forEach(node -> {
-                        CourseAICheckResponse.LanguageError error = CourseAICheckResponse.LanguageError.builder()
-                                .text(node.has("text") ? node.get("text").asText() : null)
-                                .error(node.has("error") ? node.get("error").asText() : null)
-                                .suggestion(node.has("suggestion") ? node.get("suggestion").asText() : null)
-                                .location(node.has("location") ? node.get("location").asText() : null)
-                                .build();
-                        errors.add(error);
-                    });
-                    builder.vietnameseErrors(errors);
-                }
+    private CourseAICheckResponse.LanguageAccuracy parseLanguageAccuracy(com.fasterxml.jackson.databind.JsonNode json) {
+        if (json == null) {
+            return null;
+        }
+        CourseAICheckResponse.LanguageAccuracy.LanguageAccuracyBuilder builder = 
+                CourseAICheckResponse.LanguageAccuracy.builder();
 
-                // Parse level mismatches
-                if (json.has("levelMismatches")) {
-                    List<CourseAICheckResponse.LevelMismatch> mismatches = new ArrayList<>();
-                    json.get("levelMismatches").forEach(node -> {
-                        CourseAICheckResponse.LevelMismatch mismatch = CourseAICheckResponse.LevelMismatch.builder()
-                                .word(node.has("word") ? node.get("word").asText() : null)
-                                .declaredLevel(node.has("declaredLevel") ? node.get("declaredLevel").asText() : null)
-                                .actualLevel(node.has("actualLevel") ? node.get("actualLevel").asText() : null)
-                                .location(node.has("location") ? node.get("location").asText() : null)
-                                .severity(node.has("severity") ? node.get("severity").asText() : "MEDIUM")
-                                .build();
-                        mismatches.add(mismatch);
-                    });
-                    builder.levelMismatches(mismatches);
-                }
+        if (json.has("score")) {
+            builder.score(json.get("score").asDouble());
+        }
+        if (json.has("summary")) {
+            builder.summary(json.get("summary").asText());
+        }
 
-                return builder.build();
-            }
+        // Parse Japanese errors
+        if (json.has("japaneseErrors")) {
+            List<CourseAICheckResponse.LanguageError> errors = new ArrayList<>();
+            json.get("japaneseErrors").forEach(node -> {
+                CourseAICheckResponse.LanguageError error = CourseAICheckResponse.LanguageError.builder()
+                        .text(node.has("text") ? node.get("text").asText() : null)
+                        .error(node.has("error") ? node.get("error").asText() : null)
+                        .suggestion(node.has("suggestion") ? node.get("suggestion").asText() : null)
+                        .location(node.has("location") ? node.get("location").asText() : null)
+                        .build();
+                errors.add(error);
+            });
+            builder.japaneseErrors(errors);
+        }
 
-            return null;
-        } catch (Exception e) {
-            log.warn("Language accuracy check failed: {}", e.getMessage());
-            return null;
+        // Parse Vietnamese errors
+        if (json.has("vietnameseErrors")) {
+            List<CourseAICheckResponse.LanguageError> errors = new ArrayList<>();
+            json.get("vietnameseErrors").forEach(node -> {
+                CourseAICheckResponse.LanguageError error = CourseAICheckResponse.LanguageError.builder()
+                        .text(node.has("text") ? node.get("text").asText() : null)
+                        .error(node.has("error") ? node.get("error").asText() : null)
+                        .suggestion(node.has("suggestion") ? node.get("suggestion").asText() : null)
+                        .location(node.has("location") ? node.get("location").asText() : null)
+                        .build();
+                errors.add(error);
+            });
+            builder.vietnameseErrors(errors);
+        }
+
+        // Parse level mismatches
+        if (json.has("levelMismatches")) {
+            List<CourseAICheckResponse.LevelMismatch> mismatches = new ArrayList<>();
+            json.get("levelMismatches").forEach(node -> {
+                CourseAICheckResponse.LevelMismatch mismatch = CourseAICheckResponse.LevelMismatch.builder()
+                        .word(node.has("word") ? node.get("word").asText() : null)
+                        .declaredLevel(node.has("declaredLevel") ? node.get("declaredLevel").asText() : null)
+                        .actualLevel(node.has("actualLevel") ? node.get("actualLevel").asText() : null)
+                        .location(node.has("location") ? node.get("location").asText() : null)
+                        .severity(node.has("severity") ? node.get("severity").asText() : "MEDIUM")
+                        .build();
+                mismatches.add(mismatch);
+            });
+            builder.levelMismatches(mismatches);
         }
+
+        return builder.build();
     }
 
     /**
      * Check grammar progression with Gemini
      */
-    private CourseAICheckResponse.GrammarProgression checkGrammarProgression(
+    private CompletableFuture<CourseAICheckResponse.GrammarProgression> checkGrammarProgressionAsync(
             Long courseId, String allText, String level) {
         
         if (!enableGemini || geminiService == null) {
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
 
         try {
@@ -812,52 +1339,60 @@ public class CourseModerationAIService {
                 allText.length() > 8000 ? allText.substring(0, 8000) + "..." : allText
             );
 
-            com.fasterxml.jackson.databind.JsonNode json = geminiService.generateContentAsJson(prompt);
-            if (json != null) {
-                CourseAICheckResponse.GrammarProgression.GrammarProgressionBuilder builder = 
-                        CourseAICheckResponse.GrammarProgression.builder();
+            return bounded(geminiService.generateContentAsJsonAsync(prompt, AIRequestPriority.BACKGROUND))
+                    .thenApply(this::parseGrammarProgression)
+                    .exceptionally(e -> {
+                        log.warn("Grammar progression check failed for course {}: {}", courseId, e.getMessage());
+                        return null;
+                    });
+        } catch (Exception e) {
+            log.warn("Grammar progression check failed: {}", e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
 
-                if (json.has("isLogical")) {
-                    builder.isLogical(json.get("isLogical").asBoolean());
-                }
-                if (json.has("score")) {
-                    builder.score(json.get("score").asDouble());
-                }
-                if (json.has("summary")) {
-                    builder.summary(json.get("summary").asText());
-                }
-                if (json.has("recommendations")) {
-                    List<String> recommendations = new ArrayList<>();
-                    json.get("recommendations").forEach(node -> recommendations.add(node.asText()));
-                    builder.recommendations(recommendations);
-                }
+    private CourseAICheckResponse.GrammarProgression parseGrammarProgression(com.fasterxml.jackson.databind.JsonNode json) {
+        if (json != null) {
+            CourseAICheckResponse.GrammarProgression.GrammarProgressionBuilder builder = 
+                    CourseAICheckResponse.GrammarProgression.builder();
 
-                // Parse issues
-                if (json.has("issues")) {
-                    List<CourseAICheckResponse.ProgressionIssue> issues = new ArrayList<>();
-                    json.get("issues").forEach(node -> {
-                        CourseAICheckResponse.ProgressionIssue issue = CourseAICheckResponse.ProgressionIssue.builder()
-                                .grammar(node.has("grammar") ? node.get("grammar").asText() : null)
-                                .currentLocation(node.has("currentLocation") ? node.get("currentLocation").asText() : null)
-                                .requiredPrerequisite(node.has("requiredPrerequisite") ? node.get("requiredPrerequisite").asText() : null)
-                                .prerequisiteLocation(node.has("prerequisiteLocation") ? node.get("prerequisiteLocation").asText() : null)
-                                .severity(node.has("severity") ? node.get("severity").asText() : "MEDIUM")
-                                .description(node.has("description") ? node.get("description").asText() : null)
-                                .potentialConfusion(node.has("potentialConfusion") ? node.get("potentialConfusion").asText() : null)
-                                .build();
-                        issues.add(issue);
-                    });
-                    builder.issues(issues);
-                }
+            if (json.has("isLogical")) {
+                builder.isLogical(json.get("isLogical").asBoolean());
+            }
+            if (json.has("score")) {
+                builder.score(json.get("score").asDouble());
+            }
+            if (json.has("summary")) {
+                builder.summary(json.get("summary").asText());
+            }
+            if (json.has("recommendations")) {
+                List<String> recommendations = new ArrayList<>();
+                json.get("recommendations").forEach(node -> recommendations.add(node.asText()));
+                builder.recommendations(recommendations);
+            }
 
-                return builder.build();
+            // Parse issues
+            if (json.has("issues")) {
+                List<CourseAICheckResponse.ProgressionIssue> issues = new ArrayList<>();
+                json.get("issues").forEach(node -> {
+                    CourseAICheckResponse.ProgressionIssue issue = CourseAICheckResponse.ProgressionIssue.builder()
+                            .grammar(node.has("grammar") ? node.get("grammar").asText() : null)
+                            .currentLocation(node.has("currentLocation") ? node.get("currentLocation").asText() : null)
+                            .requiredPrerequisite(node.has("requiredPrerequisite") ? node.get("requiredPrerequisite").asText() : null)
+                            .prerequisiteLocation(node.has("prerequisiteLocation") ? node.get("prerequisiteLocation").asText() : null)
+                            .severity(node.has("severity") ? node.get("severity").asText() : "MEDIUM")
+                            .description(node.has("description") ? node.get("description").asText() : null)
+                            .potentialConfusion(node.has("potentialConfusion") ? node.get("potentialConfusion").asText() : null)
+                            .build();
+                    issues.add(issue);
+                });
+                builder.issues(issues);
             }
 
-            return null;
-        } catch (Exception e) {
-            log.warn("Grammar progression check failed: {}", e.getMessage());
-            return null;
+            return builder.build();
         }
+
+        return null;
     }
 }
 
@@ -48,6 +48,7 @@ public class CourseService {
     private final com.hokori.web.service.CourseFlagService courseFlagService;
     private final ObjectMapper objectMapper;
     private final com.hokori.web.repository.CourseRejectionReasonDetailRepository rejectionReasonDetailRepo;
+    private final CourseDuplicateDetectionService duplicateDetectionService;
 
     // =========================
     // COURSE
@@ -324,6 +325,9 @@ public class CourseService {
         
         // Tạo notification cho teacher
         notificationService.notifyCourseSubmitted(c.getUserId(), c.getId(), c.getTitle());
+
+        // MinHash signature cho phát hiện trùng lặp (chạy nền sau commit)
+        duplicateDetectionService.indexCourseAfterCommit(c.getId());
         
         return toCourseResLite(c);
     }
@@ -397,6 +401,9 @@ public class CourseService {
         // Tạo notification cho teacher
         notificationService.notifyCourseSubmitted(c.getUserId(), c.getId(), 
             c.getTitle() + " (update submitted)");
+
+        // MinHash signature cho phát hiện trùng lặp (chạy nền sau commit)
+        duplicateDetectionService.indexCourseAfterCommit(c.getId());
         
         return toCourseResLite(c);
     }
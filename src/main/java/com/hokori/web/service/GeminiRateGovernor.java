@@ -0,0 +1,308 @@
+package com.hokori.web.service;
+
+import com.hokori.web.Enum.AIRequestPriority;
+import com.hokori.web.exception.GeminiApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bộ điều phối tốc độ gọi Gemini cho toàn bộ process (token bucket).
+ *
+ * - Mỗi lần gửi HTTP tới Gemini (kể cả retry) phải lấy 1 token
+ * - Khi hết token, request được xếp hàng theo priority (INTERACTIVE > STANDARD > BACKGROUND),
+ *   trong cùng priority thì xoay vòng giữa các user để 1 user không chiếm hết quota
+ * - Hàng đợi có giới hạn: khi đầy hoặc thời gian chờ ước tính vượt ngưỡng thì fail ngay
+ *   với GeminiApiException(429) kèm thời gian chờ ước tính
+ * - Khi Gemini trả 429, gọi {@link #pause(Duration)} để dừng phát token đến hết Retry-After
+ * - Ticket bị caller huỷ / timeout thì rời hàng đợi ngay (không chiếm chỗ tới lượt dispatch)
+ * - Ticket được cấp hoàn thành trên pool riêng: continuation của caller không chạy trên thread dispatcher
+ *
+ * Metrics: gemini.governor.queue (gauge), gemini.governor.rejected{priority}
+ */
+@Slf4j
+@Service
+public class GeminiRateGovernor {
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+
+    private final Object lock = new Object();
+    private final Map<AIRequestPriority, LinkedHashMap<String, ArrayDeque<CompletableFuture<Void>>>> queues =
+            new EnumMap<>(AIRequestPriority.class);
+    private final Map<AIRequestPriority, Counter> rejectedCounters = new EnumMap<>(AIRequestPriority.class);
+    private final ScheduledExecutorService dispatcher;
+    private final ExecutorService grantExecutor;
+
+    // Guarded by lock
+    private double tokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+    private int queued;
+    private ScheduledFuture<?> pendingDispatch;
+
+    public GeminiRateGovernor(@Value("${gemini.governor.requests-per-minute:15}") double requestsPerMinute,
+                              @Value("${gemini.governor.burst:3}") int burst,
+                              @Value("${gemini.governor.max-queue:60}") int maxQueue,
+                              @Value("${gemini.governor.max-wait-seconds:120}") long maxWaitSeconds,
+                              MeterRegistry meterRegistry) {
+        this.tokensPerNano = requestsPerMinute / TimeUnit.MINUTES.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = TimeUnit.SECONDS.toNanos(maxWaitSeconds);
+        this.tokens = this.burst;
+        this.lastRefillNanos = System.nanoTime();
+        this.pausedUntilNanos = lastRefillNanos;
+
+        for (AIRequestPriority priority : AIRequestPriority.values()) {
+            queues.put(priority, new LinkedHashMap<>());
+            rejectedCounters.put(priority, Counter.builder("gemini.governor.rejected")
+                    .tag("priority", priority.name())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("gemini.governor.queue", this, g -> g.queueSize()).register(meterRegistry);
+
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gemini-governor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Số ticket được cấp cùng lúc bị chặn bởi burst, nên pool không phình to
+        this.grantExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "gemini-governor-grant");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+        grantExecutor.shutdownNow();
+    }
+
+    /**
+     * Xin 1 lượt gọi Gemini.
+     *
+     * @param userKey  khoá để chia đều giữa các user (username, hoặc "anonymous"/"system")
+     * @param priority lớp ưu tiên
+     * @return future hoàn thành khi được cấp token; fail ngay với GeminiApiException(429) nếu hàng đợi đầy.
+     *         Caller có thể cancel future để rời hàng đợi.
+     */
+    public CompletableFuture<Void> acquire(String userKey, AIRequestPriority priority) {
+        synchronized (lock) {
+            long now = System.nanoTime();
+            refill(now);
+
+            // Fast path: không ai xếp hàng và còn token
+            if (queued == 0 && now >= pausedUntilNanos && tokens >= 1) {
+                tokens -= 1;
+                return CompletableFuture.completedFuture(null);
+            }
+
+            long estimatedWait = estimateWaitNanos(now, positionFor(priority) + 1);
+            if (queued >= maxQueue || estimatedWait > maxWaitNanos) {
+                rejectedCounters.get(priority).increment();
+                Duration wait = Duration.ofNanos(estimatedWait);
+                log.warn("Gemini governor rejected {} request for {}: queued={}, estimatedWait={}s",
+                        priority, userKey, queued, wait.toSeconds());
+                return CompletableFuture.failedFuture(new GeminiApiException(
+                        "Hệ thống AI đang quá tải, vui lòng thử lại sau khoảng " + Math.max(1, wait.toSeconds()) + " giây",
+                        429, wait));
+            }
+
+            CompletableFuture<Void> ticket = new CompletableFuture<>();
+            queues.get(priority).computeIfAbsent(userKey, k -> new ArrayDeque<>()).addLast(ticket);
+            queued++;
+            scheduleDispatch(now);
+            // Caller huỷ / orTimeout: rời hàng đợi ngay để không chiếm chỗ của request khác
+            ticket.whenComplete((ignored, error) -> {
+                if (error != null) {
+                    leaveQueue(priority, userKey, ticket);
+                }
+            });
+            return ticket;
+        }
+    }
+
+    /**
+     * Gemini báo 429: ngừng cấp token cho tới khi hết retryAfter và bỏ burst hiện có.
+     */
+    public void pause(Duration retryAfter) {
+        if (retryAfter == null || retryAfter.isNegative() || retryAfter.isZero()) {
+            return;
+        }
+        synchronized (lock) {
+            long now = System.nanoTime();
+            pausedUntilNanos = Math.max(pausedUntilNanos, now + retryAfter.toNanos());
+            tokens = 0;
+            lastRefillNanos = now;
+            if (queued > 0) {
+                if (pendingDispatch != null) {
+                    pendingDispatch.cancel(false);
+                    pendingDispatch = null;
+                }
+                scheduleDispatch(now);
+            }
+        }
+    }
+
+    /**
+     * Thời gian chờ ước tính nếu gửi thêm 1 request với priority này ngay bây giờ
+     */
+    public Duration estimateWait(AIRequestPriority priority) {
+        synchronized (lock) {
+            long now = System.nanoTime();
+            refill(now);
+            return Duration.ofNanos(estimateWaitNanos(now, positionFor(priority) + 1));
+        }
+    }
+
+    public int queueSize() {
+        synchronized (lock) {
+            return queued;
+        }
+    }
+
+    private void dispatch() {
+        List<CompletableFuture<Void>> granted = new ArrayList<>();
+        synchronized (lock) {
+            pendingDispatch = null;
+            long now = System.nanoTime();
+            refill(now);
+            while (queued > 0 && now >= pausedUntilNanos && tokens >= 1) {
+                CompletableFuture<Void> ticket = pollNext();
+                if (ticket.isDone()) {
+                    continue; // caller cancelled while waiting
+                }
+                tokens -= 1;
+                granted.add(ticket);
+            }
+            if (queued > 0) {
+                scheduleDispatch(now);
+            }
+        }
+        // Hoàn thành ngoài lock và ngoài thread dispatcher: continuation (gửi HTTP) chạy trên grantExecutor
+        for (CompletableFuture<Void> ticket : granted) {
+            grantExecutor.execute(() -> {
+                if (!ticket.complete(null)) {
+                    refund(); // caller huỷ ngay sau khi được cấp
+                }
+            });
+        }
+    }
+
+    private void leaveQueue(AIRequestPriority priority, String userKey, CompletableFuture<Void> ticket) {
+        synchronized (lock) {
+            LinkedHashMap<String, ArrayDeque<CompletableFuture<Void>>> byUser = queues.get(priority);
+            ArrayDeque<CompletableFuture<Void>> userQueue = byUser.get(userKey);
+            if (userQueue == null || !userQueue.remove(ticket)) {
+                return; // đã được dispatch
+            }
+            queued--;
+            if (userQueue.isEmpty()) {
+                byUser.remove(userKey);
+            }
+        }
+    }
+
+    private void refund() {
+        synchronized (lock) {
+            long now = System.nanoTime();
+            refill(now);
+            tokens = Math.min(burst, tokens + 1);
+            if (queued > 0) {
+                if (pendingDispatch != null) {
+                    pendingDispatch.cancel(false);
+                    pendingDispatch = null;
+                }
+                scheduleDispatch(now);
+            }
+        }
+    }
+
+    /**
+     * Lấy ticket kế tiếp: priority cao nhất còn hàng, xoay vòng user trong priority đó.
+     */
+    private CompletableFuture<Void> pollNext() {
+        for (LinkedHashMap<String, ArrayDeque<CompletableFuture<Void>>> byUser : queues.values()) {
+            Iterator<Map.Entry<String, ArrayDeque<CompletableFuture<Void>>>> it = byUser.entrySet().iterator();
+            if (!it.hasNext()) {
+                continue;
+            }
+            Map.Entry<String, ArrayDeque<CompletableFuture<Void>>> head = it.next();
+            ArrayDeque<CompletableFuture<Void>> userQueue = head.getValue();
+            CompletableFuture<Void> ticket = userQueue.pollFirst();
+            it.remove();
+            if (!userQueue.isEmpty()) {
+                byUser.put(head.getKey(), userQueue); // đưa user xuống cuối vòng
+            }
+            queued--;
+            return ticket;
+        }
+        throw new IllegalStateException("Gemini governor queue count out of sync");
+    }
+
+    private void scheduleDispatch(long now) {
+        if (pendingDispatch != null) {
+            return;
+        }
+        long untilToken = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+        long delay = Math.max(0, pausedUntilNanos - now) + untilToken;
+        pendingDispatch = dispatcher.schedule(this::dispatch, Math.max(0, delay), TimeUnit.NANOSECONDS);
+    }
+
+    private void refill(long now) {
+        // Không tích token trong thời gian pause
+        long from = Math.max(lastRefillNanos, pausedUntilNanos);
+        if (now > from) {
+            tokens = Math.min(burst, tokens + (now - from) * tokensPerNano);
+        }
+        lastRefillNanos = Math.max(lastRefillNanos, now);
+    }
+
+    /**
+     * Số request đang chờ sẽ được phục vụ trước 1 request mới có priority này
+     * (mọi request cùng hoặc cao hơn priority; xấp xỉ vì chưa tính xoay vòng user)
+     */
+    private int positionFor(AIRequestPriority priority) {
+        int ahead = 0;
+        for (Map.Entry<AIRequestPriority, LinkedHashMap<String, ArrayDeque<CompletableFuture<Void>>>> entry : queues.entrySet()) {
+            if (entry.getKey().ordinal() > priority.ordinal()) {
+                break;
+            }
+            for (ArrayDeque<CompletableFuture<Void>> userQueue : entry.getValue().values()) {
+                ahead += userQueue.size();
+            }
+        }
+        return ahead;
+    }
+
+    private long estimateWaitNanos(long now, int slotsNeeded) {
+        long pause = Math.max(0, pausedUntilNanos - now);
+        double missing = slotsNeeded - tokens;
+        long refillWait = missing <= 0 ? 0 : (long) Math.ceil(missing / tokensPerNano);
+        return pause + refillWait;
+    }
+}
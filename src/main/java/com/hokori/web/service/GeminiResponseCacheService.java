@@ -0,0 +1,215 @@
+package com.hokori.web.service;
+
+import com.hokori.web.Enum.GeminiCacheSite;
+import com.hokori.web.repository.AIResponseCacheRepository;
+import com.hokori.web.util.ContentHash;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache 2 tầng cho response Gemini, key theo nội dung (content-addressed).
+ *
+ * - Key = SHA-256(model + generation config + prompt đã chuẩn hoá NFC/whitespace)
+ * - Tầng 1: LRU trong memory (giới hạn số entry); tầng 2: bảng ai_response_cache
+ * - TTL theo call site ({@link GeminiCacheSite}), override bằng gemini.cache.ttl-hours.*
+ * - Các request cùng key đang chạy được gộp lại: chỉ 1 lần gọi Gemini, các caller khác chờ chung
+ * - Response rỗng hoặc lỗi không được cache
+ *
+ * Metrics: gemini.cache.requests{result=memory|db|coalesced|miss}
+ */
+@Slf4j
+@Service
+public class GeminiResponseCacheService {
+
+    private final AIResponseCacheRepository cacheRepo;
+    private final Environment environment;
+
+    private final Map<String, CachedResponse> memory;
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter memoryHits;
+    private final Counter dbHits;
+    private final Counter coalesced;
+    private final Counter misses;
+
+    @Value("${gemini.cache.enabled:true}")
+    private boolean enabled;
+
+    private record CachedResponse(String text, Instant expiresAt) {
+    }
+
+    public GeminiResponseCacheService(AIResponseCacheRepository cacheRepo,
+                                      Environment environment,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${gemini.cache.max-entries:2000}") int maxEntries) {
+        this.cacheRepo = cacheRepo;
+        this.environment = environment;
+        this.memory = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.memoryHits = meterRegistry.counter("gemini.cache.requests", "result", "memory");
+        this.dbHits = meterRegistry.counter("gemini.cache.requests", "result", "db");
+        this.coalesced = meterRegistry.counter("gemini.cache.requests", "result", "coalesced");
+        this.misses = meterRegistry.counter("gemini.cache.requests", "result", "miss");
+    }
+
+    /**
+     * Tính cache key cho 1 request Gemini
+     *
+     * @param model           tên model
+     * @param configSignature chuỗi mô tả generation config (temperature, topK, ...)
+     * @param prompt          prompt gốc
+     */
+    public static String cacheKey(String model, String configSignature, String prompt) {
+        return ContentHash.sha256Hex(model, configSignature, ContentHash.normalize(prompt));
+    }
+
+    /**
+     * Lấy response từ cache, hoặc gọi loader (1 lần cho mỗi key dù nhiều caller đồng thời)
+     *
+     * @param site   call site, quyết định TTL
+     * @param key    key từ {@link #cacheKey}
+     * @param model  model (lưu kèm để tra cứu)
+     * @param loader    gọi Gemini khi cache miss
+     * @param cacheable kiểm tra response có đáng lưu không (vd. parse được JSON)
+     */
+    public CompletableFuture<String> getOrLoad(GeminiCacheSite site, String key, String model,
+                                               Supplier<CompletableFuture<String>> loader,
+                                               Predicate<String> cacheable) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Instant now = Instant.now();
+        String cached = getFromMemory(key, now);
+        if (cached != null) {
+            memoryHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            // Bản sao để caller này cancel không ảnh hưởng các caller khác
+            return existing.thenApply(Function.identity());
+        }
+
+        try {
+            String fromDb = cacheRepo.findByCacheKeyAndExpiresAtAfter(key, now)
+                    .map(row -> {
+                        putInMemory(key, row.getResponseText(), row.getExpiresAt());
+                        return row.getResponseText();
+                    })
+                    .orElse(null);
+            if (fromDb != null) {
+                dbHits.increment();
+                finish(key, mine, fromDb, null);
+                return mine.thenApply(Function.identity());
+            }
+        } catch (Exception e) {
+            // DB lỗi thì vẫn gọi Gemini bình thường
+            log.warn("Gemini cache lookup failed for site {}: {}", site, e.getMessage());
+        }
+
+        misses.increment();
+        CompletableFuture<String> upstream;
+        try {
+            upstream = loader.get();
+        } catch (RuntimeException e) {
+            finish(key, mine, null, e);
+            return mine.thenApply(Function.identity());
+        }
+        upstream.whenComplete((text, error) -> {
+            if (error == null && text != null && !text.isBlank() && cacheable.test(text)) {
+                store(site, key, model, text);
+            }
+            finish(key, mine, text, error);
+        });
+        return mine.thenApply(Function.identity());
+    }
+
+    /**
+     * Xoá các row hết hạn (memory tự loại theo LRU + kiểm tra expiresAt khi đọc)
+     */
+    @Scheduled(cron = "${gemini.cache.purge-cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = cacheRepo.deleteExpired(Instant.now());
+            if (deleted > 0) {
+                log.info("Purged {} expired Gemini cache rows", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge Gemini cache: {}", e.getMessage());
+        }
+    }
+
+    private void finish(String key, CompletableFuture<String> mine, String text, Throwable error) {
+        // Bỏ khỏi in-flight trước khi complete: caller đến sau sẽ thấy memory (đã put) thay vì future cũ
+        inFlight.remove(key, mine);
+        if (error != null) {
+            mine.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+        } else {
+            mine.complete(text);
+        }
+    }
+
+    private void store(GeminiCacheSite site, String key, String model, String text) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(ttl(site));
+        putInMemory(key, text, expiresAt);
+        try {
+            cacheRepo.upsert(key, site.name(), model, text, now, expiresAt);
+        } catch (Exception e) {
+            log.warn("Failed to persist Gemini cache entry for site {}: {}", site, e.getMessage());
+        }
+    }
+
+    private Duration ttl(GeminiCacheSite site) {
+        Long hours = environment.getProperty("gemini.cache.ttl-hours." + site.propertyName(), Long.class);
+        return hours != null ? Duration.ofHours(hours) : site.getDefaultTtl();
+    }
+
+    private String getFromMemory(String key, Instant now) {
+        synchronized (memory) {
+            CachedResponse cached = memory.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAt().isBefore(now)) {
+                memory.remove(key);
+                return null;
+            }
+            return cached.text();
+        }
+    }
+
+    private void putInMemory(String key, String text, Instant expiresAt) {
+        synchronized (memory) {
+            memory.put(key, new CachedResponse(text, expiresAt));
+        }
+    }
+}
@@ -4,36 +4,89 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.auth.oauth2.AccessToken;
 import com.google.auth.oauth2.GoogleCredentials;
+import com.hokori.web.Enum.AIRequestPriority;
+import com.hokori.web.Enum.AiCallKind;
+import com.hokori.web.Enum.GeminiCacheSite;
+import com.hokori.web.exception.GeminiApiException;
+import com.hokori.web.service.provider.AiRecordReplayStore;
+import com.hokori.web.service.provider.LlmProvider;
+import jakarta.annotation.PreDestroy;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Service for calling Google Gemini API
  * Uses REST API for simplicity (no need for Vertex AI SDK)
  * Supports both API Key and OAuth2 token authentication
+ *
+ * Calls are non-blocking: requests go through a pooled {@link HttpClient} and
+ * rate-limit retries are scheduled on a small retry scheduler instead of
+ * sleeping on the caller's thread. The {@code *Async} methods return
+ * {@link CompletableFuture}s; the plain methods are blocking wrappers kept for
+ * existing synchronous callers.
+ *
+ * Every HTTP attempt (including retries) first takes a permit from
+ * {@link GeminiRateGovernor}, so the process stays under the Gemini quota
+ * instead of discovering it through 429s.
+ *
+ * With ai.provider.mode=LOCAL/REPLAY the HTTP exchange is replaced by an
+ * {@link LlmProvider} (after the governor permit, so queuing and retries are
+ * still exercised); with RECORD successful replies are saved for later replay.
  */
 @Slf4j
 @Service
 public class GeminiService {
 
-    private final RestTemplate restTemplate;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService retryScheduler;
     private final ObjectMapper objectMapper;
+    private final GeminiRateGovernor rateGovernor;
+    private final GeminiResponseCacheService responseCache;
 
     @Value("${google.cloud.project-id:hokori-web}")
     private String projectId;
@@ -47,6 +100,18 @@ public class GeminiService {
     @Value("${gemini.model:gemini-1.5-flash}")
     private String modelName;
 
+    @Value("${gemini.http.request-timeout-ms:60000}")
+    private long requestTimeoutMs;
+
+    @Value("${gemini.retry.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${gemini.retry.base-delay-ms:7000}")
+    private long baseDelayMs; // 7 seconds as suggested by API
+
+    @Value("${gemini.retry.max-delay-ms:60000}")
+    private long maxDelayMs;
+
     // Service account credentials for OAuth2 (alternative to API key)
     @Value("${google.cloud.private-key:}")
     private String privateKey;
@@ -64,148 +129,165 @@ public class GeminiService {
     private String clientX509CertUrl;
 
     private static final String GEMINI_API_URL = "https://generativelanguage.googleapis.com/v1beta/models/%s:generateContent";
+    private static final String GEMINI_STREAM_API_URL = "https://generativelanguage.googleapis.com/v1beta/models/%s:streamGenerateContent?alt=sse";
+
+    // Generation config for single-prompt calls; also part of the response cache key
+    private static final Map<String, Object> CONTENT_GENERATION_CONFIG = Map.of(
+            "temperature", 0.7,
+            "topK", 40,
+            "topP", 0.95,
+            "maxOutputTokens", 8192);
+    // Refresh ahead of expiry; below TOKEN_MIN_VALIDITY callers wait for the new token
+    private static final Duration TOKEN_REFRESH_MARGIN = Duration.ofMinutes(5);
+    private static final Duration TOKEN_MIN_VALIDITY = Duration.ofMinutes(1);
+
+    private static final String CONTENT_CONFIG_SIGNATURE = new TreeMap<>(CONTENT_GENERATION_CONFIG).toString();
+
+    // Scoped credentials are built once and refreshed in place when the token expires
+    private volatile GoogleCredentials scopedCredentials;
+
+    // OAuth token: refreshed on gemini-token, never on HttpClient / governor / retry threads
+    private final ExecutorService tokenExecutor;
+    private volatile AccessToken cachedToken;
+    private CompletableFuture<AccessToken> tokenRefresh;
+
+    // Set only in LOCAL / REPLAY mode (AiProviderConfig); null means call Gemini over HTTP
+    @Autowired(required = false)
+    private LlmProvider llmProvider;
+
+    @Autowired(required = false)
+    private AiRecordReplayStore recordReplayStore;
 
     @Autowired
-    public GeminiService(RestTemplate restTemplate, ObjectMapper objectMapper) {
-        this.restTemplate = restTemplate;
+    public GeminiService(@Qualifier("geminiHttpClient") HttpClient httpClient,
+                         ObjectMapper objectMapper,
+                         GeminiRateGovernor rateGovernor,
+                         GeminiResponseCacheService responseCache) {
+        this.httpClient = httpClient;
         this.objectMapper = objectMapper;
+        this.rateGovernor = rateGovernor;
+        this.responseCache = responseCache;
+        // Own scheduler (not a bean) so it doesn't replace Spring's @Scheduled task scheduler
+        AtomicInteger counter = new AtomicInteger();
+        this.retryScheduler = Executors.newScheduledThreadPool(1, runnable -> {
+            Thread thread = new Thread(runnable, "gemini-retry-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.tokenExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gemini-token");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        retryScheduler.shutdownNow();
+        tokenExecutor.shutdownNow();
+    }
+
+    /**
+     * Configured model name (part of cache keys for stored AI verdicts)
+     */
+    public String getModelName() {
+        return modelName;
     }
 
     /**
      * Call Gemini API with a prompt
      * Returns the text response from Gemini
-     * Includes retry logic for rate limit errors (429) with exponential backoff
+     * Blocking wrapper around {@link #generateContentAsync(String)}
      */
     public String generateContent(String prompt) {
-        return generateContentWithRetry(prompt, 3); // Max 3 retries
+        return await(generateContentAsync(prompt, AIRequestPriority.STANDARD));
+    }
+
+    /**
+     * Blocking call with an explicit governor priority
+     */
+    public String generateContent(String prompt, AIRequestPriority priority) {
+        return await(generateContentAsync(prompt, priority));
     }
 
     /**
-     * Call Gemini API with retry logic for rate limit errors
+     * Call Gemini API with a prompt without blocking the caller.
+     * Rate-limit (429) and transient errors are retried with exponential backoff,
+     * honoring Retry-After when the API provides it.
+     *
      * @param prompt The prompt to send to Gemini
-     * @param maxRetries Maximum number of retries (default: 3)
-     * @return The text response from Gemini
+     * @param priority Queue priority when the rate governor is saturated
+     * @return Future completed with the text response (null if Gemini returned no candidates)
      */
-    private String generateContentWithRetry(String prompt, int maxRetries) {
+    public CompletableFuture<String> generateContentAsync(String prompt, AIRequestPriority priority) {
         if (!googleCloudEnabled) {
-            throw new RuntimeException("Google Cloud AI is not enabled");
-        }
-
-        int retryCount = 0;
-        long baseDelayMs = 7000; // 7 seconds as suggested by API
-
-        while (retryCount <= maxRetries) {
-            try {
-                return callGeminiAPI(prompt);
-            } catch (IOException e) {
-                // IO errors (e.g., token generation) - don't retry
-                log.error("IO error calling Gemini API", e);
-                throw new RuntimeException("Failed to call Gemini API: " + e.getMessage(), e);
-            } catch (org.springframework.web.client.HttpClientErrorException e) {
-                // Handle rate limit errors (429) with retry
-                if (e.getStatusCode() != null && e.getStatusCode().value() == 429) {
-                    if (retryCount < maxRetries) {
-                        // Exponential backoff: 7s, 14s, 28s
-                        long delayMs = baseDelayMs * (1L << retryCount);
-                        log.warn("Gemini API rate limit exceeded (429). Retrying in {}ms (attempt {}/{})", 
-                            delayMs, retryCount + 1, maxRetries + 1);
-                        try {
-                            Thread.sleep(delayMs);
-                        } catch (InterruptedException ie) {
-                            Thread.currentThread().interrupt();
-                            throw new RuntimeException("Retry interrupted", ie);
-                        }
-                        retryCount++;
-                        continue;
-                    } else {
-                        log.error("Gemini API rate limit exceeded (429). Max retries ({}) exceeded.", maxRetries);
-                        throw new RuntimeException(
-                            "Gemini API rate limit exceeded after " + maxRetries + " retries. " +
-                            "Free tier limit: 15 requests/minute (gemini-1.5-flash). Please try again later.", e);
-                    }
-                }
-                // Other HTTP errors - don't retry
-                log.error("Error calling Gemini API: HTTP {}", e.getStatusCode(), e);
-                throw new RuntimeException("Failed to call Gemini API: " + e.getMessage(), e);
-            } catch (Exception e) {
-                // Non-HTTP errors - don't retry
-                log.error("Error calling Gemini API", e);
-                throw new RuntimeException("Failed to call Gemini API: " + e.getMessage(), e);
-            }
+            return CompletableFuture.failedFuture(new RuntimeException("Google Cloud AI is not enabled"));
         }
+        return execute(buildContentRequestBody(prompt), "generateContent", priority);
+    }
 
-        throw new RuntimeException("Failed to call Gemini API after " + maxRetries + " retries");
+    public CompletableFuture<String> generateContentAsync(String prompt) {
+        return generateContentAsync(prompt, AIRequestPriority.STANDARD);
     }
 
     /**
-     * Actual API call to Gemini
+     * Cached variant for prompts that are the same for every user (learning materials,
+     * example sentences, analysis of a given sentence...). Identical prompts share one
+     * upstream call, and the result is reused until the call site's TTL expires.
      */
-    private String callGeminiAPI(String prompt) throws IOException {
-        String url = String.format(GEMINI_API_URL, modelName);
-        
-        // Add API key to URL if available, otherwise use OAuth2 token
-        if (apiKey != null && !apiKey.isEmpty()) {
-            url += "?key=" + apiKey;
+    public CompletableFuture<String> generateContentAsync(String prompt, AIRequestPriority priority,
+                                                          GeminiCacheSite cacheSite) {
+        if (!googleCloudEnabled) {
+            return CompletableFuture.failedFuture(new RuntimeException("Google Cloud AI is not enabled"));
         }
-        
-        Map<String, Object> requestBody = new HashMap<>();
-        List<Map<String, Object>> contents = new ArrayList<>();
-        Map<String, Object> content = new HashMap<>();
-        List<Map<String, Object>> parts = new ArrayList<>();
-        Map<String, Object> part = new HashMap<>();
-        part.put("text", prompt);
-        parts.add(part);
-        content.put("parts", parts);
-        contents.add(content);
-        requestBody.put("contents", contents);
-
-        // Generation config
-        Map<String, Object> generationConfig = new HashMap<>();
-        generationConfig.put("temperature", 0.7);
-        generationConfig.put("topK", 40);
-        generationConfig.put("topP", 0.95);
-        generationConfig.put("maxOutputTokens", 8192);
-        requestBody.put("generationConfig", generationConfig);
+        String key = GeminiResponseCacheService.cacheKey(modelName, CONTENT_CONFIG_SIGNATURE, prompt);
+        return responseCache.getOrLoad(cacheSite, key, modelName, () -> generateContentAsync(prompt, priority),
+                text -> !cacheSite.isJsonResponse() || parseJsonResponse(text) != null);
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        
-        // If no API key, use OAuth2 token
-        if (apiKey == null || apiKey.isEmpty()) {
-            String accessToken = getAccessToken();
-            headers.setBearerAuth(accessToken);
-        }
+    public String generateContent(String prompt, AIRequestPriority priority, GeminiCacheSite cacheSite) {
+        return await(generateContentAsync(prompt, priority, cacheSite));
+    }
 
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+    /**
+     * Call Gemini API and parse JSON response
+     */
+    public JsonNode generateContentAsJson(String prompt) {
+        return await(generateContentAsJsonAsync(prompt, AIRequestPriority.STANDARD));
+    }
 
-        log.debug("Calling Gemini API: {}", url);
-        ResponseEntity<GeminiResponse> response = restTemplate.exchange(
-                url,
-                HttpMethod.POST,
-                request,
-                GeminiResponse.class
-        );
+    public JsonNode generateContentAsJson(String prompt, AIRequestPriority priority) {
+        return await(generateContentAsJsonAsync(prompt, priority));
+    }
 
-        if (response.getBody() != null && response.getBody().getCandidates() != null 
-                && !response.getBody().getCandidates().isEmpty()) {
-            GeminiResponse.Candidate candidate = response.getBody().getCandidates().get(0);
-            if (candidate.getContent() != null && candidate.getContent().getParts() != null
-                    && !candidate.getContent().getParts().isEmpty()) {
-                String text = candidate.getContent().getParts().get(0).getText();
-                log.debug("Gemini response received, length: {}", text.length());
-                return text;
-            }
-        }
+    public JsonNode generateContentAsJson(String prompt, AIRequestPriority priority, GeminiCacheSite cacheSite) {
+        return await(generateContentAsJsonAsync(prompt, priority, cacheSite));
+    }
 
-        log.warn("Gemini API returned empty response");
-        return null;
+    /**
+     * Non-blocking variant of {@link #generateContentAsJson(String, AIRequestPriority)}.
+     * Cancelling (or timing out) the returned future cancels the Gemini call too.
+     */
+    public CompletableFuture<JsonNode> generateContentAsJsonAsync(String prompt, AIRequestPriority priority) {
+        return parsedJson(generateContentAsync(prompt, priority));
     }
 
     /**
-     * Call Gemini API and parse JSON response
+     * Non-blocking variant of {@link #generateContentAsJson(String, AIRequestPriority, GeminiCacheSite)}
      */
-    public JsonNode generateContentAsJson(String prompt) {
-        String response = generateContent(prompt);
+    public CompletableFuture<JsonNode> generateContentAsJsonAsync(String prompt, AIRequestPriority priority,
+                                                                  GeminiCacheSite cacheSite) {
+        return parsedJson(generateContentAsync(prompt, priority, cacheSite));
+    }
+
+    private CompletableFuture<JsonNode> parsedJson(CompletableFuture<String> call) {
+        CompletableFuture<JsonNode> json = call.thenApply(this::parseJsonResponse);
+        // A dependent stage doesn't cancel its source on its own: caller giving up must abort the call
+        json.whenComplete((node, error) -> call.cancel(true));
+        return json;
+    }
+
+    private JsonNode parseJsonResponse(String response) {
         if (response == null || response.trim().isEmpty()) {
             return null;
         }
@@ -244,72 +326,86 @@ public class GeminiService {
      * @return AI's response text
      */
     public String generateConversationResponse(String systemPrompt, List<Map<String, String>> conversationHistory) {
-        return generateConversationResponseWithRetry(systemPrompt, conversationHistory, 3);
+        return await(generateConversationResponseAsync(systemPrompt, conversationHistory));
     }
 
     /**
-     * Generate conversation response with retry logic
+     * Non-blocking variant of {@link #generateConversationResponse(String, List)}
      */
-    private String generateConversationResponseWithRetry(String systemPrompt, List<Map<String, String>> conversationHistory, int maxRetries) {
+    public CompletableFuture<String> generateConversationResponseAsync(String systemPrompt,
+                                                                       List<Map<String, String>> conversationHistory) {
         if (!googleCloudEnabled) {
-            throw new RuntimeException("Google Cloud AI is not enabled");
+            return CompletableFuture.failedFuture(new RuntimeException("Google Cloud AI is not enabled"));
         }
+        log.debug("Calling Gemini Conversation API with {} messages", conversationHistory.size());
+        // Conversation turns are always interactive: the learner is waiting for the reply
+        return execute(buildConversationRequestBody(systemPrompt, conversationHistory),
+                "generateConversation", AIRequestPriority.INTERACTIVE);
+    }
 
-        int retryCount = 0;
-        long baseDelayMs = 7000; // 7 seconds
+    /**
+     * Streaming variant of {@link #generateConversationResponseAsync(String, List)}.
+     * Text deltas are passed to {@code onText} as Gemini produces them (on an HttpClient thread,
+     * in order); the returned future completes with the full reply.
+     *
+     * Retries (429/5xx/timeouts) only happen before the first delta has been delivered.
+     * If {@code onText} throws (e.g. the client went away) or the future is cancelled,
+     * the upstream stream is cancelled.
+     */
+    public CompletableFuture<String> streamConversationResponse(String systemPrompt,
+                                                                List<Map<String, String>> conversationHistory,
+                                                                Consumer<String> onText) {
+        if (!googleCloudEnabled) {
+            return CompletableFuture.failedFuture(new RuntimeException("Google Cloud AI is not enabled"));
+        }
+        log.debug("Calling Gemini streaming Conversation API with {} messages", conversationHistory.size());
+        return execute(buildConversationRequestBody(systemPrompt, conversationHistory),
+                "streamConversation", AIRequestPriority.INTERACTIVE, onText);
+    }
 
-        while (retryCount <= maxRetries) {
-            try {
-                return callGeminiConversationAPI(systemPrompt, conversationHistory);
-            } catch (IOException e) {
-                log.error("IO error calling Gemini API", e);
-                throw new RuntimeException("Failed to call Gemini API: " + e.getMessage(), e);
-            } catch (org.springframework.web.client.HttpClientErrorException e) {
-                if (e.getStatusCode() != null && e.getStatusCode().value() == 429) {
-                    if (retryCount < maxRetries) {
-                        long delayMs = baseDelayMs * (1L << retryCount);
-                        log.warn("Gemini API rate limit exceeded (429). Retrying in {}ms (attempt {}/{})", 
-                            delayMs, retryCount + 1, maxRetries + 1);
-                        try {
-                            Thread.sleep(delayMs);
-                        } catch (InterruptedException ie) {
-                            Thread.currentThread().interrupt();
-                            throw new RuntimeException("Retry interrupted", ie);
-                        }
-                        retryCount++;
-                        continue;
-                    } else {
-                        log.error("Gemini API rate limit exceeded (429). Max retries ({}) exceeded.", maxRetries);
-                        throw new RuntimeException(
-                            "Gemini API rate limit exceeded after " + maxRetries + " retries. " +
-                            "Free tier limit: 15 requests/minute (gemini-1.5-flash). Please try again later.", e);
-                    }
-                }
-                log.error("Error calling Gemini API: HTTP {}", e.getStatusCode(), e);
-                throw new RuntimeException("Failed to call Gemini API: " + e.getMessage(), e);
-            } catch (Exception e) {
-                log.error("Error calling Gemini API", e);
-                throw new RuntimeException("Failed to call Gemini API: " + e.getMessage(), e);
+    /**
+     * Executor for continuations that call Gemini after an async step: runs inline on whichever thread
+     * completed that step, with the request's SecurityContext, so the call is still queued under the
+     * caller in the rate governor (not as "anonymous"). Must be created on the request thread.
+     */
+    static Executor callerContext() {
+        return new DelegatingSecurityContextExecutor(Runnable::run, SecurityContextHolder.getContext());
+    }
+
+    /**
+     * Wait for a Gemini future on the caller's thread, unwrapping the async exception wrappers
+     * so synchronous callers keep seeing the same RuntimeExceptions as before.
+     */
+    static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new RuntimeException("Gemini call interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
             }
+            throw new RuntimeException("Failed to call Gemini API: " + cause.getMessage(), cause);
         }
+    }
 
-        throw new RuntimeException("Failed to call Gemini API after " + maxRetries + " retries");
+    private Map<String, Object> buildContentRequestBody(String prompt) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("contents", singleTextContent(prompt));
+
+        // Generation config
+        requestBody.put("generationConfig", CONTENT_GENERATION_CONFIG);
+        return requestBody;
     }
 
     /**
-     * Call Gemini API with conversation history
+     * Build request body with conversation history
      * Gemini API format: contents array with alternating user/model messages
      */
-    private String callGeminiConversationAPI(String systemPrompt, List<Map<String, String>> conversationHistory) throws IOException {
-        String url = String.format(GEMINI_API_URL, modelName);
-        
-        if (apiKey != null && !apiKey.isEmpty()) {
-            url += "?key=" + apiKey;
-        }
-        
-        Map<String, Object> requestBody = new HashMap<>();
-        List<Map<String, Object>> contents = new ArrayList<>();
-        
+    private Map<String, Object> buildConversationRequestBody(String systemPrompt, List<Map<String, String>> conversationHistory) {
         // Build full prompt with system instructions and conversation history
         StringBuilder fullPrompt = new StringBuilder();
         fullPrompt.append(systemPrompt).append("\n\n");
@@ -327,17 +423,9 @@ public class GeminiService {
         
         // Add instruction for AI to respond
         fullPrompt.append("AI: ");
-        
-        // Create single content with full prompt
-        Map<String, Object> content = new HashMap<>();
-        List<Map<String, Object>> parts = new ArrayList<>();
-        Map<String, Object> part = new HashMap<>();
-        part.put("text", fullPrompt.toString());
-        parts.add(part);
-        content.put("parts", parts);
-        contents.add(content);
-        
-        requestBody.put("contents", contents);
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("contents", singleTextContent(fullPrompt.toString()));
 
         // Generation config - optimized for conversation
         // Higher quality models (gemini-1.5-pro, gemini-2.0) can use more tokens and higher temperature
@@ -359,32 +447,361 @@ public class GeminiService {
         }
         
         requestBody.put("generationConfig", generationConfig);
+        return requestBody;
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        
-        if (apiKey == null || apiKey.isEmpty()) {
-            String accessToken = getAccessToken();
-            headers.setBearerAuth(accessToken);
+    private List<Map<String, Object>> singleTextContent(String text) {
+        List<Map<String, Object>> contents = new ArrayList<>();
+        Map<String, Object> content = new HashMap<>();
+        List<Map<String, Object>> parts = new ArrayList<>();
+        Map<String, Object> part = new HashMap<>();
+        part.put("text", text);
+        parts.add(part);
+        content.put("parts", parts);
+        contents.add(content);
+        return contents;
+    }
+
+    /**
+     * One logical Gemini call: serialized payload plus what the governor needs to queue its attempts.
+     * The user key is captured on the caller's thread because retries run without a security context.
+     */
+    private record Call(byte[] payload, String operation, String userKey, AIRequestPriority priority,
+                        CompletableFuture<String> result, Consumer<String> onText) {
+
+        boolean streaming() {
+            return onText != null;
         }
+    }
 
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+    /**
+     * Serialize the request once and start the first attempt.
+     * The returned future completes on an HttpClient, governor or retry-scheduler thread.
+     */
+    private CompletableFuture<String> execute(Map<String, Object> requestBody, String operation,
+                                              AIRequestPriority priority) {
+        return execute(requestBody, operation, priority, null);
+    }
 
-        log.debug("Calling Gemini Conversation API with {} messages", conversationHistory.size());
-        ResponseEntity<GeminiResponse> response = restTemplate.exchange(
-                url,
-                HttpMethod.POST,
-                request,
-                GeminiResponse.class
-        );
+    private CompletableFuture<String> execute(Map<String, Object> requestBody, String operation,
+                                              AIRequestPriority priority, Consumer<String> onText) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(requestBody);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(
+                    new GeminiApiException("Failed to call Gemini API: " + e.getMessage(), e));
+        }
+        Call call = new Call(payload, operation, currentUserKey(), priority, new CompletableFuture<>(), onText);
+        attempt(call, 0);
+        return call.result();
+    }
+
+    private static String currentUserKey() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication.getName() == null) {
+            return "anonymous";
+        }
+        return authentication.getName();
+    }
+
+    private void attempt(Call call, int retryCount) {
+        CompletableFuture<String> result = call.result();
+        if (result.isDone()) {
+            return; // caller cancelled or timed out while we were waiting to retry
+        }
+
+        CompletableFuture<Void> permit = rateGovernor.acquire(call.userKey(), call.priority());
+        // Leave the governor queue if the caller gives up first
+        result.whenComplete((r, e) -> permit.cancel(false));
+        permit.whenComplete((ignored, error) -> {
+            if (error != null) {
+                if (!(error instanceof CancellationException)) {
+                    result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                }
+                return;
+            }
+            if (llmProvider != null) {
+                sendToProvider(call, retryCount);
+                return;
+            }
+            // Usually already cached; otherwise the send continues on gemini-token once the refresh is done
+            accessToken().whenComplete((token, tokenError) -> {
+                if (result.isDone()) {
+                    return; // caller gave up while the token was being refreshed
+                }
+                if (tokenError != null) {
+                    Throwable cause = tokenError instanceof CompletionException && tokenError.getCause() != null
+                            ? tokenError.getCause() : tokenError;
+                    log.error("Could not get Gemini access token", cause);
+                    // Credential errors are not retried
+                    result.completeExceptionally(new GeminiApiException(
+                            "Failed to call Gemini API: " + cause.getMessage(), cause));
+                } else if (call.streaming()) {
+                    sendStreaming(call, retryCount, token);
+                } else {
+                    send(call, retryCount, token);
+                }
+            });
+        });
+    }
+
+    /**
+     * Attempt served by the local / replay provider instead of HTTP.
+     * Simulated HTTP errors (GeminiApiException with a status) go through the normal retry handling.
+     */
+    private void sendToProvider(Call call, int retryCount) {
+        CompletableFuture<String> result = call.result();
+        CompletableFuture<String> reply;
+        try {
+            reply = llmProvider.generate(call.operation(), call.payload(), call.onText());
+        } catch (RuntimeException e) {
+            reply = CompletableFuture.failedFuture(e);
+        }
+        reply.whenComplete((text, error) -> {
+            if (error == null) {
+                result.complete(text);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof GeminiApiException apiError && apiError.getStatusCode() > 0) {
+                handleErrorStatus(call, retryCount, apiError.getStatusCode(),
+                        java.net.http.HttpHeaders.of(Map.of(), (name, value) -> true), new byte[0]);
+            } else {
+                result.completeExceptionally(cause instanceof GeminiApiException ? cause
+                        : new GeminiApiException("Failed to call Gemini API: " + cause.getMessage(), cause));
+            }
+        });
+    }
+
+    /**
+     * RECORD mode: save a successful reply under the same key LlmProvider uses in REPLAY
+     */
+    private void recordReply(Call call, String text, long startNanos) {
+        if (recordReplayStore != null && recordReplayStore.isRecording()) {
+            recordReplayStore.record(AiCallKind.LLM, text,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), call.operation(), call.payload());
+        }
+    }
+
+    private void send(Call call, int retryCount, String accessToken) {
+        CompletableFuture<String> result = call.result();
+        HttpRequest request = buildHttpRequest(call.payload(), false, accessToken);
+
+        long startNanos = System.nanoTime();
+        CompletableFuture<HttpResponse<byte[]>> exchange =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        // Caller timed out or cancelled: abort the exchange instead of waiting for a reply nobody reads
+        result.whenComplete((r, e) -> exchange.cancel(true));
+        exchange.whenComplete((response, error) -> {
+            if (error != null) {
+                handleTransportError(call, retryCount, error);
+            } else {
+                handleResponse(call, retryCount, response, startNanos);
+            }
+        });
+    }
 
-        if (response.getBody() != null && response.getBody().getCandidates() != null 
-                && !response.getBody().getCandidates().isEmpty()) {
-            GeminiResponse.Candidate candidate = response.getBody().getCandidates().get(0);
+    /**
+     * Streaming attempt: Gemini answers with SSE ("data: {GenerateContentResponse}" per chunk).
+     * Error statuses carry a normal JSON body and go through the same retry handling as {@link #send}.
+     */
+    private void sendStreaming(Call call, int retryCount, String accessToken) {
+        CompletableFuture<String> result = call.result();
+        HttpRequest request = buildHttpRequest(call.payload(), true, accessToken);
+
+        long startNanos = System.nanoTime();
+        SseTextSubscriber stream = new SseTextSubscriber(call.onText(), result);
+        // Caller gave up: stop reading so Gemini stops generating
+        result.whenComplete((r, e) -> stream.cancel());
+        httpClient.sendAsync(request, stream::bodySubscriber)
+                .whenComplete((response, error) -> {
+                    if (error == null && response.statusCode() >= 200 && response.statusCode() < 300
+                            && stream.failure() == null) {
+                        String text = stream.text();
+                        log.debug("Gemini {} stream finished, length: {}", call.operation(), text.length());
+                        recordReply(call, text.isEmpty() ? null : text, startNanos);
+                        result.complete(text.isEmpty() ? null : text);
+                    } else if (error == null && stream.failure() == null) {
+                        handleErrorStatus(call, retryCount, response.statusCode(),
+                                response.headers(), stream.errorBody());
+                    } else if (stream.deliveredAny()) {
+                        // Part of the reply is already with the caller; a retry would duplicate it
+                        Throwable cause = stream.failure() != null ? stream.failure() : error;
+                        result.completeExceptionally(new GeminiApiException(
+                                "Gemini stream interrupted: " + cause.getMessage(), cause));
+                    } else {
+                        handleTransportError(call, retryCount, stream.failure() != null ? stream.failure() : error);
+                    }
+                });
+    }
+
+    private void handleResponse(Call call, int retryCount, HttpResponse<byte[]> response, long startNanos) {
+        CompletableFuture<String> result = call.result();
+        String operation = call.operation();
+        int status = response.statusCode();
+        if (status >= 200 && status < 300) {
+            try {
+                String text = extractText(response.body(), operation);
+                recordReply(call, text, startNanos);
+                result.complete(text);
+            } catch (Exception e) {
+                log.error("Failed to read Gemini {} response", operation, e);
+                result.completeExceptionally(new GeminiApiException("Failed to call Gemini API: " + e.getMessage(), e));
+            }
+            return;
+        }
+        handleErrorStatus(call, retryCount, status, response.headers(), response.body());
+    }
+
+    private void handleErrorStatus(Call call, int retryCount, int status,
+                                   java.net.http.HttpHeaders headers, byte[] body) {
+        CompletableFuture<String> result = call.result();
+        String operation = call.operation();
+        Duration retryAfter = parseRetryAfter(headers, body);
+        if (status == 429) {
+            // Quota is shared: hold every queued caller, not just this one
+            rateGovernor.pause(retryAfter != null ? retryAfter : Duration.ofMillis(baseDelayMs));
+        }
+        boolean retryable = status == 429 || status == 500 || status == 502 || status == 503 || status == 504;
+        if (retryable && retryCount < maxRetries) {
+            long delayMs = retryDelayMs(retryCount, retryAfter);
+            log.warn("Gemini API returned HTTP {} for {}. Retrying in {}ms (attempt {}/{})",
+                    status, operation, delayMs, retryCount + 1, maxRetries + 1);
+            scheduleRetry(call, retryCount + 1, delayMs);
+            return;
+        }
+
+        if (status == 429) {
+            log.error("Gemini API rate limit exceeded (429). Max retries ({}) exceeded.", maxRetries);
+            result.completeExceptionally(new GeminiApiException(
+                    "Gemini API rate limit exceeded after " + maxRetries + " retries. " +
+                    "Free tier limit: 15 requests/minute (gemini-1.5-flash). Please try again later.",
+                    status, retryAfter));
+        } else {
+            // Other HTTP errors - don't retry
+            log.error("Error calling Gemini API: HTTP {} body={}", status, abbreviate(body));
+            result.completeExceptionally(new GeminiApiException(
+                    "Failed to call Gemini API: HTTP " + status, status, retryAfter));
+        }
+    }
+
+    private void handleTransportError(Call call, int retryCount, Throwable error) {
+        CompletableFuture<String> result = call.result();
+        String operation = call.operation();
+        if (result.isDone()) {
+            return; // exchange aborted because the caller already gave up
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        // Timeouts and refused connections are worth another try; anything else is a bug or config problem
+        boolean transientError = cause instanceof HttpTimeoutException || cause instanceof ConnectException;
+        if (transientError && retryCount < maxRetries) {
+            long delayMs = retryDelayMs(retryCount, null);
+            log.warn("Gemini API {} failed ({}). Retrying in {}ms (attempt {}/{})",
+                    operation, cause.getClass().getSimpleName(), delayMs, retryCount + 1, maxRetries + 1);
+            scheduleRetry(call, retryCount + 1, delayMs);
+            return;
+        }
+        log.error("Error calling Gemini API", cause);
+        result.completeExceptionally(new GeminiApiException("Failed to call Gemini API: " + cause.getMessage(), cause));
+    }
+
+    private void scheduleRetry(Call call, int retryCount, long delayMs) {
+        try {
+            retryScheduler.schedule(() -> attempt(call, retryCount), delayMs, TimeUnit.MILLISECONDS);
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            // Scheduler is shutting down with the application context
+            call.result().completeExceptionally(new GeminiApiException("Gemini retry rejected: application is shutting down", e));
+        }
+    }
+
+    /**
+     * Delay before the next attempt: the server's hint when present, otherwise
+     * exponential backoff (7s, 14s, 28s by default) with a little jitter so that
+     * requests throttled together don't come back together.
+     */
+    private long retryDelayMs(int retryCount, Duration retryAfter) {
+        long delayMs;
+        if (retryAfter != null) {
+            delayMs = retryAfter.toMillis();
+        } else {
+            delayMs = baseDelayMs * (1L << Math.min(retryCount, 20));
+            delayMs += ThreadLocalRandom.current().nextLong(Math.max(1, delayMs / 10));
+        }
+        return Math.max(0, Math.min(delayMs, maxDelayMs));
+    }
+
+    /**
+     * Read retry hint from the Retry-After header (delta-seconds or HTTP-date), falling back
+     * to google.rpc.RetryInfo ("retryDelay": "37s") in the error body.
+     */
+    private Duration parseRetryAfter(java.net.http.HttpHeaders headers, byte[] body) {
+        String header = headers.firstValue(HttpHeaders.RETRY_AFTER).orElse(null);
+        if (header != null && !header.isBlank()) {
+            String value = header.trim();
+            try {
+                return Duration.ofSeconds(Long.parseLong(value));
+            } catch (NumberFormatException ignored) {
+                try {
+                    Instant at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                    Duration until = Duration.between(Instant.now(), at);
+                    return until.isNegative() ? Duration.ZERO : until;
+                } catch (Exception e) {
+                    log.debug("Unparseable Retry-After header: {}", value);
+                }
+            }
+        }
+
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode details = objectMapper.readTree(body).path("error").path("details");
+            for (JsonNode detail : details) {
+                String delay = detail.path("retryDelay").asText("");
+                if (delay.endsWith("s")) {
+                    double seconds = Double.parseDouble(delay.substring(0, delay.length() - 1));
+                    return Duration.ofMillis((long) (seconds * 1000));
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Could not read RetryInfo from Gemini error body", e);
+        }
+        return null;
+    }
+
+    /**
+     * @param accessToken OAuth token, null when an API key is configured
+     */
+    private HttpRequest buildHttpRequest(byte[] payload, boolean streaming, String accessToken) {
+        String url = String.format(streaming ? GEMINI_STREAM_API_URL : GEMINI_API_URL, modelName);
+
+        // Add API key to URL if available, otherwise use OAuth2 token
+        if (apiKey != null && !apiKey.isEmpty()) {
+            url += (url.contains("?") ? "&key=" : "?key=") + apiKey;
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload));
+
+        // If no API key, use OAuth2 token
+        if (accessToken != null) {
+            builder.header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken);
+        }
+        return builder.build();
+    }
+
+    private String extractText(byte[] body, String operation) throws IOException {
+        GeminiResponse response = objectMapper.readValue(body, GeminiResponse.class);
+        if (response != null && response.getCandidates() != null && !response.getCandidates().isEmpty()) {
+            GeminiResponse.Candidate candidate = response.getCandidates().get(0);
             if (candidate.getContent() != null && candidate.getContent().getParts() != null
                     && !candidate.getContent().getParts().isEmpty()) {
                 String text = candidate.getContent().getParts().get(0).getText();
-                log.debug("Gemini conversation response received, length: {}", text.length());
+                log.debug("Gemini {} response received, length: {}", operation, text != null ? text.length() : 0);
                 return text;
             }
         }
@@ -394,32 +811,204 @@ public class GeminiService {
     }
 
     /**
-     * Get access token from Google Cloud service account credentials
+     * Reads a Gemini SSE stream line by line and forwards each chunk's text.
+     * Non-2xx responses are buffered instead so the error body can be inspected for retry hints.
+     */
+    private final class SseTextSubscriber implements Flow.Subscriber<String> {
+
+        private final Consumer<String> onText;
+        private final CompletableFuture<String> result;
+        private final StringBuilder text = new StringBuilder();
+        private volatile Flow.Subscription subscription;
+        private volatile boolean cancelled;
+        private volatile boolean deliveredAny;
+        private volatile Throwable failure;
+        private volatile byte[] errorBody;
+
+        SseTextSubscriber(Consumer<String> onText, CompletableFuture<String> result) {
+            this.onText = onText;
+            this.result = result;
+        }
+
+        HttpResponse.BodySubscriber<Void> bodySubscriber(HttpResponse.ResponseInfo info) {
+            if (info.statusCode() >= 200 && info.statusCode() < 300) {
+                return HttpResponse.BodySubscribers.fromLineSubscriber(this);
+            }
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), bytes -> {
+                errorBody = bytes;
+                return null;
+            });
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (cancelled || !line.startsWith("data:")) {
+                return; // blank separators, comments, event names
+            }
+            String delta;
+            try {
+                delta = chunkText(objectMapper.readTree(line.substring(5).trim()));
+            } catch (Exception e) {
+                log.debug("Skipping unreadable Gemini stream chunk: {}", e.getMessage());
+                return;
+            }
+            if (delta.isEmpty()) {
+                return;
+            }
+            text.append(delta);
+            try {
+                onText.accept(delta);
+                deliveredAny = true;
+            } catch (RuntimeException e) {
+                // Once cancelled the HTTP exchange may never complete, so fail the call here
+                failure = e;
+                cancel();
+                result.completeExceptionally(new GeminiApiException("Gemini stream consumer failed: " + e.getMessage(), e));
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (failure == null) {
+                failure = throwable;
+            }
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        void cancel() {
+            cancelled = true;
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        String text() {
+            return text.toString();
+        }
+
+        boolean deliveredAny() {
+            return deliveredAny;
+        }
+
+        Throwable failure() {
+            return failure;
+        }
+
+        byte[] errorBody() {
+            return errorBody;
+        }
+
+        private String chunkText(JsonNode chunk) {
+            StringBuilder delta = new StringBuilder();
+            for (JsonNode part : chunk.path("candidates").path(0).path("content").path("parts")) {
+                delta.append(part.path("text").asText(""));
+            }
+            return delta.toString();
+        }
+    }
+
+    private static String abbreviate(byte[] body) {
+        if (body == null) {
+            return "";
+        }
+        String text = new String(body, StandardCharsets.UTF_8);
+        return text.length() > 500 ? text.substring(0, 500) + "..." : text;
+    }
+
+    /**
+     * OAuth token for the next request without blocking the calling thread: the cached token while it is
+     * valid for more than TOKEN_REFRESH_MARGIN, otherwise one shared refresh on gemini-token.
+     * A token that is still usable but close to expiry is returned right away and refreshed in the background.
+     * Completes with null when an API key is configured.
+     */
+    CompletableFuture<String> accessToken() {
+        if (apiKey != null && !apiKey.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        AccessToken token = cachedToken;
+        Instant now = Instant.now();
+        if (token != null && isValidAt(token, now.plus(TOKEN_REFRESH_MARGIN))) {
+            return CompletableFuture.completedFuture(token.getTokenValue());
+        }
+        CompletableFuture<AccessToken> refresh = refreshToken();
+        if (token != null && isValidAt(token, now.plus(TOKEN_MIN_VALIDITY))) {
+            return CompletableFuture.completedFuture(token.getTokenValue());
+        }
+        return refresh.thenApply(AccessToken::getTokenValue);
+    }
+
+    private static boolean isValidAt(AccessToken token, Instant at) {
+        return token.getExpirationTime() == null || token.getExpirationTime().toInstant().isAfter(at);
+    }
+
+    /**
+     * Single-flight refresh: concurrent callers share the same future
+     */
+    private synchronized CompletableFuture<AccessToken> refreshToken() {
+        if (tokenRefresh != null && !tokenRefresh.isDone()) {
+            return tokenRefresh;
+        }
+        CompletableFuture<AccessToken> refresh = new CompletableFuture<>();
+        tokenRefresh = refresh;
+        try {
+            tokenExecutor.execute(() -> {
+                try {
+                    AccessToken token = fetchAccessToken();
+                    cachedToken = token;
+                    refresh.complete(token);
+                } catch (Throwable e) {
+                    refresh.completeExceptionally(e);
+                }
+            });
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            refresh.completeExceptionally(new IOException("Token refresh rejected: application is shutting down", e));
+        }
+        return refresh;
+    }
+
+    /**
+     * Get access token from Google Cloud service account credentials (blocking; runs only on gemini-token)
      * Uses OAuth2 scopes required for Gemini API
      * Note: Ensure Generative Language API is enabled in Google Cloud Console
      */
-    private String getAccessToken() throws IOException {
+    private AccessToken fetchAccessToken() throws IOException {
         if (privateKey == null || privateKey.isEmpty() || clientEmail == null || clientEmail.isEmpty()) {
             throw new IOException("Service account credentials not configured. Please set google.cloud.private-key, google.cloud.private-key-id, google.cloud.client-email, google.cloud.client-id, and google.cloud.client-x509-cert-url");
         }
 
         try {
-            // Build JSON credentials from environment variables
-            String jsonCredentials = buildGoogleCloudJsonFromEnv();
-            InputStream credentialsStream = new ByteArrayInputStream(
-                    jsonCredentials.getBytes(StandardCharsets.UTF_8));
-            GoogleCredentials credentials = GoogleCredentials.fromStream(credentialsStream);
-            
-            // Create scoped credentials with Gemini API scope
-            // Try specific scope first, fallback to broader scope if needed
-            List<String> scopes = Arrays.asList(
-                    "https://www.googleapis.com/auth/generative-language",
-                    "https://www.googleapis.com/auth/cloud-platform"
-            );
-            GoogleCredentials scopedCredentials = credentials.createScoped(scopes);
-            
-            scopedCredentials.refreshIfExpired();
-            return scopedCredentials.getAccessToken().getTokenValue();
+            GoogleCredentials credentials = scopedCredentials;
+            if (credentials == null) {
+                // Build JSON credentials from environment variables
+                String jsonCredentials = buildGoogleCloudJsonFromEnv();
+                InputStream credentialsStream = new ByteArrayInputStream(
+                        jsonCredentials.getBytes(StandardCharsets.UTF_8));
+
+                // Create scoped credentials with Gemini API scope
+                // Try specific scope first, fallback to broader scope if needed
+                List<String> scopes = Arrays.asList(
+                        "https://www.googleapis.com/auth/generative-language",
+                        "https://www.googleapis.com/auth/cloud-platform"
+                );
+                credentials = GoogleCredentials.fromStream(credentialsStream).createScoped(scopes);
+                scopedCredentials = credentials;
+            }
+
+            return credentials.refreshAccessToken();
         } catch (Exception e) {
             log.error("Failed to get access token from service account", e);
             throw new IOException("Failed to get access token: " + e.getMessage(), e);
@@ -0,0 +1,137 @@
+package com.hokori.web.service;
+
+import com.atilika.kuromoji.ipadic.Tokenizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Phân tích hình thái tiếng Nhật chạy local (Kuromoji + từ điển IPADIC đóng gói trong jar).
+ *
+ * - Tách từ kèm cách đọc (hiragana), dạng gốc và từ loại
+ * - Dùng cho nhận diện tiếng Nhật, furigana, phân tích cấu trúc câu và so sánh theo từ
+ *   khi chấm phát âm, thay cho các lượt gọi Gemini/Translate
+ * - Từ điển nạp 1 lần khi khởi động; Tokenizer thread-safe nên dùng chung
+ * - Nạp lỗi (hoặc ai.tokenizer.enabled=false) thì isAvailable() = false, caller dùng cách cũ
+ */
+@Slf4j
+@Service
+public class JapaneseTokenizerService {
+
+    /**
+     * 1 từ sau khi tách
+     *
+     * @param reading            cách đọc bằng hiragana (chính surface nếu từ điển không có)
+     * @param partOfSpeech       từ loại cấp 1 của IPADIC (名詞, 動詞, 助詞, 記号...)
+     * @param partOfSpeechDetail từ loại cấp 2 (格助詞, 係助詞, 非自立...)
+     * @param position           vị trí ký tự bắt đầu trong text
+     */
+    public record Token(String surface, String baseForm, String reading, String partOfSpeech,
+                        String partOfSpeechDetail, int position) {
+
+        public boolean isParticle() {
+            return "助詞".equals(partOfSpeech);
+        }
+
+        public boolean isSymbol() {
+            return "記号".equals(partOfSpeech) || surface.isBlank();
+        }
+
+        /**
+         * Có kanji (cần furigana)
+         */
+        public boolean hasKanji() {
+            return surface.codePoints().anyMatch(cp -> Character.UnicodeScript.of(cp) == Character.UnicodeScript.HAN);
+        }
+    }
+
+    private final Tokenizer tokenizer;
+
+    public JapaneseTokenizerService(@Value("${ai.tokenizer.enabled:true}") boolean enabled) {
+        Tokenizer loaded = null;
+        if (enabled) {
+            long start = System.nanoTime();
+            try {
+                loaded = new Tokenizer();
+                log.info("Japanese tokenizer dictionary loaded in {} ms", (System.nanoTime() - start) / 1_000_000);
+            } catch (RuntimeException | LinkageError e) {
+                log.warn("Japanese tokenizer is not available, falling back to remote analysis: {}", e.getMessage());
+            }
+        }
+        this.tokenizer = loaded;
+    }
+
+    public boolean isAvailable() {
+        return tokenizer != null;
+    }
+
+    /**
+     * Tách từ toàn bộ text (kể cả dấu câu); rỗng nếu tokenizer không khả dụng
+     */
+    public List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (tokenizer == null || text == null || text.isEmpty()) {
+            return tokens;
+        }
+        for (com.atilika.kuromoji.ipadic.Token token : tokenizer.tokenize(text)) {
+            String surface = token.getSurface();
+            String reading = token.getReading();
+            tokens.add(new Token(
+                    surface,
+                    orSurface(token.getBaseForm(), surface),
+                    toHiragana(orSurface(reading, surface)),
+                    token.getPartOfSpeechLevel1(),
+                    token.getPartOfSpeechLevel2(),
+                    token.getPosition()));
+        }
+        return tokens;
+    }
+
+    /**
+     * Chỉ các từ (bỏ dấu câu, khoảng trắng)
+     */
+    public List<Token> words(String text) {
+        List<Token> words = new ArrayList<>();
+        for (Token token : tokenize(text)) {
+            if (!token.isSymbol()) {
+                words.add(token);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Text có chữ Nhật (hiragana, katakana, kanji) hay không; không cần tokenizer
+     */
+    public static boolean containsJapanese(String text) {
+        if (text == null) {
+            return false;
+        }
+        return text.codePoints().anyMatch(cp -> {
+            Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+            return script == Character.UnicodeScript.HIRAGANA
+                    || script == Character.UnicodeScript.KATAKANA
+                    || script == Character.UnicodeScript.HAN;
+        });
+    }
+
+    /**
+     * Katakana -> hiragana (giữ nguyên ký tự khác, kể cả ー)
+     */
+    public static String toHiragana(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            sb.append(c >= 'ァ' && c <= 'ヶ' ? (char) (c - 0x60) : c);
+        }
+        return sb.toString();
+    }
+
+    private static String orSurface(String value, String surface) {
+        // IPADIC trả "*" cho trường không có (từ không có trong từ điển)
+        return value == null || value.isEmpty() || "*".equals(value) ? surface : value;
+    }
+}
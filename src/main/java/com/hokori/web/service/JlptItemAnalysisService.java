@@ -0,0 +1,361 @@
+package com.hokori.web.service;
+
+import com.hokori.web.dto.jlpt.JlptItemAnalysisResponse;
+import com.hokori.web.entity.JlptOption;
+import com.hokori.web.entity.JlptOptionStats;
+import com.hokori.web.entity.JlptQuestion;
+import com.hokori.web.entity.JlptQuestionStats;
+import com.hokori.web.repository.JlptOptionRepository;
+import com.hokori.web.repository.JlptOptionStatsRepository;
+import com.hokori.web.repository.JlptQuestionRepository;
+import com.hokori.web.repository.JlptQuestionStatsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Item analysis cho JLPT Question.
+ *
+ * Mỗi attempt được chấm sẽ cộng dồn vào jlpt_question_stats / jlpt_option_stats.
+ * Upsert không chạy trong transaction submit (khoá dòng thống kê của cả đề tới lúc commit,
+ * các bài nộp cùng đề phải chờ nhau): sau commit attempt được đưa vào hàng đợi, job định kỳ
+ * gộp theo câu / đáp án rồi ghi 2 batch upsert trong 1 transaction ngắn. Thống kê trễ tối đa
+ * 1 chu kỳ flush. Từ các tổng đó tính:
+ * - Độ khó p = Σx / n
+ * - Độ phân hoá point-biserial r = (nΣxy − ΣxΣy) / sqrt((nΣx − (Σx)²)(nΣy² − (Σy)²))
+ *   với x = 1 nếu làm đúng câu, y = tổng điểm của attempt (chưa loại câu đang xét).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JlptItemAnalysisService {
+
+    // Ngưỡng cảnh báo cho moderator
+    private static final int MIN_ATTEMPTS_FOR_FLAGS = 20;
+    private static final double TOO_EASY_THRESHOLD = 0.9;
+    private static final double TOO_HARD_THRESHOLD = 0.2;
+    private static final double LOW_DISCRIMINATION_THRESHOLD = 0.2;
+    // Attempt làm flush lỗi dữ liệu (vi phạm ràng buộc) quá số lần này thì bỏ, không giữ cả hàng đợi lại
+    private static final int MAX_FAILED_FLUSHES = 3;
+
+    private static final String UPSERT_QUESTION_STATS_SQL = """
+        INSERT INTO jlpt_question_stats (question_id, test_id, attempt_count, answered_count, correct_count,
+                                         sum_score, sum_score_sq, sum_correct_score, updated_at)
+        SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?
+        WHERE EXISTS (SELECT 1 FROM jlpt_questions WHERE id = ?)
+        ON CONFLICT (question_id)
+        DO UPDATE SET
+            attempt_count = jlpt_question_stats.attempt_count + EXCLUDED.attempt_count,
+            answered_count = jlpt_question_stats.answered_count + EXCLUDED.answered_count,
+            correct_count = jlpt_question_stats.correct_count + EXCLUDED.correct_count,
+            sum_score = jlpt_question_stats.sum_score + EXCLUDED.sum_score,
+            sum_score_sq = jlpt_question_stats.sum_score_sq + EXCLUDED.sum_score_sq,
+            sum_correct_score = jlpt_question_stats.sum_correct_score + EXCLUDED.sum_correct_score,
+            updated_at = EXCLUDED.updated_at
+        """;
+
+    private static final String UPSERT_OPTION_STATS_SQL = """
+        INSERT INTO jlpt_option_stats (option_id, question_id, selected_count, updated_at)
+        SELECT ?, ?, ?, ?
+        WHERE EXISTS (SELECT 1 FROM jlpt_options WHERE id = ?)
+        ON CONFLICT (option_id)
+        DO UPDATE SET
+            selected_count = jlpt_option_stats.selected_count + EXCLUDED.selected_count,
+            updated_at = EXCLUDED.updated_at
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JlptQuestionRepository questionRepo;
+    private final JlptOptionRepository optionRepo;
+    private final JlptQuestionStatsRepository questionStatsRepo;
+    private final JlptOptionStatsRepository optionStatsRepo;
+
+    // Attempt đã commit, chờ flush
+    private final ConcurrentLinkedQueue<PendingAttempt> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    // Giới hạn hàng đợi khi DB lỗi kéo dài; vượt quá thì bỏ attempt (chỉ là thống kê)
+    @Value("${jlpt.item-analysis.max-pending:50000}")
+    private int maxPending;
+
+    /**
+     * Kết quả của 1 câu hỏi trong 1 attempt. selectedOptionId = null nếu bỏ trống.
+     */
+    public record ItemOutcome(Long questionId, Long selectedOptionId, boolean correct) {}
+
+    private record PendingAttempt(Long testId, double totalScore, List<ItemOutcome> outcomes, int failedFlushes) {
+
+        PendingAttempt failedOnce() {
+            return new PendingAttempt(testId, totalScore, outcomes, failedFlushes + 1);
+        }
+    }
+
+    /**
+     * Tổng cộng dồn của 1 câu trong 1 lần flush
+     */
+    static final class QuestionDelta {
+        final Long testId;
+        long attempts;
+        long answered;
+        long correct;
+        double sumScore;
+        double sumScoreSq;
+        double sumCorrectScore;
+
+        QuestionDelta(Long testId) {
+            this.testId = testId;
+        }
+    }
+
+    /**
+     * Ghi nhận 1 attempt đã chấm. Trong transaction thì chỉ đưa vào hàng đợi sau khi commit
+     * (submit rollback thì không tính); ghi DB ở lần flush kế tiếp.
+     */
+    public void recordAttempt(Long testId, double totalScore, List<ItemOutcome> outcomes) {
+        if (outcomes.isEmpty()) {
+            return;
+        }
+        PendingAttempt attempt = new PendingAttempt(testId, totalScore, List.copyOf(outcomes), 0);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(attempt);
+                }
+            });
+        } else {
+            enqueue(attempt);
+        }
+    }
+
+    private void enqueue(PendingAttempt attempt) {
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            log.warn("Item analysis queue full ({}), dropping attempt of test {}", maxPending, attempt.testId());
+            return;
+        }
+        pending.add(attempt);
+    }
+
+    /**
+     * Gộp các attempt đang chờ theo câu / đáp án và ghi trong 1 transaction ngắn.
+     * Câu / đáp án đã bị xoá cứng thì upsert bỏ qua (WHERE EXISTS). Lỗi thì trả các attempt về hàng đợi
+     * cho lần sau; riêng lỗi ràng buộc dữ liệu (không tự hết khi thử lại) chỉ thử tối đa MAX_FAILED_FLUSHES lần.
+     */
+    @Scheduled(fixedDelayString = "${jlpt.item-analysis.flush-interval-ms:5000}")
+    @Transactional
+    public void flush() {
+        List<PendingAttempt> batch = new ArrayList<>();
+        PendingAttempt next;
+        while ((next = pending.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        pendingCount.addAndGet(-batch.size());
+
+        try {
+            writeStats(batch);
+        } catch (DataIntegrityViolationException e) {
+            int dropped = 0;
+            for (PendingAttempt attempt : batch) {
+                PendingAttempt failed = attempt.failedOnce();
+                if (failed.failedFlushes() >= MAX_FAILED_FLUSHES) {
+                    dropped++;
+                } else {
+                    enqueue(failed);
+                }
+            }
+            log.warn("Item analysis flush of {} attempts violated a constraint, dropped {} after {} tries: {}",
+                    batch.size(), dropped, MAX_FAILED_FLUSHES, e.getMessage());
+            throw e;
+        } catch (RuntimeException e) {
+            batch.forEach(this::enqueue);
+            log.warn("Item analysis flush of {} attempts failed, will retry: {}", batch.size(), e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Ghi nốt hàng đợi khi tắt (gọi trực tiếp, không qua proxy: mỗi statement tự commit)
+     */
+    @PreDestroy
+    void flushOnShutdown() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Item analysis flush on shutdown failed: {}", e.getMessage());
+        }
+    }
+
+    private void writeStats(List<PendingAttempt> batch) {
+        // TreeMap: thứ tự khoá dòng cố định, 2 flush chồng nhau (nhiều instance) không deadlock
+        Map<Long, QuestionDelta> questions = new TreeMap<>();
+        Map<Long, long[]> options = new TreeMap<>(); // optionId -> {questionId, selected}
+        for (PendingAttempt attempt : batch) {
+            double totalScore = attempt.totalScore();
+            for (ItemOutcome o : attempt.outcomes()) {
+                QuestionDelta delta = questions.computeIfAbsent(o.questionId(), id -> new QuestionDelta(attempt.testId()));
+                delta.attempts++;
+                delta.answered += o.selectedOptionId() != null ? 1 : 0;
+                delta.correct += o.correct() ? 1 : 0;
+                delta.sumScore += totalScore;
+                delta.sumScoreSq += totalScore * totalScore;
+                delta.sumCorrectScore += o.correct() ? totalScore : 0.0;
+                if (o.selectedOptionId() != null) {
+                    options.computeIfAbsent(o.selectedOptionId(), id -> new long[]{o.questionId(), 0})[1]++;
+                }
+            }
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Map.Entry<Long, QuestionDelta>> questionRows = new ArrayList<>(questions.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_QUESTION_STATS_SQL, questionRows, questionRows.size(), (ps, row) -> {
+            QuestionDelta d = row.getValue();
+            ps.setLong(1, row.getKey());
+            ps.setLong(2, d.testId);
+            ps.setLong(3, d.attempts);
+            ps.setLong(4, d.answered);
+            ps.setLong(5, d.correct);
+            ps.setDouble(6, d.sumScore);
+            ps.setDouble(7, d.sumScoreSq);
+            ps.setDouble(8, d.sumCorrectScore);
+            ps.setTimestamp(9, now);
+            ps.setLong(10, row.getKey());
+        });
+
+        if (!options.isEmpty()) {
+            List<Map.Entry<Long, long[]>> optionRows = new ArrayList<>(options.entrySet());
+            jdbcTemplate.batchUpdate(UPSERT_OPTION_STATS_SQL, optionRows, optionRows.size(), (ps, row) -> {
+                ps.setLong(1, row.getKey());
+                ps.setLong(2, row.getValue()[0]);
+                ps.setLong(3, row.getValue()[1]);
+                ps.setTimestamp(4, now);
+                ps.setLong(5, row.getKey());
+            });
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public JlptItemAnalysisResponse getItemAnalysis(Long testId) {
+        List<JlptQuestion> questions = questionRepo.findByTest_IdAndDeletedFlagFalseOrderByOrderIndexAsc(testId);
+
+        Map<Long, JlptQuestionStats> statsByQuestion = questionStatsRepo.findByTestId(testId).stream()
+                .collect(Collectors.toMap(JlptQuestionStats::getQuestionId, Function.identity()));
+
+        Map<Long, List<JlptOption>> optionsByQuestion = optionRepo.findByQuestion_Test_IdOrderByOrderIndexAsc(testId)
+                .stream()
+                .collect(Collectors.groupingBy(o -> o.getQuestion().getId()));
+
+        Map<Long, Long> selectedByOption = optionStatsRepo.findByQuestionIdIn(
+                        questions.stream().map(JlptQuestion::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(JlptOptionStats::getOptionId, JlptOptionStats::getSelectedCount));
+
+        List<JlptItemAnalysisResponse.QuestionStats> result = new ArrayList<>(questions.size());
+        for (JlptQuestion q : questions) {
+            JlptQuestionStats stats = statsByQuestion.get(q.getId());
+            long n = stats != null ? stats.getAttemptCount() : 0;
+            long answered = stats != null ? stats.getAnsweredCount() : 0;
+            long correct = stats != null ? stats.getCorrectCount() : 0;
+
+            Double difficulty = n > 0 ? (double) correct / n : null;
+            Double discrimination = stats != null ? pointBiserial(stats) : null;
+
+            List<JlptItemAnalysisResponse.OptionStats> optionStats = optionsByQuestion
+                    .getOrDefault(q.getId(), List.of())
+                    .stream()
+                    .map(o -> {
+                        long count = selectedByOption.getOrDefault(o.getId(), 0L);
+                        return JlptItemAnalysisResponse.OptionStats.builder()
+                                .optionId(o.getId())
+                                .content(o.getContent())
+                                .orderIndex(o.getOrderIndex())
+                                .correct(Boolean.TRUE.equals(o.getIsCorrect()))
+                                .selectedCount(count)
+                                .selectedRatio(n > 0 ? (double) count / n : null)
+                                .build();
+                    })
+                    .toList();
+
+            result.add(JlptItemAnalysisResponse.QuestionStats.builder()
+                    .questionId(q.getId())
+                    .questionType(q.getQuestionType() != null ? q.getQuestionType().name() : null)
+                    .orderIndex(q.getOrderIndex())
+                    .content(q.getContent())
+                    .attemptCount(n)
+                    .answeredCount(answered)
+                    .correctCount(correct)
+                    .difficulty(difficulty)
+                    .discrimination(discrimination)
+                    .flags(flags(n, difficulty, discrimination))
+                    .options(optionStats)
+                    .build());
+        }
+
+        return JlptItemAnalysisResponse.builder()
+                .testId(testId)
+                .questions(result)
+                .build();
+    }
+
+    /**
+     * Point-biserial từ các tổng tích luỹ. Null khi phương sai bằng 0
+     * (tất cả cùng đúng/sai hoặc tất cả cùng điểm).
+     */
+    static Double pointBiserial(JlptQuestionStats s) {
+        double n = s.getAttemptCount();
+        double sumX = s.getCorrectCount();   // x ∈ {0,1} nên Σx² = Σx
+        double sumY = s.getSumScore();
+        double sumY2 = s.getSumScoreSq();
+        double sumXY = s.getSumCorrectScore();
+
+        double varX = n * sumX - sumX * sumX;
+        double varY = n * sumY2 - sumY * sumY;
+        if (n < 2 || varX <= 0 || varY <= 0) {
+            return null;
+        }
+        double r = (n * sumXY - sumX * sumY) / Math.sqrt(varX * varY);
+        return Math.round(r * 1000.0) / 1000.0;
+    }
+
+    static List<String> flags(long n, Double difficulty, Double discrimination) {
+        if (n < MIN_ATTEMPTS_FOR_FLAGS) {
+            return List.of("INSUFFICIENT_DATA");
+        }
+        List<String> flags = new ArrayList<>();
+        if (difficulty != null && difficulty > TOO_EASY_THRESHOLD) {
+            flags.add("TOO_EASY");
+        }
+        if (difficulty != null && difficulty < TOO_HARD_THRESHOLD) {
+            flags.add("TOO_HARD");
+        }
+        if (discrimination != null && discrimination < 0) {
+            flags.add("NEGATIVE_DISCRIMINATION");
+        } else if (discrimination != null && discrimination < LOW_DISCRIMINATION_THRESHOLD) {
+            flags.add("LOW_DISCRIMINATION");
+        }
+        return flags;
+    }
+}
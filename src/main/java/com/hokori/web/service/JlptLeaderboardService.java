@@ -0,0 +1,328 @@
+package com.hokori.web.service;
+
+import com.hokori.web.dto.jlpt.JlptLeaderboardResponse;
+import com.hokori.web.repository.JlptTestAttemptRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Leaderboard in-memory cho JLPT Test.
+ *
+ * Mỗi test giữ 1 {@link TestBoard}: điểm cao nhất của từng user, histogram theo điểm
+ * (điểm JLPT đã làm tròn về số nguyên trong khoảng 0..totalScore) và 1 TreeSet để lấy top-N.
+ * Rank/percentile tính trên histogram (O(totalScore)), không cần sort toàn bộ JlptTestAttempt.
+ *
+ * Board được build lazy từ DB ở lần truy cập đầu tiên và cập nhật sau khi transaction
+ * submit commit. Attempt commit trong lúc board đang build (snapshot DB có thể đã đọc trước đó)
+ * được giữ lại và áp dụng vào board khi build xong. Mỗi instance giữ board riêng; instance khác
+ * sẽ tự build lại từ DB.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JlptLeaderboardService {
+
+    private static final int MAX_LEADERBOARD_SIZE = 100;
+
+    private final JlptTestAttemptRepository attemptRepo;
+
+    private final Map<Long, TestBoard> boards = new ConcurrentHashMap<>();
+    // Board đang build: attempt commit trong lúc đó chờ ở đây
+    private final Map<Long, PendingOffers> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Ghi nhận 1 attempt mới. Nếu đang trong transaction thì chỉ áp dụng sau khi commit.
+     */
+    public void recordAttempt(Long testId, Long userId, String displayName, double score, Instant submittedAt) {
+        Runnable update = () -> apply(testId, board -> board.offer(userId, displayName, score, submittedAt));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    /**
+     * Vị trí của user nếu điểm cao nhất của họ là max(điểm hiện tại, candidateScore).
+     * Dùng candidateScore khi attempt vừa nộp chưa commit vào board.
+     *
+     * @return null nếu user chưa có điểm nào
+     */
+    public Standing getStanding(Long testId, Long userId, Double candidateScore) {
+        return board(testId).standing(userId, candidateScore);
+    }
+
+    public JlptLeaderboardResponse getLeaderboard(Long testId, Long userId, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_LEADERBOARD_SIZE));
+        TestBoard board = board(testId);
+
+        List<JlptLeaderboardResponse.Entry> entries = board.top(size);
+        Standing me = userId != null ? board.standing(userId, null) : null;
+
+        return JlptLeaderboardResponse.builder()
+                .testId(testId)
+                .totalRanked(board.size())
+                .entries(entries)
+                .myRank(me != null ? me.rank() : null)
+                .myBestScore(me != null ? me.bestScore() : null)
+                .myPercentile(me != null ? me.percentile() : null)
+                .build();
+    }
+
+    /**
+     * Bỏ board của 1 test (vd: khi đề bị sửa điểm), lần truy cập sau sẽ build lại từ DB.
+     */
+    public void evict(Long testId) {
+        boards.remove(testId);
+    }
+
+    /**
+     * Áp dụng 1 attempt đã commit. Board chưa được build (và không đang build) thì bỏ qua:
+     * lần build sau sẽ đọc attempt này từ DB.
+     */
+    private void apply(Long testId, Consumer<TestBoard> offer) {
+        TestBoard board = boards.get(testId);
+        if (board == null) {
+            PendingOffers pending = loading.get(testId);
+            if (pending != null) {
+                pending.add(offer);
+                return;
+            }
+            // loading chỉ bị xoá sau khi board đã vào boards
+            board = boards.get(testId);
+        }
+        if (board != null) {
+            offer.accept(board);
+        }
+    }
+
+    /**
+     * Board của test, build từ DB nếu chưa có. Query chạy ngoài map (không giữ lock bin của
+     * ConcurrentHashMap, board của test khác không phải chờ); thread khác cùng test chờ future của lần build đó.
+     */
+    private TestBoard board(Long testId) {
+        TestBoard existing = boards.get(testId);
+        if (existing != null) {
+            return existing;
+        }
+        // Đăng ký trước khi đọc DB: attempt nào commit sau thời điểm này đều được giữ lại
+        PendingOffers mine = new PendingOffers();
+        PendingOffers running = loading.putIfAbsent(testId, mine);
+        if (running != null) {
+            return running.await();
+        }
+        // Lần build trước có thể vừa xong giữa boards.get và putIfAbsent (board vào boards trước khi rời loading)
+        existing = boards.get(testId);
+        if (existing != null) {
+            loading.remove(testId, mine);
+            mine.complete(existing);
+            return existing;
+        }
+
+        TestBoard loaded;
+        try {
+            loaded = loadBoard(testId);
+        } catch (RuntimeException e) {
+            loading.remove(testId, mine);
+            mine.fail(e);
+            throw e;
+        }
+        mine.drainInto(loaded);
+        TestBoard published = boards.putIfAbsent(testId, loaded);
+        TestBoard board = published != null ? published : loaded;
+        loading.remove(testId, mine);
+        mine.complete(board);
+        return board;
+    }
+
+    private TestBoard loadBoard(Long testId) {
+        TestBoard board = new TestBoard();
+        List<Object[]> rows = attemptRepo.findBestScoresByTest(testId);
+        for (Object[] row : rows) {
+            Long userId = (Long) row[0];
+            String displayName = (String) row[1];
+            Double score = (Double) row[2];
+            Instant bestSubmittedAt = (Instant) row[3];
+            board.offer(userId, displayName, score != null ? score : 0.0, bestSubmittedAt);
+        }
+        log.debug("Built JLPT leaderboard for test {} with {} users", testId, rows.size());
+        return board;
+    }
+
+    /**
+     * 1 lần build board đang chạy. Attempt commit trong lúc đó được giữ lại; sau drainInto thì áp dụng thẳng
+     * vào board (board chưa kịp vào boards). offer chỉ giữ điểm cao nhất nên áp dụng trùng với snapshot DB không sao.
+     */
+    private static final class PendingOffers {
+
+        private final List<Consumer<TestBoard>> offers = new ArrayList<>();
+        private final CompletableFuture<TestBoard> result = new CompletableFuture<>();
+        private TestBoard target;
+
+        void complete(TestBoard board) {
+            result.complete(board);
+        }
+
+        void fail(RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+
+        /**
+         * Chờ thread đang build; build lỗi thì ném lại đúng exception đó
+         */
+        TestBoard await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                throw (RuntimeException) e.getCause();
+            }
+        }
+
+        synchronized void add(Consumer<TestBoard> offer) {
+            if (target != null) {
+                offer.accept(target);
+            } else {
+                offers.add(offer);
+            }
+        }
+
+        synchronized void drainInto(TestBoard board) {
+            target = board;
+            offers.forEach(offer -> offer.accept(board));
+            offers.clear();
+        }
+    }
+
+    public record Standing(int rank, int totalRanked, double bestScore, double percentile) {}
+
+    private record BoardEntry(Long userId, String displayName, double score, int bucket, Instant achievedAt) {}
+
+    /**
+     * Cấu trúc xếp hạng cho 1 test. Mọi thao tác đều synchronized trên board.
+     */
+    static final class TestBoard {
+
+        private static final Comparator<BoardEntry> ORDER = Comparator
+                .comparingDouble(BoardEntry::score).reversed()
+                .thenComparing(BoardEntry::achievedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(BoardEntry::userId);
+
+        private final Map<Long, BoardEntry> byUser = new HashMap<>();
+        private final TreeSet<BoardEntry> ordered = new TreeSet<>(ORDER);
+        // histogram[s] = số user có điểm cao nhất (làm tròn) = s
+        private int[] histogram = new int[181];
+
+        synchronized void offer(Long userId, String displayName, double score, Instant achievedAt) {
+            BoardEntry current = byUser.get(userId);
+            if (current != null && current.score() >= score) {
+                return; // Không cải thiện điểm cao nhất
+            }
+            if (current != null) {
+                ordered.remove(current);
+                histogram[current.bucket()]--;
+            }
+
+            int bucket = bucketOf(score);
+            ensureCapacity(bucket);
+            String name = displayName != null ? displayName : (current != null ? current.displayName() : null);
+            BoardEntry entry = new BoardEntry(userId, name, score, bucket, achievedAt);
+            byUser.put(userId, entry);
+            ordered.add(entry);
+            histogram[bucket]++;
+        }
+
+        synchronized Standing standing(Long userId, Double candidateScore) {
+            BoardEntry current = byUser.get(userId);
+            if (current == null && candidateScore == null) {
+                return null;
+            }
+
+            double best = current != null ? current.score() : candidateScore;
+            int total = byUser.size();
+            if (candidateScore != null && candidateScore > best) {
+                best = candidateScore;
+            }
+            if (current == null) {
+                total++; // User lần đầu có điểm
+            }
+
+            int bucket = bucketOf(best);
+            int higher = 0;
+            for (int i = bucket + 1; i < histogram.length; i++) {
+                higher += histogram[i];
+            }
+            // Số user đồng điểm (kể cả chính user). best >= điểm cũ nên điểm cũ của user
+            // không nằm trong "higher", chỉ cần tránh đếm 2 lần khi cùng bucket.
+            int ties = bucket < histogram.length ? histogram[bucket] : 0;
+            if (current != null && current.bucket() == bucket) {
+                ties--;
+            }
+            ties++;
+
+            int below = total - higher - ties;
+            double percentile = Math.round(1000.0 * (below + 0.5 * ties) / total) / 10.0;
+            return new Standing(higher + 1, total, best, percentile);
+        }
+
+        synchronized List<JlptLeaderboardResponse.Entry> top(int limit) {
+            List<JlptLeaderboardResponse.Entry> result = new ArrayList<>(Math.min(limit, ordered.size()));
+            int position = 0;
+            int rank = 0;
+            Integer previousBucket = null;
+            for (BoardEntry e : ordered) {
+                if (position >= limit) {
+                    break;
+                }
+                position++;
+                // Competition ranking: đồng điểm thì cùng hạng (1, 2, 2, 4...)
+                if (previousBucket == null || e.bucket() != previousBucket) {
+                    rank = position;
+                    previousBucket = e.bucket();
+                }
+                result.add(JlptLeaderboardResponse.Entry.builder()
+                        .rank(rank)
+                        .userId(e.userId())
+                        .displayName(e.displayName())
+                        .score(e.score())
+                        .build());
+            }
+            return result;
+        }
+
+        synchronized int size() {
+            return byUser.size();
+        }
+
+        private static int bucketOf(double score) {
+            return (int) Math.max(0, Math.round(score));
+        }
+
+        private void ensureCapacity(int bucket) {
+            if (bucket >= histogram.length) {
+                histogram = Arrays.copyOf(histogram, bucket + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.hokori.web.service;
+
+import com.hokori.web.repository.JlptUserTestSessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background job tự động nộp bài cho các JLPT session đã hết hạn mà user bỏ dở.
+ *
+ * - Tìm session hết hạn theo chunk (range scan trên expires_at)
+ * - Chấm điểm qua JlptTestService (cùng luồng với submitTest), mỗi session 1 transaction
+ * - Xoá answers tạm bằng bulk DELETE
+ *
+ * Metrics (Actuator /actuator/metrics):
+ * - jlpt.session.sweeper.backlog: số session hết hạn còn chờ xử lý
+ * - jlpt.session.sweeper.duration: thời gian 1 lần sweep
+ * - jlpt.session.sweeper.sessions{outcome=graded|discarded|failed}
+ */
+@Slf4j
+@Service
+public class JlptSessionSweeperService {
+
+    private final JlptUserTestSessionRepository sessionRepo;
+    private final JlptTestService jlptTestService;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final Timer sweepTimer;
+    private final Counter gradedCounter;
+    private final Counter discardedCounter;
+    private final Counter failedCounter;
+
+    @Value("${jlpt.session-sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jlpt.session-sweeper.batch-size:100}")
+    private int batchSize;
+
+    @Value("${jlpt.session-sweeper.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    // Thời gian ân hạn sau expires_at để user vẫn kịp tự bấm nộp bài muộn
+    @Value("${jlpt.session-sweeper.grace-period-minutes:5}")
+    private long gracePeriodMinutes;
+
+    public JlptSessionSweeperService(JlptUserTestSessionRepository sessionRepo,
+                                     JlptTestService jlptTestService,
+                                     MeterRegistry meterRegistry) {
+        this.sessionRepo = sessionRepo;
+        this.jlptTestService = jlptTestService;
+
+        Gauge.builder("jlpt.session.sweeper.backlog", backlog, AtomicLong::get)
+                .description("Expired JLPT sessions waiting to be auto-submitted")
+                .register(meterRegistry);
+        this.sweepTimer = Timer.builder("jlpt.session.sweeper.duration")
+                .description("Latency of one expired-session sweep")
+                .register(meterRegistry);
+        this.gradedCounter = meterRegistry.counter("jlpt.session.sweeper.sessions", "outcome", "graded");
+        this.discardedCounter = meterRegistry.counter("jlpt.session.sweeper.sessions", "outcome", "discarded");
+        this.failedCounter = meterRegistry.counter("jlpt.session.sweeper.sessions", "outcome", "failed");
+    }
+
+    @Scheduled(
+            fixedDelayString = "${jlpt.session-sweeper.interval-ms:60000}",
+            initialDelayString = "${jlpt.session-sweeper.initial-delay-ms:60000}"
+    )
+    public void sweepExpiredSessions() {
+        if (!enabled) {
+            return;
+        }
+        sweepTimer.record(this::sweep);
+    }
+
+    private void sweep() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(gracePeriodMinutes));
+        backlog.set(sessionRepo.countByExpiresAtBefore(cutoff));
+        if (backlog.get() == 0) {
+            return;
+        }
+
+        int graded = 0;
+        int discarded = 0;
+        int failed = 0;
+
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            // Luôn lấy trang đầu: session đã xử lý bị xoá nên không cần offset.
+            // Session lỗi vẫn còn lại, nên dừng nếu cả chunk đều lỗi để tránh lặp vô hạn.
+            List<Long> sessionIds = sessionRepo.findExpiredSessionIds(cutoff, PageRequest.of(0, batchSize));
+            if (sessionIds.isEmpty()) {
+                break;
+            }
+
+            int failedInBatch = 0;
+            for (Long sessionId : sessionIds) {
+                try {
+                    if (jlptTestService.autoSubmitExpiredSession(sessionId, cutoff)) {
+                        graded++;
+                        gradedCounter.increment();
+                    } else {
+                        discarded++;
+                        discardedCounter.increment();
+                    }
+                } catch (Exception e) {
+                    failed++;
+                    failedInBatch++;
+                    failedCounter.increment();
+                    log.warn("Failed to auto-submit expired JLPT session {}: {}", sessionId, e.getMessage());
+                }
+            }
+
+            if (failedInBatch == sessionIds.size() || sessionIds.size() < batchSize) {
+                break;
+            }
+        }
+
+        backlog.set(sessionRepo.countByExpiresAtBefore(cutoff));
+        log.info("JLPT session sweep done: graded={}, discarded={}, failed={}, remaining={}",
+                graded, discarded, failed, backlog.get());
+    }
+}
@@ -0,0 +1,444 @@
+package com.hokori.web.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hokori.web.Enum.JlptQuestionType;
+import com.hokori.web.dto.jlpt.JlptTestImportResponse;
+import com.hokori.web.entity.JlptTest;
+import com.hokori.web.repository.JlptQuestionRepository;
+import com.hokori.web.repository.JlptTestRepository;
+import com.hokori.web.util.CsvReader;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Import hàng loạt câu hỏi + options cho 1 JLPT Test từ file JSON hoặc CSV.
+ *
+ * - Đọc file dạng stream (JsonParser / CsvReader), không load toàn bộ file vào bộ nhớ
+ * - Validate mọi câu hỏi trong 1 lượt, gom lỗi kèm vị trí (questions[i] / line N)
+ * - Insert theo chunk bằng JDBC batch; có lỗi thì rollback toàn bộ
+ * - Cập nhật metadata của test (published) đúng 1 lần ở cuối
+ *
+ * JSON: {"questions": [{"questionType": "LISTENING", "content": "...", "explanation": "...",
+ *        "orderIndex": 1, "audioPath": "...", "imagePath": "...", "imageAltText": "...",
+ *        "options": [{"content": "...", "correct": true, "orderIndex": 1, "imagePath": "..."}]}]}
+ *       (hoặc mảng câu hỏi ở top-level)
+ *
+ * CSV: có header, mỗi dòng là 1 option; các dòng liên tiếp cùng question_no thuộc 1 câu hỏi,
+ *      thông tin câu hỏi lấy từ dòng đầu tiên. Cột: question_no, question_type, content,
+ *      explanation, order_index, audio_path, image_path, image_alt_text, option_content,
+ *      option_correct, option_order_index, option_image_path, option_image_alt_text
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JlptTestImportService {
+
+    private static final int CHUNK_SIZE = 100;
+    private static final int MAX_REPORTED_ERRORS = 50;
+    private static final int MAX_CONTENT_LENGTH = 1000;
+    private static final int MAX_EXPLANATION_LENGTH = 2000;
+    private static final int MAX_PATH_LENGTH = 500;
+    private static final int MAX_ALT_TEXT_LENGTH = 255;
+
+    private static final String RESERVE_QUESTION_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('jlpt_questions', 'id')) FROM generate_series(1, ?)";
+
+    private static final String INSERT_QUESTION_SQL = """
+        INSERT INTO jlpt_questions (id, test_id, content, question_type, explanation, order_index,
+                                    audio_path, image_path, image_alt_text, updated_at, deleted_flag)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, false)
+        """;
+
+    private static final String INSERT_OPTION_SQL = """
+        INSERT INTO jlpt_options (question_id, content, is_correct, order_index, image_path, image_alt_text, updated_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final JlptTestRepository testRepo;
+    private final JlptQuestionRepository questionRepo;
+    private final FileStorageService fileStorageService;
+
+    @Data
+    public static class ImportQuestion {
+        private String questionType;
+        private String content;
+        private String explanation;
+        private Integer orderIndex;
+        private String audioPath;
+        private String imagePath;
+        private String imageAltText;
+        private List<ImportOption> options = new ArrayList<>();
+    }
+
+    @Data
+    public static class ImportOption {
+        private String content;
+        private Boolean correct;
+        private Integer orderIndex;
+        private String imagePath;
+        private String imageAltText;
+    }
+
+    @Transactional
+    public JlptTestImportResponse importQuestions(Long testId, MultipartFile file) {
+        JlptTest test = testRepo.findById(testId)
+                .orElseThrow(() -> new EntityNotFoundException("Test not found"));
+
+        if (file == null || file.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Import file is empty");
+        }
+
+        ImportBatch batch = new ImportBatch(testId, questionRepo.findMaxOrderIndex(testId));
+        try (InputStream in = file.getInputStream()) {
+            if (isJson(file)) {
+                streamJson(in, batch);
+            } else if (isCsv(file)) {
+                streamCsv(in, batch);
+            } else {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unsupported import format. Please upload a .json or .csv file");
+            }
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot read import file: " + e.getMessage());
+        }
+        batch.finish();
+
+        if (!batch.errors.isEmpty()) {
+            // ResponseStatusException → rollback các chunk đã insert
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, formatErrors(batch.errors));
+        }
+        if (batch.importedQuestions == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Import file contains no questions");
+        }
+
+        // Cập nhật metadata 1 lần duy nhất: đủ 4 kỹ năng → publish
+        Map<String, Long> byType = new LinkedHashMap<>();
+        long totalQuestions = 0;
+        for (Object[] row : questionRepo.countByQuestionTypeForTest(testId)) {
+            long count = (Long) row[1];
+            byType.put(((JlptQuestionType) row[0]).name(), count);
+            totalQuestions += count;
+        }
+        boolean hasAllSkills = Arrays.stream(JlptQuestionType.values())
+                .allMatch(t -> byType.getOrDefault(t.name(), 0L) > 0);
+        if (hasAllSkills && !test.isPublished()) {
+            test.setPublished(true);
+            testRepo.save(test);
+        }
+
+        log.info("Imported {} questions / {} options into JLPT test {}",
+                batch.importedQuestions, batch.importedOptions, testId);
+
+        return JlptTestImportResponse.builder()
+                .testId(testId)
+                .importedQuestions(batch.importedQuestions)
+                .importedOptions(batch.importedOptions)
+                .totalQuestions(totalQuestions)
+                .questionsByType(byType)
+                .published(test.isPublished())
+                .build();
+    }
+
+    // ===== Parsers =====
+
+    private void streamJson(InputStream in, ImportBatch batch) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                readQuestionArray(parser, batch);
+                return;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "JSON import must be an object with \"questions\" or an array of questions");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("questions".equals(field) && value == JsonToken.START_ARRAY) {
+                    readQuestionArray(parser, batch);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private void readQuestionArray(JsonParser parser, ImportBatch batch) throws IOException {
+        int index = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            ImportQuestion q = parser.readValueAs(ImportQuestion.class);
+            batch.accept(q, "questions[" + index + "]");
+            index++;
+        }
+    }
+
+    private void streamCsv(InputStream in, ImportBatch batch) throws IOException {
+        CsvReader csv = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+            columns.put(name, i);
+        }
+        for (String required : List.of("question_no", "option_content", "option_correct")) {
+            if (!columns.containsKey(required)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header is missing column: " + required);
+            }
+        }
+
+        String currentNo = null;
+        ImportQuestion current = null;
+        String location = null;
+        List<String> row;
+        while ((row = csv.readRecord()) != null) {
+            String questionNo = cell(row, columns, "question_no");
+            if (current == null || !Objects.equals(questionNo, currentNo)) {
+                if (current != null) {
+                    batch.accept(current, location);
+                }
+                currentNo = questionNo;
+                location = "line " + csv.getLineNumber();
+                current = new ImportQuestion();
+                current.setQuestionType(cell(row, columns, "question_type"));
+                current.setContent(cell(row, columns, "content"));
+                current.setExplanation(cell(row, columns, "explanation"));
+                current.setOrderIndex(parseInteger(cell(row, columns, "order_index"), batch, location));
+                current.setAudioPath(cell(row, columns, "audio_path"));
+                current.setImagePath(cell(row, columns, "image_path"));
+                current.setImageAltText(cell(row, columns, "image_alt_text"));
+            }
+
+            ImportOption option = new ImportOption();
+            option.setContent(cell(row, columns, "option_content"));
+            String correct = cell(row, columns, "option_correct");
+            option.setCorrect(correct != null && (correct.equalsIgnoreCase("true") || correct.equals("1")
+                    || correct.equalsIgnoreCase("x") || correct.equalsIgnoreCase("yes")));
+            option.setOrderIndex(parseInteger(cell(row, columns, "option_order_index"), batch, "line " + csv.getLineNumber()));
+            option.setImagePath(cell(row, columns, "option_image_path"));
+            option.setImageAltText(cell(row, columns, "option_image_alt_text"));
+            current.getOptions().add(option);
+        }
+        if (current != null) {
+            batch.accept(current, location);
+        }
+    }
+
+    private static String cell(List<String> row, Map<String, Integer> columns, String name) {
+        Integer idx = columns.get(name);
+        if (idx == null || idx >= row.size()) {
+            return null;
+        }
+        String value = row.get(idx).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Integer parseInteger(String value, ImportBatch batch, String location) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            batch.error(location, "invalid number '" + value + "'");
+            return null;
+        }
+    }
+
+    private static boolean isJson(MultipartFile file) {
+        String name = file.getOriginalFilename();
+        String type = file.getContentType();
+        return (name != null && name.toLowerCase(Locale.ROOT).endsWith(".json"))
+                || (type != null && type.startsWith("application/json"));
+    }
+
+    private static boolean isCsv(MultipartFile file) {
+        String name = file.getOriginalFilename();
+        String type = file.getContentType();
+        return (name != null && name.toLowerCase(Locale.ROOT).endsWith(".csv"))
+                || (type != null && (type.startsWith("text/csv") || type.startsWith("application/vnd.ms-excel")));
+    }
+
+    private static String formatErrors(List<String> errors) {
+        StringBuilder sb = new StringBuilder("Import failed with ").append(errors.size()).append(" error(s): ");
+        int shown = Math.min(errors.size(), MAX_REPORTED_ERRORS);
+        sb.append(String.join("; ", errors.subList(0, shown)));
+        if (errors.size() > shown) {
+            sb.append("; ... and ").append(errors.size() - shown).append(" more");
+        }
+        return sb.toString();
+    }
+
+    // ===== Validate + batch insert =====
+
+    /**
+     * Validate từng câu hỏi khi stream, gom vào chunk và flush bằng JDBC batch.
+     * Khi đã có lỗi thì ngừng insert nhưng vẫn validate tiếp để báo đủ lỗi trong 1 lần.
+     */
+    private final class ImportBatch {
+
+        private final Long testId;
+        private final List<ImportQuestion> buffer = new ArrayList<>(CHUNK_SIZE);
+        private final List<String> errors = new ArrayList<>();
+        private final Map<String, Boolean> fileExists = new HashMap<>();
+        private final Timestamp now = Timestamp.from(Instant.now());
+        private int nextOrderIndex;
+        private int importedQuestions = 0;
+        private int importedOptions = 0;
+
+        ImportBatch(Long testId, Integer maxOrderIndex) {
+            this.testId = testId;
+            this.nextOrderIndex = maxOrderIndex != null ? maxOrderIndex + 1 : 1;
+        }
+
+        void error(String location, String message) {
+            errors.add(location + ": " + message);
+        }
+
+        void accept(ImportQuestion q, String location) {
+            validate(q, location);
+            if (!errors.isEmpty()) {
+                buffer.clear();
+                return;
+            }
+
+            if (q.getOrderIndex() == null) {
+                q.setOrderIndex(nextOrderIndex);
+            }
+            nextOrderIndex = Math.max(nextOrderIndex, q.getOrderIndex() + 1);
+
+            buffer.add(q);
+            if (buffer.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void finish() {
+            if (errors.isEmpty()) {
+                flush();
+            }
+        }
+
+        private void validate(ImportQuestion q, String location) {
+            if (q.getQuestionType() == null) {
+                error(location, "questionType is required");
+            } else {
+                try {
+                    q.setQuestionType(JlptQuestionType.valueOf(q.getQuestionType().trim().toUpperCase(Locale.ROOT)).name());
+                } catch (IllegalArgumentException e) {
+                    error(location, "invalid questionType '" + q.getQuestionType()
+                            + "' (expected LISTENING, READING, GRAMMAR or VOCAB)");
+                }
+            }
+            checkText(q.getContent(), true, MAX_CONTENT_LENGTH, "content", location);
+            checkText(q.getExplanation(), false, MAX_EXPLANATION_LENGTH, "explanation", location);
+            checkText(q.getImageAltText(), false, MAX_ALT_TEXT_LENGTH, "imageAltText", location);
+            checkFile(q.getAudioPath(), "audioPath", location);
+            checkFile(q.getImagePath(), "imagePath", location);
+
+            List<ImportOption> options = q.getOptions() != null ? q.getOptions() : List.of();
+            if (options.size() < 2) {
+                error(location, "at least 2 options are required");
+            }
+            long correctCount = options.stream().filter(o -> Boolean.TRUE.equals(o.getCorrect())).count();
+            if (!options.isEmpty() && correctCount != 1) {
+                error(location, "exactly 1 correct option is required (found " + correctCount + ")");
+            }
+            for (int i = 0; i < options.size(); i++) {
+                ImportOption o = options.get(i);
+                String optionLocation = location + ".options[" + i + "]";
+                checkText(o.getContent(), true, MAX_CONTENT_LENGTH, "content", optionLocation);
+                checkText(o.getImageAltText(), false, MAX_ALT_TEXT_LENGTH, "imageAltText", optionLocation);
+                checkFile(o.getImagePath(), "imagePath", optionLocation);
+            }
+        }
+
+        private void checkText(String value, boolean required, int maxLength, String field, String location) {
+            if (value == null || value.isBlank()) {
+                if (required) {
+                    error(location, field + " is required");
+                }
+            } else if (value.length() > maxLength) {
+                error(location, field + " exceeds " + maxLength + " characters");
+            }
+        }
+
+        /**
+         * Giống createQuestion: file phải được upload trước. Mỗi path chỉ kiểm tra 1 lần.
+         */
+        private void checkFile(String path, String field, String location) {
+            if (path == null || path.isEmpty()) {
+                return;
+            }
+            if (path.length() > MAX_PATH_LENGTH) {
+                error(location, field + " exceeds " + MAX_PATH_LENGTH + " characters");
+                return;
+            }
+            String filePath = path.startsWith("/files/") ? path.substring("/files/".length()) : path;
+            boolean exists = fileExists.computeIfAbsent(filePath, p -> fileStorageService.getFile(p) != null);
+            if (!exists) {
+                error(location, field + " not found in storage: " + filePath + ". Please upload the file first.");
+            }
+        }
+
+        private void flush() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+
+            // Lấy trước id từ sequence để insert options cùng chunk mà không cần đọc lại generated keys
+            List<Long> ids = jdbcTemplate.queryForList(RESERVE_QUESTION_IDS_SQL, Long.class, buffer.size());
+
+            List<Object[]> questionRows = new ArrayList<>(buffer.size());
+            List<Object[]> optionRows = new ArrayList<>();
+            for (int i = 0; i < buffer.size(); i++) {
+                ImportQuestion q = buffer.get(i);
+                Long questionId = ids.get(i);
+                questionRows.add(new Object[]{
+                        questionId, testId, q.getContent(), q.getQuestionType(), q.getExplanation(),
+                        q.getOrderIndex(), q.getAudioPath(), q.getImagePath(), q.getImageAltText(), now
+                });
+
+                List<ImportOption> options = q.getOptions();
+                for (int j = 0; j < options.size(); j++) {
+                    ImportOption o = options.get(j);
+                    optionRows.add(new Object[]{
+                            questionId, o.getContent(), Boolean.TRUE.equals(o.getCorrect()),
+                            o.getOrderIndex() != null ? o.getOrderIndex() : j + 1,
+                            o.getImagePath(), o.getImageAltText(), now
+                    });
+                }
+            }
+
+            jdbcTemplate.batchUpdate(INSERT_QUESTION_SQL, questionRows);
+            jdbcTemplate.batchUpdate(INSERT_OPTION_SQL, optionRows);
+
+            importedQuestions += questionRows.size();
+            importedOptions += optionRows.size();
+            buffer.clear();
+        }
+    }
+}
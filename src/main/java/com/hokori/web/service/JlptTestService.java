@@ -30,6 +30,8 @@ public class JlptTestService {
     private final JlptTestAttemptAnswerRepository attemptAnswerRepo;
     private final LearnerProgressService learnerProgressService;
     private final FileStorageService fileStorageService;
+    private final JlptLeaderboardService leaderboardService;
+    private final JlptItemAnalysisService itemAnalysisService;
 
     private static final int DEFAULT_TOTAL_SCORE = 180;
 
@@ -557,6 +559,9 @@ public class JlptTestService {
         String level = test.getLevel();
         double passScore = calculatePassScore(level, totalMax);
 
+        JlptLeaderboardService.Standing standing =
+                leaderboardService.getStanding(test.getId(), attempt.getUser().getId(), attempt.getScore());
+
         return JlptTestResultResponse.builder()
                 .testId(attempt.getTest().getId())
                 .userId(attempt.getUser().getId())
@@ -569,6 +574,9 @@ public class JlptTestService {
                 .attemptId(attempt.getId())  // Có attemptId vì đã submit
                 .startedAt(attempt.getStartedAt())
                 .submittedAt(attempt.getSubmittedAt())
+                .rank(standing != null ? standing.rank() : null)
+                .totalRanked(standing != null ? standing.totalRanked() : null)
+                .percentile(standing != null ? standing.percentile() : null)
                 .grammarVocab(JlptTestResultResponse.SectionScore.builder()
                         .totalQuestions(attempt.getGrammarVocabTotal() != null ? attempt.getGrammarVocabTotal() : 0)
                         .correctCount(attempt.getGrammarVocabCorrect() != null ? attempt.getGrammarVocabCorrect() : 0)
@@ -668,11 +676,48 @@ public class JlptTestService {
 
         // Cho phép submit ngay cả khi đã hết thời gian (user có thể submit muộn)
         // Nhưng vẫn lưu thời gian submit thực tế
+        return gradeAndCloseSession(test, user, session, Instant.now());
+    }
 
-        // Tính kết quả hiện tại
-        JlptTestResultResponse result = getResultForUser(testId, userId);
+    /**
+     * Tự động nộp bài cho 1 session đã hết hạn (dùng bởi {@link JlptSessionSweeperService}).
+     * Chấm điểm qua đúng luồng submit; session không có câu trả lời nào thì chỉ xoá session.
+     *
+     * @return true nếu đã tạo attempt, false nếu session đã bị xử lý hoặc không có câu trả lời
+     */
+    @Transactional
+    public boolean autoSubmitExpiredSession(Long sessionId, Instant cutoff) {
+        JlptUserTestSession session = sessionRepo.findById(sessionId).orElse(null);
+        if (session == null || !session.getExpiresAt().isBefore(cutoff)) {
+            // User đã tự nộp/start lại trong lúc sweeper chạy
+            return false;
+        }
 
-        Instant now = Instant.now();
+        Long testId = session.getTest().getId();
+        Long userId = session.getUser().getId();
+
+        if (answerRepo.countByUser_IdAndTest_Id(userId, testId) == 0) {
+            sessionRepo.delete(session);
+            return false;
+        }
+
+        // Thời gian nộp = hạn chót của session, không phải thời điểm sweeper chạy
+        gradeAndCloseSession(session.getTest(), session.getUser(), session, session.getExpiresAt());
+        return true;
+    }
+
+    /**
+     * Chấm điểm session hiện tại, lưu attempt + chi tiết từng câu, rồi xoá session và answers tạm.
+     */
+    private JlptTestResultResponse gradeAndCloseSession(JlptTest test,
+                                                       User user,
+                                                       JlptUserTestSession session,
+                                                       Instant now) {
+        Long testId = test.getId();
+        Long userId = user.getId();
+
+        // Tính kết quả hiện tại
+        JlptTestResultResponse result = getResultFromCurrentSession(testId, userId, test);
 
         // Lấy thông tin điểm từng phần từ result
         JlptTestResultResponse.SectionScore grammarVocab = result.getGrammarVocab();
@@ -701,6 +746,7 @@ public class JlptTestService {
                 .build();
 
         attemptRepo.save(attempt);
+        leaderboardService.recordAttempt(testId, userId, user.getDisplayName(), result.getScore(), now);
 
         // Lưu chi tiết TẤT CẢ câu hỏi vào attempt (kể cả những câu chưa chọn đáp án)
         // Lấy tất cả câu hỏi của test
@@ -715,6 +761,7 @@ public class JlptTestService {
                 ));
 
         // Lưu từng câu hỏi vào attempt answer
+        List<JlptItemAnalysisService.ItemOutcome> outcomes = new java.util.ArrayList<>(allQuestions.size());
         for (JlptQuestion question : allQuestions) {
             JlptAnswer answer = answerMap.get(question.getId());
             
@@ -739,11 +786,22 @@ public class JlptTestService {
                     .isCorrect(isCorrect)
                     .build();
             attemptAnswerRepo.save(attemptAnswer);
+            outcomes.add(new JlptItemAnalysisService.ItemOutcome(
+                    question.getId(),
+                    selectedOption != null ? selectedOption.getId() : null,
+                    Boolean.TRUE.equals(isCorrect)));
         }
 
+        // Cộng dồn thống kê item analysis (độ khó, độ phân hoá, phân bố đáp án)
+        itemAnalysisService.recordAttempt(testId, result.getScore(), outcomes);
+
         // Xóa session và answers để user có thể làm lại từ đầu
         sessionRepo.delete(session);
-        answerRepo.deleteByUser_IdAndTest_Id(userId, testId);
+        answerRepo.bulkDeleteByUserAndTest(userId, testId);
+
+        // Attempt vừa nộp chưa commit vào leaderboard → truyền điểm hiện tại làm candidate
+        JlptLeaderboardService.Standing standing =
+                leaderboardService.getStanding(testId, userId, result.getScore());
 
         // Cập nhật result với thông tin attempt vừa tạo
         return JlptTestResultResponse.builder()
@@ -758,6 +816,9 @@ public class JlptTestService {
                 .attemptId(attempt.getId())
                 .startedAt(session.getStartedAt())
                 .submittedAt(now)
+                .rank(standing != null ? standing.rank() : null)
+                .totalRanked(standing != null ? standing.totalRanked() : null)
+                .percentile(standing != null ? standing.percentile() : null)
                 .grammarVocab(result.getGrammarVocab())
                 .reading(result.getReading())
                 .listening(result.getListening())
@@ -992,6 +1053,8 @@ public class JlptTestService {
         test.setDurationMin(req.getDurationMin());
         test.setTotalScore(req.getTotalScore());
         test.setResult(req.getResultNote());
+        // totalScore có thể đổi → build lại leaderboard từ DB
+        leaderboardService.evict(testId);
 
         // test đang được quản lý bởi JPA, chỉ cần return, không cần save()
         return JlptTestResponse.fromEntity(test);
@@ -1159,8 +1222,9 @@ public class JlptTestService {
                     .findByTest_IdAndUser_Id(testId, userId)
                     .orElseThrow(() -> new RuntimeException("Failed to create/update session"));
 
-            // Only increment participants for new sessions (first time user takes this test)
-            if (isNewSession) {
+            // Only increment participants the first time user takes this test.
+            // Không có session chưa chắc là lần đầu: session bị xoá khi nộp bài / bị sweeper dọn (discard)
+            if (isNewSession && sessionRepo.registerParticipant(testId, userId, now) == 1) {
                 Integer cur = test.getCurrentParticipants();
                 test.setCurrentParticipants((cur == null ? 0 : cur) + 1);
             }
@@ -1240,6 +1304,14 @@ public class JlptTestService {
     }
 
 
+    @Transactional(readOnly = true)
+    public JlptLeaderboardResponse getLeaderboard(Long testId, Long userId, int limit) {
+        if (!testRepo.existsById(testId)) {
+            throw new EntityNotFoundException("Test not found");
+        }
+        return leaderboardService.getLeaderboard(testId, userId, limit);
+    }
+
     @Transactional(readOnly = true)
     public long getActiveUserCount(Long testId) {
         Instant now = Instant.now();
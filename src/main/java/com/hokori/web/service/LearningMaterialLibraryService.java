@@ -0,0 +1,259 @@
+package com.hokori.web.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hokori.web.Enum.AIRequestPriority;
+import com.hokori.web.entity.ConversationLearningMaterial;
+import com.hokori.web.repository.ConversationLearningMaterialRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Thư viện tài liệu học cho luyện hội thoại (ConversationPracticeService.startConversation).
+ *
+ * - Tài liệu chỉ phụ thuộc (level, scenario key) nên sinh 1 lần, lưu bảng conversation_learning_material
+ *   và phục vụ từ memory; startConversation không phải chờ Gemini
+ * - Bản cũ hơn refresh-after vẫn được trả ngay, đồng thời refresh nền (stale-while-revalidate)
+ * - Job định kỳ (refreshInBackground) sinh sẵn mọi (level, scenario) còn thiếu/cũ trên 1 thread riêng
+ * - Nhiều request cùng key đồng thời chỉ gọi Gemini 1 lần (single-flight); generator trả null = lỗi,
+ *   không lưu gì để lần sau thử lại
+ * - Kịch bản tự do (mô tả chi tiết) không lưu thư viện, chỉ dùng chung qua {@link #generateShared}
+ *
+ * Metrics: ai.learning_materials{result=memory|db|generated|coalesced|failed}
+ */
+@Slf4j
+@Service
+public class LearningMaterialLibraryService {
+
+    /**
+     * Sinh tài liệu cho 1 (level, scenario)
+     */
+    @FunctionalInterface
+    public interface MaterialGenerator {
+        /**
+         * @return tài liệu, hoặc null nếu sinh lỗi (không được lưu)
+         */
+        Map<String, Object> generate(String level, String scenario, AIRequestPriority priority);
+    }
+
+    private record Entry(Map<String, Object> materials, Instant generatedAt) {
+    }
+
+    private final ConversationLearningMaterialRepository materialRepo;
+    private final Duration refreshAfter;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ConcurrentHashMap<String, Entry> library = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean bulkRefreshRunning = new AtomicBoolean(false);
+    private final ExecutorService refresher;
+
+    private final Counter memoryHits;
+    private final Counter dbHits;
+    private final Counter generated;
+    private final Counter coalesced;
+    private final Counter failed;
+
+    public LearningMaterialLibraryService(ConversationLearningMaterialRepository materialRepo,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${conversation.learning-materials.refresh-after-days:30}") long refreshAfterDays) {
+        this.materialRepo = materialRepo;
+        this.refreshAfter = Duration.ofDays(refreshAfterDays);
+        this.refresher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "learning-material-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.memoryHits = meterRegistry.counter("ai.learning_materials", "result", "memory");
+        this.dbHits = meterRegistry.counter("ai.learning_materials", "result", "db");
+        this.generated = meterRegistry.counter("ai.learning_materials", "result", "generated");
+        this.coalesced = meterRegistry.counter("ai.learning_materials", "result", "coalesced");
+        this.failed = meterRegistry.counter("ai.learning_materials", "result", "failed");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Tài liệu của (level, scenario): memory, rồi DB, rồi generator (INTERACTIVE, single-flight)
+     *
+     * @return bản sao tài liệu, null nếu chưa có và sinh lỗi (caller dùng tài liệu tĩnh)
+     */
+    public Map<String, Object> get(String level, String scenario, MaterialGenerator generator) {
+        String key = key(level, scenario);
+        Entry entry = library.get(key);
+        if (entry != null) {
+            memoryHits.increment();
+            refreshIfStale(level, scenario, entry, generator);
+            return new HashMap<>(entry.materials());
+        }
+        Map<String, Object> materials = generateShared(key, () -> load(level, scenario, generator));
+        return materials != null ? new HashMap<>(materials) : null;
+    }
+
+    /**
+     * Single-flight cho 1 key bất kỳ: các caller đồng thời cùng key dùng chung 1 lần gọi generator.
+     * Không lưu kết quả (dùng cho kịch bản tự do, vốn đã qua cache Gemini).
+     */
+    public Map<String, Object> generateShared(String key, Supplier<Map<String, Object>> generator) {
+        CompletableFuture<Map<String, Object>> mine = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        try {
+            Map<String, Object> result = generator.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Sinh sẵn/refresh mọi (level, scenario) còn thiếu hoặc đã cũ, tuần tự trên thread riêng
+     * (priority BACKGROUND). Bỏ qua nếu lần chạy trước chưa xong.
+     */
+    public void refreshInBackground(Collection<String> levels, Collection<String> scenarios, MaterialGenerator generator) {
+        if (!bulkRefreshRunning.compareAndSet(false, true)) {
+            log.debug("Learning material refresh still running, skipping this round");
+            return;
+        }
+        refresher.execute(() -> {
+            int refreshed = 0;
+            try {
+                for (String level : levels) {
+                    for (String scenario : scenarios) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        String key = key(level, scenario);
+                        Entry entry = library.computeIfAbsent(key, k -> loadFromDb(level, scenario));
+                        if ((entry == null || isStale(entry)) && refresh(level, scenario, generator)) {
+                            refreshed++;
+                        }
+                    }
+                }
+            } finally {
+                bulkRefreshRunning.set(false);
+                log.info("Learning material library refresh finished: {} entries generated, {} in library",
+                        refreshed, library.size());
+            }
+        });
+    }
+
+    private Map<String, Object> load(String level, String scenario, MaterialGenerator generator) {
+        // Có thể request khác vừa nạp xong trong lúc chờ single-flight
+        Entry entry = library.get(key(level, scenario));
+        if (entry == null) {
+            entry = loadFromDb(level, scenario);
+            if (entry != null) {
+                dbHits.increment();
+                library.put(key(level, scenario), entry);
+            }
+        }
+        if (entry != null) {
+            refreshIfStale(level, scenario, entry, generator);
+            return entry.materials();
+        }
+        return store(level, scenario, generator.generate(level, scenario, AIRequestPriority.INTERACTIVE));
+    }
+
+    private void refreshIfStale(String level, String scenario, Entry entry, MaterialGenerator generator) {
+        String key = key(level, scenario);
+        if (!isStale(entry) || !refreshing.add(key)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    refresh(level, scenario, generator);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(key); // executor đã shutdown
+        }
+    }
+
+    private boolean refresh(String level, String scenario, MaterialGenerator generator) {
+        try {
+            return store(level, scenario, generator.generate(level, scenario, AIRequestPriority.BACKGROUND)) != null;
+        } catch (Exception e) {
+            failed.increment();
+            log.warn("Failed to refresh learning materials for {}/{}: {}", level, scenario, e.getMessage());
+            return false;
+        }
+    }
+
+    private Map<String, Object> store(String level, String scenario, Map<String, Object> materials) {
+        if (materials == null) {
+            failed.increment();
+            return null;
+        }
+        generated.increment();
+        Instant now = Instant.now();
+        library.put(key(level, scenario), new Entry(Map.copyOf(materials), now));
+        try {
+            materialRepo.upsert(key(level, scenario), level, scenario, objectMapper.writeValueAsString(materials), now);
+        } catch (Exception e) {
+            // Vẫn phục vụ từ memory; lần refresh sau ghi lại
+            log.warn("Failed to persist learning materials for {}/{}: {}", level, scenario, e.getMessage());
+        }
+        return materials;
+    }
+
+    private Entry loadFromDb(String level, String scenario) {
+        try {
+            ConversationLearningMaterial row = materialRepo.findById(key(level, scenario)).orElse(null);
+            if (row == null) {
+                return null;
+            }
+            Map<String, Object> materials = objectMapper.readValue(row.getMaterialsJson(),
+                    new TypeReference<Map<String, Object>>() {});
+            return new Entry(Map.copyOf(materials), row.getGeneratedAt());
+        } catch (Exception e) {
+            log.warn("Failed to load learning materials for {}/{}: {}", level, scenario, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isStale(Entry entry) {
+        return entry.generatedAt().plus(refreshAfter).isBefore(Instant.now());
+    }
+
+    private static String key(String level, String scenario) {
+        return level + ":" + scenario;
+    }
+}
@@ -905,6 +905,7 @@ public class PaymentService {
         if (aiPackage.getTotalRequests() != null) {
             allocateUnifiedQuota(user.getId(), aiPackage.getTotalRequests());
         }
+        aiPackageService.invalidateEntitlement(user.getId());
         
         log.info("Activated AI package purchase: userId={}, packageId={}, purchaseId={}, totalRequests={}", 
                 user.getId(), aiPackage.getId(), purchase.getId(), aiPackage.getTotalRequests());
@@ -2,6 +2,8 @@ package com.hokori.web.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hokori.web.Enum.AIRequestPriority;
+import com.hokori.web.Enum.GeminiCacheSite;
 import com.hokori.web.dto.GrammarItem;
 import com.hokori.web.dto.SentenceAnalysisResponse;
 import com.hokori.web.dto.VocabularyItem;
@@ -14,6 +16,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
 /**
  * Service for AI Sentence Analysis feature
@@ -26,6 +34,25 @@ public class SentenceAnalysisService {
 
     private static final Logger logger = LoggerFactory.getLogger(SentenceAnalysisService.class);
 
+    // ă đ ơ ư, â ê ô có dấu thanh (â ê ô không dấu có trong tiếng Pháp / Bồ Đào Nha),
+    // và dấu hỏi / nặng / ngã chỉ tiếng Việt dùng
+    private static final Pattern VIETNAMESE_LETTERS =
+            Pattern.compile("[ăằắặẳẵầấậẩẫđềếệểễồốộổỗơờớợởỡưừứựửữạảẹẻẽịỉĩọỏụủũỵỷỹ]");
+
+    // Chủ đề cho bộ câu ví dụ: mỗi request chọn ngẫu nhiên 1 chủ đề, chủ đề nằm trong prompt nên là 1 phần
+    // của cache key → mỗi level có nhiều bộ câu được cache song song thay vì 1 bộ dùng chung cả ngày
+    private static final List<String> EXAMPLE_SENTENCE_TOPICS = List.of(
+            "daily routines and housework",
+            "school, study and exams",
+            "work and the office",
+            "shopping and money",
+            "food, cooking and restaurants",
+            "travel, transport and directions",
+            "weather, seasons and nature",
+            "hobbies, sports and free time",
+            "health, the body and the hospital",
+            "family, friends and relationships");
+
     @Value("${google.cloud.project-id:hokori-web}")
     private String projectId;
 
@@ -41,49 +68,61 @@ public class SentenceAnalysisService {
     @Autowired(required = false)
     private AIService aiService;
 
+    @Autowired(required = false)
+    private JapaneseTokenizerService japaneseTokenizer;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
      * Analyze Japanese sentence for vocabulary and grammar
+     * Non-blocking: the Gemini calls run in parallel and the returned future completes when all of them have
+     * answered (cancelling it cancels the calls still in flight)
      *
      * @param sentence Japanese sentence to analyze (max 200 characters)
      * @param level User's JLPT level (N5-N1)
-     * @return SentenceAnalysisResponse with vocabulary and grammar analysis
+     * @return future of SentenceAnalysisResponse with vocabulary and grammar analysis
      */
-    public SentenceAnalysisResponse analyzeSentence(String sentence, String level) {
+    public CompletableFuture<SentenceAnalysisResponse> analyzeSentence(String sentence, String level) {
         if (!googleCloudEnabled) {
-            throw new AIServiceException("Sentence Analysis",
+            return CompletableFuture.failedFuture(new AIServiceException("Sentence Analysis",
                 "Google Cloud AI is not enabled. Please enable it in application properties.",
-                "SENTENCE_ANALYSIS_SERVICE_DISABLED");
+                "SENTENCE_ANALYSIS_SERVICE_DISABLED"));
         }
 
         // Validate GeminiService is available
         if (geminiService == null) {
-            throw new AIServiceException("Sentence Analysis",
+            return CompletableFuture.failedFuture(new AIServiceException("Sentence Analysis",
                 "Gemini service is not available. Please ensure Google Cloud is properly configured.",
-                "GEMINI_SERVICE_NOT_AVAILABLE");
+                "GEMINI_SERVICE_NOT_AVAILABLE"));
         }
 
         // Input validation
         if (!StringUtils.hasText(sentence)) {
-            throw new AIServiceException("Sentence Analysis", "Sentence cannot be empty", "INVALID_INPUT");
+            return CompletableFuture.failedFuture(
+                new AIServiceException("Sentence Analysis", "Sentence cannot be empty", "INVALID_INPUT"));
         }
 
         if (sentence.length() > maxSentenceLength) {
-            throw new AIServiceException("Sentence Analysis",
-                "Sentence exceeds maximum length of " + maxSentenceLength + " characters", "INVALID_INPUT");
+            return CompletableFuture.failedFuture(new AIServiceException("Sentence Analysis",
+                "Sentence exceeds maximum length of " + maxSentenceLength + " characters", "INVALID_INPUT"));
         }
 
         String normalizedLevel = normalizeLevel(level);
         logger.info("Analyzing sentence: sentenceLength={}, level={}", sentence.length(), normalizedLevel);
 
+        // Caller cancels (e.g. request timeout): cancel the step in flight (translation or the analysis calls)
+        CompletableFuture<SentenceAnalysisResponse> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<?>> currentStep = new AtomicReference<>();
+        result.whenComplete((value, error) -> {
+            CompletableFuture<?> step = currentStep.get();
+            if (error != null && step != null) {
+                step.cancel(true);
+            }
+        });
+
+        CompletableFuture<SentenceAnalysisResponse> analysis;
         try {
             // Step 0: Detect language and translate accordingly
-            String japaneseSentence = sentence;
-            String originalSentence = null;
-            String vietnameseTranslation = null;
-            boolean isTranslated = false;
-            
             logger.info("Detecting language for input: '{}'", sentence);
             String detectedLanguage = detectLanguage(sentence);
             logger.info("Detected language: {}", detectedLanguage);
@@ -96,80 +135,152 @@ public class SentenceAnalysisService {
             }
             
             if ("vi".equals(detectedLanguage)) {
-                // Input is Vietnamese → Translate to Japanese
+                // Input is Vietnamese → Translate to Japanese, then analyze the translation
                 logger.info("Vietnamese detected! Translating to Japanese for level: {}", normalizedLevel);
-                originalSentence = sentence;
-                try {
-                    japaneseSentence = translateVietnameseToJapanese(sentence, normalizedLevel);
-                    isTranslated = true;
-                    logger.info("✅ Successfully translated Vietnamese to Japanese: '{}' -> '{}'", originalSentence, japaneseSentence);
-                } catch (Exception e) {
-                    logger.error("❌ Translation failed: {}", e.getMessage(), e);
-                    throw new AIServiceException("Sentence Analysis",
-                        "Không thể dịch câu tiếng Việt sang tiếng Nhật: " + e.getMessage(), e);
-                }
+                analysis = step(result, currentStep, translateVietnameseToJapanese(sentence, normalizedLevel))
+                    .handle((japaneseSentence, error) -> {
+                        if (error != null) {
+                            Throwable cause = unwrap(error);
+                            logger.error("❌ Translation failed: {}", cause.getMessage(), cause);
+                            throw new AIServiceException("Sentence Analysis",
+                                "Không thể dịch câu tiếng Việt sang tiếng Nhật: " + cause.getMessage(), cause);
+                        }
+                        logger.info("✅ Successfully translated Vietnamese to Japanese: '{}' -> '{}'", sentence, japaneseSentence);
+                        return japaneseSentence;
+                    })
+                    .thenComposeAsync(japaneseSentence ->
+                            step(result, currentStep, analyzeJapanese(japaneseSentence, normalizedLevel)),
+                        GeminiService.callerContext())
+                    .thenApply(response -> {
+                        response.setOriginalSentence(sentence);
+                        response.setIsTranslated(true);
+                        return response;
+                    });
             } else {
                 // Input is Japanese → Translate to Vietnamese for display
                 // May contain Latin characters (e.g., "JLPT", "N5", abbreviations) - that's OK
+                // Gemini calls start first; the (optional) Google translation runs while they are in flight
+                analysis = step(result, currentStep, analyzeJapanese(sentence, normalizedLevel));
                 logger.info("Japanese detected! Translating to Vietnamese for better understanding");
-                try {
-                    vietnameseTranslation = translateJapaneseToVietnamese(japaneseSentence);
-                    logger.info("✅ Successfully translated Japanese to Vietnamese: '{}' -> '{}'", japaneseSentence, vietnameseTranslation);
-                } catch (Exception e) {
-                    logger.warn("⚠️ Failed to translate Japanese to Vietnamese (non-critical): {}", e.getMessage());
-                    // Translation to Vietnamese is optional, continue without it
-                    vietnameseTranslation = null;
-                }
+                String vietnameseTranslation = translateJapaneseToVietnamese(sentence);
+                analysis = analysis.thenApply(response -> {
+                    response.setIsTranslated(false);
+                    response.setVietnameseTranslation(vietnameseTranslation);
+                    return response;
+                });
             }
+        } catch (Exception e) {
+            analysis = CompletableFuture.failedFuture(e);
+        }
 
-            // Step 1: Analyze vocabulary (handles mixed Japanese + Latin characters)
-            // Note: Latin characters like "JLPT", "N5" are common in Japanese learning context
-            List<VocabularyItem> vocabulary = analyzeVocabulary(japaneseSentence, normalizedLevel);
-
-            // Step 2: Analyze grammar
-            List<GrammarItem> grammar = analyzeGrammar(japaneseSentence, normalizedLevel);
-
-            // Step 3: Analyze sentence breakdown
-            SentenceAnalysisResponse.SentenceBreakdown breakdown = analyzeSentenceBreakdown(japaneseSentence, normalizedLevel);
+        analysis.whenComplete((response, error) -> {
+            if (error == null) {
+                result.complete(response);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            if (cause instanceof AIServiceException) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            logger.error("Sentence analysis failed", cause);
+            result.completeExceptionally(new AIServiceException("Sentence Analysis",
+                "Sentence analysis failed: " + cause.getMessage(), cause));
+        });
+        return result;
+    }
 
-            // Step 4: Get related sentences
-            List<String> relatedSentences = getRelatedSentences(japaneseSentence, normalizedLevel);
+    /**
+     * Registers the step now in flight; if the caller already gave up, the step is cancelled right away
+     */
+    private static <T> CompletableFuture<T> step(CompletableFuture<?> result,
+                                                 AtomicReference<CompletableFuture<?>> currentStep,
+                                                 CompletableFuture<T> step) {
+        currentStep.set(step);
+        if (result.isDone()) {
+            step.cancel(true);
+        }
+        return step;
+    }
 
-            // Step 5: Build response
-            SentenceAnalysisResponse response = new SentenceAnalysisResponse();
-            response.setSentence(japaneseSentence);
-            response.setOriginalSentence(isTranslated ? originalSentence : null);
-            response.setIsTranslated(isTranslated);
-            response.setVietnameseTranslation(vietnameseTranslation);
-            response.setLevel(normalizedLevel);
-            response.setVocabulary(vocabulary);
-            response.setGrammar(grammar);
-            response.setSentenceBreakdown(breakdown);
-            response.setRelatedSentences(relatedSentences);
+    /**
+     * Steps 1-5 for a Japanese sentence: vocabulary, grammar, breakdown and related sentences are requested
+     * in parallel. If one of them fails (or the caller cancels) the remaining Gemini calls are cancelled.
+     */
+    private CompletableFuture<SentenceAnalysisResponse> analyzeJapanese(String japaneseSentence, String level) {
+        // Step 1: Analyze vocabulary (handles mixed Japanese + Latin characters)
+        // Note: Latin characters like "JLPT", "N5" are common in Japanese learning context
+        CompletableFuture<List<VocabularyItem>> vocabulary = analyzeVocabulary(japaneseSentence, level);
+
+        // Step 2: Analyze grammar
+        CompletableFuture<List<GrammarItem>> grammar = analyzeGrammar(japaneseSentence, level);
+
+        // Step 3: Analyze sentence breakdown (local morphological analysis, Gemini only if unavailable)
+        List<JapaneseTokenizerService.Token> tokens = tokenizerAvailable()
+                ? japaneseTokenizer.tokenize(japaneseSentence) : List.of();
+        CompletableFuture<SentenceAnalysisResponse.SentenceBreakdown> breakdown = tokens.isEmpty()
+                ? analyzeSentenceBreakdown(japaneseSentence, level)
+                : CompletableFuture.completedFuture(buildLocalBreakdown(tokens));
+
+        // Step 4: Get related sentences
+        CompletableFuture<List<String>> relatedSentences = getRelatedSentences(japaneseSentence, level);
+
+        // Step 5: Build response
+        CompletableFuture<SentenceAnalysisResponse> result = CompletableFuture
+            .allOf(vocabulary, grammar, breakdown, relatedSentences)
+            .thenApply(ignored -> {
+                SentenceAnalysisResponse response = new SentenceAnalysisResponse();
+                response.setSentence(japaneseSentence);
+                response.setLevel(level);
+                response.setVocabulary(vocabulary.join());
+                response.setGrammar(grammar.join());
+                response.setSentenceBreakdown(breakdown.join());
+                response.setRelatedSentences(relatedSentences.join());
+                response.setTokens(toTokenInfos(tokens));
+
+                logger.debug("Sentence analysis completed: vocabularyCount={}, grammarCount={}",
+                    response.getVocabulary().size(), response.getGrammar().size());
+                return response;
+            });
+
+        List<CompletableFuture<?>> calls = List.of(vocabulary, grammar, breakdown, relatedSentences);
+        Runnable cancelCalls = () -> calls.forEach(call -> call.cancel(true));
+        calls.forEach(call -> call.whenComplete((value, error) -> {
+            if (error != null) {
+                cancelCalls.run();
+            }
+        }));
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                cancelCalls.run();
+            }
+        });
+        return result;
+    }
 
-            logger.debug("Sentence analysis completed: vocabularyCount={}, grammarCount={}",
-                vocabulary.size(), grammar.size());
+    /**
+     * Gemini call whose text is parsed once it arrives; cancelling the returned future cancels the call
+     */
+    private <T> CompletableFuture<T> geminiJson(String prompt, GeminiCacheSite cacheSite, Function<String, T> parse) {
+        CompletableFuture<String> call = geminiService.generateContentAsync(prompt, AIRequestPriority.STANDARD, cacheSite);
+        CompletableFuture<T> parsed = call.thenApply(text -> parse.apply(extractJsonFromText(text)));
+        parsed.whenComplete((value, error) -> call.cancel(true));
+        return parsed;
+    }
 
-            return response;
-        } catch (AIServiceException e) {
-            throw e;
-        } catch (Exception e) {
-            logger.error("Sentence analysis failed", e);
-            throw new AIServiceException("Sentence Analysis",
-                "Sentence analysis failed: " + e.getMessage(), e);
-        }
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
 
     /**
      * Analyze vocabulary in the sentence using AI
      */
-    private List<VocabularyItem> analyzeVocabulary(String sentence, String level) {
+    private CompletableFuture<List<VocabularyItem>> analyzeVocabulary(String sentence, String level) {
         String prompt = buildVocabularyPrompt(sentence, level);
-        String jsonResponse = geminiService.generateContent(prompt);
-        
-        // Extract JSON from response (remove markdown code blocks if present)
-        jsonResponse = extractJsonFromText(jsonResponse);
+        return geminiJson(prompt, GeminiCacheSite.SENTENCE_ANALYSIS, jsonResponse -> parseVocabulary(jsonResponse, level));
+    }
 
+    private List<VocabularyItem> parseVocabulary(String jsonResponse, String level) {
         try {
             // Parse JSON response
             Map<String, Object> responseMap = objectMapper.readValue(jsonResponse, new TypeReference<Map<String, Object>>() {});
@@ -203,13 +314,12 @@ public class SentenceAnalysisService {
     /**
      * Analyze grammar patterns in the sentence using AI
      */
-    private List<GrammarItem> analyzeGrammar(String sentence, String level) {
+    private CompletableFuture<List<GrammarItem>> analyzeGrammar(String sentence, String level) {
         String prompt = buildGrammarPrompt(sentence, level);
-        String jsonResponse = geminiService.generateContent(prompt);
-        
-        // Extract JSON from response (remove markdown code blocks if present)
-        jsonResponse = extractJsonFromText(jsonResponse);
+        return geminiJson(prompt, GeminiCacheSite.SENTENCE_ANALYSIS, this::parseGrammar);
+    }
 
+    private List<GrammarItem> parseGrammar(String jsonResponse) {
         try {
             // Parse JSON response
             Map<String, Object> responseMap = objectMapper.readValue(jsonResponse, new TypeReference<Map<String, Object>>() {});
@@ -364,13 +474,12 @@ public class SentenceAnalysisService {
     /**
      * Analyze sentence breakdown (structure analysis)
      */
-    private SentenceAnalysisResponse.SentenceBreakdown analyzeSentenceBreakdown(String sentence, String level) {
+    private CompletableFuture<SentenceAnalysisResponse.SentenceBreakdown> analyzeSentenceBreakdown(String sentence, String level) {
         String prompt = buildSentenceBreakdownPrompt(sentence, level);
-        String jsonResponse = geminiService.generateContent(prompt);
-        
-        // Extract JSON from response (remove markdown code blocks if present)
-        jsonResponse = extractJsonFromText(jsonResponse);
+        return geminiJson(prompt, GeminiCacheSite.SENTENCE_ANALYSIS, this::parseSentenceBreakdown);
+    }
 
+    private SentenceAnalysisResponse.SentenceBreakdown parseSentenceBreakdown(String jsonResponse) {
         try {
             Map<String, Object> responseMap = objectMapper.readValue(jsonResponse, new TypeReference<Map<String, Object>>() {});
             @SuppressWarnings("unchecked")
@@ -398,16 +507,117 @@ public class SentenceAnalysisService {
         }
     }
 
+    // Vai trò của các trợ từ thường gặp (giải thích cấu trúc câu khi phân tích local)
+    private static final Map<String, String> PARTICLE_ROLES_VI = Map.ofEntries(
+        Map.entry("は", "trợ từ chủ đề"),
+        Map.entry("が", "trợ từ chủ ngữ"),
+        Map.entry("を", "trợ từ tân ngữ"),
+        Map.entry("に", "trợ từ chỉ đích đến, thời điểm hoặc đối tượng"),
+        Map.entry("で", "trợ từ chỉ nơi diễn ra hành động hoặc phương tiện"),
+        Map.entry("へ", "trợ từ chỉ hướng"),
+        Map.entry("と", "trợ từ \"và\" / \"cùng với\""),
+        Map.entry("の", "trợ từ sở hữu, bổ nghĩa cho danh từ"),
+        Map.entry("も", "trợ từ \"cũng\""),
+        Map.entry("から", "trợ từ \"từ\" / \"vì\""),
+        Map.entry("まで", "trợ từ \"đến\""),
+        Map.entry("や", "trợ từ liệt kê"),
+        Map.entry("より", "trợ từ so sánh \"hơn\""),
+        Map.entry("か", "trợ từ nghi vấn"),
+        Map.entry("ね", "trợ từ cuối câu tìm sự đồng tình"),
+        Map.entry("よ", "trợ từ cuối câu nhấn mạnh thông tin")
+    );
+
+    /**
+     * Sentence breakdown from morphological analysis (no Gemini call):
+     * subject = phrase before は/が, object = phrase before を,
+     * predicate = everything after the last case/topic particle.
+     */
+    private SentenceAnalysisResponse.SentenceBreakdown buildLocalBreakdown(List<JapaneseTokenizerService.Token> tokens) {
+        List<String> particles = new ArrayList<>();
+        List<String> structure = new ArrayList<>();
+        String subject = null;
+        String object = null;
+        StringBuilder phrase = new StringBuilder();
+
+        for (JapaneseTokenizerService.Token token : tokens) {
+            if (token.isSymbol()) {
+                continue;
+            }
+            // の (連体化) stays inside the noun phrase; conjunctive / sentence-final particles belong to the predicate
+            String detail = token.partOfSpeechDetail() != null ? token.partOfSpeechDetail() : "";
+            boolean phraseParticle = token.isParticle()
+                    && !detail.equals("連体化")
+                    && !detail.equals("接続助詞")
+                    && !detail.contains("終助詞");
+            if (!phraseParticle) {
+                phrase.append(token.surface());
+                if (token.isParticle() && !particles.contains(token.surface())) {
+                    particles.add(token.surface());
+                }
+                continue;
+            }
+
+            String surface = token.surface();
+            if (!particles.contains(surface)) {
+                particles.add(surface);
+            }
+            if (phrase.length() > 0) {
+                if (subject == null && ("は".equals(surface) || "が".equals(surface))) {
+                    subject = phrase.toString();
+                } else if (object == null && "を".equals(surface)) {
+                    object = phrase.toString();
+                }
+                structure.add(phrase.toString());
+            }
+            String role = PARTICLE_ROLES_VI.get(surface);
+            structure.add(role != null ? surface + " (" + role + ")" : surface);
+            phrase.setLength(0);
+        }
+
+        String predicate = phrase.length() > 0 ? phrase.toString() : null;
+        if (predicate != null) {
+            structure.add(predicate + " (vị ngữ)");
+        }
+
+        SentenceAnalysisResponse.SentenceBreakdown breakdown = new SentenceAnalysisResponse.SentenceBreakdown();
+        breakdown.setSubject(subject);
+        breakdown.setObject(object);
+        breakdown.setPredicate(predicate);
+        breakdown.setParticles(particles);
+        breakdown.setExplanationVi("Câu này có cấu trúc: " + String.join(" + ", structure));
+        return breakdown;
+    }
+
+    private static List<SentenceAnalysisResponse.TokenInfo> toTokenInfos(List<JapaneseTokenizerService.Token> tokens) {
+        List<SentenceAnalysisResponse.TokenInfo> infos = new ArrayList<>();
+        for (JapaneseTokenizerService.Token token : tokens) {
+            if (token.surface().isBlank()) {
+                continue;
+            }
+            SentenceAnalysisResponse.TokenInfo info = new SentenceAnalysisResponse.TokenInfo();
+            info.setSurface(token.surface());
+            info.setReading(token.reading());
+            info.setBaseForm(token.baseForm());
+            info.setPartOfSpeech(token.partOfSpeech());
+            info.setHasKanji(token.hasKanji());
+            infos.add(info);
+        }
+        return infos;
+    }
+
+    private boolean tokenizerAvailable() {
+        return japaneseTokenizer != null && japaneseTokenizer.isAvailable();
+    }
+
     /**
      * Get related example sentences
      */
-    private List<String> getRelatedSentences(String sentence, String level) {
+    private CompletableFuture<List<String>> getRelatedSentences(String sentence, String level) {
         String prompt = buildRelatedSentencesPrompt(sentence, level);
-        String jsonResponse = geminiService.generateContent(prompt);
-        
-        // Extract JSON from response (remove markdown code blocks if present)
-        jsonResponse = extractJsonFromText(jsonResponse);
+        return geminiJson(prompt, GeminiCacheSite.SENTENCE_ANALYSIS, this::parseRelatedSentences);
+    }
 
+    private List<String> parseRelatedSentences(String jsonResponse) {
         try {
             Map<String, Object> responseMap = objectMapper.readValue(jsonResponse, new TypeReference<Map<String, Object>>() {});
             @SuppressWarnings("unchecked")
@@ -425,70 +635,72 @@ public class SentenceAnalysisService {
      * These are sentences suitable for vocabulary and grammar analysis (not conversation practice)
      * 
      * @param level JLPT level (N5-N1)
-     * @return List of example sentences with translations
+     * @return future of example sentences with translations
      */
-    public List<Map<String, Object>> getExampleSentences(String level) {
+    public CompletableFuture<List<Map<String, Object>>> getExampleSentences(String level) {
         if (!googleCloudEnabled) {
-            throw new AIServiceException("Sentence Analysis",
+            return CompletableFuture.failedFuture(new AIServiceException("Sentence Analysis",
                 "Google Cloud AI is not enabled. Please enable it in application properties.",
-                "SENTENCE_ANALYSIS_SERVICE_DISABLED");
+                "SENTENCE_ANALYSIS_SERVICE_DISABLED"));
         }
 
         if (geminiService == null) {
-            throw new AIServiceException("Sentence Analysis",
+            return CompletableFuture.failedFuture(new AIServiceException("Sentence Analysis",
                 "Gemini service is not available. Please ensure Google Cloud is properly configured.",
-                "GEMINI_SERVICE_NOT_AVAILABLE");
+                "GEMINI_SERVICE_NOT_AVAILABLE"));
         }
 
         String normalizedLevel = normalizeLevel(level);
         logger.info("Getting example sentences for sentence analysis: level={}", normalizedLevel);
 
-        try {
-            String prompt = buildExampleSentencesPrompt(normalizedLevel);
-            String jsonResponse = geminiService.generateContent(prompt);
-            
-            // Extract JSON from response
-            jsonResponse = extractJsonFromText(jsonResponse);
-
-            Map<String, Object> responseMap = objectMapper.readValue(jsonResponse, new TypeReference<Map<String, Object>>() {});
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> sentences = (List<Map<String, Object>>) responseMap.get("sentences");
-            
-            return sentences != null ? sentences : new ArrayList<>();
-        } catch (Exception e) {
-            logger.error("Failed to get example sentences", e);
+        String topic = EXAMPLE_SENTENCE_TOPICS.get(ThreadLocalRandom.current().nextInt(EXAMPLE_SENTENCE_TOPICS.size()));
+        String prompt = buildExampleSentencesPrompt(normalizedLevel, topic);
+        return geminiJson(prompt, GeminiCacheSite.EXAMPLE_SENTENCES, jsonResponse -> {
+            try {
+                Map<String, Object> responseMap = objectMapper.readValue(jsonResponse, new TypeReference<Map<String, Object>>() {});
+                @SuppressWarnings("unchecked")
+                List<Map<String, Object>> sentences = (List<Map<String, Object>>) responseMap.get("sentences");
+                return sentences != null ? sentences : new ArrayList<Map<String, Object>>();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }).exceptionally(error -> {
+            Throwable cause = unwrap(error);
+            logger.error("Failed to get example sentences", cause);
             throw new AIServiceException("Sentence Analysis",
-                "Failed to get example sentences: " + e.getMessage(), e);
-        }
+                "Failed to get example sentences: " + cause.getMessage(), cause);
+        });
     }
 
     /**
      * Get a random example sentence for sentence analysis practice
      */
-    public Map<String, Object> getRandomExampleSentence(String level) {
-        List<Map<String, Object>> sentences = getExampleSentences(level);
-        if (sentences.isEmpty()) {
-            return null;
-        }
-        Random random = new Random();
-        return sentences.get(random.nextInt(sentences.size()));
+    public CompletableFuture<Map<String, Object>> getRandomExampleSentence(String level) {
+        return getExampleSentences(level).thenApply(sentences -> {
+            if (sentences.isEmpty()) {
+                return null;
+            }
+            Random random = new Random();
+            return sentences.get(random.nextInt(sentences.size()));
+        });
     }
 
     /**
      * Build prompt for generating example sentences for sentence analysis
      */
-    private String buildExampleSentencesPrompt(String level) {
+    private String buildExampleSentencesPrompt(String level, String topic) {
         return String.format(
             "You are generating example Japanese sentences for Vietnamese users learning Japanese.\n\n" +
             "Generate 10-15 example sentences suitable for VOCABULARY AND GRAMMAR ANALYSIS (not conversation practice).\n\n" +
-            "User's JLPT level: %s\n\n" +
+            "User's JLPT level: %s\n" +
+            "Topic: %s\n\n" +
             "Requirements:\n" +
             "- Sentences should contain interesting vocabulary and grammar patterns appropriate for level %s\n" +
             "- Focus on sentences that demonstrate clear grammar structures and useful vocabulary\n" +
             "- Sentences should be 15-40 characters long\n" +
             "- Include a mix of common patterns and vocabulary for level %s\n" +
             "- NOT conversational phrases (like greetings or small talk)\n" +
-            "- Examples: sentences about daily activities, descriptions, explanations, etc.\n\n" +
+            "- All sentences should relate to the topic above (descriptions, explanations, everyday situations)\n\n" +
             "Provide in JSON format:\n" +
             "{\n" +
             "  \"sentences\": [\n" +
@@ -501,7 +713,7 @@ public class SentenceAnalysisService {
             "Important:\n" +
             "- ALL translations MUST be in Vietnamese (Tiếng Việt), NOT English\n" +
             "- Return ONLY valid JSON, no additional text",
-            level, level, level);
+            level, topic, level, level);
     }
 
     /**
@@ -760,14 +972,22 @@ public class SentenceAnalysisService {
         // This must come BEFORE Google Translate API to avoid false positives
         // If text contains Japanese characters, it's Japanese (even if mixed with Latin characters)
         // Common cases: "ありがとうございますHI" (typo/spam) or "私は JLPT の試験..." (common abbreviations)
-        boolean hasJapanese = text.matches(".*[\\u3040-\\u309F\\u30A0-\\u30FF\\u4E00-\\u9FAF].*");
+        boolean hasJapanese = JapaneseTokenizerService.containsJapanese(text);
         if (hasJapanese) {
             logger.debug("Detected Japanese by character check (may contain Latin characters like JLPT, N5, etc.)");
             return "ja";
         }
 
-        // Priority 2: If AIService is available and no Japanese characters, use Google Translate API to detect language
-        // This helps distinguish Vietnamese from English and other languages
+        // Vietnamese-only letters are unambiguous: decide locally, no Translation API round trip.
+        // à á è é ã õ... are shared with French / Spanish / Portuguese and go through detection below.
+        boolean hasVietnameseDiacritics = VIETNAMESE_LETTERS.matcher(normalizedText).find();
+        if (hasVietnameseDiacritics) {
+            logger.debug("Detected Vietnamese by diacritics");
+            return "vi";
+        }
+
+        // Priority 2: Latin text without diacritics is ambiguous (Vietnamese without accents vs English):
+        // use Google Translate API to detect language
         if (aiService != null && googleCloudEnabled) {
             try {
                 Map<String, Object> translationResult = aiService.translateText(text, null, "ja");
@@ -788,14 +1008,7 @@ public class SentenceAnalysisService {
             }
         }
 
-        // Priority 3: Check for Vietnamese characters (with diacritics)
-        boolean hasVietnameseDiacritics = text.matches(".*[àáạảãâầấậẩẫăằắặẳẵèéẹẻẽêềếệểễìíịỉĩòóọỏõôồốộổỗơờớợởỡùúụủũưừứựửữỳýỵỷỹđĐ].*");
-        if (hasVietnameseDiacritics) {
-            logger.debug("Detected Vietnamese by diacritics");
-            return "vi";
-        }
-
-        // Priority 4: Check for common Vietnamese words (with or without diacritics)
+        // Priority 3: Check for common Vietnamese words (with or without diacritics)
         // Common Vietnamese words/phrases that indicate Vietnamese language
         // Expanded list to better detect Vietnamese without diacritics
         String[] vietnameseIndicators = {
@@ -830,14 +1043,14 @@ public class SentenceAnalysisService {
             }
         }
 
-        // Priority 5: Check for common Vietnamese sentence patterns
+        // Priority 4: Check for common Vietnamese sentence patterns
         // Vietnamese sentences often start with "Tôi", "Tui", "Mình", "Bạn", etc.
         if (normalizedText.matches("^(toi|tôi|tui|minh|mình|ban|bạn|anh|chi|chị|em|co|cô|ong|ông|ba|bà)\\s+.*")) {
             logger.debug("Detected Vietnamese by sentence pattern");
             return "vi";
         }
 
-        // Priority 6: If text contains only Latin characters and common Vietnamese words, likely Vietnamese
+        // Priority 5: If text contains only Latin characters and common Vietnamese words, likely Vietnamese
         // Check if text has no Japanese characters but contains Vietnamese-like structure
         if (!hasJapanese && text.matches(".*\\s+.*")) { // Has spaces (common in Vietnamese)
             // Check for Vietnamese word patterns (words separated by spaces)
@@ -890,20 +1103,24 @@ public class SentenceAnalysisService {
      * Translate Vietnamese sentence to Japanese appropriate for the user's JLPT level
      * Uses Gemini AI to ensure the translation matches the user's level
      */
-    private String translateVietnameseToJapanese(String vietnameseSentence, String level) {
+    private CompletableFuture<String> translateVietnameseToJapanese(String vietnameseSentence, String level) {
         if (geminiService == null) {
-            throw new AIServiceException("Sentence Analysis",
+            return CompletableFuture.failedFuture(new AIServiceException("Sentence Analysis",
                 "Gemini service is required for Vietnamese to Japanese translation",
-                "GEMINI_SERVICE_NOT_AVAILABLE");
+                "GEMINI_SERVICE_NOT_AVAILABLE"));
         }
 
         // Use Gemini to translate Vietnamese to Japanese appropriate for the level
         String prompt = buildTranslationPrompt(vietnameseSentence, level);
-        String jsonResponse = geminiService.generateContent(prompt);
-        
-        // Extract JSON from response
-        jsonResponse = extractJsonFromText(jsonResponse);
+        return geminiJson(prompt, GeminiCacheSite.SENTENCE_TRANSLATION,
+            jsonResponse -> parseTranslation(vietnameseSentence, jsonResponse));
+    }
 
+    /**
+     * Gemini trả rỗng / sai JSON thì fallback Google Translate. Fallback là call blocking, chạy trên thread
+     * đã hoàn thành call Gemini - chỉ xảy ra khi Gemini trả lời hỏng nên chấp nhận được
+     */
+    private String parseTranslation(String vietnameseSentence, String jsonResponse) {
         try {
             logger.debug("Parsing Gemini translation response...");
             Map<String, Object> responseMap = objectMapper.readValue(jsonResponse, new TypeReference<Map<String, Object>>() {});
@@ -1,6 +1,11 @@
 package com.hokori.web.service;
 
 import com.hokori.web.exception.AIServiceException;
+import com.hokori.web.util.AudioPreprocessor;
+import com.hokori.web.util.BoundedExecutor;
+import com.hokori.web.util.TextSimilarity;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,9 +14,15 @@ import org.springframework.stereotype.Service;
 
 import java.text.Normalizer;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service for Speaking Practice (Kaiwa) feature
@@ -28,6 +39,9 @@ public class SpeakingPracticeService {
     @Autowired(required = false)
     private AIResponseFormatter responseFormatter;
     
+    @Autowired(required = false)
+    private JapaneseTokenizerService japaneseTokenizer;
+    
     // Scoring weights
     @Value("${kaiwa.scoring.accuracy-weight:0.6}")
     private double accuracyWeight;
@@ -156,6 +170,35 @@ public class SpeakingPracticeService {
     @Value("${ai.feedback.threshold.average:0.5}")
     private double feedbackThresholdAverage;
     
+    // Batch drill: recordings per request, concurrent speech-to-text calls, per-recording STT timeout
+    @Value("${ai.kaiwa.drill.max-recordings:20}")
+    private int drillMaxRecordings;
+    
+    @Value("${ai.kaiwa.drill.stt-threads:6}")
+    private int drillSttThreads;
+    
+    @Value("${ai.kaiwa.drill.stt-timeout-ms:30000}")
+    private long drillSttTimeoutMs;
+    
+    private BoundedExecutor drillExecutor;
+    
+    @PostConstruct
+    void initDrillExecutor() {
+        // Full pool rejects instead of running recognition on the request thread; the item fails with STT_BUSY
+        drillExecutor = BoundedExecutor.create("kaiwa-drill-stt", drillSttThreads, drillSttThreads * 8);
+    }
+    
+    @PreDestroy
+    void shutdownDrillExecutor() {
+        drillExecutor.shutdownNow();
+    }
+    
+    /**
+     * One sentence of a drill: target text and the learner's raw recording (multipart, not base64)
+     */
+    public record DrillRecording(String targetText, byte[] audio, String audioFormat) {
+    }
+    
     /**
      * Practice kaiwa (conversation) by comparing user's pronunciation with target text
      * 
@@ -251,6 +294,226 @@ public class SpeakingPracticeService {
         
         logger.debug("User transcript: {}, confidence: {}", userTranscript, confidence);
         
+        Map<String, Object> result = scoreTranscript(targetText, userTranscript, confidence, normalizedLevel);
+        
+        // Format response for Vietnamese users
+        if (responseFormatter != null) {
+            result = responseFormatter.formatKaiwaPracticeResponse(result);
+        }
+        
+        logger.info("Kaiwa practice completed: level={}, overallScore={}, accuracyScore={}, pronunciationScore={}", 
+            normalizedLevel, result.get("overallScore"), result.get("accuracyScore"), result.get("pronunciationScore"));
+        
+        return result;
+    }
+    
+    /**
+     * Score a whole pronunciation drill (several sentences) in one request
+     * 
+     * <ul>
+     *   <li>Speech-to-text runs concurrently (ai.kaiwa.drill.stt-threads), each recording with its own timeout</li>
+     *   <li>Each sentence is scored exactly like {@link #practiceKaiwa}; a failed recording only fails its own item</li>
+     *   <li>The report aggregates average scores, the weakest sentences and the words missed most often</li>
+     * </ul>
+     * 
+     * @return drill report: summary fields + "items" (one entry per recording, same order as the request)
+     * @throws AIServiceException DRILL_EMPTY / DRILL_TOO_LARGE
+     */
+    public Map<String, Object> practiceKaiwaDrill(List<DrillRecording> recordings, String language, String level) {
+        String normalizedLevel = normalizeLevel(level);
+        if (recordings == null || recordings.isEmpty()) {
+            throw new AIServiceException("Kaiwa Drill", "At least one recording is required.", "DRILL_EMPTY");
+        }
+        if (recordings.size() > drillMaxRecordings) {
+            throw new AIServiceException("Kaiwa Drill",
+                String.format("Too many recordings (%d). Maximum per drill is %d.", recordings.size(), drillMaxRecordings),
+                "DRILL_TOO_LARGE");
+        }
+        
+        logger.info("Starting kaiwa drill: recordings={}, language={}, level={}", recordings.size(), language, normalizedLevel);
+        
+        // Step 1: speech-to-text for every recording at once
+        List<CompletableFuture<Map<String, Object>>> transcriptions = new ArrayList<>(recordings.size());
+        for (DrillRecording recording : recordings) {
+            transcriptions.add(transcribeDrillRecording(recording, language));
+        }
+        
+        // Step 2: score in request order as transcripts arrive
+        List<Map<String, Object>> items = new ArrayList<>(recordings.size());
+        Map<String, Integer> missedWords = new HashMap<>();
+        for (int i = 0; i < recordings.size(); i++) {
+            items.add(scoreDrillItem(i, recordings.get(i), transcriptions.get(i), normalizedLevel, missedWords));
+        }
+        
+        Map<String, Object> report = buildDrillReport(items, missedWords, normalizedLevel);
+        logger.info("Kaiwa drill completed: level={}, completed={}/{}, averageOverallScore={}",
+            normalizedLevel, report.get("completedSentences"), recordings.size(), report.get("averageOverallScore"));
+        return report;
+    }
+    
+    private CompletableFuture<Map<String, Object>> transcribeDrillRecording(DrillRecording recording, String language) {
+        String targetText = recording.targetText();
+        if (targetText == null || targetText.isBlank() || targetText.length() > 5000) {
+            // Không tốn lượt STT cho câu mẫu không hợp lệ
+            return CompletableFuture.failedFuture(new AIServiceException("Kaiwa Drill",
+                "Target text is required and must not exceed 5000 characters.", "INVALID_TARGET_TEXT"));
+        }
+        // Timeout interrupts the recognition call instead of leaving it running after the item has failed
+        return drillExecutor.supplyAsync(() -> {
+            validateAudioBytes(recording.audio());
+            return aiService.speechToText(recording.audio(), language, recording.audioFormat());
+        }, drillSttTimeoutMs);
+    }
+    
+    private Map<String, Object> scoreDrillItem(int index, DrillRecording recording,
+                                               CompletableFuture<Map<String, Object>> transcription,
+                                               String normalizedLevel, Map<String, Integer> missedWords) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("index", index);
+        item.put("targetText", recording.targetText());
+        try {
+            Map<String, Object> speechToTextResult = transcription.join();
+            String userTranscript = (String) speechToTextResult.get("transcript");
+            Object confidenceObj = speechToTextResult.get("confidence");
+            Double confidence = confidenceObj != null ? ((Number) confidenceObj).doubleValue() : null;
+            
+            if (userTranscript == null || userTranscript.isEmpty()) {
+                throw new AIServiceException("Kaiwa Drill",
+                    "Could not transcribe audio. Please try again with clearer pronunciation.", "TRANSCRIPTION_FAILED");
+            }
+            if (userTranscript.length() > 5000) {
+                throw new AIServiceException("Kaiwa Drill",
+                    "Audio transcript is too long (max 5000 characters). Please record a shorter audio.", "TRANSCRIPT_TOO_LONG");
+            }
+            
+            Map<String, Object> result = scoreTranscript(recording.targetText(), userTranscript, confidence, normalizedLevel);
+            collectMissedWords(result, missedWords);
+            if (responseFormatter != null) {
+                result = responseFormatter.formatKaiwaPracticeResponse(result);
+            }
+            item.put("status", "completed");
+            item.put("result", result);
+        } catch (CompletionException | AIServiceException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            String errorCode;
+            String message;
+            if (cause instanceof AIServiceException aiError) {
+                errorCode = aiError.getErrorCode() != null ? aiError.getErrorCode() : "SPEECH_TO_TEXT_FAILED";
+                message = aiError.getMessage();
+            } else if (cause instanceof TimeoutException) {
+                errorCode = "STT_TIMEOUT";
+                message = "Speech recognition took too long. Please try this sentence again.";
+            } else if (cause instanceof RejectedExecutionException) {
+                errorCode = "STT_BUSY";
+                message = "Speech recognition is busy right now. Please try this sentence again in a moment.";
+            } else {
+                errorCode = "SPEECH_TO_TEXT_FAILED";
+                message = "Speech recognition failed: " + cause.getMessage();
+            }
+            logger.warn("Kaiwa drill item {} failed: {} ({})", index, message, errorCode);
+            item.put("status", "failed");
+            item.put("errorCode", errorCode);
+            item.put("errorMessage", message);
+        }
+        return item;
+    }
+    
+    /**
+     * Count target words the learner missed or said wrong (from the unformatted scoring result)
+     */
+    @SuppressWarnings("unchecked")
+    private void collectMissedWords(Map<String, Object> result, Map<String, Integer> missedWords) {
+        Object feedback = result.get("feedback");
+        if (!(feedback instanceof Map<?, ?> feedbackMap)
+                || !(feedbackMap.get("comparison") instanceof Map<?, ?> comparison)
+                || !(comparison.get("wordDifferences") instanceof List<?> wordDifferences)) {
+            return;
+        }
+        for (Object difference : wordDifferences) {
+            Map<String, Object> diff = (Map<String, Object>) difference;
+            String expected = (String) diff.get("expected");
+            if (expected != null && !expected.isEmpty()) {
+                missedWords.merge(expected, 1, Integer::sum);
+            }
+        }
+    }
+    
+    private Map<String, Object> buildDrillReport(List<Map<String, Object>> items, Map<String, Integer> missedWords,
+                                                 String normalizedLevel) {
+        int completed = 0;
+        int accurate = 0;
+        int needsPractice = 0;
+        double overallSum = 0.0;
+        double accuracySum = 0.0;
+        double pronunciationSum = 0.0;
+        List<Map<String, Object>> scored = new ArrayList<>();
+        for (Map<String, Object> item : items) {
+            if (!"completed".equals(item.get("status"))) {
+                continue;
+            }
+            Map<?, ?> result = (Map<?, ?>) item.get("result");
+            double overall = ((Number) result.get("overallScore")).doubleValue();
+            completed++;
+            overallSum += overall;
+            accuracySum += ((Number) result.get("accuracyScore")).doubleValue();
+            pronunciationSum += ((Number) result.get("pronunciationScore")).doubleValue();
+            if (Boolean.TRUE.equals(result.get("isAccurate"))) {
+                accurate++;
+            }
+            if (Boolean.TRUE.equals(result.get("needsPractice"))) {
+                needsPractice++;
+                Map<String, Object> weak = new LinkedHashMap<>();
+                weak.put("index", item.get("index"));
+                weak.put("targetText", item.get("targetText"));
+                weak.put("overallScore", overall);
+                scored.add(weak);
+            }
+        }
+        
+        double averageOverall = completed > 0 ? overallSum / completed : 0.0;
+        
+        // Up to 3 sentences that need the most practice, lowest score first
+        scored.sort(Comparator.comparingDouble(weak -> (Double) weak.get("overallScore")));
+        List<Map<String, Object>> weakestSentences = scored.subList(0, Math.min(3, scored.size()));
+        
+        // Up to 5 words missed most often across the drill
+        List<Map<String, Object>> commonMissedWords = missedWords.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(5)
+                .map(entry -> {
+                    Map<String, Object> word = new LinkedHashMap<>();
+                    word.put("word", entry.getKey());
+                    word.put("count", entry.getValue());
+                    return word;
+                })
+                .toList();
+        
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("level", normalizedLevel);
+        report.put("totalSentences", items.size());
+        report.put("completedSentences", completed);
+        report.put("failedSentences", items.size() - completed);
+        report.put("averageOverallScore", averageOverall);
+        report.put("averageAccuracyScore", completed > 0 ? accuracySum / completed : 0.0);
+        report.put("averagePronunciationScore", completed > 0 ? pronunciationSum / completed : 0.0);
+        report.put("accurateSentences", accurate);
+        report.put("needsPracticeSentences", needsPractice);
+        report.put("weakestSentences", new ArrayList<>(weakestSentences));
+        report.put("commonMissedWords", commonMissedWords);
+        report.put("summaryFeedbackVi", completed > 0
+            ? String.format("%s Bạn đã hoàn thành %d/%d câu, %d câu cần luyện thêm.",
+                getOverallFeedbackVi(averageOverall, normalizedLevel), completed, items.size(), needsPractice)
+            : "Không nhận diện được câu nào. Hãy kiểm tra micro và thử lại.");
+        report.put("items", items);
+        return report;
+    }
+    
+    /**
+     * Steps 2-8 of kaiwa practice: compare a transcript with the target text and build scores + feedback
+     * (shared by single practice and batch drills)
+     */
+    private Map<String, Object> scoreTranscript(String targetText, String userTranscript, Double confidence,
+                                                String normalizedLevel) {
         // Step 2: Normalize texts for comparison
         String normalizedTarget = normalizeJapaneseText(targetText);
         String normalizedUser = normalizeJapaneseText(userTranscript);
@@ -306,14 +569,6 @@ public class SpeakingPracticeService {
         recommendations.put("practiceThreshold", practiceThreshold);
         result.put("recommendations", recommendations);
         
-        // Format response for Vietnamese users
-        if (responseFormatter != null) {
-            result = responseFormatter.formatKaiwaPracticeResponse(result);
-        }
-        
-        logger.info("Kaiwa practice completed: level={}, overallScore={}, accuracyScore={}, pronunciationScore={}", 
-            normalizedLevel, adjustedOverallScore, adjustedAccuracyScore, pronunciationScore);
-        
         return result;
     }
     
@@ -479,6 +734,7 @@ public class SpeakingPracticeService {
      * Calculate accuracy score by comparing target and user text
      * Uses character-level comparison with tolerance adjusted by JLPT level
      * Lower levels get more tolerance for minor errors
+     * Katakana/hiragana and ー vs vowel spellings are treated as the same sound
      */
     private double calculateAccuracy(String target, String user, String level) {
         if (target == null || target.isEmpty()) {
@@ -489,13 +745,16 @@ public class SpeakingPracticeService {
             return 0.0;
         }
         
+        target = TextSimilarity.foldKana(target);
+        user = TextSimilarity.foldKana(user);
+        
         // Exact match
         if (target.equals(user)) {
             return 1.0;
         }
         
         // Calculate Levenshtein distance for similarity
-        int distance = levenshteinDistance(target, user);
+        int distance = TextSimilarity.editDistance(target, user);
         int maxLength = Math.max(target.length(), user.length());
         
         if (maxLength == 0) {
@@ -575,36 +834,6 @@ public class SpeakingPracticeService {
         }
     }
     
-    /**
-     * Calculate Levenshtein distance between two strings
-     */
-    private int levenshteinDistance(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-        
-        for (int i = 0; i <= s1.length(); i++) {
-            dp[i][0] = i;
-        }
-        
-        for (int j = 0; j <= s2.length(); j++) {
-            dp[0][j] = j;
-        }
-        
-        for (int i = 1; i <= s1.length(); i++) {
-            for (int j = 1; j <= s2.length(); j++) {
-                if (s1.charAt(i - 1) == s2.charAt(j - 1)) {
-                    dp[i][j] = dp[i - 1][j - 1];
-                } else {
-                    dp[i][j] = Math.min(
-                        Math.min(dp[i - 1][j], dp[i][j - 1]),
-                        dp[i - 1][j - 1]
-                    ) + 1;
-                }
-            }
-        }
-        
-        return dp[s1.length()][s2.length()];
-    }
-    
     /**
      * Generate detailed feedback in Vietnamese
      */
@@ -623,8 +852,11 @@ public class SpeakingPracticeService {
         String overallFeedbackVi = getOverallFeedbackVi(overallScore, level);
         feedback.put("overallFeedbackVi", overallFeedbackVi);
         
+        // Word-level differences (more useful for user feedback), computed once for every section below
+        List<Map<String, Object>> wordDifferences = findWordDifferences(targetText, userTranscript);
+        
         // Accuracy feedback
-        String accuracyFeedbackVi = getAccuracyFeedbackVi(accuracyScore, targetText, userTranscript, level);
+        String accuracyFeedbackVi = getAccuracyFeedbackVi(accuracyScore, wordDifferences.size(), level);
         feedback.put("accuracyFeedbackVi", accuracyFeedbackVi);
         
         // Pronunciation feedback
@@ -653,12 +885,10 @@ public class SpeakingPracticeService {
         comparison.put("match", targetText.equals(userTranscript));
         comparison.put("similarity", accuracyScore);
         
-        // Word-level differences (more useful for user feedback)
-        List<Map<String, Object>> wordDifferences = findWordDifferences(targetText, userTranscript);
         comparison.put("wordDifferences", wordDifferences);
         
         // Character-level differences (for detailed analysis)
-        List<Map<String, Object>> differences = findCharacterDifferences(targetText, userTranscript);
+        List<Map<String, Object>> differences = findCharacterDifferences(targetText, userTranscript, wordDifferences);
         comparison.put("characterDifferences", differences);
         
         // Generate actionable feedback with specific words to fix
@@ -732,39 +962,35 @@ public class SpeakingPracticeService {
     
     /**
      * Find character-level differences between target and user text
-     * Also identifies word-level differences for better feedback
+     * Characters are aligned (edit-distance alignment on kana-folded text), so one missing
+     * character no longer marks every following character as different
      */
-    private List<Map<String, Object>> findCharacterDifferences(String target, String user) {
+    private List<Map<String, Object>> findCharacterDifferences(String target, String user,
+                                                               List<Map<String, Object>> wordDifferences) {
         List<Map<String, Object>> differences = new ArrayList<>();
         
         if (target == null || user == null) {
             return differences;
         }
         
-        // Find word-level differences first (more useful for feedback)
-        List<Map<String, Object>> wordDifferences = findWordDifferences(target, user);
-        
-        // Also find character-level differences for detailed analysis
-        int maxLength = Math.max(target.length(), user.length());
-        for (int i = 0; i < maxLength; i++) {
-            char targetChar = i < target.length() ? target.charAt(i) : ' ';
-            char userChar = i < user.length() ? user.charAt(i) : ' ';
+        // foldKana keeps one char per char, so alignment indexes point into the original texts
+        for (TextSimilarity.Edit edit : TextSimilarity.align(TextSimilarity.foldKana(target), TextSimilarity.foldKana(user))) {
+            char targetChar = edit.type() != TextSimilarity.EditType.EXTRA ? target.charAt(edit.targetIndex()) : ' ';
+            char userChar = edit.type() != TextSimilarity.EditType.MISSING ? user.charAt(edit.userIndex()) : ' ';
             
-            if (targetChar != userChar) {
-                Map<String, Object> diff = new HashMap<>();
-                diff.put("position", i);
-                diff.put("expected", String.valueOf(targetChar));
-                diff.put("actual", String.valueOf(userChar));
-                diff.put("type", getDifferenceType(targetChar, userChar));
-                
-                // Add word context if available
-                Map<String, Object> wordContext = findWordContextForPosition(target, user, i, wordDifferences);
-                if (wordContext != null) {
-                    diff.put("wordContext", wordContext);
-                }
-                
-                differences.add(diff);
+            Map<String, Object> diff = new HashMap<>();
+            diff.put("position", edit.targetIndex());
+            diff.put("expected", String.valueOf(targetChar));
+            diff.put("actual", String.valueOf(userChar));
+            diff.put("type", getDifferenceType(targetChar, userChar));
+            
+            // Add word context if available
+            Map<String, Object> wordContext = findWordContextForPosition(target, user, edit.targetIndex(), wordDifferences);
+            if (wordContext != null) {
+                diff.put("wordContext", wordContext);
             }
+            
+            differences.add(diff);
         }
         
         return differences;
@@ -772,7 +998,8 @@ public class SpeakingPracticeService {
     
     /**
      * Find word-level differences between target and user text
-     * Splits text by common Japanese delimiters and compares words
+     * Splits text into words (morphological analysis) and compares them by reading,
+     * so kana/kanji variants from speech-to-text (わたし vs 私) are not reported as errors
      */
     private List<Map<String, Object>> findWordDifferences(String target, String user) {
         List<Map<String, Object>> wordDifferences = new ArrayList<>();
@@ -781,91 +1008,55 @@ public class SpeakingPracticeService {
             return wordDifferences;
         }
         
-        // Split by common Japanese delimiters: spaces, particles, punctuation
-        // For Japanese, we'll split by particles and punctuation marks
-        String[] targetWords = splitJapaneseText(target);
-        String[] userWords = splitJapaneseText(user);
-        
-        // Use dynamic programming to find best alignment
-        int[][] dp = new int[targetWords.length + 1][userWords.length + 1];
-        
-        // Initialize DP table
-        for (int i = 0; i <= targetWords.length; i++) {
-            dp[i][0] = i;
-        }
-        for (int j = 0; j <= userWords.length; j++) {
-            dp[0][j] = j;
-        }
-        
-        // Fill DP table
-        for (int i = 1; i <= targetWords.length; i++) {
-            for (int j = 1; j <= userWords.length; j++) {
-                if (targetWords[i - 1].equals(userWords[j - 1])) {
-                    dp[i][j] = dp[i - 1][j - 1];
-                } else {
-                    dp[i][j] = Math.min(
-                        Math.min(dp[i - 1][j], dp[i][j - 1]),
-                        dp[i - 1][j - 1]
-                    ) + 1;
+        // Split into words; compare by key (reading when the tokenizer is available)
+        JapaneseWords targetSplit = splitJapaneseWords(target);
+        JapaneseWords userSplit = splitJapaneseWords(user);
+        String[] targetWords = targetSplit.words();
+        String[] userWords = userSplit.words();
+        String[] targetKeys = targetSplit.keys();
+        String[] userKeys = userSplit.keys();
+        
+        // Align words by key; wordIndex = position of the word in the target sentence
+        for (TextSimilarity.Edit edit : TextSimilarity.align(targetKeys, userKeys)) {
+            Map<String, Object> diff = new HashMap<>();
+            diff.put("wordIndex", edit.targetIndex());
+            switch (edit.type()) {
+                case MISSING -> {
+                    // Missing word in user text
+                    String expected = targetWords[edit.targetIndex()];
+                    diff.put("expected", expected);
+                    diff.put("actual", "");
+                    diff.put("type", "missing_word");
+                    diff.put("suggestion", String.format("Thiếu từ '%s'. Hãy thêm từ này vào.", expected));
+                }
+                case EXTRA -> {
+                    // Extra word in user text
+                    String actual = userWords[edit.userIndex()];
+                    diff.put("expected", "");
+                    diff.put("actual", actual);
+                    diff.put("type", "extra_word");
+                    diff.put("suggestion", String.format("Từ '%s' không cần thiết. Hãy bỏ từ này.", actual));
+                }
+                case SUBSTITUTION -> {
+                    // Mismatch
+                    String expected = targetWords[edit.targetIndex()];
+                    String actual = userWords[edit.userIndex()];
+                    diff.put("expected", expected);
+                    diff.put("actual", actual);
+                    diff.put("type", "word_mismatch");
+                    diff.put("suggestion", String.format("Sai từ: bạn nói '%s' nhưng đúng là '%s'. Hãy sửa lại.",
+                        actual, expected));
                 }
             }
-        }
-        
-        // Backtrack to find differences
-        int i = targetWords.length;
-        int j = userWords.length;
-        int wordIndex = 0;
-        
-        while (i > 0 || j > 0) {
-            if (i > 0 && j > 0 && targetWords[i - 1].equals(userWords[j - 1])) {
-                // Match
-                i--;
-                j--;
-                wordIndex++;
-            } else if (i > 0 && (j == 0 || dp[i - 1][j] < dp[i][j - 1])) {
-                // Missing word in user text
-                Map<String, Object> diff = new HashMap<>();
-                diff.put("wordIndex", wordIndex);
-                diff.put("expected", targetWords[i - 1]);
-                diff.put("actual", "");
-                diff.put("type", "missing_word");
-                diff.put("suggestion", String.format("Thiếu từ '%s'. Hãy thêm từ này vào.", targetWords[i - 1]));
-                wordDifferences.add(0, diff); // Add at beginning to maintain order
-                i--;
-                wordIndex++;
-            } else if (j > 0) {
-                // Extra word in user text
-                Map<String, Object> diff = new HashMap<>();
-                diff.put("wordIndex", wordIndex);
-                diff.put("expected", "");
-                diff.put("actual", userWords[j - 1]);
-                diff.put("type", "extra_word");
-                diff.put("suggestion", String.format("Từ '%s' không cần thiết. Hãy bỏ từ này.", userWords[j - 1]));
-                wordDifferences.add(0, diff);
-                j--;
-                wordIndex++;
-            } else {
-                // Mismatch
-                Map<String, Object> diff = new HashMap<>();
-                diff.put("wordIndex", wordIndex);
-                diff.put("expected", targetWords[i - 1]);
-                diff.put("actual", userWords[j - 1]);
-                diff.put("type", "word_mismatch");
-                diff.put("suggestion", String.format("Sai từ: bạn nói '%s' nhưng đúng là '%s'. Hãy sửa lại.", 
-                    userWords[j - 1], targetWords[i - 1]));
-                wordDifferences.add(0, diff);
-                i--;
-                j--;
-                wordIndex++;
-            }
+            wordDifferences.add(diff);
         }
         
         return wordDifferences;
     }
     
     /**
-     * Split Japanese text into words/phrases
-     * Handles particles, punctuation, and common word boundaries
+     * Split Japanese text into words/phrases without the tokenizer (fallback)
+     * Splits on particles and punctuation, so particles themselves are not compared
      */
     private String[] splitJapaneseText(String text) {
         if (text == null || text.isEmpty()) {
@@ -873,7 +1064,6 @@ public class SpeakingPracticeService {
         }
         
         // Split by common Japanese particles and punctuation
-        // This is a simplified approach - in production, might want to use a Japanese tokenizer
         String[] parts = text.split("([。、！？・\\s]+|[はがをにでへとからまでより]|「|」|『|』|（|）|【|】|［|］|｛|｝|〈|〉|《|》)");
         
         List<String> words = new ArrayList<>();
@@ -887,6 +1077,38 @@ public class SpeakingPracticeService {
         return words.toArray(new String[0]);
     }
     
+    /**
+     * Words of a text and their comparison keys (same length)
+     */
+    private record JapaneseWords(String[] words, String[] keys) {
+    }
+    
+    /**
+     * Words + comparison keys: hiragana reading when the tokenizer is available, else the kana-folded word
+     */
+    private JapaneseWords splitJapaneseWords(String text) {
+        if (text == null || text.isEmpty() || !tokenizerAvailable()) {
+            String[] words = splitJapaneseText(text);
+            String[] keys = new String[words.length];
+            for (int k = 0; k < words.length; k++) {
+                keys[k] = TextSimilarity.foldKana(words[k]);
+            }
+            return new JapaneseWords(words, keys);
+        }
+        List<JapaneseTokenizerService.Token> tokens = japaneseTokenizer.words(text);
+        String[] words = new String[tokens.size()];
+        String[] keys = new String[tokens.size()];
+        for (int k = 0; k < tokens.size(); k++) {
+            words[k] = tokens.get(k).surface();
+            keys[k] = tokens.get(k).reading();
+        }
+        return new JapaneseWords(words, keys);
+    }
+    
+    private boolean tokenizerAvailable() {
+        return japaneseTokenizer != null && japaneseTokenizer.isAvailable();
+    }
+    
     /**
      * Find word context for a character position
      */
@@ -961,13 +1183,9 @@ public class SpeakingPracticeService {
         }
     }
     
-    private String getAccuracyFeedbackVi(double accuracyScore, String target, String user, String level) {
+    private String getAccuracyFeedbackVi(double accuracyScore, int errorCount, String level) {
         String levelName = getLevelNameVi(level);
         
-        // Get word differences for more specific feedback
-        List<Map<String, Object>> wordDifferences = findWordDifferences(target, user);
-        int errorCount = wordDifferences.size();
-        
         if (accuracyScore >= feedbackThresholdExcellent) {
             return String.format("Độ chính xác về từ vựng và ngữ pháp rất cao cho trình độ %s!", levelName);
         } else if (accuracyScore >= feedbackThresholdGood) {
@@ -1207,6 +1425,26 @@ public class SpeakingPracticeService {
                 "INVALID_AUDIO_FORMAT");
         }
         
+        validateAudioBytes(audioBytes);
+    }
+    
+    /**
+     * Size and duration checks on decoded audio (base64 JSON and multipart uploads)
+     */
+    private void validateAudioBytes(byte[] audioBytes) {
+        if (audioBytes == null || audioBytes.length == 0) {
+            throw new AIServiceException("Kaiwa Practice",
+                "Audio data is required. Please record your pronunciation before submitting.",
+                "AUDIO_EMPTY");
+        }
+        
+        // Same minimum as 500 base64 characters
+        if (audioBytes.length < 375) {
+            throw new AIServiceException("Kaiwa Practice",
+                "Audio recording is too short or empty. Please record your response (at least 1-2 seconds) before submitting.",
+                "AUDIO_TOO_SHORT");
+        }
+        
         // Check decoded file size (Google Cloud limit: 10MB for long-running, 1MB for synchronous)
         // For 2 minutes audio: ~2-3MB typical, max 10MB for long-running recognition
         final long MAX_AUDIO_SIZE_BYTES = 10485760L; // 10MB (for long-running recognition support)
@@ -1217,20 +1455,19 @@ public class SpeakingPracticeService {
                 "AUDIO_TOO_LARGE");
         }
         
-        // Estimate duration based on file size
-        // Assumptions:
-        // - WAV/WebM at 16kHz mono: ~32KB per second (16k samples/sec * 2 bytes/sample)
-        // - MP3 at 128kbps: ~16KB per second
-        // - Use conservative estimate: 20KB per second average
+        // Duration from container headers (WAV/WebM/Ogg Opus/FLAC); size-based estimate otherwise
+        // (MP3 at 128kbps: ~16KB per second, WAV 16kHz mono: ~32KB per second -> conservative 20KB per second)
         final double BYTES_PER_SECOND_ESTIMATE = 20000.0; // 20KB per second
         final int MAX_DURATION_SECONDS = 60; // 60 seconds (Google Cloud synchronous API limit)
         
-        double estimatedDurationSeconds = audioBytes.length / BYTES_PER_SECOND_ESTIMATE;
+        AudioPreprocessor.Probe probe = AudioPreprocessor.probe(audioBytes);
+        double estimatedDurationSeconds = probe.hasDuration()
+            ? probe.durationSeconds() : audioBytes.length / BYTES_PER_SECOND_ESTIMATE;
         
         if (estimatedDurationSeconds > MAX_DURATION_SECONDS) {
             throw new AIServiceException("Kaiwa Practice",
-                String.format("Audio recording is too long (estimated %.1f seconds). Maximum allowed duration is %d seconds. Please record a shorter audio or split into multiple recordings.", 
-                    estimatedDurationSeconds, MAX_DURATION_SECONDS),
+                String.format("Audio recording is too long (%s %.1f seconds). Maximum allowed duration is %d seconds. Please record a shorter audio or split into multiple recordings.", 
+                    probe.hasDuration() ? "measured" : "estimated", estimatedDurationSeconds, MAX_DURATION_SECONDS),
                 "AUDIO_TOO_LONG");
         }
         
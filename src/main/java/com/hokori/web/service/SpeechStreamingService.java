@@ -0,0 +1,389 @@
+package com.hokori.web.service;
+
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.ClientStream;
+import com.google.api.gax.rpc.ResponseObserver;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.api.gax.rpc.StreamController;
+import com.google.cloud.speech.v1.RecognitionConfig;
+import com.google.cloud.speech.v1.SpeechClient;
+import com.google.cloud.speech.v1.SpeechRecognitionAlternative;
+import com.google.cloud.speech.v1.StreamingRecognitionConfig;
+import com.google.cloud.speech.v1.StreamingRecognitionResult;
+import com.google.cloud.speech.v1.StreamingRecognizeRequest;
+import com.google.cloud.speech.v1.StreamingRecognizeResponse;
+import com.google.protobuf.ByteString;
+import com.hokori.web.exception.AIServiceException;
+import com.hokori.web.util.AudioPreprocessor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-form speech-to-text (speaking exercises, end-of-conversation monologues) over Google Cloud streaming
+ * recognition, for recordings past the 60 second limit of {@link AIService#speechToText}.
+ *
+ * The upload is read in CHUNK_BYTES pieces and each piece goes to the recognition stream as soon as it arrives,
+ * so the file is never held in memory; interim and final transcripts are pushed to the listener while the
+ * upload is still in progress. One Google stream accepts about 5 minutes of audio (OUT_OF_RANGE -> AUDIO_TOO_LONG).
+ */
+@Service
+public class SpeechStreamingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpeechStreamingService.class);
+
+    /** Google recommends at most 25 KB of audio per StreamingRecognizeRequest */
+    private static final int CHUNK_BYTES = 16 * 1024;
+    /** Browser Opus (WebM/Ogg) is always decoded at 48 kHz */
+    private static final int OPUS_SAMPLE_RATE = 48000;
+
+    @Autowired(required = false)
+    private SpeechClient speechClient;
+
+    @Autowired(required = false)
+    private AIResponseFormatter responseFormatter;
+
+    @Value("${google.cloud.enabled:false}")
+    private boolean googleCloudEnabled;
+
+    @Value("${ai.speech-to-text.sample-rate:16000}")
+    private int speechToTextSampleRate;
+
+    @Value("${ai.speech-to-text.streaming.threads:8}")
+    private int streamingThreads;
+
+    @Value("${ai.speech-to-text.streaming.max-bytes:67108864}")
+    private long maxStreamBytes;
+
+    // Upper bound for the whole stream (upload + recognition of the tail)
+    @Value("${ai.speech-to-text.streaming.timeout-ms:330000}")
+    private long streamTimeoutMs;
+
+    private ExecutorService streamingExecutor;
+
+    /**
+     * Listener for transcript events (see {@link #streamSpeechToText})
+     */
+    @FunctionalInterface
+    public interface TranscriptListener {
+        void onEvent(String name, Object data);
+    }
+
+    @PostConstruct
+    void initStreamingExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        // No queue: a stream holds its thread for as long as the upload lasts, so a queued request would
+        // leave its client uploading into nothing; when every thread is busy the request is rejected instead
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                streamingThreads, streamingThreads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "speech-stream-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        streamingExecutor = pool;
+    }
+
+    @PreDestroy
+    void shutdownStreamingExecutor() {
+        streamingExecutor.shutdownNow();
+    }
+
+    /**
+     * Transcribe audio of any length up to the streaming limit while it is being uploaded
+     * <ul>
+     *   <li>interim - {transcript (finals so far + current guess), interim, stability}</li>
+     *   <li>final - {index, transcript, confidence, endSeconds, fullTranscript} for each finished segment</li>
+     * </ul>
+     * The returned future completes with the same fields as {@link AIService#speechToText} plus segments and
+     * durationSeconds. Cancelling it stops reading the upload and closes the recognition stream.
+     *
+     * @param audio       request body; read on a streaming thread, never buffered whole
+     * @param audioFormat used only when the container cannot be recognised from the first bytes
+     */
+    public CompletableFuture<Map<String, Object>> streamSpeechToText(InputStream audio, String language,
+                                                                     String audioFormat, TranscriptListener listener) {
+        if (!googleCloudEnabled || speechClient == null) {
+            return CompletableFuture.failedFuture(new AIServiceException("Speech-to-Text",
+                "Google Cloud Speech-to-Text API is not enabled or not configured. Please enable it in application properties.",
+                "SPEECH_TO_TEXT_SERVICE_DISABLED"));
+        }
+        String langCode = language != null && !language.isEmpty() ? language : "ja-JP";
+
+        CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        try {
+            streamingExecutor.execute(() -> {
+                try {
+                    result.complete(recognize(audio, langCode, audioFormat, listener, result));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Streaming speech-to-text rejected: all {} streams busy", streamingThreads);
+            result.completeExceptionally(new AIServiceException("Speech-to-Text",
+                "Too many long recordings are being transcribed right now. Please try again in a moment.",
+                "STT_STREAM_BUSY"));
+        }
+        return result;
+    }
+
+    private Map<String, Object> recognize(InputStream audio, String langCode, String audioFormat,
+                                          TranscriptListener listener, CompletableFuture<?> caller) {
+        byte[] buffer = new byte[CHUNK_BYTES];
+        int read;
+        try {
+            read = audio.readNBytes(buffer, 0, CHUNK_BYTES);
+        } catch (IOException e) {
+            throw new AIServiceException("Speech-to-Text", "Could not read uploaded audio: " + e.getMessage(),
+                "AUDIO_UPLOAD_INTERRUPTED");
+        }
+        if (read == 0) {
+            throw new AIServiceException("Speech-to-Text", "Audio data cannot be empty", "INVALID_INPUT");
+        }
+
+        // Container from the first chunk's magic bytes (more reliable than the FE-provided format)
+        AudioPreprocessor.Probe head = AudioPreprocessor.probe(Arrays.copyOf(buffer, read));
+        String format = !"unknown".equals(head.format()) ? head.format()
+            : audioFormat != null && !audioFormat.isBlank() ? audioFormat.toLowerCase().trim() : "webm";
+        RecognitionConfig config = buildStreamingConfig(langCode, format, head);
+        logger.info("Streaming speech-to-text started: language={}, format={}", langCode, format);
+
+        StreamState state = new StreamState(listener);
+        ClientStream<StreamingRecognizeRequest> stream = speechClient.streamingRecognizeCallable().splitCall(state);
+        long sent = 0;
+        try {
+            stream.send(StreamingRecognizeRequest.newBuilder()
+                .setStreamingConfig(StreamingRecognitionConfig.newBuilder()
+                    .setConfig(config)
+                    .setInterimResults(true)
+                    .build())
+                .build());
+            while (read > 0 && !state.done.isDone()) {
+                if (caller.isDone()) {
+                    throw new CancellationException("Streaming speech-to-text cancelled by caller");
+                }
+                sent += read;
+                if (sent > maxStreamBytes) {
+                    throw new AIServiceException("Speech-to-Text",
+                        String.format("Audio is too large for streaming recognition (max %d MB).", maxStreamBytes / 1048576),
+                        "AUDIO_TOO_LONG");
+                }
+                stream.send(StreamingRecognizeRequest.newBuilder()
+                    .setAudioContent(ByteString.copyFrom(buffer, 0, read))
+                    .build());
+                read = audio.readNBytes(buffer, 0, CHUNK_BYTES);
+            }
+            if (!state.done.isDone()) {
+                // Otherwise Google already ended the stream (error surfaces from done below)
+                stream.closeSend();
+            }
+        } catch (IOException e) {
+            abort(stream, e);
+            throw new AIServiceException("Speech-to-Text", "Audio upload was interrupted: " + e.getMessage(),
+                "AUDIO_UPLOAD_INTERRUPTED");
+        } catch (RuntimeException e) {
+            abort(stream, e);
+            throw e;
+        }
+
+        try {
+            state.done.get(streamTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            state.cancel();
+            throw new AIServiceException("Speech-to-Text", "Streaming recognition timed out", "STT_TIMEOUT");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state.cancel();
+            throw new CancellationException("Streaming speech-to-text interrupted");
+        } catch (ExecutionException e) {
+            throw translate(e.getCause());
+        }
+
+        Map<String, Object> result = state.result(langCode);
+        logger.info("Streaming speech-to-text finished: bytes={}, segments={}, durationSeconds={}",
+            sent, state.segments.size(), result.get("durationSeconds"));
+        return responseFormatter != null ? responseFormatter.formatSpeechToTextResponse(result) : result;
+    }
+
+    /**
+     * Streaming needs an explicit encoding (no header sniffing like synchronous recognition)
+     */
+    private RecognitionConfig buildStreamingConfig(String langCode, String format, AudioPreprocessor.Probe head) {
+        RecognitionConfig.Builder configBuilder = RecognitionConfig.newBuilder()
+            .setLanguageCode(langCode)
+            .setEnableAutomaticPunctuation(true);
+        switch (format) {
+            case "webm" -> configBuilder.setEncoding(RecognitionConfig.AudioEncoding.WEBM_OPUS)
+                .setSampleRateHertz(OPUS_SAMPLE_RATE);
+            case "ogg", "opus" -> configBuilder.setEncoding(RecognitionConfig.AudioEncoding.OGG_OPUS)
+                .setSampleRateHertz(OPUS_SAMPLE_RATE);
+            case "flac" -> configBuilder.setEncoding(RecognitionConfig.AudioEncoding.FLAC);
+            case "mp3" -> configBuilder.setEncoding(RecognitionConfig.AudioEncoding.MP3);
+            default -> {
+                // LINEAR16 (WAV): sample rate and channels from the header when the first chunk contains it
+                configBuilder.setEncoding(RecognitionConfig.AudioEncoding.LINEAR16)
+                    .setSampleRateHertz(head.sampleRate() > 0 ? head.sampleRate() : speechToTextSampleRate);
+                if (head.channels() > 1) {
+                    configBuilder.setAudioChannelCount(head.channels());
+                }
+            }
+        }
+        return configBuilder.build();
+    }
+
+    private static void abort(ClientStream<StreamingRecognizeRequest> stream, Throwable cause) {
+        try {
+            stream.closeSendWithError(cause);
+        } catch (RuntimeException e) {
+            logger.debug("Recognition stream already closed: {}", e.getMessage());
+        }
+    }
+
+    private static RuntimeException translate(Throwable cause) {
+        if (cause instanceof ApiException apiError) {
+            StatusCode.Code code = apiError.getStatusCode().getCode();
+            if (code == StatusCode.Code.OUT_OF_RANGE) {
+                return new AIServiceException("Speech-to-Text",
+                    "Audio is longer than the streaming recognition limit (about 5 minutes). Please record a shorter audio.",
+                    "AUDIO_TOO_LONG");
+            }
+            if (code == StatusCode.Code.INVALID_ARGUMENT) {
+                return new AIServiceException("Speech-to-Text",
+                    "Audio could not be decoded: " + apiError.getMessage(), "INVALID_INPUT");
+            }
+        }
+        if (cause instanceof RuntimeException runtime && !(cause instanceof ApiException)) {
+            // Listener failure (client disconnected) or AIServiceException: propagate as is
+            return runtime;
+        }
+        logger.error("Streaming speech-to-text failed", cause);
+        return new AIServiceException("Speech-to-Text", "Streaming recognition failed: " + cause.getMessage(), cause);
+    }
+
+    /**
+     * Response side of one recognition stream; callbacks arrive on a gRPC thread, the result is read
+     * by the streaming thread only after {@link #done} completes
+     */
+    private static final class StreamState implements ResponseObserver<StreamingRecognizeResponse> {
+
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final List<Map<String, Object>> segments = new ArrayList<>();
+        private final StringBuilder transcript = new StringBuilder();
+        private final TranscriptListener listener;
+        private volatile StreamController controller;
+        private double confidenceSum;
+        private double endSeconds;
+
+        StreamState(TranscriptListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onStart(StreamController controller) {
+            this.controller = controller;
+        }
+
+        @Override
+        public void onResponse(StreamingRecognizeResponse response) {
+            try {
+                StringBuilder interim = new StringBuilder();
+                float stability = 0f;
+                for (StreamingRecognitionResult result : response.getResultsList()) {
+                    if (result.getAlternativesCount() == 0) {
+                        continue;
+                    }
+                    SpeechRecognitionAlternative alternative = result.getAlternatives(0);
+                    if (!result.getIsFinal()) {
+                        interim.append(alternative.getTranscript());
+                        stability = Math.max(stability, result.getStability());
+                        continue;
+                    }
+                    transcript.append(alternative.getTranscript());
+                    confidenceSum += alternative.getConfidence();
+                    endSeconds = result.getResultEndTime().getSeconds() + result.getResultEndTime().getNanos() / 1e9;
+
+                    Map<String, Object> segment = new HashMap<>();
+                    segment.put("index", segments.size());
+                    segment.put("transcript", alternative.getTranscript());
+                    segment.put("confidence", alternative.getConfidence());
+                    segment.put("endSeconds", endSeconds);
+                    segments.add(segment);
+
+                    Map<String, Object> event = new HashMap<>(segment);
+                    event.put("fullTranscript", transcript.toString());
+                    listener.onEvent("final", event);
+                }
+                if (interim.length() > 0) {
+                    Map<String, Object> event = new HashMap<>();
+                    event.put("transcript", transcript + interim.toString());
+                    event.put("interim", interim.toString());
+                    event.put("stability", stability);
+                    listener.onEvent("interim", event);
+                }
+            } catch (RuntimeException e) {
+                // Listener failed (client disconnected): stop recognizing
+                cancel();
+                done.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            done.completeExceptionally(t);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+
+        void cancel() {
+            StreamController current = controller;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        Map<String, Object> result(String langCode) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("language", langCode);
+            result.put("segments", segments);
+            result.put("durationSeconds", endSeconds);
+            if (segments.isEmpty()) {
+                result.put("transcript", "");
+                result.put("confidence", 0.0);
+                result.put("error", "No speech detected in audio");
+            } else {
+                result.put("transcript", transcript.toString());
+                result.put("confidence", confidenceSum / segments.size());
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.hokori.web.service;
+
+import com.hokori.web.entity.TranslationMemory;
+import com.hokori.web.repository.TranslationMemoryRepository;
+import com.hokori.web.util.ContentHash;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Translation memory cho AIService.translateText.
+ *
+ * - Key = (SHA-256 text đã chuẩn hoá, source lang, target lang)
+ * - Tầng 1: LRU trong memory, giới hạn theo tổng số ký tự bản dịch (không theo số entry)
+ * - Tầng 2: bảng translation_memory, có batch lookup bằng 1 query
+ * - Hit thì không gọi Google Translate
+ *
+ * Metrics: ai.translation.memory{result=memory|db|miss}
+ */
+@Slf4j
+@Service
+public class TranslationMemoryService {
+
+    // Ước lượng overhead mỗi entry (key 64 hex + object header) tính theo ký tự
+    private static final int ENTRY_OVERHEAD_CHARS = 96;
+
+    private final TranslationMemoryRepository memoryRepo;
+    private final long maxMemoryChars;
+
+    // Guarded by itself
+    private final LinkedHashMap<String, Hit> memory = new LinkedHashMap<>(1024, 0.75f, true);
+    private long memoryChars;
+
+    private final Counter memoryHits;
+    private final Counter dbHits;
+    private final Counter misses;
+
+    @Value("${ai.translation.memory.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Bản dịch đã lưu
+     */
+    public record Hit(String translatedText, String detectedSourceLanguage) {
+    }
+
+    public TranslationMemoryService(TranslationMemoryRepository memoryRepo,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${ai.translation.memory.max-memory-chars:2000000}") long maxMemoryChars) {
+        this.memoryRepo = memoryRepo;
+        this.maxMemoryChars = maxMemoryChars;
+        this.memoryHits = meterRegistry.counter("ai.translation.memory", "result", "memory");
+        this.dbHits = meterRegistry.counter("ai.translation.memory", "result", "db");
+        this.misses = meterRegistry.counter("ai.translation.memory", "result", "miss");
+    }
+
+    /**
+     * Tra 1 bản dịch
+     *
+     * @param sourceLanguage null/rỗng = auto-detect
+     * @return bản dịch hoặc null nếu chưa có
+     */
+    public Hit lookup(String text, String sourceLanguage, String targetLanguage) {
+        if (!enabled) {
+            return null;
+        }
+        String src = sourceKey(sourceLanguage);
+        String hash = ContentHash.sha256Hex(ContentHash.normalize(text));
+        String key = memoryKey(hash, src, targetLanguage);
+
+        Hit hit = getFromMemory(key);
+        if (hit != null) {
+            memoryHits.increment();
+            return hit;
+        }
+        try {
+            hit = memoryRepo.findBySourceHashAndSourceLangAndTargetLang(hash, src, targetLanguage)
+                    .map(row -> new Hit(row.getTranslatedText(), row.getDetectedSourceLang()))
+                    .orElse(null);
+        } catch (Exception e) {
+            log.warn("Translation memory lookup failed: {}", e.getMessage());
+            hit = null;
+        }
+        if (hit != null) {
+            dbHits.increment();
+            putInMemory(key, hit);
+        } else {
+            misses.increment();
+        }
+        return hit;
+    }
+
+    /**
+     * Tra nhiều bản dịch cùng cặp ngôn ngữ: memory trước, phần còn lại 1 query DB.
+     *
+     * @return map text gốc -> bản dịch, chỉ chứa các text đã có bản dịch
+     */
+    public Map<String, Hit> lookupAll(Collection<String> texts, String sourceLanguage, String targetLanguage) {
+        Map<String, Hit> found = new HashMap<>();
+        if (!enabled || texts.isEmpty()) {
+            return found;
+        }
+        String src = sourceKey(sourceLanguage);
+        Map<String, String> missingByHash = new HashMap<>();
+        for (String text : texts) {
+            String hash = ContentHash.sha256Hex(ContentHash.normalize(text));
+            Hit hit = getFromMemory(memoryKey(hash, src, targetLanguage));
+            if (hit != null) {
+                memoryHits.increment();
+                found.put(text, hit);
+            } else {
+                missingByHash.put(hash, text);
+            }
+        }
+        if (missingByHash.isEmpty()) {
+            return found;
+        }
+
+        try {
+            List<TranslationMemory> rows = memoryRepo.findBySourceLangAndTargetLangAndSourceHashIn(
+                    src, targetLanguage, missingByHash.keySet());
+            for (TranslationMemory row : rows) {
+                String text = missingByHash.remove(row.getSourceHash());
+                if (text != null) {
+                    Hit hit = new Hit(row.getTranslatedText(), row.getDetectedSourceLang());
+                    putInMemory(memoryKey(row.getSourceHash(), src, targetLanguage), hit);
+                    found.put(text, hit);
+                    dbHits.increment();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Translation memory batch lookup failed: {}", e.getMessage());
+        }
+        misses.increment(missingByHash.size());
+        return found;
+    }
+
+    /**
+     * Lưu bản dịch mới (memory + DB). Lỗi DB không làm hỏng request dịch.
+     */
+    public void store(String text, String sourceLanguage, String targetLanguage,
+                      String translatedText, String detectedSourceLanguage) {
+        if (!enabled || translatedText == null || translatedText.isBlank()) {
+            return;
+        }
+        String src = sourceKey(sourceLanguage);
+        String normalized = ContentHash.normalize(text);
+        String hash = ContentHash.sha256Hex(normalized);
+        Hit hit = new Hit(translatedText, detectedSourceLanguage);
+        putInMemory(memoryKey(hash, src, targetLanguage), hit);
+        try {
+            memoryRepo.upsert(hash, src, targetLanguage, normalized, translatedText, detectedSourceLanguage, Instant.now());
+        } catch (Exception e) {
+            log.warn("Failed to persist translation memory entry: {}", e.getMessage());
+        }
+    }
+
+    private static String sourceKey(String sourceLanguage) {
+        return sourceLanguage != null && !sourceLanguage.isBlank() ? sourceLanguage : "auto";
+    }
+
+    private static String memoryKey(String hash, String sourceLang, String targetLang) {
+        return sourceLang + ':' + targetLang + ':' + hash;
+    }
+
+    private Hit getFromMemory(String key) {
+        synchronized (memory) {
+            return memory.get(key);
+        }
+    }
+
+    private void putInMemory(String key, Hit hit) {
+        synchronized (memory) {
+            Hit previous = memory.put(key, hit);
+            if (previous != null) {
+                memoryChars -= weight(previous);
+            }
+            memoryChars += weight(hit);
+            Iterator<Map.Entry<String, Hit>> eldest = memory.entrySet().iterator();
+            while (memoryChars > maxMemoryChars && eldest.hasNext()) {
+                Map.Entry<String, Hit> entry = eldest.next();
+                memoryChars -= weight(entry.getValue());
+                eldest.remove();
+            }
+        }
+    }
+
+    private static long weight(Hit hit) {
+        return ENTRY_OVERHEAD_CHARS + hit.translatedText().length();
+    }
+}
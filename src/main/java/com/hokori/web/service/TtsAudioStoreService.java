@@ -0,0 +1,276 @@
+package com.hokori.web.service;
+
+import com.hokori.web.entity.TtsAudio;
+import com.hokori.web.repository.TtsAudioRepository;
+import com.hokori.web.util.ContentHash;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Kho audio TTS theo nội dung (content-addressed) cho AIService.textToSpeech.
+ *
+ * - Key = SHA-256(text đã chuẩn hoá + voice + speaking rate + định dạng)
+ * - File lưu 1 lần trên R2 (backend=r2) hoặc disk local (backend=local), không bao giờ ghi đè
+ * - Bảng tts_audio là index metadata; thêm 1 LRU hash -> URL trong memory
+ * - Nhiều request cùng key đồng thời chỉ tổng hợp 1 lần
+ * - Lưu file lỗi thì vẫn trả audio vừa tổng hợp để caller trả inline như cũ
+ *
+ * Metrics: ai.tts.store{result=memory|db|coalesced|miss}
+ */
+@Slf4j
+@Service
+public class TtsAudioStoreService {
+
+    public static final String BACKEND_R2 = "r2";
+    public static final String BACKEND_LOCAL = "local";
+
+    static final String LOCAL_URL_PREFIX = "/tts-audio/";
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final Set<String> SUPPORTED_FORMATS = Set.of("mp3", "wav", "ogg");
+
+    private final TtsAudioRepository audioRepo;
+    private final ObjectProvider<R2Service> r2ServiceProvider;
+    private final String backend;
+    private final Path localDir;
+    private final String publicBaseUrl;
+
+    private final Map<String, String> urlByHash;
+    private final ConcurrentHashMap<String, CompletableFuture<StoredAudio>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter memoryHits;
+    private final Counter dbHits;
+    private final Counter coalesced;
+    private final Counter misses;
+
+    /**
+     * Kết quả tra/lưu audio.
+     *
+     * @param url   URL public của file, null nếu lưu thất bại
+     * @param audio bytes vừa tổng hợp (null khi lấy từ kho)
+     */
+    public record StoredAudio(String url, byte[] audio, long sizeBytes, boolean cached) {
+    }
+
+    public TtsAudioStoreService(TtsAudioRepository audioRepo,
+                                ObjectProvider<R2Service> r2ServiceProvider,
+                                MeterRegistry meterRegistry,
+                                @Value("${ai.text-to-speech.store.backend:r2}") String backend,
+                                @Value("${ai.text-to-speech.store.local-dir:data/tts-audio}") String localDir,
+                                @Value("${ai.text-to-speech.store.public-base-url:}") String publicBaseUrl,
+                                @Value("${ai.text-to-speech.store.max-memory-entries:10000}") int maxMemoryEntries) {
+        this.audioRepo = audioRepo;
+        this.r2ServiceProvider = r2ServiceProvider;
+        this.backend = backend == null ? "" : backend.trim().toLowerCase(Locale.ROOT);
+        this.localDir = Paths.get(localDir).toAbsolutePath().normalize();
+        this.publicBaseUrl = publicBaseUrl.endsWith("/")
+                ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1) : publicBaseUrl;
+        this.urlByHash = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxMemoryEntries;
+            }
+        };
+        this.memoryHits = meterRegistry.counter("ai.tts.store", "result", "memory");
+        this.dbHits = meterRegistry.counter("ai.tts.store", "result", "db");
+        this.coalesced = meterRegistry.counter("ai.tts.store", "result", "coalesced");
+        this.misses = meterRegistry.counter("ai.tts.store", "result", "miss");
+    }
+
+    /**
+     * Kho có được bật không (backend=none để tắt, khi đó AIService trả base64 inline)
+     */
+    public boolean isEnabled() {
+        return BACKEND_R2.equals(backend) || BACKEND_LOCAL.equals(backend);
+    }
+
+    /**
+     * Tính content hash cho 1 yêu cầu TTS
+     */
+    public static String contentHash(String text, String voice, double speakingRate, String audioFormat) {
+        // Làm tròn rate để 1.0 và 1.00000001 (từ config) cho cùng 1 key
+        String rate = String.format(Locale.ROOT, "%.3f", speakingRate);
+        return ContentHash.sha256Hex(ContentHash.normalize(text), voice, rate, audioFormat);
+    }
+
+    /**
+     * Lấy audio đã lưu, hoặc gọi synthesizer rồi lưu (1 lần cho mỗi key dù nhiều caller đồng thời)
+     *
+     * @param synthesizer gọi Google TTS khi chưa có trong kho
+     */
+    public StoredAudio getOrSynthesize(String text, String voice, double speakingRate, String audioFormat,
+                                       Supplier<byte[]> synthesizer) {
+        String hash = contentHash(text, voice, speakingRate, audioFormat);
+
+        String url = getFromMemory(hash);
+        if (url != null) {
+            memoryHits.increment();
+            return new StoredAudio(url, null, -1, true);
+        }
+
+        CompletableFuture<StoredAudio> mine = new CompletableFuture<>();
+        CompletableFuture<StoredAudio> existing = inFlight.putIfAbsent(hash, mine);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        try {
+            StoredAudio result = lookupOrCreate(hash, text, voice, speakingRate, audioFormat, synthesizer);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(hash, mine);
+        }
+    }
+
+    /**
+     * Đọc lại bytes audio đã lưu (caller cần audio inline mà kho chỉ trả URL) thay vì gọi TTS lần nữa
+     *
+     * @return null nếu chưa có trong kho hoặc đọc lỗi
+     */
+    public byte[] readStored(String text, String voice, double speakingRate, String audioFormat) {
+        String hash = contentHash(text, voice, speakingRate, audioFormat);
+        try {
+            if (BACKEND_R2.equals(backend)) {
+                R2Service r2Service = r2ServiceProvider.getIfAvailable();
+                return r2Service != null ? r2Service.downloadFile(relativePath(hash, audioFormat)) : null;
+            }
+            Path file = resolveLocalFile(hash, audioFormat);
+            return file != null ? Files.readAllBytes(file) : null;
+        } catch (Exception e) {
+            log.warn("Failed to read stored TTS audio {}: {}", hash, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Đường dẫn file local cho hash (backend=local), null nếu hash không hợp lệ hoặc chưa có file
+     */
+    public Path resolveLocalFile(String hash, String audioFormat) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()
+                || !SUPPORTED_FORMATS.contains(audioFormat)) {
+            return null;
+        }
+        Path file = localDir.resolve(relativePath(hash, audioFormat));
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    private StoredAudio lookupOrCreate(String hash, String text, String voice, double speakingRate,
+                                       String audioFormat, Supplier<byte[]> synthesizer) {
+        try {
+            TtsAudio row = audioRepo.findById(hash).orElse(null);
+            if (row != null) {
+                dbHits.increment();
+                putInMemory(hash, row.getAudioUrl());
+                return new StoredAudio(row.getAudioUrl(), null, row.getSizeBytes(), true);
+            }
+        } catch (Exception e) {
+            // DB lỗi thì vẫn tổng hợp bình thường
+            log.warn("TTS audio index lookup failed: {}", e.getMessage());
+        }
+
+        misses.increment();
+        byte[] audio = synthesizer.get();
+        String url = persist(hash, text, voice, speakingRate, audioFormat, audio);
+        return new StoredAudio(url, audio, audio.length, false);
+    }
+
+    private String persist(String hash, String text, String voice, double speakingRate,
+                           String audioFormat, byte[] audio) {
+        String path = relativePath(hash, audioFormat);
+        String url;
+        try {
+            if (BACKEND_R2.equals(backend)) {
+                R2Service r2Service = r2ServiceProvider.getIfAvailable();
+                if (r2Service == null) {
+                    log.warn("TTS audio store backend is r2 but R2 is not configured");
+                    return null;
+                }
+                url = r2Service.uploadFile(audio, path, contentType(audioFormat));
+            } else {
+                writeLocal(localDir.resolve(path), audio);
+                url = publicBaseUrl + LOCAL_URL_PREFIX + hash + "." + audioFormat;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to store TTS audio {}: {}", hash, e.getMessage());
+            return null;
+        }
+
+        putInMemory(hash, url);
+        try {
+            audioRepo.insertIfAbsent(hash, ContentHash.normalize(text), voice, speakingRate, audioFormat,
+                    backend, path, url, audio.length, Instant.now());
+        } catch (Exception e) {
+            // File đã lưu, lần sau ghi lại index cũng được
+            log.warn("Failed to index TTS audio {}: {}", hash, e.getMessage());
+        }
+        return url;
+    }
+
+    private static void writeLocal(Path target, byte[] audio) throws IOException {
+        if (Files.exists(target)) {
+            return; // cùng hash = cùng nội dung
+        }
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), "tts-", ".tmp");
+        try {
+            Files.write(tmp, audio);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static String relativePath(String hash, String audioFormat) {
+        // Chia thư mục theo 2 ký tự đầu để không dồn hết vào 1 folder
+        return "tts/" + hash.substring(0, 2) + "/" + hash + "." + audioFormat;
+    }
+
+    public static String contentType(String audioFormat) {
+        return switch (audioFormat) {
+            case "mp3" -> "audio/mpeg";
+            case "wav" -> "audio/wav";
+            case "ogg" -> "audio/ogg";
+            default -> "application/octet-stream";
+        };
+    }
+
+    private String getFromMemory(String hash) {
+        synchronized (urlByHash) {
+            return urlByHash.get(hash);
+        }
+    }
+
+    private void putInMemory(String hash, String url) {
+        synchronized (urlByHash) {
+            urlByHash.put(hash, url);
+        }
+    }
+}
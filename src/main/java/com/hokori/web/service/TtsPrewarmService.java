@@ -0,0 +1,151 @@
+package com.hokori.web.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background job tổng hợp sẵn audio TTS cho các bộ câu cố định, để lần phát đầu tiên
+ * của user đã có URL trong kho (TtsAudioStoreService):
+ * - Câu gợi ý kaiwa (KaiwaSentenceService) của mọi level
+ * - Câu ví dụ phân tích câu (SentenceAnalysisService.getExampleSentences), lấy qua cache Gemini
+ *
+ * Câu đã có trong kho chỉ tốn 1 lần tra hash nên chạy lại định kỳ rất rẻ.
+ * Job chạy trên thread riêng để không chặn các @Scheduled khác.
+ */
+@Slf4j
+@Service
+public class TtsPrewarmService {
+
+    private static final String[] LEVELS = {"N5", "N4", "N3", "N2", "N1"};
+
+    private final AIService aiService;
+    private final KaiwaSentenceService kaiwaSentenceService;
+    private final SentenceAnalysisService sentenceAnalysisService;
+    private final TtsAudioStoreService ttsAudioStore;
+
+    private final ExecutorService worker;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Value("${ai.text-to-speech.prewarm.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.text-to-speech.prewarm.include-example-sentences:true}")
+    private boolean includeExampleSentences;
+
+    @Value("${ai.text-to-speech.prewarm.speeds:normal,slow}")
+    private List<String> speeds;
+
+    // Nghỉ giữa 2 lần gọi TTS để không chiếm quota của request thật
+    @Value("${ai.text-to-speech.prewarm.pause-ms:200}")
+    private long pauseMs;
+
+    public TtsPrewarmService(AIService aiService,
+                             KaiwaSentenceService kaiwaSentenceService,
+                             SentenceAnalysisService sentenceAnalysisService,
+                             TtsAudioStoreService ttsAudioStore) {
+        this.aiService = aiService;
+        this.kaiwaSentenceService = kaiwaSentenceService;
+        this.sentenceAnalysisService = sentenceAnalysisService;
+        this.ttsAudioStore = ttsAudioStore;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tts-prewarm");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Chạy sau khi app khởi động và lặp lại mỗi ngày (câu ví dụ Gemini đổi theo TTL cache 1 ngày)
+     */
+    @Scheduled(initialDelayString = "${ai.text-to-speech.prewarm.initial-delay-ms:60000}",
+               fixedDelayString = "${ai.text-to-speech.prewarm.interval-ms:86400000}")
+    public void schedulePrewarm() {
+        if (!enabled || !ttsAudioStore.isEnabled() || !aiService.isTextToSpeechAvailable()) {
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.debug("TTS prewarm still running, skipping this round");
+            return;
+        }
+        worker.execute(() -> {
+            try {
+                prewarm();
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    void prewarm() {
+        Set<String> texts = collectTexts();
+        log.info("TTS prewarm started: {} sentences x {} speeds", texts.size(), speeds.size());
+
+        int synthesized = 0;
+        int failed = 0;
+        for (String text : texts) {
+            for (String speed : speeds) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                try {
+                    Map<String, Object> result = aiService.textToSpeech(text, null, speed.trim());
+                    if (!Boolean.TRUE.equals(result.get("cached"))) {
+                        synthesized++;
+                        Thread.sleep(pauseMs);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    failed++;
+                    log.debug("TTS prewarm failed for '{}': {}", text, e.getMessage());
+                }
+            }
+        }
+        log.info("TTS prewarm finished: synthesized={}, failed={}", synthesized, failed);
+    }
+
+    private Set<String> collectTexts() {
+        Set<String> texts = new LinkedHashSet<>();
+        for (String level : LEVELS) {
+            for (Map<String, Object> sentence : kaiwaSentenceService.getSuggestedSentences(level)) {
+                addText(texts, sentence.get("text"));
+            }
+        }
+        if (includeExampleSentences) {
+            for (String level : LEVELS) {
+                try {
+                    for (Map<String, Object> sentence : GeminiService.await(sentenceAnalysisService.getExampleSentences(level))) {
+                        addText(texts, sentence.get("sentence"));
+                    }
+                } catch (Exception e) {
+                    log.warn("TTS prewarm could not load example sentences for {}: {}", level, e.getMessage());
+                }
+            }
+        }
+        return texts;
+    }
+
+    private static void addText(Set<String> texts, Object text) {
+        // Bỏ câu mẫu có chỗ trống kiểu "私の名前は...です"
+        if (text instanceof String s && !s.isBlank() && !s.contains("...")) {
+            texts.add(s);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.hokori.web.service.provider;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hokori.web.Enum.AiCallKind;
+import com.hokori.web.Enum.AiProviderMode;
+import com.hokori.web.exception.AIServiceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Ghi / phát lại câu trả lời AI (ai.provider.mode = record / replay).
+ *
+ * RECORD: gọi Google như bình thường, mỗi câu trả lời thành công được ghi vào
+ * {record-dir}/{kind}/{sha256 của request}.json kèm latency đo được.
+ * REPLAY: đọc lại file theo cùng key, không gọi mạng; có thể ngủ đúng latency đã ghi
+ * (ai.provider.replay.simulate-latency) để đo pipeline với độ trễ thật.
+ * Request chưa được ghi thì lỗi AI_REPLAY_MISS thay vì âm thầm gọi Google.
+ */
+@Slf4j
+@Component
+public class AiRecordReplayStore {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${ai.provider.mode:GOOGLE}")
+    private AiProviderMode mode;
+
+    @Value("${ai.provider.record-dir:ai-recordings}")
+    private String recordDir;
+
+    @Value("${ai.provider.replay.simulate-latency:true}")
+    private boolean simulateLatency;
+
+    /**
+     * 1 file ghi âm: câu trả lời dạng JSON và latency của call gốc
+     */
+    record Recording(long latencyMs, JsonNode response) {
+    }
+
+    public AiRecordReplayStore(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isRecording() {
+        return mode == AiProviderMode.RECORD;
+    }
+
+    public boolean isReplaying() {
+        return mode == AiProviderMode.REPLAY;
+    }
+
+    /**
+     * RECORD: gọi delegate rồi ghi kết quả; REPLAY: đọc kết quả đã ghi; mode khác: chỉ gọi delegate
+     *
+     * @param keyParts các phần của request quyết định câu trả lời (byte[] được hash theo nội dung)
+     */
+    public <T> T call(AiCallKind kind, JavaType type, Supplier<T> delegate, Object... keyParts) {
+        String key = key(keyParts);
+        if (isReplaying()) {
+            Recording recording = read(kind, key);
+            sleepRecordedLatency(kind, recording);
+            return convert(kind, recording, type);
+        }
+        long start = System.nanoTime();
+        T response = delegate.get();
+        if (isRecording()) {
+            write(kind, key, response, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return response;
+    }
+
+    public <T> T call(AiCallKind kind, Class<T> type, Supplier<T> delegate, Object... keyParts) {
+        return call(kind, objectMapper.constructType(type), delegate, keyParts);
+    }
+
+    /**
+     * REPLAY không chặn thread: future hoàn thành sau latency đã ghi (dùng cho LLM)
+     */
+    public <T> CompletableFuture<T> replayAsync(AiCallKind kind, Class<T> type, Object... keyParts) {
+        Recording recording;
+        try {
+            recording = read(kind, key(keyParts));
+        } catch (AIServiceException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long delayMs = simulateLatency ? recording.latencyMs() : 0;
+        return CompletableFuture.supplyAsync(() -> convert(kind, recording, objectMapper.constructType(type)),
+                CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Ghi 1 câu trả lời đo được ở nơi khác (GeminiService tự gọi HTTP ở chế độ RECORD)
+     */
+    public void record(AiCallKind kind, Object response, long latencyMs, Object... keyParts) {
+        if (isRecording()) {
+            write(kind, key(keyParts), response, latencyMs);
+        }
+    }
+
+    private Recording read(AiCallKind kind, String key) {
+        Path file = file(kind, key);
+        if (!Files.exists(file)) {
+            throw new AIServiceException(kind.getServiceName(),
+                    "No recorded response for this request (" + kind.getPropertyName() + "/" + key + ")",
+                    "AI_REPLAY_MISS");
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), Recording.class);
+        } catch (IOException e) {
+            throw new AIServiceException(kind.getServiceName(), "Unreadable recording " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void write(AiCallKind kind, String key, Object response, long latencyMs) {
+        Path file = file(kind, key);
+        try {
+            Files.createDirectories(file.getParent());
+            // Ghi file tạm rồi rename để replay song song không đọc phải file ghi dở
+            Path temp = Files.createTempFile(file.getParent(), key, ".tmp");
+            objectMapper.writeValue(temp.toFile(), new Recording(latencyMs, objectMapper.valueToTree(response)));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Không làm hỏng call thật chỉ vì ghi âm lỗi
+            log.warn("Failed to record {} response to {}: {}", kind, file, e.getMessage());
+        }
+    }
+
+    private <T> T convert(AiCallKind kind, Recording recording, JavaType type) {
+        try {
+            return objectMapper.convertValue(recording.response(), type);
+        } catch (IllegalArgumentException e) {
+            throw new AIServiceException(kind.getServiceName(), "Recorded response does not match " + type + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void sleepRecordedLatency(AiCallKind kind, Recording recording) {
+        if (!simulateLatency || recording.latencyMs() <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(recording.latencyMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AIServiceException(kind.getServiceName(), "Interrupted", e);
+        }
+    }
+
+    private Path file(AiCallKind kind, String key) {
+        return Paths.get(recordDir, kind.getPropertyName(), key + ".json");
+    }
+
+    private static String key(Object... keyParts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : keyParts) {
+                digest.update(part instanceof byte[] bytes ? bytes
+                        : String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.hokori.web.service.provider;
+
+import com.google.cloud.language.v1.AnalyzeSentimentRequest;
+import com.google.cloud.language.v1.AnalyzeSentimentResponse;
+import com.google.cloud.language.v1.Document;
+import com.google.cloud.language.v1.LanguageServiceClient;
+import com.google.cloud.speech.v1.RecognitionAudio;
+import com.google.cloud.speech.v1.RecognizeRequest;
+import com.google.cloud.speech.v1.RecognizeResponse;
+import com.google.cloud.speech.v1.SpeechClient;
+import com.google.cloud.speech.v1.SpeechRecognitionAlternative;
+import com.google.cloud.texttospeech.v1.AudioConfig;
+import com.google.cloud.texttospeech.v1.AudioEncoding;
+import com.google.cloud.texttospeech.v1.SsmlVoiceGender;
+import com.google.cloud.texttospeech.v1.SynthesisInput;
+import com.google.cloud.texttospeech.v1.SynthesizeSpeechRequest;
+import com.google.cloud.texttospeech.v1.TextToSpeechClient;
+import com.google.cloud.texttospeech.v1.VoiceSelectionParams;
+import com.google.cloud.translate.Translate;
+import com.google.cloud.translate.Translation;
+import com.google.protobuf.ByteString;
+
+import java.util.List;
+
+/**
+ * Provider implementations backed by the Google Cloud clients from GoogleCloudConfig
+ */
+public final class GoogleAiProviders {
+
+    private GoogleAiProviders() {
+    }
+
+    public static TranslationProvider translation(Translate client) {
+        return (texts, sourceLanguage, targetLanguage) -> {
+            List<Translation> translations = sourceLanguage != null && !sourceLanguage.isEmpty()
+                    ? client.translate(texts,
+                    Translate.TranslateOption.sourceLanguage(sourceLanguage),
+                    Translate.TranslateOption.targetLanguage(targetLanguage))
+                    : client.translate(texts, Translate.TranslateOption.targetLanguage(targetLanguage));
+            return translations.stream()
+                    .map(translation -> new TranslationProvider.TranslationResult(
+                            translation.getTranslatedText(), translation.getSourceLanguage()))
+                    .toList();
+        };
+    }
+
+    public static SentimentProvider sentiment(LanguageServiceClient client) {
+        return text -> {
+            AnalyzeSentimentResponse response = client.analyzeSentiment(AnalyzeSentimentRequest.newBuilder()
+                    .setDocument(Document.newBuilder()
+                            .setContent(text)
+                            .setType(Document.Type.PLAIN_TEXT)
+                            .build())
+                    .build());
+            return new SentimentProvider.SentimentResult(
+                    response.getDocumentSentiment().getScore(),
+                    response.getDocumentSentiment().getMagnitude(),
+                    response.getSentencesList().stream()
+                            .map(sentence -> new SentimentProvider.SentenceSentiment(
+                                    sentence.getText().getContent(),
+                                    sentence.getSentiment().getScore(),
+                                    sentence.getSentiment().getMagnitude()))
+                            .toList());
+        };
+    }
+
+    public static SpeechToTextProvider speechToText(SpeechClient client) {
+        return (audio, config) -> {
+            RecognizeResponse response = client.recognize(RecognizeRequest.newBuilder()
+                    .setConfig(config)
+                    .setAudio(RecognitionAudio.newBuilder().setContent(ByteString.copyFrom(audio)).build())
+                    .build());
+            if (response.getResultsCount() == 0) {
+                return new SpeechToTextProvider.Transcript("", 0f, false);
+            }
+            if (response.getResults(0).getAlternativesCount() == 0) {
+                return new SpeechToTextProvider.Transcript(null, 0f, true);
+            }
+            SpeechRecognitionAlternative alternative = response.getResults(0).getAlternatives(0);
+            return new SpeechToTextProvider.Transcript(alternative.getTranscript(), alternative.getConfidence(), true);
+        };
+    }
+
+    public static TextToSpeechProvider textToSpeech(TextToSpeechClient client) {
+        return (text, languageCode, voiceName, speakingRate) -> client.synthesizeSpeech(
+                        SynthesizeSpeechRequest.newBuilder()
+                                .setInput(SynthesisInput.newBuilder().setText(text).build())
+                                .setVoice(VoiceSelectionParams.newBuilder()
+                                        .setLanguageCode(languageCode)
+                                        .setName(voiceName)
+                                        .setSsmlGender(SsmlVoiceGender.NEUTRAL)
+                                        .build())
+                                .setAudioConfig(AudioConfig.newBuilder()
+                                        .setAudioEncoding(AudioEncoding.MP3)
+                                        .setSpeakingRate(speakingRate)
+                                        .build())
+                                .build())
+                .getAudioContent().toByteArray();
+    }
+}
@@ -0,0 +1,23 @@
+package com.hokori.web.service.provider;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * LLM backend used by GeminiService when it is not calling Gemini over HTTP itself
+ * (ai.provider.mode = local / replay, see AiProviderConfig).
+ *
+ * GeminiService still builds the request, queues on GeminiRateGovernor and parses the reply,
+ * so everything except the network call is measured the same way as in production.
+ */
+@FunctionalInterface
+public interface LlmProvider {
+
+    /**
+     * @param operation   generateContent / generateConversation / streamConversation
+     * @param requestJson Gemini generateContent request body (contents, systemInstruction, generationConfig)
+     * @param onText      text deltas for streaming calls, null otherwise
+     * @return future completed with the reply text (null when there is no candidate)
+     */
+    CompletableFuture<String> generate(String operation, byte[] requestJson, Consumer<String> onText);
+}
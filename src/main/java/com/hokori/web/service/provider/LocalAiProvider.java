@@ -0,0 +1,410 @@
+package com.hokori.web.service.provider;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.speech.v1.RecognitionConfig;
+import com.hokori.web.Enum.AiCallKind;
+import com.hokori.web.exception.AIServiceException;
+import com.hokori.web.exception.GeminiApiException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stand-in cho toàn bộ AI backend khi ai.provider.mode=local: không gọi mạng, không cần credentials.
+ * Dùng để đo pipeline conversation / moderation offline (load test, benchmark trên CI).
+ *
+ * - Kết quả xác định theo input: cùng text luôn ra cùng bản dịch / điểm sentiment / câu trả lời
+ * - Latency: phân phối log-normal theo median và p99 cấu hình cho từng loại call
+ *   (ai.provider.local.<kind>.latency-median-ms / latency-p99-ms)
+ * - Lỗi: tỉ lệ ai.provider.local.<kind>.error-rate; LLM lỗi bằng HTTP 503 nên đi qua retry của GeminiService
+ *
+ * Mỗi lần rút latency / lỗi dùng random seed từ (seed, loại call, hash input, lần gọi thứ n với input đó),
+ * nên cùng seed + cùng chuỗi request cho ra cùng kết quả kể cả khi các call chạy song song.
+ *
+ * Không phải bean: AiProviderConfig chỉ tạo khi mode = LOCAL (1 instance dùng cho cả 5 provider).
+ */
+@Slf4j
+public class LocalAiProvider implements LlmProvider, TranslationProvider, SentimentProvider,
+        SpeechToTextProvider, TextToSpeechProvider {
+
+    // z của percentile 99 trong phân phối chuẩn
+    private static final double Z_P99 = 2.326;
+    // Tránh map đếm lần gọi phình vô hạn khi chạy lâu; reset thì chỉ mất tính lặp lại giữa 2 lần chạy
+    private static final int MAX_TRACKED_INPUTS = 100_000;
+    // 1 frame MP3 MPEG-1 Layer III 128 kbps 44.1 kHz toàn số 0 (im lặng), ~26 ms
+    private static final int MP3_FRAME_BYTES = 417;
+    private static final double MP3_FRAME_SECONDS = 1152.0 / 44100;
+    private static final int LLM_STREAM_CHUNK_CHARS = 24;
+
+    private final ObjectMapper objectMapper;
+    private final long seed;
+    private final String transcript;
+    private final Map<AiCallKind, Profile> profiles = new EnumMap<>(AiCallKind.class);
+    private final Map<Long, AtomicInteger> occurrences = new ConcurrentHashMap<>();
+
+    /**
+     * @param medianMs  latency trung vị
+     * @param p99Ms     latency p99 (≤ median thì latency cố định = median)
+     * @param errorRate 0..1
+     */
+    record Profile(long medianMs, long p99Ms, double errorRate) {
+
+        long drawLatencyMs(SplittableRandom random) {
+            if (medianMs <= 0) {
+                return 0;
+            }
+            if (p99Ms <= medianMs) {
+                return medianMs;
+            }
+            double sigma = Math.log((double) p99Ms / medianMs) / Z_P99;
+            return Math.round(medianMs * Math.exp(sigma * random.nextGaussian()));
+        }
+    }
+
+    public LocalAiProvider(ObjectMapper objectMapper, Environment environment) {
+        this.objectMapper = objectMapper;
+        this.seed = environment.getProperty("ai.provider.local.seed", Long.class, 42L);
+        this.transcript = environment.getProperty("ai.provider.local.speech-to-text.transcript", "こんにちは");
+        for (AiCallKind kind : AiCallKind.values()) {
+            String prefix = "ai.provider.local." + kind.getPropertyName() + ".";
+            profiles.put(kind, new Profile(
+                    environment.getProperty(prefix + "latency-median-ms", Long.class, 0L),
+                    environment.getProperty(prefix + "latency-p99-ms", Long.class, 0L),
+                    environment.getProperty(prefix + "error-rate", Double.class, 0.0)));
+        }
+        log.debug("Local AI provider profiles: seed={}, {}", seed, profiles);
+    }
+
+    @Override
+    public CompletableFuture<String> generate(String operation, byte[] requestJson, Consumer<String> onText) {
+        long inputHash = hash(requestJson);
+        SplittableRandom random = nextRandom(AiCallKind.LLM, inputHash);
+        Profile profile = profiles.get(AiCallKind.LLM);
+        long latencyMs = profile.drawLatencyMs(random);
+        boolean fail = random.nextDouble() < profile.errorRate();
+        // Không chặn thread của caller / governor: trả lời sau latencyMs trên delayed executor
+        return CompletableFuture.supplyAsync(() -> {
+            if (fail) {
+                throw new GeminiApiException("Simulated Gemini failure (" + operation + ")", 503, null);
+            }
+            String reply = llmReply(requestJson, inputHash);
+            if (onText != null) {
+                for (int start = 0; start < reply.length(); start += LLM_STREAM_CHUNK_CHARS) {
+                    onText.accept(reply.substring(start, Math.min(reply.length(), start + LLM_STREAM_CHUNK_CHARS)));
+                }
+            }
+            return reply;
+        }, CompletableFuture.delayedExecutor(latencyMs, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public List<TranslationResult> translate(List<String> texts, String sourceLanguage, String targetLanguage) {
+        simulate(AiCallKind.TRANSLATION, hash(String.join("\u0000", texts) + "\u0000" + targetLanguage));
+        String detected = sourceLanguage != null && !sourceLanguage.isEmpty() ? sourceLanguage : "ja";
+        return texts.stream()
+                .map(text -> new TranslationResult("[" + targetLanguage + "] " + text, detected))
+                .toList();
+    }
+
+    @Override
+    public SentimentResult analyzeSentiment(String text) {
+        simulate(AiCallKind.SENTIMENT, hash(text));
+        List<SentenceSentiment> sentences = new ArrayList<>();
+        float scoreSum = 0;
+        float magnitude = 0;
+        for (String sentence : text.split("(?<=[。．.!?！？])")) {
+            if (sentence.isBlank()) {
+                continue;
+            }
+            // Điểm lệch nhẹ về phía tích cực như text học tập thực tế; magnitude tăng theo độ dài câu
+            SplittableRandom random = new SplittableRandom(seed ^ hash(sentence));
+            float score = (float) Math.round((random.nextDouble() * 1.4 - 0.5) * 10) / 10;
+            float sentenceMagnitude = Math.abs(score) + (float) Math.round(random.nextDouble() * 5) / 10;
+            sentences.add(new SentenceSentiment(sentence.strip(), score, sentenceMagnitude));
+            scoreSum += score;
+            magnitude += sentenceMagnitude;
+        }
+        float score = sentences.isEmpty() ? 0f : (float) Math.round(scoreSum / sentences.size() * 10) / 10;
+        return new SentimentResult(score, magnitude, sentences);
+    }
+
+    @Override
+    public Transcript recognize(byte[] audio, RecognitionConfig config) {
+        simulate(AiCallKind.SPEECH_TO_TEXT, hash(audio));
+        float confidence = 0.8f + (float) new SplittableRandom(seed ^ hash(audio)).nextDouble() * 0.2f;
+        return new Transcript(transcript, confidence, true);
+    }
+
+    @Override
+    public byte[] synthesizeMp3(String text, String languageCode, String voiceName, double speakingRate) {
+        simulate(AiCallKind.TEXT_TO_SPEECH, hash(text + "\u0000" + voiceName + "\u0000" + speakingRate));
+        // Độ dài audio ~ 0.15s / ký tự ở tốc độ 1.0 để kích thước file giống thật
+        double seconds = Math.max(0.5, text.length() * 0.15 / Math.max(0.25, speakingRate));
+        int frames = (int) Math.ceil(seconds / MP3_FRAME_SECONDS);
+        byte[] audio = new byte[frames * MP3_FRAME_BYTES];
+        for (int frame = 0; frame < frames; frame++) {
+            int offset = frame * MP3_FRAME_BYTES;
+            audio[offset] = (byte) 0xFF;
+            audio[offset + 1] = (byte) 0xFB;
+            audio[offset + 2] = (byte) 0x90;
+            audio[offset + 3] = (byte) 0x00;
+        }
+        return audio;
+    }
+
+    /**
+     * Latency + lỗi của call đồng bộ: ngủ trên thread của caller như client Google thật
+     */
+    private void simulate(AiCallKind kind, long inputHash) {
+        SplittableRandom random = nextRandom(kind, inputHash);
+        Profile profile = profiles.get(kind);
+        long latencyMs = profile.drawLatencyMs(random);
+        boolean fail = random.nextDouble() < profile.errorRate();
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AIServiceException(kind.getServiceName(), "Interrupted", e);
+            }
+        }
+        if (fail) {
+            throw new AIServiceException(kind.getServiceName(),
+                    "Simulated " + kind.getServiceName() + " failure", "AI_PROVIDER_SIMULATED_ERROR");
+        }
+    }
+
+    private SplittableRandom nextRandom(AiCallKind kind, long inputHash) {
+        long key = inputHash * 31 + kind.ordinal();
+        if (occurrences.size() > MAX_TRACKED_INPUTS) {
+            occurrences.clear();
+        }
+        int occurrence = occurrences.computeIfAbsent(key, k -> new AtomicInteger()).getAndIncrement();
+        return new SplittableRandom(seed ^ (key * 0x9E3779B97F4A7C15L) ^ ((long) occurrence << 32));
+    }
+
+    /**
+     * Prompt yêu cầu JSON: trả JSON có cùng shape với câu trả lời thật của từng loại kiểm tra
+     * (moderation, đánh giá hội thoại) để parser và các bước sau chạy như production; prompt JSON khác
+     * trả "{}" (caller kiểm tra has(field) và dùng giá trị mặc định).
+     * Còn lại trả 1 câu tiếng Nhật chọn theo hash của request.
+     */
+    private String llmReply(byte[] requestJson, long inputHash) {
+        String prompt = lastUserText(requestJson);
+        if (prompt.toUpperCase(Locale.ROOT).contains("JSON")) {
+            Map<String, Object> reply = cannedJson(prompt, new SplittableRandom(seed ^ inputHash));
+            try {
+                return reply != null ? objectMapper.writeValueAsString(reply) : "{}";
+            } catch (Exception e) {
+                return "{}";
+            }
+        }
+        String[] replies = {
+                "そうですね。もう少し詳しく教えてください。",
+                "いいですね！それから、どうしましたか。",
+                "なるほど。日本語で言ってみましょう。",
+                "はい、わかりました。次の質問です。週末は何をしますか。"
+        };
+        return replies[(int) Math.floorMod(inputHash, (long) replies.length)];
+    }
+
+    /**
+     * Nhận loại prompt theo câu mở đầu (xem CourseModerationAIService / ConversationPracticeService),
+     * null nếu không nhận ra
+     */
+    private static Map<String, Object> cannedJson(String prompt, SplittableRandom random) {
+        if (prompt.startsWith("Bạn là chuyên gia kiểm tra độ chính xác ngôn ngữ")) {
+            return languageAccuracy(prompt, random);
+        }
+        if (prompt.startsWith("Bạn là chuyên gia đánh giá khóa học tiếng Nhật JLPT")) {
+            return levelMatch(prompt, random);
+        }
+        if (prompt.startsWith("Bạn là chuyên gia đánh giá chất lượng giáo dục")) {
+            return pedagogicalQuality(random);
+        }
+        if (prompt.startsWith("Bạn là chuyên gia đánh giá tiến trình học ngữ pháp")) {
+            return grammarProgression(random);
+        }
+        if (prompt.startsWith("Bạn là giáo viên tiếng Nhật chuyên nghiệp. Hãy đánh giá chi tiết cuộc trò chuyện")) {
+            return conversationEvaluation(random);
+        }
+        return null;
+    }
+
+    private static Map<String, Object> languageAccuracy(String prompt, SplittableRandom random) {
+        // location phải là tên mục có trong nội dung để gắn lỗi đúng chỗ
+        int contentStart = prompt.indexOf('\n', Math.max(0, prompt.indexOf("Nội dung")));
+        int contentEnd = prompt.indexOf("\n\nKiểm tra:", Math.max(0, contentStart));
+        Matcher section = Pattern.compile("\\[([^\\]\\n]{1,80})]").matcher(contentStart < 0 ? ""
+                : prompt.substring(contentStart, contentEnd > contentStart ? contentEnd : prompt.length()));
+        String location = section.find() ? section.group(1) : "Lesson 1";
+        String level = match(prompt, "level (N[1-5])", "N5");
+
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("score", score(random, 0.75, 0.98));
+        List<Map<String, Object>> japaneseErrors = new ArrayList<>();
+        if (random.nextDouble() < 0.3) {
+            japaneseErrors.add(orderedMap("text", "学校を行きます", "error", "Sai trợ từ: động từ 行く đi với に/へ",
+                    "suggestion", "学校に行きます", "location", location));
+        }
+        reply.put("japaneseErrors", japaneseErrors);
+        reply.put("vietnameseErrors", List.of());
+        List<Map<String, Object>> levelMismatches = new ArrayList<>();
+        if (random.nextDouble() < 0.2) {
+            levelMismatches.add(orderedMap("word", "把握", "declaredLevel", level, "actualLevel", "N2",
+                    "location", location, "severity", "MEDIUM"));
+        }
+        reply.put("levelMismatches", levelMismatches);
+        reply.put("summary", japaneseErrors.isEmpty() && levelMismatches.isEmpty()
+                ? "Nội dung chính xác, phù hợp level " + level
+                : "Có một số lỗi nhỏ cần sửa trong mục " + location);
+        return reply;
+    }
+
+    private static Map<String, Object> levelMatch(String prompt, SplittableRandom random) {
+        String declared = match(prompt, "Level khai báo: (N[1-5])", "N5");
+        boolean matches = random.nextDouble() < 0.85;
+        String detected = declared;
+        if (!matches) {
+            // Lệch 1 bậc (N5 chỉ có thể khó hơn, N1 chỉ có thể dễ hơn)
+            int n = declared.charAt(1) - '0';
+            detected = "N" + (n == 5 ? 4 : n == 1 ? 2 : n + (random.nextBoolean() ? 1 : -1));
+        }
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("detectedLevel", detected);
+        reply.put("match", matches);
+        reply.put("confidence", score(random, 0.7, 0.95));
+        reply.put("summary", matches
+                ? "Từ vựng và ngữ pháp phù hợp với level " + declared
+                : "Nội dung gần với level " + detected + " hơn level khai báo " + declared);
+        return reply;
+    }
+
+    private static Map<String, Object> pedagogicalQuality(SplittableRandom random) {
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("score", score(random, 0.65, 0.95));
+        reply.put("strengths", List.of("Giải thích ngữ pháp rõ ràng, có ví dụ", "Bài học được chia nhỏ, dễ theo dõi"));
+        reply.put("weaknesses", List.of("Còn ít bài tập thực hành sau mỗi điểm ngữ pháp"));
+        reply.put("summary", "Khóa học có giá trị học tập, cấu trúc hợp lý");
+        reply.put("recommendations", List.of("Bổ sung bài tập luyện nghe", "Thêm ví dụ hội thoại thực tế"));
+        return reply;
+    }
+
+    private static Map<String, Object> grammarProgression(SplittableRandom random) {
+        boolean logical = random.nextDouble() < 0.8;
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("isLogical", logical);
+        reply.put("score", logical ? score(random, 0.75, 0.95) : score(random, 0.5, 0.7));
+        List<Map<String, Object>> issues = new ArrayList<>();
+        if (!logical) {
+            Map<String, Object> issue = new LinkedHashMap<>();
+            issue.put("grammar", "〜たことがある");
+            issue.put("currentLocation", "Lesson 2");
+            issue.put("requiredPrerequisite", "Thể た (quá khứ thông thường)");
+            issue.put("prerequisiteLocation", "Lesson 5");
+            issue.put("severity", "MEDIUM");
+            issue.put("description", "Dùng thể た trước khi học cách chia thể た");
+            issue.put("potentialConfusion", "Học viên chưa biết chia động từ sang thể た");
+            issues.add(issue);
+        }
+        reply.put("issues", issues);
+        reply.put("summary", logical ? "Thứ tự ngữ pháp hợp lý" : "Có ngữ pháp được dạy trước kiến thức nền");
+        reply.put("recommendations", logical ? List.of() : List.of("Chuyển bài thể た lên trước Lesson 2"));
+        return reply;
+    }
+
+    private static Map<String, Object> conversationEvaluation(SplittableRandom random) {
+        long accuracy = Math.round(score(random, 0.6, 0.95) * 100);
+        long fluency = Math.round(score(random, 0.6, 0.95) * 100);
+        long grammar = Math.round(score(random, 0.6, 0.95) * 100);
+        long vocabulary = Math.round(score(random, 0.6, 0.95) * 100);
+        long overall = Math.round((accuracy + fluency + grammar + vocabulary) / 4.0);
+
+        Map<String, Object> turn = new LinkedHashMap<>();
+        turn.put("turn", 1);
+        turn.put("userResponse", "学校行きます");
+        turn.put("errors", List.of("Thiếu trợ từ に khi nói về nơi đến"));
+        turn.put("corrections", List.of("学校に行きます"));
+        turn.put("betterResponse", "毎日、学校に行きます。");
+
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("overallScore", overall);
+        reply.put("accuracyScore", accuracy);
+        reply.put("fluencyScore", fluency);
+        reply.put("grammarScore", grammar);
+        reply.put("vocabularyScore", vocabulary);
+        reply.put("summaryVi", "Bạn đã hoàn thành cuộc trò chuyện với điểm tổng thể " + overall + "/100.");
+        reply.put("overallFeedbackVi", "Bạn trả lời đúng chủ đề và giữ được mạch hội thoại. "
+                + "Cần chú ý hơn tới trợ từ và thể lịch sự.");
+        reply.put("strengthsVi", List.of("Trả lời đúng trọng tâm câu hỏi", "Dùng thể ます nhất quán"));
+        reply.put("improvementsVi", List.of("Thiếu trợ từ に khi nói về nơi đến: '学校行きます' nên là '学校に行きます'"));
+        reply.put("suggestionsVi", List.of("Luyện tập phân biệt trợ từ に và で", "Thử trả lời bằng câu dài hơn"));
+        reply.put("detailedAnalysisVi", List.of(turn));
+        return reply;
+    }
+
+    // Map.of không giữ thứ tự key giữa các lần chạy JVM → JSON phải lặp lại được theo seed
+    private static Map<String, Object> orderedMap(Object... keyValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            map.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+
+    private static double score(SplittableRandom random, double min, double max) {
+        return Math.round((min + random.nextDouble() * (max - min)) * 100) / 100.0;
+    }
+
+    private static String match(String text, String regex, String fallback) {
+        Matcher matcher = Pattern.compile(regex).matcher(text);
+        return matcher.find() ? matcher.group(1) : fallback;
+    }
+
+    private String lastUserText(byte[] requestJson) {
+        try {
+            JsonNode contents = objectMapper.readTree(requestJson).path("contents");
+            for (int i = contents.size() - 1; i >= 0; i--) {
+                JsonNode content = contents.get(i);
+                if (!"model".equals(content.path("role").asText())) {
+                    StringBuilder text = new StringBuilder();
+                    content.path("parts").forEach(part -> text.append(part.path("text").asText()));
+                    return text.toString();
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Local LLM could not read request: {}", e.getMessage());
+        }
+        return "";
+    }
+
+    private static long hash(String text) {
+        return hash(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // FNV-1a 64-bit
+    private static long hash(byte[] bytes) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,22 @@
+package com.hokori.web.service.provider;
+
+import java.util.List;
+
+/**
+ * Sentiment analysis backend (Cloud Natural Language API in production)
+ */
+@FunctionalInterface
+public interface SentimentProvider {
+
+    SentimentResult analyzeSentiment(String text);
+
+    /**
+     * @param score     -1 (negative) .. 1 (positive)
+     * @param magnitude strength of emotion, 0 .. +inf
+     */
+    record SentimentResult(float score, float magnitude, List<SentenceSentiment> sentences) {
+    }
+
+    record SentenceSentiment(String text, float score, float magnitude) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.hokori.web.service.provider;
+
+import com.google.cloud.speech.v1.RecognitionConfig;
+
+/**
+ * Synchronous speech recognition backend (Cloud Speech-to-Text recognize, audio ≤ 60 s).
+ * Streaming recognition (SpeechStreamingService) talks to SpeechClient directly.
+ */
+@FunctionalInterface
+public interface SpeechToTextProvider {
+
+    /**
+     * @param audio  audio bytes in the encoding described by config
+     * @param config encoding, sample rate and language built by AIService
+     */
+    Transcript recognize(byte[] audio, RecognitionConfig config);
+
+    /**
+     * @param speechDetected false when the recognizer returned no result at all
+     */
+    record Transcript(String transcript, float confidence, boolean speechDetected) {
+    }
+}
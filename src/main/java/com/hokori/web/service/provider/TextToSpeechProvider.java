@@ -0,0 +1,13 @@
+package com.hokori.web.service.provider;
+
+/**
+ * Speech synthesis backend (Cloud Text-to-Speech in production)
+ */
+@FunctionalInterface
+public interface TextToSpeechProvider {
+
+    /**
+     * @return MP3 audio
+     */
+    byte[] synthesizeMp3(String text, String languageCode, String voiceName, double speakingRate);
+}
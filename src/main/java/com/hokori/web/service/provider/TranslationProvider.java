@@ -0,0 +1,20 @@
+package com.hokori.web.service.provider;
+
+import java.util.List;
+
+/**
+ * Text translation backend (Cloud Translation API in production)
+ */
+@FunctionalInterface
+public interface TranslationProvider {
+
+    /**
+     * Translate texts with one language pair; results are in input order
+     *
+     * @param sourceLanguage null or empty to auto-detect
+     */
+    List<TranslationResult> translate(List<String> texts, String sourceLanguage, String targetLanguage);
+
+    record TranslationResult(String translatedText, String detectedSourceLanguage) {
+    }
+}
@@ -0,0 +1,168 @@
+package com.hokori.web.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Automaton Aho–Corasick: tìm mọi mẫu trong 1 lượt duyệt text, O(độ dài text + số kết quả)
+ * bất kể danh sách mẫu dài bao nhiêu. Dùng cho lọc từ cấm trước khi gửi nội dung cho AI (ContentPreScreenService).
+ *
+ * - Dựng 1 lần, sau đó chỉ đọc: dùng chung giữa các thread không cần khoá
+ * - Cạnh con của mỗi node lưu thành mảng ký tự đã sắp xếp (tìm nhị phân), không cấp phát khi tìm
+ * - outputLink: node kết thúc mẫu gần nhất theo chuỗi failure link, để báo cả các mẫu là hậu tố của nhau
+ *   ("ばか" trong "おおばか") mà không phải duyệt hết chuỗi failure
+ * - Mẫu trùng nhau chỉ giữ chỉ số xuất hiện đầu tiên; mẫu rỗng bị bỏ qua
+ */
+public final class AhoCorasick {
+
+    /**
+     * 1 lần khớp: mẫu thứ patternIndex nằm ở [start, end) của text
+     */
+    public record Match(int patternIndex, int start, int end) {
+    }
+
+    private static final int ROOT = 0;
+    private static final char[] NO_CHARS = new char[0];
+    private static final int[] NO_TARGETS = new int[0];
+
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failLink;
+    private final int[] outputLink;
+    /** Chỉ số mẫu kết thúc tại node, -1 nếu không có */
+    private final int[] patternAt;
+    private final int[] patternLength;
+
+    private AhoCorasick(char[][] edgeChars, int[][] edgeTargets, int[] failLink, int[] outputLink,
+                        int[] patternAt, int[] patternLength) {
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.failLink = failLink;
+        this.outputLink = outputLink;
+        this.patternAt = patternAt;
+        this.patternLength = patternLength;
+    }
+
+    public static AhoCorasick build(List<String> patterns) {
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        children.add(new TreeMap<>());
+        terminal.add(-1);
+
+        int[] patternLength = new int[patterns.size()];
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p);
+            if (pattern == null || pattern.isEmpty()) {
+                continue;
+            }
+            patternLength[p] = pattern.length();
+            int node = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                Integer next = children.get(node).get(pattern.charAt(i));
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    terminal.add(-1);
+                    children.get(node).put(pattern.charAt(i), next);
+                }
+                node = next;
+            }
+            if (terminal.get(node) < 0) {
+                terminal.set(node, p);
+            }
+        }
+
+        int size = children.size();
+        char[][] edgeChars = new char[size][];
+        int[][] edgeTargets = new int[size][];
+        int[] patternAt = new int[size];
+        for (int node = 0; node < size; node++) {
+            TreeMap<Character, Integer> edges = children.get(node);
+            edgeChars[node] = edges.isEmpty() ? NO_CHARS : new char[edges.size()];
+            edgeTargets[node] = edges.isEmpty() ? NO_TARGETS : new int[edges.size()];
+            int e = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[node][e] = edge.getKey();
+                edgeTargets[node][e] = edge.getValue();
+                e++;
+            }
+            patternAt[node] = terminal.get(node);
+        }
+
+        // BFS: failure link của node = node dài nhất là hậu tố thực sự của nó
+        int[] failLink = new int[size];
+        int[] outputLink = new int[size];
+        outputLink[ROOT] = -1;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[ROOT]) {
+            failLink[target] = ROOT;
+            outputLink[target] = -1;
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int e = 0; e < edgeChars[node].length; e++) {
+                char c = edgeChars[node][e];
+                int child = edgeTargets[node][e];
+                int fallback = failLink[node];
+                int next = step(edgeChars, edgeTargets, fallback, c);
+                while (next < 0 && fallback != ROOT) {
+                    fallback = failLink[fallback];
+                    next = step(edgeChars, edgeTargets, fallback, c);
+                }
+                failLink[child] = next < 0 ? ROOT : next;
+                int fail = failLink[child];
+                outputLink[child] = patternAt[fail] >= 0 ? fail : outputLink[fail];
+                queue.add(child);
+            }
+        }
+        return new AhoCorasick(edgeChars, edgeTargets, failLink, outputLink, patternAt, patternLength);
+    }
+
+    /**
+     * Mọi lần khớp theo thứ tự vị trí kết thúc (các mẫu chồng lên nhau đều được báo)
+     */
+    public List<Match> findAll(CharSequence text) {
+        if (text == null || text.length() == 0 || edgeChars[ROOT].length == 0) {
+            return Collections.emptyList();
+        }
+        List<Match> matches = new ArrayList<>();
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next = step(edgeChars, edgeTargets, state, c);
+            while (next < 0 && state != ROOT) {
+                state = failLink[state];
+                next = step(edgeChars, edgeTargets, state, c);
+            }
+            state = next < 0 ? ROOT : next;
+
+            for (int node = patternAt[state] >= 0 ? state : outputLink[state]; node > 0; node = outputLink[node]) {
+                int pattern = patternAt[node];
+                matches.add(new Match(pattern, i + 1 - patternLength[pattern], i + 1));
+            }
+        }
+        return matches;
+    }
+
+    private static int step(char[][] edgeChars, int[][] edgeTargets, int node, char c) {
+        char[] chars = edgeChars[node];
+        int low = 0;
+        int high = chars.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (chars[mid] < c) {
+                low = mid + 1;
+            } else if (chars[mid] > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[node][mid];
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,462 @@
+package com.hokori.web.util;
+
+/**
+ * Đọc header container audio và xử lý audio tại chỗ trước khi gửi Speech-to-Text (AIService).
+ *
+ * - probe: thời lượng thật lấy từ header thay vì ước lượng theo dung lượng file.
+ *   WAV: chunk fmt/data. WebM/Matroska: Info.Duration, hoặc timecode của block cuối (MediaRecorder của Chrome
+ *   không ghi Duration). Ogg Opus: granule position của trang cuối. FLAC: STREAMINFO. MP3 và định dạng khác: không biết (NaN).
+ * - prepare: chỉ với WAV PCM 16-bit (định dạng giải mã được mà không cần thư viện): trộn về mono, hạ tần số lấy mẫu
+ *   khi tần số gốc là bội số nguyên của tần số đích (lấy trung bình từng nhóm mẫu), cắt khoảng lặng đầu/cuối bằng
+ *   VAD năng lượng (khung 20ms). Opus/MP3/FLAC được giữ nguyên.
+ */
+public final class AudioPreprocessor {
+
+    private static final int FRAME_MS = 20;
+    /** Giữ lại thêm trước khung có tiếng đầu tiên / sau khung có tiếng cuối cùng để không cắt mất phụ âm đầu/cuối */
+    private static final int PADDING_MS = 250;
+    /** RMS tối thiểu (PCM 16-bit) để 1 khung được coi là có tiếng nói */
+    private static final double MIN_SPEECH_RMS = 300.0;
+    /** Ngưỡng tương đối so với khung to nhất (≈ -26 dB) */
+    private static final double PEAK_RATIO = 0.05;
+    /** Cắt được ít hơn mức này thì không đáng dựng lại file */
+    private static final int MIN_TRIM_MS = 100;
+    private static final int WAV_HEADER_BYTES = 44;
+
+    private static final int EBML_SEGMENT = 0x18538067;
+    private static final int EBML_INFO = 0x1549A966;
+    private static final int EBML_CLUSTER = 0x1F43B675;
+    private static final int EBML_BLOCK_GROUP = 0xA0;
+    private static final int EBML_TIMECODE_SCALE = 0x2AD7B1;
+    private static final int EBML_DURATION = 0x4489;
+    private static final int EBML_CLUSTER_TIMECODE = 0xE7;
+    private static final int EBML_SIMPLE_BLOCK = 0xA3;
+    private static final int EBML_BLOCK = 0xA1;
+
+    private AudioPreprocessor() {
+    }
+
+    /**
+     * Thông tin đọc từ header
+     *
+     * @param format          wav | webm | ogg | flac | mp3 | unknown (cùng tên với AIService.detectAudioFormat)
+     * @param durationSeconds thời lượng; NaN nếu header không cho biết
+     * @param sampleRate      0 nếu không biết
+     */
+    public record Probe(String format, double durationSeconds, int sampleRate, int channels, int bitsPerSample) {
+
+        public boolean hasDuration() {
+            return !Double.isNaN(durationSeconds);
+        }
+    }
+
+    /**
+     * Kết quả prepare
+     *
+     * @param audio          audio gửi đi (chính mảng đầu vào nếu không có gì thay đổi)
+     * @param probe          thông tin của audio gửi đi
+     * @param trimmedSeconds thời lượng khoảng lặng đã cắt
+     */
+    public record Prepared(byte[] audio, Probe probe, double trimmedSeconds) {
+    }
+
+    private record WavLayout(int formatCode, int channels, int sampleRate, int blockAlign, int bitsPerSample,
+                             int dataOffset, int dataLength) {
+
+        Probe probe() {
+            double duration = (double) (dataLength / blockAlign) / sampleRate;
+            return new Probe("wav", duration, sampleRate, channels, bitsPerSample);
+        }
+
+        boolean isPcm16() {
+            return formatCode == 1 && bitsPerSample == 16 && blockAlign == channels * 2;
+        }
+    }
+
+    public static Probe probe(byte[] audio) {
+        if (audio == null || audio.length < 4) {
+            return unknown("unknown");
+        }
+        if (startsWith(audio, 0, (byte) 0x1A, (byte) 0x45, (byte) 0xDF, (byte) 0xA3)) {
+            return new Probe("webm", webmDuration(audio), 0, 0, 0);
+        }
+        if (startsWith(audio, 0, "OggS")) {
+            return probeOgg(audio);
+        }
+        if (startsWith(audio, 0, "fLaC")) {
+            return probeFlac(audio);
+        }
+        if (startsWith(audio, 0, "ID3")
+                || (audio[0] == (byte) 0xFF && (audio[1] == (byte) 0xFB || audio[1] == (byte) 0xF3))) {
+            return unknown("mp3");
+        }
+        if (isWav(audio)) {
+            WavLayout wav = parseWav(audio);
+            return wav != null ? wav.probe() : unknown("wav");
+        }
+        return unknown("unknown");
+    }
+
+    /**
+     * Trộn mono / hạ tần số lấy mẫu về targetSampleRate / cắt khoảng lặng (chỉ WAV PCM 16-bit)
+     *
+     * @param targetSampleRate tần số đích (0 = giữ nguyên); không bao giờ tăng tần số
+     */
+    public static Prepared prepare(byte[] audio, int targetSampleRate) {
+        Probe probe = probe(audio);
+        if (!"wav".equals(probe.format())) {
+            return new Prepared(audio, probe, 0);
+        }
+        WavLayout wav = parseWav(audio);
+        if (wav == null || !wav.isPcm16()) {
+            return new Prepared(audio, probe, 0);
+        }
+
+        int factor = targetSampleRate > 0 && wav.sampleRate() > targetSampleRate
+                && wav.sampleRate() % targetSampleRate == 0 ? wav.sampleRate() / targetSampleRate : 1;
+        int outRate = wav.sampleRate() / factor;
+        short[] mono = downmix(audio, wav, factor);
+
+        int[] range = speechRange(mono, outRate);
+        boolean trim = (long) (mono.length - (range[1] - range[0])) * 1000 >= (long) MIN_TRIM_MS * outRate;
+        if (!trim) {
+            if (factor == 1 && wav.channels() == 1) {
+                return new Prepared(audio, probe, 0);
+            }
+            range = new int[]{0, mono.length};
+        }
+
+        Probe outProbe = new Probe("wav", (double) (range[1] - range[0]) / outRate, outRate, 1, 16);
+        return new Prepared(toWav(mono, range[0], range[1], outRate), outProbe,
+                Math.max(0, probe.durationSeconds() - outProbe.durationSeconds()));
+    }
+
+    // ---------------------------------------------------------------- WAV
+
+    private static boolean isWav(byte[] audio) {
+        return audio.length >= 12 && startsWith(audio, 0, "RIFF") && startsWith(audio, 8, "WAVE");
+    }
+
+    private static WavLayout parseWav(byte[] audio) {
+        int formatCode = -1;
+        int channels = 0;
+        int sampleRate = 0;
+        int blockAlign = 0;
+        int bitsPerSample = 0;
+        int pos = 12;
+        while (pos + 8 <= audio.length) {
+            long size = le32(audio, pos + 4) & 0xFFFFFFFFL;
+            int body = pos + 8;
+            long available = audio.length - body;
+            if (startsWith(audio, pos, "fmt ")) {
+                if (size < 16 || size > available) {
+                    return null;
+                }
+                formatCode = le16(audio, body);
+                channels = le16(audio, body + 2);
+                sampleRate = le32(audio, body + 4);
+                blockAlign = le16(audio, body + 12);
+                bitsPerSample = le16(audio, body + 14);
+                if (formatCode == 0xFFFE && size >= 26) {
+                    // WAVE_FORMAT_EXTENSIBLE: định dạng thật nằm ở 2 byte đầu của SubFormat GUID
+                    formatCode = le16(audio, body + 24);
+                }
+            } else if (startsWith(audio, pos, "data")) {
+                if (formatCode < 0 || channels <= 0 || sampleRate <= 0 || blockAlign <= 0) {
+                    return null;
+                }
+                // Trình ghi dạng stream để size = 0 hoặc 0xFFFFFFFF: lấy phần còn lại của file
+                long length = size == 0 || size > available ? available : size;
+                return new WavLayout(formatCode, channels, sampleRate, blockAlign, bitsPerSample, body, (int) length);
+            }
+            long next = body + size + (size & 1);
+            if (next > audio.length) {
+                break;
+            }
+            pos = (int) next;
+        }
+        return null;
+    }
+
+    /**
+     * PCM 16-bit nhiều kênh -> mono; factor > 1 thì lấy trung bình mỗi nhóm factor khung (lọc thông thấp thô + decimation)
+     */
+    private static short[] downmix(byte[] audio, WavLayout wav, int factor) {
+        int frames = wav.dataLength() / wav.blockAlign();
+        short[] out = new short[frames / factor];
+        int group = wav.channels() * factor;
+        int pos = wav.dataOffset();
+        for (int i = 0; i < out.length; i++) {
+            long sum = 0;
+            for (int k = 0; k < group; k++, pos += 2) {
+                sum += (short) ((audio[pos] & 0xFF) | (audio[pos + 1] << 8));
+            }
+            out[i] = (short) (sum / group);
+        }
+        return out;
+    }
+
+    /**
+     * [start, end) của phần có tiếng nói (kèm PADDING_MS hai đầu); không thấy khung nào có tiếng thì giữ nguyên cả đoạn
+     */
+    private static int[] speechRange(short[] samples, int sampleRate) {
+        int frameLength = Math.max(1, sampleRate * FRAME_MS / 1000);
+        int frames = samples.length / frameLength;
+        if (frames < 3) {
+            return new int[]{0, samples.length};
+        }
+
+        double[] rms = new double[frames];
+        double peak = 0;
+        for (int f = 0, pos = 0; f < frames; f++) {
+            double sumSquares = 0;
+            for (int end = pos + frameLength; pos < end; pos++) {
+                sumSquares += (double) samples[pos] * samples[pos];
+            }
+            rms[f] = Math.sqrt(sumSquares / frameLength);
+            peak = Math.max(peak, rms[f]);
+        }
+
+        double threshold = Math.max(MIN_SPEECH_RMS, peak * PEAK_RATIO);
+        int first = -1;
+        int last = -1;
+        for (int f = 0; f < frames; f++) {
+            if (rms[f] >= threshold) {
+                if (first < 0) {
+                    first = f;
+                }
+                last = f;
+            }
+        }
+        if (first < 0) {
+            // Không thấy tiếng nói: gửi nguyên vẹn, để Speech-to-Text trả "No speech detected"
+            return new int[]{0, samples.length};
+        }
+
+        int padding = sampleRate * PADDING_MS / 1000;
+        int start = Math.max(0, first * frameLength - padding);
+        int end = (int) Math.min(samples.length, (long) (last + 1) * frameLength + padding);
+        return new int[]{start, end};
+    }
+
+    private static byte[] toWav(short[] samples, int from, int to, int sampleRate) {
+        int dataLength = (to - from) * 2;
+        byte[] out = new byte[WAV_HEADER_BYTES + dataLength];
+        putAscii(out, 0, "RIFF");
+        putLe32(out, 4, 36 + dataLength);
+        putAscii(out, 8, "WAVE");
+        putAscii(out, 12, "fmt ");
+        putLe32(out, 16, 16);
+        putLe16(out, 20, 1);              // PCM
+        putLe16(out, 22, 1);              // mono
+        putLe32(out, 24, sampleRate);
+        putLe32(out, 28, sampleRate * 2); // byte rate
+        putLe16(out, 32, 2);              // block align
+        putLe16(out, 34, 16);             // bits per sample
+        putAscii(out, 36, "data");
+        putLe32(out, 40, dataLength);
+        for (int i = from, pos = WAV_HEADER_BYTES; i < to; i++, pos += 2) {
+            out[pos] = (byte) samples[i];
+            out[pos + 1] = (byte) (samples[i] >> 8);
+        }
+        return out;
+    }
+
+    // ---------------------------------------------------------------- WebM / Matroska
+
+    /**
+     * Duyệt tuần tự các phần tử EBML: Segment/Info/Cluster/BlockGroup được "mở" (đọc tiếp phần tử con, nên kích thước
+     * unknown của stream MediaRecorder không ảnh hưởng), các phần tử khác được bỏ qua theo kích thước.
+     */
+    private static double webmDuration(byte[] audio) {
+        long timecodeScale = 1_000_000L;
+        double infoDuration = Double.NaN;
+        long clusterTimecode = 0;
+        long lastBlockTimecode = -1;
+
+        int pos = 0;
+        while (pos < audio.length) {
+            int idLength = vintLength(audio[pos]);
+            if (idLength == 0 || idLength > 4 || pos + idLength > audio.length) {
+                break;
+            }
+            int id = 0;
+            for (int i = 0; i < idLength; i++) {
+                id = (id << 8) | (audio[pos + i] & 0xFF);
+            }
+            pos += idLength;
+            if (pos >= audio.length) {
+                break;
+            }
+            int sizeLength = vintLength(audio[pos]);
+            if (sizeLength == 0 || pos + sizeLength > audio.length) {
+                break;
+            }
+            long size = audio[pos] & (0xFF >> sizeLength);
+            for (int i = 1; i < sizeLength; i++) {
+                size = (size << 8) | (audio[pos + i] & 0xFF);
+            }
+            boolean unknownSize = size == (1L << (7 * sizeLength)) - 1;
+            pos += sizeLength;
+
+            if (id == EBML_SEGMENT || id == EBML_INFO || id == EBML_CLUSTER || id == EBML_BLOCK_GROUP) {
+                continue;
+            }
+            if (unknownSize || size > audio.length - pos) {
+                // File bị cắt cụt: dùng những gì đã đọc được
+                break;
+            }
+            int body = pos;
+            int length = (int) size;
+            switch (id) {
+                case EBML_TIMECODE_SCALE -> {
+                    long scale = readUnsigned(audio, body, length);
+                    if (scale > 0) {
+                        timecodeScale = scale;
+                    }
+                }
+                case EBML_DURATION -> {
+                    if (length == 4) {
+                        infoDuration = Float.intBitsToFloat((int) readUnsigned(audio, body, 4));
+                    } else if (length == 8) {
+                        infoDuration = Double.longBitsToDouble(readUnsigned(audio, body, 8));
+                    }
+                }
+                case EBML_CLUSTER_TIMECODE -> clusterTimecode = readUnsigned(audio, body, length);
+                case EBML_SIMPLE_BLOCK, EBML_BLOCK -> {
+                    // Block: track number (vint) + timecode tương đối int16 big-endian
+                    int trackLength = length > 0 ? vintLength(audio[body]) : 0;
+                    if (trackLength > 0 && trackLength + 2 <= length) {
+                        short relative = (short) (((audio[body + trackLength] & 0xFF) << 8)
+                                | (audio[body + trackLength + 1] & 0xFF));
+                        lastBlockTimecode = Math.max(lastBlockTimecode, clusterTimecode + relative);
+                    }
+                }
+                default -> {
+                }
+            }
+            pos = body + length;
+        }
+
+        if (infoDuration > 0) {
+            return infoDuration * timecodeScale / 1e9;
+        }
+        return lastBlockTimecode >= 0 ? lastBlockTimecode * (double) timecodeScale / 1e9 : Double.NaN;
+    }
+
+    /**
+     * Độ dài (byte) của số vint EBML theo số bit 0 đứng đầu; 0 nếu byte không hợp lệ
+     */
+    private static int vintLength(byte first) {
+        int value = first & 0xFF;
+        return value == 0 ? 0 : Integer.numberOfLeadingZeros(value) - 23;
+    }
+
+    private static long readUnsigned(byte[] audio, int offset, int length) {
+        long value = 0;
+        for (int i = 0; i < Math.min(length, 8); i++) {
+            value = (value << 8) | (audio[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    // ---------------------------------------------------------------- Ogg Opus / FLAC
+
+    /**
+     * Ogg Opus: granule position của trang cuối (đơn vị 48 kHz) trừ pre-skip trong OpusHead; Vorbis: không biết
+     */
+    private static Probe probeOgg(byte[] audio) {
+        if (audio.length < 27) {
+            return unknown("ogg");
+        }
+        int head = 27 + (audio[26] & 0xFF);
+        if (head + 19 > audio.length || !startsWith(audio, head, "OpusHead")) {
+            return unknown("ogg");
+        }
+        int channels = audio[head + 9] & 0xFF;
+        int preSkip = le16(audio, head + 10);
+        int inputSampleRate = le32(audio, head + 12);
+
+        double duration = Double.NaN;
+        for (int pos = audio.length - 27; pos > 0; pos--) {
+            if (startsWith(audio, pos, "OggS")) {
+                long granule = le32(audio, pos + 6) & 0xFFFFFFFFL | ((long) le32(audio, pos + 10) << 32);
+                if (granule > preSkip) {
+                    duration = (granule - preSkip) / 48000.0;
+                    break;
+                }
+            }
+        }
+        return new Probe("ogg", duration, inputSampleRate, channels, 0);
+    }
+
+    /**
+     * FLAC STREAMINFO (luôn là metadata block đầu tiên): 20 bit sample rate, 3 bit channels-1, 5 bit bps-1, 36 bit tổng số mẫu
+     */
+    private static Probe probeFlac(byte[] audio) {
+        if (audio.length < 26 || (audio[4] & 0x7F) != 0) {
+            return unknown("flac");
+        }
+        long packed = readUnsigned(audio, 18, 8);
+        int sampleRate = (int) (packed >>> 44);
+        int channels = (int) ((packed >>> 41) & 0x7) + 1;
+        int bitsPerSample = (int) ((packed >>> 36) & 0x1F) + 1;
+        long totalSamples = packed & 0xFFFFFFFFFL;
+        double duration = totalSamples > 0 && sampleRate > 0 ? (double) totalSamples / sampleRate : Double.NaN;
+        return new Probe("flac", duration, sampleRate, channels, bitsPerSample);
+    }
+
+    // ---------------------------------------------------------------- bytes
+
+    private static Probe unknown(String format) {
+        return new Probe(format, Double.NaN, 0, 0, 0);
+    }
+
+    private static boolean startsWith(byte[] audio, int offset, String ascii) {
+        if (offset < 0 || offset + ascii.length() > audio.length) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            if (audio[offset + i] != (byte) ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] audio, int offset, byte... prefix) {
+        if (offset + prefix.length > audio.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (audio[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int le16(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int le32(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8 | (b[offset + 2] & 0xFF) << 16 | (b[offset + 3] & 0xFF) << 24;
+    }
+
+    private static void putLe16(byte[] b, int offset, int value) {
+        b[offset] = (byte) value;
+        b[offset + 1] = (byte) (value >> 8);
+    }
+
+    private static void putLe32(byte[] b, int offset, int value) {
+        putLe16(b, offset, value);
+        putLe16(b, offset + 2, value >> 16);
+    }
+
+    private static void putAscii(byte[] b, int offset, String ascii) {
+        for (int i = 0; i < ascii.length(); i++) {
+            b[offset + i] = (byte) ascii.charAt(i);
+        }
+    }
+}
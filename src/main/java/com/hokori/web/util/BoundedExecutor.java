@@ -0,0 +1,164 @@
+package com.hokori.web.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Pool có giới hạn dùng chung cho các service gọi Google / Gemini song song
+ * (conversation pipeline, kaiwa drill, moderation, duplicate index).
+ *
+ * - Số thread và chỗ chờ cố định; hết chỗ thì future lỗi {@link RejectedExecutionException} ngay,
+ *   không chạy trên thread của caller như CallerRunsPolicy - caller tự chọn fallback
+ * - Hết timeout thì future lỗi TimeoutException, việc đang chạy bị interrupt và việc còn trong hàng đợi bị bỏ;
+ *   cancel future cũng vậy. Không còn call nào chạy tiếp sau khi caller đã bỏ cuộc
+ * - Thread daemon tên "{name}-{n}", tự tắt khi rảnh
+ */
+public final class BoundedExecutor {
+
+    private final ThreadPoolExecutor pool;
+    // threads + queueCapacity chỗ; giữ từ lúc nộp đến khi việc chạy xong hoặc bị huỷ trước khi chạy
+    private final Semaphore slots;
+    private final UnaryOperator<Runnable> taskDecorator;
+
+    private BoundedExecutor(String name, int threads, int queueCapacity, UnaryOperator<Runnable> taskDecorator) {
+        if (threads < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("threads must be >= 1 and queueCapacity >= 0");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        // Semaphore giới hạn số việc; queue dư thêm threads chỗ cho lúc thread vừa trả chỗ nhưng chưa rảnh,
+        // nên AbortPolicy chỉ là lưới an toàn
+        this.pool = new ThreadPoolExecutor(
+                threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity + threads),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+        this.slots = new Semaphore(threads + queueCapacity);
+        this.taskDecorator = taskDecorator;
+    }
+
+    public static BoundedExecutor create(String name, int threads, int queueCapacity) {
+        return new BoundedExecutor(name, threads, queueCapacity, UnaryOperator.identity());
+    }
+
+    /**
+     * @param taskDecorator bọc từng việc trên thread của caller lúc nộp (vd. mang SecurityContext sang thread của pool)
+     */
+    public static BoundedExecutor create(String name, int threads, int queueCapacity,
+                                         UnaryOperator<Runnable> taskDecorator) {
+        return new BoundedExecutor(name, threads, queueCapacity, taskDecorator);
+    }
+
+    /**
+     * Nộp việc nếu còn chỗ, không thì trả future lỗi RejectedExecutionException ngay
+     *
+     * @param timeoutMs tính từ lúc nộp; ≤ 0 = không giới hạn
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> work, long timeoutMs) {
+        if (!slots.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Executor is saturated"));
+        }
+        return submit(work, timeoutMs);
+    }
+
+    /**
+     * Chờ tối đa waitMs cho tới khi có chỗ rồi mới nộp - dùng khi caller tự nộp nhiều việc
+     * và muốn giới hạn số việc đồng thời thay vì bị từ chối
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> work, long waitMs, long timeoutMs) {
+        try {
+            if (!slots.tryAcquire(waitMs, TimeUnit.MILLISECONDS)) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException(
+                        "Executor is saturated (waited " + waitMs + " ms)"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        return submit(work, timeoutMs);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work, long timeoutMs) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicBoolean started = new AtomicBoolean();
+        AtomicBoolean finished = new AtomicBoolean();
+        Runnable body = () -> {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                T value = work.get();
+                finished.set(true);
+                result.complete(value);
+            } catch (Throwable e) {
+                finished.set(true);
+                result.completeExceptionally(e);
+            } finally {
+                slots.release();
+            }
+        };
+        FutureTask<Void> task = new FutureTask<>(taskDecorator.apply(body), null) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    result.cancel(false);
+                    // Bị huỷ khi còn trong hàng đợi: body không bao giờ chạy nên trả chỗ ở đây
+                    if (started.compareAndSet(false, true)) {
+                        slots.release();
+                    }
+                }
+            }
+        };
+        // Timeout / caller cancel: interrupt việc đang chạy (gRPC / HTTP blocking call dừng theo interrupt)
+        result.whenComplete((value, error) -> {
+            if (!finished.get()) {
+                task.cancel(true);
+            }
+        });
+        try {
+            pool.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (started.compareAndSet(false, true)) {
+                slots.release();
+            }
+            result.completeExceptionally(e);
+            return result;
+        }
+        if (timeoutMs > 0) {
+            result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return pool.getQueue().size();
+    }
+
+    /**
+     * Dừng pool: việc đang chạy bị interrupt, việc còn chờ bị huỷ (future của chúng lỗi CancellationException)
+     */
+    public void shutdownNow() {
+        for (Runnable pending : pool.shutdownNow()) {
+            if (pending instanceof FutureTask<?> task) {
+                task.cancel(false);
+            }
+        }
+    }
+}
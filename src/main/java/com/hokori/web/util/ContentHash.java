@@ -0,0 +1,48 @@
+package com.hokori.web.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Hash nội dung cho các cache content-addressed (response Gemini, translation memory, ...).
+ */
+public final class ContentHash {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private ContentHash() {
+    }
+
+    /**
+     * Chuẩn hoá text trước khi hash: Unicode NFC, bỏ khoảng trắng đầu/cuối, gộp khoảng trắng liên tiếp.
+     * Không đổi hoa/thường và dấu câu vì chúng có thể đổi nghĩa.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC).strip()).replaceAll(" ");
+    }
+
+    /**
+     * SHA-256 (hex, 64 ký tự) của các phần, ngăn cách bằng byte 0 để ("ab","c") khác ("a","bc")
+     */
+    public static String sha256Hex(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) {
+                    digest.update((byte) 0);
+                }
+                digest.update((parts[i] != null ? parts[i] : "").getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
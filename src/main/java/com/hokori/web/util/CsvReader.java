@@ -0,0 +1,103 @@
+package com.hokori.web.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV reader tối giản (RFC 4180): đọc từng dòng từ Reader, hỗ trợ field có dấu ngoặc kép,
+ * dấu phẩy / xuống dòng bên trong ngoặc kép và "" để escape. Bỏ BOM đầu file (CSV xuất từ Excel).
+ * Không load cả file vào bộ nhớ.
+ */
+public final class CsvReader {
+
+    private final Reader reader;
+    private int lineNumber = 0;
+    private boolean eof = false;
+    private boolean started = false;
+
+    public CsvReader(Reader reader) {
+        // Cần mark/reset để nhìn trước 1 ký tự khi gặp dấu ngoặc kép
+        this.reader = reader.markSupported() ? reader : new BufferedReader(reader);
+    }
+
+    /**
+     * Số dòng (1-based) của record vừa đọc.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Đọc record tiếp theo, trả về null khi hết file. Dòng trống bị bỏ qua.
+     */
+    public List<String> readRecord() throws IOException {
+        while (!eof) {
+            List<String> record = readRawRecord();
+            if (record != null && !(record.size() == 1 && record.get(0).isEmpty())) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    private List<String> readRawRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean any = false;
+        lineNumber++;
+
+        if (!started) {
+            started = true;
+            reader.mark(1);
+            if (reader.read() != '\uFEFF') {
+                reader.reset();
+            }
+        }
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            char ch = (char) c;
+            if (inQuotes) {
+                if (ch == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (ch == '\n') {
+                        lineNumber++;
+                    }
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                inQuotes = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (ch != '\r') {
+                field.append(ch);
+            }
+        }
+
+        eof = true;
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,131 @@
+package com.hokori.web.util;
+
+import java.nio.ByteBuffer;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash + LSH (banding) để tìm nội dung gần trùng mà không so từng cặp (CourseDuplicateDetectionService).
+ *
+ * - Shingle: chuỗi SHINGLE_CHARS ký tự liên tiếp sau khi chuẩn hoá (NFKC, chữ thường, chỉ giữ chữ và số).
+ *   Dùng ký tự thay vì từ vì tiếng Nhật không có khoảng trắng
+ * - Signature: NUM_HASHES giá trị min-hash; tỉ lệ vị trí trùng nhau ≈ độ tương đồng Jaccard của 2 tập shingle
+ * - LSH: chia signature thành BANDS band x ROWS hàng; 2 text cùng ít nhất 1 band key thì là ứng viên.
+ *   Xác suất thành ứng viên = 1 - (1 - s^ROWS)^BANDS: ~0.001 với s = 0.3, ~0.6 với s = 0.7, ~0.95 với s = 0.8
+ */
+public final class MinHash {
+
+    public static final int NUM_HASHES = 128;
+    public static final int BANDS = 16;
+    public static final int ROWS = NUM_HASHES / BANDS;
+    public static final int SHINGLE_CHARS = 5;
+
+    // Seed cố định: signature lưu trong DB phải so sánh được giữa các lần chạy / instance
+    private static final long[] SEEDS = new SplittableRandom(0x5EED_4B0E_1L).longs(NUM_HASHES).toArray();
+
+    private MinHash() {
+    }
+
+    /**
+     * Text chỉ còn chữ và số, chữ thường; dấu câu, khoảng trắng, HTML entity còn sót không ảnh hưởng shingle
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String nfkc = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder out = new StringBuilder(nfkc.length());
+        for (int i = 0; i < nfkc.length(); i++) {
+            char c = nfkc.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Số shingle khác nhau tối đa của text đã chuẩn hoá (0 nếu ngắn hơn 1 shingle)
+     */
+    public static int shingleCount(String normalized) {
+        return Math.max(0, normalized.length() - SHINGLE_CHARS + 1);
+    }
+
+    /**
+     * Signature của text đã chuẩn hoá; null nếu text ngắn hơn 1 shingle
+     */
+    public static int[] signature(String normalized) {
+        if (shingleCount(normalized) == 0) {
+            return null;
+        }
+        long[] min = new long[NUM_HASHES];
+        Arrays.fill(min, Long.MAX_VALUE);
+        for (int start = 0; start + SHINGLE_CHARS <= normalized.length(); start++) {
+            long shingle = 0;
+            for (int i = start; i < start + SHINGLE_CHARS; i++) {
+                shingle = shingle * 31 + normalized.charAt(i);
+            }
+            for (int h = 0; h < NUM_HASHES; h++) {
+                // So sánh không dấu để mọi giá trị 64-bit có cùng xác suất là min
+                long value = mix64(shingle ^ SEEDS[h]) ^ Long.MIN_VALUE;
+                if (value < min[h]) {
+                    min[h] = value;
+                }
+            }
+        }
+        int[] signature = new int[NUM_HASHES];
+        for (int h = 0; h < NUM_HASHES; h++) {
+            signature[h] = (int) (min[h] >>> 32);
+        }
+        return signature;
+    }
+
+    /**
+     * Độ tương đồng Jaccard ước lượng: tỉ lệ vị trí có min-hash trùng nhau
+     */
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int h = 0; h < NUM_HASHES; h++) {
+            if (a[h] == b[h]) {
+                equal++;
+            }
+        }
+        return (double) equal / NUM_HASHES;
+    }
+
+    /**
+     * 1 key cho mỗi band; chỉ số band được trộn vào key nên các band khác nhau không đụng nhau
+     */
+    public static long[] bandKeys(int[] signature) {
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = band;
+            for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+                key = mix64(key * 0x9E3779B97F4A7C15L + signature[row]);
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    public static byte[] toBytes(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Integer.BYTES);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    public static int[] fromBytes(byte[] bytes) {
+        int[] signature = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+        return signature;
+    }
+
+    // Finalizer của SplitMix64 / MurmurHash3
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB93FE53B1A0DL;
+        return z ^ (z >>> 33);
+    }
+}
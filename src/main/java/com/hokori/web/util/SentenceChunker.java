@@ -0,0 +1,85 @@
+package com.hokori.web.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cắt text đang stream thành từng câu hoàn chỉnh (để tổng hợp TTS theo câu).
+ *
+ * Kết thúc câu: 。！？!? hoặc xuống dòng; "." chỉ khi theo sau là khoảng trắng / dấu đóng (không cắt "3.5", "Mr.X").
+ * Dấu đóng ngoặc/nháy ngay sau (」』）") đi kèm câu đó.
+ * Câu quá ngắn (vd. "はい。") được gộp với câu sau để không gọi TTS cho từng mẩu nhỏ.
+ * Không thread-safe: mỗi stream dùng 1 instance, gọi tuần tự.
+ */
+public final class SentenceChunker {
+
+    private static final String TERMINATORS = "。！？!?\n";
+    private static final String CLOSERS = "」』）)\"'”’";
+
+    private final int minChars;
+    private final StringBuilder pending = new StringBuilder();
+
+    public SentenceChunker(int minChars) {
+        this.minChars = minChars;
+    }
+
+    /**
+     * Thêm 1 đoạn text mới, trả về các câu đã hoàn chỉnh (có thể rỗng)
+     */
+    public List<String> append(String delta) {
+        List<String> sentences = new ArrayList<>();
+        if (delta == null || delta.isEmpty()) {
+            return sentences;
+        }
+        pending.append(delta);
+
+        int start = 0;
+        int i = 0;
+        while (i < pending.length()) {
+            char c = pending.charAt(i);
+            if (c == '.' && i + 1 == pending.length()) {
+                // "." ở cuối buffer: chưa biết là hết câu hay số thập phân
+                break;
+            }
+            if (!isTerminator(i)) {
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < pending.length() && (isTerminator(end) || pending.charAt(end) == '.'
+                    || CLOSERS.indexOf(pending.charAt(end)) >= 0)) {
+                end++;
+            }
+            if (end == pending.length()) {
+                // Dấu câu ở cuối buffer: chờ đoạn sau để biết có dấu đóng ngoặc/"！？" nối tiếp không
+                break;
+            }
+            String sentence = pending.substring(start, end).strip();
+            if (sentence.length() >= minChars) {
+                sentences.add(sentence);
+                start = end;
+            }
+            i = end;
+        }
+        pending.delete(0, start);
+        return sentences;
+    }
+
+    private boolean isTerminator(int i) {
+        char c = pending.charAt(i);
+        if (c == '.') {
+            char next = i + 1 < pending.length() ? pending.charAt(i + 1) : ' ';
+            return Character.isWhitespace(next) || CLOSERS.indexOf(next) >= 0;
+        }
+        return TERMINATORS.indexOf(c) >= 0;
+    }
+
+    /**
+     * Phần còn lại khi stream kết thúc (null nếu không còn gì)
+     */
+    public String flush() {
+        String rest = pending.toString().strip();
+        pending.setLength(0);
+        return rest.isEmpty() ? null : rest;
+    }
+}
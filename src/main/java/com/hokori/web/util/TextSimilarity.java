@@ -0,0 +1,388 @@
+package com.hokori.web.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * So khớp câu mẫu với transcript khi chấm luyện nói (SpeakingPracticeService).
+ *
+ * - editDistance: khoảng cách Levenshtein không cấp phát; chuỗi ngắn (≤ 64 ký tự, gần như mọi câu luyện nói)
+ *   dùng thuật toán bit-parallel của Myers (O(n) phép toán trên 1 long), chuỗi dài hơn dùng 2 hàng DP cuốn chiếu.
+ *   Bảng tạm nằm trong ThreadLocal, tái sử dụng giữa các lượt gọi.
+ * - foldKana: katakana -> hiragana, ー -> nguyên âm của kana đứng trước (1 ký tự đổi thành đúng 1 ký tự,
+ *   nên vị trí trên chuỗi đã fold trùng với chuỗi gốc)
+ * - align: dóng hàng 2 chuỗi ký tự hoặc 2 dãy từ, trả về danh sách {@link Edit} theo thứ tự xuất hiện
+ */
+public final class TextSimilarity {
+
+    /** Chuỗi ngắn hơn dài tới mức này thì dùng Myers (1 long = 64 bit) */
+    private static final int BIT_PARALLEL_MAX = 64;
+    /** Bảng DP của align (sau khi bỏ phần đầu/cuối trùng nhau) lớn hơn mức này thì so từng vị trí */
+    private static final int MAX_ALIGN_CELLS = 1 << 20;
+    /** Bộ đệm lớn hơn mức này chỉ dùng 1 lần, không giữ lại trong ThreadLocal */
+    private static final int MAX_RETAINED_ROW = 4096;
+    /**
+     * Bảng DP của align được giữ lại tới 16K ô (64 KB / thread, đủ cho 2 câu ~127 ký tự);
+     * bảng lớn hơn (tối đa MAX_ALIGN_CELLS = 4 MB) cấp phát cho riêng lượt gọi đó rồi bỏ
+     */
+    private static final int MAX_RETAINED_MATRIX = 1 << 14;
+
+    private static final char[] VOWEL_OF_HIRAGANA = buildVowelTable();
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private TextSimilarity() {
+    }
+
+    public enum EditType {
+        /** Ký tự/từ trong câu mẫu bị nói sai thành ký tự/từ khác */
+        SUBSTITUTION,
+        /** Ký tự/từ trong câu mẫu bị thiếu */
+        MISSING,
+        /** Ký tự/từ thừa so với câu mẫu */
+        EXTRA
+    }
+
+    /**
+     * 1 chỗ khác nhau
+     *
+     * @param targetIndex vị trí trong câu mẫu; với EXTRA là vị trí trong câu mẫu mà phần thừa chen vào trước
+     * @param userIndex   vị trí trong transcript; với MISSING là vị trí trong transcript mà phần thiếu lẽ ra nằm trước
+     */
+    public record Edit(EditType type, int targetIndex, int userIndex) {
+    }
+
+    /**
+     * Khoảng cách Levenshtein (so theo char UTF-16)
+     */
+    public static int editDistance(CharSequence a, CharSequence b) {
+        int prefix = commonPrefix(a, b);
+        int suffix = commonSuffix(a, b, prefix);
+        int aLen = a.length() - prefix - suffix;
+        int bLen = b.length() - prefix - suffix;
+        if (aLen == 0 || bLen == 0) {
+            return aLen + bLen;
+        }
+        // Pattern = chuỗi ngắn hơn (khoảng cách đối xứng)
+        if (aLen > bLen) {
+            return editDistance(b, prefix, bLen, a, prefix, aLen);
+        }
+        return editDistance(a, prefix, aLen, b, prefix, bLen);
+    }
+
+    private static int editDistance(CharSequence pattern, int pStart, int pLen, CharSequence text, int tStart, int tLen) {
+        Scratch scratch = SCRATCH.get();
+        return pLen <= BIT_PARALLEL_MAX
+                ? myers(scratch, pattern, pStart, pLen, text, tStart, tLen)
+                : rollingRows(scratch, pattern, pStart, pLen, text, tStart, tLen);
+    }
+
+    /**
+     * Myers (1999), dạng của Hyyrö cho khoảng cách toàn cục: mỗi cột của bảng DP được mã hoá bằng
+     * 2 bitvector delta dọc (+1 / -1), cập nhật cả cột bằng vài phép toán trên long
+     */
+    private static int myers(Scratch scratch, CharSequence pattern, int pStart, int pLen,
+                             CharSequence text, int tStart, int tLen) {
+        scratch.buildPeq(pattern, pStart, pLen);
+        long pv = pLen == 64 ? -1L : (1L << pLen) - 1;
+        long mv = 0L;
+        long last = 1L << (pLen - 1);
+        int score = pLen;
+        for (int j = 0; j < tLen; j++) {
+            long eq = scratch.peq(text.charAt(tStart + j));
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & last) != 0) {
+                score++;
+            } else if ((mh & last) != 0) {
+                score--;
+            }
+            // Hàng 0 của bảng tăng 1 mỗi cột (khoảng cách toàn cục, không phải tìm chuỗi con)
+            ph = (ph << 1) | 1L;
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+        }
+        return score;
+    }
+
+    private static int rollingRows(Scratch scratch, CharSequence pattern, int pStart, int pLen,
+                                   CharSequence text, int tStart, int tLen) {
+        int[] row = scratch.row(pLen + 1);
+        for (int i = 0; i <= pLen; i++) {
+            row[i] = i;
+        }
+        for (int j = 1; j <= tLen; j++) {
+            char c = text.charAt(tStart + j - 1);
+            int diagonal = row[0];
+            row[0] = j;
+            for (int i = 1; i <= pLen; i++) {
+                int above = row[i];
+                int cost = pattern.charAt(pStart + i - 1) == c ? 0 : 1;
+                row[i] = Math.min(Math.min(above + 1, row[i - 1] + 1), diagonal + cost);
+                diagonal = above;
+            }
+        }
+        return row[pLen];
+    }
+
+    /**
+     * Katakana -> hiragana, ー -> nguyên âm của kana đứng trước (コーヒー -> こおひい).
+     * Giữ nguyên độ dài và mọi ký tự khác.
+     */
+    public static String foldKana(CharSequence text) {
+        if (text == null) {
+            return "";
+        }
+        char[] folded = new char[text.length()];
+        char previous = 0;
+        for (int i = 0; i < folded.length; i++) {
+            char c = text.charAt(i);
+            if (c >= 'ァ' && c <= 'ヶ') {
+                c = (char) (c - 0x60);
+            } else if (c == 'ー' && previous >= 'ぁ' && previous <= 'ゖ' && VOWEL_OF_HIRAGANA[previous - 'ぁ'] != 0) {
+                c = VOWEL_OF_HIRAGANA[previous - 'ぁ'];
+            }
+            folded[i] = c;
+            previous = c;
+        }
+        return new String(folded);
+    }
+
+    /**
+     * Dóng hàng 2 chuỗi theo ký tự
+     */
+    public static List<Edit> align(CharSequence target, CharSequence user) {
+        int prefix = commonPrefix(target, user);
+        int suffix = commonSuffix(target, user, prefix);
+        return align(prefix, target.length() - prefix - suffix, user.length() - prefix - suffix,
+                (i, j) -> target.charAt(i) == user.charAt(j));
+    }
+
+    /**
+     * Dóng hàng 2 dãy từ (so bằng equals, vd. cách đọc của từng từ)
+     */
+    public static List<Edit> align(String[] target, String[] user) {
+        int prefix = 0;
+        int max = Math.min(target.length, user.length);
+        while (prefix < max && target[prefix].equals(user[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && target[target.length - 1 - suffix].equals(user[user.length - 1 - suffix])) {
+            suffix++;
+        }
+        return align(prefix, target.length - prefix - suffix, user.length - prefix - suffix,
+                (i, j) -> target[i].equals(user[j]));
+    }
+
+    @FunctionalInterface
+    private interface Matcher {
+        boolean same(int targetIndex, int userIndex);
+    }
+
+    /**
+     * DP đầy đủ trên phần giữa (bỏ phần đầu/cuối trùng nhau), truy vết ưu tiên khớp, rồi thay thế, thiếu, thừa
+     */
+    private static List<Edit> align(int offset, int n, int m, Matcher matcher) {
+        List<Edit> edits = new ArrayList<>();
+        if (n == 0 || m == 0) {
+            for (int i = 0; i < n; i++) {
+                edits.add(new Edit(EditType.MISSING, offset + i, offset));
+            }
+            for (int j = 0; j < m; j++) {
+                edits.add(new Edit(EditType.EXTRA, offset, offset + j));
+            }
+            return edits;
+        }
+        if ((long) (n + 1) * (m + 1) > MAX_ALIGN_CELLS) {
+            return alignByPosition(offset, n, m, matcher);
+        }
+
+        int width = m + 1;
+        int[] dp = SCRATCH.get().matrix((n + 1) * width);
+        for (int i = 0; i <= n; i++) {
+            dp[i * width] = i;
+        }
+        for (int j = 0; j <= m; j++) {
+            dp[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            int rowStart = i * width;
+            for (int j = 1; j <= m; j++) {
+                int cost = matcher.same(offset + i - 1, offset + j - 1) ? 0 : 1;
+                dp[rowStart + j] = Math.min(
+                        Math.min(dp[rowStart - width + j] + 1, dp[rowStart + j - 1] + 1),
+                        dp[rowStart - width + j - 1] + cost);
+            }
+        }
+
+        int i = n;
+        int j = m;
+        while (i > 0 || j > 0) {
+            int current = dp[i * width + j];
+            if (i > 0 && j > 0) {
+                int diagonal = dp[(i - 1) * width + j - 1];
+                boolean same = matcher.same(offset + i - 1, offset + j - 1);
+                if (same && current == diagonal) {
+                    i--;
+                    j--;
+                    continue;
+                }
+                if (!same && current == diagonal + 1) {
+                    edits.add(new Edit(EditType.SUBSTITUTION, offset + i - 1, offset + j - 1));
+                    i--;
+                    j--;
+                    continue;
+                }
+            }
+            if (i > 0 && current == dp[(i - 1) * width + j] + 1) {
+                edits.add(new Edit(EditType.MISSING, offset + i - 1, offset + j));
+                i--;
+            } else {
+                edits.add(new Edit(EditType.EXTRA, offset + i, offset + j - 1));
+                j--;
+            }
+        }
+        Collections.reverse(edits);
+        return edits;
+    }
+
+    /**
+     * Chuỗi quá dài cho bảng DP: so từng vị trí (như cách so cũ)
+     */
+    private static List<Edit> alignByPosition(int offset, int n, int m, Matcher matcher) {
+        List<Edit> edits = new ArrayList<>();
+        for (int k = 0; k < Math.max(n, m); k++) {
+            if (k < n && k < m) {
+                if (!matcher.same(offset + k, offset + k)) {
+                    edits.add(new Edit(EditType.SUBSTITUTION, offset + k, offset + k));
+                }
+            } else if (k < n) {
+                edits.add(new Edit(EditType.MISSING, offset + k, offset + m));
+            } else {
+                edits.add(new Edit(EditType.EXTRA, offset + n, offset + k));
+            }
+        }
+        return edits;
+    }
+
+    private static int commonPrefix(CharSequence a, CharSequence b) {
+        int max = Math.min(a.length(), b.length());
+        int k = 0;
+        while (k < max && a.charAt(k) == b.charAt(k)) {
+            k++;
+        }
+        return k;
+    }
+
+    private static int commonSuffix(CharSequence a, CharSequence b, int prefix) {
+        int max = Math.min(a.length(), b.length()) - prefix;
+        int k = 0;
+        while (k < max && a.charAt(a.length() - 1 - k) == b.charAt(b.length() - 1 - k)) {
+            k++;
+        }
+        return k;
+    }
+
+    private static char[] buildVowelTable() {
+        char[] table = new char['ゖ' - 'ぁ' + 1];
+        String[] rows = {
+                "あぁあかがさざただなはばぱまゃやらゎわゕ",
+                "いぃいきぎしじちぢにひびぴみりゐ",
+                "うぅうくぐすずつづぬふぶぷむゅゆるゔ",
+                "えぇえけげせぜてでねへべぺめれゑゖ",
+                "おぉおこごそぞとどのほぼぽもょよろを"
+        };
+        for (String row : rows) {
+            char vowel = row.charAt(0);
+            for (int k = 1; k < row.length(); k++) {
+                table[row.charAt(k) - 'ぁ'] = vowel;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Bộ nhớ tạm theo thread: bảng Peq (ký tự -> bitmask vị trí) dạng open addressing, đánh dấu bằng
+     * generation để không phải xoá giữa các lần gọi; hàng DP và bảng DP của align
+     */
+    private static final class Scratch {
+
+        private static final int PEQ_SLOTS = 128; // ≥ 2 × 64 ký tự khác nhau
+
+        private final char[] peqKeys = new char[PEQ_SLOTS];
+        private final long[] peqMasks = new long[PEQ_SLOTS];
+        private final int[] peqStamps = new int[PEQ_SLOTS];
+        private int generation;
+
+        private int[] row = new int[BIT_PARALLEL_MAX * 2];
+        private int[] matrix = new int[1024];
+
+        void buildPeq(CharSequence pattern, int start, int length) {
+            if (++generation == 0) {
+                java.util.Arrays.fill(peqStamps, 0);
+                generation = 1;
+            }
+            for (int k = 0; k < length; k++) {
+                char c = pattern.charAt(start + k);
+                int slot = slot(c);
+                if (peqStamps[slot] != generation) {
+                    peqStamps[slot] = generation;
+                    peqKeys[slot] = c;
+                    peqMasks[slot] = 0L;
+                }
+                peqMasks[slot] |= 1L << k;
+            }
+        }
+
+        long peq(char c) {
+            int slot = hash(c);
+            while (peqStamps[slot] == generation) {
+                if (peqKeys[slot] == c) {
+                    return peqMasks[slot];
+                }
+                slot = (slot + 1) & (PEQ_SLOTS - 1);
+            }
+            return 0L;
+        }
+
+        private int slot(char c) {
+            int slot = hash(c);
+            while (peqStamps[slot] == generation && peqKeys[slot] != c) {
+                slot = (slot + 1) & (PEQ_SLOTS - 1);
+            }
+            return slot;
+        }
+
+        private static int hash(char c) {
+            return (c ^ (c >>> 7)) & (PEQ_SLOTS - 1);
+        }
+
+        int[] row(int size) {
+            if (size <= row.length) {
+                return row;
+            }
+            int[] grown = new int[size];
+            if (size <= MAX_RETAINED_ROW) {
+                row = grown;
+            }
+            return grown;
+        }
+
+        int[] matrix(int size) {
+            if (size <= matrix.length) {
+                return matrix;
+            }
+            int[] grown = new int[size];
+            if (size <= MAX_RETAINED_MATRIX) {
+                matrix = grown;
+            }
+            return grown;
+        }
+    }
+}
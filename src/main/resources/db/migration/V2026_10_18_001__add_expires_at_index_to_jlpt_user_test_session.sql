@@ -0,0 +1,4 @@
+-- Index for the expired-session sweeper (JlptSessionSweeperService)
+-- Allows "WHERE expires_at < :cutoff ORDER BY expires_at" to be served by a range scan
+
+CREATE INDEX IF NOT EXISTS idx_jlpt_session_expires_at ON jlpt_user_test_session(expires_at);
@@ -0,0 +1,29 @@
+-- Streaming item-analysis aggregates for JLPT questions (JlptItemAnalysisService)
+-- Updated with upserts on every graded attempt; never recomputed from jlpt_test_attempt_answers
+
+CREATE TABLE IF NOT EXISTS jlpt_question_stats (
+    question_id BIGINT PRIMARY KEY REFERENCES jlpt_questions(id) ON DELETE CASCADE,
+    test_id BIGINT NOT NULL,
+    attempt_count BIGINT NOT NULL DEFAULT 0,
+    answered_count BIGINT NOT NULL DEFAULT 0,
+    correct_count BIGINT NOT NULL DEFAULT 0,
+    sum_score DOUBLE PRECISION NOT NULL DEFAULT 0,
+    sum_score_sq DOUBLE PRECISION NOT NULL DEFAULT 0,
+    sum_correct_score DOUBLE PRECISION NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_jlpt_question_stats_test ON jlpt_question_stats(test_id);
+
+-- Options are hard-deleted (deleteOption), so their counters go with them
+CREATE TABLE IF NOT EXISTS jlpt_option_stats (
+    option_id BIGINT PRIMARY KEY REFERENCES jlpt_options(id) ON DELETE CASCADE,
+    question_id BIGINT NOT NULL,
+    selected_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_jlpt_option_stats_question ON jlpt_option_stats(question_id);
+
+COMMENT ON TABLE jlpt_question_stats IS 'Running sums per JLPT question for difficulty (p-value) and point-biserial discrimination';
+COMMENT ON TABLE jlpt_option_stats IS 'Running selection count per JLPT option (distractor analysis)';
@@ -0,0 +1,15 @@
+-- Content-addressed cache of Gemini responses (GeminiResponseCacheService)
+-- Second tier behind the in-memory LRU; rows are shared across users and instances
+
+CREATE TABLE IF NOT EXISTS ai_response_cache (
+    cache_key VARCHAR(64) PRIMARY KEY,
+    site VARCHAR(50) NOT NULL,
+    model VARCHAR(100) NOT NULL,
+    response_text TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_ai_response_cache_expires_at ON ai_response_cache(expires_at);
+
+COMMENT ON TABLE ai_response_cache IS 'Gemini responses keyed by SHA-256 of model + generation config + normalized prompt';
@@ -0,0 +1,16 @@
+-- Translation memory for AIService.translateText (TranslationMemoryService)
+-- Repeated strings (common phrases, kaiwa sentences, AI replies) are translated once
+
+CREATE TABLE IF NOT EXISTS translation_memory (
+    id BIGSERIAL PRIMARY KEY,
+    source_hash VARCHAR(64) NOT NULL,
+    source_lang VARCHAR(10) NOT NULL,
+    target_lang VARCHAR(10) NOT NULL,
+    source_text TEXT NOT NULL,
+    translated_text TEXT NOT NULL,
+    detected_source_lang VARCHAR(10),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_translation_memory_key UNIQUE (source_hash, source_lang, target_lang)
+);
+
+COMMENT ON TABLE translation_memory IS 'Cached translations keyed by SHA-256 of normalized source text and language pair';
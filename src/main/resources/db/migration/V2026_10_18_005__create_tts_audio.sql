@@ -0,0 +1,17 @@
+-- Content-addressed store of synthesized text-to-speech audio (TtsAudioStoreService)
+-- The audio itself lives in R2 or on local disk; this table is the metadata index
+
+CREATE TABLE IF NOT EXISTS tts_audio (
+    content_hash VARCHAR(64) PRIMARY KEY,
+    text TEXT NOT NULL,
+    voice VARCHAR(50) NOT NULL,
+    speaking_rate DOUBLE PRECISION NOT NULL,
+    audio_format VARCHAR(10) NOT NULL,
+    storage_backend VARCHAR(10) NOT NULL,
+    storage_path VARCHAR(255) NOT NULL,
+    audio_url VARCHAR(500) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE tts_audio IS 'TTS audio keyed by SHA-256 of normalized text + voice + speaking rate + format';
@@ -0,0 +1,12 @@
+-- Precomputed learning materials for conversation practice (LearningMaterialLibraryService)
+-- One row per (JLPT level, scenario key); refreshed in the background, free-text scenarios are not stored
+
+CREATE TABLE IF NOT EXISTS conversation_learning_material (
+    material_key VARCHAR(64) PRIMARY KEY,
+    level VARCHAR(5) NOT NULL,
+    scenario VARCHAR(50) NOT NULL,
+    materials_json TEXT NOT NULL,
+    generated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE conversation_learning_material IS 'Vocabulary preview, grammar points and tips per (level, scenario) for conversation practice';
@@ -0,0 +1,16 @@
+-- Persisted AI moderation verdicts (CourseModerationAIService)
+-- One row per (course, scope): scope = course header, one chapter, or the course-wide checks.
+-- A row is reused while its content hash and moderation model version still match.
+
+CREATE TABLE IF NOT EXISTS course_moderation_result (
+    id BIGSERIAL PRIMARY KEY,
+    course_id BIGINT NOT NULL REFERENCES course(id) ON DELETE CASCADE,
+    scope_key VARCHAR(50) NOT NULL,
+    content_hash VARCHAR(64) NOT NULL,
+    model_version VARCHAR(100) NOT NULL,
+    result_json TEXT NOT NULL,
+    checked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_course_moderation_result_scope UNIQUE (course_id, scope_key)
+);
+
+COMMENT ON TABLE course_moderation_result IS 'AI moderation verdict per course scope, keyed by SHA-256 of the scope text and the moderation model version';
@@ -0,0 +1,37 @@
+-- Managed term list for the local content pre-screen (ContentPreScreenService)
+-- Terms are matched with an Aho–Corasick automaton over normalized text before any AI moderation call.
+-- normalized_term: NFKC, lower case, one Vietnamese tone-mark placement, katakana folded to hiragana
+
+CREATE TABLE IF NOT EXISTS moderation_term (
+    id BIGSERIAL PRIMARY KEY,
+    term VARCHAR(100) NOT NULL,
+    normalized_term VARCHAR(100) NOT NULL,
+    language VARCHAR(10) NOT NULL,
+    severity VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    deleted_flag BOOLEAN NOT NULL DEFAULT FALSE,
+    CONSTRAINT uk_moderation_term_normalized UNIQUE (normalized_term),
+    CONSTRAINT chk_moderation_term_severity CHECK (severity IN ('BLOCK', 'REVIEW'))
+);
+
+COMMENT ON TABLE moderation_term IS 'Moderator-managed banned/review terms for the local pre-screen before AI moderation';
+
+-- Starter list; moderators maintain it through /api/moderator/moderation-terms
+INSERT INTO moderation_term (term, normalized_term, language, severity) VALUES
+    ('địt', 'địt', 'vi', 'BLOCK'),
+    ('đụ má', 'đụ má', 'vi', 'BLOCK'),
+    ('đéo', 'đéo', 'vi', 'REVIEW'),
+    ('lồn', 'lồn', 'vi', 'BLOCK'),
+    ('cặc', 'cặc', 'vi', 'BLOCK'),
+    ('fuck', 'fuck', 'en', 'BLOCK'),
+    ('motherfucker', 'motherfucker', 'en', 'BLOCK'),
+    ('shit', 'shit', 'en', 'REVIEW'),
+    ('死ね', '死ね', 'ja', 'BLOCK'),
+    ('殺すぞ', '殺すぞ', 'ja', 'BLOCK'),
+    ('キモい', 'きもい', 'ja', 'REVIEW')
+ON CONFLICT (normalized_term) DO NOTHING;
+
+-- Comments that hit a REVIEW term are published but listed for moderators
+ALTER TABLE course_comment ADD COLUMN IF NOT EXISTS flagged_terms VARCHAR(500);
+CREATE INDEX IF NOT EXISTS idx_course_comment_flagged ON course_comment(course_id) WHERE flagged_terms IS NOT NULL AND deleted_flag = FALSE;
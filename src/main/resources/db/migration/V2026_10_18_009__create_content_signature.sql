@@ -0,0 +1,30 @@
+-- MinHash signatures for near-duplicate course / lesson detection (CourseDuplicateDetectionService)
+-- Computed when a course is submitted for approval or an update is submitted.
+-- content_lsh_band is the LSH index: signatures sharing any band_key are duplicate candidates,
+-- so a lookup reads a few index entries instead of comparing against every course.
+
+CREATE TABLE IF NOT EXISTS content_signature (
+    id BIGSERIAL PRIMARY KEY,
+    course_id BIGINT NOT NULL REFERENCES course(id) ON DELETE CASCADE,
+    lesson_id BIGINT REFERENCES lessons(id) ON DELETE CASCADE,
+    scope VARCHAR(10) NOT NULL,
+    shingle_count INT NOT NULL,
+    signature BYTEA NOT NULL,
+    computed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT chk_content_signature_scope CHECK (scope IN ('COURSE', 'LESSON'))
+);
+
+CREATE INDEX IF NOT EXISTS idx_content_signature_course ON content_signature(course_id);
+
+CREATE TABLE IF NOT EXISTS content_lsh_band (
+    id BIGSERIAL PRIMARY KEY,
+    signature_id BIGINT NOT NULL REFERENCES content_signature(id) ON DELETE CASCADE,
+    course_id BIGINT NOT NULL,
+    band_key BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_content_lsh_band_key ON content_lsh_band(band_key);
+CREATE INDEX IF NOT EXISTS idx_content_lsh_band_course ON content_lsh_band(course_id);
+
+COMMENT ON TABLE content_signature IS 'MinHash signature (128 x int32) of a whole course or one lesson';
+COMMENT ON TABLE content_lsh_band IS 'LSH band keys of content_signature (16 bands x 8 rows)';
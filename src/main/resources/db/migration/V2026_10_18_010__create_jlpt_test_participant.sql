@@ -0,0 +1,23 @@
+-- Registry of users who have ever started a JLPT test (JlptTestService.startTest).
+-- jlpt_user_test_session rows are deleted on submit / by the sweeper, so "no session" does not mean
+-- "first time": current_participants is only incremented when the insert here actually adds a row.
+
+CREATE TABLE IF NOT EXISTS jlpt_test_participant (
+    test_id BIGINT NOT NULL REFERENCES jlpt_tests(id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    first_started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (test_id, user_id)
+);
+
+-- Backfill: users who already submitted an attempt or have an open session were counted before
+INSERT INTO jlpt_test_participant (test_id, user_id, first_started_at)
+SELECT test_id, user_id, MIN(started_at)
+FROM (
+    SELECT test_id, user_id, started_at FROM jlpt_test_attempts
+    UNION ALL
+    SELECT test_id, user_id, started_at FROM jlpt_user_test_session
+) seen
+GROUP BY test_id, user_id
+ON CONFLICT DO NOTHING;
+
+COMMENT ON TABLE jlpt_test_participant IS 'First start of a JLPT test per user; drives jlpt_tests.current_participants';
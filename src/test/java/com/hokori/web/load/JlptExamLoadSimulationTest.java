@@ -0,0 +1,322 @@
+package com.hokori.web.load;
+
+import com.hokori.web.Enum.JlptEventStatus;
+import com.hokori.web.Enum.JlptQuestionType;
+import com.hokori.web.dto.jlpt.JlptAnswerSubmitRequest;
+import com.hokori.web.entity.*;
+import com.hokori.web.repository.*;
+import com.hokori.web.service.*;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Load harness cho 1 kỳ thi JLPT: N learner đồng thời start test, lấy đề, trả lời theo
+ * think-time phân phối log-normal và nộp bài dồn vào cùng 1 deadline.
+ *
+ * Chạy: mvn test -Pload-test [-Dload.learners=200 -Dload.questions=60 -Dload.exam-seconds=30
+ *       -Dload.think-median-ms=300 -Dload.pool-size=20 -Dload.jdbc-url=jdbc:postgresql://...]
+ *
+ * Mặc định dùng embedded PostgreSQL (không dùng H2 vì các upsert ON CONFLICT DO UPDATE
+ * của JlptAnswerRepository / JlptUserTestSessionRepository chỉ chạy trên PostgreSQL).
+ * Báo cáo throughput, p50/p99 và số JDBC statement trung bình cho từng endpoint.
+ */
+@Tag("load")
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({
+        JlptTestService.class,
+        JlptLeaderboardService.class,
+        JlptItemAnalysisService.class,
+        JlptExamLoadSimulationTest.HarnessConfig.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JlptExamLoadSimulationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(JlptExamLoadSimulationTest.class);
+
+    private static final int LEARNERS = Integer.getInteger("load.learners", 100);
+    private static final int QUESTIONS = Integer.getInteger("load.questions", 40);
+    private static final int EXAM_SECONDS = Integer.getInteger("load.exam-seconds", 20);
+    private static final int RAMP_UP_MS = Integer.getInteger("load.ramp-up-ms", 2000);
+    private static final int THINK_MEDIAN_MS = Integer.getInteger("load.think-median-ms", 200);
+    private static final double CORRECT_RATE = 0.7;
+
+    @Autowired private JlptTestService jlptTestService;
+    @Autowired private UserRepository userRepo;
+    @Autowired private JlptEventRepository eventRepo;
+    @Autowired private JlptTestRepository testRepo;
+    @Autowired private JlptQuestionRepository questionRepo;
+    @Autowired private JlptOptionRepository optionRepo;
+    @Autowired private JlptTestAttemptRepository attemptRepo;
+
+    @MockBean private LearnerProgressService learnerProgressService;
+    @MockBean private FileStorageService fileStorageService;
+
+    private final Map<String, Queue<long[]>> samples = new ConcurrentHashMap<>();
+
+    @TestConfiguration
+    static class HarnessConfig {
+
+        @Bean
+        DataSource dataSource() throws IOException {
+            int poolSize = Integer.getInteger("load.pool-size", 20);
+            String jdbcUrl = System.getProperty("load.jdbc-url");
+
+            HikariConfig config = new HikariConfig();
+            config.setMaximumPoolSize(poolSize);
+            EmbeddedPostgres embedded = null;
+            if (jdbcUrl != null) {
+                config.setJdbcUrl(jdbcUrl);
+                config.setUsername(System.getProperty("load.jdbc-user", "postgres"));
+                config.setPassword(System.getProperty("load.jdbc-password", ""));
+            } else {
+                embedded = EmbeddedPostgres.start();
+                config.setDataSource(embedded.getPostgresDatabase());
+            }
+            return new OwnedDataSource(new HikariDataSource(config), embedded);
+        }
+    }
+
+    /** Đóng pool và embedded PostgreSQL khi context shutdown. */
+    static class OwnedDataSource extends StatementCountingDataSource implements DisposableBean {
+        private final HikariDataSource pool;
+        private final EmbeddedPostgres embedded;
+
+        OwnedDataSource(HikariDataSource pool, EmbeddedPostgres embedded) {
+            super(pool);
+            this.pool = pool;
+            this.embedded = embedded;
+        }
+
+        @Override
+        public void destroy() throws Exception {
+            pool.close();
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+
+    @Test
+    void simulateExamEvent() throws Exception {
+        ExamFixture exam = seedExam();
+        List<Long> learnerIds = seedLearners();
+
+        Instant deadline = Instant.now().plusMillis(RAMP_UP_MS).plusSeconds(EXAM_SECONDS);
+        AtomicInteger errors = new AtomicInteger();
+
+        long wallStart = System.nanoTime();
+        ExecutorService executor = learnerExecutor();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < learnerIds.size(); i++) {
+                Long userId = learnerIds.get(i);
+                long startDelay = RAMP_UP_MS * (long) i / Math.max(1, learnerIds.size());
+                futures.add(executor.submit(() -> {
+                    try {
+                        Thread.sleep(startDelay);
+                        runLearner(exam, userId, deadline, new Random(userId));
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                        logger.warn("Learner {} failed", userId, e);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+
+        logReport(wallSeconds, errors.get());
+
+        assertEquals(0, errors.get(), "Some learners failed, see the warnings logged above");
+        assertEquals(LEARNERS, attemptRepo.findAll().size());
+    }
+
+    private void runLearner(ExamFixture exam, Long userId, Instant deadline, Random rnd) throws InterruptedException {
+        timed("startTest", () -> jlptTestService.startTest(exam.testId, userId));
+        timed("getQuestions", () -> jlptTestService.getQuestionsWithOptions(exam.testId, userId));
+
+        for (Long questionId : exam.questionIds) {
+            long think = thinkTimeMillis(rnd);
+            if (Instant.now().plusMillis(think).isAfter(deadline)) {
+                break; // Hết giờ, không kịp trả lời các câu còn lại
+            }
+            Thread.sleep(think);
+
+            List<Long> options = exam.optionIds.get(questionId);
+            Long selected = rnd.nextDouble() < CORRECT_RATE
+                    ? exam.correctOptionIds.get(questionId)
+                    : options.get(rnd.nextInt(options.size()));
+
+            JlptAnswerSubmitRequest req = new JlptAnswerSubmitRequest();
+            req.setQuestionId(questionId);
+            req.setSelectedOptionId(selected);
+            timed("submitAnswer", () -> {
+                jlptTestService.submitAnswer(exam.testId, userId, req);
+                return null;
+            });
+        }
+
+        // Mọi người nộp dồn vào deadline (± jitter nhỏ), đây là đỉnh tải thực tế
+        long untilDeadline = deadline.toEpochMilli() - System.currentTimeMillis() - rnd.nextInt(500);
+        if (untilDeadline > 0) {
+            Thread.sleep(untilDeadline);
+        }
+        timed("submitTest", () -> jlptTestService.submitTest(exam.testId, userId));
+    }
+
+    private <T> T timed(String endpoint, Supplier<T> call) {
+        StatementCountingDataSource.reset();
+        long start = System.nanoTime();
+        T result = call.get();
+        long elapsed = System.nanoTime() - start;
+        samples.computeIfAbsent(endpoint, k -> new ConcurrentLinkedQueue<>())
+                .add(new long[]{elapsed, StatementCountingDataSource.count()});
+        return result;
+    }
+
+    /** Think-time log-normal quanh median (sigma = 0.6). */
+    private static long thinkTimeMillis(Random rnd) {
+        return (long) (THINK_MEDIAN_MS * Math.exp(0.6 * rnd.nextGaussian()));
+    }
+
+    /** Virtual thread nếu JVM hỗ trợ (Java 21+), ngược lại 1 platform thread / learner. */
+    private static ExecutorService learnerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(LEARNERS);
+        }
+    }
+
+    private void logReport(double wallSeconds, int errors) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%n=== JLPT load simulation: %d learners, %d questions, %ds exam, %.1fs wall, %d errors ===%n",
+                LEARNERS, QUESTIONS, EXAM_SECONDS, wallSeconds, errors));
+        sb.append(String.format("%-14s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "count", "ops/s", "p50 ms", "p99 ms", "max ms", "sql/op"));
+        for (String endpoint : List.of("startTest", "getQuestions", "submitAnswer", "submitTest")) {
+            Queue<long[]> queue = samples.getOrDefault(endpoint, new ConcurrentLinkedQueue<>());
+            if (queue.isEmpty()) {
+                continue;
+            }
+            long[] latencies = queue.stream().mapToLong(s -> s[0]).sorted().toArray();
+            double sqlPerOp = queue.stream().mapToLong(s -> s[1]).average().orElse(0);
+            sb.append(String.format("%-14s %8d %10.1f %10.2f %10.2f %10.2f %10.1f%n",
+                    endpoint,
+                    latencies.length,
+                    latencies.length / wallSeconds,
+                    percentile(latencies, 0.50) / 1e6,
+                    percentile(latencies, 0.99) / 1e6,
+                    latencies[latencies.length - 1] / 1e6,
+                    sqlPerOp));
+        }
+        logger.info("{}", sb);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    // ===== Seed data =====
+
+    private record ExamFixture(Long testId,
+                               List<Long> questionIds,
+                               Map<Long, List<Long>> optionIds,
+                               Map<Long, Long> correctOptionIds) {}
+
+    private ExamFixture seedExam() {
+        User moderator = userRepo.save(new User(null, "moderator@load.test", "moderator", "Moderator"));
+
+        JlptEvent event = eventRepo.save(JlptEvent.builder()
+                .createdBy(moderator)
+                .title("Load test event")
+                .level("N3")
+                .status(JlptEventStatus.OPEN)
+                .startAt(LocalDateTime.now().minusDays(1))
+                .endAt(LocalDateTime.now().plusDays(1))
+                .build());
+
+        JlptTest test = testRepo.save(JlptTest.builder()
+                .event(event)
+                .createdBy(moderator)
+                .level("N3")
+                .durationMin(Math.max(1, (EXAM_SECONDS + RAMP_UP_MS / 1000) / 60 + 1))
+                .totalScore(180)
+                .published(true)
+                .build());
+
+        JlptQuestionType[] types = JlptQuestionType.values();
+        List<Long> questionIds = new ArrayList<>();
+        Map<Long, List<Long>> optionIds = new HashMap<>();
+        Map<Long, Long> correctOptionIds = new HashMap<>();
+        for (int i = 0; i < QUESTIONS; i++) {
+            JlptQuestion q = questionRepo.save(JlptQuestion.builder()
+                    .test(test)
+                    .content("Question " + (i + 1))
+                    .questionType(types[i % types.length])
+                    .orderIndex(i + 1)
+                    .build());
+            questionIds.add(q.getId());
+
+            List<Long> ids = new ArrayList<>();
+            for (int j = 0; j < 4; j++) {
+                JlptOption o = optionRepo.save(JlptOption.builder()
+                        .question(q)
+                        .content("Option " + (j + 1))
+                        .isCorrect(j == 0)
+                        .orderIndex(j + 1)
+                        .build());
+                ids.add(o.getId());
+                if (j == 0) {
+                    correctOptionIds.put(q.getId(), o.getId());
+                }
+            }
+            optionIds.put(q.getId(), ids);
+        }
+        return new ExamFixture(test.getId(), questionIds, optionIds, correctOptionIds);
+    }
+
+    private List<Long> seedLearners() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < LEARNERS; i++) {
+            users.add(new User(null, "learner" + i + "@load.test", "learner" + i, "Learner " + i));
+        }
+        return userRepo.saveAll(users).stream().map(User::getId).toList();
+    }
+}
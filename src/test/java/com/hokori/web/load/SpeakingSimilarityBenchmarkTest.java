@@ -0,0 +1,115 @@
+package com.hokori.web.load;
+
+import com.hokori.web.util.TextSimilarity;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark cho phần so khớp khi chấm luyện nói: ma trận Levenshtein cũ (int[n+1][m+1] mỗi lần gọi)
+ * so với TextSimilarity.editDistance (Myers bit-parallel ≤ 64 ký tự, 2 hàng cuốn chiếu khi dài hơn).
+ *
+ * Chạy: mvn test -Pload-test -Dtest=SpeakingSimilarityBenchmarkTest
+ * In kết quả ns/op và B/op (gc profiler) cho câu ngắn / vừa / dài (> 64 ký tự).
+ * forks(0): surefire chạy với classpath manifest-only nên JVM fork không thấy class của project;
+ * kết quả dùng để so sánh tương đối giữa 2 cách.
+ */
+@Tag("load")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SpeakingSimilarityBenchmarkTest {
+
+    @Param({"short", "medium", "long"})
+    public String sentence;
+
+    private String target;
+    private String transcript;
+
+    @Setup
+    public void setUp() {
+        switch (sentence) {
+            case "short" -> {
+                target = "わたしはがくせいです";
+                transcript = "わたしわがくせです";
+            }
+            case "medium" -> {
+                target = "きのうはともだちといっしょにしぶやでえいがをみにいきました";
+                transcript = "きのうともだちといしょにしぶやでえいがおみにいきました";
+            }
+            default -> {
+                target = "にほんのだいがくでけいざいをべんきょうしたあとで、とうきょうのかいしゃではたらきながら"
+                        + "にほんごのしけんのじゅんびをしています。らいねんはえぬいちにごうかくしたいです";
+                transcript = "にほんのだいがくでけいざいをべんきょしたあとで、ときょうのかいしゃではたらきながら"
+                        + "にほんごのしけんのじゅんびしています。らいねんはえぬいちにごかくしたいです";
+            }
+        }
+    }
+
+    @Benchmark
+    public int legacyMatrix() {
+        return legacyLevenshtein(target, transcript);
+    }
+
+    @Benchmark
+    public int textSimilarity() {
+        return TextSimilarity.editDistance(target, transcript);
+    }
+
+    @Benchmark
+    public int textSimilarityKanaFolded() {
+        return TextSimilarity.editDistance(TextSimilarity.foldKana(target), TextSimilarity.foldKana(transcript));
+    }
+
+    @Test
+    void runBenchmark() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(SpeakingSimilarityBenchmarkTest.class.getSimpleName())
+                .forks(0)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .addProfiler("gc")
+                .resultFormat(ResultFormatType.TEXT)
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * Bản cũ của SpeakingPracticeService.levenshteinDistance, giữ lại làm mốc so sánh
+     */
+    private static int legacyLevenshtein(String s1, String s2) {
+        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
+        for (int i = 0; i <= s1.length(); i++) {
+            dp[i][0] = i;
+        }
+        for (int j = 0; j <= s2.length(); j++) {
+            dp[0][j] = j;
+        }
+        for (int i = 1; i <= s1.length(); i++) {
+            for (int j = 1; j <= s2.length(); j++) {
+                if (s1.charAt(i - 1) == s2.charAt(j - 1)) {
+                    dp[i][j] = dp[i - 1][j - 1];
+                } else {
+                    dp[i][j] = Math.min(Math.min(dp[i - 1][j], dp[i][j - 1]), dp[i - 1][j - 1]) + 1;
+                }
+            }
+        }
+        return dp[s1.length()][s2.length()];
+    }
+}
@@ -0,0 +1,59 @@
+package com.hokori.web.load;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * DataSource đếm số JDBC statement được prepare/create trên thread hiện tại.
+ * Dùng cho load harness để báo cáo "SQL / operation" (bao gồm cả Hibernate lẫn JdbcTemplate).
+ * 1 batch JDBC được tính là 1 statement (1 round trip).
+ */
+class StatementCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "createStatement", "prepareCall");
+    private static final ThreadLocal<long[]> COUNTER = ThreadLocal.withInitial(() -> new long[1]);
+
+    StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    static void reset() {
+        COUNTER.get()[0] = 0;
+    }
+
+    static long count() {
+        return COUNTER.get()[0];
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (STATEMENT_METHODS.contains(method.getName())) {
+                COUNTER.get()[0]++;
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+                StatementCountingDataSource.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+}
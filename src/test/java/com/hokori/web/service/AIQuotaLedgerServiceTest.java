@@ -0,0 +1,154 @@
+package com.hokori.web.service;
+
+import com.hokori.web.Enum.AIServiceType;
+import com.hokori.web.Enum.PaymentStatus;
+import com.hokori.web.entity.AIPackage;
+import com.hokori.web.entity.AIPackagePurchase;
+import com.hokori.web.entity.Role;
+import com.hokori.web.entity.User;
+import com.hokori.web.repository.AIPackagePurchaseRepository;
+import com.hokori.web.repository.AIQuotaRepository;
+import com.hokori.web.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AIQuotaLedgerServiceTest {
+
+    @Mock
+    private AIQuotaRepository quotaRepo;
+    @Mock
+    private AIPackagePurchaseRepository purchaseRepo;
+    @Mock
+    private UserRepository userRepo;
+
+    private AIQuotaLedgerService ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new AIQuotaLedgerService(quotaRepo, purchaseRepo, userRepo, new SimpleMeterRegistry(), 60);
+    }
+
+    /**
+     * TC-QUOTA-01
+     * Free tier: trừ bằng 1 câu UPDATE có điều kiện; quyền dùng chỉ nạp 1 lần cho nhiều lượt gọi
+     */
+    @Test
+    void reserve_freeTier_usesConditionalUpdateAndCachedEntitlement() {
+        // given
+        when(userRepo.findByIdWithRole(1L)).thenReturn(Optional.of(user("LEARNER")));
+        when(purchaseRepo.findFirstByUser_IdAndIsActiveTrue(1L)).thenReturn(Optional.empty());
+        when(quotaRepo.reserveRequests(eq(1L), anyInt(), eq(true), eq(AIQuotaLedgerService.FREE_TIER_LIMIT), any(), any()))
+                .thenReturn(1);
+
+        // when
+        AIQuotaLedgerService.Reservation first = ledger.reserve(1L, AIServiceType.CONVERSATION, 1);
+        AIQuotaLedgerService.Reservation second = ledger.reserve(1L, AIServiceType.KAIWA, 1);
+
+        // then
+        assertEquals(3, first.cost());
+        assertEquals(1, second.cost());
+        verify(quotaRepo).reserveRequests(eq(1L), eq(3), eq(true), eq(50), any(), any());
+        verify(userRepo, times(1)).findByIdWithRole(1L);
+        verify(purchaseRepo, times(1)).findFirstByUser_IdAndIsActiveTrue(1L);
+        verify(quotaRepo, never()).save(any());
+    }
+
+    /**
+     * TC-QUOTA-02
+     * Gói trả phí hết quota: UPDATE không trừ được -> 403 kèm tên gói, không tạo dòng quota mới
+     */
+    @Test
+    void reserve_paidPackageExhausted_throwsForbidden() {
+        // given
+        when(userRepo.findByIdWithRole(2L)).thenReturn(Optional.of(user("LEARNER")));
+        when(purchaseRepo.findFirstByUser_IdAndIsActiveTrue(2L)).thenReturn(Optional.of(paidPurchase("Premium", 100)));
+        when(quotaRepo.reserveRequests(eq(2L), eq(3), eq(false), anyInt(), any(), any())).thenReturn(0);
+        when(quotaRepo.existsByUser_Id(2L)).thenReturn(true);
+        when(quotaRepo.findByUser_Id(2L)).thenReturn(Optional.empty());
+
+        // when
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> ledger.reserve(2L, AIServiceType.CONVERSATION, 1));
+
+        // then
+        assertEquals(HttpStatus.FORBIDDEN, ex.getStatusCode());
+        assertTrue(ex.getReason().contains("Premium"));
+        verify(quotaRepo, never()).insertIfAbsent(anyLong(), anyInt(), any());
+    }
+
+    /**
+     * TC-QUOTA-03
+     * User chưa có dòng quota: tạo từ free tier rồi trừ; refund hoàn đúng cost với thời điểm giữ chỗ
+     */
+    @Test
+    void reserve_noQuotaRow_createsFreeTierThenRefundsOnFailure() {
+        // given
+        when(userRepo.findByIdWithRole(3L)).thenReturn(Optional.of(user("LEARNER")));
+        when(purchaseRepo.findFirstByUser_IdAndIsActiveTrue(3L)).thenReturn(Optional.empty());
+        when(quotaRepo.reserveRequests(eq(3L), eq(1), eq(true), anyInt(), any(), any())).thenReturn(0, 1);
+        when(quotaRepo.existsByUser_Id(3L)).thenReturn(false);
+        when(quotaRepo.refundRequests(eq(3L), eq(1), any(), any())).thenReturn(1);
+
+        // when
+        AIQuotaLedgerService.Reservation reservation = ledger.reserve(3L, AIServiceType.KAIWA, 1);
+        ledger.refund(reservation);
+
+        // then
+        verify(quotaRepo).insertIfAbsent(eq(3L), eq(50), any());
+        verify(quotaRepo).refundRequests(eq(3L), eq(1), eq(reservation.reservedAt()), any());
+    }
+
+    /**
+     * TC-QUOTA-04
+     * MODERATOR: không đụng tới ai_quotas, refund là no-op
+     */
+    @Test
+    void reserve_moderator_isUnmetered() {
+        // given
+        when(userRepo.findByIdWithRole(4L)).thenReturn(Optional.of(user("MODERATOR")));
+        when(purchaseRepo.findFirstByUser_IdAndIsActiveTrue(4L)).thenReturn(Optional.empty());
+
+        // when
+        AIQuotaLedgerService.Reservation reservation = ledger.reserve(4L, AIServiceType.CONVERSATION, 1);
+        ledger.refund(reservation);
+
+        // then
+        assertFalse(reservation.isMetered());
+        verifyNoInteractions(quotaRepo);
+    }
+
+    private static User user(String roleName) {
+        Role role = new Role();
+        role.setRoleName(roleName);
+        User user = new User();
+        user.setRole(role);
+        return user;
+    }
+
+    private static AIPackagePurchase paidPurchase(String packageName, Integer totalRequests) {
+        AIPackage aiPackage = new AIPackage();
+        aiPackage.setName(packageName);
+        aiPackage.setTotalRequests(totalRequests);
+        AIPackagePurchase purchase = new AIPackagePurchase();
+        purchase.setAiPackage(aiPackage);
+        purchase.setPaymentStatus(PaymentStatus.PAID);
+        purchase.setIsActive(true);
+        purchase.setExpiresAt(Instant.now().plus(30, ChronoUnit.DAYS));
+        return purchase;
+    }
+}
@@ -0,0 +1,83 @@
+package com.hokori.web.service;
+
+import com.hokori.web.Enum.ModerationTermSeverity;
+import com.hokori.web.entity.ModerationTerm;
+import com.hokori.web.repository.ModerationTermRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContentPreScreenServiceTest {
+
+    @Mock
+    private ModerationTermRepository termRepo;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ContentPreScreenService preScreenService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        preScreenService = new ContentPreScreenService(termRepo, meterRegistry);
+        ReflectionTestUtils.setField(preScreenService, "enabled", true);
+        ReflectionTestUtils.setField(preScreenService, "shortTextChars", 280);
+        when(termRepo.findByDeletedFlagFalseOrderByTermAsc()).thenReturn(List.of(
+                term("lồn", "vi", ModerationTermSeverity.BLOCK),
+                term("shit", "en", ModerationTermSeverity.REVIEW),
+                term("キモい", "ja", ModerationTermSeverity.REVIEW),
+                term("死ね", "ja", ModerationTermSeverity.BLOCK)));
+    }
+
+    /**
+     * TC-PRESCREEN-01
+     * Chữ full-width, katakana/hiragana và vị trí dấu thanh khác nhau vẫn khớp; verdict là mức nặng nhất
+     */
+    @Test
+    void screen_normalizedVariants_matchAndMostSevereVerdictWins() {
+        // when
+        ContentPreScreenService.ScreenResult result = preScreenService.screen("ＳＨＩＴ! きもい、死ねよ");
+
+        // then
+        assertEquals(ContentPreScreenService.Verdict.BLOCK, result.verdict());
+        assertTrue(result.isBlocked());
+        assertEquals(List.of("shit", "キモい", "死ね"), result.terms());
+        assertEquals(1.0, meterRegistry.counter("moderation.prescreen", "result", "block").count());
+        assertEquals(ContentPreScreenService.normalizeForMatching("hoà thuỷ"),
+                ContentPreScreenService.normalizeForMatching("hòa  thủy"));
+    }
+
+    /**
+     * TC-PRESCREEN-02
+     * Từ Latin chỉ khớp nguyên từ ("shitty" không khớp "shit"); không bỏ dấu nên "lớn" không khớp "lồn"
+     */
+    @Test
+    void screen_latinTermInsideWordOrDifferentDiacritics_isClean() {
+        // when
+        ContentPreScreenService.ScreenResult result = preScreenService.screen("Bài này lớn quá, shitty wifi");
+
+        // then
+        assertEquals(ContentPreScreenService.Verdict.CLEAN, result.verdict());
+        assertTrue(result.hits().isEmpty());
+        assertTrue(preScreenService.canSkipAI("Bài này lớn quá"));
+        assertFalse(preScreenService.canSkipAI("あ".repeat(281)));
+    }
+
+    private static ModerationTerm term(String text, String language, ModerationTermSeverity severity) {
+        ModerationTerm term = new ModerationTerm();
+        term.setTerm(text);
+        term.setNormalizedTerm(ContentPreScreenService.normalizeForMatching(text));
+        term.setLanguage(language);
+        term.setSeverity(severity);
+        return term;
+    }
+}
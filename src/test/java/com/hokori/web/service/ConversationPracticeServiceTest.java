@@ -0,0 +1,281 @@
+package com.hokori.web.service;
+
+import com.hokori.web.Enum.AIRequestPriority;
+import com.hokori.web.exception.AIServiceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationPracticeServiceTest {
+
+    @Mock
+    private GeminiService geminiService;
+
+    @Mock
+    private AIService aiService;
+
+    @InjectMocks
+    private ConversationPracticeService conversationPracticeService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(conversationPracticeService, "googleCloudEnabled", true);
+        ReflectionTestUtils.setField(conversationPracticeService, "pipelineThreads", 4);
+        ReflectionTestUtils.setField(conversationPracticeService, "generationTimeoutMs", 5_000L);
+        ReflectionTestUtils.setField(conversationPracticeService, "translationTimeoutMs", 200L);
+        ReflectionTestUtils.setField(conversationPracticeService, "ttsTimeoutMs", 1_000L);
+        ReflectionTestUtils.setField(conversationPracticeService, "feedbackTimeoutMs", 1_000L);
+        ReflectionTestUtils.setField(conversationPracticeService, "learningMaterialsTimeoutMs", 1_000L);
+        ReflectionTestUtils.setField(conversationPracticeService, "sentenceMinChars", 6);
+        conversationPracticeService.initPipelineExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        conversationPracticeService.shutdownPipelineExecutor();
+    }
+
+    /**
+     * TC-CONV-01
+     * TTS lỗi và dịch quá timeout: turn vẫn trả câu hỏi AI, các field phụ dùng fallback
+     */
+    @Test
+    void respondToConversation_slowOrFailingStages_fallBackPerField() {
+        // given
+        when(aiService.speechToText(anyString(), eq("ja-JP"), eq("wav")))
+                .thenReturn(Map.of("transcript", "東京に住んでいます", "confidence", 0.9));
+        when(geminiService.generateConversationResponseAsync(anyString(), anyList()))
+                .thenReturn(CompletableFuture.completedFuture("東京のどこですか？"));
+        when(geminiService.generateContentAsJsonAsync(anyString(), eq(AIRequestPriority.INTERACTIVE)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(aiService.translateText(anyString(), eq("ja"), eq("vi"))).thenAnswer(invocation -> {
+            Thread.sleep(2_000); // vượt translation timeout 200ms
+            return Map.of("translatedText", "chậm");
+        });
+        when(aiService.textToSpeech(anyString(), anyString(), anyString()))
+                .thenThrow(new RuntimeException("TTS unavailable"));
+
+        // when
+        long start = System.nanoTime();
+        Map<String, Object> result = conversationPracticeService.respondToConversation(
+                "conv-1", history("どこに住んでいますか？", "Bạn sống ở đâu?"), "A".repeat(600),
+                null, null, "N5", "daily").join();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // then
+        assertEquals("東京のどこですか？", result.get("aiNextQuestion"));
+        assertEquals("", result.get("aiNextQuestionVi"));
+        assertEquals("", result.get("userTranscriptVi"));
+        assertNull(result.get("audioUrl"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> feedback = (Map<String, Object>) result.get("turnFeedback");
+        assertEquals(true, feedback.get("isCorrect"));
+        assertTrue(elapsedMs < 1_500, "translations must time out independently, took " + elapsedMs + " ms");
+    }
+
+    /**
+     * TC-CONV-02
+     * Feedback đánh giá câu trả lời cho câu hỏi trước (không phải câu hỏi AI vừa tạo)
+     */
+    @Test
+    void respondToConversation_turnFeedbackUsesAnsweredQuestion() {
+        // given
+        when(aiService.speechToText(anyString(), anyString(), anyString()))
+                .thenReturn(Map.of("transcript", "りんごが好きです"));
+        when(geminiService.generateConversationResponseAsync(anyString(), anyList()))
+                .thenReturn(CompletableFuture.completedFuture("どうしてですか？"));
+        when(aiService.translateText(anyString(), eq("ja"), eq("vi")))
+                .thenReturn(Map.of("translatedText", "vi"));
+        when(aiService.textToSpeech(anyString(), anyString(), anyString()))
+                .thenReturn(Map.of("audioUrl", "https://cdn.example.com/a.mp3", "audioFormat", "mp3"));
+        when(geminiService.generateContentAsJsonAsync(anyString(), eq(AIRequestPriority.INTERACTIVE)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        Map<String, Object> result = conversationPracticeService.respondToConversation(
+                "conv-2", history("何が好きですか？", "Bạn thích gì?"), "A".repeat(600),
+                "wav", "ja-JP", "N5", "daily").join();
+
+        // then
+        verify(geminiService).generateContentAsJsonAsync(contains("何が好きですか？"), eq(AIRequestPriority.INTERACTIVE));
+        assertEquals("https://cdn.example.com/a.mp3", result.get("audioUrl"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, String>> updated = (List<Map<String, String>>) result.get("conversationHistory");
+        assertEquals(3, updated.size());
+        assertEquals("user", updated.get(1).get("role"));
+        assertEquals("どうしてですか？", updated.get(2).get("text"));
+    }
+
+    /**
+     * TC-CONV-03
+     * Streaming: token được chuyển tiếp ngay, câu hoàn chỉnh có audio theo đúng thứ tự, "done" có audioSegments
+     */
+    @Test
+    void streamConversationTurn_emitsTokensAndOrderedSentenceAudio() {
+        // given
+        when(aiService.speechToText(anyString(), anyString(), anyString()))
+                .thenReturn(Map.of("transcript", "はい、元気です"));
+        when(aiService.translateText(anyString(), eq("ja"), eq("vi")))
+                .thenReturn(Map.of("translatedText", "vi"));
+        when(geminiService.generateContentAsJsonAsync(anyString(), eq(AIRequestPriority.INTERACTIVE)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(aiService.textToSpeech(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            String text = invocation.getArgument(0);
+            if (text.startsWith("それは")) {
+                Thread.sleep(100); // câu đầu xong TTS sau câu thứ hai
+            }
+            return Map.of("audioUrl", "url:" + text, "audioFormat", "mp3");
+        });
+        when(geminiService.streamConversationResponse(anyString(), anyList(), any())).thenAnswer(invocation -> {
+            java.util.function.Consumer<String> onText = invocation.getArgument(2);
+            onText.accept("それはよかった");
+            onText.accept("ですね。今日は何を");
+            onText.accept("しましたか？");
+            return CompletableFuture.completedFuture("それはよかったですね。今日は何をしましたか？");
+        });
+        List<String> events = java.util.Collections.synchronizedList(new ArrayList<>());
+
+        // when
+        Map<String, Object> result = conversationPracticeService.streamConversationTurn(
+                "conv-3", history("お元気ですか？", "Bạn khỏe không?"), "A".repeat(600),
+                "wav", "ja-JP", "N5", "daily",
+                (name, data) -> {
+                    if ("sentence".equals(name)) {
+                        events.add("sentence:" + ((Map<?, ?>) data).get("index"));
+                    } else {
+                        events.add(name);
+                    }
+                }).join();
+
+        // then
+        assertEquals(List.of("transcript", "token", "token", "token", "sentence:0", "sentence:1"), events);
+        assertEquals("それはよかったですね。今日は何をしましたか？", result.get("aiNextQuestion"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> segments = (List<Map<String, Object>>) result.get("audioSegments");
+        assertEquals(2, segments.size());
+        assertEquals("url:それはよかったですね。", segments.get(0).get("audioUrl"));
+        assertEquals("今日は何をしましたか？", segments.get(1).get("text"));
+    }
+
+    /**
+     * TC-CONV-04
+     * Stage quá timeout bị interrupt (không chạy tiếp sau khi đã dùng fallback)
+     */
+    @Test
+    void respondToConversation_stageTimeout_interruptsWork() throws Exception {
+        // given
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(aiService.speechToText(anyString(), anyString(), anyString()))
+                .thenReturn(Map.of("transcript", "東京に住んでいます"));
+        when(geminiService.generateConversationResponseAsync(anyString(), anyList()))
+                .thenReturn(CompletableFuture.completedFuture("東京のどこですか？"));
+        lenient().when(geminiService.generateContentAsJsonAsync(anyString(), eq(AIRequestPriority.INTERACTIVE)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(aiService.translateText(anyString(), eq("ja"), eq("vi"))).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return Map.of("translatedText", "chậm");
+        });
+        lenient().when(aiService.textToSpeech(anyString(), anyString(), anyString())).thenReturn(new HashMap<>());
+
+        // when
+        Map<String, Object> result = conversationPracticeService.respondToConversation(
+                "conv-4", history("どこに住んでいますか？", "Bạn sống ở đâu?"), "A".repeat(600),
+                "wav", "ja-JP", "N5", "daily").join();
+
+        // then
+        assertEquals("", result.get("userTranscriptVi"));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "timed-out translation must be interrupted");
+    }
+
+    /**
+     * TC-CONV-05
+     * Gemini quá generation timeout: lỗi GENERATION_TIMEOUT và future của Gemini bị huỷ (bỏ HTTP / hàng đợi governor)
+     */
+    @Test
+    void respondToConversation_generationTimeout_cancelsGeminiCall() {
+        // given
+        ReflectionTestUtils.setField(conversationPracticeService, "generationTimeoutMs", 200L);
+        CompletableFuture<String> generation = new CompletableFuture<>();
+        when(aiService.speechToText(anyString(), anyString(), anyString()))
+                .thenReturn(Map.of("transcript", "東京に住んでいます"));
+        when(geminiService.generateConversationResponseAsync(anyString(), anyList())).thenReturn(generation);
+        lenient().when(geminiService.generateContentAsJsonAsync(anyString(), eq(AIRequestPriority.INTERACTIVE)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        lenient().when(aiService.translateText(anyString(), eq("ja"), eq("vi")))
+                .thenReturn(Map.of("translatedText", "vi"));
+
+        // when
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> conversationPracticeService.respondToConversation(
+                        "conv-5", history("どこに住んでいますか？", "Bạn sống ở đâu?"), "A".repeat(600),
+                        "wav", "ja-JP", "N5", "daily").join());
+
+        // then
+        AIServiceException ex = assertInstanceOf(AIServiceException.class, error.getCause());
+        assertEquals("GENERATION_TIMEOUT", ex.getErrorCode());
+        assertTrue(generation.isCancelled());
+    }
+
+    /**
+     * TC-CONV-06
+     * Bắt đầu hội thoại không giữ thread của caller: future chỉ xong khi Gemini trả câu hỏi đầu tiên
+     */
+    @Test
+    void startConversation_returnsBeforeGeminiAnswers() throws Exception {
+        // given
+        CompletableFuture<String> generation = new CompletableFuture<>();
+        when(geminiService.generateConversationResponseAsync(anyString(), anyList())).thenReturn(generation);
+        lenient().when(geminiService.generateContentAsJsonAsync(anyString(), any(AIRequestPriority.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(aiService.translateText(anyString(), eq("ja"), eq("vi")))
+                .thenReturn(Map.of("translatedText", "Xin mời vào"));
+        when(aiService.textToSpeech(anyString(), anyString(), anyString()))
+                .thenReturn(Map.of("audioUrl", "https://cdn.example.com/q1.mp3", "audioFormat", "mp3"));
+
+        // when
+        CompletableFuture<Map<String, Object>> started = conversationPracticeService.startConversation("N5", "restaurant");
+
+        // then
+        assertFalse(started.isDone());
+        generation.complete("いらっしゃいませ。何名様ですか？");
+        Map<String, Object> result = started.get(5, TimeUnit.SECONDS);
+        assertEquals("いらっしゃいませ。何名様ですか？", result.get("aiQuestion"));
+        assertEquals("Xin mời vào", result.get("aiQuestionVi"));
+        assertEquals("https://cdn.example.com/q1.mp3", result.get("audioUrl"));
+        assertNotNull(result.get("vocabularyPreview"));
+    }
+
+    private static List<Map<String, String>> history(String aiText, String aiTextVi) {
+        Map<String, String> ai = new HashMap<>();
+        ai.put("role", "ai");
+        ai.put("text", aiText);
+        ai.put("textVi", aiTextVi);
+        List<Map<String, String>> history = new ArrayList<>();
+        history.add(ai);
+        return history;
+    }
+}
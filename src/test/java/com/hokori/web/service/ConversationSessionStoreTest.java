@@ -0,0 +1,101 @@
+package com.hokori.web.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversationSessionStoreTest {
+
+    private ConversationSessionStore store;
+
+    @BeforeEach
+    void setUp() {
+        // Ngân sách 20 token, luôn giữ nguyên văn 2 message cuối
+        store = new ConversationSessionStore(60, 100, 20, 2, new SimpleMeterRegistry());
+    }
+
+    /**
+     * TC-SESSION-01
+     * Lịch sử vượt ngân sách: các lượt cũ được gộp vào tóm tắt, prompt chỉ còn tóm tắt + lượt gần nhất
+     */
+    @Test
+    void beginSummary_historyOverBudget_foldsOldTurnsIntoSummary() {
+        // given
+        ConversationSessionStore.ConversationSession session = store.create("conv-1", "user-a", "N5", "daily", "daily");
+        session.append(message("ai", "お名前は何ですか？"));         // 9 token
+        session.append(message("user", "田中です。"));               // 5 token
+        session.append(message("ai", "どこに住んでいますか？"));      // 11 token
+        session.append(message("user", "東京に住んでいます。"));      // 10 token
+
+        // when
+        Optional<ConversationSessionStore.SummaryRequest> request = session.beginSummary();
+
+        // then
+        assertTrue(request.isPresent());
+        assertEquals(2, request.get().foldUpTo());
+        assertEquals(2, request.get().messages().size());
+        assertTrue(session.beginSummary().isEmpty()); // chỉ 1 lần tóm tắt chạy tại 1 thời điểm
+
+        // Trước khi tóm tắt xong, prompt vẫn có đủ các lượt chưa tóm tắt
+        assertEquals(4, session.promptContext().recentMessages().size());
+
+        session.completeSummary(request.get(), "田中さんと自己紹介をした。");
+        ConversationSessionStore.PromptContext prompt = session.promptContext();
+        assertEquals("田中さんと自己紹介をした。", prompt.summary());
+        assertEquals(List.of("どこに住んでいますか？", "東京に住んでいます。"),
+                prompt.recentMessages().stream().map(m -> m.get("text")).toList());
+        assertEquals(4, session.history().size()); // lịch sử đầy đủ vẫn giữ cho response / đánh giá
+    }
+
+    /**
+     * TC-SESSION-02
+     * Tóm tắt lỗi: không gộp gì, lần sau thử lại
+     */
+    @Test
+    void completeSummary_failed_keepsMessagesAndRetries() {
+        // given
+        ConversationSessionStore.ConversationSession session = store.create("conv-1", "user-a", "N5", "daily", "daily");
+        session.append(message("ai", "週末は何をしましたか？"));
+        session.append(message("user", "友達と映画を見に行きました。"));
+        session.append(message("ai", "どんな映画ですか？"));
+        ConversationSessionStore.SummaryRequest request = session.beginSummary().orElseThrow();
+
+        // when
+        session.completeSummary(request, null);
+
+        // then
+        assertNull(session.promptContext().summary());
+        assertEquals(3, session.promptContext().recentMessages().size());
+        assertTrue(session.beginSummary().isPresent());
+    }
+
+    /**
+     * TC-SESSION-03
+     * Phiên của user khác coi như không tồn tại và không bị ghi đè khi dựng lại từ lịch sử client
+     */
+    @Test
+    void findOrRestore_otherOwner_doesNotSeeOrReplaceSession() {
+        // given
+        store.create("conv-1", "user-a", "N5", "daily", "daily").append(message("ai", "こんにちは"));
+
+        // when
+        Optional<ConversationSessionStore.ConversationSession> other = store.findOrRestore("conv-1", "user-b",
+                "N4", "restaurant", "restaurant", List.of(message("ai", "いらっしゃいませ")));
+
+        // then
+        assertTrue(other.isEmpty());
+        ConversationSessionStore.ConversationSession owned = store.find("conv-1", "user-a").orElseThrow();
+        assertEquals("こんにちは", owned.history().get(0).get("text"));
+        assertTrue(store.findOrRestore("conv-2", "user-a", "N5", "daily", "daily", null).isEmpty());
+    }
+
+    private static Map<String, String> message(String role, String text) {
+        return Map.of("role", role, "text", text);
+    }
+}
@@ -0,0 +1,183 @@
+package com.hokori.web.service;
+
+import com.hokori.web.Enum.ContentSignatureScope;
+import com.hokori.web.dto.moderator.DuplicateMatchRes;
+import com.hokori.web.entity.Chapter;
+import com.hokori.web.entity.ContentLshBand;
+import com.hokori.web.entity.ContentSignature;
+import com.hokori.web.entity.Course;
+import com.hokori.web.entity.Lesson;
+import com.hokori.web.repository.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseDuplicateDetectionServiceTest {
+
+    private static final String GREETINGS = "今日は日本語の挨拶を勉強します。おはようございます、こんにちは、こんばんは。"
+            + "朝はおはようございます、昼はこんにちは、夜はこんばんはと言います。"
+            + "Khi gặp thầy cô, hãy cúi chào và nói lễ phép.";
+    private static final String NUMBERS = "Trong bài này chúng ta học số đếm: いち、に、さん、よん、ご、ろく、なな、はち。"
+            + "Giá tiền trong cửa hàng: 百円、千円、一万円。Hãy luyện đọc số điện thoại của bạn bè.";
+    private static final String FAMILY = "家族の言い方を勉強しましょう。父、母、兄、姉、弟、妹。"
+            + "Khi nói về gia đình người khác dùng お父さん、お母さん、お兄さん。";
+
+    @Mock private CourseRepository courseRepo;
+    @Mock private ChapterRepository chapterRepo;
+    @Mock private LessonRepository lessonRepo;
+    @Mock private ContentSignatureRepository signatureRepo;
+    @Mock private ContentLshBandRepository bandRepo;
+    @Mock private CourseModerationAIService moderationAIService;
+
+    private CourseDuplicateDetectionService service;
+
+    // bảng content_signature / content_lsh_band giả lập
+    private final Map<Long, ContentSignature> signatures = new HashMap<>();
+    private final List<ContentLshBand> bands = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        service = new CourseDuplicateDetectionService(courseRepo, chapterRepo, lessonRepo, signatureRepo, bandRepo,
+                moderationAIService, new SimpleMeterRegistry(), null);
+        ReflectionTestUtils.setField(service, "self", service);
+        ReflectionTestUtils.setField(service, "similarityThreshold", 0.7);
+        ReflectionTestUtils.setField(service, "minShingles", 20);
+        ReflectionTestUtils.setField(service, "maxResults", 50);
+
+        when(signatureRepo.save(any(ContentSignature.class))).thenAnswer(invocation -> {
+            ContentSignature signature = invocation.getArgument(0);
+            signature.setId((long) signatures.size() + 1);
+            signatures.put(signature.getId(), signature);
+            return signature;
+        });
+        when(bandRepo.saveAll(anyList())).thenAnswer(invocation -> {
+            bands.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(signatureRepo.findByCourseId(anyLong())).thenAnswer(invocation -> signatures.values().stream()
+                .filter(signature -> signature.getCourseId().equals(invocation.getArgument(0)))
+                .toList());
+    }
+
+    /**
+     * TC-DUP-01
+     * Khóa học B chép lại 1 lesson của khóa học A (sửa nhẹ dấu câu): tìm ra cặp lesson qua LSH;
+     * chỉ các signature chung band key được tải để so, lesson khác không bị báo
+     */
+    @Test
+    void findDuplicates_copiedLesson_foundThroughSharedBands() {
+        // given
+        givenCourse(1L, "Tiếng Nhật giao tiếp", Map.of(lesson(11L, "Chào hỏi"), GREETINGS, lesson(12L, "Số đếm"), NUMBERS));
+        givenCourse(2L, "Nhật ngữ cấp tốc", Map.of(lesson(21L, "Bài 1: Chào hỏi"),
+                GREETINGS.replace("。", "!").replace("、", ", "), lesson(22L, "Gia đình"), FAMILY));
+        service.indexCourse(1L);
+        service.indexCourse(2L);
+        when(bandRepo.findCandidateSignatureIds(anyCollection(), eq(2L))).thenAnswer(invocation -> {
+            Collection<Long> keys = invocation.getArgument(0);
+            return bands.stream()
+                    .filter(band -> !band.getCourseId().equals(2L) && keys.contains(band.getBandKey()))
+                    .map(ContentLshBand::getSignatureId)
+                    .distinct()
+                    .toList();
+        });
+        when(signatureRepo.findByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(signatures::get).toList();
+        });
+        when(courseRepo.findAllById(anyIterable())).thenReturn(List.of(course(1L, "Tiếng Nhật giao tiếp")));
+        when(lessonRepo.findAllById(anyIterable())).thenReturn(List.of(
+                lesson(11L, "Chào hỏi"), lesson(21L, "Bài 1: Chào hỏi")));
+
+        // when
+        List<DuplicateMatchRes> duplicates = service.findDuplicates(2L);
+
+        // then
+        DuplicateMatchRes lessonMatch = duplicates.stream()
+                .filter(match -> match.scope() == ContentSignatureScope.LESSON)
+                .findFirst().orElseThrow();
+        assertEquals(21L, lessonMatch.lessonId());
+        assertEquals(1L, lessonMatch.matchedCourseId());
+        assertEquals(11L, lessonMatch.matchedLessonId());
+        assertEquals("Chào hỏi", lessonMatch.matchedLessonTitle());
+        assertTrue(lessonMatch.similarity() >= 0.7, String.valueOf(lessonMatch.similarity()));
+        assertTrue(duplicates.stream().noneMatch(match -> Long.valueOf(22L).equals(match.lessonId())));
+        verify(signatureRepo, times(2)).deleteByCourseId(anyLong());
+    }
+
+    /**
+     * TC-DUP-02
+     * Backfill: khóa học bị hoãn (pool đầy) trước, rồi khóa học chưa có signature theo id tăng dần;
+     * lượt sau tiếp tục từ cursor, hết khóa học thì dừng hẳn
+     */
+    @Test
+    void backfillBatch_deferredFirstThenUnindexedCoursesByCursor() {
+        // given
+        ReflectionTestUtils.setField(service, "backfillBatchSize", 2);
+        @SuppressWarnings("unchecked")
+        Set<Long> deferred = (Set<Long>) ReflectionTestUtils.getField(service, "deferredCourseIds");
+        deferred.add(3L);
+        givenCourse(1L, "Tiếng Nhật giao tiếp", Map.of(lesson(11L, "Chào hỏi"), GREETINGS));
+        givenCourse(2L, "Số đếm", Map.of(lesson(21L, "Số đếm"), NUMBERS));
+        givenCourse(3L, "Gia đình", Map.of(lesson(31L, "Gia đình"), FAMILY));
+        when(courseRepo.findIdsWithoutContentSignature(anyCollection(), eq(0L), any())).thenReturn(List.of(1L));
+        when(courseRepo.findIdsWithoutContentSignature(anyCollection(), eq(1L), any())).thenReturn(List.of(2L));
+        when(courseRepo.findIdsWithoutContentSignature(anyCollection(), eq(2L), any())).thenReturn(List.of());
+
+        // when
+        int first = service.backfillBatch();
+        int second = service.backfillBatch();
+        int third = service.backfillBatch();
+
+        // then
+        assertEquals(2, first);
+        assertEquals(1, second);
+        assertEquals(0, third);
+        assertTrue(deferred.isEmpty());
+        assertEquals(Set.of(1L, 2L, 3L), signatures.values().stream()
+                .map(ContentSignature::getCourseId).collect(Collectors.toSet()));
+        assertEquals(true, ReflectionTestUtils.getField(service, "backfillFinished"));
+    }
+
+    private void givenCourse(Long courseId, String title, Map<Lesson, String> lessonTexts) {
+        when(courseRepo.findByIdForUpdate(courseId)).thenReturn(Optional.of(course(courseId, title)));
+        lenient().when(courseRepo.findByIdAndDeletedFlagFalse(courseId)).thenReturn(Optional.of(course(courseId, title)));
+        Chapter chapter = new Chapter();
+        chapter.setId(courseId * 100);
+        when(chapterRepo.findByCourse_IdOrderByOrderIndexAsc(courseId)).thenReturn(List.of(chapter));
+        when(lessonRepo.findByChapter_IdOrderByOrderIndexAsc(courseId * 100)).thenReturn(new ArrayList<>(lessonTexts.keySet()));
+        lessonTexts.forEach((lesson, text) ->
+                when(moderationAIService.extractLessonText(lesson)).thenReturn(lesson.getTitle() + " " + text));
+    }
+
+    private static Course course(Long id, String title) {
+        Course course = new Course();
+        course.setId(id);
+        course.setTitle(title);
+        return course;
+    }
+
+    private static Lesson lesson(Long id, String title) {
+        Lesson lesson = new Lesson();
+        lesson.setId(id);
+        lesson.setTitle(title);
+        return lesson;
+    }
+}
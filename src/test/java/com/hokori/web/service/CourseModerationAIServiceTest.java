@@ -0,0 +1,272 @@
+package com.hokori.web.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hokori.web.Enum.ModerationTermSeverity;
+import com.hokori.web.dto.moderator.CourseAICheckResponse;
+import com.hokori.web.entity.Chapter;
+import com.hokori.web.entity.CourseModerationResult;
+import com.hokori.web.entity.Lesson;
+import com.hokori.web.entity.ModerationTerm;
+import com.hokori.web.repository.*;
+import com.hokori.web.service.provider.SentimentProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseModerationAIServiceTest {
+
+    private static final long COURSE_ID = 7L;
+
+    @Mock private CourseRepository courseRepo;
+    @Mock private ChapterRepository chapterRepo;
+    @Mock private LessonRepository lessonRepo;
+    @Mock private SectionRepository sectionRepo;
+    @Mock private SectionsContentRepository contentRepo;
+    @Mock private QuizRepository quizRepo;
+    @Mock private QuestionRepository questionRepo;
+    @Mock private OptionRepository optionRepo;
+    @Mock private FlashcardSetRepository flashcardSetRepo;
+    @Mock private FlashcardRepository flashcardRepo;
+    @Mock private CourseModerationResultRepository moderationResultRepo;
+    @Mock private ModerationTermRepository termRepo;
+    @Mock private SentimentProvider sentimentProvider;
+    @Mock private GeminiService geminiService;
+
+    private CourseModerationAIService service;
+    private ContentPreScreenService preScreenService;
+
+    // bảng course_moderation_result giả lập: scope_key -> row
+    private final Map<String, CourseModerationResult> storedRows = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        preScreenService = new ContentPreScreenService(termRepo, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(preScreenService, "enabled", true);
+        // Mặc định không bỏ qua AI để các test đếm được lượt gọi
+        ReflectionTestUtils.setField(preScreenService, "shortTextChars", 0);
+        service = new CourseModerationAIService(courseRepo, chapterRepo, lessonRepo, sectionRepo, contentRepo,
+                quizRepo, questionRepo, optionRepo, flashcardSetRepo, flashcardRepo,
+                moderationResultRepo, new SimpleMeterRegistry(), preScreenService);
+        ReflectionTestUtils.setField(service, "sentimentProvider", sentimentProvider);
+        ReflectionTestUtils.setField(service, "googleCloudEnabled", true);
+        ReflectionTestUtils.setField(service, "enableGemini", false);
+        ReflectionTestUtils.setField(service, "maxTextLength", 100_000);
+        ReflectionTestUtils.setField(service, "chunkMaxTokens", 2_000);
+        ReflectionTestUtils.setField(service, "moderationThreads", 2);
+        ReflectionTestUtils.setField(service, "submitWaitMs", 5_000L);
+        ReflectionTestUtils.setField(service, "callTimeoutMs", 5_000L);
+        service.initModerationExecutor();
+
+        Object[] metadata = {COURSE_ID, "Tiếng Nhật N5", "Nhập môn", "Khóa học cơ bản", "N5",
+                null, null, null, null, "PENDING_APPROVAL"};
+        lenient().when(courseRepo.findCourseMetadataById(COURSE_ID)).thenReturn(Optional.of(metadata));
+        lenient().when(sentimentProvider.analyzeSentiment(anyString()))
+                .thenReturn(new SentimentProvider.SentimentResult(0.4f, 0.5f, List.of()));
+        lenient().when(moderationResultRepo.findByCourseId(COURSE_ID))
+                .thenAnswer(invocation -> new ArrayList<>(storedRows.values()));
+        lenient().doAnswer(invocation -> {
+            storedRows.put(invocation.getArgument(1), CourseModerationResult.builder()
+                    .courseId(invocation.getArgument(0))
+                    .scopeKey(invocation.getArgument(1))
+                    .contentHash(invocation.getArgument(2))
+                    .modelVersion(invocation.getArgument(3))
+                    .resultJson(invocation.getArgument(4))
+                    .checkedAt(invocation.getArgument(5))
+                    .build());
+            return null;
+        }).when(moderationResultRepo).upsert(anyLong(), anyString(), anyString(), anyString(), anyString(), any(Instant.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdownModerationExecutor();
+    }
+
+    /**
+     * TC-MOD-01
+     * Kiểm tra lại khóa học không đổi: dùng lại toàn bộ kết quả đã lưu, không gọi Natural Language API
+     */
+    @Test
+    void checkCourseContent_unchangedCourse_reusesStoredVerdicts() {
+        // given
+        when(chapterRepo.findByCourse_IdOrderByOrderIndexAsc(COURSE_ID))
+                .thenReturn(List.of(chapter(1L, "Chào hỏi"), chapter(2L, "Số đếm")));
+        CourseAICheckResponse first = service.checkCourseContent(COURSE_ID);
+        clearInvocations(sentimentProvider);
+
+        // when
+        CourseAICheckResponse second = service.checkCourseContent(COURSE_ID);
+
+        // then
+        assertEquals(3, first.getPartsChecked());
+        assertEquals(0, first.getPartsReused());
+        assertEquals(0, second.getPartsChecked());
+        assertEquals(3, second.getPartsReused());
+        verifyNoInteractions(sentimentProvider);
+        assertEquals(first.getSafetyCheck().getScore(), second.getSafetyCheck().getScore());
+        assertEquals(first.getRecommendations(), second.getRecommendations());
+        assertTrue(storedRows.keySet().containsAll(List.of("header", "chapter:1", "chapter:2", "course")));
+    }
+
+    /**
+     * TC-MOD-02
+     * Sửa 1 chapter: chỉ chapter đó được gửi lại; chapter bị xoá thì kết quả cũ của nó bị dọn
+     */
+    @Test
+    void checkCourseContent_oneChapterEdited_onlyThatChapterRechecked() {
+        // given
+        when(chapterRepo.findByCourse_IdOrderByOrderIndexAsc(COURSE_ID))
+                .thenReturn(List.of(chapter(1L, "Chào hỏi"), chapter(2L, "Số đếm"), chapter(3L, "Gia đình")))
+                .thenReturn(List.of(chapter(1L, "Chào hỏi"), chapter(2L, "Số đếm và giờ")));
+        service.checkCourseContent(COURSE_ID);
+        clearInvocations(sentimentProvider);
+
+        // when
+        CourseAICheckResponse result = service.checkCourseContent(COURSE_ID);
+
+        // then
+        ArgumentCaptor<String> sent = ArgumentCaptor.forClass(String.class);
+        verify(sentimentProvider, times(1)).analyzeSentiment(sent.capture());
+        assertTrue(sent.getValue().contains("Số đếm và giờ"));
+        assertEquals(1, result.getPartsChecked());
+        assertEquals(2, result.getPartsReused());
+        verify(moderationResultRepo).deleteStale(eq(COURSE_ID), argThat(scopes ->
+                scopes.contains("chapter:2") && !scopes.contains("chapter:3")));
+    }
+
+    /**
+     * TC-MOD-03
+     * Chia chunk theo lesson: gộp lesson nhỏ tới ngân sách token; lesson quá dài bị cắt ở cuối câu
+     */
+    @Test
+    void splitIntoChunks_packsLessonsAndSplitsOversizedLesson() {
+        // given
+        String longLesson = "今日は学校に行きました。".repeat(30); // 360 ký tự CJK ~ 360 token
+        List<CourseModerationAIService.TextSegment> segments = List.of(
+                new CourseModerationAIService.TextSegment("Lesson 1: A", "あいうえお"),
+                new CourseModerationAIService.TextSegment("Lesson 2: B", "かきくけこ"),
+                new CourseModerationAIService.TextSegment("Lesson 3: C", longLesson));
+
+        // when
+        List<CourseModerationAIService.ModerationChunk> chunks = CourseModerationAIService.splitIntoChunks(segments, 150);
+
+        // then
+        assertEquals("Lesson 1: A → Lesson 2: B", chunks.get(0).location());
+        assertTrue(chunks.get(0).text().contains("[Lesson 2: B]\nかきくけこ"));
+        assertEquals(4, chunks.size());
+        assertEquals("Lesson 3: C (1/3)", chunks.get(1).location());
+        for (CourseModerationAIService.ModerationChunk chunk : chunks.subList(1, 4)) {
+            assertTrue(chunk.text().endsWith("。"), chunk.text());
+        }
+        String rejoined = String.join("", chunks.subList(1, 4).stream()
+                .map(chunk -> chunk.text().substring(chunk.text().indexOf('\n') + 1)).toList());
+        assertEquals(longLesson, rejoined);
+    }
+
+    /**
+     * TC-MOD-04
+     * Chapter dài: mỗi chunk gửi Gemini riêng (song song); lỗi được gộp với vị trí "Chapter - Lesson",
+     * an toàn lấy chunk kém nhất kèm vị trí
+     */
+    @Test
+    void checkCourseContent_largeChapter_checksChunksAndMergesLocatedFindings() throws Exception {
+        // given
+        ReflectionTestUtils.setField(service, "enableGemini", true);
+        ReflectionTestUtils.setField(service, "geminiService", geminiService);
+        ReflectionTestUtils.setField(service, "chunkMaxTokens", 60);
+        when(chapterRepo.findByCourse_IdOrderByOrderIndexAsc(COURSE_ID)).thenReturn(List.of(chapter(1L, "Chào hỏi")));
+        when(lessonRepo.findByChapter_IdOrderByOrderIndexAsc(1L))
+                .thenReturn(List.of(lesson(11L, "おはよう" + "あ".repeat(50)), lesson(12L, "こんばんは" + "い".repeat(50))));
+        when(sentimentProvider.analyzeSentiment(argThat((String text) -> text != null && text.contains("[Lesson 2"))))
+                .thenReturn(new SentimentProvider.SentimentResult(-0.9f, 3f, List.of()));
+        ObjectMapper mapper = new ObjectMapper();
+        when(geminiService.generateContentAsJsonAsync(anyString(), any())).thenAnswer(invocation -> {
+            String prompt = invocation.getArgument(0);
+            String json = prompt.contains("[Lesson 2")
+                    ? "{\"score\": 0.5, \"japaneseErrors\": [{\"text\": \"こんばんわ\", \"error\": \"chính tả\", \"location\": \"Lesson 2: こんばんは\"}], \"summary\": \"Có lỗi\"}"
+                    : "{\"score\": 1.0, \"japaneseErrors\": [], \"summary\": \"Tốt\"}";
+            return CompletableFuture.completedFuture(mapper.readTree(json));
+        });
+
+        // when
+        CourseAICheckResponse result = service.checkCourseContent(COURSE_ID);
+
+        // then
+        // header + 2 chunk của chapter (intro + lesson 1 gộp, lesson 2 riêng); ngoài ra 3 kiểm tra toàn khoá
+        verify(geminiService, times(3)).generateContentAsJsonAsync(
+                startsWith("Bạn là chuyên gia kiểm tra độ chính xác ngôn ngữ"), any());
+        verify(geminiService, times(6)).generateContentAsJsonAsync(anyString(), any());
+        CourseAICheckResponse.LanguageAccuracy accuracy = result.getLanguageAccuracy();
+        assertEquals(1, accuracy.getJapaneseErrors().size());
+        assertEquals("Chapter 1: Chào hỏi - Lesson 2: こんばんは", accuracy.getJapaneseErrors().get(0).getLocation());
+        assertTrue(accuracy.getScore() > 0.5 && accuracy.getScore() < 1.0);
+        assertTrue(result.getSafetyCheck().getHasIssues());
+        assertTrue(result.getSafetyCheck().getSummary().contains("Chapter 1: Chào hỏi - Lesson 2"),
+                result.getSafetyCheck().getSummary());
+    }
+
+    /**
+     * TC-MOD-05
+     * Lọc từ cục bộ: chapter chứa từ BLOCK bị hạ an toàn xuống UNSAFE kèm vị trí; chapter sạch và ngắn
+     * không gửi Natural Language API
+     */
+    @Test
+    void checkCourseContent_blockedTerm_capsSafetyAndCleanShortChaptersSkipAI() {
+        // given
+        ReflectionTestUtils.setField(preScreenService, "shortTextChars", 280);
+        ModerationTerm term = new ModerationTerm();
+        term.setTerm("死ね");
+        term.setNormalizedTerm("死ね");
+        term.setLanguage("ja");
+        term.setSeverity(ModerationTermSeverity.BLOCK);
+        when(termRepo.findByDeletedFlagFalseOrderByTermAsc()).thenReturn(List.of(term));
+        when(chapterRepo.findByCourse_IdOrderByOrderIndexAsc(COURSE_ID))
+                .thenReturn(List.of(chapter(1L, "Chào hỏi"), chapter(2L, "Số đếm")));
+        when(lessonRepo.findByChapter_IdOrderByOrderIndexAsc(2L)).thenReturn(List.of(lesson(21L, "お前なんか死ねよ")));
+
+        // when
+        CourseAICheckResponse result = service.checkCourseContent(COURSE_ID);
+
+        // then
+        ArgumentCaptor<String> sent = ArgumentCaptor.forClass(String.class);
+        verify(sentimentProvider, times(1)).analyzeSentiment(sent.capture());
+        assertTrue(sent.getValue().contains("死ね"));
+        CourseAICheckResponse.SafetyCheck safety = result.getSafetyCheck();
+        assertEquals("UNSAFE", safety.getStatus());
+        assertEquals(List.of("死ね (Chapter 2: Số đếm - Lesson 1: お前なんか死ねよ)"), safety.getFlaggedTerms());
+        assertTrue(result.getWarnings().stream().anyMatch(warning -> warning.contains("死ね")));
+    }
+
+    private static Lesson lesson(Long id, String title) {
+        Lesson lesson = new Lesson();
+        lesson.setId(id);
+        lesson.setTitle(title);
+        return lesson;
+    }
+
+    private static Chapter chapter(Long id, String title) {
+        Chapter chapter = new Chapter();
+        chapter.setId(id);
+        chapter.setTitle(title);
+        return chapter;
+    }
+}
@@ -0,0 +1,116 @@
+package com.hokori.web.service;
+
+import com.hokori.web.Enum.AIRequestPriority;
+import com.hokori.web.exception.GeminiApiException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeminiRateGovernorTest {
+
+    private GeminiRateGovernor governor;
+
+    @AfterEach
+    void tearDown() {
+        if (governor != null) {
+            governor.shutdown();
+        }
+    }
+
+    /**
+     * TC-GEMINI-GOV-01
+     * Trong burst cấp ngay, hết token thì xếp hàng, hàng đầy thì fail ngay với thời gian chờ ước tính
+     */
+    @Test
+    void acquire_beyondBurstAndQueue_failsFastWithEstimatedWait() {
+        // given: 1 request/phút, burst 2, hàng đợi 1 chỗ
+        governor = new GeminiRateGovernor(1, 2, 1, 600, new SimpleMeterRegistry());
+
+        // when
+        CompletableFuture<Void> first = governor.acquire("a", AIRequestPriority.INTERACTIVE);
+        CompletableFuture<Void> second = governor.acquire("b", AIRequestPriority.INTERACTIVE);
+        CompletableFuture<Void> queued = governor.acquire("a", AIRequestPriority.STANDARD);
+        CompletableFuture<Void> rejected = governor.acquire("c", AIRequestPriority.BACKGROUND);
+
+        // then
+        assertTrue(first.isDone() && !first.isCompletedExceptionally());
+        assertTrue(second.isDone() && !second.isCompletedExceptionally());
+        assertFalse(queued.isDone());
+        assertEquals(1, governor.queueSize());
+
+        ExecutionException ex = assertThrows(ExecutionException.class, rejected::get);
+        GeminiApiException cause = assertInstanceOf(GeminiApiException.class, ex.getCause());
+        assertTrue(cause.isRateLimited());
+        assertTrue(cause.getRetryAfter().compareTo(Duration.ofSeconds(60)) >= 0); // phải chờ ít nhất 1 token mới
+    }
+
+    /**
+     * TC-GEMINI-GOV-02
+     * Vượt thời gian chờ tối đa thì từ chối, và pause() đẩy thời gian chờ ước tính lên theo Retry-After
+     */
+    @Test
+    void pause_extendsEstimatedWait() {
+        // given
+        governor = new GeminiRateGovernor(60, 1, 10, 5, new SimpleMeterRegistry());
+        assertEquals(Duration.ZERO, governor.estimateWait(AIRequestPriority.INTERACTIVE));
+
+        // when
+        governor.pause(Duration.ofSeconds(30));
+
+        // then
+        assertTrue(governor.estimateWait(AIRequestPriority.INTERACTIVE).compareTo(Duration.ofSeconds(30)) >= 0);
+        CompletableFuture<Void> rejected = governor.acquire("a", AIRequestPriority.INTERACTIVE);
+        assertTrue(rejected.isCompletedExceptionally()); // 30s > max-wait 5s
+    }
+
+    /**
+     * TC-GEMINI-GOV-03
+     * Ticket bị huỷ hoặc timeout rời hàng đợi ngay, chỗ trống được dùng cho request khác
+     */
+    @Test
+    void acquire_cancelledOrTimedOutTicket_leavesQueue() throws Exception {
+        // given: 1 request/phút, burst 1, hàng đợi 1 chỗ
+        governor = new GeminiRateGovernor(1, 1, 1, 600, new SimpleMeterRegistry());
+        governor.acquire("a", AIRequestPriority.INTERACTIVE);
+        CompletableFuture<Void> cancelled = governor.acquire("a", AIRequestPriority.INTERACTIVE);
+        assertTrue(governor.acquire("b", AIRequestPriority.INTERACTIVE).isCompletedExceptionally());
+
+        // when
+        cancelled.cancel(true);
+        CompletableFuture<Void> timedOut = governor.acquire("b", AIRequestPriority.INTERACTIVE)
+                .orTimeout(10, TimeUnit.MILLISECONDS);
+        assertThrows(ExecutionException.class, () -> timedOut.get(5, TimeUnit.SECONDS));
+
+        // then
+        assertEquals(0, governor.queueSize());
+        CompletableFuture<Void> next = governor.acquire("c", AIRequestPriority.INTERACTIVE);
+        assertFalse(next.isDone());
+        assertEquals(1, governor.queueSize());
+    }
+
+    /**
+     * TC-GEMINI-GOV-04
+     * Ticket được cấp sau khi chờ: continuation của caller không chạy trên thread dispatcher
+     */
+    @Test
+    void acquire_queuedTicket_completesOffDispatcherThread() throws Exception {
+        // given: 600 request/phút → 1 token mỗi 100ms
+        governor = new GeminiRateGovernor(600, 1, 10, 60, new SimpleMeterRegistry());
+        governor.acquire("a", AIRequestPriority.INTERACTIVE);
+
+        // when
+        CompletableFuture<String> thread = governor.acquire("a", AIRequestPriority.INTERACTIVE)
+                .thenApply(ignored -> Thread.currentThread().getName());
+
+        // then
+        assertEquals("gemini-governor-grant", thread.get(5, TimeUnit.SECONDS));
+        assertEquals(0, governor.queueSize());
+    }
+}
@@ -0,0 +1,91 @@
+package com.hokori.web.service;
+
+import com.hokori.web.Enum.GeminiCacheSite;
+import com.hokori.web.entity.AIResponseCache;
+import com.hokori.web.repository.AIResponseCacheRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GeminiResponseCacheServiceTest {
+
+    @Mock
+    private AIResponseCacheRepository cacheRepo;
+
+    private GeminiResponseCacheService cacheService;
+
+    @BeforeEach
+    void setUp() {
+        cacheService = new GeminiResponseCacheService(cacheRepo, new MockEnvironment(), new SimpleMeterRegistry(), 100);
+        ReflectionTestUtils.setField(cacheService, "enabled", true);
+    }
+
+    /**
+     * TC-GEMINI-CACHE-01
+     * 2 request cùng key khi đang chạy chỉ gọi Gemini 1 lần; lần sau lấy từ memory, không chạm DB
+     */
+    @Test
+    void getOrLoad_concurrentSameKey_coalescesIntoOneUpstreamCall() {
+        // given
+        String key = GeminiResponseCacheService.cacheKey("m", "cfg", "prompt");
+        when(cacheRepo.findByCacheKeyAndExpiresAtAfter(eq(key), any())).thenReturn(Optional.empty());
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        CompletableFuture<String> first = cacheService.getOrLoad(GeminiCacheSite.SENTENCE_ANALYSIS, key, "m",
+                () -> { calls.incrementAndGet(); return upstream; }, t -> true);
+        CompletableFuture<String> second = cacheService.getOrLoad(GeminiCacheSite.SENTENCE_ANALYSIS, key, "m",
+                () -> { calls.incrementAndGet(); return upstream; }, t -> true);
+        upstream.complete("{\"ok\":true}");
+        CompletableFuture<String> third = cacheService.getOrLoad(GeminiCacheSite.SENTENCE_ANALYSIS, key, "m",
+                () -> { calls.incrementAndGet(); return upstream; }, t -> true);
+
+        // then
+        assertEquals(1, calls.get());
+        assertEquals("{\"ok\":true}", first.join());
+        assertEquals("{\"ok\":true}", second.join());
+        assertEquals("{\"ok\":true}", third.join());
+        verify(cacheRepo, times(1)).findByCacheKeyAndExpiresAtAfter(eq(key), any());
+        verify(cacheRepo).upsert(eq(key), eq("SENTENCE_ANALYSIS"), eq("m"), eq("{\"ok\":true}"), any(), any());
+    }
+
+    /**
+     * TC-GEMINI-CACHE-02
+     * Key không phụ thuộc khoảng trắng thừa; hit ở DB không gọi Gemini
+     */
+    @Test
+    void getOrLoad_dbHit_skipsUpstream() {
+        // given
+        String key = GeminiResponseCacheService.cacheKey("m", "cfg", "  hello \n  world ");
+        assertEquals(key, GeminiResponseCacheService.cacheKey("m", "cfg", "hello world"));
+        assertNotEquals(key, GeminiResponseCacheService.cacheKey("m2", "cfg", "hello world"));
+        AIResponseCache row = AIResponseCache.builder()
+                .cacheKey(key).site("EXAMPLE_SENTENCES").model("m").responseText("cached")
+                .createdAt(Instant.now()).expiresAt(Instant.now().plusSeconds(60)).build();
+        when(cacheRepo.findByCacheKeyAndExpiresAtAfter(eq(key), any())).thenReturn(Optional.of(row));
+
+        // when
+        String result = cacheService.getOrLoad(GeminiCacheSite.EXAMPLE_SENTENCES, key, "m",
+                () -> { throw new AssertionError("should not call Gemini"); }, t -> true).join();
+
+        // then
+        assertEquals("cached", result);
+        verify(cacheRepo, never()).upsert(any(), any(), any(), any(), any(), any());
+    }
+}
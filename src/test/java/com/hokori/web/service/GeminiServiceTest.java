@@ -0,0 +1,177 @@
+package com.hokori.web.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hokori.web.Enum.AIRequestPriority;
+import com.hokori.web.exception.GeminiApiException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GeminiServiceTest {
+
+    private static final String OK_BODY = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"こんにちは\"}]}}]}";
+
+    @Mock
+    private HttpClient httpClient;
+
+    @Mock
+    private GeminiRateGovernor rateGovernor;
+
+    @Mock
+    private GeminiResponseCacheService responseCache;
+
+    private GeminiService geminiService;
+
+    // Các phản hồi HTTP lần lượt trả cho từng lần gửi
+    private final Deque<CompletableFuture<HttpResponse<byte[]>>> exchanges = new ArrayDeque<>();
+
+    @BeforeEach
+    void setUp() {
+        geminiService = new GeminiService(httpClient, new ObjectMapper(), rateGovernor, responseCache);
+        ReflectionTestUtils.setField(geminiService, "googleCloudEnabled", true);
+        ReflectionTestUtils.setField(geminiService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(geminiService, "modelName", "gemini-test");
+        ReflectionTestUtils.setField(geminiService, "requestTimeoutMs", 5_000L);
+        ReflectionTestUtils.setField(geminiService, "maxRetries", 2);
+        ReflectionTestUtils.setField(geminiService, "baseDelayMs", 10L);
+        ReflectionTestUtils.setField(geminiService, "maxDelayMs", 1_000L);
+
+        lenient().when(rateGovernor.acquire(anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        lenient().when(httpClient.sendAsync(any(HttpRequest.class), any())).thenAnswer(invocation -> exchanges.poll());
+    }
+
+    @AfterEach
+    void tearDown() {
+        geminiService.shutdown();
+    }
+
+    /**
+     * TC-GEMINI-01
+     * HTTP 503 rồi 200: thử lại sau backoff và trả câu trả lời của lần sau
+     */
+    @Test
+    void generateContentAsync_transientError_retriesThenSucceeds() throws Exception {
+        // given
+        exchanges.add(CompletableFuture.completedFuture(response(503, Map.of(), "{}")));
+        exchanges.add(CompletableFuture.completedFuture(response(200, Map.of(), OK_BODY)));
+
+        // when
+        String text = geminiService.generateContentAsync("prompt", AIRequestPriority.STANDARD).get(5, TimeUnit.SECONDS);
+
+        // then
+        assertEquals("こんにちは", text);
+        verify(httpClient, times(2)).sendAsync(any(HttpRequest.class), any());
+        verify(rateGovernor, times(2)).acquire(anyString(), eq(AIRequestPriority.STANDARD));
+    }
+
+    /**
+     * TC-GEMINI-02
+     * HTTP 429 liên tục: mỗi lần tạm dừng governor theo Retry-After, hết lượt thử thì lỗi rate limit
+     */
+    @Test
+    void generateContentAsync_rateLimited_pausesGovernorAndGivesUpAfterMaxRetries() {
+        // given
+        for (int i = 0; i < 3; i++) {
+            exchanges.add(CompletableFuture.completedFuture(response(429, Map.of("Retry-After", List.of("0")), "{}")));
+        }
+
+        // when
+        CompletableFuture<String> result = geminiService.generateContentAsync("prompt", AIRequestPriority.STANDARD);
+
+        // then
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        GeminiApiException cause = assertInstanceOf(GeminiApiException.class, ex.getCause());
+        assertEquals(429, cause.getStatusCode());
+        verify(httpClient, times(3)).sendAsync(any(HttpRequest.class), any());
+        verify(rateGovernor, times(3)).pause(Duration.ZERO);
+    }
+
+    /**
+     * TC-GEMINI-03
+     * Lỗi không tạm thời (400) không thử lại
+     */
+    @Test
+    void generateContentAsync_clientError_notRetried() {
+        // given
+        exchanges.add(CompletableFuture.completedFuture(response(400, Map.of(), "{\"error\":{}}")));
+
+        // when
+        CompletableFuture<String> result = geminiService.generateContentAsync("prompt", AIRequestPriority.STANDARD);
+
+        // then
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals(400, assertInstanceOf(GeminiApiException.class, ex.getCause()).getStatusCode());
+        verify(httpClient, times(1)).sendAsync(any(HttpRequest.class), any());
+        verify(rateGovernor, never()).pause(any());
+    }
+
+    /**
+     * TC-GEMINI-04
+     * Backoff tăng gấp đôi mỗi lần (+ jitter ≤ 10%), bị chặn bởi maxDelayMs; Retry-After được dùng nguyên
+     */
+    @Test
+    void retryDelayMs_exponentialWithJitterCappedAndRetryAfterWins() {
+        // when
+        long first = ReflectionTestUtils.invokeMethod(geminiService, "retryDelayMs", 0, null);
+        long third = ReflectionTestUtils.invokeMethod(geminiService, "retryDelayMs", 2, null);
+        long capped = ReflectionTestUtils.invokeMethod(geminiService, "retryDelayMs", 10, null);
+        long retryAfter = ReflectionTestUtils.invokeMethod(geminiService, "retryDelayMs", 0, Duration.ofMillis(700));
+
+        // then
+        assertTrue(first >= 10 && first <= 11, "first=" + first);
+        assertTrue(third >= 40 && third <= 44, "third=" + third);
+        assertEquals(1_000L, capped);
+        assertEquals(700L, retryAfter);
+    }
+
+    /**
+     * TC-GEMINI-05
+     * Caller huỷ / timeout: HTTP exchange đang chờ bị huỷ, không thử lại
+     */
+    @Test
+    void generateContentAsync_callerCancels_abortsExchange() {
+        // given
+        CompletableFuture<HttpResponse<byte[]>> pending = new CompletableFuture<>();
+        exchanges.add(pending);
+
+        // when
+        CompletableFuture<String> result = geminiService.generateContentAsync("prompt", AIRequestPriority.STANDARD);
+        result.cancel(true);
+
+        // then
+        assertTrue(pending.isCancelled());
+        verify(httpClient, times(1)).sendAsync(any(HttpRequest.class), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse<byte[]> response(int status, Map<String, List<String>> headers, String body) {
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        lenient().when(response.headers()).thenReturn(HttpHeaders.of(headers, (name, value) -> true));
+        lenient().when(response.body()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        return response;
+    }
+}
@@ -0,0 +1,62 @@
+package com.hokori.web.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JapaneseTokenizerServiceTest {
+
+    private static JapaneseTokenizerService tokenizer;
+
+    @BeforeAll
+    static void setUp() {
+        // Nạp từ điển 1 lần cho cả class
+        tokenizer = new JapaneseTokenizerService(true);
+    }
+
+    /**
+     * TC-TOKEN-01
+     * Tách từ kèm cách đọc hiragana và từ loại, bỏ dấu câu
+     */
+    @Test
+    void words_japaneseSentence_segmentsWithReadingAndPartOfSpeech() {
+        // when
+        List<JapaneseTokenizerService.Token> words = tokenizer.words("私は日本語を勉強しています。");
+
+        // then
+        assertTrue(tokenizer.isAvailable());
+        assertEquals(List.of("私", "は", "日本語", "を", "勉強", "し", "て", "い", "ます"),
+                words.stream().map(JapaneseTokenizerService.Token::surface).toList());
+        assertEquals("わたし", words.get(0).reading());
+        assertEquals("にほんご", words.get(2).reading());
+        assertTrue(words.get(1).isParticle());
+        assertTrue(words.get(2).hasKanji());
+        assertFalse(words.get(1).hasKanji());
+    }
+
+    /**
+     * TC-TOKEN-02
+     * Nhận diện chữ Nhật và chuyển katakana sang hiragana không cần từ điển
+     */
+    @Test
+    void staticHelpers_detectJapaneseAndConvertKana() {
+        assertTrue(JapaneseTokenizerService.containsJapanese("私は JLPT N5 を受けます"));
+        assertFalse(JapaneseTokenizerService.containsJapanese("Tôi đang học tiếng Nhật"));
+        assertEquals("こーひー", JapaneseTokenizerService.toHiragana("コーヒー"));
+    }
+
+    /**
+     * TC-TOKEN-03
+     * Tắt bằng config: không nạp từ điển, caller dùng cách cũ
+     */
+    @Test
+    void tokenize_disabled_returnsEmpty() {
+        JapaneseTokenizerService disabled = new JapaneseTokenizerService(false);
+
+        assertFalse(disabled.isAvailable());
+        assertTrue(disabled.tokenize("日本語").isEmpty());
+    }
+}
@@ -0,0 +1,205 @@
+package com.hokori.web.service;
+
+import com.hokori.web.entity.JlptQuestionStats;
+import com.hokori.web.repository.JlptOptionRepository;
+import com.hokori.web.repository.JlptOptionStatsRepository;
+import com.hokori.web.repository.JlptQuestionRepository;
+import com.hokori.web.repository.JlptQuestionStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JlptItemAnalysisServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private JlptQuestionRepository questionRepo;
+    @Mock
+    private JlptOptionRepository optionRepo;
+    @Mock
+    private JlptQuestionStatsRepository questionStatsRepo;
+    @Mock
+    private JlptOptionStatsRepository optionStatsRepo;
+
+    @InjectMocks
+    private JlptItemAnalysisService itemAnalysisService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(itemAnalysisService, "maxPending", 100);
+    }
+
+    /**
+     * TC-JLPT-ITEM-01
+     * Point-biserial: người làm đúng có tổng điểm cao hơn thì r dương, ngược lại r âm
+     */
+    @Test
+    void pointBiserial_matchesHandComputedValue() {
+        // given: y = 10, 20, 30, 40; đúng ở 2 attempt điểm cao (x = 0, 0, 1, 1)
+        JlptQuestionStats discriminating = stats(4, 2, 100, 3000, 70);
+        // đúng ở 2 attempt điểm thấp (x = 1, 1, 0, 0)
+        JlptQuestionStats inverted = stats(4, 2, 100, 3000, 30);
+
+        // when / then: r = 80 / sqrt(4 * 2000)
+        assertEquals(0.894, JlptItemAnalysisService.pointBiserial(discriminating));
+        assertEquals(-0.894, JlptItemAnalysisService.pointBiserial(inverted));
+    }
+
+    /**
+     * TC-JLPT-ITEM-02
+     * Phương sai bằng 0 (tất cả cùng đúng, cùng điểm) hoặc chỉ 1 attempt thì không tính độ phân hoá
+     */
+    @Test
+    void pointBiserial_zeroVarianceOrSingleAttempt_isNull() {
+        assertNull(JlptItemAnalysisService.pointBiserial(stats(4, 4, 100, 3000, 100)));
+        assertNull(JlptItemAnalysisService.pointBiserial(stats(4, 2, 200, 10000, 100)));
+        assertNull(JlptItemAnalysisService.pointBiserial(stats(1, 1, 50, 2500, 50)));
+    }
+
+    /**
+     * TC-JLPT-ITEM-03
+     * Ngưỡng cảnh báo: dưới 20 attempt chỉ báo thiếu dữ liệu; ngưỡng là so sánh chặt
+     */
+    @Test
+    void flags_thresholds() {
+        assertEquals(List.of("INSUFFICIENT_DATA"), JlptItemAnalysisService.flags(19, 0.99, -0.5));
+        assertEquals(List.of("TOO_EASY"), JlptItemAnalysisService.flags(20, 0.95, 0.5));
+        assertEquals(List.of("TOO_HARD", "NEGATIVE_DISCRIMINATION"), JlptItemAnalysisService.flags(20, 0.1, -0.1));
+        assertEquals(List.of("LOW_DISCRIMINATION"), JlptItemAnalysisService.flags(20, 0.5, 0.1));
+        // đúng bằng ngưỡng thì không cảnh báo
+        assertEquals(List.of(), JlptItemAnalysisService.flags(20, 0.9, 0.2));
+        assertEquals(List.of(), JlptItemAnalysisService.flags(20, 0.2, null));
+    }
+
+    /**
+     * TC-JLPT-ITEM-04
+     * Ngoài transaction: attempt vào hàng đợi, không ghi DB cho tới khi flush;
+     * flush gộp nhiều attempt thành 1 dòng upsert / câu và / đáp án
+     */
+    @Test
+    void flush_mergesQueuedAttemptsPerQuestionAndOption() throws Exception {
+        // given
+        itemAnalysisService.recordAttempt(1L, 100.0, List.of(
+                new JlptItemAnalysisService.ItemOutcome(1L, 11L, true),
+                new JlptItemAnalysisService.ItemOutcome(2L, null, false)));
+        itemAnalysisService.recordAttempt(1L, 50.0, List.of(
+                new JlptItemAnalysisService.ItemOutcome(1L, 12L, false),
+                new JlptItemAnalysisService.ItemOutcome(2L, 21L, true)));
+        verifyNoInteractions(jdbcTemplate);
+
+        // when
+        itemAnalysisService.flush();
+
+        // then
+        List<Collection<?>> rows = captureBatches(2);
+        assertEquals(2, rows.get(0).size()); // câu 1, câu 2
+        assertEquals(3, rows.get(1).size()); // đáp án 11, 12, 21
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        applyFirstRow(0, ps);
+        verify(ps).setLong(1, 1L);
+        verify(ps).setLong(3, 2L);      // attempt_count
+        verify(ps).setLong(4, 2L);      // answered_count
+        verify(ps).setLong(5, 1L);      // correct_count
+        verify(ps).setDouble(6, 150.0); // sum_score
+        verify(ps).setDouble(7, 12500.0);
+        verify(ps).setDouble(8, 100.0); // sum_correct_score
+    }
+
+    /**
+     * TC-JLPT-ITEM-05
+     * Flush lỗi: attempt được trả về hàng đợi và ghi ở lần flush sau
+     */
+    @Test
+    void flush_failure_requeuesAttempts() {
+        // given
+        itemAnalysisService.recordAttempt(1L, 80.0, List.of(new JlptItemAnalysisService.ItemOutcome(1L, 11L, true)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new QueryTimeoutException("lock timeout"))
+                .thenReturn(new int[0][]);
+
+        // when
+        assertThrows(QueryTimeoutException.class, () -> itemAnalysisService.flush());
+        itemAnalysisService.flush();
+
+        // then: lần 1 lỗi ở câu hỏi; lần 2 ghi câu hỏi + đáp án
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    /**
+     * TC-JLPT-ITEM-06
+     * Đáp án bị xoá cứng giữa recordAttempt và flush: upsert chỉ ghi khi đáp án còn tồn tại (WHERE EXISTS theo optionId);
+     * nếu vẫn vi phạm FK (xoá chen giữa lúc ghi) thì attempt chỉ được thử lại tối đa 3 lần rồi bị bỏ,
+     * không chặn các lần flush sau
+     */
+    @Test
+    void flush_optionDeletedBeforeFlush_attemptDroppedAfterRetries() throws Exception {
+        // given
+        itemAnalysisService.recordAttempt(1L, 80.0, List.of(new JlptItemAnalysisService.ItemOutcome(1L, 11L, true)));
+        // đáp án 11 bị moderator xoá trước khi flush
+        when(jdbcTemplate.batchUpdate(contains("jlpt_option_stats"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("violates foreign key constraint on jlpt_options"));
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            assertThrows(DataIntegrityViolationException.class, () -> itemAnalysisService.flush());
+        }
+        itemAnalysisService.flush();
+
+        // then: 3 lần thử (câu hỏi + đáp án), lần flush thứ 4 không còn gì để ghi
+        captureBatches(6);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        applyFirstRow(1, ps);
+        verify(ps).setLong(1, 11L);
+        verify(ps).setLong(5, 11L);     // tham số của WHERE EXISTS (SELECT 1 FROM jlpt_options WHERE id = ?)
+    }
+
+    private final List<ParameterizedPreparedStatementSetter<Object>> setters = new ArrayList<>();
+    private final List<Collection<Object>> batches = new ArrayList<>();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Collection<?>> captureBatches(int count) {
+        ArgumentCaptor<Collection> rows = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate, times(count)).batchUpdate(anyString(), rows.capture(), anyInt(), setter.capture());
+        rows.getAllValues().forEach(batch -> batches.add(batch));
+        setter.getAllValues().forEach(s -> setters.add(s));
+        return new ArrayList<>(batches);
+    }
+
+    private void applyFirstRow(int batch, PreparedStatement ps) throws Exception {
+        setters.get(batch).setValues(ps, batches.get(batch).iterator().next());
+    }
+
+    private static JlptQuestionStats stats(long n, long correct, double sumScore, double sumScoreSq, double sumCorrectScore) {
+        return JlptQuestionStats.builder()
+                .attemptCount(n)
+                .correctCount(correct)
+                .sumScore(sumScore)
+                .sumScoreSq(sumScoreSq)
+                .sumCorrectScore(sumCorrectScore)
+                .build();
+    }
+}
@@ -0,0 +1,154 @@
+package com.hokori.web.service;
+
+import com.hokori.web.dto.jlpt.JlptLeaderboardResponse;
+import com.hokori.web.repository.JlptTestAttemptRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JlptLeaderboardServiceTest {
+
+    @Mock
+    private JlptTestAttemptRepository attemptRepo;
+
+    @InjectMocks
+    private JlptLeaderboardService leaderboardService;
+
+    /**
+     * TC-JLPT-RANK-01
+     * Đồng điểm cùng hạng, percentile tính theo histogram
+     */
+    @Test
+    void getLeaderboard_tiedScores_shareRank() {
+        // given
+        Long testId = 1L;
+        Instant t = Instant.parse("2026-01-01T00:00:00Z");
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, "A", 150.0, t});
+        rows.add(new Object[]{2L, "B", 120.0, t.plusSeconds(10)});
+        rows.add(new Object[]{3L, "C", 120.0, t.plusSeconds(20)});
+        rows.add(new Object[]{4L, "D", 60.0, t});
+        when(attemptRepo.findBestScoresByTest(testId)).thenReturn(rows);
+
+        // when
+        JlptLeaderboardResponse board = leaderboardService.getLeaderboard(testId, 3L, 10);
+
+        // then
+        assertEquals(4, board.getTotalRanked());
+        assertEquals(List.of(1, 2, 2, 4), board.getEntries().stream().map(JlptLeaderboardResponse.Entry::getRank).toList());
+        assertEquals(2L, board.getEntries().get(1).getUserId()); // nộp sớm hơn đứng trước
+        assertEquals(2, board.getMyRank());
+        assertEquals(50.0, board.getMyPercentile()); // (1 dưới + 0.5 * 2 đồng điểm) / 4
+    }
+
+    /**
+     * TC-JLPT-RANK-02
+     * Attempt mới chỉ thay thế điểm khi cao hơn điểm cao nhất hiện tại
+     */
+    @Test
+    void recordAttempt_keepsBestScorePerUser() {
+        // given
+        Long testId = 1L;
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, "A", 100.0, Instant.now()});
+        rows.add(new Object[]{2L, "B", 90.0, Instant.now()});
+        when(attemptRepo.findBestScoresByTest(testId)).thenReturn(rows);
+        leaderboardService.getLeaderboard(testId, null, 10);
+
+        // when
+        leaderboardService.recordAttempt(testId, 2L, "B", 80.0, Instant.now());
+        leaderboardService.recordAttempt(testId, 2L, "B", 110.0, Instant.now());
+
+        // then
+        JlptLeaderboardService.Standing standing = leaderboardService.getStanding(testId, 2L, null);
+        assertEquals(1, standing.rank());
+        assertEquals(2, standing.totalRanked());
+        assertEquals(110.0, standing.bestScore());
+        verify(attemptRepo, times(1)).findBestScoresByTest(testId);
+    }
+
+    /**
+     * TC-JLPT-RANK-03
+     * Attempt commit trong lúc board đang build (sau khi đã đọc snapshot DB) không bị mất
+     */
+    @Test
+    void recordAttempt_commitWhileBoardLoading_isMergedIntoBoard() {
+        // given
+        Long testId = 1L;
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, "A", 100.0, Instant.now()});
+        when(attemptRepo.findBestScoresByTest(testId)).thenAnswer(invocation -> {
+            // Transaction submit của user 2 commit trên thread khác ngay sau khi snapshot được đọc
+            Thread commit = new Thread(() -> leaderboardService.recordAttempt(testId, 2L, "B", 150.0, Instant.now()));
+            commit.start();
+            commit.join();
+            return rows;
+        });
+
+        // when
+        JlptLeaderboardResponse board = leaderboardService.getLeaderboard(testId, 2L, 10);
+
+        // then
+        assertEquals(2, board.getTotalRanked());
+        assertEquals(2L, board.getEntries().get(0).getUserId());
+        assertEquals(1, board.getMyRank());
+        assertEquals(150.0, board.getMyBestScore());
+    }
+
+    /**
+     * TC-JLPT-RANK-04
+     * Build board chạy ngoài map: board của test khác không phải chờ; thread khác cùng test
+     * chờ lần build đang chạy thay vì query lại
+     */
+    @Test
+    void getLeaderboard_slowLoad_doesNotBlockOtherTests() throws Exception {
+        // given
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        List<Object[]> slowRows = new ArrayList<>();
+        slowRows.add(new Object[]{1L, "A", 100.0, Instant.now()});
+        List<Object[]> otherRows = new ArrayList<>();
+        otherRows.add(new Object[]{2L, "B", 90.0, Instant.now()});
+        when(attemptRepo.findBestScoresByTest(1L)).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            assertTrue(releaseLoad.await(5, TimeUnit.SECONDS));
+            return slowRows;
+        });
+        when(attemptRepo.findBestScoresByTest(2L)).thenReturn(otherRows);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<JlptLeaderboardResponse> first = executor.submit(() -> leaderboardService.getLeaderboard(1L, null, 10));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            Future<JlptLeaderboardResponse> second = executor.submit(() -> leaderboardService.getLeaderboard(1L, null, 10));
+
+            // when: test 1 vẫn đang build
+            JlptLeaderboardResponse other = leaderboardService.getLeaderboard(2L, 2L, 10);
+            releaseLoad.countDown();
+
+            // then
+            assertEquals(1, other.getMyRank());
+            assertEquals(1, first.get(5, TimeUnit.SECONDS).getTotalRanked());
+            assertEquals(1, second.get(5, TimeUnit.SECONDS).getTotalRanked());
+            verify(attemptRepo, times(1)).findBestScoresByTest(1L);
+        } finally {
+            releaseLoad.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -39,6 +39,10 @@ class JlptServiceTest {
     private LearnerProgressService learnerProgressService;
     @Mock
     private FileStorageService fileStorageService;
+    @Mock
+    private JlptLeaderboardService leaderboardService;
+    @Mock
+    private JlptItemAnalysisService itemAnalysisService;
 
     @InjectMocks
     private JlptTestService jlptTestService;
@@ -61,18 +65,16 @@ class JlptServiceTest {
         when(testRepo.findById(testId)).thenReturn(Optional.of(test));
         when(userRepo.findById(userId)).thenReturn(Optional.of(user));
 
-        // Lần đầu → chưa có session
-        when(sessionRepo.findByTest_IdAndUser_Id(testId, userId)).thenReturn(Optional.empty());
-
-        // upsert xong → trả về session mới
+        // Lần đầu → chưa có session; upsert xong → trả về session mới
         JlptUserTestSession session = new JlptUserTestSession();
         session.setTest(test);
         session.setUser(user);
         session.setStartedAt(Instant.now());
         session.setExpiresAt(Instant.now().plusSeconds(3600));
 
-
-        when(sessionRepo.findByTest_IdAndUser_Id(testId, userId)).thenReturn(Optional.of(session));
+        when(sessionRepo.findByTest_IdAndUser_Id(testId, userId))
+                .thenReturn(Optional.empty(), Optional.empty(), Optional.of(session));
+        when(sessionRepo.registerParticipant(eq(testId), eq(userId), any())).thenReturn(1);
 
         // Không quan tâm nội dung câu hỏi → mock empty
         spyQuestionsEmpty();
@@ -93,6 +95,82 @@ class JlptServiceTest {
         assertEquals(1, test.getCurrentParticipants());
     }
 
+    /**
+     * TC-JLPT-START-02
+     * User start lại sau khi session cũ bị sweeper discard (không còn session) → không tăng participant lần nữa
+     */
+    @Test
+    void startTest_restartAfterDiscard_doesNotCountParticipantAgain() {
+        // given
+        Long testId = 1L;
+        Long userId = 10L;
+
+        JlptTest test = JlptTest.builder().id(testId).durationMin(60).currentParticipants(1).build();
+
+        User user = new User();
+        user.setId(userId);
+
+        when(testRepo.findById(testId)).thenReturn(Optional.of(test));
+        when(userRepo.findById(userId)).thenReturn(Optional.of(user));
+
+        JlptUserTestSession session = new JlptUserTestSession();
+        session.setTest(test);
+        session.setUser(user);
+        session.setStartedAt(Instant.now());
+        session.setExpiresAt(Instant.now().plusSeconds(3600));
+
+        // Session cũ đã bị xoá → tạo session mới, nhưng user đã có trong jlpt_test_participant
+        when(sessionRepo.findByTest_IdAndUser_Id(testId, userId))
+                .thenReturn(Optional.empty(), Optional.empty(), Optional.of(session));
+        when(sessionRepo.registerParticipant(eq(testId), eq(userId), any())).thenReturn(0);
+
+        spyQuestionsEmpty();
+
+        // when
+        var response = jlptTestService.startTest(testId, userId);
+
+        // then
+        assertNotNull(response);
+        verify(sessionRepo).upsertSession(eq(testId), eq(userId), any(), any(), any());
+        verify(answerRepo).deleteByUser_IdAndTest_Id(userId, testId);
+        assertEquals(1, test.getCurrentParticipants());
+    }
+
+    /**
+     * TC-JLPT-SWEEP-01
+     * Session hết hạn nhưng user chưa trả lời câu nào → chỉ xoá session, không tạo attempt
+     */
+    @Test
+    void autoSubmitExpiredSession_noAnswers_discardsSession() {
+        // given
+        Long testId = 1L;
+        Long userId = 10L;
+        Long sessionId = 100L;
+
+        JlptTest test = JlptTest.builder().id(testId).durationMin(60).build();
+
+        User user = new User();
+        user.setId(userId);
+
+        JlptUserTestSession session = new JlptUserTestSession();
+        session.setId(sessionId);
+        session.setTest(test);
+        session.setUser(user);
+        session.setStartedAt(Instant.now().minusSeconds(7200));
+        session.setExpiresAt(Instant.now().minusSeconds(3600));
+
+        when(sessionRepo.findById(sessionId)).thenReturn(Optional.of(session));
+        when(answerRepo.countByUser_IdAndTest_Id(userId, testId)).thenReturn(0L);
+
+        // when
+        boolean graded = jlptTestService.autoSubmitExpiredSession(sessionId, Instant.now());
+
+        // then
+        assertFalse(graded);
+        verify(sessionRepo).delete(session);
+        verify(attemptRepo, never()).save(any());
+    }
+
     /**
      * Helper: mock getQuestionsWithOptions() trả list rỗng
      */
@@ -0,0 +1,211 @@
+package com.hokori.web.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hokori.web.Enum.JlptQuestionType;
+import com.hokori.web.dto.jlpt.JlptTestImportResponse;
+import com.hokori.web.entity.JlptTest;
+import com.hokori.web.repository.JlptQuestionRepository;
+import com.hokori.web.repository.JlptTestRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JlptTestImportServiceTest {
+
+    private static final String CSV_HEADER = "question_no,question_type,content,explanation,order_index,"
+            + "audio_path,image_path,image_alt_text,option_content,option_correct\n";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private JlptTestRepository testRepo;
+    @Mock
+    private JlptQuestionRepository questionRepo;
+    @Mock
+    private FileStorageService fileStorageService;
+
+    private JlptTestImportService importService;
+
+    private final JlptTest test = JlptTest.builder().id(1L).build();
+
+    @BeforeEach
+    void setUp() {
+        importService = new JlptTestImportService(jdbcTemplate, new ObjectMapper(), testRepo, questionRepo,
+                fileStorageService);
+        when(testRepo.findById(1L)).thenReturn(Optional.of(test));
+        lenient().when(questionRepo.findMaxOrderIndex(1L)).thenReturn(0);
+        // id lấy trước từ sequence: 1..n
+        lenient().when(jdbcTemplate.queryForList(anyString(), eq(Long.class), anyInt()))
+                .thenAnswer(invocation -> LongStream.rangeClosed(1, (Integer) invocation.getArgument(2)).boxed().toList());
+    }
+
+    /**
+     * TC-JLPT-IMPORT-01
+     * CSV hợp lệ (BOM, field có dấu phẩy trong ngoặc kép): mỗi câu hỏi gom các dòng cùng question_no,
+     * insert bằng batch; đủ 4 kỹ năng thì publish test
+     */
+    @Test
+    void importQuestions_validCsv_insertsAndPublishes() {
+        // given
+        String csv = "\uFEFF" + CSV_HEADER
+                + "1,grammar,\"私は学生です、\"\"はい\"\"\",,,,,,A,true\r\n"
+                + "1,,,,,,,,B,false\r\n"
+                + "2,VOCAB,言葉,,5,,,,C,0\r\n"
+                + "2,,,,,,,,D,1\r\n";
+        when(questionRepo.countByQuestionTypeForTest(1L)).thenReturn(List.of(
+                new Object[]{JlptQuestionType.GRAMMAR, 1L},
+                new Object[]{JlptQuestionType.VOCAB, 1L},
+                new Object[]{JlptQuestionType.READING, 3L},
+                new Object[]{JlptQuestionType.LISTENING, 2L}));
+
+        // when
+        JlptTestImportResponse response = importService.importQuestions(1L, csvFile(csv));
+
+        // then
+        assertEquals(2, response.getImportedQuestions());
+        assertEquals(4, response.getImportedOptions());
+        assertEquals(7L, response.getTotalQuestions());
+        assertTrue(response.isPublished());
+        verify(testRepo).save(test);
+
+        List<List<Object[]>> batches = captureBatches(2);
+        Object[] first = batches.get(0).get(0);
+        assertEquals(1L, first[0]);
+        assertEquals("私は学生です、\"はい\"", first[2]);
+        assertEquals("GRAMMAR", first[3]);
+        assertEquals(1, first[5]);         // order_index tự đánh tiếp theo MAX hiện có
+        assertEquals(5, batches.get(0).get(1)[5]);
+        assertEquals(List.of(true, false, false, true),
+                batches.get(1).stream().map(row -> row[2]).toList());
+    }
+
+    /**
+     * TC-JLPT-IMPORT-02
+     * Validate hết file trong 1 lượt: mọi lỗi được báo kèm dòng, không insert gì
+     */
+    @Test
+    void importQuestions_invalidCsv_reportsAllErrorsWithLocation() {
+        // given
+        String csv = CSV_HEADER
+                + "1,SPEAKING,問題1,,,,,,A,1\n"
+                + "1,,,,,,,,B,1\n"
+                + "2,GRAMMAR,,,abc,,,,A,1\n"
+                + "2,,,,,,,,B,0\n"
+                + "3,LISTENING,聞いて,,,/files/audio/q3.mp3,,,A,true\n"
+                + "3,,,,,,,,B\n";
+        when(fileStorageService.getFile("audio/q3.mp3")).thenReturn(null);
+
+        // when
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> importService.importQuestions(1L, csvFile(csv)));
+
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        String reason = ex.getReason();
+        assertTrue(reason.startsWith("Import failed with 5 error(s)"), reason);
+        assertTrue(reason.contains("line 2: invalid questionType 'SPEAKING'"), reason);
+        assertTrue(reason.contains("line 2: exactly 1 correct option is required (found 2)"), reason);
+        assertTrue(reason.contains("line 4: invalid number 'abc'"), reason);
+        assertTrue(reason.contains("line 4: content is required"), reason);
+        assertTrue(reason.contains("line 6: audioPath not found in storage: audio/q3.mp3"), reason);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(testRepo, never()).save(any());
+    }
+
+    /**
+     * TC-JLPT-IMPORT-03
+     * Lỗi sau khi chunk đầu (100 câu) đã insert: vẫn ném ResponseStatusException (runtime exception trong
+     * method @Transactional → rollback cả chunk đã ghi), không insert thêm và không publish
+     */
+    @Test
+    void importQuestions_errorAfterFirstChunk_throwsSoWholeImportRollsBack() throws Exception {
+        // given
+        StringBuilder json = new StringBuilder("{\"questions\": [");
+        for (int i = 0; i < 101; i++) {
+            json.append(i > 0 ? "," : "").append(question("READING", "問題" + i));
+        }
+        json.append(",{\"questionType\":\"READING\",\"content\":\"1 đáp án\",\"options\":[{\"content\":\"A\",\"correct\":true}]}");
+        json.append("]}");
+        MockMultipartFile file = new MockMultipartFile("file", "questions.json", "application/json",
+                json.toString().getBytes(StandardCharsets.UTF_8));
+
+        // when
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> importService.importQuestions(1L, file));
+
+        // then
+        assertEquals("Import failed with 1 error(s): questions[101]: at least 2 options are required", ex.getReason());
+        List<List<Object[]>> batches = captureBatches(2);
+        assertEquals(100, batches.get(0).size());  // chunk đầu đã ghi trước khi gặp lỗi
+        verify(questionRepo, never()).countByQuestionTypeForTest(any());
+        verify(testRepo, never()).save(any());
+        Transactional tx = JlptTestImportService.class
+                .getMethod("importQuestions", Long.class, MultipartFile.class)
+                .getAnnotation(Transactional.class);
+        assertNotNull(tx);
+        assertEquals(0, tx.noRollbackFor().length);
+    }
+
+    /**
+     * TC-JLPT-IMPORT-04
+     * CSV thiếu cột bắt buộc / file rỗng / định dạng không hỗ trợ → 400
+     */
+    @Test
+    void importQuestions_badFile_rejected() {
+        ResponseStatusException missingColumn = assertThrows(ResponseStatusException.class,
+                () -> importService.importQuestions(1L, csvFile("question_no,content\n1,x\n")));
+        assertEquals("CSV header is missing column: option_content", missingColumn.getReason());
+
+        ResponseStatusException empty = assertThrows(ResponseStatusException.class,
+                () -> importService.importQuestions(1L, csvFile("")));
+        assertEquals("Import file is empty", empty.getReason());
+
+        ResponseStatusException noQuestions = assertThrows(ResponseStatusException.class,
+                () -> importService.importQuestions(1L, csvFile(CSV_HEADER)));
+        assertEquals("Import file contains no questions", noQuestions.getReason());
+
+        ResponseStatusException unsupported = assertThrows(ResponseStatusException.class,
+                () -> importService.importQuestions(1L, new MockMultipartFile("file", "questions.xlsx",
+                        "application/octet-stream", new byte[]{1})));
+        assertEquals(HttpStatus.BAD_REQUEST, unsupported.getStatusCode());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static MockMultipartFile csvFile(String content) {
+        return new MockMultipartFile("file", "questions.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String question(String type, String content) {
+        return "{\"questionType\":\"" + type + "\",\"content\":\"" + content + "\",\"options\":["
+                + "{\"content\":\"A\",\"correct\":true},{\"content\":\"B\",\"correct\":false}]}";
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<List<Object[]>> captureBatches(int count) {
+        ArgumentCaptor<List> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(count)).batchUpdate(anyString(), rows.capture());
+        List<List<Object[]>> batches = new ArrayList<>();
+        rows.getAllValues().forEach(batch -> batches.add((List<Object[]>) batch));
+        return batches;
+    }
+}
@@ -0,0 +1,148 @@
+package com.hokori.web.service;
+
+import com.hokori.web.Enum.AIRequestPriority;
+import com.hokori.web.entity.ConversationLearningMaterial;
+import com.hokori.web.repository.ConversationLearningMaterialRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LearningMaterialLibraryServiceTest {
+
+    @Mock
+    private ConversationLearningMaterialRepository materialRepo;
+
+    private LearningMaterialLibraryService library;
+
+    @BeforeEach
+    void setUp() {
+        library = new LearningMaterialLibraryService(materialRepo, new SimpleMeterRegistry(), 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        library.shutdown();
+    }
+
+    /**
+     * TC-LM-01
+     * Nhiều request đồng thời cùng (level, scenario) chưa có: chỉ gọi Gemini 1 lần, lần sau lấy từ memory
+     */
+    @Test
+    void get_concurrentMisses_generateOnceThenServeFromMemory() throws Exception {
+        // given
+        when(materialRepo.findById("N5:restaurant")).thenReturn(Optional.empty());
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        LearningMaterialLibraryService.MaterialGenerator generator = (level, scenario, priority) -> {
+            calls.incrementAndGet();
+            await(release);
+            return materials("メニュー");
+        };
+
+        // when
+        CompletableFuture<Map<String, Object>> first = CompletableFuture.supplyAsync(
+                () -> library.get("N5", "restaurant", generator));
+        CompletableFuture<Map<String, Object>> second = CompletableFuture.supplyAsync(
+                () -> library.get("N5", "restaurant", generator));
+        Thread.sleep(200);
+        release.countDown();
+
+        // then
+        assertEquals(List.of("メニュー"), first.get(5, TimeUnit.SECONDS).get("vocabularyPreview"));
+        assertEquals(List.of("メニュー"), second.get(5, TimeUnit.SECONDS).get("vocabularyPreview"));
+        assertEquals(List.of("メニュー"), library.get("N5", "restaurant", generator).get("vocabularyPreview"));
+        assertEquals(1, calls.get());
+        verify(materialRepo).upsert(eq("N5:restaurant"), eq("N5"), eq("restaurant"), contains("メニュー"), any());
+    }
+
+    /**
+     * TC-LM-02
+     * Bản trong DB đã cũ: trả ngay bản cũ, refresh nền với priority BACKGROUND
+     */
+    @Test
+    void get_staleEntry_servedImmediatelyAndRefreshedInBackground() {
+        // given
+        ConversationLearningMaterial row = ConversationLearningMaterial.builder()
+                .materialKey("N4:hotel").level("N4").scenario("hotel")
+                .materialsJson("{\"scenarioDescription\":\"khách sạn\",\"vocabularyPreview\":[\"予約\"],"
+                        + "\"grammarPoints\":[],\"tips\":[]}")
+                .generatedAt(Instant.now().minus(Duration.ofDays(45)))
+                .build();
+        when(materialRepo.findById("N4:hotel")).thenReturn(Optional.of(row));
+        AtomicInteger backgroundCalls = new AtomicInteger();
+        LearningMaterialLibraryService.MaterialGenerator generator = (level, scenario, priority) -> {
+            assertEquals(AIRequestPriority.BACKGROUND, priority);
+            backgroundCalls.incrementAndGet();
+            return materials("チェックイン");
+        };
+
+        // when
+        Map<String, Object> served = library.get("N4", "hotel", generator);
+
+        // then
+        assertEquals(List.of("予約"), served.get("vocabularyPreview"));
+        verify(materialRepo, timeout(2_000)).upsert(eq("N4:hotel"), eq("N4"), eq("hotel"), contains("チェックイン"), any());
+        assertEquals(List.of("チェックイン"), library.get("N4", "hotel", generator).get("vocabularyPreview"));
+        assertEquals(1, backgroundCalls.get());
+    }
+
+    /**
+     * TC-LM-03
+     * Sinh lỗi: không lưu gì, caller dùng tài liệu tĩnh, lần sau thử lại
+     */
+    @Test
+    void get_generatorFails_returnsNullAndRetriesNextTime() {
+        // given
+        when(materialRepo.findById("N3:airport")).thenReturn(Optional.empty());
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        Map<String, Object> first = library.get("N3", "airport", (level, scenario, priority) -> {
+            calls.incrementAndGet();
+            return null;
+        });
+        Map<String, Object> second = library.get("N3", "airport", (level, scenario, priority) -> {
+            calls.incrementAndGet();
+            return materials("搭乗券");
+        });
+
+        // then
+        assertNull(first);
+        assertEquals(List.of("搭乗券"), second.get("vocabularyPreview"));
+        assertEquals(2, calls.get());
+        verify(materialRepo, times(1)).upsert(anyString(), anyString(), anyString(), anyString(), any());
+    }
+
+    private static Map<String, Object> materials(String word) {
+        return Map.of("scenarioDescription", "mô tả", "vocabularyPreview", List.of(word),
+                "grammarPoints", List.of(), "tips", List.of());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
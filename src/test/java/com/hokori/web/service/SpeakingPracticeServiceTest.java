@@ -0,0 +1,149 @@
+package com.hokori.web.service;
+
+import com.hokori.web.exception.AIServiceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SpeakingPracticeServiceTest {
+
+    @Mock
+    private AIService aiService;
+
+    @InjectMocks
+    private SpeakingPracticeService speakingPracticeService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(speakingPracticeService, "accuracyWeight", 0.6);
+        ReflectionTestUtils.setField(speakingPracticeService, "pronunciationWeight", 0.4);
+        ReflectionTestUtils.setField(speakingPracticeService, "adjustmentN5", 1.0);
+        ReflectionTestUtils.setField(speakingPracticeService, "accuracyThresholdN5", 0.8);
+        ReflectionTestUtils.setField(speakingPracticeService, "practiceThresholdN5", 0.7);
+        ReflectionTestUtils.setField(speakingPracticeService, "toleranceN5", 0.2);
+        ReflectionTestUtils.setField(speakingPracticeService, "partialMatchBoostN5", 0.8);
+        ReflectionTestUtils.setField(speakingPracticeService, "drillMaxRecordings", 20);
+        ReflectionTestUtils.setField(speakingPracticeService, "drillSttThreads", 3);
+        ReflectionTestUtils.setField(speakingPracticeService, "drillSttTimeoutMs", 2_000L);
+        speakingPracticeService.initDrillExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        speakingPracticeService.shutdownDrillExecutor();
+    }
+
+    /**
+     * TC-KAIWA-01
+     * Drill 3 câu: STT song song, câu lỗi STT chỉ làm hỏng item của nó; báo cáo tổng hợp điểm và câu yếu nhất
+     */
+    @Test
+    void practiceKaiwaDrill_oneRecordingFails_reportsOthers() {
+        // given
+        byte[] perfect = audio(1);
+        byte[] weak = audio(2);
+        byte[] broken = audio(3);
+        when(aiService.speechToText(same(perfect), eq("ja-JP"), eq("webm")))
+                .thenReturn(Map.of("transcript", "わたしはがくせいです", "confidence", 0.9));
+        when(aiService.speechToText(same(weak), eq("ja-JP"), eq("webm")))
+                .thenReturn(Map.of("transcript", "きのうえいがみました", "confidence", 0.2));
+        when(aiService.speechToText(same(broken), eq("ja-JP"), eq("webm")))
+                .thenThrow(new AIServiceException("Speech-to-Text", "No speech", "TRANSCRIPTION_FAILED"));
+
+        // when
+        Map<String, Object> report = speakingPracticeService.practiceKaiwaDrill(List.of(
+                new SpeakingPracticeService.DrillRecording("わたしはがくせいです", perfect, "webm"),
+                new SpeakingPracticeService.DrillRecording("きのうえいがをみました", weak, "webm"),
+                new SpeakingPracticeService.DrillRecording("よろしくおねがいします", broken, "webm")), "ja-JP", "N5");
+
+        // then
+        assertEquals(3, report.get("totalSentences"));
+        assertEquals(2, report.get("completedSentences"));
+        assertEquals(1, report.get("failedSentences"));
+        assertEquals(1, report.get("needsPracticeSentences"));
+
+        List<?> items = (List<?>) report.get("items");
+        assertEquals("completed", ((Map<?, ?>) items.get(0)).get("status"));
+        Map<?, ?> failed = (Map<?, ?>) items.get(2);
+        assertEquals("failed", failed.get("status"));
+        assertEquals("TRANSCRIPTION_FAILED", failed.get("errorCode"));
+
+        List<?> weakest = (List<?>) report.get("weakestSentences");
+        assertEquals(1, weakest.size());
+        assertEquals(1, ((Map<?, ?>) weakest.get(0)).get("index"));
+        double average = (Double) report.get("averageOverallScore");
+        assertTrue(average > 0.7 && average < 0.9, "average=" + average);
+    }
+
+    /**
+     * TC-KAIWA-02
+     * Quá số câu cho phép: từ chối trước khi gọi STT
+     */
+    @Test
+    void practiceKaiwaDrill_tooManyRecordings_rejectedWithoutSpeechToText() {
+        // given
+        ReflectionTestUtils.setField(speakingPracticeService, "drillMaxRecordings", 2);
+        List<SpeakingPracticeService.DrillRecording> recordings = Collections.nCopies(3,
+                new SpeakingPracticeService.DrillRecording("こんにちは", audio(1), "wav"));
+
+        // when
+        AIServiceException ex = assertThrows(AIServiceException.class,
+                () -> speakingPracticeService.practiceKaiwaDrill(recordings, "ja-JP", "N5"));
+
+        // then
+        assertEquals("DRILL_TOO_LARGE", ex.getErrorCode());
+        verifyNoInteractions(aiService);
+    }
+
+    /**
+     * TC-KAIWA-03
+     * STT quá timeout: item lỗi STT_TIMEOUT và call STT đang chạy bị interrupt thay vì chạy tiếp
+     */
+    @Test
+    void practiceKaiwaDrill_sttTimeout_interruptsRecognition() throws Exception {
+        // given
+        ReflectionTestUtils.setField(speakingPracticeService, "drillSttTimeoutMs", 100L);
+        byte[] slow = audio(4);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(aiService.speechToText(same(slow), eq("ja-JP"), eq("webm"))).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return Map.of("transcript", "こんにちは", "confidence", 0.9);
+        });
+
+        // when
+        Map<String, Object> report = speakingPracticeService.practiceKaiwaDrill(List.of(
+                new SpeakingPracticeService.DrillRecording("こんにちは", slow, "webm")), "ja-JP", "N5");
+
+        // then
+        Map<?, ?> item = (Map<?, ?>) ((List<?>) report.get("items")).get(0);
+        assertEquals("STT_TIMEOUT", item.get("errorCode"));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    private static byte[] audio(int seed) {
+        byte[] audio = new byte[4_000];
+        Arrays.fill(audio, (byte) seed);
+        return audio;
+    }
+}
@@ -0,0 +1,151 @@
+package com.hokori.web.service;
+
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.ApiExceptionFactory;
+import com.google.api.gax.rpc.BidiStreamingCallable;
+import com.google.api.gax.rpc.ClientStream;
+import com.google.api.gax.rpc.ResponseObserver;
+import com.google.cloud.speech.v1.RecognitionConfig;
+import com.google.cloud.speech.v1.SpeechClient;
+import com.google.cloud.speech.v1.SpeechRecognitionAlternative;
+import com.google.cloud.speech.v1.StreamingRecognitionResult;
+import com.google.cloud.speech.v1.StreamingRecognizeRequest;
+import com.google.cloud.speech.v1.StreamingRecognizeResponse;
+import com.google.protobuf.Duration;
+import com.hokori.web.exception.AIServiceException;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SpeechStreamingServiceTest {
+
+    @Mock
+    private SpeechClient speechClient;
+
+    @Mock
+    private BidiStreamingCallable<StreamingRecognizeRequest, StreamingRecognizeResponse> streamingCallable;
+
+    @Mock
+    private ClientStream<StreamingRecognizeRequest> clientStream;
+
+    @InjectMocks
+    private SpeechStreamingService speechStreamingService;
+
+    private ResponseObserver<StreamingRecognizeResponse> observer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(speechStreamingService, "googleCloudEnabled", true);
+        ReflectionTestUtils.setField(speechStreamingService, "speechToTextSampleRate", 16000);
+        ReflectionTestUtils.setField(speechStreamingService, "streamingThreads", 2);
+        ReflectionTestUtils.setField(speechStreamingService, "maxStreamBytes", 1_048_576L);
+        ReflectionTestUtils.setField(speechStreamingService, "streamTimeoutMs", 5_000L);
+        speechStreamingService.initStreamingExecutor();
+
+        when(speechClient.streamingRecognizeCallable()).thenReturn(streamingCallable);
+        when(streamingCallable.splitCall(any())).thenAnswer(invocation -> {
+            observer = invocation.getArgument(0);
+            return clientStream;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        speechStreamingService.shutdownStreamingExecutor();
+    }
+
+    /**
+     * TC-STT-STREAM-01
+     * WebM 40 KB: config + 3 chunk audio được gửi theo thứ tự; interim/final đẩy ra listener; kết quả ghép các đoạn final
+     */
+    @Test
+    void streamSpeechToText_webm_sendsChunksAndEmitsTranscripts() throws Exception {
+        // given
+        byte[] webm = new byte[40 * 1024];
+        webm[0] = 0x1A;
+        webm[1] = 0x45;
+        webm[2] = (byte) 0xDF;
+        webm[3] = (byte) 0xA3;
+        doAnswer(invocation -> {
+            observer.onResponse(response(false, "きょうは", 0.8f, 0));
+            observer.onResponse(response(true, "今日は晴れです。", 0.9f, 2));
+            observer.onResponse(response(true, "散歩に行きました。", 0.7f, 5));
+            observer.onComplete();
+            return null;
+        }).when(clientStream).closeSend();
+        List<String> events = new ArrayList<>();
+
+        // when
+        Map<String, Object> result = speechStreamingService.streamSpeechToText(
+                new ByteArrayInputStream(webm), "ja-JP", null, (name, data) -> events.add(name))
+                .get(5, TimeUnit.SECONDS);
+
+        // then
+        ArgumentCaptor<StreamingRecognizeRequest> sent = ArgumentCaptor.forClass(StreamingRecognizeRequest.class);
+        verify(clientStream, times(4)).send(sent.capture());
+        RecognitionConfig config = sent.getAllValues().get(0).getStreamingConfig().getConfig();
+        assertEquals(RecognitionConfig.AudioEncoding.WEBM_OPUS, config.getEncoding());
+        assertTrue(sent.getAllValues().get(0).getStreamingConfig().getInterimResults());
+        assertEquals(40 * 1024, sent.getAllValues().stream().skip(1).mapToInt(r -> r.getAudioContent().size()).sum());
+
+        assertEquals(List.of("interim", "final", "final"), events);
+        assertEquals("今日は晴れです。散歩に行きました。", result.get("transcript"));
+        assertEquals(0.8, (Double) result.get("confidence"), 1e-6);
+        assertEquals(5.0, (Double) result.get("durationSeconds"), 1e-9);
+        assertEquals(2, ((List<?>) result.get("segments")).size());
+    }
+
+    /**
+     * TC-STT-STREAM-02
+     * Google báo OUT_OF_RANGE (quá giới hạn stream ~5 phút) -> AUDIO_TOO_LONG
+     */
+    @Test
+    void streamSpeechToText_streamLimitExceeded_mapsToAudioTooLong() {
+        // given
+        doAnswer(invocation -> {
+            observer.onError(ApiExceptionFactory.createException(
+                    new RuntimeException("Exceeded maximum allowed stream duration of 305 seconds."),
+                    GrpcStatusCode.of(Status.Code.OUT_OF_RANGE), false));
+            return null;
+        }).when(clientStream).closeSend();
+
+        // when
+        CompletionException ex = assertThrows(CompletionException.class, () -> speechStreamingService.streamSpeechToText(
+                new ByteArrayInputStream(new byte[1024]), "ja-JP", "wav", (name, data) -> { }).join());
+
+        // then
+        AIServiceException cause = assertInstanceOf(AIServiceException.class, ex.getCause());
+        assertEquals("AUDIO_TOO_LONG", cause.getErrorCode());
+    }
+
+    private static StreamingRecognizeResponse response(boolean isFinal, String transcript, float confidence, long endSeconds) {
+        return StreamingRecognizeResponse.newBuilder()
+                .addResults(StreamingRecognitionResult.newBuilder()
+                        .setIsFinal(isFinal)
+                        .setStability(isFinal ? 0f : 0.5f)
+                        .setResultEndTime(Duration.newBuilder().setSeconds(endSeconds))
+                        .addAlternatives(SpeechRecognitionAlternative.newBuilder()
+                                .setTranscript(transcript)
+                                .setConfidence(confidence)))
+                .build();
+    }
+}
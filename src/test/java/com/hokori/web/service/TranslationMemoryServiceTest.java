@@ -0,0 +1,88 @@
+package com.hokori.web.service;
+
+import com.hokori.web.entity.TranslationMemory;
+import com.hokori.web.repository.TranslationMemoryRepository;
+import com.hokori.web.util.ContentHash;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TranslationMemoryServiceTest {
+
+    @Mock
+    private TranslationMemoryRepository memoryRepo;
+
+    private TranslationMemoryService translationMemory;
+
+    @BeforeEach
+    void setUp() {
+        translationMemory = new TranslationMemoryService(memoryRepo, new SimpleMeterRegistry(), 1_000);
+        ReflectionTestUtils.setField(translationMemory, "enabled", true);
+    }
+
+    /**
+     * TC-TM-01
+     * Batch lookup: text đã có trong memory không query DB, phần còn lại 1 query
+     */
+    @Test
+    void lookupAll_memoryThenSingleDbQuery() {
+        // given
+        translationMemory.store("こんにちは", "ja", "vi", "Xin chào", "ja");
+        String hash = ContentHash.sha256Hex(ContentHash.normalize("ありがとう"));
+        TranslationMemory row = TranslationMemory.builder()
+                .sourceHash(hash).sourceLang("ja").targetLang("vi")
+                .sourceText("ありがとう").translatedText("Cảm ơn").build();
+        when(memoryRepo.findBySourceLangAndTargetLangAndSourceHashIn(eq("ja"), eq("vi"), anyCollection()))
+                .thenReturn(List.of(row));
+
+        // when
+        Map<String, TranslationMemoryService.Hit> hits =
+                translationMemory.lookupAll(List.of("こんにちは", "ありがとう", "さようなら"), "ja", "vi");
+
+        // then
+        assertEquals("Xin chào", hits.get("こんにちは").translatedText());
+        assertEquals("Cảm ơn", hits.get("ありがとう").translatedText());
+        assertFalse(hits.containsKey("さようなら"));
+        @SuppressWarnings("unchecked")
+        org.mockito.ArgumentCaptor<Collection<String>> hashes = org.mockito.ArgumentCaptor.forClass(Collection.class);
+        verify(memoryRepo).findBySourceLangAndTargetLangAndSourceHashIn(eq("ja"), eq("vi"), hashes.capture());
+        assertEquals(2, hashes.getValue().size()); // "こんにちは" không cần query
+    }
+
+    /**
+     * TC-TM-02
+     * LRU giới hạn theo số ký tự: entry cũ bị đẩy ra, lookup sau đó phải xuống DB
+     */
+    @Test
+    void store_beyondCharBudget_evictsEldest() {
+        // given: budget 1000 ký tự, mỗi entry ~96 + 400
+        translationMemory.store("a", "en", "vi", "x".repeat(400), "en");
+        translationMemory.store("b", "en", "vi", "y".repeat(400), "en");
+        translationMemory.store("c", "en", "vi", "z".repeat(400), "en");
+        when(memoryRepo.findBySourceHashAndSourceLangAndTargetLang(anyString(), eq("en"), eq("vi")))
+                .thenReturn(Optional.empty());
+
+        // when
+        TranslationMemoryService.Hit evicted = translationMemory.lookup("a", "en", "vi");
+        TranslationMemoryService.Hit kept = translationMemory.lookup("  c ", "en", "vi");
+
+        // then
+        assertNull(evicted);
+        assertNotNull(kept);
+        verify(memoryRepo, times(1)).findBySourceHashAndSourceLangAndTargetLang(anyString(), eq("en"), eq("vi"));
+    }
+}
@@ -0,0 +1,122 @@
+package com.hokori.web.service;
+
+import com.hokori.web.entity.TtsAudio;
+import com.hokori.web.repository.TtsAudioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TtsAudioStoreServiceTest {
+
+    @Mock
+    private TtsAudioRepository audioRepo;
+
+    @Mock
+    private ObjectProvider<R2Service> r2ServiceProvider;
+
+    @TempDir
+    Path tempDir;
+
+    private TtsAudioStoreService store;
+
+    @BeforeEach
+    void setUp() {
+        store = new TtsAudioStoreService(audioRepo, r2ServiceProvider, new SimpleMeterRegistry(),
+                "local", tempDir.toString(), "https://api.example.com/", 100);
+    }
+
+    /**
+     * TC-TTS-01
+     * Local backend: tổng hợp 1 lần, ghi file + index; lần sau lấy URL từ memory, không gọi TTS
+     */
+    @Test
+    void getOrSynthesize_localBackend_synthesizesOnce() throws Exception {
+        // given
+        when(audioRepo.findById(anyString())).thenReturn(Optional.empty());
+        AtomicInteger calls = new AtomicInteger();
+        byte[] mp3 = {1, 2, 3};
+
+        // when
+        TtsAudioStoreService.StoredAudio first = store.getOrSynthesize("こんにちは", "ja-JP-Standard-A", 1.0, "mp3",
+                () -> { calls.incrementAndGet(); return mp3; });
+        TtsAudioStoreService.StoredAudio second = store.getOrSynthesize(" こんにちは ", "ja-JP-Standard-A", 1.0, "mp3",
+                () -> { calls.incrementAndGet(); return mp3; });
+
+        // then
+        String hash = TtsAudioStoreService.contentHash("こんにちは", "ja-JP-Standard-A", 1.0, "mp3");
+        assertEquals(1, calls.get());
+        assertFalse(first.cached());
+        assertArrayEquals(mp3, first.audio());
+        assertEquals("https://api.example.com/tts-audio/" + hash + ".mp3", first.url());
+        assertTrue(second.cached());
+        assertNull(second.audio());
+        assertEquals(first.url(), second.url());
+
+        Path file = store.resolveLocalFile(hash, "mp3");
+        assertNotNull(file);
+        assertArrayEquals(mp3, Files.readAllBytes(file));
+        verify(audioRepo).insertIfAbsent(eq(hash), eq("こんにちは"), eq("ja-JP-Standard-A"), eq(1.0), eq("mp3"),
+                eq("local"), anyString(), eq(first.url()), eq(3L), any());
+    }
+
+    /**
+     * TC-TTS-02
+     * Đã có trong index DB (vd. instance khác tổng hợp): dùng URL đó, không gọi TTS;
+     * voice/speed khác nhau cho hash khác nhau
+     */
+    @Test
+    void getOrSynthesize_indexedInDb_skipsSynthesis() {
+        // given
+        String hash = TtsAudioStoreService.contentHash("ありがとう", "ja-JP-Standard-A", 0.75, "mp3");
+        TtsAudio row = TtsAudio.builder()
+                .contentHash(hash).audioUrl("https://cdn.example.com/tts/x.mp3").sizeBytes(42L).build();
+        when(audioRepo.findById(hash)).thenReturn(Optional.of(row));
+
+        // when
+        TtsAudioStoreService.StoredAudio stored = store.getOrSynthesize("ありがとう", "ja-JP-Standard-A", 0.75, "mp3",
+                () -> fail("should not synthesize"));
+
+        // then
+        assertTrue(stored.cached());
+        assertEquals("https://cdn.example.com/tts/x.mp3", stored.url());
+        assertEquals(42L, stored.sizeBytes());
+        assertNotEquals(hash, TtsAudioStoreService.contentHash("ありがとう", "ja-JP-Standard-A", 1.0, "mp3"));
+        assertNotEquals(hash, TtsAudioStoreService.contentHash("ありがとう", "ja-JP-Standard-B", 0.75, "mp3"));
+        verify(audioRepo, never()).insertIfAbsent(any(), any(), any(), anyDouble(), any(), any(), any(), any(), anyLong(), any());
+    }
+
+    /**
+     * TC-TTS-03
+     * Audio đã lưu được đọc lại từ kho (không gọi TTS); chưa có trong kho thì trả null
+     */
+    @Test
+    void readStored_localBackend_returnsStoredBytes() {
+        // given
+        when(audioRepo.findById(anyString())).thenReturn(Optional.empty());
+        byte[] mp3 = {4, 5, 6};
+        store.getOrSynthesize("おはよう", "ja-JP-Standard-A", 1.0, "mp3", () -> mp3);
+
+        // when
+        byte[] stored = store.readStored(" おはよう ", "ja-JP-Standard-A", 1.0, "mp3");
+        byte[] missing = store.readStored("おはよう", "ja-JP-Standard-A", 0.75, "mp3");
+
+        // then
+        assertArrayEquals(mp3, stored);
+        assertNull(missing);
+    }
+}
@@ -0,0 +1,89 @@
+package com.hokori.web.service.provider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hokori.web.Enum.AiCallKind;
+import com.hokori.web.Enum.AiProviderMode;
+import com.hokori.web.exception.AIServiceException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiRecordReplayStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * TC-REPLAY-01
+     * Ghi ở RECORD rồi phát lại ở REPLAY (instance khác, cùng thư mục): cùng kết quả, không gọi backend
+     */
+    @Test
+    void recordThenReplay_returnsRecordedAnswersWithoutBackend() {
+        // given
+        AiRecordReplayStore recorder = store(AiProviderMode.RECORD);
+        AtomicInteger backendCalls = new AtomicInteger();
+        SentimentProvider.SentimentResult sentiment = new SentimentProvider.SentimentResult(-0.3f, 1.2f,
+                List.of(new SentimentProvider.SentenceSentiment("だめです。", -0.3f, 1.2f)));
+        byte[] audio = {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0};
+        recorder.call(AiCallKind.SENTIMENT, SentimentProvider.SentimentResult.class, () -> {
+            backendCalls.incrementAndGet();
+            return sentiment;
+        }, "だめです。");
+        recorder.call(AiCallKind.TEXT_TO_SPEECH, byte[].class, () -> audio, "だめです。", "ja-JP-Standard-A", 1.0);
+        recorder.record(AiCallKind.LLM, "はい、そうです。", 5, "generateContent", new byte[]{1, 2, 3});
+
+        // when
+        AiRecordReplayStore replayer = store(AiProviderMode.REPLAY);
+        SentimentProvider.SentimentResult replayed = replayer.call(AiCallKind.SENTIMENT,
+                SentimentProvider.SentimentResult.class, () -> {
+                    backendCalls.incrementAndGet();
+                    return null;
+                }, "だめです。");
+        byte[] replayedAudio = replayer.call(AiCallKind.TEXT_TO_SPEECH, byte[].class, () -> null,
+                "だめです。", "ja-JP-Standard-A", 1.0);
+        String reply = replayer.replayAsync(AiCallKind.LLM, String.class, "generateContent", new byte[]{1, 2, 3}).join();
+
+        // then
+        assertEquals(sentiment, replayed);
+        assertTrue(Arrays.equals(audio, replayedAudio));
+        assertEquals("はい、そうです。", reply);
+        assertEquals(1, backendCalls.get());
+    }
+
+    /**
+     * TC-REPLAY-02
+     * Request chưa được ghi: lỗi AI_REPLAY_MISS, không gọi backend
+     */
+    @Test
+    void replay_unrecordedRequest_failsWithReplayMiss() {
+        // given
+        AiRecordReplayStore replayer = store(AiProviderMode.REPLAY);
+
+        // when
+        AIServiceException miss = assertThrows(AIServiceException.class, () -> replayer.call(AiCallKind.TRANSLATION,
+                String.class, () -> fail("backend must not be called"), "こんにちは", "ja", "vi"));
+        CompletionException asyncMiss = assertThrows(CompletionException.class,
+                () -> replayer.replayAsync(AiCallKind.LLM, String.class, "generateContent", new byte[]{9}).join());
+
+        // then
+        assertEquals("AI_REPLAY_MISS", miss.getErrorCode());
+        assertEquals("Translation", miss.getServiceName());
+        assertEquals("AI_REPLAY_MISS", assertInstanceOf(AIServiceException.class, asyncMiss.getCause()).getErrorCode());
+    }
+
+    private AiRecordReplayStore store(AiProviderMode mode) {
+        AiRecordReplayStore store = new AiRecordReplayStore(new ObjectMapper());
+        ReflectionTestUtils.setField(store, "mode", mode);
+        ReflectionTestUtils.setField(store, "recordDir", tempDir.toString());
+        ReflectionTestUtils.setField(store, "simulateLatency", false);
+        return store;
+    }
+}
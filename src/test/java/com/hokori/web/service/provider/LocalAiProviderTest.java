@@ -0,0 +1,163 @@
+package com.hokori.web.service.provider;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hokori.web.exception.AIServiceException;
+import com.hokori.web.exception.GeminiApiException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalAiProviderTest {
+
+    private static final byte[] CONVERSATION_REQUEST = ("{\"contents\":[{\"role\":\"user\",\"parts\":[{\"text\":\"週末は何をしましたか\"}]}]}")
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_REQUEST = ("{\"contents\":[{\"role\":\"user\",\"parts\":[{\"text\":\"Trả về JSON: {\\\"score\\\": 0.0-1.0}\"}]}]}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * TC-LOCALAI-01
+     * Cùng seed + cùng input: 2 instance cho cùng câu trả lời ở mọi loại call; prompt JSON không nhận ra nhận "{}",
+     * TTS trả về frame MP3 hợp lệ
+     */
+    @Test
+    void sameSeedAndInput_sameAnswers() {
+        // given
+        LocalAiProvider first = provider(new MockEnvironment());
+        LocalAiProvider second = provider(new MockEnvironment());
+        String text = "今日はいい天気ですね。散歩に行きましょう！";
+
+        // when
+        String reply = first.generate("generateConversation", CONVERSATION_REQUEST, null).join();
+        String jsonReply = first.generate("generateContent", JSON_REQUEST, null).join();
+        SentimentProvider.SentimentResult sentiment = first.analyzeSentiment(text);
+        byte[] audio = first.synthesizeMp3(text, "ja-JP", "ja-JP-Standard-A", 1.0);
+
+        // then
+        assertEquals(reply, second.generate("generateConversation", CONVERSATION_REQUEST, null).join());
+        assertEquals("{}", jsonReply);
+        assertEquals(sentiment, second.analyzeSentiment(text));
+        assertEquals(2, sentiment.sentences().size());
+        assertEquals(List.of(new TranslationProvider.TranslationResult("[vi] " + text, "ja")),
+                first.translate(List.of(text), null, "vi"));
+        assertTrue(Arrays.equals(audio, second.synthesizeMp3(text, "ja-JP", "ja-JP-Standard-A", 1.0)));
+        assertEquals((byte) 0xFF, audio[0]);
+        assertEquals((byte) 0xFB, audio[1]);
+        assertEquals(0, audio.length % 417);
+    }
+
+    /**
+     * TC-LOCALAI-02
+     * error-rate = 1: call đồng bộ lỗi AI_PROVIDER_SIMULATED_ERROR, LLM lỗi HTTP 503 để GeminiService retry
+     */
+    @Test
+    void errorRateOne_failsEveryCall() {
+        // given
+        LocalAiProvider provider = provider(new MockEnvironment()
+                .withProperty("ai.provider.local.translation.error-rate", "1.0")
+                .withProperty("ai.provider.local.llm.error-rate", "1.0"));
+
+        // when
+        AIServiceException translationError = assertThrows(AIServiceException.class,
+                () -> provider.translate(List.of("こんにちは"), "ja", "vi"));
+        CompletionException llmError = assertThrows(CompletionException.class,
+                () -> provider.generate("generateContent", CONVERSATION_REQUEST, null).join());
+
+        // then
+        assertEquals("AI_PROVIDER_SIMULATED_ERROR", translationError.getErrorCode());
+        GeminiApiException apiError = assertInstanceOf(GeminiApiException.class, llmError.getCause());
+        assertEquals(503, apiError.getStatusCode());
+        // Loại call khác không bị ảnh hưởng
+        assertNotNull(provider.analyzeSentiment("こんにちは"));
+    }
+
+    /**
+     * TC-LOCALAI-03
+     * Latency log-normal khớp median / p99 cấu hình
+     */
+    @Test
+    void latencyProfile_matchesMedianAndP99() {
+        // given
+        LocalAiProvider.Profile profile = new LocalAiProvider.Profile(100, 1000, 0);
+        SplittableRandom random = new SplittableRandom(7);
+
+        // when
+        long[] samples = new long[20_000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = profile.drawLatencyMs(random);
+        }
+        Arrays.sort(samples);
+
+        // then
+        long median = samples[samples.length / 2];
+        long p99 = samples[(int) (samples.length * 0.99)];
+        assertTrue(median >= 90 && median <= 110, "median " + median);
+        assertTrue(p99 >= 850 && p99 <= 1150, "p99 " + p99);
+        assertEquals(40, new LocalAiProvider.Profile(40, 40, 0).drawLatencyMs(random));
+    }
+
+    /**
+     * TC-LOCALAI-04
+     * Prompt moderation / đánh giá hội thoại nhận JSON đúng shape của từng loại (parser chạy như production)
+     */
+    @Test
+    void moderationAndEvaluationPrompts_getOperationSpecificJson() throws Exception {
+        // given
+        LocalAiProvider provider = provider(new MockEnvironment());
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // when
+        JsonNode accuracy = objectMapper.readTree(provider.generate("generateContent", request(
+                "Bạn là chuyên gia kiểm tra độ chính xác ngôn ngữ tiếng Nhật và tiếng Việt.\n\n"
+                        + "Kiểm tra phần \"Chapter 1\" của khóa học tiếng Nhật level N4:\n\n"
+                        + "Nội dung (mỗi mục bắt đầu bằng [tên mục]):\n[Lesson 3] おはようございます\n\n"
+                        + "Kiểm tra:\n...\nTrả về JSON:\n{}"), null).join());
+        JsonNode level = objectMapper.readTree(provider.generate("generateContent", request(
+                "Bạn là chuyên gia đánh giá khóa học tiếng Nhật JLPT.\n\nLevel khai báo: N3\n\nTrả về JSON"), null).join());
+        JsonNode pedagogy = objectMapper.readTree(provider.generate("generateContent", request(
+                "Bạn là chuyên gia đánh giá chất lượng giáo dục khóa học tiếng Nhật.\n\nTrả về JSON"), null).join());
+        JsonNode grammar = objectMapper.readTree(provider.generate("generateContent", request(
+                "Bạn là chuyên gia đánh giá tiến trình học ngữ pháp tiếng Nhật JLPT.\n\nTrả về JSON"), null).join());
+        JsonNode evaluation = objectMapper.readTree(provider.generate("generateContent", request(
+                "Bạn là giáo viên tiếng Nhật chuyên nghiệp. Hãy đánh giá chi tiết cuộc trò chuyện ... JSON"), null).join());
+
+        // then
+        assertTrue(accuracy.get("score").asDouble() > 0 && accuracy.get("score").asDouble() <= 1);
+        assertTrue(accuracy.get("japaneseErrors").isArray());
+        accuracy.get("japaneseErrors").forEach(error -> assertEquals("Lesson 3", error.get("location").asText()));
+        assertTrue(accuracy.has("summary"));
+
+        assertTrue(level.get("detectedLevel").asText().matches("N[1-5]"));
+        assertEquals(level.get("match").asBoolean(), "N3".equals(level.get("detectedLevel").asText()));
+        assertTrue(level.get("confidence").asDouble() > 0 && level.has("summary"));
+
+        assertTrue(pedagogy.has("score") && pedagogy.get("strengths").size() > 0 && pedagogy.has("recommendations"));
+        assertTrue(grammar.get("isLogical").isBoolean() && grammar.get("issues").isArray() && grammar.has("score"));
+
+        for (String field : List.of("overallScore", "accuracyScore", "fluencyScore", "grammarScore", "vocabularyScore")) {
+            int score = evaluation.get(field).asInt();
+            assertTrue(score >= 0 && score <= 100, field + "=" + score);
+        }
+        assertTrue(evaluation.get("detailedAnalysisVi").get(0).has("betterResponse"));
+        // Cùng seed → cùng JSON
+        assertEquals(objectMapper.writeValueAsString(level), provider(new MockEnvironment()).generate("generateContent",
+                request("Bạn là chuyên gia đánh giá khóa học tiếng Nhật JLPT.\n\nLevel khai báo: N3\n\nTrả về JSON"), null).join());
+    }
+
+    private static byte[] request(String prompt) throws Exception {
+        return new ObjectMapper().writeValueAsBytes(
+                Map.of("contents", List.of(Map.of("role", "user", "parts", List.of(Map.of("text", prompt))))));
+    }
+
+    private static LocalAiProvider provider(MockEnvironment environment) {
+        return new LocalAiProvider(new ObjectMapper(), environment);
+    }
+}
@@ -0,0 +1,81 @@
+package com.hokori.web.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AhoCorasickTest {
+
+    /**
+     * TC-AC-01
+     * Mẫu chồng nhau và mẫu là hậu tố của mẫu khác đều được báo, đúng vị trí
+     */
+    @Test
+    void findAll_reportsOverlappingAndSuffixPatterns() {
+        // given
+        AhoCorasick automaton = AhoCorasick.build(List.of("he", "she", "his", "hers", "ばか", "おおばか", ""));
+
+        // when
+        List<AhoCorasick.Match> matches = automaton.findAll("ushers おおばかだ");
+
+        // then
+        assertEquals(List.of(
+                new AhoCorasick.Match(1, 1, 4),
+                new AhoCorasick.Match(0, 2, 4),
+                new AhoCorasick.Match(3, 2, 6),
+                new AhoCorasick.Match(5, 7, 11),
+                new AhoCorasick.Match(4, 9, 11)), matches);
+    }
+
+    /**
+     * TC-AC-02
+     * Kết quả giống tìm từng mẫu bằng indexOf trên text ngẫu nhiên
+     */
+    @Test
+    void findAll_matchesNaiveSearch() {
+        // given
+        Random random = new Random(7);
+        String alphabet = "abcあいう";
+        for (int round = 0; round < 500; round++) {
+            List<String> patterns = new ArrayList<>();
+            for (int p = 0; p < 1 + random.nextInt(8); p++) {
+                patterns.add(randomText(random, alphabet, 1 + random.nextInt(4)));
+            }
+            String text = randomText(random, alphabet, random.nextInt(60));
+
+            // when
+            List<AhoCorasick.Match> matches = AhoCorasick.build(patterns).findAll(text);
+
+            // then
+            assertEquals(naiveCount(patterns, text), matches.size(), patterns + " / " + text);
+            for (AhoCorasick.Match match : matches) {
+                assertEquals(patterns.get(match.patternIndex()), text.substring(match.start(), match.end()));
+            }
+        }
+    }
+
+    private static int naiveCount(List<String> patterns, String text) {
+        int count = 0;
+        for (int p = 0; p < patterns.size(); p++) {
+            if (patterns.subList(0, p).contains(patterns.get(p))) {
+                continue; // mẫu trùng chỉ báo 1 lần
+            }
+            for (int from = text.indexOf(patterns.get(p)); from >= 0; from = text.indexOf(patterns.get(p), from + 1)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
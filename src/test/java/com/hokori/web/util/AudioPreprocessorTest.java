@@ -0,0 +1,127 @@
+package com.hokori.web.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioPreprocessorTest {
+
+    /**
+     * TC-AUDIO-01
+     * WAV 48 kHz stereo: 1s lặng + 1s tiếng + 1s lặng -> mono 16 kHz, chỉ còn đoạn có tiếng (kèm 250ms mỗi đầu)
+     */
+    @Test
+    void prepare_stereo48k_downmixesDownsamplesAndTrimsSilence() {
+        // given
+        byte[] wav = wav(48_000, 2, 1.0, 1.0, 1.0);
+        assertEquals(3.0, AudioPreprocessor.probe(wav).durationSeconds(), 1e-9);
+
+        // when
+        AudioPreprocessor.Prepared prepared = AudioPreprocessor.prepare(wav, 16_000);
+
+        // then
+        AudioPreprocessor.Probe out = prepared.probe();
+        assertEquals(16_000, out.sampleRate());
+        assertEquals(1, out.channels());
+        assertEquals(1.5, out.durationSeconds(), 0.03);
+        assertEquals(1.5, prepared.trimmedSeconds(), 0.03);
+        // file mới tự mô tả đúng: đọc lại header cho cùng kết quả
+        AudioPreprocessor.Probe reparsed = AudioPreprocessor.probe(prepared.audio());
+        assertEquals(out.durationSeconds(), reparsed.durationSeconds(), 1e-9);
+        assertEquals(16_000, reparsed.sampleRate());
+    }
+
+    /**
+     * TC-AUDIO-02
+     * Không có tiếng nói / không có gì để làm: trả lại nguyên mảng đầu vào
+     */
+    @Test
+    void prepare_silentOrAlreadyCompact_returnsInputUnchanged() {
+        // given
+        byte[] silent = wav(16_000, 1, 2.0, 0, 0);
+        byte[] compact = wav(16_000, 1, 0, 1.0, 0);
+
+        // when / then
+        assertSame(silent, AudioPreprocessor.prepare(silent, 16_000).audio());
+        assertSame(compact, AudioPreprocessor.prepare(compact, 16_000).audio());
+        assertEquals(0.0, AudioPreprocessor.prepare(compact, 16_000).trimmedSeconds());
+    }
+
+    /**
+     * TC-AUDIO-03
+     * WebM từ MediaRecorder (Segment/Cluster không rõ kích thước, không có Info.Duration): thời lượng theo block cuối;
+     * có Info.Duration thì dùng Duration
+     */
+    @Test
+    void probe_webm_readsDurationFromInfoOrLastBlock() {
+        // given
+        byte[] streamed = webm(null, 0, 0, 20, 40, 2_000, 480);
+        byte[] finalized = webm(3_000.0f, 0, 0, 20, 40);
+
+        // when
+        AudioPreprocessor.Probe streamedProbe = AudioPreprocessor.probe(streamed);
+        AudioPreprocessor.Probe finalizedProbe = AudioPreprocessor.probe(finalized);
+
+        // then
+        assertEquals("webm", streamedProbe.format());
+        assertEquals(2.48, streamedProbe.durationSeconds(), 1e-9);
+        assertEquals(3.0, finalizedProbe.durationSeconds(), 1e-9);
+        assertFalse(AudioPreprocessor.probe(new byte[]{(byte) 0xFF, (byte) 0xFB, 0, 0}).hasDuration());
+    }
+
+    private static byte[] wav(int sampleRate, int channels, double leadingSilence, double speech, double trailingSilence) {
+        int silenceA = (int) (leadingSilence * sampleRate);
+        int tone = (int) (speech * sampleRate);
+        int frames = silenceA + tone + (int) (trailingSilence * sampleRate);
+        ByteBuffer buffer = ByteBuffer.allocate(44 + frames * channels * 2).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("RIFF".getBytes()).putInt(36 + frames * channels * 2).put("WAVE".getBytes());
+        buffer.put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) channels)
+                .putInt(sampleRate).putInt(sampleRate * channels * 2).putShort((short) (channels * 2)).putShort((short) 16);
+        buffer.put("data".getBytes()).putInt(frames * channels * 2);
+        for (int i = 0; i < frames; i++) {
+            boolean speaking = i >= silenceA && i < silenceA + tone;
+            short sample = speaking ? (short) (8_000 * Math.sin(2 * Math.PI * 440 * i / sampleRate)) : (short) (i % 7 - 3);
+            for (int c = 0; c < channels; c++) {
+                buffer.putShort(sample);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @param clusters cặp (timecode của cluster, timecode tương đối của SimpleBlock)
+     */
+    private static byte[] webm(Float infoDuration, int... clusters) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(element(new byte[]{0x1A, 0x45, (byte) 0xDF, (byte) 0xA3}, new byte[]{0x42, (byte) 0x82, (byte) 0x84, 'w', 'e', 'b', 'm'}));
+        out.writeBytes(new byte[]{0x18, 0x53, (byte) 0x80, 0x67, (byte) 0xFF}); // Segment, kích thước unknown
+
+        ByteArrayOutputStream info = new ByteArrayOutputStream();
+        info.writeBytes(element(new byte[]{0x2A, (byte) 0xD7, (byte) 0xB1}, new byte[]{0x0F, 0x42, 0x40})); // 1 ms
+        if (infoDuration != null) {
+            info.writeBytes(element(new byte[]{0x44, (byte) 0x89}, ByteBuffer.allocate(4).putFloat(infoDuration).array()));
+        }
+        out.writeBytes(element(new byte[]{0x15, 0x49, (byte) 0xA9, 0x66}, info.toByteArray()));
+
+        for (int i = 0; i < clusters.length; i += 2) {
+            out.writeBytes(new byte[]{0x1F, 0x43, (byte) 0xB6, 0x75, (byte) 0xFF}); // Cluster, kích thước unknown
+            out.writeBytes(element(new byte[]{(byte) 0xE7}, ByteBuffer.allocate(2).putShort((short) clusters[i]).array()));
+            byte[] block = ByteBuffer.allocate(8).put((byte) 0x81).putShort((short) clusters[i + 1]).put((byte) 0x80)
+                    .putInt(0x12345678).array();
+            out.writeBytes(element(new byte[]{(byte) 0xA3}, block));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] element(byte[] id, byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(id);
+        out.write(0x80 | payload.length);
+        out.writeBytes(payload);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,152 @@
+package com.hokori.web.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedExecutorTest {
+
+    private BoundedExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * TC-BOUNDED-01
+     * Việc chạy trên thread của pool (không phải thread của caller) và trả đúng kết quả
+     */
+    @Test
+    void supplyAsync_runsOnPoolThread() {
+        // given
+        executor = BoundedExecutor.create("test-pool", 2, 2);
+
+        // when
+        String threadName = executor.supplyAsync(() -> Thread.currentThread().getName(), 5000).join();
+
+        // then
+        assertTrue(threadName.startsWith("test-pool-"));
+    }
+
+    /**
+     * TC-BOUNDED-02
+     * Hết chỗ thì bị từ chối ngay, việc không chạy trên thread của caller
+     */
+    @Test
+    void supplyAsync_saturated_rejectsWithoutRunningOnCaller() throws Exception {
+        // given
+        executor = BoundedExecutor.create("test-pool", 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> running = executor.supplyAsync(() -> await(release), 0);
+        CompletableFuture<Object> queued = executor.supplyAsync(() -> await(release), 0);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        // when
+        CompletableFuture<Object> rejected = executor.supplyAsync(() -> ran.getAndSet(true), 0);
+
+        // then
+        assertTrue(rejected.isCompletedExceptionally());
+        CompletionException error = assertThrows(CompletionException.class, rejected::join);
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertFalse(ran.get());
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * TC-BOUNDED-03
+     * Hết timeout: future lỗi TimeoutException và thread đang chạy bị interrupt
+     */
+    @Test
+    void supplyAsync_timeout_interruptsRunningWork() throws Exception {
+        // given
+        executor = BoundedExecutor.create("test-pool", 1, 0);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        // when
+        CompletableFuture<Object> future = executor.supplyAsync(() -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        }, 50);
+
+        // then
+        CompletionException error = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * TC-BOUNDED-04
+     * Việc còn trong hàng đợi mà hết timeout thì không bao giờ chạy và trả lại chỗ
+     */
+    @Test
+    void supplyAsync_timeoutWhileQueued_neverRunsAndFreesSlot() throws Exception {
+        // given
+        executor = BoundedExecutor.create("test-pool", 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> running = executor.supplyAsync(() -> await(release), 0);
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<Object> queued = executor.supplyAsync(() -> ran.getAndSet(true), 50);
+
+        // when
+        assertThrows(CompletionException.class, queued::join);
+        CompletableFuture<Object> next = executor.supplyAsync(() -> "next", 0);
+        release.countDown();
+
+        // then
+        assertEquals("next", next.get(5, TimeUnit.SECONDS));
+        running.get(5, TimeUnit.SECONDS);
+        assertFalse(ran.get());
+    }
+
+    /**
+     * TC-BOUNDED-05
+     * Bản có waitMs chờ tới khi có chỗ thay vì bị từ chối
+     */
+    @Test
+    void supplyAsyncWithWait_waitsForFreeSlot() throws Exception {
+        // given
+        executor = BoundedExecutor.create("test-pool", 1, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> running = executor.supplyAsync(() -> await(release), 0);
+        AtomicReference<CompletableFuture<String>> waiting = new AtomicReference<>();
+        Thread submitter = new Thread(() -> waiting.set(executor.supplyAsync(() -> "done", 5000, 5000)));
+
+        // when
+        submitter.start();
+        Thread.sleep(50);
+        release.countDown();
+        submitter.join(5000);
+
+        // then
+        running.get(5, TimeUnit.SECONDS);
+        assertEquals("done", waiting.get().get(5, TimeUnit.SECONDS));
+    }
+
+    private static Object await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
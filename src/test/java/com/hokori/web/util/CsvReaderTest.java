@@ -0,0 +1,113 @@
+package com.hokori.web.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    /**
+     * TC-CSV-01
+     * Field trong ngoặc kép giữ nguyên dấu phẩy; "" là 1 dấu ngoặc kép
+     */
+    @Test
+    void readRecord_quotedCommasAndEscapedQuotes() throws IOException {
+        // given
+        CsvReader csv = new CsvReader(new StringReader("1,\"a, b\",\"say \"\"はい\"\"\",\"\"\n"));
+
+        // when
+        List<String> record = csv.readRecord();
+
+        // then
+        assertEquals(List.of("1", "a, b", "say \"はい\"", ""), record);
+        assertNull(csv.readRecord());
+    }
+
+    /**
+     * TC-CSV-02
+     * CRLF: \r ngoài ngoặc kép bị bỏ; xuống dòng trong ngoặc kép thuộc về field, số dòng vẫn đếm đúng
+     */
+    @Test
+    void readRecord_crlfAndMultilineField() throws IOException {
+        // given
+        CsvReader csv = new CsvReader(new StringReader("a,b\r\n\"line 1\nline 2\",c\r\nd,e"));
+
+        // when
+        List<String> first = csv.readRecord();
+        int firstLine = csv.getLineNumber();
+        List<String> second = csv.readRecord();
+        int secondLine = csv.getLineNumber();
+        List<String> third = csv.readRecord();
+
+        // then
+        assertEquals(List.of("a", "b"), first);
+        assertEquals(1, firstLine);
+        assertEquals(List.of("line 1\nline 2", "c"), second);
+        assertEquals(3, secondLine);
+        assertEquals(List.of("d", "e"), third);
+        assertEquals(4, csv.getLineNumber());
+        assertNull(csv.readRecord());
+    }
+
+    /**
+     * TC-CSV-03
+     * BOM đầu file (Excel) bị bỏ, không dính vào tên cột đầu tiên
+     */
+    @Test
+    void readRecord_leadingBomIsSkipped() throws IOException {
+        // given
+        CsvReader csv = new CsvReader(new StringReader("\uFEFFquestion_no,content\n1,\uFEFFx\n"));
+
+        // when
+        List<String> header = csv.readRecord();
+        List<String> row = csv.readRecord();
+
+        // then
+        assertEquals(List.of("question_no", "content"), header);
+        // BOM chỉ bị bỏ ở đầu file
+        assertEquals(List.of("1", "\uFEFFx"), row);
+    }
+
+    /**
+     * TC-CSV-04
+     * Dòng thiếu / thừa cột trả về đúng số field đọc được; dòng trống bị bỏ qua
+     */
+    @Test
+    void readRecord_raggedRowsAndBlankLines() throws IOException {
+        // given
+        CsvReader csv = new CsvReader(new StringReader("a,b,c\n\n1\n1,2,3,4\r\n\r\n1,,\n"));
+
+        // when
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = csv.readRecord()) != null) {
+            records.add(record);
+        }
+
+        // then
+        assertEquals(List.of(
+                List.of("a", "b", "c"),
+                List.of("1"),
+                List.of("1", "2", "3", "4"),
+                List.of("1", "", "")), records);
+    }
+
+    /**
+     * TC-CSV-05
+     * File rỗng hoặc ngoặc kép không đóng ở cuối file: không lỗi, trả phần đã đọc
+     */
+    @Test
+    void readRecord_emptyInputAndUnterminatedQuote() throws IOException {
+        assertNull(new CsvReader(new StringReader("")).readRecord());
+        assertNull(new CsvReader(new StringReader("\uFEFF")).readRecord());
+
+        CsvReader csv = new CsvReader(new StringReader("1,\"open"));
+        assertEquals(List.of("1", "open"), csv.readRecord());
+        assertNull(csv.readRecord());
+    }
+}
@@ -0,0 +1,68 @@
+package com.hokori.web.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinHashTest {
+
+    private static final String LESSON = "今日は日本語の挨拶を勉強します。おはようございます、こんにちは、こんばんは。"
+            + "朝はおはようございます、昼はこんにちは、夜はこんばんはと言います。"
+            + "Chào buổi sáng là おはようございます. Khi gặp thầy cô, hãy cúi chào và nói lễ phép.";
+
+    /**
+     * TC-MINHASH-01
+     * Bản chép lại có sửa nhẹ (dấu câu, khoảng trắng, chữ full-width, thêm 1 câu) vẫn tương đồng cao và
+     * chung band key; text khác hẳn thì tương đồng thấp và không chung band nào
+     */
+    @Test
+    void signature_nearCopySimilarAndUnrelatedTextDissimilar() {
+        // given
+        String copy = LESSON.replace("。", "!").replace(" ", "  ").replace("Chào", "ＣＨÀＯ")
+                + " Bài tập: luyện chào hỏi với bạn.";
+        String unrelated = "Trong bài này chúng ta học số đếm từ 1 đến 100: いち、に、さん、よん、ご、ろく、なな、はち。"
+                + "Giá tiền trong cửa hàng: 百円、千円、一万円。Hãy luyện đọc số điện thoại.";
+
+        // when
+        int[] original = MinHash.signature(MinHash.normalize(LESSON));
+        int[] nearCopy = MinHash.signature(MinHash.normalize(copy));
+        int[] other = MinHash.signature(MinHash.normalize(unrelated));
+
+        // then
+        assertTrue(MinHash.similarity(original, nearCopy) >= 0.7, "near copy " + MinHash.similarity(original, nearCopy));
+        assertTrue(MinHash.similarity(original, other) < 0.1, "unrelated " + MinHash.similarity(original, other));
+        assertTrue(sharesBand(original, nearCopy));
+        assertFalse(sharesBand(original, other));
+    }
+
+    /**
+     * TC-MINHASH-02
+     * Signature ổn định giữa các lần tính và qua lưu/đọc byte (giá trị lưu DB so sánh được về sau)
+     */
+    @Test
+    void signature_deterministicAndRoundTripsThroughBytes() {
+        // given
+        int[] first = MinHash.signature(MinHash.normalize(LESSON));
+
+        // when
+        int[] second = MinHash.fromBytes(MinHash.toBytes(MinHash.signature(MinHash.normalize(LESSON))));
+
+        // then
+        assertTrue(Arrays.equals(first, second));
+        assertEquals(1.0, MinHash.similarity(first, second));
+        assertNull(MinHash.signature(MinHash.normalize("Bài 1")));
+    }
+
+    private static boolean sharesBand(int[] a, int[] b) {
+        long[] keysA = MinHash.bandKeys(a);
+        long[] keysB = MinHash.bandKeys(b);
+        for (int band = 0; band < MinHash.BANDS; band++) {
+            if (keysA[band] == keysB[band]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
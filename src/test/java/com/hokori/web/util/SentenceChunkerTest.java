@@ -0,0 +1,115 @@
+package com.hokori.web.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SentenceChunkerTest {
+
+    /**
+     * TC-CHUNK-01
+     * Dấu câu tiếng Nhật: câu được trả ra ngay khi đoạn sau bắt đầu, phần dở dang chờ đoạn tiếp theo
+     */
+    @Test
+    void append_japaneseTerminators_emitsCompleteSentences() {
+        // given
+        SentenceChunker chunker = new SentenceChunker(6);
+
+        // when
+        List<String> first = chunker.append("こんにちは。今日は");
+        List<String> second = chunker.append("いい天気ですね！明日は晴れますか？");
+        List<String> third = chunker.append("雨です");
+
+        // then
+        assertEquals(List.of("こんにちは。"), first);
+        assertEquals(List.of("今日はいい天気ですね！"), second);
+        assertEquals(List.of("明日は晴れますか？"), third);
+        assertEquals("雨です", chunker.flush());
+    }
+
+    /**
+     * TC-CHUNK-02
+     * Dấu câu Latin: !? luôn kết thúc câu, "." chỉ khi theo sau là khoảng trắng (không cắt số thập phân)
+     */
+    @Test
+    void append_latinTerminators_splitOnlyAtSentenceEnds() {
+        // given
+        SentenceChunker chunker = new SentenceChunker(6);
+
+        // when
+        List<String> first = chunker.append("Hello there! How are you? It costs 3.5 yen. Ver");
+        List<String> second = chunker.append("sion 2.");
+        List<String> third = chunker.append("0 is out.\nThanks");
+
+        // then
+        assertEquals(List.of("Hello there!", "How are you?", "It costs 3.5 yen."), first);
+        assertEquals(List.of(), second);
+        assertEquals(List.of("Version 2.0 is out."), third);
+        assertEquals("Thanks", chunker.flush());
+    }
+
+    /**
+     * TC-CHUNK-03
+     * Dấu đóng ngoặc/nháy ngay sau dấu câu đi kèm câu đó, kể cả khi tới ở đoạn stream sau
+     */
+    @Test
+    void append_closingQuotesStayWithSentence() {
+        // given
+        SentenceChunker chunker = new SentenceChunker(3);
+
+        // when
+        List<String> first = chunker.append("「本当ですか？");
+        List<String> second = chunker.append("」と聞きました。He said \"OK.\" and left.");
+        List<String> third = chunker.append(" 『はい！』");
+
+        // then
+        assertEquals(List.of(), first);
+        assertEquals(List.of("「本当ですか？」", "と聞きました。", "He said \"OK.\""), second);
+        assertEquals(List.of("and left."), third);
+        assertEquals("『はい！』", chunker.flush());
+    }
+
+    /**
+     * TC-CHUNK-04
+     * Câu ngắn hơn minChars được gộp với câu sau; "!?" / "..." liên tiếp thuộc cùng 1 câu
+     */
+    @Test
+    void append_shortSentencesMergedAndRepeatedPunctuationKept() {
+        // given
+        SentenceChunker chunker = new SentenceChunker(6);
+
+        // when
+        List<String> sentences = new ArrayList<>();
+        sentences.addAll(chunker.append("はい。そうですね。"));
+        sentences.addAll(chunker.append("え！？本当に... Wow!! ok"));
+
+        // then
+        assertEquals(List.of("はい。そうですね。", "え！？本当に..."), sentences);
+        assertEquals("Wow!! ok", chunker.flush());
+    }
+
+    /**
+     * TC-CHUNK-05
+     * Hết stream: flush trả phần còn lại (kể cả câu ngắn / dấu câu cuối chưa xác nhận) rồi xoá buffer
+     */
+    @Test
+    void flush_returnsRemainderOnceThenNull() {
+        // given
+        SentenceChunker chunker = new SentenceChunker(6);
+
+        // when
+        List<String> sentences = chunker.append("  はい。");
+        String rest = chunker.flush();
+
+        // then
+        assertEquals(List.of(), sentences);
+        assertEquals("はい。", rest);
+        assertNull(chunker.flush());
+        assertEquals(List.of(), chunker.append(null));
+        assertEquals(List.of(), chunker.append(""));
+        assertNull(chunker.flush());
+    }
+}
@@ -0,0 +1,96 @@
+package com.hokori.web.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextSimilarityTest {
+
+    /**
+     * TC-SIM-01
+     * Myers (≤ 64 ký tự) và 2 hàng cuốn chiếu (> 64 ký tự) cho cùng kết quả với bảng DP đầy đủ
+     */
+    @Test
+    void editDistance_matchesFullMatrix_forShortAndLongTexts() {
+        // given
+        Random random = new Random(42);
+        String alphabet = "あいうかきくアイ私東京ーっ";
+
+        for (int round = 0; round < 2_000; round++) {
+            String a = randomText(random, alphabet, random.nextInt(round % 10 == 0 ? 150 : 70));
+            String b = randomText(random, alphabet, random.nextInt(round % 10 == 0 ? 150 : 70));
+
+            // when
+            int distance = TextSimilarity.editDistance(a, b);
+
+            // then
+            assertEquals(fullMatrix(a, b), distance, a + " / " + b);
+            assertEquals(distance, TextSimilarity.align(a, b).size(), a + " / " + b);
+        }
+    }
+
+    /**
+     * TC-SIM-02
+     * Katakana/hiragana và ー được coi là cùng âm; độ dài giữ nguyên
+     */
+    @Test
+    void foldKana_foldsScriptAndLongVowel() {
+        // when
+        String folded = TextSimilarity.foldKana("コーヒーとケーキ");
+
+        // then
+        assertEquals("こおひいとけえき", folded);
+        assertEquals(0, TextSimilarity.editDistance(folded, TextSimilarity.foldKana("こおひいとケエキ")));
+        assertEquals("ー", TextSimilarity.foldKana("ー")); // không có kana đứng trước
+    }
+
+    /**
+     * TC-SIM-03
+     * Dóng hàng: thiếu 1 ký tự chỉ báo đúng 1 chỗ, các ký tự sau không bị lệch
+     */
+    @Test
+    void align_reportsTypedEditsInOrder() {
+        // when
+        List<TextSimilarity.Edit> chars = TextSimilarity.align("わたしはがくせいです", "わたしわがくせです");
+        List<TextSimilarity.Edit> words = TextSimilarity.align(
+                new String[]{"わたし", "は", "がくせい", "です"},
+                new String[]{"わたし", "は", "せんせい", "です", "よ"});
+
+        // then
+        assertEquals(List.of(
+                new TextSimilarity.Edit(TextSimilarity.EditType.SUBSTITUTION, 3, 3),
+                new TextSimilarity.Edit(TextSimilarity.EditType.MISSING, 7, 7)), chars);
+        assertEquals(List.of(
+                new TextSimilarity.Edit(TextSimilarity.EditType.SUBSTITUTION, 2, 2),
+                new TextSimilarity.Edit(TextSimilarity.EditType.EXTRA, 4, 4)), words);
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        int letters = 1 + random.nextInt(alphabet.length());
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(letters)));
+        }
+        return sb.toString();
+    }
+
+    private static int fullMatrix(String a, String b) {
+        int[][] dp = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            dp[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            dp[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                dp[i][j] = Math.min(Math.min(dp[i - 1][j], dp[i][j - 1]) + 1, dp[i - 1][j - 1] + cost);
+            }
+        }
+        return dp[a.length()][b.length()];
+    }
+}